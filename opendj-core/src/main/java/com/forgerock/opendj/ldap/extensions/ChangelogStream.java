@@ -0,0 +1,198 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package com.forgerock.opendj.ldap.extensions;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.Connection;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.DecodeException;
+import org.forgerock.opendj.ldap.IntermediateResponseHandler;
+import org.forgerock.opendj.ldap.LdapPromise;
+import org.forgerock.opendj.ldap.responses.GenericExtendedResult;
+import org.forgerock.opendj.ldap.responses.IntermediateResponse;
+import org.forgerock.util.Reject;
+
+/**
+ * Client side of the {@link ChangelogStreamExtendedRequest changelog stream
+ * extended operation}. It decodes the streamed records, passes them to a
+ * {@link ChangelogStreamRecordHandler}, acknowledges them to the server once
+ * they have been handled and maintains the cookie from which the stream can be
+ * resumed.
+ * <p>
+ * Records are acknowledged every half window, so the server never waits for an
+ * acknowledgement as long as the records are handled faster than they are
+ * produced. Example:
+ *
+ * <pre>
+ * ChangelogStreamExtendedRequest request =
+ *         ChangelogStreamExtendedRequest.newRequest(lastCookie).addBaseDN(DN.valueOf("ou=people,dc=example,dc=com"));
+ * ChangelogStream stream = ChangelogStream.open(connection, request, new ChangelogStreamRecordHandler() {
+ *     public boolean handleRecord(ChangelogStreamRecord record) {
+ *         publish(record.getChange());
+ *         return true;
+ *     }
+ * });
+ * ...
+ * stream.close();
+ * saveCookie(stream.getCookie());
+ * </pre>
+ */
+public final class ChangelogStream implements IntermediateResponseHandler {
+    private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+    /** Offset of the server ID in the hexadecimal form of a change sequence number. */
+    private static final int CSN_SERVER_ID_OFFSET = 16;
+    /** Length of the server ID in the hexadecimal form of a change sequence number. */
+    private static final int CSN_SERVER_ID_LENGTH = 4;
+
+    /**
+     * Sends the provided changelog stream request and starts handling the
+     * streamed records.
+     *
+     * @param connection
+     *            The connection on which the records are streamed.
+     * @param request
+     *            The changelog stream request.
+     * @param handler
+     *            The handler of the streamed records.
+     * @return The changelog stream.
+     */
+    public static ChangelogStream open(final Connection connection, final ChangelogStreamExtendedRequest request,
+            final ChangelogStreamRecordHandler handler) {
+        Reject.ifNull(connection, request, handler);
+        final ChangelogStream stream = new ChangelogStream(connection, request, handler);
+        stream.result = connection.extendedRequestAsync(request, stream);
+        if (stream.closeRequested) {
+            stream.result.cancel(false);
+        }
+        return stream;
+    }
+
+    private final Connection connection;
+    private final ChangelogStreamRecordHandler handler;
+    private final int acknowledgeInterval;
+    /** Newest change sequence number per replication domain and per server ID. */
+    private final Map<DN, Map<String, String>> cookie = new LinkedHashMap<>();
+    private volatile LdapPromise<GenericExtendedResult> result;
+    private volatile boolean closeRequested;
+    /** Only accessed by the thread delivering the intermediate responses. */
+    private int unacknowledged;
+
+    private ChangelogStream(final Connection connection, final ChangelogStreamExtendedRequest request,
+            final ChangelogStreamRecordHandler handler) {
+        this.connection = connection;
+        this.handler = handler;
+        this.acknowledgeInterval = Math.max(1, request.getWindowSize() / 2);
+        parseCookie(request.getCookie());
+    }
+
+    private void parseCookie(final String cookieString) {
+        for (final String domain : cookieString.split(";")) {
+            final int separator = domain.lastIndexOf(':');
+            if (separator <= 0) {
+                continue;
+            }
+            final DN baseDN = DN.valueOf(domain.substring(0, separator));
+            for (final String csn : domain.substring(separator + 1).split(" ")) {
+                if (!csn.isEmpty()) {
+                    updateCookie(baseDN, csn);
+                }
+            }
+        }
+    }
+
+    private synchronized void updateCookie(final DN baseDN, final String csn) {
+        Map<String, String> serverIdToCSN = cookie.get(baseDN);
+        if (serverIdToCSN == null) {
+            serverIdToCSN = new LinkedHashMap<>();
+            cookie.put(baseDN, serverIdToCSN);
+        }
+        serverIdToCSN.put(csn.substring(CSN_SERVER_ID_OFFSET, CSN_SERVER_ID_OFFSET + CSN_SERVER_ID_LENGTH), csn);
+    }
+
+    /**
+     * Returns the cookie of the last handled record. It can be used to resume
+     * the stream once it has been closed.
+     *
+     * @return The cookie of the last handled record.
+     */
+    public synchronized String getCookie() {
+        final StringBuilder builder = new StringBuilder();
+        for (final Map.Entry<DN, Map<String, String>> entry : cookie.entrySet()) {
+            builder.append(entry.getKey()).append(':');
+            boolean first = true;
+            for (final String csn : entry.getValue().values()) {
+                if (!first) {
+                    builder.append(' ');
+                }
+                builder.append(csn);
+                first = false;
+            }
+            builder.append(';');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns the result of the changelog stream request. It completes once
+     * the stream has been closed, by the client or by the server.
+     *
+     * @return The result of the changelog stream request.
+     */
+    public LdapPromise<GenericExtendedResult> getResult() {
+        return result;
+    }
+
+    /** Closes this stream by abandoning the changelog stream request. */
+    public void close() {
+        closeRequested = true;
+        final LdapPromise<GenericExtendedResult> promise = result;
+        if (promise != null) {
+            promise.cancel(false);
+        }
+    }
+
+    @Override
+    public boolean handleIntermediateResponse(final IntermediateResponse response) {
+        if (closeRequested || !ChangelogStreamRecord.isChangelogStreamRecord(response)) {
+            return !closeRequested;
+        }
+
+        final ChangelogStreamRecord record;
+        try {
+            record = ChangelogStreamRecord.valueOf(response);
+        } catch (final DecodeException e) {
+            logger.traceException(e);
+            close();
+            return false;
+        }
+        if (!handler.handleRecord(record)) {
+            close();
+            return false;
+        }
+        updateCookie(record.getDomainBaseDN(), record.getCSN());
+
+        if (++unacknowledged >= acknowledgeInterval) {
+            unacknowledged = 0;
+            connection.extendedRequestAsync(ChangelogStreamAcknowledgeExtendedRequest.newRequest(
+                    record.getStreamID(), record.getSequenceNumber()));
+        }
+        return true;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package com.forgerock.opendj.ldap.extensions;
+
+import java.io.IOException;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.opendj.io.ASN1;
+import org.forgerock.opendj.io.ASN1Reader;
+import org.forgerock.opendj.io.ASN1Writer;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.forgerock.opendj.ldap.DecodeException;
+import org.forgerock.opendj.ldap.DecodeOptions;
+import org.forgerock.opendj.ldap.controls.Control;
+import org.forgerock.opendj.ldap.requests.AbstractExtendedRequest;
+import org.forgerock.opendj.ldap.requests.ExtendedRequest;
+import org.forgerock.opendj.ldap.requests.ExtendedRequestDecoder;
+import org.forgerock.opendj.ldap.requests.Requests;
+import org.forgerock.opendj.ldap.responses.ExtendedResultDecoder;
+import org.forgerock.opendj.ldap.responses.GenericExtendedResult;
+
+/**
+ * Changelog stream acknowledge extended request. This operation acknowledges
+ * all the records of a changelog stream up to and including the provided
+ * sequence number, allowing the server to send more records. It must be sent
+ * on the connection where the stream has been requested. The ASN.1 definition
+ * for the value of the extended request is:
+ *
+ * <pre>
+ * ChangelogStreamAcknowledgeValue ::= SEQUENCE {
+ *      streamID         INTEGER,
+ *      sequenceNumber   INTEGER }
+ * </pre>
+ *
+ * @see ChangelogStreamExtendedRequest
+ * @see ChangelogStreamRecord#getStreamID()
+ */
+public final class ChangelogStreamAcknowledgeExtendedRequest extends
+        AbstractExtendedRequest<ChangelogStreamAcknowledgeExtendedRequest, GenericExtendedResult> {
+    private static final class RequestDecoder implements
+            ExtendedRequestDecoder<ChangelogStreamAcknowledgeExtendedRequest, GenericExtendedResult> {
+        @Override
+        public ChangelogStreamAcknowledgeExtendedRequest decodeExtendedRequest(
+                final ExtendedRequest<?> request, final DecodeOptions options) throws DecodeException {
+            final ByteString requestValue = request.getValue();
+            if (requestValue == null) {
+                throw DecodeException.error(LocalizableMessage.raw("Empty request value"));
+            }
+
+            try {
+                final ASN1Reader reader = ASN1.getReader(requestValue);
+                reader.readStartSequence();
+                final long streamID = reader.readInteger();
+                final long sequenceNumber = reader.readInteger();
+                reader.readEndSequence();
+
+                final ChangelogStreamAcknowledgeExtendedRequest newRequest =
+                        new ChangelogStreamAcknowledgeExtendedRequest(streamID, sequenceNumber);
+                for (final Control control : request.getControls()) {
+                    newRequest.addControl(control);
+                }
+                return newRequest;
+            } catch (final IOException e) {
+                throw DecodeException.error(LocalizableMessage.raw("Error decoding request value"), e);
+            }
+        }
+    }
+
+    /** The OID for the changelog stream acknowledge extended request. */
+    public static final String OID = "1.3.6.1.4.1.36733.2.1.6.2";
+
+    /** A decoder which can be used to decode changelog stream acknowledge extended operation requests. */
+    public static final ExtendedRequestDecoder<ChangelogStreamAcknowledgeExtendedRequest, GenericExtendedResult>
+            REQUEST_DECODER = new RequestDecoder();
+
+    /** The response carries no value: a generic result is enough. */
+    private static final ExtendedResultDecoder<GenericExtendedResult> RESULT_DECODER =
+            Requests.newGenericExtendedRequest(OID).getResultDecoder();
+
+    /**
+     * Creates a new changelog stream acknowledge extended request.
+     *
+     * @param streamID
+     *            The identifier of the acknowledged stream, as provided by the
+     *            records of the stream.
+     * @param sequenceNumber
+     *            The sequence number of the last acknowledged record.
+     * @return The new changelog stream acknowledge extended request.
+     */
+    public static ChangelogStreamAcknowledgeExtendedRequest newRequest(final long streamID,
+            final long sequenceNumber) {
+        return new ChangelogStreamAcknowledgeExtendedRequest(streamID, sequenceNumber);
+    }
+
+    private final long streamID;
+    private final long sequenceNumber;
+
+    private ChangelogStreamAcknowledgeExtendedRequest(final long streamID, final long sequenceNumber) {
+        this.streamID = streamID;
+        this.sequenceNumber = sequenceNumber;
+    }
+
+    /**
+     * Returns the sequence number of the last acknowledged record.
+     *
+     * @return The sequence number of the last acknowledged record.
+     */
+    public long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    /**
+     * Returns the identifier of the acknowledged stream.
+     *
+     * @return The identifier of the acknowledged stream.
+     */
+    public long getStreamID() {
+        return streamID;
+    }
+
+    @Override
+    public String getOID() {
+        return OID;
+    }
+
+    @Override
+    public ExtendedResultDecoder<GenericExtendedResult> getResultDecoder() {
+        return RESULT_DECODER;
+    }
+
+    @Override
+    public ByteString getValue() {
+        final ByteStringBuilder buffer = new ByteStringBuilder(16);
+        final ASN1Writer writer = ASN1.getWriter(buffer);
+        try {
+            writer.writeStartSequence();
+            writer.writeInteger(streamID);
+            writer.writeInteger(sequenceNumber);
+            writer.writeEndSequence();
+            return buffer.toByteString();
+        } catch (final IOException ioe) {
+            // This should never happen unless there is a bug somewhere.
+            throw new RuntimeException(ioe);
+        }
+    }
+
+    @Override
+    public boolean hasValue() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("ChangelogStreamAcknowledgeExtendedRequest(requestName=");
+        builder.append(getOID());
+        builder.append(", streamID=");
+        builder.append(streamID);
+        builder.append(", sequenceNumber=");
+        builder.append(sequenceNumber);
+        builder.append(", controls=");
+        builder.append(getControls());
+        builder.append(")");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package com.forgerock.opendj.ldap.extensions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.opendj.io.ASN1;
+import org.forgerock.opendj.io.ASN1Reader;
+import org.forgerock.opendj.io.ASN1Writer;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.DecodeException;
+import org.forgerock.opendj.ldap.DecodeOptions;
+import org.forgerock.opendj.ldap.controls.Control;
+import org.forgerock.opendj.ldap.requests.AbstractExtendedRequest;
+import org.forgerock.opendj.ldap.requests.ExtendedRequest;
+import org.forgerock.opendj.ldap.requests.ExtendedRequestDecoder;
+import org.forgerock.opendj.ldap.requests.Requests;
+import org.forgerock.opendj.ldap.responses.ExtendedResultDecoder;
+import org.forgerock.opendj.ldap.responses.GenericExtendedResult;
+import org.forgerock.util.Reject;
+
+/**
+ * Changelog stream extended request. This operation streams the changes of the
+ * cookie based external changelog of a directory server to the client as
+ * {@link ChangelogStreamRecord intermediate responses}, without building the
+ * {@code cn=changelog} entries.
+ * <p>
+ * The stream starts right after the provided cookie and never ends on its own:
+ * it is terminated by abandoning or cancelling the request, or by closing the
+ * connection. The server sends at most {@code windowSize} records which have
+ * not been acknowledged with a
+ * {@link ChangelogStreamAcknowledgeExtendedRequest}. The ASN.1 definition for
+ * the value of the extended request is:
+ *
+ * <pre>
+ * ChangelogStreamRequestValue ::= SEQUENCE {
+ *      cookie          OCTET STRING,
+ *      windowSize      INTEGER (1 .. maxInt),
+ *      baseDNs     [0] SEQUENCE OF LDAPDN OPTIONAL,
+ *      attributes  [1] SEQUENCE OF AttributeDescription OPTIONAL }
+ * </pre>
+ *
+ * When {@code baseDNs} is provided, only the changes targeting entries below
+ * one of the base DNs are streamed. When {@code attributes} is provided, the
+ * changes only contain the listed attributes and modifications which do not
+ * touch any of them are not streamed.
+ *
+ * @see ChangelogStream
+ * @see ChangelogStreamRecord
+ */
+public final class ChangelogStreamExtendedRequest extends
+        AbstractExtendedRequest<ChangelogStreamExtendedRequest, GenericExtendedResult> {
+    private static final class RequestDecoder implements
+            ExtendedRequestDecoder<ChangelogStreamExtendedRequest, GenericExtendedResult> {
+        @Override
+        public ChangelogStreamExtendedRequest decodeExtendedRequest(final ExtendedRequest<?> request,
+                final DecodeOptions options) throws DecodeException {
+            final ByteString requestValue = request.getValue();
+            if (requestValue == null) {
+                throw DecodeException.error(LocalizableMessage.raw("Empty request value"));
+            }
+
+            try {
+                final ASN1Reader reader = ASN1.getReader(requestValue);
+                reader.readStartSequence();
+                final ChangelogStreamExtendedRequest newRequest =
+                        new ChangelogStreamExtendedRequest(reader.readOctetStringAsString());
+                newRequest.setWindowSize((int) reader.readInteger());
+                if (reader.hasNextElement() && reader.peekType() == TYPE_BASE_DNS) {
+                    reader.readStartSequence(TYPE_BASE_DNS);
+                    while (reader.hasNextElement()) {
+                        newRequest.baseDNs.add(DN.valueOf(reader.readOctetStringAsString()));
+                    }
+                    reader.readEndSequence();
+                }
+                if (reader.hasNextElement() && reader.peekType() == TYPE_ATTRIBUTES) {
+                    reader.readStartSequence(TYPE_ATTRIBUTES);
+                    while (reader.hasNextElement()) {
+                        newRequest.attributes.add(reader.readOctetStringAsString());
+                    }
+                    reader.readEndSequence();
+                }
+                reader.readEndSequence();
+
+                for (final Control control : request.getControls()) {
+                    newRequest.addControl(control);
+                }
+                return newRequest;
+            } catch (final IOException | IllegalArgumentException e) {
+                throw DecodeException.error(LocalizableMessage.raw("Error decoding request value"), e);
+            }
+        }
+    }
+
+    /** The OID for the changelog stream extended request. */
+    public static final String OID = "1.3.6.1.4.1.36733.2.1.6.1";
+
+    /** The default maximum number of records which have not been acknowledged. */
+    public static final int DEFAULT_WINDOW_SIZE = 1000;
+
+    /** A decoder which can be used to decode changelog stream extended operation requests. */
+    public static final ExtendedRequestDecoder<ChangelogStreamExtendedRequest, GenericExtendedResult>
+            REQUEST_DECODER = new RequestDecoder();
+
+    /** The stream only ends with an error or with a cancellation: a generic result is enough. */
+    private static final ExtendedResultDecoder<GenericExtendedResult> RESULT_DECODER =
+            Requests.newGenericExtendedRequest(OID).getResultDecoder();
+
+    private static final byte TYPE_BASE_DNS = (byte) 0xA0;
+    private static final byte TYPE_ATTRIBUTES = (byte) 0xA1;
+
+    /**
+     * Creates a new changelog stream extended request starting right after the
+     * provided cookie.
+     *
+     * @param cookie
+     *            The cookie after which the changes must be streamed, which may
+     *            be empty in order to stream all the changes of the changelog.
+     * @return The new changelog stream extended request.
+     * @throws NullPointerException
+     *             If {@code cookie} was {@code null}.
+     */
+    public static ChangelogStreamExtendedRequest newRequest(final String cookie) {
+        Reject.ifNull(cookie);
+        return new ChangelogStreamExtendedRequest(cookie);
+    }
+
+    private final String cookie;
+    private int windowSize = DEFAULT_WINDOW_SIZE;
+    private final List<DN> baseDNs = new ArrayList<>();
+    private final List<String> attributes = new ArrayList<>();
+
+    private ChangelogStreamExtendedRequest(final String cookie) {
+        this.cookie = cookie;
+    }
+
+    /**
+     * Adds a base DN to the list of base DNs below which the streamed changes
+     * must apply.
+     *
+     * @param baseDN
+     *            The base DN.
+     * @return This changelog stream extended request.
+     * @throws NullPointerException
+     *             If {@code baseDN} was {@code null}.
+     */
+    public ChangelogStreamExtendedRequest addBaseDN(final DN baseDN) {
+        Reject.ifNull(baseDN);
+        baseDNs.add(baseDN);
+        return this;
+    }
+
+    /**
+     * Adds an attribute description to the list of attributes to include in
+     * the streamed changes.
+     *
+     * @param attributeDescription
+     *            The attribute description.
+     * @return This changelog stream extended request.
+     * @throws NullPointerException
+     *             If {@code attributeDescription} was {@code null}.
+     */
+    public ChangelogStreamExtendedRequest addAttribute(final String attributeDescription) {
+        Reject.ifNull(attributeDescription);
+        attributes.add(attributeDescription);
+        return this;
+    }
+
+    /**
+     * Returns the attribute descriptions to include in the streamed changes,
+     * or an empty list if all the attributes must be included.
+     *
+     * @return The attribute descriptions to include in the streamed changes.
+     */
+    public List<String> getAttributes() {
+        return Collections.unmodifiableList(attributes);
+    }
+
+    /**
+     * Returns the base DNs below which the streamed changes must apply, or an
+     * empty list if all the changes must be streamed.
+     *
+     * @return The base DNs below which the streamed changes must apply.
+     */
+    public List<DN> getBaseDNs() {
+        return Collections.unmodifiableList(baseDNs);
+    }
+
+    /**
+     * Returns the cookie after which the changes must be streamed.
+     *
+     * @return The cookie after which the changes must be streamed.
+     */
+    public String getCookie() {
+        return cookie;
+    }
+
+    /**
+     * Returns the maximum number of records the server sends without having
+     * received an acknowledgement.
+     *
+     * @return The maximum number of records which have not been acknowledged.
+     */
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Sets the maximum number of records the server sends without having
+     * received an acknowledgement. The server may lower this number.
+     *
+     * @param windowSize
+     *            The maximum number of records which have not been
+     *            acknowledged.
+     * @return This changelog stream extended request.
+     * @throws IllegalArgumentException
+     *             If {@code windowSize} is not strictly positive.
+     */
+    public ChangelogStreamExtendedRequest setWindowSize(final int windowSize) {
+        Reject.ifFalse(windowSize > 0, "The window size must be strictly positive");
+        this.windowSize = windowSize;
+        return this;
+    }
+
+    @Override
+    public String getOID() {
+        return OID;
+    }
+
+    @Override
+    public ExtendedResultDecoder<GenericExtendedResult> getResultDecoder() {
+        return RESULT_DECODER;
+    }
+
+    @Override
+    public ByteString getValue() {
+        final ByteStringBuilder buffer = new ByteStringBuilder();
+        final ASN1Writer writer = ASN1.getWriter(buffer);
+        try {
+            writer.writeStartSequence();
+            writer.writeOctetString(cookie);
+            writer.writeInteger(windowSize);
+            if (!baseDNs.isEmpty()) {
+                writer.writeStartSequence(TYPE_BASE_DNS);
+                for (final DN baseDN : baseDNs) {
+                    writer.writeOctetString(baseDN.toString());
+                }
+                writer.writeEndSequence();
+            }
+            if (!attributes.isEmpty()) {
+                writer.writeStartSequence(TYPE_ATTRIBUTES);
+                for (final String attribute : attributes) {
+                    writer.writeOctetString(attribute);
+                }
+                writer.writeEndSequence();
+            }
+            writer.writeEndSequence();
+            return buffer.toByteString();
+        } catch (final IOException ioe) {
+            // This should never happen unless there is a bug somewhere.
+            throw new RuntimeException(ioe);
+        }
+    }
+
+    @Override
+    public boolean hasValue() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("ChangelogStreamExtendedRequest(requestName=");
+        builder.append(getOID());
+        builder.append(", cookie=");
+        builder.append(cookie);
+        builder.append(", windowSize=");
+        builder.append(windowSize);
+        builder.append(", baseDNs=");
+        builder.append(baseDNs);
+        builder.append(", attributes=");
+        builder.append(attributes);
+        builder.append(", controls=");
+        builder.append(getControls());
+        builder.append(")");
+        return builder.toString();
+    }
+}
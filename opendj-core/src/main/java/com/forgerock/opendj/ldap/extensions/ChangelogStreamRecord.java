@@ -0,0 +1,286 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package com.forgerock.opendj.ldap.extensions;
+
+import java.io.IOException;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.opendj.io.ASN1;
+import org.forgerock.opendj.io.ASN1Reader;
+import org.forgerock.opendj.ldap.Attribute;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.DecodeException;
+import org.forgerock.opendj.ldap.LinkedAttribute;
+import org.forgerock.opendj.ldap.Modification;
+import org.forgerock.opendj.ldap.ModificationType;
+import org.forgerock.opendj.ldap.RDN;
+import org.forgerock.opendj.ldap.requests.AddRequest;
+import org.forgerock.opendj.ldap.requests.ModifyDNRequest;
+import org.forgerock.opendj.ldap.requests.ModifyRequest;
+import org.forgerock.opendj.ldap.requests.Requests;
+import org.forgerock.opendj.ldap.responses.IntermediateResponse;
+import org.forgerock.opendj.ldif.ChangeRecord;
+
+import static com.forgerock.opendj.util.StaticUtils.*;
+
+/**
+ * A change streamed by the {@link ChangelogStreamExtendedRequest changelog
+ * stream extended operation}. Each change is sent as an intermediate response
+ * whose name is {@link #OID} and whose value is:
+ *
+ * <pre>
+ * ChangelogStreamRecordValue ::= SEQUENCE {
+ *      streamID         INTEGER,
+ *      sequenceNumber   INTEGER,
+ *      domainBaseDN     LDAPDN,
+ *      csn              OCTET STRING,
+ *      entryUUID        OCTET STRING,
+ *      targetDN         LDAPDN,
+ *      change           CHOICE {
+ *           add       [0] SEQUENCE OF PartialAttribute,
+ *           delete    [1] NULL,
+ *           modify    [2] SEQUENCE OF SEQUENCE {
+ *                operation     ENUMERATED,
+ *                modification  PartialAttribute },
+ *           modifyDN  [3] SEQUENCE {
+ *                newRDN        RelativeLDAPDN,
+ *                deleteOldRDN  BOOLEAN,
+ *                newSuperior   [0] LDAPDN OPTIONAL } } }
+ * </pre>
+ *
+ * The {@code csn} is the 14 bytes binary form of the replication change
+ * sequence number: an 8 bytes timestamp, a 2 bytes server ID and a 4 bytes
+ * sequence number. {@code PartialAttribute} and the modification operations
+ * are defined as in RFC 4511.
+ */
+public final class ChangelogStreamRecord {
+    /** The name of the intermediate responses carrying changelog stream records. */
+    public static final String OID = "1.3.6.1.4.1.36733.2.1.6.3";
+
+    private static final byte TYPE_ADD = (byte) 0xA0;
+    private static final byte TYPE_DELETE = (byte) 0x81;
+    private static final byte TYPE_MODIFY = (byte) 0xA2;
+    private static final byte TYPE_MODIFY_DN = (byte) 0xA3;
+    private static final byte TYPE_NEW_SUPERIOR = (byte) 0x80;
+
+    /** Length of the binary form of a change sequence number. */
+    private static final int CSN_LENGTH = 14;
+
+    /**
+     * Returns whether the provided intermediate response carries a changelog
+     * stream record.
+     *
+     * @param response
+     *            The intermediate response.
+     * @return {@code true} if the provided intermediate response carries a
+     *         changelog stream record.
+     */
+    public static boolean isChangelogStreamRecord(final IntermediateResponse response) {
+        return OID.equals(response.getOID()) && response.getValue() != null;
+    }
+
+    /**
+     * Decodes the changelog stream record carried by the provided intermediate
+     * response.
+     *
+     * @param response
+     *            The intermediate response.
+     * @return The decoded changelog stream record.
+     * @throws DecodeException
+     *             If the intermediate response does not carry a valid
+     *             changelog stream record.
+     */
+    public static ChangelogStreamRecord valueOf(final IntermediateResponse response) throws DecodeException {
+        if (!isChangelogStreamRecord(response)) {
+            throw DecodeException.error(LocalizableMessage.raw("Not a changelog stream record"));
+        }
+
+        try {
+            final ASN1Reader reader = ASN1.getReader(response.getValue());
+            reader.readStartSequence();
+            final long streamID = reader.readInteger();
+            final long sequenceNumber = reader.readInteger();
+            final DN domainBaseDN = DN.valueOf(reader.readOctetStringAsString());
+            final String csn = decodeCSN(reader.readOctetString());
+            final String entryUUID = reader.readOctetStringAsString();
+            final DN targetDN = DN.valueOf(reader.readOctetStringAsString());
+            final ChangeRecord change = decodeChange(reader, targetDN);
+            reader.readEndSequence();
+            return new ChangelogStreamRecord(streamID, sequenceNumber, domainBaseDN, csn, entryUUID, change);
+        } catch (final IOException | IllegalArgumentException e) {
+            throw DecodeException.error(LocalizableMessage.raw("Error decoding changelog stream record"), e);
+        }
+    }
+
+    private static String decodeCSN(final ByteString csn) throws DecodeException {
+        if (csn.length() != CSN_LENGTH) {
+            throw DecodeException.error(LocalizableMessage.raw("Invalid change sequence number length"));
+        }
+        final StringBuilder builder = new StringBuilder(CSN_LENGTH * 2);
+        for (int i = 0; i < CSN_LENGTH; i++) {
+            builder.append(byteToLowerHex(csn.byteAt(i)));
+        }
+        return builder.toString();
+    }
+
+    private static ChangeRecord decodeChange(final ASN1Reader reader, final DN targetDN)
+            throws DecodeException, IOException {
+        switch (reader.peekType()) {
+        case TYPE_ADD:
+            final AddRequest add = Requests.newAddRequest(targetDN);
+            reader.readStartSequence(TYPE_ADD);
+            while (reader.hasNextElement()) {
+                add.addAttribute(decodePartialAttribute(reader));
+            }
+            reader.readEndSequence();
+            return add;
+        case TYPE_DELETE:
+            reader.readNull(TYPE_DELETE);
+            return Requests.newDeleteRequest(targetDN);
+        case TYPE_MODIFY:
+            final ModifyRequest modify = Requests.newModifyRequest(targetDN);
+            reader.readStartSequence(TYPE_MODIFY);
+            while (reader.hasNextElement()) {
+                reader.readStartSequence();
+                final ModificationType type = ModificationType.valueOf(reader.readEnumerated());
+                modify.addModification(new Modification(type, decodePartialAttribute(reader)));
+                reader.readEndSequence();
+            }
+            reader.readEndSequence();
+            return modify;
+        case TYPE_MODIFY_DN:
+            reader.readStartSequence(TYPE_MODIFY_DN);
+            final ModifyDNRequest modifyDN =
+                    Requests.newModifyDNRequest(targetDN, RDN.valueOf(reader.readOctetStringAsString()));
+            modifyDN.setDeleteOldRDN(reader.readBoolean());
+            if (reader.hasNextElement() && reader.peekType() == TYPE_NEW_SUPERIOR) {
+                modifyDN.setNewSuperior(DN.valueOf(reader.readOctetStringAsString(TYPE_NEW_SUPERIOR)));
+            }
+            reader.readEndSequence();
+            return modifyDN;
+        default:
+            throw DecodeException.error(LocalizableMessage.raw("Unknown change type %s",
+                    byteToHex(reader.peekType())));
+        }
+    }
+
+    private static Attribute decodePartialAttribute(final ASN1Reader reader) throws DecodeException, IOException {
+        reader.readStartSequence();
+        final Attribute attribute = new LinkedAttribute(reader.readOctetStringAsString());
+        reader.readStartSet();
+        while (reader.hasNextElement()) {
+            attribute.add(reader.readOctetString());
+        }
+        reader.readEndSet();
+        reader.readEndSequence();
+        return attribute;
+    }
+
+    private final long streamID;
+    private final long sequenceNumber;
+    private final DN domainBaseDN;
+    private final String csn;
+    private final String entryUUID;
+    private final ChangeRecord change;
+
+    private ChangelogStreamRecord(final long streamID, final long sequenceNumber, final DN domainBaseDN,
+            final String csn, final String entryUUID, final ChangeRecord change) {
+        this.streamID = streamID;
+        this.sequenceNumber = sequenceNumber;
+        this.domainBaseDN = domainBaseDN;
+        this.csn = csn;
+        this.entryUUID = entryUUID;
+        this.change = change;
+    }
+
+    /**
+     * Returns the change, which is an add, delete, modify or modify DN request
+     * targeting the changed entry.
+     *
+     * @return The change.
+     */
+    public ChangeRecord getChange() {
+        return change;
+    }
+
+    /**
+     * Returns the change sequence number of the change, in the same
+     * hexadecimal form as in changelog cookies.
+     *
+     * @return The change sequence number of the change.
+     */
+    public String getCSN() {
+        return csn;
+    }
+
+    /**
+     * Returns the base DN of the replication domain of the change.
+     *
+     * @return The base DN of the replication domain of the change.
+     */
+    public DN getDomainBaseDN() {
+        return domainBaseDN;
+    }
+
+    /**
+     * Returns the entry UUID of the changed entry.
+     *
+     * @return The entry UUID of the changed entry.
+     */
+    public String getEntryUUID() {
+        return entryUUID;
+    }
+
+    /**
+     * Returns the sequence number of this record in its stream, to be used for
+     * acknowledging it.
+     *
+     * @return The sequence number of this record in its stream.
+     */
+    public long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    /**
+     * Returns the identifier of the stream of this record, to be used for
+     * acknowledging it.
+     *
+     * @return The identifier of the stream of this record.
+     */
+    public long getStreamID() {
+        return streamID;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("ChangelogStreamRecord(streamID=");
+        builder.append(streamID);
+        builder.append(", sequenceNumber=");
+        builder.append(sequenceNumber);
+        builder.append(", domainBaseDN=");
+        builder.append(domainBaseDN);
+        builder.append(", csn=");
+        builder.append(csn);
+        builder.append(", entryUUID=");
+        builder.append(entryUUID);
+        builder.append(", change=");
+        builder.append(change);
+        builder.append(")");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package com.forgerock.opendj.ldap.extensions;
+
+/**
+ * A handler for consuming the records of a {@link ChangelogStream}.
+ * <p>
+ * Records are handled one at a time, in the order they are streamed by the
+ * server. A record is acknowledged to the server, and its change sequence
+ * number is taken into account in the {@link ChangelogStream#getCookie()
+ * cookie} of the stream, only once it has been successfully handled.
+ */
+public interface ChangelogStreamRecordHandler {
+    /**
+     * Invoked each time a record is streamed by the server.
+     *
+     * @param record
+     *            The changelog stream record.
+     * @return {@code true} if this handler should continue to be notified of
+     *         the next records, or {@code false} if the stream must be closed.
+     */
+    boolean handleRecord(ChangelogStreamRecord record);
+}
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.io;
 
@@ -26,12 +27,15 @@ import org.forgerock.opendj.ldap.Attribute;
 import org.forgerock.opendj.ldap.AttributeDescription;
 import org.forgerock.opendj.ldap.ByteSequence;
 import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.CompactEntry;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.DecodeException;
 import org.forgerock.opendj.ldap.DecodeOptions;
 import org.forgerock.opendj.ldap.Entry;
+import org.forgerock.opendj.ldap.EntryFactory;
 import org.forgerock.opendj.ldap.Filter;
 import org.forgerock.opendj.ldap.FilterVisitor;
+import org.forgerock.opendj.ldap.LinkedHashMapEntry;
 import org.forgerock.opendj.ldap.schema.Schema;
 
 /**
@@ -500,12 +504,15 @@ public final class LDAP {
     static Entry readEntry(final ASN1Reader reader, final byte tagType, final DecodeOptions options)
             throws DecodeException, IOException {
         reader.readStartSequence(tagType);
+        final EntryFactory entryFactory = options.getEntryFactory();
+        // Compact entries copy all their values whenever an attribute is added: pack them once instead.
+        final boolean isCompact = entryFactory == CompactEntry.FACTORY;
         final Entry entry;
         try {
             final String dnString = reader.readOctetStringAsString();
             final Schema schema = options.getSchemaResolver().resolveSchema(dnString);
             final DN dn = readDN(dnString, schema);
-            entry = options.getEntryFactory().newEntry(dn);
+            entry = isCompact ? new LinkedHashMapEntry(dn) : entryFactory.newEntry(dn);
             reader.readStartSequence();
             try {
                 while (reader.hasNextElement()) {
@@ -533,7 +540,7 @@ public final class LDAP {
         } finally {
             reader.readEndSequence();
         }
-        return entry;
+        return isCompact ? new CompactEntry(entry) : entry;
     }
 
     static void writeAttribute(final ASN1Writer writer, final Attribute attribute)
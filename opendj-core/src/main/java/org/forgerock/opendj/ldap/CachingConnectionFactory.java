@@ -0,0 +1,656 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.ldap;
+
+import static org.forgerock.opendj.ldap.LdapException.newLdapException;
+import static org.forgerock.opendj.ldap.responses.Responses.copyOfResult;
+import static org.forgerock.opendj.ldap.responses.Responses.copyOfSearchResultEntry;
+import static org.forgerock.opendj.ldap.spi.LdapPromises.newFailedLdapPromise;
+import static org.forgerock.opendj.ldap.spi.LdapPromises.newSuccessfulLdapPromise;
+import static org.forgerock.util.Utils.closeSilently;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.controls.EntryChangeNotificationResponseControl;
+import org.forgerock.opendj.ldap.controls.PersistentSearchChangeType;
+import org.forgerock.opendj.ldap.controls.PersistentSearchRequestControl;
+import org.forgerock.opendj.ldap.requests.AbandonRequest;
+import org.forgerock.opendj.ldap.requests.AddRequest;
+import org.forgerock.opendj.ldap.requests.BindRequest;
+import org.forgerock.opendj.ldap.requests.CompareRequest;
+import org.forgerock.opendj.ldap.requests.DeleteRequest;
+import org.forgerock.opendj.ldap.requests.ExtendedRequest;
+import org.forgerock.opendj.ldap.requests.ModifyDNRequest;
+import org.forgerock.opendj.ldap.requests.ModifyRequest;
+import org.forgerock.opendj.ldap.requests.Requests;
+import org.forgerock.opendj.ldap.requests.SearchRequest;
+import org.forgerock.opendj.ldap.requests.UnbindRequest;
+import org.forgerock.opendj.ldap.responses.BindResult;
+import org.forgerock.opendj.ldap.responses.CompareResult;
+import org.forgerock.opendj.ldap.responses.ExtendedResult;
+import org.forgerock.opendj.ldap.responses.Result;
+import org.forgerock.opendj.ldap.responses.SearchResultEntry;
+import org.forgerock.opendj.ldap.responses.SearchResultReference;
+import org.forgerock.util.Function;
+import org.forgerock.util.Reject;
+import org.forgerock.util.promise.ExceptionHandler;
+import org.forgerock.util.promise.Promise;
+import org.forgerock.util.promise.ResultHandler;
+import org.forgerock.util.time.TimeService;
+
+/**
+ * A connection factory whose connections cache the results of search requests, and which keeps the cached results
+ * coherent with the directory server by listening to a persistent search.
+ * <p>
+ * Search requests without controls whose base DN is subordinate to the cache base DN are cached, including
+ * unsuccessful base object searches targeting an entry which does not exist. Cached results are evicted when they
+ * expire, when the cache is full, and as soon as the persistent search reports a change to an entry which may be
+ * returned by the cached search. Results are only cached while the persistent search is active: if it fails, the cache
+ * is cleared and the persistent search is re-established during a subsequent search.
+ * <p>
+ * The cache is shared by all the connections of this factory, which must therefore all have the same authorization
+ * identity: connections on which a bind request has been sent stop using the cache. Write operations sent through
+ * the cached connections immediately evict the affected results, so that applications read their own writes even
+ * before the persistent search reports them.
+ */
+final class CachingConnectionFactory implements ConnectionFactory, ReadCacheMetrics {
+    /** A connection which serves search requests from the cache when possible. */
+    private final class CachingConnection extends AbstractAsynchronousConnection {
+        private final Connection connection;
+        /** Whether the authorization identity of this connection may differ from the one of the factory. */
+        private volatile boolean bypassCache;
+
+        private CachingConnection(final Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public LdapPromise<Void> abandonAsync(final AbandonRequest request) {
+            return connection.abandonAsync(request);
+        }
+
+        @Override
+        public LdapPromise<Result> addAsync(final AddRequest request,
+                final IntermediateResponseHandler intermediateResponseHandler) {
+            return connection.addAsync(request, intermediateResponseHandler)
+                    .thenOnResultOrException(newInvalidationTask(request.getName(), false));
+        }
+
+        @Override
+        public void addConnectionEventListener(final ConnectionEventListener listener) {
+            connection.addConnectionEventListener(listener);
+        }
+
+        @Override
+        public LdapPromise<BindResult> bindAsync(final BindRequest request,
+                final IntermediateResponseHandler intermediateResponseHandler) {
+            bypassCache = true;
+            return connection.bindAsync(request, intermediateResponseHandler);
+        }
+
+        @Override
+        public void close(final UnbindRequest request, final String reason) {
+            connection.close(request, reason);
+        }
+
+        @Override
+        public LdapPromise<CompareResult> compareAsync(final CompareRequest request,
+                final IntermediateResponseHandler intermediateResponseHandler) {
+            return connection.compareAsync(request, intermediateResponseHandler);
+        }
+
+        @Override
+        public LdapPromise<Result> deleteAsync(final DeleteRequest request,
+                final IntermediateResponseHandler intermediateResponseHandler) {
+            return connection.deleteAsync(request, intermediateResponseHandler)
+                    .thenOnResultOrException(newInvalidationTask(request.getName(), true));
+        }
+
+        @Override
+        public <R extends ExtendedResult> LdapPromise<R> extendedRequestAsync(final ExtendedRequest<R> request,
+                final IntermediateResponseHandler intermediateResponseHandler) {
+            return connection.extendedRequestAsync(request, intermediateResponseHandler);
+        }
+
+        @Override
+        public boolean isClosed() {
+            return connection.isClosed();
+        }
+
+        @Override
+        public boolean isValid() {
+            return connection.isValid();
+        }
+
+        @Override
+        public LdapPromise<Result> modifyAsync(final ModifyRequest request,
+                final IntermediateResponseHandler intermediateResponseHandler) {
+            return connection.modifyAsync(request, intermediateResponseHandler)
+                    .thenOnResultOrException(newInvalidationTask(request.getName(), false));
+        }
+
+        @Override
+        public LdapPromise<Result> modifyDNAsync(final ModifyDNRequest request,
+                final IntermediateResponseHandler intermediateResponseHandler) {
+            final DN oldName = request.getName();
+            final DN newSuperior = request.getNewSuperior() != null ? request.getNewSuperior() : oldName.parent();
+            final DN newName = newSuperior != null ? newSuperior.child(request.getNewRDN()) : null;
+            return connection.modifyDNAsync(request, intermediateResponseHandler)
+                    .thenOnResultOrException(new Runnable() {
+                        @Override
+                        public void run() {
+                            invalidate(oldName, true);
+                            if (newName != null) {
+                                invalidate(newName, true);
+                            }
+                        }
+                    });
+        }
+
+        @Override
+        public void removeConnectionEventListener(final ConnectionEventListener listener) {
+            connection.removeConnectionEventListener(listener);
+        }
+
+        @Override
+        public LdapPromise<Result> searchAsync(final SearchRequest request,
+                final IntermediateResponseHandler intermediateResponseHandler,
+                final SearchResultHandler entryHandler) {
+            if (bypassCache || !isCacheable(request)) {
+                return connection.searchAsync(request, intermediateResponseHandler, entryHandler);
+            }
+            final SearchKey key = new SearchKey(request);
+            final CachedSearch cachedSearch = getCachedSearch(key);
+            if (cachedSearch != null) {
+                return cachedSearch.replay(entryHandler);
+            }
+            misses.increment();
+
+            // Results are only cached if no invalidation may have happened while the search was being performed.
+            final long invalidationsBeforeSearch = invalidations.get();
+            final List<SearchResultEntry> entries = new ArrayList<>();
+            final AtomicBoolean isComplete = new AtomicBoolean(true);
+            final SearchResultHandler cachingHandler = new SearchResultHandler() {
+                @Override
+                public boolean handleEntry(final SearchResultEntry entry) {
+                    // Copy the entry before returning it, since the application may modify it.
+                    final SearchResultEntry copy = copyOfSearchResultEntry(entry);
+                    synchronized (entries) {
+                        entries.add(copy);
+                    }
+                    if (!entryHandler.handleEntry(entry)) {
+                        isComplete.set(false);
+                        return false;
+                    }
+                    return true;
+                }
+
+                @Override
+                public boolean handleReference(final SearchResultReference reference) {
+                    // References may be followed using a different identity, do not cache them.
+                    isComplete.set(false);
+                    return entryHandler.handleReference(reference);
+                }
+            };
+            return connection.searchAsync(request, intermediateResponseHandler, cachingHandler)
+                    .thenOnResult(new ResultHandler<Result>() {
+                        @Override
+                        public void handleResult(final Result result) {
+                            if (isComplete.get()) {
+                                synchronized (entries) {
+                                    putCachedSearch(key, new CachedSearch(request, entries, copyOfResult(result),
+                                            false), invalidationsBeforeSearch);
+                                }
+                            }
+                        }
+                    }).thenOnException(new ExceptionHandler<LdapException>() {
+                        @Override
+                        public void handleException(final LdapException e) {
+                            final Result result = e.getResult();
+                            if (request.getScope().equals(SearchScope.BASE_OBJECT)
+                                    && result.getResultCode().equals(ResultCode.NO_SUCH_OBJECT)) {
+                                putCachedSearch(key, new CachedSearch(request,
+                                        Collections.<SearchResultEntry> emptyList(), copyOfResult(result), true),
+                                        invalidationsBeforeSearch);
+                            }
+                        }
+                    });
+        }
+
+        @Override
+        public String toString() {
+            return "CachingConnection(" + connection + ")";
+        }
+    }
+
+    /** The cached results of a search request. */
+    private final class CachedSearch {
+        private final DN baseDN;
+        private final SearchScope scope;
+        private final List<SearchResultEntry> entries;
+        private final Result result;
+        private final boolean isNegative;
+        private final long expirationTimeMillis;
+        private volatile boolean referenced;
+
+        private CachedSearch(final SearchRequest request, final List<SearchResultEntry> entries, final Result result,
+                final boolean isNegative) {
+            this.baseDN = request.getName();
+            this.scope = request.getScope();
+            this.entries = new ArrayList<>(entries);
+            this.result = result;
+            this.isNegative = isNegative;
+            this.expirationTimeMillis = timeService.now() + timeToLiveMillis;
+        }
+
+        private int weight() {
+            return Math.max(entries.size(), 1);
+        }
+
+        private boolean mayContain(final DN dn, final boolean subtree) {
+            return dn.isInScopeOf(baseDN, scope) || (subtree && baseDN.isSubordinateOrEqualTo(dn));
+        }
+
+        private LdapPromise<Result> replay(final SearchResultHandler entryHandler) {
+            if (isNegative) {
+                return newFailedLdapPromise(newLdapException(copyOfResult(result)));
+            }
+            for (final SearchResultEntry entry : entries) {
+                if (!entryHandler.handleEntry(copyOfSearchResultEntry(entry))) {
+                    break;
+                }
+            }
+            return newSuccessfulLdapPromise(copyOfResult(result));
+        }
+    }
+
+    /** The properties of a search request which determine its results. */
+    private static final class SearchKey {
+        private final DN name;
+        private final SearchScope scope;
+        private final String filter;
+        private final List<String> attributes;
+        private final boolean typesOnly;
+        private final int sizeLimit;
+        private final DereferenceAliasesPolicy dereferenceAliasesPolicy;
+        private final int hashCode;
+
+        private SearchKey(final SearchRequest request) {
+            this.name = request.getName();
+            this.scope = request.getScope();
+            this.filter = request.getFilter().toString();
+            this.attributes = new ArrayList<>(request.getAttributes());
+            this.typesOnly = request.isTypesOnly();
+            this.sizeLimit = request.getSizeLimit();
+            this.dereferenceAliasesPolicy = request.getDereferenceAliasesPolicy();
+            this.hashCode = name.hashCode() * 31 + filter.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (!(obj instanceof SearchKey)) {
+                return false;
+            }
+            final SearchKey other = (SearchKey) obj;
+            return name.equals(other.name) && scope.equals(other.scope) && filter.equals(other.filter)
+                    && attributes.equals(other.attributes) && typesOnly == other.typesOnly
+                    && sizeLimit == other.sizeLimit && dereferenceAliasesPolicy.equals(other.dereferenceAliasesPolicy);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /** Evicts the cached results which may be affected by the changes reported by the persistent search. */
+    private final class ChangeListener implements SearchResultHandler {
+        @Override
+        public boolean handleEntry(final SearchResultEntry entry) {
+            EntryChangeNotificationResponseControl control = null;
+            try {
+                control = entry.getControl(EntryChangeNotificationResponseControl.DECODER, DECODE_OPTIONS);
+            } catch (final DecodeException e) {
+                logger.traceException(e);
+            }
+            if (control == null) {
+                // The kind of change is unknown.
+                invalidateAll();
+                return true;
+            }
+            switch (control.getChangeType()) {
+            case ADD:
+            case MODIFY:
+                invalidate(entry.getName(), false);
+                break;
+            case MODIFY_DN:
+                if (control.getPreviousName() != null) {
+                    invalidate(control.getPreviousName(), true);
+                } else {
+                    invalidateAll();
+                }
+                invalidate(entry.getName(), true);
+                break;
+            default:
+                invalidate(entry.getName(), true);
+                break;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean handleReference(final SearchResultReference reference) {
+            return true;
+        }
+    }
+
+    private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+    private static final DecodeOptions DECODE_OPTIONS = new DecodeOptions();
+
+    /** The minimum delay between two attempts to establish the persistent search. */
+    private static final long SUBSCRIPTION_RETRY_DELAY_MILLIS = 10000L;
+
+    /**
+     * This is package private in order to allow unit tests to inject fake time
+     * stamps.
+     */
+    TimeService timeService = TimeService.SYSTEM;
+
+    private final ConnectionFactory factory;
+    private final DN baseDN;
+    private final int maxSize;
+    private final long timeToLiveMillis;
+    private final ConcurrentHashMap<SearchKey, CachedSearch> cache = new ConcurrentHashMap<>();
+    /** The sum of the weights of the cached searches. */
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicBoolean evictionInProgress = new AtomicBoolean();
+    private final AtomicBoolean isClosed = new AtomicBoolean();
+    /** Incremented before each invalidation, this is also used for detecting concurrent invalidations. */
+    private final AtomicLong invalidations = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final Object stateLock = new Object();
+    /** Whether the persistent search is active, results can only be cached while this is {@code true}. */
+    private volatile boolean isCoherent;
+    /** Guarded by stateLock. */
+    private boolean isSubscribing;
+    /** Guarded by stateLock. */
+    private long nextSubscriptionTimeMillis;
+    /** Guarded by stateLock. */
+    private Connection subscription;
+
+    CachingConnectionFactory(final ConnectionFactory factory, final DN baseDN, final int maxSize,
+            final long timeToLiveMillis) {
+        Reject.ifNull(factory, baseDN);
+        this.factory = factory;
+        this.baseDN = baseDN;
+        this.maxSize = maxSize;
+        this.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    @Override
+    public void close() {
+        if (isClosed.compareAndSet(false, true)) {
+            final Connection connection;
+            synchronized (stateLock) {
+                connection = subscription;
+                subscription = null;
+                isCoherent = false;
+            }
+            invalidateAll();
+            closeSilently(connection);
+            factory.close();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws LdapException {
+        return new CachingConnection(factory.getConnection());
+    }
+
+    @Override
+    public Promise<Connection, LdapException> getConnectionAsync() {
+        return factory.getConnectionAsync().then(new Function<Connection, Connection, LdapException>() {
+            @Override
+            public Connection apply(final Connection connection) {
+                return new CachingConnection(connection);
+            }
+        });
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getInvalidationCount() {
+        return invalidations.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getNegativeHitCount() {
+        return negativeHits.sum();
+    }
+
+    @Override
+    public int getSize() {
+        return cache.size();
+    }
+
+    @Override
+    public boolean isCoherent() {
+        return isCoherent;
+    }
+
+    @Override
+    public String toString() {
+        return "CachingConnectionFactory(" + factory + ", baseDN=" + baseDN + ", size=" + getSize() + ", coherent="
+                + isCoherent + ")";
+    }
+
+    private boolean isCacheable(final SearchRequest request) {
+        return request.getControls().isEmpty() && request.getName().isSubordinateOrEqualTo(baseDN);
+    }
+
+    private CachedSearch getCachedSearch(final SearchKey key) {
+        if (!isCoherent) {
+            subscribeIfNeeded();
+            return null;
+        }
+        final CachedSearch cachedSearch = cache.get(key);
+        if (cachedSearch == null) {
+            return null;
+        }
+        if (timeService.now() >= cachedSearch.expirationTimeMillis) {
+            remove(key, cachedSearch);
+            return null;
+        }
+        if (!cachedSearch.referenced) {
+            // Avoid writing to the shared cache line when the mark is already set.
+            cachedSearch.referenced = true;
+        }
+        hits.increment();
+        if (cachedSearch.isNegative) {
+            negativeHits.increment();
+        }
+        return cachedSearch;
+    }
+
+    private void putCachedSearch(final SearchKey key, final CachedSearch cachedSearch,
+            final long invalidationsBeforeSearch) {
+        if (!isCoherent || invalidations.get() != invalidationsBeforeSearch || cachedSearch.weight() > maxSize) {
+            return;
+        }
+        final CachedSearch previous = cache.put(key, cachedSearch);
+        size.addAndGet(cachedSearch.weight() - (previous != null ? previous.weight() : 0));
+        if (!isCoherent || invalidations.get() != invalidationsBeforeSearch) {
+            // The search may have been invalidated after the previous check but before it was cached.
+            remove(key, cachedSearch);
+        } else if (size.get() > maxSize) {
+            evict();
+        }
+    }
+
+    private boolean remove(final SearchKey key, final CachedSearch cachedSearch) {
+        if (cache.remove(key, cachedSearch)) {
+            size.addAndGet(-cachedSearch.weight());
+            return true;
+        }
+        return false;
+    }
+
+    private void evict() {
+        // A single thread evicts at a time, the cache may slightly exceed its maximum size meanwhile.
+        if (!evictionInProgress.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Evict a few more results than required in order to amortize the cost of the sweep.
+            final long targetSize = maxSize - maxSize / 16;
+            for (int pass = 0; pass < 2 && size.get() > targetSize; pass++) {
+                final Iterator<Map.Entry<SearchKey, CachedSearch>> iterator = cache.entrySet().iterator();
+                while (size.get() > targetSize && iterator.hasNext()) {
+                    final Map.Entry<SearchKey, CachedSearch> entry = iterator.next();
+                    final CachedSearch cachedSearch = entry.getValue();
+                    if (cachedSearch.referenced) {
+                        cachedSearch.referenced = false;
+                    } else if (remove(entry.getKey(), cachedSearch)) {
+                        evictions.increment();
+                    }
+                }
+            }
+        } finally {
+            evictionInProgress.set(false);
+        }
+    }
+
+    private Runnable newInvalidationTask(final DN dn, final boolean subtree) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                invalidate(dn, subtree);
+            }
+        };
+    }
+
+    /**
+     * Evicts the cached results which may contain the named entry, or any of its subordinates if {@code subtree} is
+     * {@code true}. This scans the whole cache.
+     */
+    private void invalidate(final DN dn, final boolean subtree) {
+        invalidations.incrementAndGet();
+        for (final Map.Entry<SearchKey, CachedSearch> entry : cache.entrySet()) {
+            if (entry.getValue().mayContain(dn, subtree)) {
+                remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void invalidateAll() {
+        invalidations.incrementAndGet();
+        for (final Map.Entry<SearchKey, CachedSearch> entry : cache.entrySet()) {
+            remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /** Establishes the persistent search asynchronously, unless it has been attempted recently. */
+    private void subscribeIfNeeded() {
+        final long now = timeService.now();
+        synchronized (stateLock) {
+            if (isClosed.get() || isCoherent || isSubscribing || now < nextSubscriptionTimeMillis) {
+                return;
+            }
+            isSubscribing = true;
+            nextSubscriptionTimeMillis = now + SUBSCRIPTION_RETRY_DELAY_MILLIS;
+        }
+        factory.getConnectionAsync().thenOnResult(new ResultHandler<Connection>() {
+            @Override
+            public void handleResult(final Connection connection) {
+                subscribe(connection);
+            }
+        }).thenOnException(new ExceptionHandler<LdapException>() {
+            @Override
+            public void handleException(final LdapException e) {
+                logger.traceException(e);
+                synchronized (stateLock) {
+                    isSubscribing = false;
+                }
+            }
+        });
+    }
+
+    private void subscribe(final Connection connection) {
+        final SearchRequest request = Requests.newSearchRequest(baseDN, SearchScope.WHOLE_SUBTREE,
+                Filter.objectClassPresent(), "1.1")
+                .addControl(PersistentSearchRequestControl.newControl(true, true, true,
+                        PersistentSearchChangeType.values()));
+        synchronized (stateLock) {
+            isSubscribing = false;
+            if (isClosed.get()) {
+                closeSilently(connection);
+                return;
+            }
+            subscription = connection;
+            isCoherent = true;
+            // Searches which started before the persistent search may have missed changes.
+            invalidations.incrementAndGet();
+        }
+        // The persistent search never completes successfully, unless the server does not support it.
+        connection.searchAsync(request, new ChangeListener()).thenOnResultOrException(new Runnable() {
+            @Override
+            public void run() {
+                unsubscribe(connection);
+            }
+        });
+    }
+
+    private void unsubscribe(final Connection connection) {
+        synchronized (stateLock) {
+            if (subscription == connection) {
+                subscription = null;
+                isCoherent = false;
+            }
+        }
+        invalidateAll();
+        closeSilently(connection);
+    }
+}
@@ -0,0 +1,601 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.ldap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.forgerock.i18n.LocalizedIllegalArgumentException;
+import org.forgerock.opendj.ldap.requests.Requests;
+import org.forgerock.util.Reject;
+
+/**
+ * A memory efficient implementation of the {@code Entry} interface, intended for applications which keep a large
+ * number of entries in memory, such as caches. Attributes are returned in the same order that they were added to the
+ * entry. All operations are supported by this implementation.
+ * <p>
+ * Instead of storing a map of attributes each containing a set of values, a {@code CompactEntry} stores its attribute
+ * descriptions in a flat array and packs all the attribute values in a single byte array. Attribute descriptions are
+ * interned so that entries decoded using the same schema share them. As a result an entry typically uses little more
+ * memory than its encoded size.
+ * <p>
+ * The attributes returned by this entry are lightweight views created on demand: their values are materialized as
+ * {@code ByteString}s sharing the entry's byte array when they are read, and modifying them modifies this entry. An
+ * attribute view whose values are all removed is removed from the entry, and it is added back if values are added to
+ * it again. A {@code CompactEntry} never stores references to the attributes which are added to it: their values are
+ * always copied.
+ * <p>
+ * The compactness comes at a price: modifying an entry copies all its values, and checking whether an attribute
+ * contains a value normalizes all the values of the attribute. A {@code CompactEntry} is therefore best suited for
+ * entries which are read much more often than they are modified, and which do not contain attributes with a large
+ * number of values such as big static groups.
+ * <p>
+ * This implementation is not thread safe, but the {@code ByteString}s returned by its attributes remain valid and
+ * immutable even if the entry is subsequently modified.
+ */
+public final class CompactEntry extends AbstractEntry {
+    /**
+     * An entry factory which can be used to create new compact entries. The entries decoded from LDAP or LDIF using
+     * this factory have all their values packed at once, after all their attributes have been read.
+     */
+    public static final EntryFactory FACTORY = new EntryFactory() {
+        @Override
+        public Entry newEntry(final DN name) {
+            return new CompactEntry(name);
+        }
+    };
+
+    /**
+     * Bounds the number of interned attribute descriptions, which may be decoded from untrusted input. The interned
+     * descriptions are all discarded once the bound is reached, so that the ones in use can be interned again.
+     */
+    private static final int MAX_INTERNED_ATTRIBUTE_DESCRIPTIONS = 8192;
+    private static final Map<String, AttributeDescription> INTERNED_ATTRIBUTE_DESCRIPTIONS =
+            new ConcurrentHashMap<>();
+    private static final AttributeDescription[] NO_ATTRIBUTE_DESCRIPTIONS = new AttributeDescription[0];
+    private static final ByteString[] NO_VALUES = new ByteString[0];
+    private static final int[] NO_VALUE_ENDS = new int[0];
+    private static final int[] NO_FIRST_VALUES = { 0 };
+    private static final byte[] NO_BYTES = new byte[0];
+
+    /*
+     * The arrays below are never modified once they have been assigned, which allows the values to be shared with
+     * the byte strings returned by the attributes and the arrays to be shared with iterators.
+     */
+    private AttributeDescription[] attributeDescriptions = NO_ATTRIBUTE_DESCRIPTIONS;
+    /**
+     * The index of the first value of each attribute, followed by the total number of values: the values of the
+     * attribute {@code i} have the indexes {@code [firstValues[i], firstValues[i + 1])}.
+     */
+    private int[] firstValues = NO_FIRST_VALUES;
+    /** The offset in {@link #bytes} of the end of each value: value {@code i} ends where value {@code i + 1} starts. */
+    private int[] valueEnds = NO_VALUE_ENDS;
+    /** The concatenation of all the values. */
+    private byte[] bytes = NO_BYTES;
+    private DN name;
+
+    /**
+     * Creates an entry with an empty (root) distinguished name and no
+     * attributes.
+     */
+    public CompactEntry() {
+        this(DN.rootDN());
+    }
+
+    /**
+     * Creates an empty entry using the provided distinguished name and no
+     * attributes.
+     *
+     * @param name
+     *            The distinguished name of this entry.
+     * @throws NullPointerException
+     *             If {@code name} was {@code null}.
+     */
+    public CompactEntry(final DN name) {
+        this.name = Reject.checkNotNull(name);
+    }
+
+    /**
+     * Creates an entry having the same distinguished name, attributes, and
+     * object classes of the provided entry. Since values are always copied,
+     * the new entry is a deep copy of {@code entry}.
+     *
+     * @param entry
+     *            The entry to be copied.
+     * @throws NullPointerException
+     *             If {@code entry} was {@code null}.
+     */
+    public CompactEntry(final Entry entry) {
+        this(entry.getName());
+        final List<AttributeDescription> descriptions = new ArrayList<>(entry.getAttributeCount());
+        final List<ByteString[]> values = new ArrayList<>(entry.getAttributeCount());
+        int valueCount = 0;
+        int length = 0;
+        for (final Attribute attribute : entry.getAllAttributes()) {
+            final ByteString[] attributeValues = attribute.toArray();
+            descriptions.add(intern(attribute.getAttributeDescription()));
+            values.add(attributeValues);
+            valueCount += attributeValues.length;
+            for (final ByteString value : attributeValues) {
+                length += value.length();
+            }
+        }
+
+        // Pack all the values at once rather than attribute per attribute.
+        attributeDescriptions = descriptions.toArray(new AttributeDescription[descriptions.size()]);
+        firstValues = new int[attributeDescriptions.length + 1];
+        valueEnds = new int[valueCount];
+        bytes = new byte[length];
+        int valueIndex = 0;
+        int offset = 0;
+        for (int i = 0; i < attributeDescriptions.length; i++) {
+            firstValues[i] = valueIndex;
+            for (final ByteString value : values.get(i)) {
+                value.copyTo(bytes, offset);
+                offset += value.length();
+                valueEnds[valueIndex++] = offset;
+            }
+        }
+        firstValues[attributeDescriptions.length] = valueIndex;
+    }
+
+    /**
+     * Creates an empty entry using the provided distinguished name decoded
+     * using the default schema.
+     *
+     * @param name
+     *            The distinguished name of this entry.
+     * @throws LocalizedIllegalArgumentException
+     *             If {@code name} could not be decoded using the default
+     *             schema.
+     * @throws NullPointerException
+     *             If {@code name} was {@code null}.
+     */
+    public CompactEntry(final String name) {
+        this(DN.valueOf(name));
+    }
+
+    /**
+     * Creates a new entry using the provided lines of LDIF decoded using the
+     * default schema.
+     *
+     * @param ldifLines
+     *            Lines of LDIF containing the an LDIF add change record or an
+     *            LDIF entry record.
+     * @throws LocalizedIllegalArgumentException
+     *             If {@code ldifLines} was empty, or contained invalid LDIF, or
+     *             could not be decoded using the default schema.
+     * @throws NullPointerException
+     *             If {@code ldifLines} was {@code null} .
+     */
+    public CompactEntry(final String... ldifLines) {
+        this(Requests.newAddRequest(ldifLines));
+    }
+
+    @Override
+    public boolean addAttribute(final Attribute attribute, final Collection<? super ByteString> duplicateValues) {
+        final AttributeDescription attributeDescription = attribute.getAttributeDescription();
+        final Attribute oldAttribute = getAttribute(attributeDescription);
+        if (oldAttribute != null) {
+            return oldAttribute.addAll(attribute, duplicateValues);
+        }
+        setValues(attributeDescriptions.length, intern(attributeDescription), attribute.toArray());
+        return true;
+    }
+
+    @Override
+    public Entry clearAttributes() {
+        attributeDescriptions = NO_ATTRIBUTE_DESCRIPTIONS;
+        firstValues = NO_FIRST_VALUES;
+        valueEnds = NO_VALUE_ENDS;
+        bytes = NO_BYTES;
+        return this;
+    }
+
+    @Override
+    public Iterable<Attribute> getAllAttributes() {
+        return new Iterable<Attribute>() {
+            @Override
+            public Iterator<Attribute> iterator() {
+                return new Iterator<Attribute>() {
+                    private final AttributeDescription[] descriptions = attributeDescriptions;
+                    private int next;
+                    private AttributeDescription last;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < descriptions.length;
+                    }
+
+                    @Override
+                    public Attribute next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        last = descriptions[next++];
+                        return new CompactAttribute(last);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last == null) {
+                            throw new IllegalStateException();
+                        }
+                        final int index = indexOf(last);
+                        if (index >= 0) {
+                            removeAttributeAt(index);
+                        }
+                        last = null;
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public Attribute getAttribute(final AttributeDescription attributeDescription) {
+        final int index = indexOf(attributeDescription);
+        if (index >= 0) {
+            return new CompactAttribute(attributeDescriptions[index]);
+        } else if (attributeDescription.isPlaceHolder()) {
+            // Fall-back to inefficient search using place-holder.
+            return super.getAttribute(attributeDescription);
+        }
+        return null;
+    }
+
+    @Override
+    public int getAttributeCount() {
+        return attributeDescriptions.length;
+    }
+
+    @Override
+    public DN getName() {
+        return name;
+    }
+
+    @Override
+    public boolean removeAttribute(final Attribute attribute, final Collection<? super ByteString> missingValues) {
+        final AttributeDescription attributeDescription = attribute.getAttributeDescription();
+        if (attribute.isEmpty()) {
+            final int index = indexOf(attributeDescription);
+            if (index >= 0) {
+                removeAttributeAt(index);
+                return true;
+            }
+            // Fall-back to inefficient remove using place-holder.
+            return attributeDescription.isPlaceHolder() && super.removeAttribute(attribute, missingValues);
+        }
+        final Attribute oldAttribute = getAttribute(attributeDescription);
+        if (oldAttribute != null) {
+            // The attribute removes itself from this entry once it becomes empty.
+            return oldAttribute.removeAll(attribute, missingValues);
+        }
+        if (missingValues != null) {
+            missingValues.addAll(attribute);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean replaceAttribute(final Attribute attribute) {
+        if (attribute.isEmpty()) {
+            return removeAttribute(attribute.getAttributeDescription());
+        }
+        // Preserve the position of the existing attribute, if any.
+        final Attribute oldAttribute = getAttribute(attribute.getAttributeDescription());
+        final int index = oldAttribute != null ? indexOf(oldAttribute.getAttributeDescription()) : -1;
+        if (index >= 0) {
+            setValues(index, attributeDescriptions[index], attribute.toArray());
+        } else {
+            setValues(attributeDescriptions.length, intern(attribute.getAttributeDescription()), attribute.toArray());
+        }
+        return true;
+    }
+
+    @Override
+    public Entry setName(final DN dn) {
+        Reject.ifNull(dn);
+        this.name = dn;
+        return this;
+    }
+
+    /**
+     * Returns the shared instance equal to the provided attribute description, as long as both have been decoded
+     * using the same schema.
+     */
+    private static AttributeDescription intern(final AttributeDescription attributeDescription) {
+        // The string representation preserves the user provided name and options.
+        final String key = attributeDescription.toString();
+        AttributeDescription interned = INTERNED_ATTRIBUTE_DESCRIPTIONS.get(key);
+        if (interned == null) {
+            if (INTERNED_ATTRIBUTE_DESCRIPTIONS.size() >= MAX_INTERNED_ATTRIBUTE_DESCRIPTIONS) {
+                // Entries keep the instances they already share, only new entries intern them again.
+                INTERNED_ATTRIBUTE_DESCRIPTIONS.clear();
+            }
+            interned = INTERNED_ATTRIBUTE_DESCRIPTIONS.putIfAbsent(key, attributeDescription);
+            if (interned == null) {
+                return attributeDescription;
+            }
+        }
+        return interned.getAttributeType() == attributeDescription.getAttributeType() ? interned
+                                                                                     : attributeDescription;
+    }
+
+    private int indexOf(final AttributeDescription attributeDescription) {
+        // Attribute descriptions are usually interned, so try the cheap comparison first.
+        for (int i = 0; i < attributeDescriptions.length; i++) {
+            if (attributeDescriptions[i] == attributeDescription) {
+                return i;
+            }
+        }
+        for (int i = 0; i < attributeDescriptions.length; i++) {
+            if (attributeDescriptions[i].equals(attributeDescription)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private ByteString[] getValues(final int index) {
+        final int first = firstValues[index];
+        final ByteString[] values = new ByteString[firstValues[index + 1] - first];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = valueAt(bytes, valueEnds, first + i);
+        }
+        return values;
+    }
+
+    private static ByteString valueAt(final byte[] bytes, final int[] valueEnds, final int valueIndex) {
+        final int start = valueIndex == 0 ? 0 : valueEnds[valueIndex - 1];
+        return ByteString.wrap(bytes, start, valueEnds[valueIndex] - start);
+    }
+
+    private void removeAttributeAt(final int index) {
+        setValues(index, attributeDescriptions[index], NO_VALUES);
+        final int attributeCount = attributeDescriptions.length;
+        final AttributeDescription[] newDescriptions = new AttributeDescription[attributeCount - 1];
+        System.arraycopy(attributeDescriptions, 0, newDescriptions, 0, index);
+        System.arraycopy(attributeDescriptions, index + 1, newDescriptions, index, attributeCount - index - 1);
+        // The removed attribute has no values: its first value index is the same as the next attribute's.
+        final int[] newFirstValues = new int[attributeCount];
+        System.arraycopy(firstValues, 0, newFirstValues, 0, index);
+        System.arraycopy(firstValues, index + 1, newFirstValues, index, attributeCount - index);
+        attributeDescriptions = newDescriptions;
+        firstValues = newFirstValues;
+    }
+
+    /**
+     * Replaces the values of the attribute at the provided index, or adds a new attribute if the index is the number
+     * of attributes. The attribute is not removed if there are no values.
+     */
+    private void setValues(final int index, final AttributeDescription attributeDescription,
+            final ByteString[] newValues) {
+        final int attributeCount = attributeDescriptions.length;
+        final int valueCount = firstValues[attributeCount];
+        final int first = firstValues[index];
+        final int last = index < attributeCount ? firstValues[index + 1] : first;
+        final int start = first == 0 ? 0 : valueEnds[first - 1];
+        final int end = last == 0 ? 0 : valueEnds[last - 1];
+        int newLength = 0;
+        for (final ByteString value : newValues) {
+            newLength += value.length();
+        }
+
+        final byte[] newBytes = new byte[bytes.length - (end - start) + newLength];
+        final int[] newValueEnds = new int[valueCount - (last - first) + newValues.length];
+        System.arraycopy(bytes, 0, newBytes, 0, start);
+        System.arraycopy(valueEnds, 0, newValueEnds, 0, first);
+        int offset = start;
+        int valueIndex = first;
+        for (final ByteString value : newValues) {
+            value.copyTo(newBytes, offset);
+            offset += value.length();
+            newValueEnds[valueIndex++] = offset;
+        }
+        System.arraycopy(bytes, end, newBytes, offset, bytes.length - end);
+        for (int i = last; i < valueCount; i++) {
+            newValueEnds[valueIndex++] = valueEnds[i] + offset - end;
+        }
+
+        final int valueCountDelta = newValues.length - (last - first);
+        if (index == attributeCount) {
+            attributeDescriptions = Arrays.copyOf(attributeDescriptions, attributeCount + 1);
+            attributeDescriptions[attributeCount] = attributeDescription;
+            firstValues = Arrays.copyOf(firstValues, attributeCount + 2);
+            firstValues[attributeCount + 1] = newValueEnds.length;
+        } else if (valueCountDelta != 0) {
+            final int[] newFirstValues = firstValues.clone();
+            for (int i = index + 1; i <= attributeCount; i++) {
+                newFirstValues[i] += valueCountDelta;
+            }
+            firstValues = newFirstValues;
+        }
+        bytes = newBytes;
+        valueEnds = newValueEnds;
+    }
+
+    /** A live view of one of the attributes of this entry. */
+    private final class CompactAttribute extends AbstractAttribute {
+        private final AttributeDescription attributeDescription;
+
+        private CompactAttribute(final AttributeDescription attributeDescription) {
+            this.attributeDescription = attributeDescription;
+        }
+
+        @Override
+        public boolean add(final ByteString value) {
+            return addAll(Collections.singleton(value), null);
+        }
+
+        @Override
+        public <T> boolean addAll(final Collection<T> values, final Collection<? super T> duplicateValues) {
+            final int index = indexOf(attributeDescription);
+            final ByteString[] oldValues = index >= 0 ? getValues(index) : NO_VALUES;
+            final Set<ByteString> normalizedValues = new HashSet<>();
+            for (final ByteString value : oldValues) {
+                normalizedValues.add(normalizeValue(this, value));
+            }
+            final List<ByteString> newValues = new ArrayList<>(oldValues.length + values.size());
+            Collections.addAll(newValues, oldValues);
+            for (final T value : values) {
+                final ByteString byteString = ByteString.valueOfObject(value);
+                if (normalizedValues.add(normalizeValue(this, byteString))) {
+                    newValues.add(byteString);
+                } else if (duplicateValues != null) {
+                    duplicateValues.add(value);
+                }
+            }
+            if (newValues.size() == oldValues.length) {
+                return false;
+            }
+            // Add the attribute back to the entry if it has been removed.
+            setValues(index >= 0 ? index : attributeDescriptions.length, attributeDescription,
+                    newValues.toArray(new ByteString[newValues.size()]));
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            final int index = indexOf(attributeDescription);
+            if (index >= 0) {
+                removeAttributeAt(index);
+            }
+        }
+
+        @Override
+        public boolean contains(final Object value) {
+            final int index = indexOf(attributeDescription);
+            if (index < 0) {
+                return false;
+            }
+            final ByteString byteString = ByteString.valueOfObject(value);
+            final int first = firstValues[index];
+            final int last = firstValues[index + 1];
+            // Avoid normalizing the values if one of them is exactly the same.
+            for (int i = first; i < last; i++) {
+                final int start = i == 0 ? 0 : valueEnds[i - 1];
+                if (byteString.equals(bytes, start, valueEnds[i] - start)) {
+                    return true;
+                }
+            }
+            final ByteString normalizedValue = normalizeValue(this, byteString);
+            for (int i = first; i < last; i++) {
+                if (normalizedValue.equals(normalizeValue(this, valueAt(bytes, valueEnds, i)))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public AttributeDescription getAttributeDescription() {
+            return attributeDescription;
+        }
+
+        @Override
+        public Iterator<ByteString> iterator() {
+            final int index = indexOf(attributeDescription);
+            if (index < 0) {
+                return Collections.emptyIterator();
+            }
+            return new Iterator<ByteString>() {
+                private final byte[] valueBytes = bytes;
+                private final int[] ends = valueEnds;
+                private final int last = firstValues[index + 1];
+                private int next = firstValues[index];
+                private ByteString lastValue;
+
+                @Override
+                public boolean hasNext() {
+                    return next < last;
+                }
+
+                @Override
+                public ByteString next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    lastValue = valueAt(valueBytes, ends, next++);
+                    return lastValue;
+                }
+
+                @Override
+                public void remove() {
+                    if (lastValue == null) {
+                        throw new IllegalStateException();
+                    }
+                    CompactAttribute.this.remove(lastValue);
+                    lastValue = null;
+                }
+            };
+        }
+
+        @Override
+        public boolean remove(final Object value) {
+            return removeAll(Collections.singleton(value), null);
+        }
+
+        @Override
+        public <T> boolean removeAll(final Collection<T> values, final Collection<? super T> missingValues) {
+            final int index = indexOf(attributeDescription);
+            if (index < 0) {
+                if (missingValues != null) {
+                    missingValues.addAll(values);
+                }
+                return false;
+            }
+            final Map<ByteString, T> valuesToRemove = new HashMap<>(values.size() * 2);
+            for (final T value : values) {
+                valuesToRemove.put(normalizeValue(this, ByteString.valueOfObject(value)), value);
+            }
+            final ByteString[] oldValues = getValues(index);
+            final List<ByteString> newValues = new ArrayList<>(oldValues.length);
+            for (final ByteString value : oldValues) {
+                if (valuesToRemove.remove(normalizeValue(this, value)) == null) {
+                    newValues.add(value);
+                }
+            }
+            if (missingValues != null) {
+                missingValues.addAll(valuesToRemove.values());
+            }
+            if (newValues.size() == oldValues.length) {
+                return false;
+            } else if (newValues.isEmpty()) {
+                removeAttributeAt(index);
+                return true;
+            }
+            setValues(index, attributeDescriptions[index], newValues.toArray(new ByteString[newValues.size()]));
+            return true;
+        }
+
+        @Override
+        public int size() {
+            final int index = indexOf(attributeDescription);
+            return index >= 0 ? firstValues[index + 1] - firstValues[index] : 0;
+        }
+    }
+}
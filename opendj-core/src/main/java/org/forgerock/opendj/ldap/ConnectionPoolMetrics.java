@@ -0,0 +1,85 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.ldap;
+
+/**
+ * Exposes statistics about the usage of a {@link ConnectionPool}. Connection
+ * pools created with the {@link Connections#CONNECTION_POOL_LOCK_FREE} option
+ * enabled implement this interface.
+ * <p>
+ * All the values are gathered without any locking and are therefore only
+ * approximately consistent with each other.
+ */
+public interface ConnectionPoolMetrics {
+    /**
+     * The upper bounds, in microseconds, of all but the last bucket of the
+     * borrow latency histogram. The last bucket counts all the borrow
+     * operations which took at least 100 milliseconds.
+     */
+    long[] BORROW_LATENCY_BUCKET_BOUNDS_MICROS = { 10, 100, 1000, 10000, 100000 };
+
+    /**
+     * Returns a snapshot of the borrow latency histogram, that is to say the
+     * time elapsed between a connection request and the moment a pooled
+     * connection was made available to the caller. The returned array contains
+     * one more element than {@link #BORROW_LATENCY_BUCKET_BOUNDS_MICROS}.
+     *
+     * @return A snapshot of the borrow latency histogram.
+     */
+    long[] getBorrowLatencyHistogram();
+
+    /**
+     * Returns the number of connections which have been created by the
+     * connection pool since it was created.
+     *
+     * @return The number of connections which have been created.
+     */
+    long getConnectionCreationCount();
+
+    /**
+     * Returns the number of connections which have been closed by the
+     * connection pool because they remained idle for too long or were no
+     * longer valid.
+     *
+     * @return The number of connections which have been evicted.
+     */
+    long getConnectionEvictionCount();
+
+    /**
+     * Returns the number of connections which are currently idle in the
+     * connection pool.
+     *
+     * @return The number of idle connections.
+     */
+    int getIdleConnectionCount();
+
+    /**
+     * Returns the number of connections currently held by the connection pool,
+     * including the connections which are in use and the connections which
+     * are being established.
+     *
+     * @return The number of connections currently held by the connection pool.
+     */
+    int getPoolSize();
+
+    /**
+     * Returns the number of connection requests which are currently waiting
+     * for a connection to become available.
+     *
+     * @return The number of waiting connection requests.
+     */
+    int getWaiterCount();
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2009-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.ldap;
 
@@ -82,6 +83,76 @@ public final class Connections {
     public static final Option<ScheduledExecutorService> LOAD_BALANCER_SCHEDULER =
             Option.of(ScheduledExecutorService.class, null);
 
+    /**
+     * Specifies the period during which a connection factory considered to be an outlier by a latency-aware
+     * load-balancer will not be sent any requests. The default configuration is to eject outliers for thirty seconds.
+     *
+     * @see #newLatencyAwareLoadBalancer(Collection, Options)
+     */
+    public static final Option<Duration> LOAD_BALANCER_OUTLIER_EJECTION_DURATION =
+            Option.withDefault(duration("30 seconds"));
+
+    /**
+     * Specifies how many times higher than the median response time of the other connection factories the average
+     * response time of a connection factory must be for a latency-aware load-balancer to consider it an outlier. The
+     * default is five times higher.
+     *
+     * @see #newLatencyAwareLoadBalancer(Collection, Options)
+     */
+    public static final Option<Double> LOAD_BALANCER_OUTLIER_LATENCY_FACTOR = Option.withDefault(5.0);
+
+    /**
+     * Specifies the response time percentile, for example {@code 95.0}, after which a latency-aware load-balancer
+     * sends a copy of a search or compare request to a second connection factory, returning whichever response comes
+     * first. Only requests without controls are hedged. The percentile must be greater than or equal to 0 and less
+     * than 100. The default configuration is to never hedge requests.
+     *
+     * @see #newLatencyAwareLoadBalancer(Collection, Options)
+     */
+    public static final Option<Double> LOAD_BALANCER_HEDGING_PERCENTILE = Option.withDefault(0.0);
+
+    /**
+     * Specifies whether connection pools should use an implementation which never takes any lock when connections are
+     * obtained from, or released back to, the pool. Such connection pools scale better when many threads share a
+     * pool, and also implement {@link ConnectionPoolMetrics}. The default configuration is to use the standard
+     * connection pool implementation.
+     */
+    public static final Option<Boolean> CONNECTION_POOL_LOCK_FREE = Option.withDefault(false);
+
+    /**
+     * Specifies the scheduler which will be used for periodically checking for idle pooled connections. A system-wide
+     * scheduler will be used by default.
+     */
+    public static final Option<ScheduledExecutorService> CONNECTION_POOL_SCHEDULER =
+            Option.of(ScheduledExecutorService.class, null);
+
+    /**
+     * Specifies the base DN of the entries whose search results are cached by a caching connection factory, which is
+     * also the base DN of the persistent search keeping the cache coherent. The default configuration is to cache the
+     * results of all the searches, which requires the directory server to support persistent searches based at the
+     * root DSE.
+     *
+     * @see #newCachingConnectionFactory(ConnectionFactory, Options)
+     */
+    public static final Option<DN> READ_CACHE_BASE_DN = Option.of(DN.class, DN.rootDN());
+
+    /**
+     * Specifies the maximum number of entries which may be held in the cache of a caching connection factory, each
+     * cached search counting for the number of entries it returned or for one entry if it did not return any. The
+     * default configuration is to cache up to ten thousand entries.
+     *
+     * @see #newCachingConnectionFactory(ConnectionFactory, Options)
+     */
+    public static final Option<Integer> READ_CACHE_MAX_SIZE = Option.withDefault(10000);
+
+    /**
+     * Specifies how long search results remain in the cache of a caching connection factory, unless they are evicted
+     * earlier because of a change. The default configuration is to cache results for five minutes.
+     *
+     * @see #newCachingConnectionFactory(ConnectionFactory, Options)
+     */
+    public static final Option<Duration> READ_CACHE_TIME_TO_LIVE = Option.withDefault(duration("5 minutes"));
+
     /**
      * Creates a new connection pool which creates new connections as needed
      * using the provided connection factory, but will reuse previously
@@ -218,6 +289,54 @@ public final class Connections {
                 scheduler);
     }
 
+    /**
+     * Creates a new connection pool which creates new connections as needed
+     * using the provided connection factory, but will reuse previously
+     * allocated connections when they are available.
+     * <p>
+     * This method behaves like
+     * {@link #newCachedConnectionPool(ConnectionFactory, int, int, long, TimeUnit, ScheduledExecutorService)}
+     * but additionally allows the connection pool implementation to be
+     * selected using the provided options.
+     *
+     * @param factory
+     *            The connection factory to use for creating new connections.
+     * @param corePoolSize
+     *            The minimum number of connections to keep in the pool, even if
+     *            they are idle.
+     * @param maximumPoolSize
+     *            The maximum number of connections to allow in the pool.
+     * @param idleTimeout
+     *            The time out period, after which unused non-core connections
+     *            will be closed.
+     * @param unit
+     *            The time unit for the {@code keepAliveTime} argument.
+     * @param options
+     *            The configuration options for the connection pool.
+     * @return The new connection pool.
+     * @throws IllegalArgumentException
+     *             If {@code corePoolSize}, {@code maximumPoolSize} are less
+     *             than or equal to zero, or if {@code idleTimeout} is negative,
+     *             or if {@code corePoolSize} is greater than
+     *             {@code maximumPoolSize}, or if {@code idleTimeout} is
+     *             non-zero and {@code unit} is {@code null}.
+     * @throws NullPointerException
+     *             If {@code factory} or {@code options} was {@code null}.
+     * @see #CONNECTION_POOL_LOCK_FREE
+     * @see #CONNECTION_POOL_SCHEDULER
+     */
+    public static ConnectionPool newCachedConnectionPool(final ConnectionFactory factory,
+            final int corePoolSize, final int maximumPoolSize, final long idleTimeout,
+            final TimeUnit unit, final Options options) {
+        final ScheduledExecutorService scheduler = options.get(CONNECTION_POOL_SCHEDULER);
+        if (options.get(CONNECTION_POOL_LOCK_FREE)) {
+            return new LockFreeConnectionPool(factory, corePoolSize, maximumPoolSize, idleTimeout, unit,
+                    scheduler);
+        }
+        return new CachedConnectionPool(factory, corePoolSize, maximumPoolSize, idleTimeout, unit,
+                scheduler);
+    }
+
     /**
      * Creates a new connection pool which will maintain {@code poolSize}
      * connections created using the provided connection factory.
@@ -744,6 +863,73 @@ public final class Connections {
                 newLeastRequestsLoadBalancerEndOfRequestFunction(dispatcher));
     }
 
+    /**
+     * Creates a new "latency-aware" load-balancer which will load-balance individual requests across the provided set
+     * of connection factories, each typically representing a single replica, using an algorithm that favors the
+     * replicas which respond the fastest.
+     * <p>
+     * The response time of each replica is tracked using a moving average. For each request, two replicas are chosen
+     * at random and the request is routed to the one whose average response time, weighted by its number of active
+     * requests, is the lowest. As a result a slow but alive replica, for example one which is rebuilding an index or
+     * pausing for garbage collection, quickly stops receiving its full share of the requests.
+     * <p>
+     * Replicas which fail more than half of their recent requests, or whose average response time is much higher than
+     * the median of the other replicas, are temporarily ejected, see {@link #LOAD_BALANCER_OUTLIER_EJECTION_DURATION}
+     * and {@link #LOAD_BALANCER_OUTLIER_LATENCY_FACTOR}. At least one replica is always kept.
+     * <p>
+     * Optionally, search and compare requests may be hedged: if a replica has not responded after a delay based on
+     * a percentile of the observed response times, then the request is also sent to another replica and the first
+     * response wins, see {@link #LOAD_BALANCER_HEDGING_PERCENTILE}. Search result entries are only ever returned from a
+     * single replica.
+     * <p/>
+     * <b>NOTE:</b> this connection factory returns fake connections, since real connections are obtained for each
+     * request. Therefore, the returned fake connections have certain limitations: abandon requests will be ignored
+     * since they cannot be routed; connection event listeners can be registered, but will only be notified when the
+     * fake connection is closed or when all of the connection factories are unavailable.
+     * <p/>
+     * <b>NOTE:</b>Server selection is only based on information which is local to the client application.
+     * <p/>
+     * The implementation periodically attempts to connect to failed connection factories in order to determine if they
+     * have become available again.
+     *
+     * @param factories
+     *            The connection factories.
+     * @param options
+     *            This configuration options for the load-balancer.
+     * @return The new latency-aware load balancer.
+     * @throws IllegalArgumentException
+     *             If the {@link #LOAD_BALANCER_HEDGING_PERCENTILE} is not in the range [0, 100).
+     * @see #newLeastRequestsLoadBalancer(Collection, Options)
+     * @see #LOAD_BALANCER_EVENT_LISTENER
+     * @see #LOAD_BALANCER_MONITORING_INTERVAL
+     * @see #LOAD_BALANCER_SCHEDULER
+     * @see #LOAD_BALANCER_OUTLIER_EJECTION_DURATION
+     * @see #LOAD_BALANCER_OUTLIER_LATENCY_FACTOR
+     * @see #LOAD_BALANCER_HEDGING_PERCENTILE
+     */
+    public static ConnectionFactory newLatencyAwareLoadBalancer(
+            final Collection<? extends ConnectionFactory> factories, final Options options) {
+        final double hedgingPercentile = options.get(LOAD_BALANCER_HEDGING_PERCENTILE);
+        Reject.ifFalse(hedgingPercentile >= 0 && hedgingPercentile < 100,
+                "The hedging percentile must be in the range [0, 100)");
+        final LatencyAwareDispatcher dispatcher = new LatencyAwareDispatcher(factories.size(),
+                options.get(LOAD_BALANCER_OUTLIER_EJECTION_DURATION).to(TimeUnit.NANOSECONDS),
+                options.get(LOAD_BALANCER_OUTLIER_LATENCY_FACTOR),
+                hedgingPercentile);
+        return new RequestLoadBalancer("LatencyAwareLoadBalancer", factories, options,
+                newLatencyAwareLoadBalancerNextFunction(dispatcher), NOOP_END_OF_REQUEST_FUNCTION, dispatcher);
+    }
+
+    static Function<Request, PartitionedRequest, NeverThrowsException> newLatencyAwareLoadBalancerNextFunction(
+            final LatencyAwareDispatcher dispatcher) {
+        return new Function<Request, PartitionedRequest, NeverThrowsException>() {
+            @Override
+            public PartitionedRequest apply(final Request request) {
+                return new PartitionedRequest(request, dispatcher.selectServer());
+            }
+        };
+    }
+
     private static final DecodeOptions CONTROL_DECODE_OPTIONS = new DecodeOptions();
 
     static Function<Request, PartitionedRequest, NeverThrowsException> newLeastRequestsLoadBalancerNextFunction(
@@ -853,6 +1039,49 @@ public final class Connections {
         }
     }
 
+    /**
+     * Creates a new connection factory whose connections cache the results of search requests, so that repeatedly
+     * reading the same entries, such as configuration entries or group memberships, does not require contacting the
+     * directory server every time.
+     * <p>
+     * The cache is kept coherent by a persistent search on {@link #READ_CACHE_BASE_DN}, which consumes one connection
+     * of the provided factory. Cached results are evicted as soon as the persistent search reports a change to an
+     * entry in their scope, and no results are cached while the persistent search is not active, for instance if the
+     * directory server does not support persistent searches. There remains a short window, while the persistent
+     * search is being registered by the directory server, during which a concurrent change may go unnoticed: such
+     * stale results are evicted after {@link #READ_CACHE_TIME_TO_LIVE} at most.
+     * <p>
+     * Only the search requests without any controls whose base DN is subordinate to {@link #READ_CACHE_BASE_DN} are
+     * cached. Base object searches failing because the target entry does not exist are cached as well. The results
+     * are shared by all the connections, which must therefore use the same authorization identity, typically the one
+     * configured in the provided factory: connections on which a bind request is sent no longer use the cache.
+     * <p>
+     * The returned connection factory implements {@link ReadCacheMetrics}.
+     *
+     * @param factory
+     *            The connection factory to use for connecting to the directory server, typically a connection pool.
+     * @param options
+     *            The configuration options of the cache.
+     * @return The new caching connection factory.
+     * @throws IllegalArgumentException
+     *             If {@link #READ_CACHE_MAX_SIZE} is negative, or if {@link #READ_CACHE_TIME_TO_LIVE} is not
+     *             positive.
+     * @throws NullPointerException
+     *             If {@code factory} or {@code options} was {@code null}.
+     * @see #READ_CACHE_BASE_DN
+     * @see #READ_CACHE_MAX_SIZE
+     * @see #READ_CACHE_TIME_TO_LIVE
+     */
+    public static ConnectionFactory newCachingConnectionFactory(final ConnectionFactory factory,
+            final Options options) {
+        Reject.ifNull(factory, options);
+        final int maxSize = options.get(READ_CACHE_MAX_SIZE);
+        final long timeToLiveMillis = options.get(READ_CACHE_TIME_TO_LIVE).to(TimeUnit.MILLISECONDS);
+        Reject.ifFalse(maxSize >= 0, "The maximum cache size must be positive or zero");
+        Reject.ifFalse(timeToLiveMillis > 0, "The cache time to live must be positive");
+        return new CachingConnectionFactory(factory, options.get(READ_CACHE_BASE_DN), maxSize, timeToLiveMillis);
+    }
+
     /**
      * Creates a new connection factory which forwards connection requests to
      * the provided factory, but whose {@code toString} method will always
@@ -13,15 +13,12 @@
  *
  * Copyright 2009-2010 Sun Microsystems, Inc.
  * Portions copyright 2011-2016 ForgeRock AS.
- * Portions Copyright 2022 Wren Security.
+ * Portions Copyright 2022-2026 Wren Security.
  */
 package org.forgerock.opendj.ldap;
 
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.LinkedList;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 import java.util.UUID;
 
@@ -62,25 +59,8 @@ public final class DN implements Iterable<RDN>, Comparable<DN> {
 
     private static final DN ROOT_DN = new DN(CoreSchema.getInstance(), null, null);
 
-    /**
-     * This is the size of the per-thread per-schema DN cache. We should
-     * be conservative here in case there are many threads. We will only
-     * cache parent DNs, so there's no need for it to be big.
-     */
-    private static final int DN_CACHE_SIZE = 32;
-
-    private static final ThreadLocal<Map<String, DN>> CACHE = new ThreadLocal<Map<String, DN>>() {
-        @SuppressWarnings("serial")
-        @Override
-        protected Map<String, DN> initialValue() {
-            return new LinkedHashMap<String, DN>(DN_CACHE_SIZE, 0.75f, true) {
-                @Override
-                protected boolean removeEldestEntry(Entry<String, DN> eldest) {
-                    return size() > DN_CACHE_SIZE;
-                }
-            };
-        }
-    };
+    /** The maximum number of parents of a decoded DN which are added to the DN cache. */
+    private static final int MAX_CACHED_PARENTS = 32;
 
     /**
      * Returns the LDAP string representation of the provided DN attribute value
@@ -236,9 +216,10 @@ public final class DN implements Iterable<RDN>, Comparable<DN> {
         }
 
         // First check if DN is already cached.
-        final Map<String, DN> cache = CACHE.get();
-        final DN cachedDN = cache.get(dn);
-        if (cachedDN != null && cachedDN.schema == schema) {
+        final DNCache cache = DNCache.INSTANCE;
+        final DN cachedDN = cache.get(dn, schema);
+        if (cachedDN != null) {
+            cache.recordLookup(true);
             return cachedDN;
         }
 
@@ -246,6 +227,16 @@ public final class DN implements Iterable<RDN>, Comparable<DN> {
         return decode(new SubstringReader(dn), schema, cache);
     }
 
+    /**
+     * Returns a snapshot of the statistics of the cache used by {@link #valueOf(String, Schema)}. The cache is
+     * shared by all the threads and contains the parent DNs of the DNs which have been decoded.
+     *
+     * @return A snapshot of the statistics of the DN cache.
+     */
+    public static DNCacheStatistics getCacheStatistics() {
+        return DNCache.INSTANCE.getStatistics();
+    }
+
     /**
      * Parses the provided LDAP string representation of a DN using the default schema.
      *
@@ -262,7 +253,7 @@ public final class DN implements Iterable<RDN>, Comparable<DN> {
     }
 
     /** Decodes a DN using the provided reader and schema. */
-    private static DN decode(final SubstringReader reader, final Schema schema, final Map<String, DN> cache) {
+    private static DN decode(final SubstringReader reader, final Schema schema, final DNCache cache) {
         reader.skipWhitespaces();
         if (reader.remaining() == 0) {
             return ROOT_DN;
@@ -285,7 +276,7 @@ public final class DN implements Iterable<RDN>, Comparable<DN> {
             }
             reader.mark();
             final String parentString = reader.read(reader.remaining());
-            parent = cache.get(parentString);
+            parent = cache.get(parentString, schema);
             if (parent != null) {
                 break;
             }
@@ -295,6 +286,7 @@ public final class DN implements Iterable<RDN>, Comparable<DN> {
             }
             parentRDNs.add(Pair.of(reader.pos(), RDN.decode(reader, schema)));
         }
+        cache.recordLookup(parent != null);
         if (parent == null) {
             parent = ROOT_DN;
         }
@@ -305,7 +297,8 @@ public final class DN implements Iterable<RDN>, Comparable<DN> {
             while (iter.hasNext()) {
                 Pair<Integer, RDN> parentRDN = iter.next();
                 parent = new DN(schema, parent, parentRDN.getSecond());
-                if (parentsLeft-- < DN_CACHE_SIZE) {
+                // Only cache the closest parents, which are the most likely to be shared.
+                if (parentsLeft-- <= MAX_CACHED_PARENTS) {
                     cache.put(reader.getString().substring(parentRDN.getFirst()), parent);
                 }
             }
@@ -347,6 +340,11 @@ public final class DN implements Iterable<RDN>, Comparable<DN> {
         this.stringValue = rdn == null ? "" : null;
     }
 
+    /** Returns the schema used to create this DN. */
+    Schema getSchema() {
+        return schema;
+    }
+
     /**
      * Returns a DN which is subordinate to this DN and having the additional
      * RDN components contained in the provided DN.
@@ -0,0 +1,151 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.ldap;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.forgerock.opendj.ldap.schema.Schema;
+
+/**
+ * A bounded cache of decoded DNs shared by all the threads, which avoids decoding and normalizing the same parent DNs
+ * over and over again.
+ * <p>
+ * DNs are cached using their string representation as the key, and are only returned for the schema which was used
+ * for decoding them. Once the cache is full, least recently used DNs are evicted using the CLOCK algorithm: each DN is
+ * marked when it is used, and the eviction sweep spares the marked DNs once, clearing their mark.
+ */
+final class DNCache {
+    /** The system property which can be used for changing the maximum number of cached DNs, zero disables caching. */
+    static final String MAX_SIZE_PROPERTY = "org.forgerock.opendj.dnCacheSize";
+    private static final int DEFAULT_MAX_SIZE = 8192;
+    /** Very long DNs are unlikely to be shared and would use a lot of memory. */
+    private static final int MAX_CACHED_DN_LENGTH = 1024;
+
+    /** The DN cache used by {@link DN#valueOf(String, Schema)}. */
+    static final DNCache INSTANCE = new DNCache(Integer.getInteger(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE));
+
+    /** A cached DN, along with its CLOCK mark. */
+    private static final class CachedDN {
+        private final DN dn;
+        private volatile boolean referenced;
+
+        private CachedDN(final DN dn) {
+            this.dn = dn;
+        }
+    }
+
+    private final int maxSize;
+    private final ConcurrentHashMap<String, CachedDN> cache;
+    private final AtomicBoolean evictionInProgress = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    DNCache(final int maxSize) {
+        this.maxSize = Math.max(maxSize, 0);
+        this.cache = new ConcurrentHashMap<>(Math.min(this.maxSize, DEFAULT_MAX_SIZE) * 4 / 3 + 1, 0.75f,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns the cached DN having the provided string representation and decoded using the provided schema.
+     *
+     * @param dn
+     *            The string representation of the DN.
+     * @param schema
+     *            The schema which must have been used for decoding the DN.
+     * @return The cached DN, or {@code null} if it is not cached
+     */
+    DN get(final String dn, final Schema schema) {
+        final CachedDN cachedDN = cache.get(dn);
+        if (cachedDN == null || cachedDN.dn.getSchema() != schema) {
+            return null;
+        }
+        if (!cachedDN.referenced) {
+            // Avoid writing to the shared cache line when the mark is already set.
+            cachedDN.referenced = true;
+        }
+        return cachedDN.dn;
+    }
+
+    /**
+     * Adds the provided DN to this cache, replacing any DN having the same string representation.
+     *
+     * @param dnString
+     *            The string representation of the DN.
+     * @param dn
+     *            The decoded DN.
+     */
+    void put(final String dnString, final DN dn) {
+        if (maxSize == 0 || dnString.length() > MAX_CACHED_DN_LENGTH) {
+            return;
+        }
+        // Children of cached DNs reuse the normalized form of their parent instead of normalizing it again.
+        dn.toNormalizedByteString();
+        cache.put(dnString, new CachedDN(dn));
+        if (cache.size() > maxSize) {
+            evict();
+        }
+    }
+
+    /**
+     * Records the outcome of decoding a DN, which is a hit if the DN itself or one of its parents was found in this
+     * cache.
+     *
+     * @param isHit
+     *            Whether a cached DN could be reused.
+     */
+    void recordLookup(final boolean isHit) {
+        if (isHit) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+    }
+
+    DNCacheStatistics getStatistics() {
+        return new DNCacheStatistics(hits.sum(), misses.sum(), evictions.sum(), cache.size(), maxSize);
+    }
+
+    private void evict() {
+        // A single thread evicts at a time, the cache may slightly exceed its maximum size meanwhile.
+        if (!evictionInProgress.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Evict a few more DNs than required in order to amortize the cost of the sweep.
+            int toBeEvicted = cache.size() - maxSize + maxSize / 16;
+            for (int pass = 0; pass < 2 && toBeEvicted > 0; pass++) {
+                final Iterator<CachedDN> iterator = cache.values().iterator();
+                while (toBeEvicted > 0 && iterator.hasNext()) {
+                    final CachedDN cachedDN = iterator.next();
+                    if (cachedDN.referenced) {
+                        cachedDN.referenced = false;
+                    } else {
+                        iterator.remove();
+                        evictions.increment();
+                        toBeEvicted--;
+                    }
+                }
+            }
+        } finally {
+            evictionInProgress.set(false);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.ldap;
+
+/**
+ * A snapshot of the statistics of the cache used when decoding DNs, as returned by {@link DN#getCacheStatistics()}.
+ * <p>
+ * The cache is shared by all the threads of the JVM and contains the parent DNs of the decoded DNs. Its maximum size
+ * can be changed using the {@code org.forgerock.opendj.dnCacheSize} system property, zero disabling the cache.
+ */
+public final class DNCacheStatistics {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final int size;
+    private final int maxSize;
+
+    DNCacheStatistics(final long hitCount, final long missCount, final long evictionCount, final int size,
+            final int maxSize) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the number of decoded DNs for which the DN itself or one of its parents was found in the cache.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of decoded DNs for which neither the DN nor any of its parents were found in the cache.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the ratio of the number of hits to the number of decoded DNs, or zero if no DNs have been decoded.
+     *
+     * @return The cache hit ratio, between 0 and 1.
+     */
+    public double getHitRatio() {
+        final long lookups = hitCount + missCount;
+        return lookups != 0 ? (double) hitCount / lookups : 0;
+    }
+
+    /**
+     * Returns the number of DNs which have been evicted from the cache because it was full.
+     *
+     * @return The number of evicted DNs.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of DNs currently cached.
+     *
+     * @return The number of DNs currently cached.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum number of DNs which can be cached.
+     *
+     * @return The maximum number of DNs which can be cached.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public String toString() {
+        return "DNCacheStatistics(hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount
+                + ", size=" + size + ", maxSize=" + maxSize + ")";
+    }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2009 Sun Microsystems, Inc.
  * Portions copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.opendj.ldap;
@@ -32,6 +33,8 @@ import org.forgerock.util.Reject;
  * attributes.
  * <li>The {@code Entry} implementation which should be used when decoding
  * entries or entry like objects.
+ * <li>Whether the values decoded from a protocol message may share the bytes
+ * of the message rather than being copied one by one.
  * </ul>
  */
 public final class DecodeOptions {
@@ -51,6 +54,7 @@ public final class DecodeOptions {
     private SchemaResolver schemaResolver;
     private EntryFactory entryFactory;
     private AttributeFactory attributeFactory;
+    private boolean zeroCopyEnabled;
 
     /**
      * Creates a new set of decode options which will always use the default
@@ -61,6 +65,7 @@ public final class DecodeOptions {
         this.attributeFactory = LinkedAttribute.FACTORY;
         this.entryFactory = LinkedHashMapEntry.FACTORY;
         this.schemaResolver = SchemaResolver.DEFAULT;
+        this.zeroCopyEnabled = false;
     }
 
     /**
@@ -74,6 +79,7 @@ public final class DecodeOptions {
         this.attributeFactory = options.attributeFactory;
         this.entryFactory = options.entryFactory;
         this.schemaResolver = options.schemaResolver;
+        this.zeroCopyEnabled = options.zeroCopyEnabled;
     }
 
     /**
@@ -109,6 +115,19 @@ public final class DecodeOptions {
         return schemaResolver;
     }
 
+    /**
+     * Returns {@code true} if the values decoded from a protocol message are
+     * views over the bytes of the message rather than copies. The default is
+     * {@code false}.
+     *
+     * @return {@code true} if the values decoded from a protocol message are
+     *         views over the bytes of the message rather than copies.
+     * @see #setZeroCopyEnabled(boolean)
+     */
+    public final boolean isZeroCopyEnabled() {
+        return zeroCopyEnabled;
+    }
+
     /**
      * Sets the {@code AttributeFactory} which will be used for creating new
      * {@code Attribute} instances when decoding attributes.
@@ -178,4 +197,25 @@ public final class DecodeOptions {
         this.schemaResolver = resolver;
         return this;
     }
+
+    /**
+     * Specifies whether the values decoded from a protocol message should be
+     * views over the bytes of the message rather than copies.
+     * <p>
+     * Enabling this mode saves one allocation per decoded value, at the cost
+     * of retaining the bytes of the whole message for as long as any of its
+     * values is referenced. Depending on the transport, the message bytes may
+     * also be taken out of its buffer pool rather than recycled. Applications
+     * which retain decoded values beyond the processing of the message, for
+     * instance in a cache, should copy them or leave this mode disabled.
+     *
+     * @param enabled
+     *            {@code true} if decoded values should be views over the bytes
+     *            of the message, or {@code false} if they should be copied.
+     * @return A reference to this set of decode options.
+     */
+    public final DecodeOptions setZeroCopyEnabled(final boolean enabled) {
+        this.zeroCopyEnabled = enabled;
+        return this;
+    }
 }
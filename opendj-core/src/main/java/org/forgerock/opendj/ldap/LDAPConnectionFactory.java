@@ -14,6 +14,7 @@
  * Copyright 2009-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
  * Portions Copyright 2022 Wren Security.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.ldap;
 
@@ -72,9 +73,11 @@ import org.forgerock.opendj.ldap.responses.Result;
 import org.forgerock.opendj.ldap.responses.SearchResultEntry;
 import org.forgerock.opendj.ldap.responses.SearchResultReference;
 import org.forgerock.opendj.ldap.spi.ConnectionState;
+import org.forgerock.opendj.ldap.spi.FlowControlledSearchResultHandler;
 import org.forgerock.opendj.ldap.spi.LDAPConnectionFactoryImpl;
 import org.forgerock.opendj.ldap.spi.LDAPConnectionImpl;
 import org.forgerock.opendj.ldap.spi.LdapPromiseImpl;
+import org.forgerock.opendj.ldap.spi.ReadFlowControl;
 import org.forgerock.opendj.ldap.spi.TransportProvider;
 import org.forgerock.util.AsyncFunction;
 import org.forgerock.util.Function;
@@ -965,7 +968,14 @@ public final class LDAPConnectionFactory extends CommonLDAPOptions implements Co
             }
 
             final AtomicBoolean searchDone = new AtomicBoolean();
-            final SearchResultHandler entryHandler = new SearchResultHandler() {
+            final SearchResultHandler entryHandler = new FlowControlledSearchResultHandler() {
+                @Override
+                public void setReadFlowControl(final ReadFlowControl flowControl) {
+                    if (searchHandler instanceof FlowControlledSearchResultHandler) {
+                        ((FlowControlledSearchResultHandler) searchHandler).setReadFlowControl(flowControl);
+                    }
+                }
+
                 @Override
                 public synchronized boolean handleEntry(SearchResultEntry entry) {
                     if (!searchDone.get()) {
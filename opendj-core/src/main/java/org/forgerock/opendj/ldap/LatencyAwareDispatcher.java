@@ -0,0 +1,328 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.ldap;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Dispatches requests to the server index which is expected to respond the fastest.
+ * <p>
+ * A server is only represented by its index. Each server's response time is tracked using an exponentially weighted
+ * moving average (EWMA) and requests are dispatched using the "power of two choices" algorithm: two servers are picked
+ * at random and the request is sent to the one having the lowest expected cost, i.e. its average response time
+ * multiplied by its number of active requests. This avoids the herd behavior of always choosing the fastest server
+ * while still quickly moving load away from slow servers.
+ * <p>
+ * Servers which fail more than half of their recent requests, or whose average response time is much higher than the
+ * median of the other servers, are considered outliers and are ejected: they will not be selected until the ejection
+ * period expires. At least one server is always kept available.
+ * <p>
+ * The dispatcher also maintains a histogram of the response times of all the servers, which is used for computing the
+ * delay after which idempotent requests should be hedged.
+ */
+final class LatencyAwareDispatcher {
+    /** The minimum number of requests a server must have completed before being evaluated for ejection. */
+    static final int MIN_REQUESTS_FOR_EJECTION = 20;
+    /** The ratio of failed requests above which a server is ejected. */
+    private static final double MAX_FAILURE_RATIO = 0.5;
+    /** The weight of each new response time sample in the moving average. */
+    private static final double EWMA_WEIGHT = 0.2;
+    /** The number of samples after which the response time histogram is decayed, favoring recent samples. */
+    private static final long HISTOGRAM_DECAY_INTERVAL = 1 << 16;
+    /** The minimum number of samples required before hedging requests. */
+    private static final long MIN_SAMPLES_FOR_HEDGING = 100;
+    /** The minimum hedging delay, which prevents hedging nearly all the requests against very fast servers. */
+    private static final long MIN_HEDGING_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLongArray ewmaLatencyNanos;
+    private final AtomicLongArray activeRequests;
+    private final AtomicLongArray windowRequests;
+    private final AtomicLongArray windowFailures;
+    /** The time at which each ejected server becomes available again, or zero if the server is not ejected. */
+    private final AtomicLongArray ejectedUntilNanos;
+    /** Response times in microseconds: bucket {@code i} counts samples in the range [2^(i-1), 2^i). */
+    private final AtomicLongArray latencyHistogram = new AtomicLongArray(Long.SIZE);
+    private final AtomicLong latencySamples = new AtomicLong();
+    private final long ejectionDurationNanos;
+    private final double outlierLatencyFactor;
+    private final double hedgingPercentile;
+
+    LatencyAwareDispatcher(final int numberOfServers, final long ejectionDurationNanos,
+            final double outlierLatencyFactor, final double hedgingPercentile) {
+        this.ewmaLatencyNanos = new AtomicLongArray(numberOfServers);
+        this.activeRequests = new AtomicLongArray(numberOfServers);
+        this.windowRequests = new AtomicLongArray(numberOfServers);
+        this.windowFailures = new AtomicLongArray(numberOfServers);
+        this.ejectedUntilNanos = new AtomicLongArray(numberOfServers);
+        this.ejectionDurationNanos = ejectionDurationNanos;
+        this.outlierLatencyFactor = outlierLatencyFactor;
+        this.hedgingPercentile = hedgingPercentile;
+    }
+
+    int size() {
+        return activeRequests.length();
+    }
+
+    /**
+     * Returns the server index to use for the next request, and counts the request as active for that server.
+     *
+     * @return the server index
+     */
+    int selectServer() {
+        final int size = size();
+        int index = 0;
+        if (size > 1) {
+            final long now = System.nanoTime();
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            final int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            if (second >= first) {
+                second++;
+            }
+            final int firstAvailable = nextAvailableIndex(first, now);
+            final int secondAvailable = nextAvailableIndex(second, now);
+            index = cost(firstAvailable) <= cost(secondAvailable) ? firstAvailable : secondAvailable;
+        }
+        activeRequests.incrementAndGet(index);
+        return index;
+    }
+
+    /**
+     * Returns the server index to use for hedging a request already sent to the provided server, and counts the
+     * request as active for that server.
+     *
+     * @param excludedIndex
+     *            The index of the server which is already processing the request.
+     * @return the server index, or -1 if no other server is available
+     */
+    int selectHedgingServer(final int excludedIndex) {
+        final long now = System.nanoTime();
+        int index = -1;
+        for (int i = 0; i < size(); i++) {
+            if (i != excludedIndex && isAvailable(i, now) && (index == -1 || cost(i) < cost(index))) {
+                index = i;
+            }
+        }
+        if (index != -1) {
+            activeRequests.incrementAndGet(index);
+        }
+        return index;
+    }
+
+    /**
+     * Signals to this dispatcher that a request has been completed by the provided server index.
+     *
+     * @param index
+     *            The index of server that processed the request.
+     * @param latencyNanos
+     *            The response time of the request.
+     * @param isServerFailure
+     *            Whether the request failed because of the server, e.g. because it is down or too busy.
+     */
+    void requestCompleted(final int index, final long latencyNanos, final boolean isServerFailure) {
+        activeRequests.decrementAndGet(index);
+        if (!isServerFailure) {
+            updateEwmaLatency(index, latencyNanos);
+            recordLatency(latencyNanos);
+        }
+
+        final long failures = isServerFailure ? windowFailures.incrementAndGet(index) : windowFailures.get(index);
+        final long requests = windowRequests.incrementAndGet(index);
+        if (requests >= MIN_REQUESTS_FOR_EJECTION) {
+            // Start a new evaluation window. Races with concurrent completions only lose a few samples.
+            windowRequests.set(index, 0);
+            windowFailures.set(index, 0);
+            if (failures > requests * MAX_FAILURE_RATIO || isLatencyOutlier(index)) {
+                eject(index);
+            }
+        }
+    }
+
+    /**
+     * Signals to this dispatcher that a request counted as active for the first server index has been sent to the
+     * second one instead, e.g. because the first server was offline.
+     *
+     * @param selectedIndex
+     *            The index of the server which was selected for the request.
+     * @param index
+     *            The index of the server which is processing the request.
+     */
+    void requestRedirected(final int selectedIndex, final int index) {
+        activeRequests.decrementAndGet(selectedIndex);
+        activeRequests.incrementAndGet(index);
+    }
+
+    /**
+     * Signals to this dispatcher that a request sent to the provided server index is no longer needed, e.g. because
+     * it lost a hedging race. Its response time, if any, is meaningless and is therefore not taken into account.
+     *
+     * @param index
+     *            The index of server that processed the request.
+     */
+    void requestAbandoned(final int index) {
+        activeRequests.decrementAndGet(index);
+    }
+
+    boolean isHedgingEnabled() {
+        return hedgingPercentile > 0;
+    }
+
+    /**
+     * Returns the delay after which an idempotent request should be hedged, based on the configured percentile of
+     * the response times observed so far.
+     *
+     * @return the hedging delay in nanoseconds, or -1 if not enough response times have been observed yet
+     */
+    long getHedgingDelayNanos() {
+        final long[] counts = new long[latencyHistogram.length()];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = latencyHistogram.get(i);
+            total += counts[i];
+        }
+        if (total < MIN_SAMPLES_FOR_HEDGING) {
+            return -1;
+        }
+        final long rank = (long) Math.ceil(total * hedgingPercentile / 100);
+        long cumulated = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulated += counts[i];
+            if (cumulated >= rank) {
+                // Upper bound of the bucket.
+                return Math.max(TimeUnit.MICROSECONDS.toNanos(1L << i), MIN_HEDGING_DELAY_NANOS);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns {@code true} if the provided error indicates that the server could not process the request, rather than
+     * the request being invalid or denied.
+     *
+     * @param error
+     *            The error returned for a request.
+     * @return {@code true} if the provided error should count against the server which returned it
+     */
+    static boolean isServerFailure(final LdapException error) {
+        final ResultCode resultCode = error.getResult().getResultCode();
+        return error instanceof ConnectionException || error instanceof TimeoutResultException
+                || ResultCode.BUSY.equals(resultCode) || ResultCode.UNAVAILABLE.equals(resultCode);
+    }
+
+    /** Package private for unit testing. */
+    boolean isEjected(final int index) {
+        return !isAvailable(index, System.nanoTime());
+    }
+
+    /** Package private for unit testing. */
+    long getEwmaLatencyNanos(final int index) {
+        return ewmaLatencyNanos.get(index);
+    }
+
+    private double cost(final int index) {
+        return (ewmaLatencyNanos.get(index) + 1d) * (activeRequests.get(index) + 1);
+    }
+
+    /** Returns the first available server starting from the provided index, or the index itself if none are. */
+    private int nextAvailableIndex(final int initialIndex, final long now) {
+        int index = initialIndex;
+        do {
+            if (isAvailable(index, now)) {
+                return index;
+            }
+            index = (index + 1) % size();
+        } while (index != initialIndex);
+        return initialIndex;
+    }
+
+    private boolean isAvailable(final int index, final long now) {
+        final long ejectedUntil = ejectedUntilNanos.get(index);
+        if (ejectedUntil == 0) {
+            return true;
+        } else if (now - ejectedUntil < 0) {
+            return false;
+        }
+        // The ejection has expired: give the server a fresh start so that it is not starved, nor flooded.
+        if (ejectedUntilNanos.compareAndSet(index, ejectedUntil, 0)) {
+            ewmaLatencyNanos.set(index, medianLatencyOfOtherServers(index, now));
+        }
+        return true;
+    }
+
+    private void eject(final int index) {
+        final long now = System.nanoTime();
+        int availableServers = 0;
+        for (int i = 0; i < size(); i++) {
+            if (isAvailable(i, now)) {
+                availableServers++;
+            }
+        }
+        // Never eject the last available server.
+        if (availableServers > 1) {
+            ejectedUntilNanos.set(index, Math.max(now + ejectionDurationNanos, 1));
+        }
+    }
+
+    private boolean isLatencyOutlier(final int index) {
+        final long median = medianLatencyOfOtherServers(index, System.nanoTime());
+        return median > 0 && ewmaLatencyNanos.get(index) > median * outlierLatencyFactor;
+    }
+
+    /** Returns the median response time of the available servers other than the provided one, or 0 if unknown. */
+    private long medianLatencyOfOtherServers(final int index, final long now) {
+        final long[] latencies = new long[size()];
+        int count = 0;
+        for (int i = 0; i < latencies.length; i++) {
+            // Do not call isAvailable() in order to avoid recursion when an ejection expires.
+            final long ejectedUntil = ejectedUntilNanos.get(i);
+            final long latency = ewmaLatencyNanos.get(i);
+            if (i != index && latency > 0 && (ejectedUntil == 0 || now - ejectedUntil >= 0)) {
+                latencies[count++] = latency;
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        Arrays.sort(latencies, 0, count);
+        return latencies[count / 2];
+    }
+
+    private void updateEwmaLatency(final int index, final long latencyNanos) {
+        for (;;) {
+            final long current = ewmaLatencyNanos.get(index);
+            final long next = current == 0 ? latencyNanos
+                                           : (long) (current + (latencyNanos - current) * EWMA_WEIGHT);
+            if (ewmaLatencyNanos.compareAndSet(index, current, Math.max(next, 1))) {
+                return;
+            }
+        }
+    }
+
+    private void recordLatency(final long latencyNanos) {
+        final long latencyMicros = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+        latencyHistogram.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(latencyMicros));
+        if (latencySamples.incrementAndGet() % HISTOGRAM_DECAY_INTERVAL == 0) {
+            // Halve all the counts so that old samples progressively lose their influence.
+            for (int i = 0; i < latencyHistogram.length(); i++) {
+                latencyHistogram.set(i, latencyHistogram.get(i) >> 1);
+            }
+        }
+    }
+}
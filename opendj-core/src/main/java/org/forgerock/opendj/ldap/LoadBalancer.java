@@ -13,6 +13,7 @@
  *
  * Copyright 2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.ldap;
 
@@ -23,6 +24,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
@@ -125,11 +127,19 @@ abstract class LoadBalancer implements ConnectionFactory {
 
         @Override
         public Promise<Connection, LdapException> getConnectionAsync() {
+            return getConnectionAsync(-1, null);
+        }
+
+        private Promise<Connection, LdapException> getConnectionAsync(final int excludedIndex,
+                final AtomicInteger connectedIndex) {
             return factory.getConnectionAsync().thenAsync(
                 new AsyncFunction<Connection, Connection, LdapException>() {
                     @Override
                     public Promise<Connection, LdapException> apply(Connection value) throws LdapException {
                         notifyOnline();
+                        if (connectedIndex != null) {
+                            connectedIndex.set(index);
+                        }
                         return newResultPromise(value);
                     }
                 },
@@ -139,7 +149,8 @@ abstract class LoadBalancer implements ConnectionFactory {
                         // Attempt failed - try next factory.
                         notifyOffline(error);
                         final int nextIndex = (index + 1) % monitoredFactories.size();
-                        return getMonitoredConnectionFactory(nextIndex).getConnectionAsync();
+                        return getOperationalFactory(nextIndex, excludedIndex)
+                                .getConnectionAsync(excludedIndex, connectedIndex);
                     }
                 });
         }
@@ -273,11 +284,33 @@ abstract class LoadBalancer implements ConnectionFactory {
      * @throws LdapException If no connection factories are available.
      */
     final ConnectionFactory getMonitoredConnectionFactory(final int initialIndex) throws LdapException {
+        return getOperationalFactory(initialIndex, -1);
+    }
+
+    /**
+     * Asynchronously obtains a connection from the first available connection factory starting from
+     * {@code initialIndex}, failing over to the next connection factories if needed, but never from the connection
+     * factory at {@code excludedIndex}.
+     *
+     * @param initialIndex The index of the connection factory to be used if operational.
+     * @param excludedIndex The index of the connection factory which must not be used, or -1.
+     * @param connectedIndex Set to the index of the connection factory which provided the connection, before the
+     *                       returned promise completes.
+     * @return A promise which will complete with the connection.
+     * @throws LdapException If no connection factories are available.
+     */
+    final Promise<Connection, LdapException> getConnectionAsync(final int initialIndex, final int excludedIndex,
+            final AtomicInteger connectedIndex) throws LdapException {
+        return getOperationalFactory(initialIndex, excludedIndex).getConnectionAsync(excludedIndex, connectedIndex);
+    }
+
+    private MonitoredConnectionFactory getOperationalFactory(final int initialIndex, final int excludedIndex)
+            throws LdapException {
         final int maxIndex = monitoredFactories.size();
         int index = initialIndex;
         do {
             final MonitoredConnectionFactory factory = monitoredFactories.get(index);
-            if (factory.isOperational.get()) {
+            if (index != excludedIndex && factory.isOperational.get()) {
                 return factory;
             }
             index = (index + 1) % maxIndex;
@@ -294,4 +327,8 @@ abstract class LoadBalancer implements ConnectionFactory {
     final String getLoadBalancerName() {
         return loadBalancerName;
     }
+
+    final ScheduledExecutorService getScheduler() {
+        return scheduler.get();
+    }
 }
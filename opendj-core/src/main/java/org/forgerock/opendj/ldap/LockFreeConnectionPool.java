@@ -0,0 +1,608 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.ldap;
+
+import static org.forgerock.opendj.ldap.LdapException.*;
+import static org.forgerock.util.promise.Promises.*;
+
+import static com.forgerock.opendj.ldap.CoreMessages.*;
+import static com.forgerock.opendj.util.StaticUtils.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.util.Reject;
+import org.forgerock.util.promise.ExceptionHandler;
+import org.forgerock.util.promise.Promise;
+import org.forgerock.util.promise.PromiseImpl;
+import org.forgerock.util.promise.ResultHandler;
+import org.forgerock.util.time.TimeService;
+
+import com.forgerock.opendj.util.ReferenceCountedObject;
+
+/**
+ * A connection pool implementation with the same semantics as
+ * {@link CachedConnectionPool} which never blocks nor takes any lock when
+ * connections are obtained from, or released back to, the pool.
+ * <p>
+ * Idle connections are kept in a lock-free LIFO stack, so that the most
+ * recently used connections are reused first and the least recently used ones
+ * can time out. In addition, each thread remembers the last connection it
+ * released: if that connection is still idle when the thread needs a
+ * connection again it is claimed directly, without touching the shared stack.
+ * A connection is remembered by at most one thread, and forgotten as soon as
+ * it is removed from the pool.
+ * The ownership of a connection is arbitrated by a compare-and-set on its
+ * state, so a connection may be referenced from the stack and from a
+ * thread-local slot at the same time without ever being handed out twice.
+ * <p>
+ * Connection requests which cannot be satisfied immediately are queued in a
+ * lock-free FIFO queue and are handed connections directly by the threads
+ * releasing them.
+ */
+final class LockFreeConnectionPool implements ConnectionPool, ConnectionPoolMetrics {
+
+    /**
+     * This success handler is invoked when an attempt to add a new connection
+     * to the pool completes.
+     */
+    private final class ConnectionResultHandler implements ResultHandler<Connection> {
+        @Override
+        public void handleResult(final Connection connection) {
+            logger.debug(LocalizableMessage.raw(
+                    "Connection attempt succeeded:  availableConnections=%d, maxPoolSize=%d",
+                     getPoolSize(), maxPoolSize));
+            pendingConnectionAttempts.decrementAndGet();
+            connectionCreationCount.incrementAndGet();
+            final PoolEntry entry = new PoolEntry(connection);
+            entries.add(entry);
+            releaseEntry(entry);
+        }
+    }
+
+    /**
+     * This failure handler is invoked when an attempt to add a new connection
+     * to the pool ended in error.
+     */
+    private final class ConnectionFailureHandler implements ExceptionHandler<LdapException> {
+        @Override
+        public void handleException(final LdapException exception) {
+            // Connection attempt failed, so decrease the pool size.
+            pendingConnectionAttempts.decrementAndGet();
+            availableConnections.release();
+
+            logger.debug(LocalizableMessage.raw(
+                    "Connection attempt failed: availableConnections=%d, maxPoolSize=%d",
+                    getPoolSize(), maxPoolSize, exception));
+
+            // See CachedConnectionPool: a failed attempt must fail all the pending promises.
+            failWaiters(exception);
+        }
+    }
+
+    /** A pooled connection which returns its underlying pool entry to this pool when closed. */
+    private class PooledConnection extends AbstractPooledConnection {
+        private final PoolEntry entry;
+
+        PooledConnection(final PoolEntry entry) {
+            super(entry.connection);
+            this.entry = entry;
+        }
+
+        @Override
+        void release(final Connection connection) {
+            // Don't put invalid connections back in the pool.
+            if (connection.isValid()) {
+                releaseEntry(entry);
+            } else {
+                evictEntry(entry);
+
+                logger.debug(LocalizableMessage.raw(
+                        "Connection no longer valid: availableConnections=%d, maxPoolSize=%d",
+                        getPoolSize(), maxPoolSize));
+
+                /*
+                 * The connection may have been disconnected by the remote
+                 * server, but the server may still be available. In order to
+                 * avoid leaving pending promises hanging indefinitely, try to
+                 * reconnect immediately if someone is waiting.
+                 */
+                if (!waiters.isEmpty() && availableConnections.tryAcquire()) {
+                    createConnection();
+                }
+            }
+        }
+    }
+
+    private final class DebugEnabledPooledConnection extends PooledConnection {
+        private final StackTraceElement[] stackTrace;
+
+        private DebugEnabledPooledConnection(final PoolEntry entry, final StackTraceElement[] stackTrace) {
+            super(entry);
+            this.stackTrace = stackTrace;
+        }
+
+        @Override
+        protected void finalize() throws Throwable {
+            if (!isClosed()) {
+                logIfDebugEnabled("CONNECTION POOL: connection leaked! It was allocated here: ", stackTrace);
+            }
+        }
+    }
+
+    /**
+     * Scheduled task responsible for purging non-core pooled connections which
+     * have been idle for longer than the idle timeout limit.
+     */
+    private final class PurgeIdleConnectionsTask implements Runnable {
+        @Override
+        public void run() {
+            if (isClosed.get()) {
+                return;
+            }
+
+            final List<Connection> idleConnections = new ArrayList<>();
+            final long timeoutMillis = timeService.now() - idleTimeoutMillis;
+            int nonCoreConnectionCount = getPoolSize() - corePoolSize;
+            // Entries are iterated in creation order, so the oldest connections are purged first.
+            for (final PoolEntry entry : entries) {
+                if (nonCoreConnectionCount <= 0) {
+                    break;
+                }
+                if (entry.lastReleasedMillis < timeoutMillis && entry.tryRemove()) {
+                    entry.clearSlot();
+                    idleStack.remove(entry);
+                    entries.remove(entry);
+                    availableConnections.release();
+                    connectionEvictionCount.incrementAndGet();
+                    idleConnections.add(entry.connection);
+                    nonCoreConnectionCount--;
+                }
+            }
+
+            // Close the idle connections.
+            if (!idleConnections.isEmpty()) {
+                logger.debug(LocalizableMessage.raw(
+                        "Closing %d idle pooled connections: availableConnections=%d, maxPoolSize=%d",
+                        idleConnections.size(), getPoolSize(), maxPoolSize));
+                for (final Connection connection : idleConnections) {
+                    connection.close();
+                }
+            }
+        }
+    }
+
+    /** An underlying connection owned by this pool together with its pooling state. */
+    private static final class PoolEntry {
+        private static final int IDLE = 0;
+        private static final int IN_USE = 1;
+        private static final int REMOVED = 2;
+
+        private final Connection connection;
+        private final AtomicInteger state = new AtomicInteger(IN_USE);
+        /** Whether this entry is referenced from the idle stack, which guarantees it is pushed at most once. */
+        private final AtomicBoolean isStacked = new AtomicBoolean();
+        /**
+         * The thread-local slot of the last thread which released this entry, if any. Only updated by the owner of
+         * this entry, so that the entry is referenced from at most one slot.
+         */
+        private volatile AtomicReference<PoolEntry> slot;
+        private volatile long lastReleasedMillis;
+
+        PoolEntry(final Connection connection) {
+            this.connection = connection;
+        }
+
+        boolean isIdle() {
+            return state.get() == IDLE;
+        }
+
+        boolean tryAcquire() {
+            return state.compareAndSet(IDLE, IN_USE);
+        }
+
+        boolean tryRemove() {
+            return state.compareAndSet(IDLE, REMOVED);
+        }
+
+        /** Makes the provided slot reference this entry instead of the previous one, if any. */
+        void setSlot(final AtomicReference<PoolEntry> newSlot) {
+            if (slot != newSlot) {
+                clearSlot();
+                slot = newSlot;
+            }
+            newSlot.set(this);
+        }
+
+        /** Stops referencing this entry from the slot of the last thread which released it. */
+        void clearSlot() {
+            final AtomicReference<PoolEntry> oldSlot = slot;
+            if (oldSlot != null) {
+                // The thread may have released another connection since.
+                oldSlot.compareAndSet(this, null);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(connection);
+        }
+    }
+
+    /** A pending connection request. */
+    private static final class Waiter {
+        private final PromiseImpl<Connection, LdapException> promise = PromiseImpl.create();
+        private final long startNanos;
+        private final StackTraceElement[] stack;
+
+        Waiter(final long startNanos, final StackTraceElement[] stack) {
+            this.startNanos = startNanos;
+            this.stack = stack;
+        }
+    }
+
+    private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+    /**
+     * This is package private in order to allow unit tests to inject fake time
+     * stamps.
+     */
+    TimeService timeService = TimeService.SYSTEM;
+
+    private final Semaphore availableConnections;
+    private final ResultHandler<Connection> connectionResultHandler = new ConnectionResultHandler();
+    private final ExceptionHandler<LdapException> connectionFailureHandler = new ConnectionFailureHandler();
+    private final int corePoolSize;
+    private final ConnectionFactory factory;
+    private final AtomicBoolean isClosed = new AtomicBoolean();
+    private final ScheduledFuture<?> idleTimeoutFuture;
+    private final long idleTimeoutMillis;
+    private final int maxPoolSize;
+    private final ReferenceCountedObject<ScheduledExecutorService>.Reference scheduler;
+
+    /** All the connections owned by this pool, whether idle or in use, in creation order. */
+    private final List<PoolEntry> entries = new CopyOnWriteArrayList<>();
+    /** The idle connections, the most recently released first. May contain entries which have been claimed since. */
+    private final ConcurrentLinkedDeque<PoolEntry> idleStack = new ConcurrentLinkedDeque<>();
+    /**
+     * The last connection released by each thread, which is tried first by that thread. The slots are cleared when
+     * their connection is removed from the pool, so that they never keep closed connections reachable.
+     */
+    private final ThreadLocal<AtomicReference<PoolEntry>> lastReleasedEntry =
+            new ThreadLocal<AtomicReference<PoolEntry>>() {
+                @Override
+                protected AtomicReference<PoolEntry> initialValue() {
+                    return new AtomicReference<>();
+                }
+            };
+    private final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of new connections which are in the process of being
+     * established.
+     */
+    private final AtomicInteger pendingConnectionAttempts = new AtomicInteger();
+    private final AtomicLong connectionCreationCount = new AtomicLong();
+    private final AtomicLong connectionEvictionCount = new AtomicLong();
+    private final AtomicLongArray borrowLatencyHistogram =
+            new AtomicLongArray(BORROW_LATENCY_BUCKET_BOUNDS_MICROS.length + 1);
+
+    LockFreeConnectionPool(final ConnectionFactory factory, final int corePoolSize,
+            final int maximumPoolSize, final long idleTimeout, final TimeUnit unit,
+            final ScheduledExecutorService scheduler) {
+        Reject.ifNull(factory);
+        Reject.ifFalse(corePoolSize >= 0, "corePoolSize < 0");
+        Reject.ifFalse(maximumPoolSize > 0, "maxPoolSize <= 0");
+        Reject.ifFalse(corePoolSize <= maximumPoolSize, "corePoolSize > maxPoolSize");
+        Reject.ifFalse(idleTimeout >= 0, "idleTimeout < 0");
+        Reject.ifFalse(idleTimeout == 0 || unit != null, "time unit is null");
+
+        this.factory = factory;
+        this.corePoolSize = corePoolSize;
+        this.maxPoolSize = maximumPoolSize;
+        this.availableConnections = new Semaphore(maximumPoolSize);
+
+        if (corePoolSize < maximumPoolSize && idleTimeout > 0) {
+            // Dynamic pool.
+            this.scheduler = DEFAULT_SCHEDULER.acquireIfNull(scheduler);
+            this.idleTimeoutMillis = unit.toMillis(idleTimeout);
+            this.idleTimeoutFuture =
+                    this.scheduler.get().scheduleWithFixedDelay(new PurgeIdleConnectionsTask(),
+                            idleTimeout, idleTimeout, unit);
+        } else {
+            // Fixed pool.
+            this.scheduler = null;
+            this.idleTimeoutMillis = 0;
+            this.idleTimeoutFuture = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!isClosed.compareAndSet(false, true)) {
+            return;
+        }
+
+        /*
+         * Close the idle connections immediately: connections which are in use
+         * will be closed when they are released.
+         */
+        final List<Connection> idleConnections = new ArrayList<>();
+        for (final PoolEntry entry : entries) {
+            if (entry.tryRemove()) {
+                entry.clearSlot();
+                entries.remove(entry);
+                availableConnections.release();
+                idleConnections.add(entry.connection);
+            }
+        }
+        idleStack.clear();
+
+        logger.debug(LocalizableMessage.raw(
+                "Connection pool is closing: availableConnections=%d, maxPoolSize=%d",
+                getPoolSize(), maxPoolSize));
+
+        if (idleTimeoutFuture != null) {
+            idleTimeoutFuture.cancel(false);
+            scheduler.release();
+        }
+
+        for (final Connection connection : idleConnections) {
+            connection.close();
+        }
+        failWaiters(newPoolClosingException());
+
+        // Close the underlying factory.
+        factory.close();
+    }
+
+    @Override
+    public Connection getConnection() throws LdapException {
+        try {
+            return getConnectionAsync().getOrThrow();
+        } catch (final InterruptedException e) {
+            throw newLdapException(ResultCode.CLIENT_SIDE_USER_CANCELLED, e);
+        }
+    }
+
+    @Override
+    public Promise<Connection, LdapException> getConnectionAsync() {
+        if (isClosed.get()) {
+            throw new IllegalStateException("LockFreeConnectionPool is already closed");
+        }
+        final long startNanos = System.nanoTime();
+
+        // Loop while iterating through stale connections (see OPENDJ-590).
+        for (PoolEntry entry = acquireIdleEntry(); entry != null; entry = acquireIdleEntry()) {
+            if (entry.connection.isValid()) {
+                recordBorrowLatency(startNanos);
+                return newResultPromise(newPooledConnection(entry, getStackTraceIfDebugEnabled()));
+            }
+            // Close the stale connection and try again.
+            evictEntry(entry);
+
+            logger.debug(LocalizableMessage.raw("Connection no longer valid: availableConnections=%d, poolSize=%d",
+                    getPoolSize(), maxPoolSize));
+        }
+
+        final Waiter waiter = new Waiter(startNanos, getStackTraceIfDebugEnabled());
+        waiters.add(waiter);
+        if (availableConnections.tryAcquire()) {
+            // Grow the pool.
+            createConnection();
+        } else {
+            /*
+             * A connection may have been released after the idle stack was
+             * inspected but before this request was queued, in which case the
+             * releasing thread did not see this request. Releasing the
+             * connection again hands it over to the oldest waiting request.
+             */
+            final PoolEntry entry = acquireIdleEntry();
+            if (entry != null) {
+                releaseEntry(entry);
+            }
+        }
+        if (isClosed.get()) {
+            failWaiters(newPoolClosingException());
+        }
+        return waiter.promise;
+    }
+
+    @Override
+    public long[] getBorrowLatencyHistogram() {
+        final long[] histogram = new long[borrowLatencyHistogram.length()];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = borrowLatencyHistogram.get(i);
+        }
+        return histogram;
+    }
+
+    @Override
+    public long getConnectionCreationCount() {
+        return connectionCreationCount.get();
+    }
+
+    @Override
+    public long getConnectionEvictionCount() {
+        return connectionEvictionCount.get();
+    }
+
+    @Override
+    public int getIdleConnectionCount() {
+        int idle = 0;
+        for (final PoolEntry entry : entries) {
+            if (entry.isIdle()) {
+                idle++;
+            }
+        }
+        return idle;
+    }
+
+    @Override
+    public int getPoolSize() {
+        return maxPoolSize - availableConnections.availablePermits();
+    }
+
+    @Override
+    public int getWaiterCount() {
+        return waiters.size();
+    }
+
+    @Override
+    public String toString() {
+        final int size = getPoolSize();
+        final int pending = pendingConnectionAttempts.get();
+        final int in = getIdleConnectionCount();
+        final int out = size - in - pending;
+        return String.format("LockFreeConnectionPool(size=%d[in:%d + out:%d + "
+                + "pending:%d], maxSize=%d, blocked=%d, factory=%s)", size, in, out, pending,
+                maxPoolSize, getWaiterCount(), String.valueOf(factory));
+    }
+
+    /**
+     * Provide a finalizer because connection pools are expensive resources to
+     * accidentally leave around. Also, since they won't be created all that
+     * frequently, there's little risk of overloading the finalizer.
+     */
+    @Override
+    protected void finalize() throws Throwable {
+        close();
+    }
+
+    /**
+     * Claims an idle connection, trying the connection last released by the
+     * current thread first. Returns {@code null} if there are no idle
+     * connections.
+     */
+    private PoolEntry acquireIdleEntry() {
+        PoolEntry entry = lastReleasedEntry.get().get();
+        if (entry != null && entry.tryAcquire()) {
+            return entry;
+        }
+        while ((entry = idleStack.pollFirst()) != null) {
+            // Clear the flag before claiming so that a concurrent release pushes the entry again.
+            entry.isStacked.set(false);
+            if (entry.tryAcquire()) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hands the provided connection over to the oldest waiting request, or
+     * makes it idle if there are none. This method never blocks.
+     */
+    private void releaseEntry(final PoolEntry entry) {
+        for (;;) {
+            if (isClosed.get()) {
+                closeEntry(entry);
+                failWaiters(newPoolClosingException());
+                return;
+            }
+
+            final Waiter waiter = waiters.poll();
+            if (waiter != null) {
+                if (waiter.promise.tryHandleResult(newPooledConnection(entry, waiter.stack))) {
+                    recordBorrowLatency(waiter.startNanos);
+                    return;
+                }
+                // The request has been cancelled: try the next one.
+                continue;
+            }
+
+            entry.lastReleasedMillis = timeService.now();
+            entry.setSlot(lastReleasedEntry.get());
+            entry.state.set(PoolEntry.IDLE);
+            if (entry.isStacked.compareAndSet(false, true)) {
+                idleStack.addFirst(entry);
+            }
+
+            /*
+             * A request may have been queued after the waiters were inspected
+             * but before the connection became idle, without noticing it.
+             * Reclaim the connection and hand it over if that is the case.
+             */
+            if (waiters.isEmpty() || !entry.tryAcquire()) {
+                return;
+            }
+        }
+    }
+
+    /** Removes the provided connection, which must be in use, from the pool and closes it. */
+    private void evictEntry(final PoolEntry entry) {
+        connectionEvictionCount.incrementAndGet();
+        closeEntry(entry);
+    }
+
+    private void closeEntry(final PoolEntry entry) {
+        entry.state.set(PoolEntry.REMOVED);
+        entry.clearSlot();
+        entries.remove(entry);
+        availableConnections.release();
+        entry.connection.close();
+    }
+
+    private void createConnection() {
+        pendingConnectionAttempts.incrementAndGet();
+        factory.getConnectionAsync().thenOnResult(connectionResultHandler)
+                                    .thenOnException(connectionFailureHandler);
+    }
+
+    private void failWaiters(final LdapException exception) {
+        Waiter waiter;
+        while ((waiter = waiters.poll()) != null) {
+            waiter.promise.handleException(exception);
+        }
+    }
+
+    private LdapException newPoolClosingException() {
+        return newLdapException(ResultCode.CLIENT_SIDE_USER_CANCELLED,
+                ERR_CONNECTION_POOL_CLOSING.get(toString()).toString());
+    }
+
+    private void recordBorrowLatency(final long startNanos) {
+        final long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        int bucket = 0;
+        while (bucket < BORROW_LATENCY_BUCKET_BOUNDS_MICROS.length
+                && latencyMicros >= BORROW_LATENCY_BUCKET_BOUNDS_MICROS[bucket]) {
+            bucket++;
+        }
+        borrowLatencyHistogram.incrementAndGet(bucket);
+    }
+
+    private PooledConnection newPooledConnection(final PoolEntry entry, final StackTraceElement[] stack) {
+        if (!DEBUG_ENABLED) {
+            return new PooledConnection(entry);
+        } else {
+            return new DebugEnabledPooledConnection(entry, stack);
+        }
+    }
+}
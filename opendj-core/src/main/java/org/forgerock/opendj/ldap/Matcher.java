@@ -13,10 +13,13 @@
  *
  * Copyright 2009 Sun Microsystems, Inc.
  * Portions copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.ldap;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import org.forgerock.i18n.LocalizableMessage;
@@ -29,13 +32,21 @@ import org.forgerock.opendj.ldap.schema.UnknownSchemaElementException;
 
 import com.forgerock.opendj.util.StaticUtils;
 
-/** An interface for determining whether entries match a {@code Filter}. */
+/**
+ * An interface for determining whether entries match a {@code Filter}.
+ * <p>
+ * The filter is compiled once when the matcher is created: attribute descriptions and matching rules are resolved,
+ * assertion values are normalized, nested AND and OR filters are flattened, constant sub-filters are folded and the
+ * components of AND and OR filters are reordered so that the cheapest ones are evaluated first.
+ */
 public final class Matcher {
     private static final class AndMatcherImpl extends MatcherImpl {
-        private final List<MatcherImpl> subMatchers;
+        private final MatcherImpl[] subMatchers;
+        private final int cost;
 
         private AndMatcherImpl(final List<MatcherImpl> subMatchers) {
-            this.subMatchers = subMatchers;
+            this.subMatchers = subMatchers.toArray(new MatcherImpl[subMatchers.size()]);
+            this.cost = totalCost(subMatchers);
         }
 
         @Override
@@ -51,6 +62,11 @@ public final class Matcher {
             return r;
         }
 
+        @Override
+        int cost() {
+            return cost;
+        }
+
         @Override
         public void toString(StringBuilder sb) {
             sb.append("and(");
@@ -78,6 +94,16 @@ public final class Matcher {
             this.dnAttributes = dnAttributes;
         }
 
+        @Override
+        int cost() {
+            // Matching all the attributes of the entry or its DN is much more expensive than matching a single one.
+            int cost = attributeDescription != null ? EXTENSIBLE_COST : ALL_ATTRIBUTES_COST;
+            if (dnAttributes) {
+                cost += ALL_ATTRIBUTES_COST;
+            }
+            return cost;
+        }
+
         @Override
         public ConditionResult matches(final Entry entry) {
             ConditionResult r = ConditionResult.FALSE;
@@ -148,12 +174,54 @@ public final class Matcher {
         }
     }
 
+    /** Matches the values of a single attribute, which is the case for all the filters but extensible ones. */
+    private static final class AttributeAssertionMatcherImpl extends MatcherImpl {
+        private final AttributeDescription attributeDescription;
+        private final MatchingRule rule;
+        private final Assertion assertion;
+        private final int cost;
+
+        private AttributeAssertionMatcherImpl(final AttributeDescription attributeDescription,
+                final MatchingRule rule, final Assertion assertion, final int cost) {
+            this.attributeDescription = attributeDescription;
+            this.rule = rule;
+            this.assertion = assertion;
+            this.cost = cost;
+        }
+
+        @Override
+        public ConditionResult matches(final Entry entry) {
+            return Matcher.matches(entry.getAttribute(attributeDescription), rule, assertion);
+        }
+
+        @Override
+        int cost() {
+            return cost;
+        }
+
+        @Override
+        public void toString(StringBuilder sb) {
+            // @Checkstyle:off
+            sb.append("assertion(")
+              .append("assertion=").append(assertion)
+              .append(", attributeDescription=").append(attributeDescription)
+              .append(", rule=").append(rule)
+              .append(")");
+            // @Checkstyle:on
+        }
+    }
+
     private static class FalseMatcherImpl extends MatcherImpl {
         @Override
         public ConditionResult matches(final Entry entry) {
             return ConditionResult.FALSE;
         }
 
+        @Override
+        int cost() {
+            return CONSTANT_COST;
+        }
+
         @Override
         public void toString(StringBuilder sb) {
             sb.append("false");
@@ -163,6 +231,12 @@ public final class Matcher {
     private static abstract class MatcherImpl {
         public abstract ConditionResult matches(Entry entry);
 
+        /**
+         * Returns an estimate of the relative cost of matching an entry, which is used for evaluating the cheapest
+         * components of AND and OR filters first.
+         */
+        abstract int cost();
+
         @Override
         public String toString() {
             StringBuilder sb = new StringBuilder();
@@ -185,6 +259,11 @@ public final class Matcher {
             return ConditionResult.not(subFilter.matches(entry));
         }
 
+        @Override
+        int cost() {
+            return subFilter.cost();
+        }
+
         @Override
         public void toString(StringBuilder sb) {
             sb.append("not(");
@@ -194,10 +273,12 @@ public final class Matcher {
     }
 
     private static final class OrMatcherImpl extends MatcherImpl {
-        private final List<MatcherImpl> subMatchers;
+        private final MatcherImpl[] subMatchers;
+        private final int cost;
 
         private OrMatcherImpl(final List<MatcherImpl> subMatchers) {
-            this.subMatchers = subMatchers;
+            this.subMatchers = subMatchers.toArray(new MatcherImpl[subMatchers.size()]);
+            this.cost = totalCost(subMatchers);
         }
 
         @Override
@@ -213,6 +294,11 @@ public final class Matcher {
             return r;
         }
 
+        @Override
+        int cost() {
+            return cost;
+        }
+
         @Override
         public void toString(StringBuilder sb) {
             sb.append("or(");
@@ -235,6 +321,11 @@ public final class Matcher {
             return ConditionResult.valueOf(entry.getAttribute(attribute) != null);
         }
 
+        @Override
+        int cost() {
+            return PRESENT_COST;
+        }
+
         @Override
         public void toString(StringBuilder sb) {
             sb.append("present(").append(attribute).append(")");
@@ -247,6 +338,11 @@ public final class Matcher {
             return ConditionResult.TRUE;
         }
 
+        @Override
+        int cost() {
+            return CONSTANT_COST;
+        }
+
         @Override
         public void toString(StringBuilder sb) {
             sb.append("true");
@@ -259,6 +355,11 @@ public final class Matcher {
             return ConditionResult.UNDEFINED;
         }
 
+        @Override
+        int cost() {
+            return CONSTANT_COST;
+        }
+
         @Override
         public void toString(StringBuilder sb) {
             sb.append("undefined");
@@ -276,9 +377,24 @@ public final class Matcher {
 
             final List<MatcherImpl> subMatchers = new ArrayList<>(subFilters.size());
             for (final Filter f : subFilters) {
-                subMatchers.add(f.accept(this, schema));
+                final MatcherImpl subMatcher = f.accept(this, schema);
+                if (subMatcher == FALSE) {
+                    return FALSE;
+                } else if (subMatcher instanceof AndMatcherImpl) {
+                    Collections.addAll(subMatchers, ((AndMatcherImpl) subMatcher).subMatchers);
+                } else if (subMatcher != TRUE) {
+                    subMatchers.add(subMatcher);
+                }
+            }
+            switch (subMatchers.size()) {
+            case 0:
+                return TRUE;
+            case 1:
+                return subMatchers.get(0);
+            default:
+                Collections.sort(subMatchers, COST_COMPARATOR);
+                return new AndMatcherImpl(subMatchers);
             }
-            return new AndMatcherImpl(subMatchers);
         }
 
         @Override
@@ -310,7 +426,7 @@ public final class Matcher {
                 logger.warn(LocalizableMessage.raw("The assertion value %s is invalid", assertionValue, de));
                 return UNDEFINED;
             }
-            return new AssertionMatcherImpl(ad, rule, null, assertion, false);
+            return new AttributeAssertionMatcherImpl(ad, rule, assertion, APPROXIMATE_COST);
         }
 
         @Override
@@ -342,7 +458,7 @@ public final class Matcher {
                 logger.warn(LocalizableMessage.raw("The assertion value %s is invalid", assertionValue, de));
                 return UNDEFINED;
             }
-            return new AssertionMatcherImpl(ad, rule, null, assertion, false);
+            return new AttributeAssertionMatcherImpl(ad, rule, assertion, EQUALITY_COST);
         }
 
         @Override
@@ -418,6 +534,9 @@ public final class Matcher {
                 logger.warn(LocalizableMessage.raw("The assertion value %s is invalid", assertionValue, de));
                 return UNDEFINED;
             }
+            if (ad != null && !dnAttributes) {
+                return new AttributeAssertionMatcherImpl(ad, rule, assertion, EXTENSIBLE_COST);
+            }
             return new AssertionMatcherImpl(ad, rule, ruleUse, assertion, dnAttributes);
         }
 
@@ -451,7 +570,7 @@ public final class Matcher {
                 logger.warn(LocalizableMessage.raw("The assertion value %s is invalid", assertionValue, de));
                 return UNDEFINED;
             }
-            return new AssertionMatcherImpl(ad, rule, null, assertion, false);
+            return new AttributeAssertionMatcherImpl(ad, rule, assertion, ORDERING_COST);
         }
 
         @Override
@@ -483,12 +602,21 @@ public final class Matcher {
                 logger.warn(LocalizableMessage.raw("The assertion value %s is invalid", assertionValue , de));
                 return UNDEFINED;
             }
-            return new AssertionMatcherImpl(ad, rule, null, assertion, false);
+            return new AttributeAssertionMatcherImpl(ad, rule, assertion, ORDERING_COST);
         }
 
         @Override
         public MatcherImpl visitNotFilter(final Schema schema, final Filter subFilter) {
             final MatcherImpl subMatcher = subFilter.accept(this, schema);
+            if (subMatcher == TRUE) {
+                return FALSE;
+            } else if (subMatcher == FALSE) {
+                return TRUE;
+            } else if (subMatcher == UNDEFINED) {
+                return UNDEFINED;
+            } else if (subMatcher instanceof NotMatcherImpl) {
+                return ((NotMatcherImpl) subMatcher).subFilter;
+            }
             return new NotMatcherImpl(subMatcher);
         }
 
@@ -501,9 +629,24 @@ public final class Matcher {
 
             final List<MatcherImpl> subMatchers = new ArrayList<>(subFilters.size());
             for (final Filter f : subFilters) {
-                subMatchers.add(f.accept(this, schema));
+                final MatcherImpl subMatcher = f.accept(this, schema);
+                if (subMatcher == TRUE) {
+                    return TRUE;
+                } else if (subMatcher instanceof OrMatcherImpl) {
+                    Collections.addAll(subMatchers, ((OrMatcherImpl) subMatcher).subMatchers);
+                } else if (subMatcher != FALSE) {
+                    subMatchers.add(subMatcher);
+                }
+            }
+            switch (subMatchers.size()) {
+            case 0:
+                return FALSE;
+            case 1:
+                return subMatchers.get(0);
+            default:
+                Collections.sort(subMatchers, COST_COMPARATOR);
+                return new OrMatcherImpl(subMatchers);
             }
-            return new OrMatcherImpl(subMatchers);
         }
 
         @Override
@@ -551,7 +694,7 @@ public final class Matcher {
                 logger.warn(LocalizableMessage.raw("The substring assertion values contain an invalid value", de));
                 return UNDEFINED;
             }
-            return new AssertionMatcherImpl(ad, rule, null, assertion, false);
+            return new AttributeAssertionMatcherImpl(ad, rule, assertion, SUBSTRING_COST);
         }
 
         @Override
@@ -566,12 +709,41 @@ public final class Matcher {
 
     private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
+    /*
+     * Relative costs of the matchers: checking the presence of an attribute is cheaper than normalizing its values,
+     * and equality assertions are usually cheaper than ordering, approximate and substring assertions.
+     */
+    private static final int CONSTANT_COST = 0;
+    private static final int PRESENT_COST = 1;
+    private static final int EQUALITY_COST = 2;
+    private static final int ORDERING_COST = 3;
+    private static final int APPROXIMATE_COST = 4;
+    private static final int SUBSTRING_COST = 4;
+    private static final int EXTENSIBLE_COST = 5;
+    private static final int ALL_ATTRIBUTES_COST = 20;
+
+    /** Sorts matchers by increasing cost, preserving the order of the filter for matchers having the same cost. */
+    private static final Comparator<MatcherImpl> COST_COMPARATOR = new Comparator<MatcherImpl>() {
+        @Override
+        public int compare(final MatcherImpl m1, final MatcherImpl m2) {
+            return Integer.compare(m1.cost(), m2.cost());
+        }
+    };
+
     private static final MatcherImpl FALSE = new FalseMatcherImpl();
     private static final MatcherImpl TRUE = new TrueMatcherImpl();
     private static final MatcherImpl UNDEFINED = new UndefinedMatcherImpl();
 
     private static final FilterVisitor<MatcherImpl, Schema> VISITOR = new Visitor();
 
+    private static int totalCost(final List<MatcherImpl> matchers) {
+        int cost = 0;
+        for (final MatcherImpl matcher : matchers) {
+            cost += matcher.cost();
+        }
+        return cost;
+    }
+
     private static ConditionResult matches(final Attribute a, final MatchingRule rule,
             final Assertion assertion) {
         ConditionResult r = ConditionResult.FALSE;
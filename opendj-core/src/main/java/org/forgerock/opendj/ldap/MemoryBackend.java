@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.ldap;
 
@@ -26,11 +27,27 @@ import static org.forgerock.opendj.ldap.responses.Responses.newSearchResultEntry
 import static org.forgerock.opendj.ldap.schema.CoreSchema.getHasSubordinatesAttributeType;
 import static org.forgerock.opendj.ldap.schema.CoreSchema.getNumSubordinatesAttributeType;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.NavigableMap;
+import java.util.NavigableSet;
 import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.forgerock.i18n.LocalizedIllegalArgumentException;
 import org.forgerock.opendj.ldap.controls.AssertionRequestControl;
@@ -49,14 +66,27 @@ import org.forgerock.opendj.ldap.requests.GenericBindRequest;
 import org.forgerock.opendj.ldap.requests.ModifyDNRequest;
 import org.forgerock.opendj.ldap.requests.ModifyRequest;
 import org.forgerock.opendj.ldap.requests.Request;
+import org.forgerock.opendj.ldap.requests.Requests;
 import org.forgerock.opendj.ldap.requests.SearchRequest;
 import org.forgerock.opendj.ldap.requests.SimpleBindRequest;
 import org.forgerock.opendj.ldap.responses.BindResult;
 import org.forgerock.opendj.ldap.responses.CompareResult;
 import org.forgerock.opendj.ldap.responses.ExtendedResult;
 import org.forgerock.opendj.ldap.responses.Result;
+import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.forgerock.opendj.ldap.schema.Schema;
+import org.forgerock.opendj.ldif.ChangeRecord;
+import org.forgerock.opendj.ldif.ChangeRecordReader;
+import org.forgerock.opendj.ldif.ChangeRecordVisitor;
 import org.forgerock.opendj.ldif.EntryReader;
+import org.forgerock.opendj.ldif.LDIFChangeRecordReader;
+import org.forgerock.opendj.ldif.LDIFChangeRecordWriter;
+import org.forgerock.opendj.ldif.LDIFEntryReader;
+import org.forgerock.opendj.ldif.LDIFEntryWriter;
+import org.forgerock.util.Function;
+import org.forgerock.util.promise.NeverThrowsException;
+
+import com.forgerock.opendj.util.Iterables;
 
 /**
  * A simple in memory back-end which can be used for testing.
@@ -66,15 +96,16 @@ import org.forgerock.opendj.ldif.EntryReader;
  * not modifyDN nor extended operations
  * <li>assertion, pre-, and post- read controls, subtree delete control, and
  * permissive modify control
- * <li>thread safety - supports concurrent operations
+ * <li>thread safety - supports concurrent operations, write operations targeting disjoint subtrees being performed
+ * concurrently
+ * <li>optional presence, equality, ordering, substring and approximate attribute indexes, see
+ * {@link #addIndex(String)}
+ * <li>optional persistence using a LDIF snapshot and a LDIF change log, see {@link #enablePersistence(File)}
  * </ul>
  * It does not support the following:
  * <ul>
- * <li>high performance
  * <li>secure password storage
  * <li>schema checking
- * <li>persistence
- * <li>indexing
  * </ul>
  * This class can be used in conjunction with the factories defined in
  * {@link Connections} to create simple servers as well as mock LDAP
@@ -98,12 +129,133 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
     private static final AttributeDescription HAS_SUBORDINATES = create(getHasSubordinatesAttributeType());
     private static final AttributeDescription NUM_SUBORDINATES = create(getNumSubordinatesAttributeType());
 
+    private static final String SNAPSHOT_FILE_PREFIX = "snapshot-";
+    private static final String CHANGE_LOG_FILE_PREFIX = "changes-";
+    private static final String LDIF_FILE_SUFFIX = ".ldif";
+
+    /**
+     * Striped read/write locks protecting the subtrees of the memory backend. Write operations lock the target entry in
+     * write mode and all its superiors in read mode: operations targeting disjoint subtrees are performed concurrently,
+     * while the deletion of an entry excludes any concurrent change to its subordinates.
+     */
+    private static final class SubtreeLocks {
+        private static final int NUMBER_OF_STRIPES = 64;
+        private final ReadWriteLock[] stripes = new ReadWriteLock[NUMBER_OF_STRIPES];
+
+        private SubtreeLocks() {
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = new ReentrantReadWriteLock();
+            }
+        }
+
+        /**
+         * Locks the named entry for writing and its superiors for reading.
+         *
+         * @return The acquired locks, which must be released using {@link #unlock(List)}.
+         */
+        private List<Lock> lockSubtree(final DN dn) {
+            // Stripes locked in write mode are not locked in read mode as well, since read locks cannot be upgraded.
+            final boolean[] read = new boolean[stripes.length];
+            final boolean[] write = new boolean[stripes.length];
+            write[stripeOf(dn)] = true;
+            for (DN superior = dn.parent(); superior != null; superior = superior.parent()) {
+                read[stripeOf(superior)] = true;
+            }
+            // Always lock the stripes in the same order in order to prevent deadlocks.
+            final List<Lock> locks = new ArrayList<>();
+            for (int i = 0; i < stripes.length; i++) {
+                if (write[i]) {
+                    locks.add(stripes[i].writeLock());
+                } else if (read[i]) {
+                    locks.add(stripes[i].readLock());
+                }
+            }
+            return lock(locks);
+        }
+
+        /**
+         * Locks all the entries for writing.
+         *
+         * @return The acquired locks, which must be released using {@link #unlock(List)}.
+         */
+        private List<Lock> lockAll() {
+            final List<Lock> locks = new ArrayList<>(stripes.length);
+            for (final ReadWriteLock stripe : stripes) {
+                locks.add(stripe.writeLock());
+            }
+            return lock(locks);
+        }
+
+        private static List<Lock> lock(final List<Lock> locks) {
+            for (final Lock lock : locks) {
+                lock.lock();
+            }
+            return locks;
+        }
+
+        private static void unlock(final List<Lock> locks) {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+
+        private int stripeOf(final DN dn) {
+            return (dn.hashCode() & Integer.MAX_VALUE) % stripes.length;
+        }
+    }
+
     private final DecodeOptions decodeOptions;
     private final ConcurrentSkipListMap<DN, Entry> entries = new ConcurrentSkipListMap<>();
     private final Schema schema;
-    private final Object writeLock = new Object();
+    private final SubtreeLocks locks = new SubtreeLocks();
+    private final Map<AttributeType, MemoryBackendIndex> indexes = new ConcurrentHashMap<>();
+    /** Serializes the index updates, which may be performed concurrently for disjoint subtrees. */
+    private final Object indexLock = new Object();
     private boolean enableVirtualAttributes;
 
+    /** The directory containing the snapshot and the change log, or {@code null} if persistence is disabled. */
+    private File persistenceDirectory;
+    private long snapshotGeneration;
+    private LDIFChangeRecordWriter changeLog;
+
+    /** Applies the changes read from the change log, returning the failure if any. */
+    private final ChangeRecordVisitor<LdapException, Void> changeLogReplayer =
+            new ChangeRecordVisitor<LdapException, Void>() {
+                @Override
+                public LdapException visitChangeRecord(final Void p, final AddRequest change) {
+                    putEntry(change);
+                    return null;
+                }
+
+                @Override
+                public LdapException visitChangeRecord(final Void p, final DeleteRequest change) {
+                    removeEntry(change.getName());
+                    return null;
+                }
+
+                @Override
+                public LdapException visitChangeRecord(final Void p, final ModifyDNRequest change) {
+                    return newLdapException(ResultCode.UNWILLING_TO_PERFORM,
+                            "ModifyDN request operation not supported");
+                }
+
+                @Override
+                public LdapException visitChangeRecord(final Void p, final ModifyRequest change) {
+                    final Entry entry = entries.get(change.getName());
+                    if (entry == null) {
+                        return noSuchObject(change.getName());
+                    }
+                    try {
+                        // Modifications were valid when they were logged.
+                        putEntry(Entries.modifyEntryPermissive(new LinkedHashMapEntry(entry),
+                                change.getModifications()));
+                        return null;
+                    } catch (final LdapException e) {
+                        return e;
+                    }
+                }
+            };
+
     /**
      * Creates a new empty memory backend which will use the default schema.
      */
@@ -171,10 +323,24 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
      * any entries.
      *
      * @return This memory backend.
+     * @throws UncheckedIOException
+     *             If persistence is enabled and the empty snapshot could not be written.
      */
     public MemoryBackend clear() {
-        synchronized (writeLock) {
+        final List<Lock> acquiredLocks = locks.lockAll();
+        try {
             entries.clear();
+            for (final AttributeType attributeType : indexes.keySet()) {
+                indexes.put(attributeType, new MemoryBackendIndex(attributeType, schema));
+            }
+            if (persistenceDirectory != null) {
+                // An empty snapshot is cheaper than logging the deletion of all the entries.
+                writeSnapshot();
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            SubtreeLocks.unlock(acquiredLocks);
         }
         return this;
     }
@@ -231,12 +397,17 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
      * changes to the collection are reflected in this memory backend and
      * vice-versa. The returned collection supports entry removal, iteration,
      * and is thread safe, but it does not support addition of new entries.
+     * Entry removal is not supported either once indexes or persistence have
+     * been enabled.
      *
      * @return A collection containing all of the entries in this memory
      *         backend.
      */
     public Collection<Entry> getAll() {
-        return entries.values();
+        if (indexes.isEmpty() && persistenceDirectory == null) {
+            return entries.values();
+        }
+        return Collections.unmodifiableCollection(entries.values());
     }
 
     /**
@@ -303,16 +474,20 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
             final IntermediateResponseHandler intermediateResponseHandler,
             final LdapResultHandler<Result> resultHandler) {
         try {
-            synchronized (writeLock) {
-                final DN dn = request.getName();
+            final DN dn = request.getName();
+            final List<Lock> acquiredLocks = locks.lockSubtree(dn);
+            try {
                 final DN parent = dn.parent();
                 if (entries.containsKey(dn)) {
                     throw newLdapException(ResultCode.ENTRY_ALREADY_EXISTS, "The entry '" + dn + "' already exists");
                 } else if (parent != null && !entries.containsKey(parent)) {
                     throw noSuchObject(parent);
                 } else {
-                    entries.put(dn, request);
+                    logChange(Requests.newAddRequest(request));
+                    putEntry(request);
                 }
+            } finally {
+                SubtreeLocks.unlock(acquiredLocks);
             }
             resultHandler.handleResult(getResult(request, null, request));
         } catch (final LdapException e) {
@@ -326,23 +501,21 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
             final IntermediateResponseHandler intermediateResponseHandler,
             final LdapResultHandler<BindResult> resultHandler) {
         try {
-            final Entry entry;
-            synchronized (writeLock) {
-                final DN username = DN.valueOf(request.getName(), schema);
-                final byte[] password;
-                if (request instanceof SimpleBindRequest) {
-                    password = ((SimpleBindRequest) request).getPassword();
-                } else if (request instanceof GenericBindRequest
-                        && request.getAuthenticationType() == BindRequest.AUTHENTICATION_TYPE_SIMPLE) {
-                    password = ((GenericBindRequest) request).getAuthenticationValue();
-                } else {
-                    throw newLdapException(ResultCode.PROTOCOL_ERROR,
-                            "non-SIMPLE authentication not supported: " + request.getAuthenticationType());
-                }
-                entry = getRequiredEntry(null, username);
-                if (!entry.containsAttribute("userPassword", (Object) password)) {
-                    throw newLdapException(ResultCode.INVALID_CREDENTIALS, "Wrong password");
-                }
+            // Read operations do not need locking: entries are replaced rather than modified in place.
+            final DN username = DN.valueOf(request.getName(), schema);
+            final byte[] password;
+            if (request instanceof SimpleBindRequest) {
+                password = ((SimpleBindRequest) request).getPassword();
+            } else if (request instanceof GenericBindRequest
+                    && request.getAuthenticationType() == BindRequest.AUTHENTICATION_TYPE_SIMPLE) {
+                password = ((GenericBindRequest) request).getAuthenticationValue();
+            } else {
+                throw newLdapException(ResultCode.PROTOCOL_ERROR,
+                        "non-SIMPLE authentication not supported: " + request.getAuthenticationType());
+            }
+            final Entry entry = getRequiredEntry(null, username);
+            if (!entry.containsAttribute("userPassword", (Object) password)) {
+                throw newLdapException(ResultCode.INVALID_CREDENTIALS, "Wrong password");
             }
             resultHandler.handleResult(getBindResult(request, entry, entry));
         } catch (final LocalizedIllegalArgumentException e) {
@@ -364,15 +537,9 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
             final IntermediateResponseHandler intermediateResponseHandler,
             final LdapResultHandler<CompareResult> resultHandler) {
         try {
-            final Entry entry;
-            final Attribute assertion;
-            synchronized (writeLock) {
-                final DN dn = request.getName();
-                entry = getRequiredEntry(request, dn);
-                assertion =
-                        singletonAttribute(request.getAttributeDescription(), request
-                                .getAssertionValue());
-            }
+            final Entry entry = getRequiredEntry(request, request.getName());
+            final Attribute assertion =
+                    singletonAttribute(request.getAttributeDescription(), request.getAssertionValue());
             resultHandler.handleResult(getCompareResult(request, entry, entry.containsAttribute(
                     assertion, null)));
         } catch (final LdapException e) {
@@ -386,21 +553,29 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
             final LdapResultHandler<Result> resultHandler) {
         try {
             final Entry entry;
-            synchronized (writeLock) {
-                final DN dn = request.getName();
+            final DN dn = request.getName();
+            final List<Lock> acquiredLocks = locks.lockSubtree(dn);
+            try {
                 entry = getRequiredEntry(request, dn);
                 if (request.getControl(SubtreeDeleteRequestControl.DECODER, decodeOptions) != null) {
-                    // Subtree delete.
-                    entries.subMap(dn, dn.child(RDN.maxValue())).clear();
+                    // Subtree delete, subordinates first.
+                    final NavigableMap<DN, Entry> subtree = entries.subMap(dn, dn.child(RDN.maxValue()));
+                    for (final DN subordinate : new ArrayList<>(subtree.descendingKeySet())) {
+                        logChange(Requests.newDeleteRequest(subordinate));
+                        removeEntry(subordinate);
+                    }
                 } else {
                     // Must be leaf.
                     final DN next = entries.higherKey(dn);
                     if (next == null || !next.isChildOf(dn)) {
-                        entries.remove(dn);
+                        logChange(Requests.newDeleteRequest(dn));
+                        removeEntry(dn);
                     } else {
                         throw newLdapException(ResultCode.NOT_ALLOWED_ON_NONLEAF);
                     }
                 }
+            } finally {
+                SubtreeLocks.unlock(acquiredLocks);
             }
             resultHandler.handleResult(getResult(request, entry, null));
         } catch (final DecodeException e) {
@@ -426,11 +601,19 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
         try {
             final Entry entry;
             final Entry newEntry;
-            synchronized (writeLock) {
-                final DN dn = request.getName();
+            final DN dn = request.getName();
+            final List<Lock> acquiredLocks = locks.lockSubtree(dn);
+            try {
                 entry = getRequiredEntry(request, dn);
-                newEntry = new LinkedHashMapEntry(entry);
-                entries.put(dn, modifyEntry(newEntry, request));
+                newEntry = modifyEntry(new LinkedHashMapEntry(entry), request);
+                final ModifyRequest change = Requests.newModifyRequest(dn);
+                for (final Modification modification : request.getModifications()) {
+                    change.addModification(modification);
+                }
+                logChange(change);
+                putEntry(newEntry);
+            } finally {
+                SubtreeLocks.unlock(acquiredLocks);
             }
             resultHandler.handleResult(getResult(request, entry, newEntry));
         } catch (final LdapException e) {
@@ -470,8 +653,8 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
             case SINGLE_LEVEL:
             case SUBORDINATES:
             case WHOLE_SUBTREE:
-                searchWithSubordinates(requestContext, entryHandler, resultHandler, dn, matcher, attributeFilter,
-                    request.getSizeLimit(), scope,
+                searchWithSubordinates(requestContext, entryHandler, resultHandler, dn, filter, matcher,
+                    attributeFilter, request.getSizeLimit(), scope,
                     request.getControl(SimplePagedResultsControl.DECODER, new DecodeOptions()));
                 break;
 
@@ -523,7 +706,8 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
      *             {@code false}.
      */
     public MemoryBackend load(final EntryReader reader, final boolean overwrite) throws IOException {
-        synchronized (writeLock) {
+        final List<Lock> acquiredLocks = locks.lockAll();
+        try {
             if (reader != null) {
                 try {
                     while (reader.hasNext()) {
@@ -533,16 +717,285 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
                             throw newLdapException(ResultCode.ENTRY_ALREADY_EXISTS,
                                     "Attempted to add the entry '" + dn + "' multiple times");
                         }
-                        entries.put(dn, entry);
+                        logChange(Requests.newAddRequest(entry));
+                        putEntry(entry);
                     }
                 } finally {
                     reader.close();
                 }
             }
+        } finally {
+            SubtreeLocks.unlock(acquiredLocks);
+        }
+        return this;
+    }
+
+    /**
+     * Indexes the values of the named attribute type in order to speed up the searches whose filter contain
+     * presence, equality, ordering, substring or approximate assertions about this attribute type. Entries already
+     * contained in this memory backend are indexed immediately.
+     * <p>
+     * Indexes increase the memory footprint of the memory backend and the cost of write operations. Searches
+     * whose filter cannot be evaluated using the indexes, such as filters only containing NOT components, still
+     * evaluate all the entries in scope.
+     *
+     * @param attributeType
+     *            The name or OID of the attribute type to be indexed.
+     * @return This memory backend.
+     * @throws org.forgerock.opendj.ldap.schema.UnknownSchemaElementException
+     *             If the schema is strict and the attribute type is not defined.
+     * @throws IllegalArgumentException
+     *             If the attribute type is one of the virtual attributes of the memory backend.
+     */
+    public MemoryBackend addIndex(final String attributeType) {
+        return addIndex(schema.getAttributeType(attributeType));
+    }
+
+    /**
+     * Indexes the values of the provided attribute type in order to speed up the searches whose filter contain
+     * presence, equality, ordering, substring or approximate assertions about this attribute type. Entries already
+     * contained in this memory backend are indexed immediately.
+     *
+     * @param attributeType
+     *            The attribute type to be indexed.
+     * @return This memory backend.
+     * @throws IllegalArgumentException
+     *             If the attribute type is one of the virtual attributes of the memory backend.
+     * @see #addIndex(String)
+     */
+    public MemoryBackend addIndex(final AttributeType attributeType) {
+        if (attributeType.equals(HAS_SUBORDINATES.getAttributeType())
+                || attributeType.equals(NUM_SUBORDINATES.getAttributeType())) {
+            throw new IllegalArgumentException("Virtual attribute " + attributeType.getNameOrOID()
+                    + " cannot be indexed");
+        }
+        final List<Lock> acquiredLocks = locks.lockAll();
+        try {
+            if (!indexes.containsKey(attributeType)) {
+                final MemoryBackendIndex index = new MemoryBackendIndex(attributeType, schema);
+                for (final Entry entry : entries.values()) {
+                    index.addEntry(entry);
+                }
+                indexes.put(attributeType, index);
+            }
+        } finally {
+            SubtreeLocks.unlock(acquiredLocks);
         }
         return this;
     }
 
+    /**
+     * Makes this memory backend persistent by storing its content in the provided directory, which is created if
+     * needed.
+     * <p>
+     * The content is stored as a LDIF snapshot along with a LDIF change log to which each write operation is appended
+     * before it is applied. If the directory already contains a snapshot and a change log, for instance written by a
+     * previous instance of the memory backend, their entries are first added to this memory backend, replacing any
+     * existing entry having the same name. A new snapshot containing the whole content of this memory backend is then
+     * written and the change log is reset. Call {@link #snapshot()} to compact the change log from time to time.
+     * <p>
+     * The change log is flushed after each write operation, but is not synchronized with the storage device: changes
+     * survive the termination of the JVM, but not necessarily a crash of the operating system.
+     *
+     * @param directory
+     *            The directory containing the snapshot and the change log.
+     * @return This memory backend.
+     * @throws IOException
+     *             If the existing snapshot or change log could not be read, or if the new snapshot could not be
+     *             written.
+     * @throws IllegalStateException
+     *             If persistence is already enabled.
+     */
+    public MemoryBackend enablePersistence(final File directory) throws IOException {
+        final List<Lock> acquiredLocks = locks.lockAll();
+        try {
+            if (persistenceDirectory != null) {
+                throw new IllegalStateException("Persistence is already enabled in directory " + persistenceDirectory);
+            }
+            Files.createDirectories(directory.toPath());
+            snapshotGeneration = getLatestSnapshotGeneration(directory);
+            final File snapshotFile = getFile(directory, SNAPSHOT_FILE_PREFIX, snapshotGeneration);
+            if (snapshotFile.exists()) {
+                final EntryReader reader = new LDIFEntryReader(new FileInputStream(snapshotFile)).setSchema(schema);
+                try {
+                    while (reader.hasNext()) {
+                        putEntry(reader.readEntry());
+                    }
+                } finally {
+                    reader.close();
+                }
+            }
+            final File changeLogFile = getFile(directory, CHANGE_LOG_FILE_PREFIX, snapshotGeneration);
+            if (changeLogFile.exists()) {
+                replayChangeLog(new LDIFChangeRecordReader(new FileInputStream(changeLogFile)).setSchema(schema));
+            }
+            persistenceDirectory = directory;
+            writeSnapshot();
+        } finally {
+            SubtreeLocks.unlock(acquiredLocks);
+        }
+        return this;
+    }
+
+    /**
+     * Stops recording the changes applied to this memory backend, and closes the change log. The snapshot and the
+     * change log are left in the persistence directory, so that they can be loaded again using
+     * {@link #enablePersistence(File)}. This method does nothing if persistence is not enabled.
+     *
+     * @return This memory backend.
+     * @throws IOException
+     *             If the change log could not be closed.
+     */
+    public MemoryBackend disablePersistence() throws IOException {
+        final List<Lock> acquiredLocks = locks.lockAll();
+        try {
+            persistenceDirectory = null;
+            closeChangeLog();
+        } finally {
+            SubtreeLocks.unlock(acquiredLocks);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a new snapshot of the content of this persistent memory backend and resets its change log. Write
+     * operations are blocked while the snapshot is written.
+     *
+     * @return This memory backend.
+     * @throws IOException
+     *             If the snapshot could not be written.
+     * @throws IllegalStateException
+     *             If persistence is not enabled.
+     * @see #enablePersistence(File)
+     */
+    public MemoryBackend snapshot() throws IOException {
+        final List<Lock> acquiredLocks = locks.lockAll();
+        try {
+            if (persistenceDirectory == null) {
+                throw new IllegalStateException("Persistence is not enabled");
+            }
+            writeSnapshot();
+        } finally {
+            SubtreeLocks.unlock(acquiredLocks);
+        }
+        return this;
+    }
+
+    /**
+     * Writes the next generation of the snapshot and of the change log. A generation of the change log only
+     * contains the changes applied after the snapshot of the same generation was written: the previous generation
+     * can therefore be deleted as soon as the new snapshot has been atomically renamed, without any risk of
+     * replaying changes twice after a crash. All the locks must be held.
+     */
+    private void writeSnapshot() throws IOException {
+        final long generation = snapshotGeneration + 1;
+        final File tmpFile = new File(persistenceDirectory, SNAPSHOT_FILE_PREFIX + generation + ".tmp");
+        final LDIFEntryWriter writer =
+                new LDIFEntryWriter(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+        try {
+            for (final Entry entry : entries.values()) {
+                writer.writeEntry(entry);
+            }
+        } finally {
+            writer.close();
+        }
+        Files.move(tmpFile.toPath(), getFile(persistenceDirectory, SNAPSHOT_FILE_PREFIX, generation).toPath(),
+                StandardCopyOption.ATOMIC_MOVE);
+
+        closeChangeLog();
+        Files.deleteIfExists(getFile(persistenceDirectory, CHANGE_LOG_FILE_PREFIX, snapshotGeneration).toPath());
+        Files.deleteIfExists(getFile(persistenceDirectory, SNAPSHOT_FILE_PREFIX, snapshotGeneration).toPath());
+        snapshotGeneration = generation;
+        changeLog = new LDIFChangeRecordWriter(new BufferedOutputStream(
+                new FileOutputStream(getFile(persistenceDirectory, CHANGE_LOG_FILE_PREFIX, generation))));
+    }
+
+    private void replayChangeLog(final ChangeRecordReader reader) throws IOException {
+        try {
+            while (reader.hasNext()) {
+                final LdapException e = reader.readChangeRecord().accept(changeLogReplayer, null);
+                if (e != null) {
+                    throw e;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void closeChangeLog() throws IOException {
+        if (changeLog != null) {
+            try {
+                changeLog.close();
+            } finally {
+                changeLog = null;
+            }
+        }
+    }
+
+    /** Appends the provided change to the change log, if persistence is enabled. */
+    private void logChange(final ChangeRecord change) throws LdapException {
+        final LDIFChangeRecordWriter writer = changeLog;
+        if (writer != null) {
+            // Changes to disjoint subtrees may be logged concurrently.
+            synchronized (writer) {
+                try {
+                    writer.writeChangeRecord(change);
+                    writer.flush();
+                } catch (final IOException e) {
+                    throw newLdapException(ResultCode.OTHER, "Unable to write the change log", e);
+                }
+            }
+        }
+    }
+
+    private static long getLatestSnapshotGeneration(final File directory) {
+        long latestGeneration = 0;
+        final String[] fileNames = directory.list();
+        if (fileNames != null) {
+            for (final String fileName : fileNames) {
+                if (fileName.startsWith(SNAPSHOT_FILE_PREFIX) && fileName.endsWith(LDIF_FILE_SUFFIX)) {
+                    try {
+                        final long generation = Long.parseLong(fileName.substring(SNAPSHOT_FILE_PREFIX.length(),
+                                fileName.length() - LDIF_FILE_SUFFIX.length()));
+                        latestGeneration = Math.max(latestGeneration, generation);
+                    } catch (final NumberFormatException ignored) {
+                        // Not a snapshot.
+                    }
+                }
+            }
+        }
+        return latestGeneration;
+    }
+
+    private static File getFile(final File directory, final String prefix, final long generation) {
+        return new File(directory, prefix + generation + LDIF_FILE_SUFFIX);
+    }
+
+    /** Adds or replaces the provided entry, and updates the indexes. The entry must be locked. */
+    private void putEntry(final Entry entry) {
+        final Entry previous = entries.put(entry.getName(), entry);
+        if (!indexes.isEmpty()) {
+            synchronized (indexLock) {
+                for (final MemoryBackendIndex index : indexes.values()) {
+                    index.replaceEntry(previous, entry);
+                }
+            }
+        }
+    }
+
+    /** Removes the named entry, and updates the indexes. The entry must be locked. */
+    private void removeEntry(final DN dn) {
+        final Entry previous = entries.remove(dn);
+        if (previous != null && !indexes.isEmpty()) {
+            synchronized (indexLock) {
+                for (final MemoryBackendIndex index : indexes.values()) {
+                    index.removeEntry(previous);
+                }
+            }
+        }
+    }
+
     /**
      * Returns the number of entries contained in this memory backend.
      *
@@ -571,7 +1024,7 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
      *           If the request is unsuccessful.
      */
     private void searchWithSubordinates(final RequestContext requestContext, final SearchResultHandler entryHandler,
-            final LdapResultHandler<Result> resultHandler, final DN dn, final Matcher matcher,
+            final LdapResultHandler<Result> resultHandler, final DN dn, final Filter filter, final Matcher matcher,
             final AttributeFilter attributeFilter, final int sizeLimit, SearchScope scope,
             SimplePagedResultsControl pagedResults) throws LdapException {
         final NavigableMap<DN, Entry> subtree = entries.subMap(dn, dn.child(RDN.maxValue()));
@@ -579,13 +1032,36 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
             throw newLdapException(newResult(ResultCode.NO_SUCH_OBJECT));
         }
 
+        /*
+         * Candidates are a superset of the matching entries, sorted like the entries so that paging remains
+         * consistent. Entries deleted since the candidates were computed are skipped.
+         */
+        final NavigableSet<DN> candidates =
+                indexes.isEmpty() ? null : MemoryBackendIndex.getCandidates(filter, indexes, schema);
+        final Iterable<Entry> entriesInScope;
+        if (candidates != null) {
+            entriesInScope = Iterables.transformedIterable(
+                    candidates.subSet(dn, true, dn.child(RDN.maxValue()), false),
+                    new Function<DN, Entry, NeverThrowsException>() {
+                        @Override
+                        public Entry apply(final DN candidate) {
+                            return entries.get(candidate);
+                        }
+                    });
+        } else {
+            entriesInScope = subtree.values();
+        }
+
         final int pageSize = pagedResults != null ? pagedResults.getSize() : 0;
         final int offset = (pagedResults != null && !pagedResults.getCookie().isEmpty())
                 ? Integer.valueOf(pagedResults.getCookie().toString()) : 0;
         int numberOfResults = 0;
         int position = 0;
-        for (final Entry entry : subtree.values()) {
+        for (final Entry entry : entriesInScope) {
             requestContext.checkIfCancelled(false);
+            if (entry == null) {
+                continue;
+            }
             if (scope.equals(SearchScope.WHOLE_SUBTREE) || entry.getName().isChildOf(dn)
                     || (scope.equals(SearchScope.SUBORDINATES) && !entry.getName().equals(dn))) {
                 final Entry augmentedEntry = addVirtualAttributesIfNeeded(entry);
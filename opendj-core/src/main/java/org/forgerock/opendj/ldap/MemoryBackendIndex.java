@@ -0,0 +1,468 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.ldap;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableNavigableSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.forgerock.i18n.LocalizedIllegalArgumentException;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.forgerock.opendj.ldap.schema.MatchingRule;
+import org.forgerock.opendj.ldap.schema.Schema;
+import org.forgerock.opendj.ldap.spi.IndexQueryFactory;
+import org.forgerock.opendj.ldap.spi.Indexer;
+import org.forgerock.opendj.ldap.spi.IndexingOptions;
+
+/**
+ * An in memory index of the values of an attribute type, used by the {@link MemoryBackend} for selecting the
+ * candidate entries of searches.
+ * <p>
+ * The index maintains the set of entries containing the attribute type, and one index per {@link Indexer} of the
+ * equality, ordering, substring and approximate matching rules of the attribute type. Index queries are created by the
+ * assertions of the matching rules and return the names of the candidate entries, or {@code null} when the index
+ * cannot narrow down the candidates. Candidates must still be matched against the search filter: they are a superset
+ * of the matching entries.
+ * <p>
+ * Updates must be serialized by the caller. Queries may be performed concurrently with updates, in which case they
+ * may or may not reflect the updates.
+ */
+final class MemoryBackendIndex implements IndexQueryFactory<NavigableSet<DN>> {
+    private static final IndexingOptions INDEXING_OPTIONS = new IndexingOptions() {
+        @Override
+        public int substringKeySize() {
+            return 6;
+        }
+    };
+
+    /** A visitor which returns the candidate entries of a filter, or {@code null} if all entries are candidates. */
+    private static final class CandidatesVisitor implements FilterVisitor<NavigableSet<DN>, Void> {
+        private final Map<AttributeType, MemoryBackendIndex> indexes;
+        private final Schema schema;
+
+        private CandidatesVisitor(final Map<AttributeType, MemoryBackendIndex> indexes, final Schema schema) {
+            this.indexes = indexes;
+            this.schema = schema;
+        }
+
+        @Override
+        public NavigableSet<DN> visitAndFilter(final Void p, final List<Filter> subFilters) {
+            final List<NavigableSet<DN>> candidates = new ArrayList<>(subFilters.size());
+            for (final Filter subFilter : subFilters) {
+                candidates.add(subFilter.accept(this, p));
+            }
+            return intersection(candidates);
+        }
+
+        @Override
+        public NavigableSet<DN> visitApproxMatchFilter(final Void p, final String attributeDescription,
+                final ByteString assertionValue) {
+            final MemoryBackendIndex index = getIndex(attributeDescription);
+            if (index == null) {
+                return null;
+            }
+            final MatchingRule rule = index.attributeType.getApproximateMatchingRule();
+            try {
+                return rule != null ? rule.getAssertion(assertionValue).createIndexQuery(index) : null;
+            } catch (final DecodeException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public NavigableSet<DN> visitEqualityMatchFilter(final Void p, final String attributeDescription,
+                final ByteString assertionValue) {
+            final MemoryBackendIndex index = getIndex(attributeDescription);
+            if (index == null) {
+                return null;
+            }
+            final MatchingRule rule = index.attributeType.getEqualityMatchingRule();
+            try {
+                return rule != null ? rule.getAssertion(assertionValue).createIndexQuery(index) : null;
+            } catch (final DecodeException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public NavigableSet<DN> visitExtensibleMatchFilter(final Void p, final String matchingRule,
+                final String attributeDescription, final ByteString assertionValue, final boolean dnAttributes) {
+            return null;
+        }
+
+        @Override
+        public NavigableSet<DN> visitGreaterOrEqualFilter(final Void p, final String attributeDescription,
+                final ByteString assertionValue) {
+            final MemoryBackendIndex index = getIndex(attributeDescription);
+            if (index == null) {
+                return null;
+            }
+            final MatchingRule rule = index.attributeType.getOrderingMatchingRule();
+            try {
+                return rule != null ? rule.getGreaterOrEqualAssertion(assertionValue).createIndexQuery(index) : null;
+            } catch (final DecodeException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public NavigableSet<DN> visitLessOrEqualFilter(final Void p, final String attributeDescription,
+                final ByteString assertionValue) {
+            final MemoryBackendIndex index = getIndex(attributeDescription);
+            if (index == null) {
+                return null;
+            }
+            final MatchingRule rule = index.attributeType.getOrderingMatchingRule();
+            try {
+                return rule != null ? rule.getLessOrEqualAssertion(assertionValue).createIndexQuery(index) : null;
+            } catch (final DecodeException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public NavigableSet<DN> visitNotFilter(final Void p, final Filter subFilter) {
+            return null;
+        }
+
+        @Override
+        public NavigableSet<DN> visitOrFilter(final Void p, final List<Filter> subFilters) {
+            final List<NavigableSet<DN>> candidates = new ArrayList<>(subFilters.size());
+            for (final Filter subFilter : subFilters) {
+                final NavigableSet<DN> subCandidates = subFilter.accept(this, p);
+                if (subCandidates == null) {
+                    return null;
+                }
+                candidates.add(subCandidates);
+            }
+            return union(candidates);
+        }
+
+        @Override
+        public NavigableSet<DN> visitPresentFilter(final Void p, final String attributeDescription) {
+            final MemoryBackendIndex index = getIndex(attributeDescription);
+            return index != null ? unmodifiableNavigableSet(index.presence) : null;
+        }
+
+        @Override
+        public NavigableSet<DN> visitSubstringsFilter(final Void p, final String attributeDescription,
+                final ByteString initialSubstring, final List<ByteString> anySubstrings,
+                final ByteString finalSubstring) {
+            final MemoryBackendIndex index = getIndex(attributeDescription);
+            if (index == null) {
+                return null;
+            }
+            final MatchingRule rule = index.attributeType.getSubstringMatchingRule();
+            try {
+                return rule != null ? rule.getSubstringAssertion(initialSubstring, anySubstrings, finalSubstring)
+                        .createIndexQuery(index) : null;
+            } catch (final DecodeException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public NavigableSet<DN> visitUnrecognizedFilter(final Void p, final byte filterTag,
+                final ByteString filterBytes) {
+            return null;
+        }
+
+        private MemoryBackendIndex getIndex(final String attributeDescription) {
+            try {
+                return indexes.get(AttributeDescription.valueOf(attributeDescription, schema).getAttributeType());
+            } catch (final LocalizedIllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * A set of entry names whose size is counted as they are added and removed, because computing the size of a
+     * {@code ConcurrentSkipListSet} walks the whole set. It must only be modified through {@link #add} and
+     * {@link #remove}.
+     */
+    private static final class DNSet extends ConcurrentSkipListSet<DN> {
+        private static final long serialVersionUID = 1L;
+        private final AtomicInteger size = new AtomicInteger();
+
+        @Override
+        public boolean add(final DN dn) {
+            if (super.add(dn)) {
+                size.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean remove(final Object dn) {
+            if (super.remove(dn)) {
+                size.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public int size() {
+            return size.get();
+        }
+    }
+
+    /**
+     * Returns the names of the entries which may match the provided filter, sorted in the same order as the entries
+     * of the memory backend.
+     *
+     * @param filter
+     *            The search filter.
+     * @param indexes
+     *            The attribute indexes, keyed by attribute type.
+     * @param schema
+     *            The schema to use for decoding the filter.
+     * @return The names of the entries which may match the filter, or {@code null} if the indexes cannot narrow down
+     *         the candidate entries.
+     */
+    static NavigableSet<DN> getCandidates(final Filter filter, final Map<AttributeType, MemoryBackendIndex> indexes,
+            final Schema schema) {
+        return filter.accept(new CandidatesVisitor(indexes, schema), null);
+    }
+
+    private final AttributeType attributeType;
+    private final AttributeDescription attributeDescription;
+    private final Schema schema;
+    private final NavigableSet<DN> presence = new DNSet();
+    private final Map<String, Indexer> indexers = new LinkedHashMap<>();
+    private final Map<String, NavigableMap<ByteString, NavigableSet<DN>>> indexedKeys = new LinkedHashMap<>();
+
+    MemoryBackendIndex(final AttributeType attributeType, final Schema schema) {
+        this.attributeType = attributeType;
+        this.attributeDescription = AttributeDescription.create(attributeType);
+        this.schema = schema;
+        addIndexers(attributeType.getEqualityMatchingRule());
+        addIndexers(attributeType.getOrderingMatchingRule());
+        addIndexers(attributeType.getSubstringMatchingRule());
+        addIndexers(attributeType.getApproximateMatchingRule());
+    }
+
+    private void addIndexers(final MatchingRule rule) {
+        if (rule != null) {
+            for (final Indexer indexer : rule.createIndexers(INDEXING_OPTIONS)) {
+                if (!indexers.containsKey(indexer.getIndexID())) {
+                    indexers.put(indexer.getIndexID(), indexer);
+                    indexedKeys.put(indexer.getIndexID(), new ConcurrentSkipListMap<ByteString, NavigableSet<DN>>());
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the values of the provided entry to this index.
+     *
+     * @param entry
+     *            The entry to be indexed.
+     */
+    void addEntry(final Entry entry) {
+        replaceEntry(null, entry);
+    }
+
+    /**
+     * Removes the values of the provided entry from this index.
+     *
+     * @param entry
+     *            The entry which is no longer indexed.
+     */
+    void removeEntry(final Entry entry) {
+        replaceEntry(entry, null);
+    }
+
+    /**
+     * Replaces the values of an entry by the values of its new version. The keys of the new version are added before
+     * the keys which only belong to the previous version are removed, and the keys shared by both versions are left
+     * untouched, so that concurrent queries never miss the entry.
+     *
+     * @param previous
+     *            The previous version of the entry, or {@code null} if the entry is added.
+     * @param entry
+     *            The new version of the entry, or {@code null} if the entry is removed.
+     */
+    void replaceEntry(final Entry previous, final Entry entry) {
+        // Subtypes and options are indexed as well: candidates only need to be a superset of the matching entries.
+        final Iterable<Attribute> previousAttributes = getAttributes(previous);
+        final Iterable<Attribute> attributes = getAttributes(entry);
+        final boolean wasIndexed = previousAttributes.iterator().hasNext();
+        final boolean isIndexed = attributes.iterator().hasNext();
+        if (!wasIndexed && !isIndexed) {
+            return;
+        }
+        final DN dn = entry != null ? entry.getName() : previous.getName();
+        if (isIndexed) {
+            presence.add(dn);
+        }
+
+        for (final Map.Entry<String, Indexer> indexer : indexers.entrySet()) {
+            final Set<ByteString> staleKeys = createKeys(indexer.getValue(), previousAttributes);
+            final NavigableMap<ByteString, NavigableSet<DN>> index = indexedKeys.get(indexer.getKey());
+            for (final ByteString key : createKeys(indexer.getValue(), attributes)) {
+                if (!staleKeys.remove(key)) {
+                    NavigableSet<DN> dns = index.get(key);
+                    if (dns == null) {
+                        dns = new DNSet();
+                        index.put(key, dns);
+                    }
+                    dns.add(dn);
+                }
+            }
+            for (final ByteString key : staleKeys) {
+                final NavigableSet<DN> dns = index.get(key);
+                if (dns != null) {
+                    dns.remove(dn);
+                    if (dns.isEmpty()) {
+                        index.remove(key);
+                    }
+                }
+            }
+        }
+
+        if (!isIndexed) {
+            presence.remove(dn);
+        }
+    }
+
+    private Iterable<Attribute> getAttributes(final Entry entry) {
+        if (entry == null) {
+            return emptyList();
+        }
+        return entry.getAllAttributes(attributeDescription);
+    }
+
+    private Set<ByteString> createKeys(final Indexer indexer, final Iterable<Attribute> attributes) {
+        final Set<ByteString> keys = new HashSet<>();
+        for (final Attribute attribute : attributes) {
+            for (final ByteString value : attribute) {
+                try {
+                    indexer.createKeys(schema, value, keys);
+                } catch (final DecodeException e) {
+                    // Invalid values never match assertions, so they do not need to be indexed.
+                }
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    public NavigableSet<DN> createExactMatchQuery(final String indexID, final ByteSequence key) {
+        final NavigableMap<ByteString, NavigableSet<DN>> index = indexedKeys.get(indexID);
+        if (index == null) {
+            return null;
+        }
+        final NavigableSet<DN> dns = index.get(key.toByteString());
+        return dns != null ? unmodifiableNavigableSet(dns) : new TreeSet<DN>();
+    }
+
+    @Override
+    public NavigableSet<DN> createMatchAllQuery() {
+        return null;
+    }
+
+    @Override
+    public NavigableSet<DN> createRangeMatchQuery(final String indexID, final ByteSequence lower,
+            final ByteSequence upper, final boolean lowerIncluded, final boolean upperIncluded) {
+        NavigableMap<ByteString, NavigableSet<DN>> range = indexedKeys.get(indexID);
+        if (range == null) {
+            return null;
+        }
+        // Empty bounds mean that the range is not bounded.
+        if (lower.length() > 0) {
+            range = range.tailMap(lower.toByteString(), lowerIncluded);
+        }
+        if (upper.length() > 0) {
+            range = range.headMap(upper.toByteString(), upperIncluded);
+        }
+        final NavigableSet<DN> dns = new TreeSet<>();
+        for (final NavigableSet<DN> keyDNs : range.values()) {
+            dns.addAll(keyDNs);
+        }
+        return dns;
+    }
+
+    @Override
+    public NavigableSet<DN> createIntersectionQuery(final Collection<NavigableSet<DN>> subqueries) {
+        return intersection(subqueries);
+    }
+
+    @Override
+    public NavigableSet<DN> createUnionQuery(final Collection<NavigableSet<DN>> subqueries) {
+        for (final NavigableSet<DN> subquery : subqueries) {
+            if (subquery == null) {
+                return null;
+            }
+        }
+        return union(subqueries);
+    }
+
+    @Override
+    public IndexingOptions getIndexingOptions() {
+        return INDEXING_OPTIONS;
+    }
+
+    /**
+     * Intersects the provided candidates, ignoring the unindexed ones. The size of every candidate set is known
+     * without walking it: the live sets of the index are counted, and the other sets are {@code TreeSet}s.
+     */
+    private static NavigableSet<DN> intersection(final Collection<NavigableSet<DN>> candidates) {
+        NavigableSet<DN> smallest = null;
+        for (final NavigableSet<DN> dns : candidates) {
+            if (dns != null && (smallest == null || dns.size() < smallest.size())) {
+                smallest = dns;
+            }
+        }
+        if (smallest == null || candidates.size() == 1) {
+            return smallest;
+        }
+        final NavigableSet<DN> intersection = new TreeSet<>(smallest);
+        for (final NavigableSet<DN> dns : candidates) {
+            if (dns != null && dns != smallest) {
+                intersection.retainAll(dns);
+            }
+        }
+        return intersection;
+    }
+
+    /** Merges the provided candidates, which must all be indexed. */
+    private static NavigableSet<DN> union(final Collection<NavigableSet<DN>> candidates) {
+        if (candidates.size() == 1) {
+            return candidates.iterator().next();
+        }
+        final NavigableSet<DN> union = new TreeSet<>();
+        for (final NavigableSet<DN> dns : candidates) {
+            union.addAll(dns);
+        }
+        return union;
+    }
+}
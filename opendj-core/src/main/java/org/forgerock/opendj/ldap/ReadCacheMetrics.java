@@ -0,0 +1,84 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.ldap;
+
+/**
+ * Exposes statistics about the usage of the search result cache of a
+ * connection factory created using
+ * {@link Connections#newCachingConnectionFactory(ConnectionFactory, org.forgerock.util.Options)},
+ * which implements this interface.
+ * <p>
+ * All the values are gathered without any locking and are therefore only
+ * approximately consistent with each other.
+ */
+public interface ReadCacheMetrics {
+    /**
+     * Returns the number of search requests whose results have been returned
+     * from the cache, including the negative hits.
+     *
+     * @return The number of cache hits.
+     */
+    long getHitCount();
+
+    /**
+     * Returns the number of base object search requests which failed because
+     * the target entry does not exist, according to the cache.
+     *
+     * @return The number of negative cache hits.
+     */
+    long getNegativeHitCount();
+
+    /**
+     * Returns the number of cacheable search requests which have been sent to
+     * the directory server because their results were not cached.
+     *
+     * @return The number of cache misses.
+     */
+    long getMissCount();
+
+    /**
+     * Returns the number of changes, reported by the persistent search or
+     * performed through the cached connections, which caused affected results
+     * to be evicted from the cache.
+     *
+     * @return The number of invalidations.
+     */
+    long getInvalidationCount();
+
+    /**
+     * Returns the number of search results which have been evicted from the
+     * cache because it was full.
+     *
+     * @return The number of evicted search results.
+     */
+    long getEvictionCount();
+
+    /**
+     * Returns the number of search results currently cached.
+     *
+     * @return The number of search results currently cached.
+     */
+    int getSize();
+
+    /**
+     * Indicates whether the persistent search keeping the cache coherent is
+     * active. Results are neither cached nor returned from the cache while it
+     * is not.
+     *
+     * @return {@code true} if the persistent search is active.
+     */
+    boolean isCoherent();
+}
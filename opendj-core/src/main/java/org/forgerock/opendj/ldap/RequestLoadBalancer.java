@@ -12,15 +12,22 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.ldap;
 
+import static org.forgerock.opendj.ldap.LdapException.newLdapException;
 import static org.forgerock.opendj.ldap.spi.LdapPromises.newFailedLdapPromise;
 import static org.forgerock.util.Utils.closeSilently;
 import static org.forgerock.util.promise.Promises.newResultPromise;
 
 import java.util.Collection;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.forgerock.opendj.ldap.requests.AbandonRequest;
 import org.forgerock.opendj.ldap.requests.AddRequest;
@@ -37,6 +44,8 @@ import org.forgerock.opendj.ldap.responses.BindResult;
 import org.forgerock.opendj.ldap.responses.CompareResult;
 import org.forgerock.opendj.ldap.responses.ExtendedResult;
 import org.forgerock.opendj.ldap.responses.Result;
+import org.forgerock.opendj.ldap.responses.SearchResultEntry;
+import org.forgerock.opendj.ldap.responses.SearchResultReference;
 import org.forgerock.opendj.ldap.spi.ConnectionState;
 import org.forgerock.opendj.ldap.spi.LdapPromises;
 import org.forgerock.util.AsyncFunction;
@@ -45,6 +54,7 @@ import org.forgerock.util.Options;
 import org.forgerock.util.promise.ExceptionHandler;
 import org.forgerock.util.promise.NeverThrowsException;
 import org.forgerock.util.promise.Promise;
+import org.forgerock.util.promise.PromiseImpl;
 import org.forgerock.util.promise.ResultHandler;
 
 /**
@@ -66,15 +76,30 @@ final class RequestLoadBalancer extends LoadBalancer {
     private final Function<Request, PartitionedRequest, NeverThrowsException> nextFactoryFunction;
     /** A function which is called after a request is terminated. */
     private final Function<Integer, Void, NeverThrowsException> endOfRequestFunction;
+    /**
+     * The dispatcher which is notified of the response time of each request and which determines whether requests
+     * should be hedged, or {@code null} if this load balancer is not latency-aware.
+     */
+    private final LatencyAwareDispatcher latencyAwareDispatcher;
 
     RequestLoadBalancer(final String loadBalancerName,
                         final Collection<? extends ConnectionFactory> factories,
                         final Options options,
                         final Function<Request, PartitionedRequest, NeverThrowsException> nextFactoryFunction,
                         final Function<Integer, Void, NeverThrowsException> endOfRequestFunction) {
+        this(loadBalancerName, factories, options, nextFactoryFunction, endOfRequestFunction, null);
+    }
+
+    RequestLoadBalancer(final String loadBalancerName,
+                        final Collection<? extends ConnectionFactory> factories,
+                        final Options options,
+                        final Function<Request, PartitionedRequest, NeverThrowsException> nextFactoryFunction,
+                        final Function<Integer, Void, NeverThrowsException> endOfRequestFunction,
+                        final LatencyAwareDispatcher latencyAwareDispatcher) {
         super(loadBalancerName, factories, options);
         this.nextFactoryFunction = nextFactoryFunction;
         this.endOfRequestFunction = endOfRequestFunction;
+        this.latencyAwareDispatcher = latencyAwareDispatcher;
     }
 
     @Override
@@ -141,6 +166,15 @@ final class RequestLoadBalancer extends LoadBalancer {
         @Override
         public LdapPromise<CompareResult> compareAsync(
                 final CompareRequest request, final IntermediateResponseHandler intermediateResponseHandler) {
+            if (isHedgeable(request)) {
+                return new HedgedRequest<CompareResult>(request) {
+                    @Override
+                    Promise<CompareResult, LdapException> send(final Connection connection, final Request request,
+                            final int attempt) {
+                        return connection.compareAsync((CompareRequest) request, intermediateResponseHandler);
+                    }
+                }.execute();
+            }
             final ConnectionContext connectionContext = getConnection(request);
             return executeRequest(connectionContext,
                     new AsyncFunction<Connection, CompareResult, LdapException>() {
@@ -230,6 +264,16 @@ final class RequestLoadBalancer extends LoadBalancer {
                 final SearchRequest request,
                 final IntermediateResponseHandler intermediateResponseHandler,
                 final SearchResultHandler entryHandler) {
+            if (isHedgeable(request)) {
+                return new HedgedRequest<Result>(request) {
+                    @Override
+                    Promise<Result, LdapException> send(final Connection connection, final Request request,
+                            final int attempt) {
+                        return connection.searchAsync((SearchRequest) request, intermediateResponseHandler,
+                                                      newSearchResultHandler(entryHandler, attempt));
+                    }
+                }.execute();
+            }
             final ConnectionContext connectionContext = getConnection(request);
             return executeRequest(connectionContext,
                     new AsyncFunction<Connection, Result, LdapException>() {
@@ -242,35 +286,70 @@ final class RequestLoadBalancer extends LoadBalancer {
                     });
         }
 
-        private ConnectionContext getConnection(final Request request) {
+        private boolean isHedgeable(final Request request) {
+            // Requests with controls may depend on state held by a particular server, e.g. paged results cookies.
+            return latencyAwareDispatcher != null && latencyAwareDispatcher.isHedgingEnabled()
+                    && request.getControls().isEmpty();
+        }
+
+        private PartitionedRequest partition(final Request request) {
             if (state.isClosed()) {
                 throw new IllegalStateException();
             }
+            return nextFactoryFunction.apply(request);
+        }
+
+        private ConnectionContext getConnection(final Request request) {
+            return getConnection(partition(request));
+        }
+
+        private ConnectionContext getConnection(final PartitionedRequest partitionedRequest) {
+            return getConnection(partitionedRequest, -1);
+        }
+
+        /**
+         * Obtains a connection for the provided request, never from the server at {@code excludedIndex}. Failing to
+         * obtain a connection is only reported to the connection event listeners when no server is excluded, since
+         * the excluded server may still be available.
+         */
+        private ConnectionContext getConnection(final PartitionedRequest partitionedRequest,
+                final int excludedIndex) {
+            final AtomicInteger connectedServerIndex = new AtomicInteger(partitionedRequest.getServerIndex());
             try {
-                final PartitionedRequest partitionedRequest = nextFactoryFunction.apply(request);
-                final ConnectionFactory factory = getMonitoredConnectionFactory(partitionedRequest.getServerIndex());
                 return new ConnectionContext(
-                        LdapPromises.asPromise(factory.getConnectionAsync()
+                        LdapPromises.asPromise(getConnectionAsync(partitionedRequest.getServerIndex(), excludedIndex,
+                                                                  connectedServerIndex)
                                 .thenOnException(new ExceptionHandler<LdapException>() {
                                     @Override
                                     public void handleException(final LdapException e) {
-                                        state.notifyConnectionError(false, e);
+                                        if (excludedIndex == -1) {
+                                            state.notifyConnectionError(false, e);
+                                        }
                                     }
-                                })), partitionedRequest);
+                                })), partitionedRequest, connectedServerIndex);
             } catch (final LdapException e) {
-                state.notifyConnectionError(false, e);
+                if (excludedIndex == -1) {
+                    state.notifyConnectionError(false, e);
+                }
                 LdapPromise<Connection> failedLdapPromise = newFailedLdapPromise(e);
-                return new ConnectionContext(failedLdapPromise, new PartitionedRequest(request, -1));
+                // Keep the server index so that the end of request is reported against the selected server.
+                return new ConnectionContext(failedLdapPromise, partitionedRequest, connectedServerIndex);
             }
         }
 
         private <R> LdapPromise<R> executeRequest(final ConnectionContext connectionContext,
                 final AsyncFunction<Connection, R, LdapException> requestSender) {
-            return connectionContext.getConnectionPromise()
+            final LdapPromise<R> promise = connectionContext.getConnectionPromise()
                     .thenOnResult(new ResultHandler<Connection>() {
                         @Override
                         public void handleResult(final Connection connection) {
                             connectionContext.setConnection(connection);
+                            final int selectedServerIndex = connectionContext.getServerIndex();
+                            final int connectedServerIndex = connectionContext.getConnectedServerIndex();
+                            if (latencyAwareDispatcher != null && connectedServerIndex != selectedServerIndex) {
+                                // The selected server is unavailable, account for the server actually used instead.
+                                latencyAwareDispatcher.requestRedirected(selectedServerIndex, connectedServerIndex);
+                            }
                         }
                     })
                     .thenAsync(requestSender)
@@ -281,6 +360,193 @@ final class RequestLoadBalancer extends LoadBalancer {
                             endOfRequestFunction.apply(connectionContext.getServerIndex());
                         }
                     });
+            if (latencyAwareDispatcher == null) {
+                return promise;
+            }
+            final long startNanos = System.nanoTime();
+            return promise.thenOnResult(new ResultHandler<R>() {
+                @Override
+                public void handleResult(final R result) {
+                    requestCompleted(connectionContext, startNanos, false);
+                }
+            }).thenOnException(new ExceptionHandler<LdapException>() {
+                @Override
+                public void handleException(final LdapException e) {
+                    requestCompleted(connectionContext, startNanos, LatencyAwareDispatcher.isServerFailure(e));
+                }
+            });
+        }
+
+        private void requestCompleted(final ConnectionContext connectionContext, final long startNanos,
+                final boolean isServerFailure) {
+            final int serverIndex = connectionContext.getConnectedServerIndex();
+            if (connectionContext.isAbandoned()) {
+                latencyAwareDispatcher.requestAbandoned(serverIndex);
+            } else {
+                latencyAwareDispatcher.requestCompleted(serverIndex, System.nanoTime() - startNanos, isServerFailure);
+            }
+        }
+
+        /**
+         * An idempotent request which is sent to a second server if the first server has not responded after the
+         * hedging delay computed by the latency-aware dispatcher. The first attempt to return a response wins: the
+         * responses of the other attempt are discarded and that attempt is abandoned. In particular, search result
+         * entries are only ever returned by a single server. Cancelling the request abandons all its attempts.
+         */
+        private abstract class HedgedRequest<R> {
+            private static final int PRIMARY = 0;
+            private static final int HEDGE = 1;
+            /** The value of {@link #winner} once the request has been cancelled by the client. */
+            private static final int CANCELLED = -2;
+
+            private final Request request;
+            private final PromiseImpl<R, LdapException> promise = new PromiseImpl<R, LdapException>() {
+                @Override
+                protected LdapException tryCancel(final boolean mayInterruptIfRunning) {
+                    winner.set(CANCELLED);
+                    complete();
+                    abandon(PRIMARY);
+                    abandon(HEDGE);
+                    return newLdapException(ResultCode.CLIENT_SIDE_USER_CANCELLED);
+                }
+            };
+            /** The attempt whose responses are returned to the client, or -1 if none has responded yet. */
+            private final AtomicInteger winner = new AtomicInteger(-1);
+            private final AtomicInteger runningAttempts = new AtomicInteger();
+            private final AtomicReferenceArray<ConnectionContext> attempts = new AtomicReferenceArray<>(2);
+            /** The promises returned by the connections which the attempts have been sent to. */
+            private final AtomicReferenceArray<Promise<R, LdapException>> sentPromises =
+                    new AtomicReferenceArray<>(2);
+            private volatile ScheduledFuture<?> hedgingFuture;
+
+            HedgedRequest(final Request request) {
+                this.request = request;
+            }
+
+            /** Sends the request using the provided connection on behalf of the provided attempt. */
+            abstract Promise<R, LdapException> send(Connection connection, Request request, int attempt);
+
+            LdapPromise<R> execute() {
+                start(PRIMARY, partition(request), -1);
+                final long hedgingDelayNanos = latencyAwareDispatcher.getHedgingDelayNanos();
+                if (hedgingDelayNanos >= 0 && !promise.isDone()) {
+                    hedgingFuture = getScheduler().schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            hedge();
+                        }
+                    }, hedgingDelayNanos, TimeUnit.NANOSECONDS);
+                }
+                return LdapPromises.asPromise(promise);
+            }
+
+            SearchResultHandler newSearchResultHandler(final SearchResultHandler handler, final int attempt) {
+                return new SearchResultHandler() {
+                    @Override
+                    public boolean handleEntry(final SearchResultEntry entry) {
+                        return claim(attempt) && handler.handleEntry(entry);
+                    }
+
+                    @Override
+                    public boolean handleReference(final SearchResultReference reference) {
+                        return claim(attempt) && handler.handleReference(reference);
+                    }
+                };
+            }
+
+            private void hedge() {
+                if (promise.isDone() || winner.get() != -1 || state.isClosed()) {
+                    return;
+                }
+                // The primary attempt may have failed over to another server than the one initially selected.
+                final int primaryServerIndex = attempts.get(PRIMARY).getConnectedServerIndex();
+                final int serverIndex = latencyAwareDispatcher.selectHedgingServer(primaryServerIndex);
+                if (serverIndex != -1) {
+                    start(HEDGE, new PartitionedRequest(request, serverIndex), primaryServerIndex);
+                }
+            }
+
+            private void start(final int attempt, final PartitionedRequest partitionedRequest,
+                    final int excludedIndex) {
+                runningAttempts.incrementAndGet();
+                final ConnectionContext connectionContext = getConnection(partitionedRequest, excludedIndex);
+                attempts.set(attempt, connectionContext);
+                final LdapPromise<R> attemptPromise = executeRequest(connectionContext,
+                        new AsyncFunction<Connection, R, LdapException>() {
+                            @Override
+                            public Promise<R, LdapException> apply(final Connection connection) {
+                                if (connectionContext.isAbandoned()) {
+                                    return newFailedLdapPromise(
+                                            newLdapException(ResultCode.CLIENT_SIDE_USER_CANCELLED));
+                                }
+                                final Promise<R, LdapException> sentPromise =
+                                        send(connection, connectionContext.getRequest(), attempt);
+                                sentPromises.set(attempt, sentPromise);
+                                if (connectionContext.isAbandoned()) {
+                                    // The attempt has been abandoned while it was being sent.
+                                    sentPromise.cancel(true);
+                                }
+                                return sentPromise;
+                            }
+                        });
+                attemptPromise.thenOnResult(new ResultHandler<R>() {
+                    @Override
+                    public void handleResult(final R result) {
+                        runningAttempts.decrementAndGet();
+                        if (claim(attempt)) {
+                            complete();
+                            promise.tryHandleResult(result);
+                        }
+                    }
+                }).thenOnException(new ExceptionHandler<LdapException>() {
+                    @Override
+                    public void handleException(final LdapException e) {
+                        // An attempt which fails silently makes way for the other one, unless it is the last one.
+                        final boolean isLastAttempt = runningAttempts.decrementAndGet() == 0;
+                        if (winner.get() == attempt || (isLastAttempt && claim(attempt))) {
+                            complete();
+                            promise.tryHandleException(e);
+                        }
+                    }
+                });
+                if (winner.get() == CANCELLED) {
+                    // The request has been cancelled while this attempt was starting.
+                    abandon(attempt);
+                }
+            }
+
+            /**
+             * Returns {@code true} if the responses of the provided attempt should be returned to the client, making
+             * it the winner if no attempt has responded yet.
+             */
+            private boolean claim(final int attempt) {
+                if (winner.compareAndSet(-1, attempt)) {
+                    abandon(attempt == PRIMARY ? HEDGE : PRIMARY);
+                    return true;
+                }
+                return winner.get() == attempt;
+            }
+
+            private void complete() {
+                final ScheduledFuture<?> future = hedgingFuture;
+                if (future != null) {
+                    future.cancel(false);
+                }
+            }
+
+            /**
+             * Abandons the provided attempt: it is cancelled if it has already been sent, otherwise it will not be
+             * sent at all.
+             */
+            private void abandon(final int attempt) {
+                final ConnectionContext connectionContext = attempts.get(attempt);
+                if (connectionContext != null && connectionContext.abandon()) {
+                    final Promise<R, LdapException> sentPromise = sentPromises.get(attempt);
+                    if (sentPromise != null) {
+                        sentPromise.cancel(true);
+                    }
+                }
+            }
         }
     }
 
@@ -307,12 +573,17 @@ final class RequestLoadBalancer extends LoadBalancer {
     /** Utility class to hold together parameters for a request and the connection used to perform it. */
     private static class ConnectionContext {
         private final AtomicReference<Connection> connectionHolder = new AtomicReference<>();
+        private final AtomicBoolean isAbandoned = new AtomicBoolean();
         private final LdapPromise<Connection> connectionPromise;
         private final PartitionedRequest partitionedRequest;
+        /** The index of the server which provided the connection, which differs from the selected one on failover. */
+        private final AtomicInteger connectedServerIndex;
 
-        ConnectionContext(LdapPromise<Connection> connectionPromise, PartitionedRequest partitionedRequest) {
+        ConnectionContext(LdapPromise<Connection> connectionPromise, PartitionedRequest partitionedRequest,
+                AtomicInteger connectedServerIndex) {
             this.partitionedRequest = partitionedRequest;
             this.connectionPromise = connectionPromise;
+            this.connectedServerIndex = connectedServerIndex;
         }
 
         Connection getConnection() {
@@ -331,8 +602,21 @@ final class RequestLoadBalancer extends LoadBalancer {
             return partitionedRequest.getServerIndex();
         }
 
+        int getConnectedServerIndex() {
+            return connectedServerIndex.get();
+        }
+
         Request getRequest() {
             return partitionedRequest.getRequest();
         }
+
+        /** Marks the request as no longer needed, returning {@code false} if it was already abandoned. */
+        boolean abandon() {
+            return isAbandoned.compareAndSet(false, true);
+        }
+
+        boolean isAbandoned() {
+            return isAbandoned.get();
+        }
     }
 }
@@ -0,0 +1,436 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.ldap;
+
+import static org.forgerock.opendj.ldap.LdapException.newLdapException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.forgerock.opendj.ldap.requests.SearchRequest;
+import org.forgerock.opendj.ldap.responses.Result;
+import org.forgerock.opendj.ldap.responses.SearchResultEntry;
+import org.forgerock.opendj.ldap.responses.SearchResultReference;
+import org.forgerock.opendj.ldap.spi.FlowControlledSearchResultHandler;
+import org.forgerock.opendj.ldap.spi.ReadFlowControl;
+import org.forgerock.opendj.ldif.EntryReader;
+import org.forgerock.util.Reject;
+import org.forgerock.util.promise.ExceptionHandler;
+import org.forgerock.util.promise.ResultHandler;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * A Reactive Streams {@code Publisher} of the entries returned by a search operation.
+ * <p>
+ * Each subscription performs the search request once. Entries are delivered to the subscriber according to its
+ * demand: entries received while the subscriber has no outstanding demand are buffered and, when the connection
+ * supports it, the connection stops reading responses from the network until the subscriber requests more entries.
+ * Slow consumers therefore push back on the directory server instead of exhausting the client's memory. Note that
+ * while reads are suspended, responses to the other requests sharing the same connection are delayed as well.
+ * <p>
+ * Search result references are ignored. If the search fails then the error is signalled immediately to the
+ * subscriber and any buffered entries are discarded. Cancelling the subscription abandons the search.
+ * <p>
+ * The following code illustrates how to iterate over the entries of a large search using a bounded amount of
+ * memory:
+ *
+ * <pre>
+ * Connection connection = ...;
+ * SearchRequest request = Requests.newSearchRequest(&quot;dc=example,dc=com&quot;,
+ *     SearchScope.WHOLE_SUBTREE, &quot;(objectClass=person)&quot;);
+ * try (Stream&lt;SearchResultEntry&gt; entries = new SearchResultPublisher(connection, request).stream(100)) {
+ *     entries.forEach(...);
+ * }
+ * </pre>
+ */
+public final class SearchResultPublisher implements Publisher<SearchResultEntry> {
+    /** Signals the successful completion of the search to a blocking entry reader. */
+    private static final Object END_OF_RESULTS = new Object();
+
+    private final Connection connection;
+    private final SearchRequest request;
+
+    /**
+     * Creates a new publisher of the entries returned by the provided search request.
+     *
+     * @param connection
+     *            The connection to use for performing the search.
+     * @param request
+     *            The search request.
+     */
+    public SearchResultPublisher(final Connection connection, final SearchRequest request) {
+        Reject.ifNull(connection, request);
+        this.connection = connection;
+        this.request = request;
+    }
+
+    @Override
+    public void subscribe(final Subscriber<? super SearchResultEntry> subscriber) {
+        Reject.ifNull(subscriber);
+        final SearchSubscription subscription = new SearchSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        subscription.start();
+    }
+
+    /**
+     * Performs the search and returns a blocking reader of the returned entries. At most {@code bufferSize}
+     * entries are requested ahead of the reader's consumption. The reader must be closed if it is not read
+     * entirely, in which case the search is abandoned.
+     * <p>
+     * If the search fails then the reader throws an {@link LdapException} containing the error result. If the
+     * reading thread is interrupted then the search is abandoned and the reader throws an {@link LdapException}
+     * with the result code {@link ResultCode#CLIENT_SIDE_USER_CANCELLED}.
+     *
+     * @param bufferSize
+     *            The maximum number of entries received but not yet read.
+     * @return A blocking reader of the entries returned by the search.
+     */
+    public EntryReader newEntryReader(final int bufferSize) {
+        Reject.ifFalse(bufferSize > 0, "bufferSize must be positive");
+        final BlockingEntryReader reader = new BlockingEntryReader(bufferSize);
+        subscribe(reader);
+        return reader;
+    }
+
+    /**
+     * Performs the search and returns a sequential stream of the returned entries. At most {@code bufferSize}
+     * entries are requested ahead of the stream's consumption. The stream must be closed if it is not consumed
+     * entirely, in which case the search is abandoned.
+     * <p>
+     * Errors are thrown as {@link UncheckedIOException}s whose cause is the {@link LdapException} containing the
+     * error result.
+     *
+     * @param bufferSize
+     *            The maximum number of entries received but not yet consumed.
+     * @return A stream of the entries returned by the search.
+     */
+    public Stream<SearchResultEntry> stream(final int bufferSize) {
+        Reject.ifFalse(bufferSize > 0, "bufferSize must be positive");
+        final BlockingEntryReader reader = new BlockingEntryReader(bufferSize);
+        subscribe(reader);
+        final Iterator<SearchResultEntry> iterator = new Iterator<SearchResultEntry>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return reader.hasNext();
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public SearchResultEntry next() {
+                try {
+                    return reader.readEntry();
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        final Spliterator<SearchResultEntry> spliterator =
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(new Runnable() {
+            @Override
+            public void run() {
+                reader.close();
+            }
+        });
+    }
+
+    /** Performs the search and delivers the returned entries according to the subscriber's demand. */
+    private final class SearchSubscription implements Subscription, FlowControlledSearchResultHandler {
+        private final Subscriber<? super SearchResultEntry> subscriber;
+        private final ConcurrentLinkedQueue<SearchResultEntry> buffer = new ConcurrentLinkedQueue<>();
+        private final AtomicLong requested = new AtomicLong();
+        /** Ensures that the subscriber is invoked by a single thread at a time. */
+        private final AtomicInteger drainCount = new AtomicInteger();
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        /** Ensures that reads are resumed as many times as they have been suspended by this subscription. */
+        private final AtomicBoolean readsSuspended = new AtomicBoolean();
+        private volatile boolean done;
+        private volatile boolean cancelled;
+        private volatile ReadFlowControl flowControl;
+        private volatile LdapPromise<Result> promise;
+
+        private SearchSubscription(final Subscriber<? super SearchResultEntry> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        private void start() {
+            if (cancelled) {
+                return;
+            }
+            promise = connection.searchAsync(request, this).thenOnResult(new ResultHandler<Result>() {
+                @Override
+                public void handleResult(final Result result) {
+                    done = true;
+                    drain();
+                }
+            }).thenOnException(new ExceptionHandler<LdapException>() {
+                @Override
+                public void handleException(final LdapException exception) {
+                    signalError(exception);
+                }
+            });
+            if (cancelled) {
+                // Cancelled while the request was being sent.
+                promise.cancel(true);
+            }
+        }
+
+        @Override
+        public void setReadFlowControl(final ReadFlowControl flowControl) {
+            this.flowControl = flowControl;
+        }
+
+        @Override
+        public boolean handleEntry(final SearchResultEntry entry) {
+            if (cancelled) {
+                return false;
+            }
+            buffer.offer(entry);
+            drain();
+            if (!buffer.isEmpty()) {
+                // The subscriber cannot keep up: stop reading until it requests more entries.
+                suspendReads();
+                if (cancelled) {
+                    // Cancelled or terminated concurrently, after reads were resumed for the last time.
+                    resumeReads();
+                    return false;
+                }
+                // Demand may have been signalled concurrently, before reads were suspended.
+                drain();
+            }
+            return true;
+        }
+
+        @Override
+        public boolean handleReference(final SearchResultReference reference) {
+            return !cancelled;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                signalError(new IllegalArgumentException("Non-positive request signals are illegal"));
+                abandon();
+                return;
+            }
+            long current;
+            long updated;
+            do {
+                current = requested.get();
+                updated = current + n < 0 ? Long.MAX_VALUE : current + n;
+            } while (!requested.compareAndSet(current, updated));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            abandon();
+            drain();
+        }
+
+        private void abandon() {
+            resumeReads();
+            final LdapPromise<Result> currentPromise = promise;
+            if (currentPromise != null) {
+                currentPromise.cancel(true);
+            }
+        }
+
+        private void signalError(final Throwable t) {
+            if (error.compareAndSet(null, t)) {
+                done = true;
+                resumeReads();
+                drain();
+            }
+        }
+
+        private void drain() {
+            if (drainCount.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                final long demand = requested.get();
+                long emitted = 0;
+                for (;;) {
+                    if (cancelled) {
+                        buffer.clear();
+                        resumeReads();
+                        return;
+                    }
+                    // Read the done flag before polling, otherwise the last entries could be lost.
+                    final boolean isDone = done;
+                    final Throwable t = error.get();
+                    if (t != null) {
+                        terminate(t);
+                        return;
+                    }
+                    if (emitted == demand) {
+                        if (isDone && buffer.isEmpty()) {
+                            terminate(null);
+                            return;
+                        }
+                        break;
+                    }
+                    final SearchResultEntry entry = buffer.poll();
+                    if (entry == null) {
+                        if (isDone) {
+                            terminate(null);
+                            return;
+                        }
+                        break;
+                    }
+                    subscriber.onNext(entry);
+                    emitted++;
+                }
+                if (emitted != 0 && demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                if (buffer.isEmpty() && requested.get() > 0) {
+                    resumeReads();
+                }
+                missed = drainCount.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Must only be called from the drain loop, which is never left afterwards, preventing further signals. The
+         * result may have been received while reads were suspended, in which case they must be resumed for the other
+         * requests sharing the connection.
+         */
+        private void terminate(final Throwable t) {
+            cancelled = true;
+            buffer.clear();
+            resumeReads();
+            if (t != null) {
+                subscriber.onError(t);
+            } else {
+                subscriber.onComplete();
+            }
+        }
+
+        private void suspendReads() {
+            final ReadFlowControl currentFlowControl = flowControl;
+            if (currentFlowControl != null && readsSuspended.compareAndSet(false, true)) {
+                currentFlowControl.suspendReads();
+            }
+        }
+
+        private void resumeReads() {
+            final ReadFlowControl currentFlowControl = flowControl;
+            if (currentFlowControl != null && readsSuspended.compareAndSet(true, false)) {
+                currentFlowControl.resumeReads();
+            }
+        }
+    }
+
+    /** Bridges a subscription to the blocking {@code EntryReader} API, requesting entries as they are read. */
+    private static final class BlockingEntryReader implements EntryReader, Subscriber<SearchResultEntry> {
+        private final int bufferSize;
+        /** Contains at most bufferSize entries followed by either END_OF_RESULTS or the error. */
+        private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+        private volatile Subscription subscription;
+        /** The next element to be read, or {@code null} if it has not been received yet. */
+        private Object next;
+        private int readSinceLastRequest;
+
+        private BlockingEntryReader(final int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        @Override
+        public void onSubscribe(final Subscription s) {
+            subscription = s;
+            s.request(bufferSize);
+        }
+
+        @Override
+        public void onNext(final SearchResultEntry entry) {
+            queue.add(entry);
+        }
+
+        @Override
+        public void onError(final Throwable t) {
+            queue.add(t);
+        }
+
+        @Override
+        public void onComplete() {
+            queue.add(END_OF_RESULTS);
+        }
+
+        @Override
+        public void close() {
+            subscription.cancel();
+        }
+
+        @Override
+        public boolean hasNext() throws LdapException {
+            if (next == null) {
+                try {
+                    next = queue.take();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    close();
+                    throw newLdapException(ResultCode.CLIENT_SIDE_USER_CANCELLED, e);
+                }
+            }
+            if (next instanceof LdapException) {
+                throw (LdapException) next;
+            } else if (next instanceof Throwable) {
+                throw newLdapException(ResultCode.CLIENT_SIDE_LOCAL_ERROR, (Throwable) next);
+            }
+            return next != END_OF_RESULTS;
+        }
+
+        @Override
+        public SearchResultEntry readEntry() throws LdapException {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final SearchResultEntry entry = (SearchResultEntry) next;
+            next = null;
+            // Request entries by batches in order to limit the number of signals.
+            if (++readSinceLastRequest >= Math.max(bufferSize / 2, 1)) {
+                subscription.request(readSinceLastRequest);
+                readSinceLastRequest = 0;
+            }
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.ldap.spi;
+
+import org.forgerock.opendj.ldap.SearchResultHandler;
+
+/**
+ * A search result handler which is able to throttle the transport delivering search results to it. Transports which
+ * support flow control provide the handler with a {@link ReadFlowControl} before sending the search request.
+ * Implementations wrapping a search result handler should forward the flow control to the wrapped handler if it
+ * supports flow control.
+ */
+public interface FlowControlledSearchResultHandler extends SearchResultHandler {
+
+    /**
+     * Provides the flow control which can be used for suspending the delivery of search results. This method is
+     * invoked before the search request is sent and is never invoked if the transport does not support flow control.
+     *
+     * @param flowControl
+     *            The flow control of the transport delivering the search results.
+     */
+    void setReadFlowControl(ReadFlowControl flowControl);
+}
@@ -0,0 +1,33 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.ldap.spi;
+
+/**
+ * Allows the consumer of the responses of a request to throttle the transport delivering them. While reads are
+ * suspended the transport stops reading from the network, so that the remote server eventually stops sending
+ * responses. Note that this affects all the requests sharing the same underlying network connection.
+ * <p>
+ * Calls to {@link #suspendReads()} and {@link #resumeReads()} must be paired: reads are only resumed once every
+ * consumer which suspended them has resumed them.
+ */
+public interface ReadFlowControl {
+
+    /** Stops reading responses from the network until {@link #resumeReads()} is invoked. */
+    void suspendReads();
+
+    /** Resumes reading responses from the network after a call to {@link #suspendReads()}. */
+    void resumeReads();
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.ldif;
 
@@ -89,6 +90,13 @@ import static org.forgerock.opendj.ldap.LdapException.*;
  * }
  * </pre>
  *
+ * The entries returned by this reader are created by the connection: for LDAP
+ * connections their implementation can be selected using the entry factory of
+ * the {@link org.forgerock.opendj.ldap.DecodeOptions} set with the
+ * {@link org.forgerock.opendj.ldap.CommonLDAPOptions#LDAP_DECODE_OPTIONS}
+ * option, e.g. {@link org.forgerock.opendj.ldap.CompactEntry#FACTORY} in
+ * order to reduce the memory used by applications which keep the entries.
+ * <p>
  * <b>NOTE:</b> although this class is non-final, sub-classing is not supported
  * except when creating mock objects for unit tests. This class has been
  * selected specifically because it is the only aspect of the {@code Connection}
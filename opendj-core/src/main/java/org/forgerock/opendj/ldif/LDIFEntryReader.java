@@ -13,6 +13,7 @@
  *
  * Copyright 2009-2010 Sun Microsystems, Inc.
  * Portions copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.ldif;
 
@@ -28,10 +29,13 @@ import java.util.NoSuchElementException;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.LocalizedIllegalArgumentException;
+import org.forgerock.opendj.ldap.Attribute;
 import org.forgerock.opendj.ldap.AttributeDescription;
+import org.forgerock.opendj.ldap.CompactEntry;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.DecodeException;
 import org.forgerock.opendj.ldap.Entry;
+import org.forgerock.opendj.ldap.EntryFactory;
 import org.forgerock.opendj.ldap.LinkedHashMapEntry;
 import org.forgerock.opendj.ldap.Matcher;
 import org.forgerock.opendj.ldap.schema.Schema;
@@ -92,6 +96,7 @@ public final class LDIFEntryReader extends AbstractLDIFReader implements EntryRe
         }
     }
 
+    private EntryFactory entryFactory = LinkedHashMapEntry.FACTORY;
     private Entry nextEntry;
 
     /**
@@ -298,6 +303,25 @@ public final class LDIFEntryReader extends AbstractLDIFReader implements EntryRe
         return this;
     }
 
+    /**
+     * Sets the entry factory which should be used for creating the entries
+     * read from LDIF. For example, {@link org.forgerock.opendj.ldap.CompactEntry#FACTORY}
+     * reduces the memory used by applications which keep many entries in
+     * memory.
+     * <p>
+     * By default {@link LinkedHashMapEntry#FACTORY} is used.
+     *
+     * @param factory
+     *            The entry factory which should be used for creating the
+     *            entries read from LDIF.
+     * @return A reference to this {@code LDIFEntryReader}.
+     */
+    public LDIFEntryReader setEntryFactory(final EntryFactory factory) {
+        Reject.ifNull(factory);
+        this.entryFactory = factory;
+        return this;
+    }
+
     /**
      * Sets the rejected record listener which should be notified whenever an
      * LDIF record is skipped, malformed, or fails schema validation.
@@ -408,7 +432,7 @@ public final class LDIFEntryReader extends AbstractLDIFReader implements EntryRe
                     handleSchemaValidationWarning(record, schemaErrors);
                 }
 
-                nextEntry = entry;
+                nextEntry = newEntry(entry);
             } catch (final DecodeException e) {
                 handleMalformedRecord(record, e.getMessageObject());
                 continue;
@@ -417,4 +441,19 @@ public final class LDIFEntryReader extends AbstractLDIFReader implements EntryRe
 
         return nextEntry;
     }
+
+    /** Copies the entry which has been read into an entry created by the entry factory. */
+    private Entry newEntry(final Entry entry) {
+        if (entryFactory == LinkedHashMapEntry.FACTORY) {
+            return entry;
+        } else if (entryFactory == CompactEntry.FACTORY) {
+            // Packs all the values at once rather than each time an attribute is added.
+            return new CompactEntry(entry);
+        }
+        final Entry copy = entryFactory.newEntry(entry.getName());
+        for (final Attribute attribute : entry.getAllAttributes()) {
+            copy.addAttribute(attribute);
+        }
+        return copy;
+    }
 }
@@ -0,0 +1,375 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.ldif;
+
+import static org.forgerock.opendj.ldap.LdapException.newLdapException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.opendj.ldap.Connection;
+import org.forgerock.opendj.ldap.LdapException;
+import org.forgerock.opendj.ldap.LdapPromise;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.ldap.requests.AddRequest;
+import org.forgerock.opendj.ldap.requests.DeleteRequest;
+import org.forgerock.opendj.ldap.requests.ModifyDNRequest;
+import org.forgerock.opendj.ldap.requests.ModifyRequest;
+import org.forgerock.opendj.ldap.responses.Result;
+import org.forgerock.util.Reject;
+import org.forgerock.util.promise.ExceptionHandler;
+import org.forgerock.util.promise.ResultHandler;
+
+/**
+ * A {@code PipelinedChangeRecordWriter} writes change records by sending
+ * appropriate update requests (Add, Delete, Modify, or ModifyDN) to an
+ * underlying connection, without waiting for the result of a request before
+ * sending the next one.
+ * <p>
+ * Unlike {@link ConnectionChangeRecordWriter}, which waits for a round trip to
+ * the server for each change record, this writer keeps up to a configurable
+ * number of update requests in flight, blocking the writing thread only when
+ * this limit is reached. This makes it suitable for applying large numbers of
+ * small changes, such as provisioning jobs.
+ * <p>
+ * Failed update requests do not prevent the following change records from
+ * being written. Instead, the outcome of the update requests is aggregated:
+ * {@link #flush()} waits for all the update requests written so far to
+ * complete, after which {@link #getSuccessCount()} and {@link #getFailures()}
+ * reflect their results.
+ * <p>
+ * Update requests are sent in the order they were written, but the server may
+ * process concurrent requests in any order: change records depending on the
+ * result of a previous change record, such as a modification of an entry added
+ * by a previous change record, must be separated by a call to {@code flush()}.
+ * <p>
+ * This writer must not be used from a connection's result handlers, since
+ * these may be needed for unblocking the writing thread.
+ * <p>
+ * <b>Note:</b> comments are not supported by pipelined change record writers.
+ * Attempts to write comments will be ignored.
+ */
+public final class PipelinedChangeRecordWriter implements ChangeRecordWriter {
+    /** A change record which could not be applied, along with the reason why. */
+    public static final class Failure {
+        private final ChangeRecord changeRecord;
+        private final LdapException exception;
+
+        private Failure(final ChangeRecord changeRecord, final LdapException exception) {
+            this.changeRecord = changeRecord;
+            this.exception = exception;
+        }
+
+        /**
+         * Returns the change record which could not be applied.
+         *
+         * @return The change record which could not be applied.
+         */
+        public ChangeRecord getChangeRecord() {
+            return changeRecord;
+        }
+
+        /**
+         * Returns the exception containing the error result returned for the
+         * update request.
+         *
+         * @return The exception containing the error result.
+         */
+        public LdapException getException() {
+            return exception;
+        }
+
+        @Override
+        public String toString() {
+            return "Failure(changeRecord=" + changeRecord + ", exception=" + exception + ")";
+        }
+    }
+
+    private static final ChangeRecordVisitor<LdapPromise<Result>, Connection> SENDER =
+            new ChangeRecordVisitor<LdapPromise<Result>, Connection>() {
+                @Override
+                public LdapPromise<Result> visitChangeRecord(final Connection connection, final AddRequest change) {
+                    return connection.addAsync(change);
+                }
+
+                @Override
+                public LdapPromise<Result> visitChangeRecord(final Connection connection,
+                        final DeleteRequest change) {
+                    return connection.deleteAsync(change);
+                }
+
+                @Override
+                public LdapPromise<Result> visitChangeRecord(final Connection connection,
+                        final ModifyDNRequest change) {
+                    return connection.modifyDNAsync(change);
+                }
+
+                @Override
+                public LdapPromise<Result> visitChangeRecord(final Connection connection,
+                        final ModifyRequest change) {
+                    return connection.modifyAsync(change);
+                }
+            };
+
+    private final Connection connection;
+    private final int maxInFlightRequests;
+    private final Semaphore inFlightRequests;
+    private final AtomicLong successCount = new AtomicLong();
+    /** Guarded by itself. */
+    private final List<Failure> failures = new ArrayList<>();
+
+    /**
+     * Creates a new pipelined change record writer whose destination is the
+     * provided connection.
+     *
+     * @param connection
+     *            The connection to use.
+     * @param maxInFlightRequests
+     *            The maximum number of update requests which may be awaiting
+     *            their result at any time.
+     * @throws IllegalArgumentException
+     *             If {@code maxInFlightRequests} is not positive.
+     * @throws NullPointerException
+     *             If {@code connection} was {@code null}.
+     */
+    public PipelinedChangeRecordWriter(final Connection connection, final int maxInFlightRequests) {
+        Reject.ifNull(connection);
+        Reject.ifFalse(maxInFlightRequests > 0, "maxInFlightRequests must be positive");
+        this.connection = connection;
+        this.maxInFlightRequests = maxInFlightRequests;
+        this.inFlightRequests = new Semaphore(maxInFlightRequests);
+    }
+
+    /**
+     * Waits for the outstanding update requests to complete, then closes the
+     * underlying connection.
+     *
+     * @throws LdapException
+     *             If the current thread was interrupted while waiting for the
+     *             outstanding update requests.
+     */
+    @Override
+    public void close() throws LdapException {
+        try {
+            flush();
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * Waits for all the update requests written so far to complete.
+     *
+     * @throws LdapException
+     *             If the current thread was interrupted while waiting.
+     */
+    @Override
+    public void flush() throws LdapException {
+        acquire(maxInFlightRequests);
+        inFlightRequests.release(maxInFlightRequests);
+    }
+
+    /**
+     * Returns the number of update requests which have completed successfully.
+     *
+     * @return The number of update requests which have completed successfully.
+     */
+    public long getSuccessCount() {
+        return successCount.get();
+    }
+
+    /**
+     * Returns the number of update requests which have failed.
+     *
+     * @return The number of update requests which have failed.
+     */
+    public int getFailureCount() {
+        synchronized (failures) {
+            return failures.size();
+        }
+    }
+
+    /**
+     * Returns the change records which could not be applied, in the order in
+     * which their results were received.
+     *
+     * @return A copy of the list of failed change records.
+     */
+    public List<Failure> getFailures() {
+        synchronized (failures) {
+            return new ArrayList<>(failures);
+        }
+    }
+
+    /**
+     * Sends the update request corresponding to the provided {@code Add}
+     * change record, blocking while the maximum number of update requests are
+     * in flight.
+     *
+     * @param change
+     *            The {@code AddRequest} to be written as an {@code Add} change
+     *            record.
+     * @return A reference to this pipelined change record writer.
+     * @throws LdapException
+     *             If the current thread was interrupted while waiting for an
+     *             update request to complete.
+     * @throws NullPointerException
+     *             If {@code change} was {@code null}.
+     */
+    @Override
+    public PipelinedChangeRecordWriter writeChangeRecord(final AddRequest change) throws LdapException {
+        return write(change);
+    }
+
+    /**
+     * Sends the update request corresponding to the provided change record,
+     * blocking while the maximum number of update requests are in flight.
+     *
+     * @param change
+     *            The {@code ChangeRecord} to be written.
+     * @return A reference to this pipelined change record writer.
+     * @throws LdapException
+     *             If the current thread was interrupted while waiting for an
+     *             update request to complete.
+     * @throws NullPointerException
+     *             If {@code change} was {@code null}.
+     */
+    @Override
+    public PipelinedChangeRecordWriter writeChangeRecord(final ChangeRecord change) throws LdapException {
+        return write(change);
+    }
+
+    /**
+     * Sends the update request corresponding to the provided {@code Delete}
+     * change record, blocking while the maximum number of update requests are
+     * in flight.
+     *
+     * @param change
+     *            The {@code DeleteRequest} to be written as a {@code Delete}
+     *            change record.
+     * @return A reference to this pipelined change record writer.
+     * @throws LdapException
+     *             If the current thread was interrupted while waiting for an
+     *             update request to complete.
+     * @throws NullPointerException
+     *             If {@code change} was {@code null}.
+     */
+    @Override
+    public PipelinedChangeRecordWriter writeChangeRecord(final DeleteRequest change) throws LdapException {
+        return write(change);
+    }
+
+    /**
+     * Sends the update request corresponding to the provided {@code ModifyDN}
+     * change record, blocking while the maximum number of update requests are
+     * in flight.
+     *
+     * @param change
+     *            The {@code ModifyDNRequest} to be written as a
+     *            {@code ModifyDN} change record.
+     * @return A reference to this pipelined change record writer.
+     * @throws LdapException
+     *             If the current thread was interrupted while waiting for an
+     *             update request to complete.
+     * @throws NullPointerException
+     *             If {@code change} was {@code null}.
+     */
+    @Override
+    public PipelinedChangeRecordWriter writeChangeRecord(final ModifyDNRequest change) throws LdapException {
+        return write(change);
+    }
+
+    /**
+     * Sends the update request corresponding to the provided {@code Modify}
+     * change record, blocking while the maximum number of update requests are
+     * in flight.
+     *
+     * @param change
+     *            The {@code ModifyRequest} to be written as a {@code Modify}
+     *            change record.
+     * @return A reference to this pipelined change record writer.
+     * @throws LdapException
+     *             If the current thread was interrupted while waiting for an
+     *             update request to complete.
+     * @throws NullPointerException
+     *             If {@code change} was {@code null}.
+     */
+    @Override
+    public PipelinedChangeRecordWriter writeChangeRecord(final ModifyRequest change) throws LdapException {
+        return write(change);
+    }
+
+    /**
+     * Pipelined change record writers do not support comments, so the
+     * provided comment will be ignored.
+     *
+     * @param comment
+     *            The {@code CharSequence} to be written as a comment.
+     * @return A reference to this pipelined change record writer.
+     * @throws NullPointerException
+     *             If {@code comment} was {@code null}.
+     */
+    @Override
+    public PipelinedChangeRecordWriter writeComment(final CharSequence comment) {
+        Reject.ifNull(comment);
+
+        // Do nothing.
+        return this;
+    }
+
+    private PipelinedChangeRecordWriter write(final ChangeRecord change) throws LdapException {
+        Reject.ifNull(change);
+        acquire(1);
+        final LdapPromise<Result> promise;
+        try {
+            promise = change.accept(SENDER, connection);
+        } catch (final RuntimeException e) {
+            inFlightRequests.release();
+            throw e;
+        }
+        // The permit is released last so that flush() returns once the outcome has been recorded.
+        promise.thenOnResult(new ResultHandler<Result>() {
+            @Override
+            public void handleResult(final Result result) {
+                successCount.incrementAndGet();
+            }
+        }).thenOnException(new ExceptionHandler<LdapException>() {
+            @Override
+            public void handleException(final LdapException exception) {
+                synchronized (failures) {
+                    failures.add(new Failure(change, exception));
+                }
+            }
+        }).thenOnResultOrException(new Runnable() {
+            @Override
+            public void run() {
+                inFlightRequests.release();
+            }
+        });
+        return this;
+    }
+
+    private void acquire(final int permits) throws LdapException {
+        try {
+            inFlightRequests.acquire(permits);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw newLdapException(ResultCode.CLIENT_SIDE_USER_CANCELLED, e);
+        }
+    }
+}
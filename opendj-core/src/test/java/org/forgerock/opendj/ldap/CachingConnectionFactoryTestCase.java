@@ -0,0 +1,366 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.ldap;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.forgerock.opendj.ldap.Connections.READ_CACHE_MAX_SIZE;
+import static org.forgerock.opendj.ldap.Connections.READ_CACHE_TIME_TO_LIVE;
+import static org.forgerock.opendj.ldap.Connections.newInternalConnection;
+import static org.forgerock.opendj.ldap.Connections.newInternalConnectionFactory;
+import static org.forgerock.opendj.ldap.LdapException.newLdapException;
+import static org.forgerock.opendj.ldap.TestCaseUtils.mockTimeService;
+import static org.forgerock.opendj.ldap.requests.Requests.newSearchRequest;
+import static org.forgerock.util.time.Duration.duration;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.forgerock.opendj.ldap.controls.EntryChangeNotificationResponseControl;
+import org.forgerock.opendj.ldap.controls.PersistentSearchChangeType;
+import org.forgerock.opendj.ldap.controls.PersistentSearchRequestControl;
+import org.forgerock.opendj.ldap.controls.SubentriesRequestControl;
+import org.forgerock.opendj.ldap.requests.AddRequest;
+import org.forgerock.opendj.ldap.requests.BindRequest;
+import org.forgerock.opendj.ldap.requests.CompareRequest;
+import org.forgerock.opendj.ldap.requests.DeleteRequest;
+import org.forgerock.opendj.ldap.requests.ExtendedRequest;
+import org.forgerock.opendj.ldap.requests.ModifyDNRequest;
+import org.forgerock.opendj.ldap.requests.ModifyRequest;
+import org.forgerock.opendj.ldap.requests.SearchRequest;
+import org.forgerock.opendj.ldap.responses.BindResult;
+import org.forgerock.opendj.ldap.responses.CompareResult;
+import org.forgerock.opendj.ldap.responses.ExtendedResult;
+import org.forgerock.opendj.ldap.responses.Responses;
+import org.forgerock.opendj.ldap.responses.Result;
+import org.forgerock.opendj.ldif.LDIFEntryReader;
+import org.forgerock.util.Options;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Tests the connection factory caching search results. */
+@SuppressWarnings("javadoc")
+public class CachingConnectionFactoryTestCase extends SdkTestCase {
+    private static final String USER_DN = "uid=user.0,ou=people,dc=example,dc=com";
+
+    /** A memory backend supporting persistent searches, whose change notifications are sent by the tests. */
+    private static final class NotifyingBackend implements RequestHandler<RequestContext> {
+        private final MemoryBackend backend;
+        private final List<SearchResultHandler> persistentSearches = new CopyOnWriteArrayList<>();
+        private final AtomicInteger searchCount = new AtomicInteger();
+        private volatile boolean supportsPersistentSearch = true;
+        /** Run once when the next search is received, before it is performed. */
+        private volatile Runnable beforeNextSearch;
+
+        private NotifyingBackend(final MemoryBackend backend) {
+            this.backend = backend;
+        }
+
+        private void notifyChange(final PersistentSearchChangeType type, final String dn) {
+            for (final SearchResultHandler persistentSearch : persistentSearches) {
+                persistentSearch.handleEntry(Responses.newSearchResultEntry(dn)
+                        .addControl(EntryChangeNotificationResponseControl.newControl(type, (DN) null, -1)));
+            }
+        }
+
+        @Override
+        public void handleAdd(final RequestContext requestContext, final AddRequest request,
+                final IntermediateResponseHandler intermediateResponseHandler,
+                final LdapResultHandler<Result> resultHandler) {
+            backend.handleAdd(requestContext, request, intermediateResponseHandler, resultHandler);
+        }
+
+        @Override
+        public void handleBind(final RequestContext requestContext, final int version, final BindRequest request,
+                final IntermediateResponseHandler intermediateResponseHandler,
+                final LdapResultHandler<BindResult> resultHandler) {
+            backend.handleBind(requestContext, version, request, intermediateResponseHandler, resultHandler);
+        }
+
+        @Override
+        public void handleCompare(final RequestContext requestContext, final CompareRequest request,
+                final IntermediateResponseHandler intermediateResponseHandler,
+                final LdapResultHandler<CompareResult> resultHandler) {
+            backend.handleCompare(requestContext, request, intermediateResponseHandler, resultHandler);
+        }
+
+        @Override
+        public void handleDelete(final RequestContext requestContext, final DeleteRequest request,
+                final IntermediateResponseHandler intermediateResponseHandler,
+                final LdapResultHandler<Result> resultHandler) {
+            backend.handleDelete(requestContext, request, intermediateResponseHandler, resultHandler);
+        }
+
+        @Override
+        public <R extends ExtendedResult> void handleExtendedRequest(final RequestContext requestContext,
+                final ExtendedRequest<R> request, final IntermediateResponseHandler intermediateResponseHandler,
+                final LdapResultHandler<R> resultHandler) {
+            backend.handleExtendedRequest(requestContext, request, intermediateResponseHandler, resultHandler);
+        }
+
+        @Override
+        public void handleModify(final RequestContext requestContext, final ModifyRequest request,
+                final IntermediateResponseHandler intermediateResponseHandler,
+                final LdapResultHandler<Result> resultHandler) {
+            backend.handleModify(requestContext, request, intermediateResponseHandler, resultHandler);
+        }
+
+        @Override
+        public void handleModifyDN(final RequestContext requestContext, final ModifyDNRequest request,
+                final IntermediateResponseHandler intermediateResponseHandler,
+                final LdapResultHandler<Result> resultHandler) {
+            backend.handleModifyDN(requestContext, request, intermediateResponseHandler, resultHandler);
+        }
+
+        @Override
+        public void handleSearch(final RequestContext requestContext, final SearchRequest request,
+                final IntermediateResponseHandler intermediateResponseHandler, final SearchResultHandler entryHandler,
+                final LdapResultHandler<Result> resultHandler) {
+            if (!request.containsControl(PersistentSearchRequestControl.OID)) {
+                searchCount.incrementAndGet();
+                final Runnable task = beforeNextSearch;
+                if (task != null) {
+                    beforeNextSearch = null;
+                    task.run();
+                }
+                backend.handleSearch(requestContext, request, intermediateResponseHandler, entryHandler,
+                        resultHandler);
+            } else if (supportsPersistentSearch) {
+                // Persistent searches never complete.
+                persistentSearches.add(entryHandler);
+            } else {
+                resultHandler.handleException(newLdapException(ResultCode.UNAVAILABLE_CRITICAL_EXTENSION));
+            }
+        }
+    }
+
+    private MemoryBackend memoryBackend;
+    private NotifyingBackend backend;
+    private CachingConnectionFactory factory;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        memoryBackend = new MemoryBackend(new LDIFEntryReader(
+                "dn: dc=example,dc=com",
+                "objectClass: domain",
+                "objectClass: top",
+                "dc: example",
+                "",
+                "dn: ou=people,dc=example,dc=com",
+                "objectClass: organizationalUnit",
+                "objectClass: top",
+                "ou: people",
+                "",
+                "dn: " + USER_DN,
+                "objectClass: person",
+                "objectClass: top",
+                "uid: user.0",
+                "cn: user 0",
+                "sn: 0",
+                "userPassword: password"));
+        backend = new NotifyingBackend(memoryBackend);
+        factory = (CachingConnectionFactory) Connections.newCachingConnectionFactory(
+                newInternalConnectionFactory(backend), Options.defaultOptions());
+    }
+
+    @Test
+    public void testRepeatedSearchesAreServedFromCache() throws Exception {
+        try (Connection connection = factory.getConnection()) {
+            for (int i = 0; i < 3; i++) {
+                assertThat(connection.readEntry(USER_DN).getAttribute("cn").firstValueAsString())
+                        .isEqualTo("user 0");
+            }
+        }
+        assertThat(backend.searchCount.get()).isEqualTo(1);
+        assertThat(factory.isCoherent()).isTrue();
+        assertThat(factory.getMissCount()).isEqualTo(1);
+        assertThat(factory.getHitCount()).isEqualTo(2);
+        assertThat(factory.getSize()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCachedEntriesAreCopies() throws Exception {
+        try (Connection connection = factory.getConnection()) {
+            connection.readEntry(USER_DN).replaceAttribute("cn", "modified");
+            assertThat(connection.readEntry(USER_DN).getAttribute("cn").firstValueAsString()).isEqualTo("user 0");
+        }
+    }
+
+    @Test
+    public void testChangeNotificationEvictsCachedResults() throws Exception {
+        try (Connection connection = factory.getConnection()) {
+            connection.readEntry(USER_DN);
+            newInternalConnection(memoryBackend).modify("dn: " + USER_DN, "changetype: modify", "replace: cn",
+                    "cn: modified");
+            backend.notifyChange(PersistentSearchChangeType.MODIFY, USER_DN);
+
+            assertThat(connection.readEntry(USER_DN).getAttribute("cn").firstValueAsString()).isEqualTo("modified");
+        }
+        assertThat(backend.searchCount.get()).isEqualTo(2);
+        assertThat(factory.getInvalidationCount()).isGreaterThan(0);
+    }
+
+    @Test
+    public void testChangeNotificationEvictsSearchesInScope() throws Exception {
+        final SearchRequest subtreeSearch = newSearchRequest("dc=example,dc=com", SearchScope.WHOLE_SUBTREE,
+                "(objectClass=person)");
+        final SearchRequest otherEntrySearch = newSearchRequest("ou=people,dc=example,dc=com",
+                SearchScope.BASE_OBJECT, "(objectClass=*)");
+        try (Connection connection = factory.getConnection()) {
+            connection.searchSingleEntry(subtreeSearch);
+            connection.searchSingleEntry(otherEntrySearch);
+            backend.notifyChange(PersistentSearchChangeType.MODIFY, USER_DN);
+            connection.searchSingleEntry(subtreeSearch);
+            connection.searchSingleEntry(otherEntrySearch);
+        }
+        assertThat(backend.searchCount.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void testWritesEvictCachedResults() throws Exception {
+        try (Connection connection = factory.getConnection()) {
+            connection.readEntry(USER_DN);
+            connection.modify("dn: " + USER_DN, "changetype: modify", "replace: cn", "cn: modified");
+
+            assertThat(connection.readEntry(USER_DN).getAttribute("cn").firstValueAsString()).isEqualTo("modified");
+        }
+    }
+
+    @Test
+    public void testMissingEntriesAreCached() throws Exception {
+        final String missingDN = "uid=missing,ou=people,dc=example,dc=com";
+        try (Connection connection = factory.getConnection()) {
+            for (int i = 0; i < 2; i++) {
+                try {
+                    connection.readEntry(missingDN);
+                    TestCaseUtils.failWasExpected(EntryNotFoundException.class);
+                } catch (final EntryNotFoundException expected) {
+                    // Expected.
+                }
+            }
+            assertThat(backend.searchCount.get()).isEqualTo(1);
+            assertThat(factory.getNegativeHitCount()).isEqualTo(1);
+
+            newInternalConnection(memoryBackend).add("dn: " + missingDN, "objectClass: person", "objectClass: top",
+                    "uid: missing", "cn: missing", "sn: missing");
+            backend.notifyChange(PersistentSearchChangeType.ADD, missingDN);
+            assertThat(connection.readEntry(missingDN)).isNotNull();
+        }
+    }
+
+    @Test
+    public void testSearchesWithControlsAreNotCached() throws Exception {
+        final SearchRequest request = newSearchRequest(USER_DN, SearchScope.BASE_OBJECT, "(objectClass=*)")
+                .addControl(SubentriesRequestControl.newControl(false, false));
+        try (Connection connection = factory.getConnection()) {
+            connection.searchSingleEntry(request);
+            connection.searchSingleEntry(request);
+        }
+        assertThat(backend.searchCount.get()).isEqualTo(2);
+        assertThat(factory.getSize()).isEqualTo(0);
+    }
+
+    @Test
+    public void testExpiredResultsAreNotReturned() throws Exception {
+        factory.timeService = mockTimeService(0, 0, 1000, 1000000);
+        try (Connection connection = factory.getConnection()) {
+            connection.readEntry(USER_DN);
+            connection.readEntry(USER_DN);
+            connection.readEntry(USER_DN);
+        }
+        assertThat(backend.searchCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testBoundConnectionsBypassCache() throws Exception {
+        try (Connection connection = factory.getConnection()) {
+            connection.readEntry(USER_DN);
+            connection.bind(USER_DN, "password".toCharArray());
+            connection.readEntry(USER_DN);
+            connection.readEntry(USER_DN);
+        }
+        assertThat(backend.searchCount.get()).isEqualTo(3);
+        assertThat(factory.getHitCount()).isEqualTo(0);
+
+        // The other connections still use the cache.
+        try (Connection connection = factory.getConnection()) {
+            connection.readEntry(USER_DN);
+        }
+        assertThat(backend.searchCount.get()).isEqualTo(3);
+        assertThat(factory.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testLeastRecentlyReadResultsAreEvictedWhenCacheIsFull() throws Exception {
+        factory = (CachingConnectionFactory) Connections.newCachingConnectionFactory(
+                newInternalConnectionFactory(backend), Options.defaultOptions().set(READ_CACHE_MAX_SIZE, 2));
+        try (Connection connection = factory.getConnection()) {
+            connection.readEntry(USER_DN);
+            connection.readEntry("ou=people,dc=example,dc=com");
+            // Reading the entry again marks it as recently used, which spares it from the next eviction.
+            connection.readEntry(USER_DN);
+            connection.readEntry("dc=example,dc=com");
+            assertThat(factory.getEvictionCount()).isEqualTo(1);
+            assertThat(factory.getSize()).isEqualTo(2);
+            assertThat(backend.searchCount.get()).isEqualTo(3);
+
+            connection.readEntry(USER_DN);
+            assertThat(backend.searchCount.get()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    public void testSearchOverlappingInvalidationIsNotCached() throws Exception {
+        backend.beforeNextSearch = new Runnable() {
+            @Override
+            public void run() {
+                backend.notifyChange(PersistentSearchChangeType.MODIFY, USER_DN);
+            }
+        };
+        try (Connection connection = factory.getConnection()) {
+            connection.readEntry(USER_DN);
+            assertThat(factory.getSize()).isEqualTo(0);
+            connection.readEntry(USER_DN);
+            connection.readEntry(USER_DN);
+        }
+        assertThat(backend.searchCount.get()).isEqualTo(2);
+        assertThat(factory.getHitCount()).isEqualTo(1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeMaxSizeIsRejected() {
+        Connections.newCachingConnectionFactory(newInternalConnectionFactory(backend),
+                Options.defaultOptions().set(READ_CACHE_MAX_SIZE, -1));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testZeroTimeToLiveIsRejected() {
+        Connections.newCachingConnectionFactory(newInternalConnectionFactory(backend),
+                Options.defaultOptions().set(READ_CACHE_TIME_TO_LIVE, duration("0 seconds")));
+    }
+
+    @Test
+    public void testNoCachingWithoutPersistentSearch() throws Exception {
+        backend.supportsPersistentSearch = false;
+        try (Connection connection = factory.getConnection()) {
+            connection.readEntry(USER_DN);
+            connection.readEntry(USER_DN);
+        }
+        assertThat(backend.searchCount.get()).isEqualTo(2);
+        assertThat(factory.isCoherent()).isFalse();
+        assertThat(factory.getSize()).isEqualTo(0);
+    }
+}
@@ -13,17 +13,19 @@
  *
  * Copyright 2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2015 ForgeRock AS.
- * Portions Copyright 2022 Wren Security
+ * Portions Copyright 2022-2026 Wren Security
  */
 
 package org.forgerock.opendj.ldap;
 
 import static org.fest.assertions.Assertions.assertThat;
-import static org.forgerock.opendj.ldap.Connections.newFixedConnectionPool;
+import static org.forgerock.opendj.ldap.Connections.CONNECTION_POOL_LOCK_FREE;
+import static org.forgerock.opendj.ldap.Connections.newCachedConnectionPool;
 import static org.forgerock.opendj.ldap.LdapException.newLdapException;
 import static org.forgerock.opendj.ldap.TestCaseUtils.mockConnection;
 import static org.forgerock.opendj.ldap.TestCaseUtils.mockConnectionFactory;
 import static org.forgerock.opendj.ldap.TestCaseUtils.mockTimeService;
+import static org.forgerock.util.Options.defaultOptions;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
@@ -37,8 +39,16 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import org.forgerock.opendj.ldap.requests.BindRequest;
@@ -50,6 +60,7 @@ import org.forgerock.util.promise.PromiseImpl;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 /**
@@ -58,6 +69,12 @@ import org.testng.annotations.Test;
 @SuppressWarnings("javadoc")
 public class ConnectionPoolTestCase extends SdkTestCase {
 
+    /** Runs the tests against both the {@link CachedConnectionPool} and the {@link LockFreeConnectionPool}. */
+    @DataProvider
+    Object[][] lockFree() {
+        return new Object[][] { { false }, { true } };
+    }
+
     /**
      * A connection event listener registered against a pooled connection should
      * be notified when the pooled connection is closed, NOT when the underlying
@@ -66,12 +83,12 @@ public class ConnectionPoolTestCase extends SdkTestCase {
      * @throws Exception
      *             If an unexpected error occurred.
      */
-    @Test
-    public void testConnectionEventListenerClose() throws Exception {
+    @Test(dataProvider = "lockFree")
+    public void testConnectionEventListenerClose(final boolean lockFree) throws Exception {
         final Connection pooledConnection = mock(Connection.class);
         when(pooledConnection.isValid()).thenReturn(true);
         final ConnectionFactory factory = mockConnectionFactory(pooledConnection);
-        final ConnectionPool pool = newFixedConnectionPool(factory, 1);
+        final ConnectionPool pool = newFixedConnectionPool(factory, 1, lockFree);
         final Connection connection = pool.getConnection();
         final ConnectionEventListener listener = mock(ConnectionEventListener.class);
         connection.addConnectionEventListener(listener);
@@ -93,12 +110,12 @@ public class ConnectionPoolTestCase extends SdkTestCase {
      * @throws Exception
      *             If an unexpected error occurred.
      */
-    @Test
-    public void testConnectionEventListenerError() throws Exception {
+    @Test(dataProvider = "lockFree")
+    public void testConnectionEventListenerError(final boolean lockFree) throws Exception {
         final List<ConnectionEventListener> listeners = new LinkedList<>();
         final Connection mockConnection = mockConnection(listeners);
         final ConnectionFactory factory = mockConnectionFactory(mockConnection);
-        final ConnectionPool pool = newFixedConnectionPool(factory, 1);
+        final ConnectionPool pool = newFixedConnectionPool(factory, 1, lockFree);
         final Connection connection = pool.getConnection();
         final ConnectionEventListener listener = mock(ConnectionEventListener.class);
         connection.addConnectionEventListener(listener);
@@ -120,12 +137,12 @@ public class ConnectionPoolTestCase extends SdkTestCase {
      * @throws Exception
      *             If an unexpected error occurred.
      */
-    @Test
-    public void testConnectionEventListenerUnsolicitedNotification() throws Exception {
+    @Test(dataProvider = "lockFree")
+    public void testConnectionEventListenerUnsolicitedNotification(final boolean lockFree) throws Exception {
         final List<ConnectionEventListener> listeners = new LinkedList<>();
         final Connection mockConnection = mockConnection(listeners);
         final ConnectionFactory factory = mockConnectionFactory(mockConnection);
-        final ConnectionPool pool = newFixedConnectionPool(factory, 1);
+        final ConnectionPool pool = newFixedConnectionPool(factory, 1, lockFree);
         final Connection connection = pool.getConnection();
         final ConnectionEventListener listener = mock(ConnectionEventListener.class);
         connection.addConnectionEventListener(listener);
@@ -152,8 +169,8 @@ public class ConnectionPoolTestCase extends SdkTestCase {
      * @throws Exception
      *             If an unexpected error occurred.
      */
-    @Test
-    public void testConnectionLifeCycle() throws Exception {
+    @Test(dataProvider = "lockFree")
+    public void testConnectionLifeCycle(final boolean lockFree) throws Exception {
         // Setup.
         final BindRequest bind1 =
                 Requests.newSimpleBindRequest("cn=test1", "password".toCharArray());
@@ -168,7 +185,7 @@ public class ConnectionPoolTestCase extends SdkTestCase {
         when(connection2.isValid()).thenReturn(true);
 
         final ConnectionFactory factory = mockConnectionFactory(connection1, connection2);
-        final ConnectionPool pool = Connections.newFixedConnectionPool(factory, 2);
+        final ConnectionPool pool = newFixedConnectionPool(factory, 2, lockFree);
 
         verifyNoInteractions(factory);
         verifyNoInteractions(connection1);
@@ -223,8 +240,8 @@ public class ConnectionPoolTestCase extends SdkTestCase {
      * @throws Exception
      *             If an unexpected error occurred.
      */
-    @Test
-    public void testGetConnectionAtCapacity() throws Exception {
+    @Test(dataProvider = "lockFree")
+    public void testGetConnectionAtCapacity(final boolean lockFree) throws Exception {
         // Setup.
         final Connection connection1 = mock(Connection.class);
         when(connection1.isValid()).thenReturn(true);
@@ -236,7 +253,7 @@ public class ConnectionPoolTestCase extends SdkTestCase {
         when(connection2.isValid()).thenReturn(true);
 
         final ConnectionFactory factory = mockConnectionFactory(connection1, connection2);
-        final ConnectionPool pool = Connections.newFixedConnectionPool(factory, 2);
+        final ConnectionPool pool = newFixedConnectionPool(factory, 2, lockFree);
 
         // Fully utilize the pool.
         final Connection pc1 = pool.getConnection();
@@ -273,8 +290,8 @@ public class ConnectionPoolTestCase extends SdkTestCase {
      * @throws Exception
      *             If an unexpected error occurred.
      */
-    @Test
-    public void testSkipStaleConnectionsOnClose() throws Exception {
+    @Test(dataProvider = "lockFree")
+    public void testSkipStaleConnectionsOnClose(final boolean lockFree) throws Exception {
         // Setup.
         final Connection connection1 = mock(Connection.class);
         when(connection1.isValid()).thenReturn(true);
@@ -286,7 +303,7 @@ public class ConnectionPoolTestCase extends SdkTestCase {
         when(connection2.isValid()).thenReturn(true);
 
         final ConnectionFactory factory = mockConnectionFactory(connection1, connection2);
-        final ConnectionPool pool = Connections.newFixedConnectionPool(factory, 2);
+        final ConnectionPool pool = newFixedConnectionPool(factory, 2, lockFree);
 
         /*
          * Simulate remote disconnect of connection1 while application is using
@@ -324,8 +341,8 @@ public class ConnectionPoolTestCase extends SdkTestCase {
      * @throws Exception
      *             If an unexpected error occurred.
      */
-    @Test
-    public void testSkipStaleConnectionsOnGet() throws Exception {
+    @Test(dataProvider = "lockFree")
+    public void testSkipStaleConnectionsOnGet(final boolean lockFree) throws Exception {
         // Setup.
         final Connection connection1 = mock(Connection.class);
         when(connection1.isValid()).thenReturn(true);
@@ -337,7 +354,7 @@ public class ConnectionPoolTestCase extends SdkTestCase {
         when(connection2.isValid()).thenReturn(true);
 
         final ConnectionFactory factory = mockConnectionFactory(connection1, connection2);
-        final ConnectionPool pool = Connections.newFixedConnectionPool(factory, 2);
+        final ConnectionPool pool = newFixedConnectionPool(factory, 2, lockFree);
 
         // Get and release a single connection.
         pool.getConnection().close();
@@ -369,8 +386,8 @@ public class ConnectionPoolTestCase extends SdkTestCase {
      * @throws Exception
      *             If an unexpected error occurred.
      */
-    @Test
-    public void testSkipStaleConnectionsOnGetWhenAtCapacity() throws Exception {
+    @Test(dataProvider = "lockFree")
+    public void testSkipStaleConnectionsOnGetWhenAtCapacity(final boolean lockFree) throws Exception {
         // Setup.
         final Connection connection1 = mock(Connection.class);
         when(connection1.isValid()).thenReturn(true);
@@ -386,7 +403,7 @@ public class ConnectionPoolTestCase extends SdkTestCase {
 
         final ConnectionFactory factory =
                 mockConnectionFactory(connection1, connection2, connection3);
-        final ConnectionPool pool = Connections.newFixedConnectionPool(factory, 2);
+        final ConnectionPool pool = newFixedConnectionPool(factory, 2, lockFree);
 
         // Fully allocate the pool.
         final Connection pc1 = pool.getConnection();
@@ -514,11 +531,11 @@ public class ConnectionPoolTestCase extends SdkTestCase {
      * connection request fails.
      */
     @SuppressWarnings({ "rawtypes", "unchecked" })
-    @Test(description = "OPENDJ-1348", timeOut = 10000)
-    public void testNewConnectionFailureFlushesAllPendingPromises() throws Exception {
+    @Test(description = "OPENDJ-1348", timeOut = 10000, dataProvider = "lockFree")
+    public void testNewConnectionFailureFlushesAllPendingPromises(final boolean lockFree) throws Exception {
         final ConnectionFactory factory = mock(ConnectionFactory.class);
         final int poolSize = 2;
-        final ConnectionPool pool = Connections.newFixedConnectionPool(factory, poolSize);
+        final ConnectionPool pool = newFixedConnectionPool(factory, poolSize, lockFree);
         doAnswer(new Answer<Promise<Connection, LdapException>>() {
             @Override
             public Promise<Connection, LdapException> answer(final InvocationOnMock invocation)
@@ -548,4 +565,227 @@ public class ConnectionPoolTestCase extends SdkTestCase {
         }
     }
 
+    @Test
+    public void testLockFreePoolReusesReleasedConnections() throws Exception {
+        final Connection connection1 = mock(Connection.class);
+        when(connection1.isValid()).thenReturn(true);
+        final ConnectionFactory factory = mockConnectionFactory(connection1);
+        final ConnectionPool pool = newFixedConnectionPool(factory, 2, true);
+        final ConnectionPoolMetrics metrics = (ConnectionPoolMetrics) pool;
+
+        pool.getConnection().close();
+        assertThat(metrics.getIdleConnectionCount()).isEqualTo(1);
+
+        // The connection released by this thread is reused rather than a new one being created.
+        final Connection pc = pool.getConnection();
+        assertThat(pc.isValid()).isTrue();
+        assertThat(metrics.getIdleConnectionCount()).isEqualTo(0);
+        verify(factory, times(1)).getConnection();
+        pc.close();
+
+        assertThat(metrics.getPoolSize()).isEqualTo(1);
+        assertThat(metrics.getConnectionCreationCount()).isEqualTo(1);
+        assertThat(metrics.getConnectionEvictionCount()).isEqualTo(0);
+        long borrows = 0;
+        for (final long count : metrics.getBorrowLatencyHistogram()) {
+            borrows += count;
+        }
+        assertThat(borrows).isEqualTo(2);
+
+        pool.close();
+        verify(connection1).close();
+    }
+
+    @Test
+    public void testLockFreePoolGetConnectionAtCapacity() throws Exception {
+        final Connection connection1 = mock(Connection.class);
+        when(connection1.isValid()).thenReturn(true);
+        final Connection connection2 = mock(Connection.class);
+        when(connection2.isValid()).thenReturn(true);
+        final ConnectionFactory factory = mockConnectionFactory(connection1, connection2);
+        final ConnectionPool pool = newFixedConnectionPool(factory, 2, true);
+        final ConnectionPoolMetrics metrics = (ConnectionPoolMetrics) pool;
+
+        final Connection pc1 = pool.getConnection();
+        final Connection pc2 = pool.getConnection();
+        final Promise<? extends Connection, LdapException> promise = pool.getConnectionAsync();
+        assertThat(promise.isDone()).isFalse();
+        assertThat(metrics.getWaiterCount()).isEqualTo(1);
+
+        // Releasing a connection hands it over to the waiting request.
+        pc2.close();
+        assertThat(promise.isDone()).isTrue();
+        assertThat(metrics.getWaiterCount()).isEqualTo(0);
+        assertThat(metrics.getIdleConnectionCount()).isEqualTo(0);
+
+        promise.get().close();
+        pc1.close();
+        assertThat(metrics.getIdleConnectionCount()).isEqualTo(2);
+        verify(factory, times(2)).getConnection();
+        pool.close();
+    }
+
+    @Test
+    public void testLockFreePoolSkipsStaleConnectionsOnGet() throws Exception {
+        final Connection connection1 = mock(Connection.class);
+        when(connection1.isValid()).thenReturn(true);
+        final Connection connection2 = mock(Connection.class);
+        when(connection2.isValid()).thenReturn(true);
+        final ConnectionFactory factory = mockConnectionFactory(connection1, connection2);
+        final ConnectionPool pool = newFixedConnectionPool(factory, 2, true);
+        final ConnectionPoolMetrics metrics = (ConnectionPoolMetrics) pool;
+
+        pool.getConnection().close();
+        when(connection1.isValid()).thenReturn(false);
+
+        final Connection pc = pool.getConnection();
+        assertThat(pc.isValid()).isTrue();
+        verify(connection1).close();
+        assertThat(metrics.getConnectionEvictionCount()).isEqualTo(1);
+        assertThat(metrics.getConnectionCreationCount()).isEqualTo(2);
+        assertThat(metrics.getPoolSize()).isEqualTo(1);
+
+        pc.close();
+        pool.close();
+    }
+
+    /**
+     * Verifies that a lock-free pool with connection keep alive purges idle
+     * connections after the keepalive period has expired, the oldest first.
+     *
+     * @throws Exception
+     *             If an unexpected error occurred.
+     */
+    @Test
+    public void testLockFreePoolPurgesIdleConnections() throws Exception {
+        final Connection pooledConnection1 = mock(Connection.class, "pooledConnection1");
+        final Connection pooledConnection2 = mock(Connection.class, "pooledConnection2");
+        final Connection pooledConnection3 = mock(Connection.class, "pooledConnection3");
+        final Connection pooledConnection4 = mock(Connection.class, "pooledConnection4");
+
+        when(pooledConnection1.isValid()).thenReturn(true);
+        when(pooledConnection2.isValid()).thenReturn(true);
+        when(pooledConnection3.isValid()).thenReturn(true);
+        when(pooledConnection4.isValid()).thenReturn(true);
+
+        final ConnectionFactory factory =
+                mockConnectionFactory(pooledConnection1, pooledConnection2, pooledConnection3, pooledConnection4);
+        final MockScheduler scheduler = new MockScheduler();
+        final LockFreeConnectionPool pool =
+                new LockFreeConnectionPool(factory, 1, 3, 100, TimeUnit.MILLISECONDS, scheduler);
+        assertThat(scheduler.isScheduled()).isTrue();
+
+        // First populate the pool at time 0, keeping one connection in use.
+        pool.timeService = mockTimeService(0);
+        Connection c1 = pool.getConnection();
+        Connection c2 = pool.getConnection();
+        final Connection c3 = pool.getConnection();
+        c1.close();
+        c2.close();
+        assertThat(pool.getPoolSize()).isEqualTo(3);
+        assertThat(pool.getIdleConnectionCount()).isEqualTo(2);
+
+        // The first purge at time 50 is a no-op because no connections have expired.
+        when(pool.timeService.now()).thenReturn(50L);
+        scheduler.runFirstTask();
+        assertThat(pool.getPoolSize()).isEqualTo(3);
+
+        // The second purge at time 150 removes the idle connections, but not the one in use.
+        when(pool.timeService.now()).thenReturn(150L);
+        scheduler.runFirstTask();
+        assertThat(pool.getPoolSize()).isEqualTo(1);
+        assertThat(pool.getIdleConnectionCount()).isEqualTo(0);
+        assertThat(pool.getConnectionEvictionCount()).isEqualTo(2);
+        verify(pooledConnection1).close();
+        verify(pooledConnection2).close();
+        verify(pooledConnection3, times(0)).close();
+
+        // The pool is back to its core size, so the third purge at time 1000 keeps the remaining connection.
+        c3.close();
+        when(pool.timeService.now()).thenReturn(1000L);
+        scheduler.runFirstTask();
+        assertThat(pool.getPoolSize()).isEqualTo(1);
+        assertThat(pool.getIdleConnectionCount()).isEqualTo(1);
+
+        // The purged connections are never handed out again.
+        c1 = pool.getConnection();
+        c2 = pool.getConnection();
+        assertThat(c1.toString()).contains("pooledConnection3");
+        assertThat(c2.toString()).contains("pooledConnection4");
+        assertThat(pool.getConnectionCreationCount()).isEqualTo(4);
+        c1.close();
+        c2.close();
+
+        pool.close();
+        verify(pooledConnection3).close();
+        verify(pooledConnection4).close();
+        assertThat(scheduler.isScheduled()).isFalse();
+    }
+
+    /**
+     * Verifies that a lock-free pool never hands the same connection to two
+     * threads at once, nor creates more connections than its size, when many
+     * threads acquire and release connections concurrently.
+     *
+     * @throws Exception
+     *             If an unexpected error occurred.
+     */
+    @Test(timeOut = 30000)
+    public void testLockFreePoolConcurrentAcquireAndRelease() throws Exception {
+        final int poolSize = 4;
+        final int threadCount = 8;
+        final int iterations = 1000;
+        final Connection[] connections = new Connection[poolSize];
+        for (int i = 0; i < poolSize; i++) {
+            connections[i] = mock(Connection.class, "pooledConnection" + i);
+            when(connections[i].isValid()).thenReturn(true);
+        }
+        final ConnectionFactory factory = mockConnectionFactory(connections[0],
+                Arrays.copyOfRange(connections, 1, poolSize));
+        final ConnectionPool pool = newFixedConnectionPool(factory, poolSize, true);
+        final ConnectionPoolMetrics metrics = (ConnectionPoolMetrics) pool;
+        final Set<String> inUse = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            final List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int j = 0; j < iterations; j++) {
+                            final Connection connection = pool.getConnection();
+                            final String name = connection.toString();
+                            assertThat(inUse.add(name)).as(name).isTrue();
+                            inUse.remove(name);
+                            connection.close();
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (final Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(metrics.getConnectionCreationCount()).isLessThanOrEqualTo(poolSize);
+        assertThat(metrics.getPoolSize()).isEqualTo((int) metrics.getConnectionCreationCount());
+        assertThat(metrics.getIdleConnectionCount()).isEqualTo(metrics.getPoolSize());
+        assertThat(metrics.getWaiterCount()).isEqualTo(0);
+        long borrows = 0;
+        for (final long count : metrics.getBorrowLatencyHistogram()) {
+            borrows += count;
+        }
+        assertThat(borrows).isEqualTo(threadCount * iterations);
+        pool.close();
+    }
+
+    private ConnectionPool newFixedConnectionPool(final ConnectionFactory factory, final int poolSize,
+            final boolean lockFree) {
+        return newCachedConnectionPool(factory, poolSize, poolSize, 0L, null,
+                defaultOptions().set(CONNECTION_POOL_LOCK_FREE, lockFree));
+    }
 }
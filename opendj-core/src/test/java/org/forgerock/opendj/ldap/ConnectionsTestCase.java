@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
- * Portions Copyright 2022 Wren Security
+ * Portions Copyright 2022-2026 Wren Security
  */
 package org.forgerock.opendj.ldap;
 
@@ -24,6 +24,8 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import java.util.concurrent.TimeUnit;
+
 import org.forgerock.opendj.ldap.Connections.LeastRequestsDispatcher;
 import org.forgerock.opendj.ldap.RequestLoadBalancer.PartitionedRequest;
 import org.forgerock.opendj.ldap.requests.AddRequest;
@@ -42,7 +44,9 @@ import org.forgerock.opendj.ldap.requests.Requests;
 import org.forgerock.opendj.ldap.requests.SearchRequest;
 import org.forgerock.opendj.ldap.requests.SimpleBindRequest;
 import org.forgerock.util.Function;
+import org.forgerock.util.Options;
 import org.forgerock.util.promise.NeverThrowsException;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import com.forgerock.opendj.ldap.controls.AffinityControl;
@@ -212,6 +216,100 @@ public class ConnectionsTestCase extends SdkTestCase {
         assertThat(next.apply(reqs[9]).getServerIndex()).isEqualTo(2); // number of reqs = [4, 3, 3]
     }
 
+    @Test
+    public void latencyAwareDispatcherMustFavorTheFastestServer() {
+        final LatencyAwareDispatcher dispatcher = newLatencyAwareDispatcher(2, 0);
+        for (int i = 0; i < 10; i++) {
+            final int index = dispatcher.selectServer();
+            dispatcher.requestCompleted(index, index == 0 ? millis(1) : millis(100), false);
+        }
+        assertThat(dispatcher.getEwmaLatencyNanos(0)).isLessThan(dispatcher.getEwmaLatencyNanos(1));
+
+        // With two servers both are always compared, so the fastest idle server always wins.
+        for (int i = 0; i < 10; i++) {
+            final int index = dispatcher.selectServer();
+            assertThat(index).isEqualTo(0);
+            dispatcher.requestCompleted(index, millis(1), false);
+        }
+    }
+
+    @Test
+    public void latencyAwareDispatcherMustEjectFailingServers() {
+        final LatencyAwareDispatcher dispatcher = newLatencyAwareDispatcher(3, 0);
+        for (int i = 0; i < LatencyAwareDispatcher.MIN_REQUESTS_FOR_EJECTION; i++) {
+            dispatcher.requestCompleted(2, millis(1), true);
+        }
+        assertThat(dispatcher.isEjected(2)).isTrue();
+        for (int i = 0; i < 20; i++) {
+            final int index = dispatcher.selectServer();
+            assertThat(index).isNotEqualTo(2);
+            dispatcher.requestCompleted(index, millis(1), false);
+        }
+        assertThat(dispatcher.selectHedgingServer(0)).isEqualTo(1);
+    }
+
+    @Test
+    public void latencyAwareDispatcherMustKeepTheLastAvailableServer() {
+        final LatencyAwareDispatcher dispatcher = newLatencyAwareDispatcher(2, 0);
+        for (int i = 0; i < LatencyAwareDispatcher.MIN_REQUESTS_FOR_EJECTION; i++) {
+            dispatcher.requestCompleted(0, millis(1), true);
+            dispatcher.requestCompleted(1, millis(1), true);
+        }
+        assertThat(dispatcher.isEjected(0)).isTrue();
+        assertThat(dispatcher.isEjected(1)).isFalse();
+        assertThat(dispatcher.selectServer()).isEqualTo(1);
+    }
+
+    @Test
+    public void latencyAwareDispatcherMustEjectLatencyOutliers() {
+        final LatencyAwareDispatcher dispatcher = newLatencyAwareDispatcher(3, 0);
+        for (int i = 0; i < LatencyAwareDispatcher.MIN_REQUESTS_FOR_EJECTION; i++) {
+            dispatcher.requestCompleted(0, millis(2), false);
+            dispatcher.requestCompleted(1, millis(2), false);
+            dispatcher.requestCompleted(2, millis(2000), false);
+        }
+        assertThat(dispatcher.isEjected(0)).isFalse();
+        assertThat(dispatcher.isEjected(1)).isFalse();
+        assertThat(dispatcher.isEjected(2)).isTrue();
+    }
+
+    @Test
+    public void latencyAwareDispatcherMustComputeHedgingDelayFromPercentile() {
+        assertThat(newLatencyAwareDispatcher(2, 0).isHedgingEnabled()).isFalse();
+
+        final LatencyAwareDispatcher dispatcher = newLatencyAwareDispatcher(2, 90);
+        assertThat(dispatcher.isHedgingEnabled()).isTrue();
+        assertThat(dispatcher.getHedgingDelayNanos()).isEqualTo(-1);
+        for (int i = 0; i < 90; i++) {
+            dispatcher.requestCompleted(0, millis(2), false);
+        }
+        for (int i = 0; i < 10; i++) {
+            dispatcher.requestCompleted(1, millis(50), false);
+        }
+        // 90% of the requests completed in 2ms, which falls in the bucket [1024us, 2048us).
+        assertThat(dispatcher.getHedgingDelayNanos()).isEqualTo(TimeUnit.MICROSECONDS.toNanos(2048));
+    }
+
+    @DataProvider
+    public Object[][] invalidHedgingPercentiles() {
+        return new Object[][] { { -1.0 }, { 100.0 }, { 150.0 }, { Double.NaN } };
+    }
+
+    @Test(dataProvider = "invalidHedgingPercentiles", expectedExceptions = IllegalArgumentException.class)
+    public void latencyAwareLoadBalancerMustRejectInvalidHedgingPercentiles(final double hedgingPercentile) {
+        newLatencyAwareLoadBalancer(asList(mock(ConnectionFactory.class), mock(ConnectionFactory.class)),
+                Options.defaultOptions().set(LOAD_BALANCER_HEDGING_PERCENTILE, hedgingPercentile));
+    }
+
+    private LatencyAwareDispatcher newLatencyAwareDispatcher(final int numberOfServers,
+            final double hedgingPercentile) {
+        return new LatencyAwareDispatcher(numberOfServers, TimeUnit.MINUTES.toNanos(1), 5.0, hedgingPercentile);
+    }
+
+    private long millis(final long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
     private void assertRequestsAreRoutedConsistently(
             final Function<Request, PartitionedRequest, NeverThrowsException> f, final Request r,
             final int firstExpectedIndex, final int secondExpectedIndex) {
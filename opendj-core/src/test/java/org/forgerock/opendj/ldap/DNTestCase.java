@@ -13,6 +13,7 @@
  *
  * Copyright 2010 Sun Microsystems, Inc.
  * Portions copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.ldap;
 
@@ -31,6 +32,7 @@ import java.util.TreeMap;
 import java.util.UUID;
 
 import org.forgerock.i18n.LocalizedIllegalArgumentException;
+import org.forgerock.opendj.ldap.schema.Schema;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
@@ -1409,4 +1411,64 @@ public class DNTestCase extends SdkTestCase {
         assertEquals(longDN.toString(), builder.toString(),
             "String representation of a very long DN does not match the source DN");
     }
+
+    @Test
+    public void parentDNsShouldBeSharedAcrossThreads() throws Exception {
+        final DN[] dns = new DN[1];
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                dns[0] = DN.valueOf("uid=user.1,ou=shared,dc=example,dc=com");
+            }
+        });
+        thread.start();
+        thread.join();
+        final DN dn = DN.valueOf("uid=user.2,ou=shared,dc=example,dc=com");
+        assertThat((Object) dn.parent()).isSameAs(dns[0].parent());
+    }
+
+    @Test
+    public void dnCacheShouldBeSchemaAware() throws Exception {
+        final DNCache cache = new DNCache(10);
+        final DN dn = DN.valueOf("dc=example,dc=com");
+        cache.put("dc=example,dc=com", dn);
+        assertThat((Object) cache.get("dc=example,dc=com", dn.getSchema())).isSameAs(dn);
+        assertThat((Object) cache.get("dc=example,dc=com", Schema.getEmptySchema())).isNull();
+    }
+
+    @Test
+    public void dnCacheShouldEvictUnusedDNsFirst() throws Exception {
+        final DNCache cache = new DNCache(16);
+        final DN used = DN.valueOf("dc=used");
+        cache.put("dc=used", used);
+        for (int i = 0; i < 100; i++) {
+            cache.get("dc=used", used.getSchema());
+            cache.put("dc=unused" + i, DN.valueOf("dc=unused" + i));
+        }
+        final DNCacheStatistics statistics = cache.getStatistics();
+        assertThat(statistics.getSize()).isLessThanOrEqualTo(16);
+        assertThat(statistics.getEvictionCount()).isGreaterThan(0);
+        assertThat((Object) cache.get("dc=used", used.getSchema())).isSameAs(used);
+    }
+
+    @Test
+    public void dnCacheStatisticsShouldCountLookups() throws Exception {
+        final DNCache cache = new DNCache(16);
+        cache.recordLookup(true);
+        cache.recordLookup(true);
+        cache.recordLookup(true);
+        cache.recordLookup(false);
+        final DNCacheStatistics statistics = cache.getStatistics();
+        assertThat(statistics.getHitCount()).isEqualTo(3);
+        assertThat(statistics.getMissCount()).isEqualTo(1);
+        assertThat(statistics.getHitRatio()).isEqualTo(0.75);
+    }
+
+    @Test
+    public void disabledDNCacheShouldNotCacheDNs() throws Exception {
+        final DNCache cache = new DNCache(0);
+        final DN dn = DN.valueOf("dc=example,dc=com");
+        cache.put("dc=example,dc=com", dn);
+        assertThat((Object) cache.get("dc=example,dc=com", dn.getSchema())).isNull();
+    }
 }
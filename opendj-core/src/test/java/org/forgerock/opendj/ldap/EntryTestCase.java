@@ -13,6 +13,7 @@
  *
  * Copyright 2009-2010 Sun Microsystems, Inc.
  * Portions copyright 2012-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.opendj.ldap;
@@ -21,9 +22,12 @@ import static org.fest.assertions.Assertions.assertThat;
 import static org.forgerock.opendj.ldap.Attributes.emptyAttribute;
 import static org.forgerock.opendj.ldap.Attributes.singletonAttribute;
 
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
+import org.forgerock.opendj.io.ASN1;
+import org.forgerock.opendj.io.LDAP;
 import org.forgerock.opendj.ldap.schema.Schema;
 import org.forgerock.opendj.ldap.schema.SchemaBuilder;
 import org.forgerock.opendj.ldif.LDIFEntryReader;
@@ -60,6 +64,18 @@ public final class EntryTestCase extends SdkTestCase {
         }
     }
 
+    private static final class CompactEntryFactory implements EntryFactory {
+        @Override
+        public Entry newEntry(final String... ldifLines) throws Exception {
+            final LDIFEntryReader reader =
+                    new LDIFEntryReader(ldifLines).setSchema(SCHEMA).setEntryFactory(CompactEntry.FACTORY);
+            final Entry entry = reader.readEntry();
+            assertThat(reader.hasNext()).isFalse();
+            assertThat(entry).isInstanceOf(CompactEntry.class);
+            return entry;
+        }
+    }
+
     private static final AttributeDescription AD_CN;
     private static final AttributeDescription AD_CUSTOM1;
     private static final AttributeDescription AD_CUSTOM2;
@@ -84,7 +100,8 @@ public final class EntryTestCase extends SdkTestCase {
     @DataProvider(name = "EntryFactory")
     Object[][] entryFactory() {
         // Value, type, options, containsOptions("foo")
-        return new Object[][] { { new TreeMapEntryFactory() }, { new LinkedHashMapEntryFactory() } };
+        return new Object[][] { { new TreeMapEntryFactory() }, { new LinkedHashMapEntryFactory() },
+            { new CompactEntryFactory() } };
     }
 
     @Test(dataProvider = "EntryFactory")
@@ -805,6 +822,66 @@ public final class EntryTestCase extends SdkTestCase {
         assertThat(entry.toString()).contains("cn=test");
     }
 
+    @Test
+    public void testCompactEntryValuesSurviveModifications() throws Exception {
+        final Entry entry = createTestEntry(new CompactEntryFactory());
+        final ByteString cn = entry.getAttribute(AD_CN).firstValue();
+        entry.addAttribute("description", "a", "b");
+        entry.removeAttribute("cn", "test");
+        entry.replaceAttribute("custom1", "replaced");
+        assertThat(cn.toString()).isEqualTo("test");
+        assertThat(entry.getAttribute(AD_CN)).isNull();
+        assertThat(entry.getAttribute("description")).containsOnly(ByteString.valueOfUtf8("a"),
+                ByteString.valueOfUtf8("b"));
+        assertThat(entry.getAttribute(AD_CUSTOM1)).isEqualTo(singletonAttribute(AD_CUSTOM1, "replaced"));
+        assertThat(entry.getAttributeCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testCompactEntryPreservesAttributeOrder() throws Exception {
+        final Entry entry = new CompactEntry("dn: cn=test", "objectClass: top", "cn: test", "sn: a", "sn: b");
+        entry.replaceAttribute("cn", "replaced");
+        final List<String> names = new LinkedList<>();
+        for (final Attribute attribute : entry.getAllAttributes()) {
+            names.add(attribute.getAttributeDescriptionAsString());
+        }
+        assertThat(names).containsExactly("objectClass", "cn", "sn");
+    }
+
+    @Test
+    public void testCompactEntryAttributeViews() throws Exception {
+        final Entry entry = new CompactEntry("dn: cn=test", "objectClass: top", "cn: test", "sn: a", "sn: b");
+        final Attribute sn = entry.getAttribute(AD_SN);
+        assertThat(sn.contains("A")).isTrue();
+        assertThat(sn.add("B")).isFalse();
+        assertThat(sn.add("c")).isTrue();
+        assertThat(entry.getAttribute(AD_SN)).hasSize(3);
+
+        sn.clear();
+        assertThat(entry.getAttribute(AD_SN)).isNull();
+        assertThat(entry.getAttributeCount()).isEqualTo(2);
+        sn.add("d");
+        assertThat(entry.getAttribute(AD_SN)).isEqualTo(singletonAttribute(AD_SN, "d"));
+
+        final Iterator<Attribute> attributes = entry.getAllAttributes().iterator();
+        attributes.next();
+        attributes.remove();
+        assertThat(entry.getAttribute("objectClass")).isNull();
+        assertThat(entry).isEqualTo(new LinkedHashMapEntry("dn: cn=test", "cn: test", "sn: d"));
+    }
+
+    @Test
+    public void testCompactEntryDecodedFromLdap() throws Exception {
+        final Entry expected =
+                new LinkedHashMapEntry("dn: cn=test", "objectClass: top", "cn: test", "sn: a", "sn: b");
+        final ByteStringBuilder builder = new ByteStringBuilder();
+        LDAP.writeEntry(ASN1.getWriter(builder), expected);
+        final Entry entry =
+                LDAP.readEntry(ASN1.getReader(builder), new DecodeOptions().setEntryFactory(CompactEntry.FACTORY));
+        assertThat(entry).isInstanceOf(CompactEntry.class);
+        assertThat(entry).isEqualTo(expected);
+    }
+
     private Entry createTestEntry(final EntryFactory factory) throws Exception {
         return factory.newEntry("dn: cn=test", "objectClass: top", "objectClass: extensibleObject",
                 "cn: test", "custom1: custom1");
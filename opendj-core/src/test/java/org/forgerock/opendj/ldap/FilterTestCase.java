@@ -13,6 +13,7 @@
  *
  * Copyright 2010 Sun Microsystems, Inc.
  * Portions copyright 2011-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.opendj.ldap;
@@ -258,6 +259,59 @@ public class FilterTestCase extends SdkTestCase {
         assertTrue(matcher.matches(entry).toBoolean());
     }
 
+    @Test
+    public void testMatcherEvaluatesCheapestComponentsFirst() throws Exception {
+        final Matcher matcher = Filter.valueOf("(&(cn=*smith*)(sn=smith)(objectClass=*))").matcher();
+        assertTrue(matcher.toString().startsWith("and(present(objectClass)assertion("), matcher.toString());
+        assertTrue(matcher.toString().indexOf("attributeDescription=sn")
+                < matcher.toString().indexOf("attributeDescription=cn"), matcher.toString());
+    }
+
+    @Test
+    public void testMatcherFlattensNestedFilters() throws Exception {
+        final Matcher matcher =
+                Filter.valueOf("(&(&(cn=a)(sn=b))(&(uid=c)(&(mail=d)(ou=e))))").matcher();
+        assertEquals(matcher.toString().split("and\\(").length, 2, matcher.toString());
+    }
+
+    @DataProvider
+    public Object[][] constantFilters() {
+        return new Object[][] {
+            { "(|(cn=a)(&))", "true" },
+            { "(&(cn=a)(|))", "false" },
+            { "(&(&)(objectClass=*))", "present(objectClass)" },
+            { "(|(|)(objectClass=*))", "present(objectClass)" },
+            { "(!(!(objectClass=*)))", "present(objectClass)" },
+            { "(!(&))", "false" },
+            { "(!(cn:1.2.3.4:=a))", "undefined" },
+        };
+    }
+
+    @Test(dataProvider = "constantFilters")
+    public void testMatcherFoldsConstantFilters(final String filter, final String expectedMatcher) throws Exception {
+        assertEquals(Filter.valueOf(filter).matcher().toString(), expectedMatcher);
+    }
+
+    @DataProvider
+    public Object[][] reorderedFilters() {
+        return new Object[][] {
+            // The undefined component is evaluated first, but does not change the result.
+            { "(&(cn:1.2.3.4:=a)(cn=b))", ConditionResult.FALSE },
+            { "(&(cn:1.2.3.4:=a)(cn=a))", ConditionResult.UNDEFINED },
+            { "(|(cn:1.2.3.4:=a)(cn=a))", ConditionResult.TRUE },
+            { "(|(cn:1.2.3.4:=a)(cn=b))", ConditionResult.UNDEFINED },
+            { "(&(cn=*a*)(!(sn=b))(objectClass=top))", ConditionResult.TRUE },
+            { "(|(cn=*b*)(&(sn=b)(objectClass=*))(uid=*))", ConditionResult.FALSE },
+        };
+    }
+
+    @Test(dataProvider = "reorderedFilters")
+    public void testMatcherReorderingPreservesResults(final String filter, final ConditionResult expected)
+            throws Exception {
+        final Entry entry = new LinkedHashMapEntry("dn: cn=a", "objectClass: top", "cn: a", "sn: a");
+        assertEquals(Filter.valueOf(filter).matcher().matches(entry), expected);
+    }
+
     @DataProvider
     public Object[][] getAssertionValues() {
         // Use List for assertion values instead of an array because a List has a
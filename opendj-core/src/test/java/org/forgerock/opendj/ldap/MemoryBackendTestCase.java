@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.ldap;
 
@@ -20,10 +21,18 @@ import static org.forgerock.opendj.ldap.Connections.*;
 import static org.forgerock.opendj.ldap.requests.Requests.*;
 import static org.forgerock.opendj.ldif.LDIFEntryReader.*;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.forgerock.opendj.ldap.controls.AssertionRequestControl;
 import org.forgerock.opendj.ldap.controls.PermissiveModifyRequestControl;
@@ -33,9 +42,12 @@ import org.forgerock.opendj.ldap.controls.PreReadRequestControl;
 import org.forgerock.opendj.ldap.controls.PreReadResponseControl;
 import org.forgerock.opendj.ldap.controls.SimplePagedResultsControl;
 import org.forgerock.opendj.ldap.requests.Requests;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.forgerock.opendj.ldap.schema.Schema;
 import org.forgerock.opendj.ldap.requests.SearchRequest;
 import org.forgerock.opendj.ldap.responses.Result;
 import org.forgerock.opendj.ldap.responses.SearchResultEntry;
+import org.forgerock.opendj.ldif.ChangeRecord;
 import org.forgerock.opendj.ldif.ConnectionEntryReader;
 import org.forgerock.opendj.ldif.LDIFEntryReader;
 import org.testng.annotations.DataProvider;
@@ -609,6 +621,270 @@ public class MemoryBackendTestCase extends SdkTestCase {
         assertThat(backend.numSubordinates("dc=c,dc=b,dc=a")).isEqualTo(0); // doesn't exist
     }
 
+    @DataProvider
+    public Object[][] indexedSearchFilters() {
+        return new Object[][] {
+            { "(uid=test1)" },
+            { "(uid=TEST2)" },
+            { "(uid=missing)" },
+            { "(cn=test user*)" },
+            { "(cn=*user 3)" },
+            { "(cn=*st*er*)" },
+            { "(sn=*)" },
+            { "(uid>=test3)" },
+            { "(uid<=test2)" },
+            { "(cn~=test user 4)" },
+            { "(|(uid=test1)(uid=test2))" },
+            { "(|(uid=test1)(description=*))" },
+            { "(&(objectClass=person)(uid=test1))" },
+            { "(&(objectClass=person)(!(uid=test1)))" },
+            { "(!(uid=test1))" },
+            { "(uid:caseExactMatch:=test1)" },
+        };
+    }
+
+    @Test(dataProvider = "indexedSearchFilters")
+    public void testIndexedSearchReturnsSameEntriesAsUnindexedSearch(final String filter) throws Exception {
+        final MemoryBackend indexedBackend = getMemoryBackend().addIndex("uid").addIndex("cn").addIndex("sn");
+        assertThat(searchDNs(indexedBackend, filter)).isEqualTo(searchDNs(getMemoryBackend(), filter));
+    }
+
+    @Test
+    public void testIndexIsUpdatedByWriteOperations() throws Exception {
+        final MemoryBackend backend = getMemoryBackend().addIndex("description");
+        final Connection connection = newInternalConnection(backend);
+        assertThat(searchDNs(backend, "(description=indexed)")).isEmpty();
+
+        connection.modify("dn: uid=test1,ou=People,dc=example,dc=com", "changetype: modify",
+                "add: description", "description: indexed");
+        assertThat(searchDNs(backend, "(description=indexed)")).containsOnly("uid=test1,ou=People,dc=example,dc=com");
+
+        connection.modify("dn: uid=test1,ou=People,dc=example,dc=com", "changetype: modify",
+                "replace: description", "description: reindexed");
+        assertThat(searchDNs(backend, "(description=indexed)")).isEmpty();
+        assertThat(searchDNs(backend, "(description=re*)")).containsOnly("uid=test1,ou=People,dc=example,dc=com");
+
+        connection.delete("uid=test1,ou=People,dc=example,dc=com");
+        assertThat(searchDNs(backend, "(description=*)")).isEmpty();
+
+        connection.add("dn: uid=test6,ou=People,dc=example,dc=com", "objectClass: top", "objectClass: person",
+                "uid: test6", "cn: test user 6", "sn: user 6", "description: indexed");
+        assertThat(searchDNs(backend, "(description=indexed)")).containsOnly("uid=test6,ou=People,dc=example,dc=com");
+    }
+
+    @Test
+    public void testIndexedSearchesDoNotMissConcurrentlyModifiedEntries() throws Exception {
+        final MemoryBackend backend = getMemoryBackend().addIndex("uid").addIndex("description");
+        final Connection connection = newInternalConnection(backend);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Void> writer = executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    for (int i = 0; i < 1000; i++) {
+                        connection.modify("dn: uid=test1,ou=People,dc=example,dc=com", "changetype: modify",
+                                "replace: description", "description: " + i);
+                    }
+                    return null;
+                }
+            });
+            while (!writer.isDone()) {
+                assertThat(searchDNs(backend, "(uid=test1)")).containsOnly("uid=test1,ou=People,dc=example,dc=com");
+            }
+            writer.get();
+            assertThat(searchDNs(backend, "(description=999)"))
+                    .containsOnly("uid=test1,ou=People,dc=example,dc=com");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentWritesToSuperiorAndSubordinateEntries() throws Exception {
+        final MemoryBackend backend = getMemoryBackend();
+        final Connection connection = newInternalConnection(backend);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 200; i++) {
+                final String parentDN = "ou=parent" + i + ",dc=example,dc=com";
+                final String childDN = "ou=child," + parentDN;
+                connection.add("dn: " + parentDN, "objectClass: top", "objectClass: organizationalUnit",
+                        "ou: parent" + i);
+
+                final CyclicBarrier barrier = new CyclicBarrier(2);
+                final Future<ResultCode> add = executor.submit(applyChange(barrier, connection, newAddRequest(
+                        "dn: " + childDN, "objectClass: top", "objectClass: organizationalUnit", "ou: child")));
+                final Future<ResultCode> delete =
+                        executor.submit(applyChange(barrier, connection, newDeleteRequest(parentDN)));
+
+                // Either the child is added before its parent is deleted, or the parent is deleted first.
+                if (add.get() == ResultCode.SUCCESS) {
+                    assertThat(delete.get()).isEqualTo(ResultCode.NOT_ALLOWED_ON_NONLEAF);
+                    assertThat(backend.contains(DN.valueOf(parentDN))).isTrue();
+                    assertThat(backend.contains(DN.valueOf(childDN))).isTrue();
+                } else {
+                    assertThat(add.get()).isEqualTo(ResultCode.NO_SUCH_OBJECT);
+                    assertThat(delete.get()).isEqualTo(ResultCode.SUCCESS);
+                    assertThat(backend.contains(DN.valueOf(parentDN))).isFalse();
+                    assertThat(backend.contains(DN.valueOf(childDN))).isFalse();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentWritesToDisjointSubtrees() throws Exception {
+        final MemoryBackend backend = getMemoryBackend();
+        final Connection connection = newInternalConnection(backend);
+        final int nbThreads = 4;
+        final int nbEntriesPerThread = 100;
+        final ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+        try {
+            final CyclicBarrier barrier = new CyclicBarrier(nbThreads);
+            final List<Future<Void>> writers = new ArrayList<>();
+            for (int i = 0; i < nbThreads; i++) {
+                final String parentDN = "ou=subtree" + i + ",dc=example,dc=com";
+                connection.add("dn: " + parentDN, "objectClass: top", "objectClass: organizationalUnit",
+                        "ou: subtree" + i);
+                writers.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        barrier.await();
+                        for (int j = 0; j < nbEntriesPerThread; j++) {
+                            connection.add("dn: ou=entry" + j + "," + parentDN, "objectClass: top",
+                                    "objectClass: organizationalUnit", "ou: entry" + j);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (final Future<Void> writer : writers) {
+                writer.get();
+            }
+            assertThat(backend.size()).isEqualTo(numberOfEntriesInBackend + nbThreads * (nbEntriesPerThread + 1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testIndexKeepsTheSizesOfItsCandidateSets() throws Exception {
+        final Schema schema = Schema.getDefaultSchema();
+        final AttributeType description = schema.getAttributeType("description");
+        final MemoryBackendIndex index = new MemoryBackendIndex(description, schema);
+        final Entry entry1 = new LinkedHashMapEntry("dn: cn=1", "objectClass: top", "description: a");
+        final Entry entry2 = new LinkedHashMapEntry("dn: cn=2", "objectClass: top", "description: a");
+        index.addEntry(entry1);
+        index.addEntry(entry2);
+        // Adding an entry again does not count it twice.
+        index.replaceEntry(entry2, entry2);
+        assertThat(candidatesSize(index, "(description=*)")).isEqualTo(2);
+        assertThat(candidatesSize(index, "(description=a)")).isEqualTo(2);
+
+        index.replaceEntry(entry2, new LinkedHashMapEntry("dn: cn=2", "objectClass: top", "description: b"));
+        assertThat(candidatesSize(index, "(description=*)")).isEqualTo(2);
+        assertThat(candidatesSize(index, "(description=a)")).isEqualTo(1);
+        assertThat(candidatesSize(index, "(description=b)")).isEqualTo(1);
+        assertThat(candidatesSize(index, "(&(description=*)(description=b))")).isEqualTo(1);
+
+        index.removeEntry(entry1);
+        assertThat(candidatesSize(index, "(description=*)")).isEqualTo(1);
+        assertThat(candidatesSize(index, "(description=a)")).isEqualTo(0);
+    }
+
+    private static int candidatesSize(final MemoryBackendIndex index, final String filter) {
+        final Schema schema = Schema.getDefaultSchema();
+        return MemoryBackendIndex.getCandidates(Filter.valueOf(filter),
+                Collections.singletonMap(schema.getAttributeType("description"), index), schema).size();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAddIndexRejectsVirtualAttributes() throws Exception {
+        getMemoryBackend().addIndex("numSubordinates");
+    }
+
+    @Test
+    public void testPersistence() throws Exception {
+        final File directory = Files.createTempDirectory("memory-backend").toFile();
+        try {
+            final MemoryBackend backend = getMemoryBackend().enablePersistence(directory);
+            final Connection connection = newInternalConnection(backend);
+            connection.modify("dn: uid=test1,ou=People,dc=example,dc=com", "changetype: modify",
+                    "replace: cn", "cn: modified user 1");
+            connection.add(newDomain());
+            connection.delete("uid=test2,ou=People,dc=example,dc=com");
+            backend.disablePersistence();
+
+            final MemoryBackend restoredBackend = new MemoryBackend().enablePersistence(directory);
+            assertThat(restoredBackend.size()).isEqualTo(backend.size());
+            for (final Entry entry : backend.getAll()) {
+                assertThat(new LinkedHashMapEntry(restoredBackend.get(entry.getName()))).isEqualTo(entry);
+            }
+            assertThat(restoredBackend.contains(DN.valueOf("uid=test2,ou=People,dc=example,dc=com"))).isFalse();
+            restoredBackend.disablePersistence();
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void testPersistenceSnapshotCompactsChangeLog() throws Exception {
+        final File directory = Files.createTempDirectory("memory-backend").toFile();
+        try {
+            final MemoryBackend backend = getMemoryBackend().enablePersistence(directory);
+            newInternalConnection(backend).delete("uid=test2,ou=People,dc=example,dc=com");
+            assertThat(new File(directory, "changes-1.ldif").length()).isGreaterThan(0);
+
+            backend.snapshot();
+            assertThat(directory.list()).containsOnly("snapshot-2.ldif", "changes-2.ldif");
+            assertThat(new File(directory, "changes-2.ldif").length()).isEqualTo(0);
+            backend.disablePersistence();
+
+            assertThat(new MemoryBackend().enablePersistence(directory).disablePersistence().size())
+                    .isEqualTo(numberOfEntriesInBackend - 1);
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    private static List<String> searchDNs(final MemoryBackend backend, final String filter) throws Exception {
+        final List<SearchResultEntry> entries = new ArrayList<>();
+        newInternalConnection(backend).search(
+                Requests.newSearchRequest("dc=com", SearchScope.WHOLE_SUBTREE, filter), entries);
+        final List<String> dns = new ArrayList<>();
+        for (final SearchResultEntry entry : entries) {
+            dns.add(entry.getName().toString());
+        }
+        return dns;
+    }
+
+    private static Callable<ResultCode> applyChange(final CyclicBarrier barrier, final Connection connection,
+            final ChangeRecord change) {
+        return new Callable<ResultCode>() {
+            @Override
+            public ResultCode call() throws Exception {
+                barrier.await();
+                try {
+                    return connection.applyChange(change).getResultCode();
+                } catch (final LdapException e) {
+                    return e.getResult().getResultCode();
+                }
+            }
+        };
+    }
+
+    private static void deleteDirectory(final File directory) {
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
     private Connection getConnection() throws IOException {
         return newInternalConnection(getMemoryBackend());
     }
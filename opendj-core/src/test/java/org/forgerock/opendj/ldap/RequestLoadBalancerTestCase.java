@@ -13,7 +13,7 @@
  *
  * Copyright 2016 ForgeRock AS.
  * Portions Copyright 2021 Wren Security.
- * Portions Copyright 2022 Wren Security
+ * Portions Copyright 2022-2026 Wren Security
  */
 package org.forgerock.opendj.ldap;
 
@@ -26,6 +26,7 @@ import static org.forgerock.opendj.ldap.responses.Responses.newBindResult;
 import static org.forgerock.opendj.ldap.responses.Responses.newCompareResult;
 import static org.forgerock.opendj.ldap.responses.Responses.newGenericExtendedResult;
 import static org.forgerock.opendj.ldap.responses.Responses.newResult;
+import static org.forgerock.opendj.ldap.responses.Responses.newSearchResultEntry;
 import static org.forgerock.opendj.ldap.spi.LdapPromises.newSuccessfulLdapPromise;
 import static org.forgerock.util.Options.defaultOptions;
 import static org.mockito.ArgumentMatchers.any;
@@ -34,12 +35,16 @@ import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
 import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import org.forgerock.opendj.ldap.RequestLoadBalancer.PartitionedRequest;
@@ -54,9 +59,14 @@ import org.forgerock.opendj.ldap.requests.ModifyDNRequest;
 import org.forgerock.opendj.ldap.requests.ModifyRequest;
 import org.forgerock.opendj.ldap.requests.Request;
 import org.forgerock.opendj.ldap.requests.SearchRequest;
+import org.forgerock.opendj.ldap.responses.Result;
+import org.forgerock.opendj.ldap.responses.SearchResultEntry;
+import org.forgerock.opendj.ldap.spi.LdapPromises;
 import org.forgerock.util.Function;
 import org.forgerock.util.promise.NeverThrowsException;
+import org.forgerock.util.promise.PromiseImpl;
 import org.forgerock.util.promise.Promises;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -805,6 +815,146 @@ public class RequestLoadBalancerTestCase extends SdkTestCase {
         verifyNoInteractions(connection3);
     }
 
+    @Test
+    public void hedgedSearchShouldOnlyReturnEntriesFromTheFirstAttemptToRespond() throws Exception {
+        configureAllFactoriesOnline();
+        final PromiseImpl<Result, LdapException> primary = stubCancellableSearch(connection1);
+        final PromiseImpl<Result, LdapException> hedge = stubCancellableSearch(connection2);
+        useHedgingLoadBalancer(newHedgingDispatcher());
+        final SearchResultHandler handler = mock(SearchResultHandler.class);
+        when(handler.handleEntry(any(SearchResultEntry.class))).thenReturn(true);
+        final SearchResultEntry primaryEntry = newSearchResultEntry("cn=primary");
+        final SearchResultEntry hedgeEntry = newSearchResultEntry("cn=hedge");
+
+        try (Connection connection = loadBalancer.getConnectionAsync().get()) {
+            final LdapPromise<Result> promise = connection.searchAsync(searchRequest1, handler);
+            final SearchResultHandler primaryHandler = captureSearchResultHandler(connection1);
+            final SearchResultHandler hedgeHandler = captureSearchResultHandler(connection2);
+
+            // The hedge responds first, so it wins and the primary attempt is abandoned.
+            assertThat(hedgeHandler.handleEntry(hedgeEntry)).isTrue();
+            assertThat(primary.isCancelled()).isTrue();
+            assertThat(primaryHandler.handleEntry(primaryEntry)).isFalse();
+            assertThat(hedgeHandler.handleEntry(hedgeEntry)).isTrue();
+
+            hedge.handleResult(newResult(ResultCode.SUCCESS));
+            assertThat(promise.getOrThrow().getResultCode()).isEqualTo(ResultCode.SUCCESS);
+        }
+        verify(handler, times(2)).handleEntry(hedgeEntry);
+        verify(handler, never()).handleEntry(primaryEntry);
+        verifyNoInteractions(connection3);
+    }
+
+    @Test
+    public void hedgedSearchShouldAbandonTheLosingAttempt() throws Exception {
+        configureAllFactoriesOnline();
+        final PromiseImpl<Result, LdapException> primary = stubCancellableSearch(connection1);
+        final PromiseImpl<Result, LdapException> hedge = stubCancellableSearch(connection2);
+        final LatencyAwareDispatcher dispatcher = newHedgingDispatcher();
+        useHedgingLoadBalancer(dispatcher);
+
+        try (Connection connection = loadBalancer.getConnectionAsync().get()) {
+            final LdapPromise<Result> promise = connection.searchAsync(searchRequest1, mock(SearchResultHandler.class));
+            captureSearchResultHandler(connection1);
+            final SearchResultHandler hedgeHandler = captureSearchResultHandler(connection2);
+
+            primary.handleResult(newResult(ResultCode.SUCCESS));
+            assertThat(promise.getOrThrow().getResultCode()).isEqualTo(ResultCode.SUCCESS);
+            assertThat(hedge.isCancelled()).isTrue();
+            assertThat(hedgeHandler.handleEntry(newSearchResultEntry("cn=hedge"))).isFalse();
+        }
+        // Only the winner's response time is taken into account.
+        assertThat(dispatcher.getEwmaLatencyNanos(0)).isGreaterThan(0);
+        assertThat(dispatcher.getEwmaLatencyNanos(1)).isEqualTo(PRIMING_LATENCY_NANOS);
+    }
+
+    @Test
+    public void cancellingHedgedSearchShouldCancelAllAttempts() throws Exception {
+        configureAllFactoriesOnline();
+        final PromiseImpl<Result, LdapException> primary = stubCancellableSearch(connection1);
+        final PromiseImpl<Result, LdapException> hedge = stubCancellableSearch(connection2);
+        useHedgingLoadBalancer(newHedgingDispatcher());
+
+        try (Connection connection = loadBalancer.getConnectionAsync().get()) {
+            final LdapPromise<Result> promise = connection.searchAsync(searchRequest1, mock(SearchResultHandler.class));
+            captureSearchResultHandler(connection1);
+            captureSearchResultHandler(connection2);
+
+            promise.cancel(true);
+            assertThat(promise.isCancelled()).isTrue();
+            assertThat(primary.isCancelled()).isTrue();
+            assertThat(hedge.isCancelled()).isTrue();
+        }
+    }
+
+    @Test
+    public void hedgedSearchShouldNotBeSentToTheServerUsedByThePrimaryAttempt() throws Exception {
+        configureFactoryOneOffline();
+        final PromiseImpl<Result, LdapException> primary = stubCancellableSearch(connection2);
+        stubCancellableSearch(connection3);
+        final LatencyAwareDispatcher dispatcher = newHedgingDispatcher();
+        useHedgingLoadBalancer(dispatcher);
+
+        try (Connection connection = loadBalancer.getConnectionAsync().get()) {
+            final LdapPromise<Result> promise = connection.searchAsync(searchRequest1, mock(SearchResultHandler.class));
+            // The first server is offline, so the primary attempt fails over to the second one.
+            captureSearchResultHandler(connection2);
+            // The second server is preferred for hedging, but it is already processing the primary attempt.
+            captureSearchResultHandler(connection3);
+            verify(connection2, times(1)).searchAsync(same(searchRequest1), any(), any(SearchResultHandler.class));
+
+            primary.handleResult(newResult(ResultCode.SUCCESS));
+            assertThat(promise.getOrThrow().getResultCode()).isEqualTo(ResultCode.SUCCESS);
+        }
+        // The response time is taken into account for the server which processed the request.
+        assertThat(dispatcher.getEwmaLatencyNanos(0)).isEqualTo(0);
+        assertThat(dispatcher.getEwmaLatencyNanos(1)).isGreaterThan(PRIMING_LATENCY_NANOS);
+        verifyNoInteractions(connection1);
+    }
+
+    /** The response time of the requests used for priming the dispatchers of the hedging load balancers. */
+    private static final long PRIMING_LATENCY_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+
+    /**
+     * Returns a dispatcher which hedges requests after the minimum hedging delay and which prefers hedging requests
+     * to the second server.
+     */
+    private LatencyAwareDispatcher newHedgingDispatcher() {
+        final LatencyAwareDispatcher dispatcher =
+                new LatencyAwareDispatcher(3, TimeUnit.MINUTES.toNanos(1), 5.0, 50.0);
+        for (int i = 0; i < 100; i++) {
+            dispatcher.requestCompleted(1, PRIMING_LATENCY_NANOS, false);
+        }
+        return dispatcher;
+    }
+
+    private void useHedgingLoadBalancer(final LatencyAwareDispatcher dispatcher) {
+        loadBalancer.close();
+        loadBalancer = new RequestLoadBalancer("Test",
+                                               asList(factory1, factory2, factory3),
+                                               defaultOptions(), newNextFactoryFunction(),
+                                               Connections.NOOP_END_OF_REQUEST_FUNCTION, dispatcher);
+    }
+
+    private PromiseImpl<Result, LdapException> stubCancellableSearch(final Connection connection) {
+        final PromiseImpl<Result, LdapException> promise = new PromiseImpl<Result, LdapException>() {
+            @Override
+            protected LdapException tryCancel(final boolean mayInterruptIfRunning) {
+                return newLdapException(ResultCode.CLIENT_SIDE_USER_CANCELLED);
+            }
+        };
+        when(connection.searchAsync(any(SearchRequest.class), any(), any(SearchResultHandler.class)))
+                .thenReturn(LdapPromises.asPromise(promise));
+        return promise;
+    }
+
+    /** Waits for the provided connection to receive the search and returns its search result handler. */
+    private SearchResultHandler captureSearchResultHandler(final Connection connection) {
+        final ArgumentCaptor<SearchResultHandler> handler = ArgumentCaptor.forClass(SearchResultHandler.class);
+        verify(connection, timeout(10000)).searchAsync(same(searchRequest1), any(), handler.capture());
+        return handler.getValue();
+    }
+
     @Mock private ConnectionFactory factory1;
     @Mock private ConnectionFactory factory2;
     @Mock private ConnectionFactory factory3;
@@ -923,6 +1073,16 @@ public class RequestLoadBalancerTestCase extends SdkTestCase {
                 .thenReturn(Promises.<Connection, LdapException>newResultPromise(connection3));
     }
 
+    private void configureFactoryOneOffline() {
+        final LdapException connectionFailure = newLdapException(CLIENT_SIDE_CONNECT_ERROR);
+        when(factory1.getConnectionAsync())
+                .thenReturn(Promises.<Connection, LdapException>newExceptionPromise(connectionFailure));
+        when(factory2.getConnectionAsync())
+                .thenReturn(Promises.<Connection, LdapException>newResultPromise(connection2));
+        when(factory3.getConnectionAsync())
+                .thenReturn(Promises.<Connection, LdapException>newResultPromise(connection3));
+    }
+
     private void configureFactoriesOneAndTwoOffline() {
         final LdapException connectionFailure = newLdapException(CLIENT_SIDE_CONNECT_ERROR);
         when(factory1.getConnectionAsync())
@@ -0,0 +1,326 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.ldap;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.forgerock.opendj.ldap.Connections.newInternalConnection;
+import static org.forgerock.opendj.ldap.requests.Requests.newSearchRequest;
+import static org.forgerock.opendj.ldap.responses.Responses.newResult;
+import static org.forgerock.opendj.ldap.responses.Responses.newSearchResultEntry;
+import static org.forgerock.opendj.ldap.spi.LdapPromises.asPromise;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.forgerock.opendj.ldap.requests.SearchRequest;
+import org.forgerock.opendj.ldap.responses.Result;
+import org.forgerock.opendj.ldap.responses.SearchResultEntry;
+import org.forgerock.opendj.ldap.spi.FlowControlledSearchResultHandler;
+import org.forgerock.opendj.ldap.spi.ReadFlowControl;
+import org.forgerock.opendj.ldif.EntryReader;
+import org.forgerock.opendj.ldif.LDIFEntryReader;
+import org.forgerock.util.promise.ExceptionHandler;
+import org.forgerock.util.promise.PromiseImpl;
+import org.forgerock.util.promise.ResultHandler;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.testng.annotations.Test;
+
+/** Tests the {@link SearchResultPublisher} class. */
+@SuppressWarnings("javadoc")
+public class SearchResultPublisherTestCase extends SdkTestCase {
+    private static final SearchRequest SEARCH_ALL =
+            newSearchRequest("dc=example,dc=com", SearchScope.WHOLE_SUBTREE, "(objectClass=*)");
+
+    @Test
+    public void testEntriesAreOnlyDeliveredOnDemand() throws Exception {
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        new SearchResultPublisher(getConnection(), SEARCH_ALL).subscribe(subscriber);
+        assertThat(subscriber.entries).isEmpty();
+
+        subscriber.subscription.request(2);
+        assertThat(subscriber.entries).hasSize(2);
+        assertThat(subscriber.completed).isFalse();
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertThat(subscriber.entries).hasSize(4);
+        assertThat(subscriber.completed).isTrue();
+        assertThat(subscriber.error).isNull();
+    }
+
+    @Test
+    public void testSearchFailureIsSignalled() throws Exception {
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        final SearchRequest request =
+                newSearchRequest("dc=missing,dc=com", SearchScope.WHOLE_SUBTREE, "(objectClass=*)");
+        new SearchResultPublisher(getConnection(), request).subscribe(subscriber);
+        // Errors do not depend on demand.
+        assertThat(subscriber.error).isInstanceOf(EntryNotFoundException.class);
+        assertThat(subscriber.completed).isFalse();
+    }
+
+    @Test
+    public void testNonPositiveRequestIsAnError() throws Exception {
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        new SearchResultPublisher(getConnection(), SEARCH_ALL).subscribe(subscriber);
+        subscriber.subscription.request(0);
+        assertThat(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+        assertThat(subscriber.entries).isEmpty();
+    }
+
+    @Test
+    public void testReadsAreSuspendedWhileSubscriberIsSlow() throws Exception {
+        final ReadFlowControl flowControl = mock(ReadFlowControl.class);
+        final PromiseImpl<Result, LdapException> searchResult = PromiseImpl.create();
+        final List<FlowControlledSearchResultHandler> handlers = new ArrayList<>();
+        final Connection connection = mock(Connection.class);
+        doAnswer(new Answer<LdapPromise<Result>>() {
+            @Override
+            public LdapPromise<Result> answer(final InvocationOnMock invocation) {
+                final FlowControlledSearchResultHandler handler = invocation.getArgument(1);
+                handler.setReadFlowControl(flowControl);
+                handlers.add(handler);
+                return asPromise(searchResult);
+            }
+        }).when(connection).searchAsync(any(SearchRequest.class), any(SearchResultHandler.class));
+
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        new SearchResultPublisher(connection, SEARCH_ALL).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        final FlowControlledSearchResultHandler handler = handlers.get(0);
+
+        assertThat(handler.handleEntry(newSearchResultEntry("uid=1"))).isTrue();
+        verifyNoMoreInteractions(flowControl);
+        assertThat(handler.handleEntry(newSearchResultEntry("uid=2"))).isTrue();
+        assertThat(handler.handleEntry(newSearchResultEntry("uid=3"))).isTrue();
+        verify(flowControl).suspendReads();
+        assertThat(subscriber.entries).hasSize(1);
+
+        subscriber.subscription.request(1);
+        verifyNoMoreInteractions(flowControl);
+        subscriber.subscription.request(2);
+        verify(flowControl).resumeReads();
+        assertThat(subscriber.entries).hasSize(3);
+
+        searchResult.handleResult(newResult(ResultCode.SUCCESS));
+        assertThat(subscriber.completed).isTrue();
+        verifyNoMoreInteractions(flowControl);
+    }
+
+    @Test
+    public void testReadsAreResumedWhenResultIsReceivedWhileSuspended() throws Exception {
+        final ReadFlowControl flowControl = mock(ReadFlowControl.class);
+        final PromiseImpl<Result, LdapException> searchResult = PromiseImpl.create();
+        final List<FlowControlledSearchResultHandler> handlers = new ArrayList<>();
+        final Connection connection = mock(Connection.class);
+        doAnswer(new Answer<LdapPromise<Result>>() {
+            @Override
+            public LdapPromise<Result> answer(final InvocationOnMock invocation) {
+                final FlowControlledSearchResultHandler handler = invocation.getArgument(1);
+                handler.setReadFlowControl(flowControl);
+                handlers.add(handler);
+                return asPromise(searchResult);
+            }
+        }).when(connection).searchAsync(any(SearchRequest.class), any(SearchResultHandler.class));
+
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        new SearchResultPublisher(connection, SEARCH_ALL).subscribe(subscriber);
+        final FlowControlledSearchResultHandler handler = handlers.get(0);
+        assertThat(handler.handleEntry(newSearchResultEntry("uid=1"))).isTrue();
+        verify(flowControl).suspendReads();
+
+        // The result was decoded along with the entry, before reads were suspended.
+        searchResult.handleResult(newResult(ResultCode.SUCCESS));
+        assertThat(subscriber.completed).isFalse();
+        verifyNoMoreInteractions(flowControl);
+
+        subscriber.subscription.request(1);
+        assertThat(subscriber.entries).hasSize(1);
+        assertThat(subscriber.completed).isTrue();
+        verify(flowControl).resumeReads();
+        verifyNoMoreInteractions(flowControl);
+    }
+
+    @Test
+    public void testReadsAreResumedWhenSearchFailsWhileSuspended() throws Exception {
+        final ReadFlowControl flowControl = mock(ReadFlowControl.class);
+        final PromiseImpl<Result, LdapException> searchResult = PromiseImpl.create();
+        final List<FlowControlledSearchResultHandler> handlers = new ArrayList<>();
+        final Connection connection = mock(Connection.class);
+        doAnswer(new Answer<LdapPromise<Result>>() {
+            @Override
+            public LdapPromise<Result> answer(final InvocationOnMock invocation) {
+                final FlowControlledSearchResultHandler handler = invocation.getArgument(1);
+                handler.setReadFlowControl(flowControl);
+                handlers.add(handler);
+                return asPromise(searchResult);
+            }
+        }).when(connection).searchAsync(any(SearchRequest.class), any(SearchResultHandler.class));
+
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        new SearchResultPublisher(connection, SEARCH_ALL).subscribe(subscriber);
+        handlers.get(0).handleEntry(newSearchResultEntry("uid=1"));
+        verify(flowControl).suspendReads();
+
+        searchResult.handleException(LdapException.newLdapException(ResultCode.SIZE_LIMIT_EXCEEDED));
+        assertThat(subscriber.error).isInstanceOf(LdapException.class);
+        verify(flowControl).resumeReads();
+        verifyNoMoreInteractions(flowControl);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCancelResumesReadsAndAbandonsSearch() throws Exception {
+        final ReadFlowControl flowControl = mock(ReadFlowControl.class);
+        final LdapPromise<Result> searchResult = mock(LdapPromise.class);
+        when(searchResult.thenOnResult(any(ResultHandler.class))).thenReturn(searchResult);
+        when(searchResult.thenOnException(any(ExceptionHandler.class))).thenReturn(searchResult);
+        final List<FlowControlledSearchResultHandler> handlers = new ArrayList<>();
+        final Connection connection = mock(Connection.class);
+        doAnswer(new Answer<LdapPromise<Result>>() {
+            @Override
+            public LdapPromise<Result> answer(final InvocationOnMock invocation) {
+                final FlowControlledSearchResultHandler handler = invocation.getArgument(1);
+                handler.setReadFlowControl(flowControl);
+                handlers.add(handler);
+                return searchResult;
+            }
+        }).when(connection).searchAsync(any(SearchRequest.class), any(SearchResultHandler.class));
+
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        new SearchResultPublisher(connection, SEARCH_ALL).subscribe(subscriber);
+        final FlowControlledSearchResultHandler handler = handlers.get(0);
+        handler.handleEntry(newSearchResultEntry("uid=1"));
+        verify(flowControl).suspendReads();
+
+        subscriber.subscription.cancel();
+        verify(flowControl).resumeReads();
+        verify(searchResult).cancel(true);
+        assertThat(handler.handleEntry(newSearchResultEntry("uid=2"))).isFalse();
+        assertThat(subscriber.entries).isEmpty();
+        assertThat(subscriber.completed).isFalse();
+        assertThat(subscriber.error).isNull();
+    }
+
+    @Test
+    public void testEntryReader() throws Exception {
+        final EntryReader reader = new SearchResultPublisher(getConnection(), SEARCH_ALL).newEntryReader(1);
+        try {
+            int count = 0;
+            while (reader.hasNext()) {
+                assertThat(reader.readEntry()).isNotNull();
+                count++;
+            }
+            assertThat(count).isEqualTo(4);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        try (Stream<SearchResultEntry> entries = new SearchResultPublisher(getConnection(), SEARCH_ALL).stream(2)) {
+            assertThat(entries.map(e -> e.getName().toString()).collect(Collectors.toList())).containsExactly(
+                    "dc=example,dc=com", "ou=People,dc=example,dc=com",
+                    "uid=test1,ou=People,dc=example,dc=com", "uid=test2,ou=People,dc=example,dc=com");
+        }
+    }
+
+    @Test(expectedExceptions = UncheckedIOException.class)
+    public void testStreamFailure() throws Exception {
+        final SearchRequest request =
+                newSearchRequest("dc=missing,dc=com", SearchScope.WHOLE_SUBTREE, "(objectClass=*)");
+        try (Stream<SearchResultEntry> entries = new SearchResultPublisher(getConnection(), request).stream(2)) {
+            entries.count();
+        }
+    }
+
+    private Connection getConnection() throws IOException {
+        // @formatter:off
+        final MemoryBackend backend = new MemoryBackend(new LDIFEntryReader(
+            "dn: dc=com",
+            "objectClass: domain",
+            "objectClass: top",
+            "dc: com",
+            "",
+            "dn: dc=example,dc=com",
+            "objectClass: domain",
+            "objectClass: top",
+            "dc: example",
+            "",
+            "dn: ou=People,dc=example,dc=com",
+            "objectClass: organizationalunit",
+            "objectClass: top",
+            "ou: People",
+            "",
+            "dn: uid=test1,ou=People,dc=example,dc=com",
+            "objectClass: top",
+            "objectClass: person",
+            "uid: test1",
+            "cn: test user 1",
+            "sn: user 1",
+            "",
+            "dn: uid=test2,ou=People,dc=example,dc=com",
+            "objectClass: top",
+            "objectClass: person",
+            "uid: test2",
+            "cn: test user 2",
+            "sn: user 2"
+        ));
+        // @formatter:on
+        return newInternalConnection(backend);
+    }
+
+    /** Records the signals received from a publisher, without requesting anything by itself. */
+    private static final class RecordingSubscriber implements Subscriber<SearchResultEntry> {
+        private final List<SearchResultEntry> entries = new ArrayList<>();
+        private Subscription subscription;
+        private Throwable error;
+        private boolean completed;
+
+        @Override
+        public void onSubscribe(final Subscription s) {
+            subscription = s;
+        }
+
+        @Override
+        public void onNext(final SearchResultEntry entry) {
+            entries.add(entry);
+        }
+
+        @Override
+        public void onError(final Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.ldif;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.forgerock.opendj.ldap.Connections.newInternalConnection;
+import static org.forgerock.opendj.ldap.requests.Requests.newModifyRequest;
+import static org.forgerock.opendj.ldap.spi.LdapPromiseImpl.newLdapPromiseImpl;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.ldap.Connection;
+import org.forgerock.opendj.ldap.MemoryBackend;
+import org.forgerock.opendj.ldap.ModificationType;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.ldap.requests.ModifyRequest;
+import org.forgerock.opendj.ldap.requests.Requests;
+import org.forgerock.opendj.ldap.responses.Responses;
+import org.forgerock.opendj.ldap.responses.Result;
+import org.forgerock.opendj.ldap.spi.LdapPromiseImpl;
+import org.testng.annotations.Test;
+
+/** This class tests the PipelinedChangeRecordWriter functionality. */
+@SuppressWarnings("javadoc")
+public class PipelinedChangeRecordWriterTestCase extends AbstractLDIFTestCase {
+
+    @Test
+    public void testResultsAreAggregated() throws Exception {
+        final MemoryBackend backend = new MemoryBackend(new LDIFEntryReader(
+                "dn: dc=example,dc=com",
+                "objectClass: domain",
+                "objectClass: top",
+                "dc: example"));
+        try (PipelinedChangeRecordWriter writer =
+                new PipelinedChangeRecordWriter(newInternalConnection(backend), 4)) {
+            for (int i = 0; i < 10; i++) {
+                writer.writeChangeRecord(Requests.newAddRequest(
+                        "dn: uid=user." + i + ",dc=example,dc=com",
+                        "objectClass: person",
+                        "objectClass: top",
+                        "uid: user." + i,
+                        "cn: user " + i,
+                        "sn: " + i));
+            }
+            writer.flush();
+            final ModifyRequest failingModify = newModifyRequest("uid=missing,dc=example,dc=com")
+                    .addModification(ModificationType.REPLACE, "description", "missing");
+            writer.writeChangeRecord(failingModify);
+            writer.writeChangeRecord(Requests.newChangeRecord(
+                    "dn: uid=user.0,dc=example,dc=com",
+                    "changetype: modify",
+                    "replace: description",
+                    "description: modified"));
+            writer.flush();
+
+            assertThat(writer.getSuccessCount()).isEqualTo(11);
+            assertThat(writer.getFailureCount()).isEqualTo(1);
+            final List<PipelinedChangeRecordWriter.Failure> failures = writer.getFailures();
+            assertThat(failures.get(0).getChangeRecord()).isSameAs(failingModify);
+            assertThat(failures.get(0).getException().getResult().getResultCode())
+                    .isEqualTo(ResultCode.NO_SUCH_OBJECT);
+        }
+        assertThat(backend.get("uid=user.0,dc=example,dc=com").getAttribute("description").firstValueAsString())
+                .isEqualTo("modified");
+    }
+
+    @Test
+    public void testInFlightRequestsAreBounded() throws Exception {
+        final Connection connection = mock(Connection.class);
+        final LdapPromiseImpl<Result> firstResult = newLdapPromiseImpl();
+        final LdapPromiseImpl<Result> secondResult = newLdapPromiseImpl();
+        final LdapPromiseImpl<Result> thirdResult = newLdapPromiseImpl();
+        when(connection.deleteAsync(any())).thenReturn(firstResult, secondResult, thirdResult);
+
+        final PipelinedChangeRecordWriter writer = new PipelinedChangeRecordWriter(connection, 2);
+        writer.writeChangeRecord(Requests.newDeleteRequest("uid=user.0,dc=example,dc=com"));
+        writer.writeChangeRecord(Requests.newDeleteRequest("uid=user.1,dc=example,dc=com"));
+
+        final CountDownLatch thirdRequestWritten = new CountDownLatch(1);
+        final Thread writerThread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    writer.writeChangeRecord(Requests.newDeleteRequest("uid=user.2,dc=example,dc=com"));
+                    thirdRequestWritten.countDown();
+                } catch (final Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        writerThread.start();
+        assertThat(thirdRequestWritten.await(100, TimeUnit.MILLISECONDS)).isFalse();
+
+        firstResult.handleResult(Responses.newResult(ResultCode.SUCCESS));
+        assertThat(thirdRequestWritten.await(10, TimeUnit.SECONDS)).isTrue();
+        writerThread.join();
+
+        secondResult.handleResult(Responses.newResult(ResultCode.SUCCESS));
+        thirdResult.handleResult(Responses.newResult(ResultCode.SUCCESS));
+        writer.close();
+        assertThat(writer.getSuccessCount()).isEqualTo(3);
+        verify(connection).close();
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testWriteChangeRecordDoesntAllowNull() throws Exception {
+        try (PipelinedChangeRecordWriter writer = new PipelinedChangeRecordWriter(mock(Connection.class), 1)) {
+            writer.writeChangeRecord((ModifyRequest) null);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMaxInFlightRequestsMustBePositive() throws Exception {
+        new PipelinedChangeRecordWriter(mock(Connection.class), 0);
+    }
+}
@@ -13,12 +13,14 @@
  *
  * Copyright 2010 Sun Microsystems, Inc.
  * Portions copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.grizzly;
 
 import static com.forgerock.opendj.ldap.CoreMessages.*;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
@@ -31,6 +33,7 @@ import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ByteStringBuilder;
 import org.forgerock.opendj.ldap.DecodeException;
 import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.memory.ByteBufferWrapper;
 
 /** Grizzly ASN1 reader implementation. */
 final class ASN1BufferReader extends AbstractASN1Reader {
@@ -136,6 +139,12 @@ final class ASN1BufferReader extends AbstractASN1Reader {
     private final int maxElementSize;
     private final Buffer buffer;
     private SequenceLimiter readLimiter;
+    /**
+     * The array backing the buffer when octet strings are returned as views over the content of the buffer, or
+     * {@code null} if they are copied.
+     */
+    private final byte[] sharedArray;
+    private final int sharedArrayOffset;
 
     /**
      * Creates a new ASN1 reader whose source is the provided buffer and
@@ -149,20 +158,61 @@ final class ASN1BufferReader extends AbstractASN1Reader {
      *            @{code {@link #close()} this reader will also dispose the buffer.
      */
     ASN1BufferReader(final int maxElementSize, final Buffer buffer) {
+        this(maxElementSize, buffer, false);
+    }
+
+    private ASN1BufferReader(final int maxElementSize, final Buffer buffer, final boolean shareArray) {
         this.readLimiter = new RootSequenceLimiter();
         this.buffer = buffer;
         this.maxElementSize = maxElementSize;
+        this.sharedArray = shareArray ? buffer.array() : null;
+        this.sharedArrayOffset = shareArray ? buffer.arrayOffset() : 0;
     }
 
     /**
-     * Closes this ASN.1 reader and the underlying {@link Buffer}.
+     * Creates a new ASN1 reader decoding a complete LDAP message, which remains readable once the provided buffer has
+     * been released to its memory manager.
+     * <p>
+     * The returned reader takes ownership of the provided buffer. In zero-copy mode, octet strings are returned as
+     * views over the bytes of the message rather than copied one by one. When the buffer is backed by an array, the
+     * array is then shared with the decoded values and the buffer is never disposed, so that the array cannot be
+     * recycled while the application still references some of the values: it is garbage collected along with the last
+     * one instead. Note that this array may be larger than the message, for instance when it is a chunk of a pool, and
+     * that retaining a single value retains the whole array. In all other cases the message is copied once into an
+     * array of its own and the buffer is disposed immediately.
+     *
+     * @param maxElementSize
+     *            The maximum BER element size, or <code>0</code> to indicate
+     *            that there is no limit.
+     * @param message
+     *            The buffer containing the message, which must not be used once this method returns.
+     * @param zeroCopy
+     *            {@code true} if octet strings should be views over the bytes of the message, or {@code false} if
+     *            they should be copied.
+     * @return The new ASN1 reader.
+     */
+    static ASN1BufferReader newMessageReader(final int maxElementSize, final Buffer message, final boolean zeroCopy) {
+        if (zeroCopy && message.hasArray()) {
+            return new ASN1BufferReader(maxElementSize, message, true);
+        }
+        final byte[] bytes = new byte[message.remaining()];
+        message.get(bytes);
+        message.tryDispose();
+        return new ASN1BufferReader(maxElementSize, new ByteBufferWrapper(ByteBuffer.wrap(bytes)), zeroCopy);
+    }
+
+    /**
+     * Closes this ASN.1 reader and the underlying {@link Buffer}, unless its content is shared with the decoded
+     * octet strings.
      *
      * @throws IOException
      *             if an I/O error occurs
      */
     @Override
     public void close() throws IOException {
-        buffer.tryDispose();
+        if (sharedArray == null) {
+            buffer.tryDispose();
+        }
     }
 
     /**
@@ -345,14 +395,22 @@ final class ASN1BufferReader extends AbstractASN1Reader {
         }
 
         readLimiter.checkLimit(peekLength);
-        // Copy the value and construct the element to return.
-        final byte[] value = new byte[peekLength];
-        buffer.get(value);
+        final ByteString value;
+        if (sharedArray != null) {
+            final int position = buffer.position();
+            value = ByteString.wrap(sharedArray, sharedArrayOffset + position, peekLength);
+            buffer.position(position + peekLength);
+        } else {
+            // Copy the value and construct the element to return.
+            final byte[] bytes = new byte[peekLength];
+            buffer.get(bytes);
+            value = ByteString.wrap(bytes);
+        }
 
         logger.trace("READ ASN.1 OCTETSTRING(type=0x%x, length=%d)", peekType, peekLength);
 
         state = ASN1.ELEMENT_READ_STATE_NEED_TYPE;
-        return ByteString.wrap(value);
+        return value;
     }
 
     @Override
@@ -367,9 +425,15 @@ final class ASN1BufferReader extends AbstractASN1Reader {
 
         readLimiter.checkLimit(peekLength);
         // Copy the value and construct the element to return.
-        // TODO: Is there a more efficient way to do this?
-        for (int i = 0; i < peekLength; i++) {
-            builder.appendByte(buffer.get());
+        if (sharedArray != null) {
+            final int position = buffer.position();
+            builder.appendBytes(sharedArray, sharedArrayOffset + position, peekLength);
+            buffer.position(position + peekLength);
+        } else {
+            // TODO: Is there a more efficient way to do this?
+            for (int i = 0; i < peekLength; i++) {
+                builder.appendByte(buffer.get());
+            }
         }
 
         logger.trace("READ ASN.1 OCTETSTRING(type=0x%x, length=%d)", peekType, peekLength);
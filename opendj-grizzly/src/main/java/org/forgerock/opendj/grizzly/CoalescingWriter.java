@@ -0,0 +1,187 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.grizzly;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.CompletionHandler;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.EmptyCompletionHandler;
+import org.glassfish.grizzly.WriteResult;
+import org.glassfish.grizzly.memory.Buffers;
+
+/**
+ * Coalesces the encoded LDAP messages written to a connection so that the
+ * messages written while a previous write is still in progress are sent using a
+ * single write.
+ * <p>
+ * Unlike Nagle's algorithm, messages are never delayed by a timer: a message is
+ * written immediately when no write is in progress, otherwise it is written as
+ * soon as the write in progress completes. A write remains in progress until
+ * the transport has accepted all its bytes, which is usually immediate, so
+ * messages only accumulate when several threads write concurrently or when the
+ * socket send buffer is full because the application pipelines many requests.
+ * <p>
+ * Messages are written in the order they were submitted. Closing the writer
+ * hands the messages still queued over to the transport before the last
+ * message, such as an unbind request, so that nothing is left behind when the
+ * connection is closed.
+ */
+final class CoalescingWriter {
+    /** The maximum number of bytes coalesced in a single write. */
+    private static final int MAX_BATCH_SIZE = 64 * 1024;
+
+    @SuppressWarnings("rawtypes")
+    private final Connection connection;
+    private final Queue<Buffer> pendingMessages = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean isWriting = new AtomicBoolean();
+    /**
+     * Held while a batch is polled and handed over to the transport, so that
+     * closing the writer cannot overtake a batch which has been polled but not
+     * written yet.
+     */
+    private final Object writeLock = new Object();
+    /** Guarded by {@link #writeLock}. */
+    private boolean isClosed;
+    /**
+     * The thread performing a write, if any. The transport usually completes
+     * writes before returning, in which case the writing thread sends the next
+     * batch itself rather than recursing from the completion handler.
+     */
+    private volatile Thread writingThread;
+
+    @SuppressWarnings("rawtypes")
+    private final CompletionHandler<WriteResult> completionHandler = new EmptyCompletionHandler<WriteResult>() {
+        @Override
+        public void completed(final WriteResult result) {
+            writeCompleted();
+        }
+
+        @Override
+        public void failed(final Throwable throwable) {
+            // The transport will close the connection and the LDAP filter will fail the pending requests.
+            writeCompleted();
+        }
+
+        @Override
+        public void cancelled() {
+            writeCompleted();
+        }
+    };
+
+    CoalescingWriter(final Connection<?> connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Writes the provided encoded message, or queues it if a write is already
+     * in progress. Ownership of the buffer is transferred to this writer.
+     *
+     * @param message
+     *            The encoded message.
+     */
+    void write(final Buffer message) {
+        pendingMessages.add(message);
+        flush();
+    }
+
+    /**
+     * Hands the queued messages followed by the provided last message over to
+     * the transport, without waiting for a write in progress to complete, and
+     * discards any message written afterwards. The transport writes the
+     * messages in order before the connection is gracefully closed.
+     * Ownership of the buffer is transferred to this writer.
+     *
+     * @param lastMessage
+     *            The last encoded message to write to the connection.
+     */
+    @SuppressWarnings("unchecked")
+    void close(final Buffer lastMessage) {
+        synchronized (writeLock) {
+            isClosed = true;
+            pendingMessages.add(lastMessage);
+            try {
+                Buffer batch;
+                while ((batch = pollBatch()) != null) {
+                    connection.write(batch, null);
+                }
+            } finally {
+                disposePendingMessages();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void flush() {
+        while (!pendingMessages.isEmpty() && isWriting.compareAndSet(false, true)) {
+            synchronized (writeLock) {
+                if (isClosed) {
+                    isWriting.set(false);
+                    disposePendingMessages();
+                    return;
+                }
+                final Buffer batch = pollBatch();
+                if (batch == null) {
+                    // Another thread has written the pending messages meanwhile.
+                    isWriting.set(false);
+                    continue;
+                }
+                final Thread currentThread = Thread.currentThread();
+                writingThread = currentThread;
+                try {
+                    connection.write(batch, completionHandler);
+                } catch (final RuntimeException | Error e) {
+                    // The completion handler will not be notified: let the next messages be written.
+                    batch.tryDispose();
+                    isWriting.set(false);
+                    throw e;
+                } finally {
+                    if (writingThread == currentThread) {
+                        writingThread = null;
+                    }
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Buffer pollBatch() {
+        Buffer batch = pendingMessages.poll();
+        Buffer message;
+        while (batch != null && batch.remaining() < MAX_BATCH_SIZE && (message = pendingMessages.poll()) != null) {
+            batch = Buffers.appendBuffers(connection.getMemoryManager(), batch, message, true);
+        }
+        return batch;
+    }
+
+    private void disposePendingMessages() {
+        Buffer message;
+        while ((message = pendingMessages.poll()) != null) {
+            message.tryDispose();
+        }
+    }
+
+    private void writeCompleted() {
+        isWriting.set(false);
+        if (writingThread != Thread.currentThread()) {
+            // The write has completed asynchronously: send the messages queued meanwhile.
+            flush();
+        }
+    }
+}
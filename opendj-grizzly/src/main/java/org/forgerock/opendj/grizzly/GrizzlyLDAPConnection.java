@@ -13,6 +13,7 @@
  *
  * Copyright 2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.grizzly;
 
@@ -71,7 +72,9 @@ import org.forgerock.opendj.ldap.responses.Responses;
 import org.forgerock.opendj.ldap.responses.Result;
 import org.forgerock.opendj.ldap.spi.BindResultLdapPromiseImpl;
 import org.forgerock.opendj.ldap.spi.ExtendedResultLdapPromiseImpl;
+import org.forgerock.opendj.ldap.spi.FlowControlledSearchResultHandler;
 import org.forgerock.opendj.ldap.spi.LDAPConnectionImpl;
+import org.forgerock.opendj.ldap.spi.ReadFlowControl;
 import org.forgerock.opendj.ldap.spi.ResultLdapPromiseImpl;
 import org.forgerock.opendj.ldap.spi.SearchResultLdapPromiseImpl;
 import org.forgerock.util.Options;
@@ -83,6 +86,8 @@ import org.glassfish.grizzly.CompletionHandler;
 import org.glassfish.grizzly.EmptyCompletionHandler;
 import org.glassfish.grizzly.filterchain.Filter;
 import org.glassfish.grizzly.filterchain.FilterChain;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.filterchain.NextAction;
 import org.glassfish.grizzly.ssl.SSLEngineConfigurator;
 import org.glassfish.grizzly.ssl.SSLFilter;
 
@@ -109,6 +114,7 @@ final class GrizzlyLDAPConnection implements LDAPConnectionImpl, TimeoutEventLis
     private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
     private final AtomicBoolean bindOrStartTLSInProgress = new AtomicBoolean(false);
     private final org.glassfish.grizzly.Connection<?> connection;
+    private final CoalescingWriter coalescingWriter;
     private final AtomicInteger nextMsgID = new AtomicInteger(1);
     private final GrizzlyLDAPConnectionFactory factory;
     private final ConcurrentHashMap<Integer, ResultLdapPromiseImpl<?, ?>> pendingRequests = new ConcurrentHashMap<>();
@@ -121,6 +127,71 @@ final class GrizzlyLDAPConnection implements LDAPConnectionImpl, TimeoutEventLis
     private boolean isFailed;
     private List<ConnectionEventListener> listeners;
 
+    private final Object readFlowLock = new Object();
+    /** Guarded by readFlowLock. */
+    private int readSuspendCount;
+    /** The read processing suspended by {@link #suspendReadIfRequested}, guarded by readFlowLock. */
+    private FilterChainContext suspendedReadContext;
+    /** The action completing the suspended read processing, guarded by readFlowLock. */
+    private NextAction suspendedReadAction;
+
+    /**
+     * Stops reading from the socket while at least one search result handler cannot keep up with the entries returned
+     * by the server, so that TCP flow control eventually slows the server down.
+     * <p>
+     * Disabling the read interest of the connection is not enough: Grizzly enables it again once the current read
+     * event has been processed, and the rest of the buffer already read would still be decoded. The LDAP filter
+     * instead suspends the processing of the read event after the message during which reads were suspended, which
+     * leaves the read interest disabled until the processing is resumed by the thread which resumes reads.
+     */
+    private final ReadFlowControl readFlowControl = new ReadFlowControl() {
+        @Override
+        public void suspendReads() {
+            synchronized (readFlowLock) {
+                readSuspendCount++;
+            }
+        }
+
+        @Override
+        public void resumeReads() {
+            final FilterChainContext context;
+            final NextAction action;
+            synchronized (readFlowLock) {
+                if (readSuspendCount == 0 || --readSuspendCount > 0 || suspendedReadContext == null) {
+                    return;
+                }
+                context = suspendedReadContext;
+                action = suspendedReadAction;
+                suspendedReadContext = null;
+                suspendedReadAction = null;
+            }
+            context.resume(action);
+        }
+    };
+
+    /**
+     * Suspends the processing of the provided read event if a search result handler suspended reads while the last
+     * message was decoded. The processing is resumed with the provided action once reads are resumed.
+     *
+     * @param context
+     *            The context of the read event being processed.
+     * @param resumeAction
+     *            The action completing the processing of the read event.
+     * @return {@code true} if the processing of the read event has been suspended, in which case the filter must
+     *         return the suspend action of the context.
+     */
+    boolean suspendReadIfRequested(final FilterChainContext context, final NextAction resumeAction) {
+        synchronized (readFlowLock) {
+            if (readSuspendCount == 0) {
+                return false;
+            }
+            context.suspend();
+            suspendedReadContext = context;
+            suspendedReadAction = resumeAction;
+            return true;
+        }
+    }
+
     /**
      * Create a LDAP Connection with provided Grizzly connection and LDAP
      * connection factory.
@@ -133,6 +204,7 @@ final class GrizzlyLDAPConnection implements LDAPConnectionImpl, TimeoutEventLis
     GrizzlyLDAPConnection(final org.glassfish.grizzly.Connection<?> connection,
             final GrizzlyLDAPConnectionFactory factory) {
         this.connection = connection;
+        this.coalescingWriter = new CoalescingWriter(connection);
         this.factory = factory;
         final Duration requestTimeout = factory.getLDAPOptions().get(REQUEST_TIMEOUT);
         this.requestTimeoutMS = requestTimeout.isUnlimited() ? 0 : requestTimeout.to(TimeUnit.MILLISECONDS);
@@ -191,7 +263,7 @@ final class GrizzlyLDAPConnection implements LDAPConnectionImpl, TimeoutEventLis
         try {
             final int messageID = nextMsgID.getAndIncrement();
             writer.writeAbandonRequest(messageID, request);
-            connection.write(writer.getASN1Writer().getBuffer(), null);
+            coalescingWriter.write(writer.getASN1Writer().getBuffer());
             return newSuccessfulLdapPromise((Void) null, messageID);
         } catch (final IOException e) {
             return newFailedLdapPromise(adaptRequestIOException(e));
@@ -217,7 +289,7 @@ final class GrizzlyLDAPConnection implements LDAPConnectionImpl, TimeoutEventLis
                         GrizzlyUtils.getWriter(connection.getMemoryManager(), LDAP_V3);
                 try {
                     writer.writeAddRequest(messageID, request);
-                    connection.write(writer.getASN1Writer().getBuffer(), null);
+                    coalescingWriter.write(writer.getASN1Writer().getBuffer());
                 } finally {
                     GrizzlyUtils.recycleWriter(writer);
                 }
@@ -294,7 +366,7 @@ final class GrizzlyLDAPConnection implements LDAPConnectionImpl, TimeoutEventLis
                     // using the bind request passed to this method.
                     final GenericBindRequest initialRequest = context.nextBindRequest();
                     writer.writeBindRequest(messageID, 3, initialRequest);
-                    connection.write(writer.getASN1Writer().getBuffer(), null);
+                    coalescingWriter.write(writer.getASN1Writer().getBuffer());
                 } finally {
                     GrizzlyUtils.recycleWriter(writer);
                 }
@@ -340,7 +412,7 @@ final class GrizzlyLDAPConnection implements LDAPConnectionImpl, TimeoutEventLis
                         GrizzlyUtils.getWriter(connection.getMemoryManager(), LDAP_V3);
                 try {
                     writer.writeCompareRequest(messageID, request);
-                    connection.write(writer.getASN1Writer().getBuffer(), null);
+                    coalescingWriter.write(writer.getASN1Writer().getBuffer());
                 } finally {
                     GrizzlyUtils.recycleWriter(writer);
                 }
@@ -371,7 +443,7 @@ final class GrizzlyLDAPConnection implements LDAPConnectionImpl, TimeoutEventLis
                         GrizzlyUtils.getWriter(connection.getMemoryManager(), LDAP_V3);
                 try {
                     writer.writeDeleteRequest(messageID, request);
-                    connection.write(writer.getASN1Writer().getBuffer(), null);
+                    coalescingWriter.write(writer.getASN1Writer().getBuffer());
                 } finally {
                     GrizzlyUtils.recycleWriter(writer);
                 }
@@ -418,7 +490,7 @@ final class GrizzlyLDAPConnection implements LDAPConnectionImpl, TimeoutEventLis
                         GrizzlyUtils.getWriter(connection.getMemoryManager(), LDAP_V3);
                 try {
                     writer.writeExtendedRequest(messageID, request);
-                    connection.write(writer.getASN1Writer().getBuffer(), null);
+                    coalescingWriter.write(writer.getASN1Writer().getBuffer());
                 } finally {
                     GrizzlyUtils.recycleWriter(writer);
                 }
@@ -464,7 +536,7 @@ final class GrizzlyLDAPConnection implements LDAPConnectionImpl, TimeoutEventLis
                         GrizzlyUtils.getWriter(connection.getMemoryManager(), LDAP_V3);
                 try {
                     writer.writeModifyRequest(messageID, request);
-                    connection.write(writer.getASN1Writer().getBuffer(), null);
+                    coalescingWriter.write(writer.getASN1Writer().getBuffer());
                 } finally {
                     GrizzlyUtils.recycleWriter(writer);
                 }
@@ -495,7 +567,7 @@ final class GrizzlyLDAPConnection implements LDAPConnectionImpl, TimeoutEventLis
                         GrizzlyUtils.getWriter(connection.getMemoryManager(), LDAP_V3);
                 try {
                     writer.writeModifyDNRequest(messageID, request);
-                    connection.write(writer.getASN1Writer().getBuffer(), null);
+                    coalescingWriter.write(writer.getASN1Writer().getBuffer());
                 } finally {
                     GrizzlyUtils.recycleWriter(writer);
                 }
@@ -525,6 +597,9 @@ final class GrizzlyLDAPConnection implements LDAPConnectionImpl, TimeoutEventLis
         final int messageID = nextMsgID.getAndIncrement();
         final SearchResultLdapPromiseImpl promise =
                 newSearchLdapPromise(messageID, request, entryHandler, intermediateResponseHandler, this);
+        if (entryHandler instanceof FlowControlledSearchResultHandler) {
+            ((FlowControlledSearchResultHandler) entryHandler).setReadFlowControl(readFlowControl);
+        }
         try {
             synchronized (stateLock) {
                 checkConnectionIsValid();
@@ -536,7 +611,7 @@ final class GrizzlyLDAPConnection implements LDAPConnectionImpl, TimeoutEventLis
                         GrizzlyUtils.getWriter(connection.getMemoryManager(), LDAP_V3);
                 try {
                     writer.writeSearchRequest(messageID, request);
-                    connection.write(writer.getASN1Writer().getBuffer(), null);
+                    coalescingWriter.write(writer.getASN1Writer().getBuffer());
                 } finally {
                     GrizzlyUtils.recycleWriter(writer);
                 }
@@ -680,7 +755,7 @@ final class GrizzlyLDAPConnection implements LDAPConnectionImpl, TimeoutEventLis
             final LDAPWriter<ASN1BufferWriter> writer = GrizzlyUtils.getWriter(connection.getMemoryManager(), LDAP_V3);
             try {
                 writer.writeUnbindRequest(nextMsgID.getAndIncrement(), unbindRequest);
-                connection.write(writer.getASN1Writer().getBuffer(), null);
+                coalescingWriter.close(writer.getASN1Writer().getBuffer());
             } catch (final Exception ignore) {
                 /*
                  * Underlying channel probably blown up. Ignore all errors,
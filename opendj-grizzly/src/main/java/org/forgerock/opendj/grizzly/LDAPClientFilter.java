@@ -13,6 +13,7 @@
  *
  * Copyright 2010 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.opendj.grizzly;
@@ -421,23 +422,32 @@ final class LDAPClientFilter extends LDAPBaseFilter {
         final LDAPMessageHandler handler = getLDAPHandler(ctx);
         final Buffer buffer = (Buffer) ctx.getMessage();
 
-        try (final ASN1BufferReader reader = new ASN1BufferReader(maxASN1ElementSize, buffer)) {
+        // Only reads the message header: the buffer is either kept until the message is complete or decoded.
+        final ASN1BufferReader reader = new ASN1BufferReader(maxASN1ElementSize, buffer);
+        try {
             buffer.mark();
             if (!reader.elementAvailable()) {
                 buffer.reset();
-                // We need to create a duplicate because buffer will be closed by the reader (try-with-resources)
-                return ctx.getStopAction(buffer.duplicate());
+                return ctx.getStopAction(buffer);
             }
             final int length = reader.peekLength();
             final Buffer remainder = buffer.remaining() > length ? buffer.split(buffer.position() + length) : null;
             buffer.reset();
-            try (final ASN1BufferReader packetReader =
-                    new ASN1BufferReader(maxASN1ElementSize, buffer.asReadOnlyBuffer())) {
+            // In zero-copy mode the decoded values share the bytes of the message, which is not disposed by the reader.
+            try (final ASN1BufferReader packetReader = decodeOptions.isZeroCopyEnabled()
+                    ? ASN1BufferReader.newMessageReader(maxASN1ElementSize, buffer, true)
+                    : new ASN1BufferReader(maxASN1ElementSize, buffer)) {
                 final LDAPReader<? extends ASN1Reader> ldapReader = LDAP.getReader(packetReader, decodeOptions);
                 ctx.setMessage(null);
                 ldapReader.readMessage(handler);
             }
-            return ctx.getInvokeAction(remainder);
+            final NextAction nextAction = ctx.getInvokeAction(remainder);
+            final GrizzlyLDAPConnection ldapConnection = LDAP_CONNECTION_ATTR.get(ctx.getConnection());
+            if (ldapConnection != null && ldapConnection.suspendReadIfRequested(ctx, nextAction)) {
+                // Neither decode the rest of the buffer nor read from the socket until reads are resumed.
+                return ctx.getSuspendAction();
+            }
+            return nextAction;
         } catch (IOException e) {
             handleReadException(ctx, e);
             throw e;
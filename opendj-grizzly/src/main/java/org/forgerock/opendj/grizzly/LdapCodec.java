@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.grizzly;
 
@@ -55,28 +56,28 @@ abstract class LdapCodec extends LDAPBaseFilter {
     public NextAction handleRead(final FilterChainContext ctx) throws IOException {
         try {
             final Buffer buffer = ctx.getMessage();
-            try (final ASN1BufferReader reader = new ASN1BufferReader(maxASN1ElementSize, buffer)) {
-                // Due to a bug in grizzly's ByteBufferWrapper.split(), we can't use byteBuffer.mark()
-                final int mark = buffer.position();
-                if (!reader.elementAvailable()) {
-                    buffer.position(mark);
-                    // We need to create a duplicate because buffer will be closed by the reader (try-with-resources)
-                    return ctx.getStopAction(buffer.duplicate());
-                }
-                final int length = reader.peekLength();
-                if (length > maxASN1ElementSize) {
-                    buffer.position(mark);
-                    throw DecodeException.fatalError(
-                            ERR_LDAP_CLIENT_DECODE_MAX_REQUEST_SIZE_EXCEEDED.get(length, maxASN1ElementSize));
-                }
-                final Buffer remainder = (buffer.remaining() > length)
-                        ? buffer.split(buffer.position() + length)
-                        : null;
+            // Only reads the message header: the buffer is either kept until the message is complete or decoded.
+            final ASN1BufferReader reader = new ASN1BufferReader(maxASN1ElementSize, buffer);
+            // Due to a bug in grizzly's ByteBufferWrapper.split(), we can't use byteBuffer.mark()
+            final int mark = buffer.position();
+            if (!reader.elementAvailable()) {
                 buffer.position(mark);
-                ctx.setMessage(decodePacket(new ASN1BufferReader(maxASN1ElementSize, buffer.asReadOnlyBuffer())));
-                buffer.tryDispose();
-                return ctx.getInvokeAction(remainder);
+                return ctx.getStopAction(buffer);
             }
+            final int length = reader.peekLength();
+            if (length > maxASN1ElementSize) {
+                buffer.position(mark);
+                throw DecodeException.fatalError(
+                        ERR_LDAP_CLIENT_DECODE_MAX_REQUEST_SIZE_EXCEEDED.get(length, maxASN1ElementSize));
+            }
+            final Buffer remainder = (buffer.remaining() > length)
+                    ? buffer.split(buffer.position() + length)
+                    : null;
+            buffer.position(mark);
+            // Requests are decoded lazily, possibly once the network buffer has been recycled.
+            ctx.setMessage(decodePacket(ASN1BufferReader.newMessageReader(
+                    maxASN1ElementSize, buffer, decodeOptions.isZeroCopyEnabled())));
+            return ctx.getInvokeAction(remainder);
         } catch (Exception e) {
             onLdapCodecError(ctx, e);
             ctx.getConnection().closeSilently();
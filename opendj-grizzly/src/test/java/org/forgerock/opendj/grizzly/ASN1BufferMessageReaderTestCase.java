@@ -0,0 +1,91 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.grizzly;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.forgerock.opendj.io.ASN1Reader;
+import org.forgerock.opendj.io.ASN1ReaderTestCase;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.glassfish.grizzly.memory.ByteBufferWrapper;
+import org.testng.annotations.Test;
+
+/**
+ * This class provides test cases for ASN1BufferReader decoding complete messages, whose octet strings are views over
+ * the bytes of the message.
+ */
+@SuppressWarnings("javadoc")
+public class ASN1BufferMessageReaderTestCase extends ASN1ReaderTestCase {
+    /** SEQUENCE { OCTET STRING "abc", OCTET STRING "de" }. */
+    private static final byte[] MESSAGE = { 0x30, 0x09, 0x04, 0x03, 'a', 'b', 'c', 0x04, 0x02, 'd', 'e' };
+
+    @Override
+    protected ASN1Reader getReader(final byte[] b, final int maxElementSize) throws IOException {
+        return ASN1BufferReader.newMessageReader(maxElementSize, new ByteBufferWrapper(ByteBuffer.wrap(b)), true);
+    }
+
+    @Test
+    public void testOctetStringsShareHeapBuffer() throws Exception {
+        final byte[] message = MESSAGE.clone();
+        final ASN1Reader reader = getReader(message, 0);
+        reader.readStartSequence();
+        final ByteString first = reader.readOctetString();
+        final ByteStringBuilder second = reader.readOctetString(new ByteStringBuilder());
+        reader.readEndSequence();
+        reader.close();
+
+        assertThat(first.toString()).isEqualTo("abc");
+        assertThat(second.toString()).isEqualTo("de");
+        // Values returned by readOctetString() are views: they are not copied.
+        message[4] = 'x';
+        assertThat(first.toString()).isEqualTo("xbc");
+        assertThat(second.toString()).isEqualTo("de");
+    }
+
+    @Test
+    public void testOctetStringsAreCopiedOnceFromDirectBuffer() throws Exception {
+        final ByteBuffer direct = ByteBuffer.allocateDirect(MESSAGE.length);
+        direct.put(MESSAGE).flip();
+        final ASN1Reader reader = ASN1BufferReader.newMessageReader(0, new ByteBufferWrapper(direct), true);
+        reader.readStartSequence();
+        final ByteString first = reader.readOctetString();
+        final ByteString second = reader.readOctetString();
+        reader.readEndSequence();
+
+        direct.put(4, (byte) 'x');
+        assertThat(first.toString()).isEqualTo("abc");
+        assertThat(second.toString()).isEqualTo("de");
+    }
+
+    @Test
+    public void testOctetStringsAreCopiedWhenZeroCopyIsDisabled() throws Exception {
+        final byte[] message = MESSAGE.clone();
+        final ASN1Reader reader = ASN1BufferReader.newMessageReader(0, new ByteBufferWrapper(ByteBuffer.wrap(message)),
+                false);
+        reader.readStartSequence();
+        final ByteString first = reader.readOctetString();
+        reader.readOctetString();
+        reader.readEndSequence();
+        reader.close();
+
+        message[4] = 'x';
+        assertThat(first.toString()).isEqualTo("abc");
+    }
+}
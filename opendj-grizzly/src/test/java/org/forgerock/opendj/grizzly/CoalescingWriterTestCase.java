@@ -0,0 +1,146 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.grizzly;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.opendj.ldap.SdkTestCase;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.CompletionHandler;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.WriteResult;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings({ "javadoc", "rawtypes", "unchecked" })
+public class CoalescingWriterTestCase extends SdkTestCase {
+    private final List<String> writes = new ArrayList<>();
+    private final List<CompletionHandler<WriteResult>> pendingWrites = new ArrayList<>();
+    private boolean completeWritesImmediately;
+    private boolean failWrites;
+    private CoalescingWriter writer;
+
+    @BeforeMethod
+    public void setUp() {
+        writes.clear();
+        pendingWrites.clear();
+        completeWritesImmediately = true;
+        failWrites = false;
+        final Connection connection = mock(Connection.class);
+        when(connection.getMemoryManager()).thenReturn(MemoryManager.DEFAULT_MEMORY_MANAGER);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                final Buffer buffer = (Buffer) invocation.getArguments()[0];
+                final CompletionHandler<WriteResult> handler =
+                        (CompletionHandler<WriteResult>) invocation.getArguments()[1];
+                if (failWrites) {
+                    throw new IllegalStateException();
+                }
+                writes.add(buffer.toStringContent());
+                if (handler == null) {
+                    return null;
+                } else if (completeWritesImmediately) {
+                    handler.completed(null);
+                } else {
+                    pendingWrites.add(handler);
+                }
+                return null;
+            }
+        }).when(connection).write(any(), any(CompletionHandler.class));
+        writer = new CoalescingWriter(connection);
+    }
+
+    @Test
+    public void testMessagesAreWrittenImmediatelyWhenNoWriteIsInProgress() {
+        writer.write(message("a"));
+        writer.write(message("b"));
+
+        assertThat(writes).containsExactly("a", "b");
+    }
+
+    @Test
+    public void testMessagesAreCoalescedWhileWriteIsInProgress() {
+        completeWritesImmediately = false;
+        writer.write(message("a"));
+        writer.write(message("b"));
+        writer.write(message("c"));
+        assertThat(writes).containsExactly("a");
+
+        completeWritesImmediately = true;
+        pendingWrites.remove(0).completed(null);
+        assertThat(writes).containsExactly("a", "bc");
+
+        writer.write(message("d"));
+        assertThat(writes).containsExactly("a", "bc", "d");
+    }
+
+    @Test
+    public void testMessagesAreWrittenAfterFailedWrite() {
+        completeWritesImmediately = false;
+        writer.write(message("a"));
+        writer.write(message("b"));
+
+        pendingWrites.remove(0).failed(new Exception());
+        assertThat(writes).containsExactly("a", "b");
+    }
+
+    @Test
+    public void testQueuedMessagesAreWrittenWhenClosedWhileWriteIsInProgress() {
+        completeWritesImmediately = false;
+        writer.write(message("a"));
+        writer.write(message("b"));
+        writer.write(message("c"));
+
+        writer.close(message("unbind"));
+        assertThat(writes).containsExactly("a", "bcunbind");
+
+        writer.write(message("d"));
+        pendingWrites.remove(0).completed(null);
+        assertThat(writes).containsExactly("a", "bcunbind");
+    }
+
+    @Test
+    public void testMessagesAreWrittenAfterWriteFailedWithException() {
+        failWrites = true;
+        try {
+            writer.write(message("a"));
+            fail("The write should have failed");
+        } catch (final IllegalStateException expected) {
+            // Expected.
+        }
+
+        failWrites = false;
+        writer.write(message("b"));
+        assertThat(writes).containsExactly("b");
+    }
+
+    private static Buffer message(final String content) {
+        return Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER, content);
+    }
+}
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
- * Portions Copyright 2022 Wren Security
+ * Portions Copyright 2022-2026 Wren Security
  */
 
 package org.forgerock.opendj.grizzly;
@@ -20,27 +20,59 @@ package org.forgerock.opendj.grizzly;
 import static org.fest.assertions.Assertions.assertThat;
 import static org.forgerock.opendj.ldap.LDAPListener.LDAP_DECODE_OPTIONS;
 import static org.forgerock.opendj.ldap.LDAPConnectionFactory.REQUEST_TIMEOUT;
+import static org.forgerock.opendj.ldap.TestCaseUtils.loopbackWithDynamicPort;
 import static org.forgerock.util.time.Duration.duration;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
+import org.forgerock.opendj.ldap.Connection;
 import org.forgerock.opendj.ldap.Connections;
+import org.forgerock.opendj.ldap.LDAPClientContext;
+import org.forgerock.opendj.ldap.LDAPConnectionFactory;
 import org.forgerock.opendj.ldap.LDAPListener;
 import org.forgerock.opendj.ldap.LdapException;
+import org.forgerock.opendj.ldap.LdapPromise;
+import org.forgerock.opendj.ldap.MemoryBackend;
 import org.forgerock.opendj.ldap.RequestHandler;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.SdkTestCase;
 import org.forgerock.opendj.ldap.SearchResultHandler;
+import org.forgerock.opendj.ldap.SearchResultPublisher;
 import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.ldap.ServerConnection;
+import org.forgerock.opendj.ldap.ServerConnectionFactory;
 import org.forgerock.opendj.ldap.TestCaseUtils;
 import org.forgerock.opendj.ldap.TimeoutResultException;
 import org.forgerock.opendj.ldap.controls.PersistentSearchRequestControl;
 import org.forgerock.opendj.ldap.requests.Requests;
 import org.forgerock.opendj.ldap.requests.SearchRequest;
+import org.forgerock.opendj.ldap.requests.UnbindRequest;
+import org.forgerock.opendj.ldap.responses.Result;
+import org.forgerock.opendj.ldap.responses.SearchResultEntry;
+import org.forgerock.opendj.ldap.responses.SearchResultReference;
+import org.forgerock.opendj.ldap.spi.FlowControlledSearchResultHandler;
+import org.forgerock.opendj.ldap.spi.ReadFlowControl;
+import org.forgerock.opendj.ldif.LDIFEntryReader;
 import org.forgerock.util.Options;
 import org.forgerock.util.promise.ExceptionHandler;
 import org.mockito.ArgumentCaptor;
@@ -119,4 +151,184 @@ public class GrizzlyLDAPConnectionTestCase extends SdkTestCase {
         }
     }
 
+    /**
+     * Tests that the requests written concurrently by several threads, which
+     * are coalesced while a write is in progress, are all received by the
+     * server intact.
+     */
+    @Test
+    public void testConcurrentRequestsAreCoalesced() throws Exception {
+        final int nbThreads = 8;
+        final int nbRequestsPerThread = 250;
+        final MemoryBackend backend = new MemoryBackend(new LDIFEntryReader(
+                "dn: dc=example,dc=com", "objectClass: top", "objectClass: domain", "dc: example"));
+        final LDAPListener listener = new LDAPListener(Collections.singleton(loopbackWithDynamicPort()),
+                new ServerConnectionFactoryAdapter(Options.defaultOptions().get(LDAP_DECODE_OPTIONS),
+                        Connections.<LDAPClientContext> newServerConnectionFactory(backend)));
+        final InetSocketAddress address = listener.getSocketAddresses().iterator().next();
+        final LDAPConnectionFactory factory = new LDAPConnectionFactory(address.getHostName(), address.getPort());
+        final ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+        try (final Connection connection = factory.getConnection()) {
+            final CyclicBarrier barrier = new CyclicBarrier(nbThreads);
+            final List<Future<List<LdapPromise<Result>>>> futures = new ArrayList<>();
+            for (int i = 0; i < nbThreads; i++) {
+                final int thread = i;
+                futures.add(executor.submit(new Callable<List<LdapPromise<Result>>>() {
+                    @Override
+                    public List<LdapPromise<Result>> call() throws Exception {
+                        final List<LdapPromise<Result>> promises = new ArrayList<>();
+                        barrier.await();
+                        for (int j = 0; j < nbRequestsPerThread; j++) {
+                            final String cn = "user." + thread + "." + j;
+                            promises.add(connection.addAsync(Requests.newAddRequest(
+                                    "dn: cn=" + cn + ",dc=example,dc=com",
+                                    "objectClass: top",
+                                    "objectClass: person",
+                                    "cn: " + cn,
+                                    "sn: " + thread + "." + j)));
+                        }
+                        return promises;
+                    }
+                }));
+            }
+            for (final Future<List<LdapPromise<Result>>> future : futures) {
+                for (final LdapPromise<Result> promise : future.get()) {
+                    assertThat(promise.getOrThrow().getResultCode()).isEqualTo(ResultCode.SUCCESS);
+                }
+            }
+            assertThat(backend.size()).isEqualTo(nbThreads * nbRequestsPerThread + 1);
+            assertThat(backend.get("cn=user.3.7,dc=example,dc=com").parseAttribute("sn").asString())
+                    .isEqualTo("3.7");
+        } finally {
+            executor.shutdownNow();
+            listener.close();
+            factory.close();
+        }
+    }
+
+    /**
+     * Tests that the unbind request is received by the server when the
+     * connection is closed while many requests are still being written.
+     */
+    @Test
+    public void testUnbindIsWrittenAfterQueuedRequests() throws Exception {
+        @SuppressWarnings("unchecked")
+        final ServerConnection<Integer> serverConnection = mock(ServerConnection.class);
+        @SuppressWarnings("unchecked")
+        final ServerConnectionFactory<LDAPClientContext, Integer> serverConnectionFactory =
+                mock(ServerConnectionFactory.class);
+        when(serverConnectionFactory.handleAccept(any(LDAPClientContext.class))).thenReturn(serverConnection);
+        final LDAPListener listener = new LDAPListener(Collections.singleton(loopbackWithDynamicPort()),
+                new ServerConnectionFactoryAdapter(Options.defaultOptions().get(LDAP_DECODE_OPTIONS),
+                        serverConnectionFactory));
+        final InetSocketAddress address = listener.getSocketAddresses().iterator().next();
+        final LDAPConnectionFactory factory = new LDAPConnectionFactory(address.getHostName(), address.getPort());
+        try {
+            final Connection connection = factory.getConnection();
+            final SearchRequest request = Requests.newSearchRequest("dc=test", SearchScope.BASE_OBJECT,
+                    "(description=" + new String(new char[1024]).replace('\0', 'x') + ")");
+            for (int i = 0; i < 1000; i++) {
+                connection.searchAsync(request, mock(SearchResultHandler.class));
+            }
+            connection.close();
+
+            verify(serverConnection, timeout(10000)).handleConnectionClosed(eq(0), any(UnbindRequest.class));
+        } finally {
+            listener.close();
+            factory.close();
+        }
+    }
+
+    /**
+     * Tests that no more search results are decoded once a search result
+     * handler has suspended reads, although the server has sent them all.
+     */
+    @Test
+    public void testSuspendedReadsStopDecodingSearchResults() throws Exception {
+        final int nbEntries = 1000;
+        final LDAPListener listener = newListenerWithUsers(nbEntries);
+        final InetSocketAddress address = listener.getSocketAddresses().iterator().next();
+        final LDAPConnectionFactory factory = new LDAPConnectionFactory(address.getHostName(), address.getPort());
+        try (final Connection connection = factory.getConnection()) {
+            final AtomicInteger nbReceivedEntries = new AtomicInteger();
+            final AtomicReference<ReadFlowControl> flowControl = new AtomicReference<>();
+            final LdapPromise<Result> promise = connection.searchAsync(
+                    Requests.newSearchRequest("dc=example,dc=com", SearchScope.SINGLE_LEVEL, "(objectClass=*)"),
+                    new FlowControlledSearchResultHandler() {
+                        @Override
+                        public void setReadFlowControl(final ReadFlowControl readFlowControl) {
+                            flowControl.set(readFlowControl);
+                        }
+
+                        @Override
+                        public boolean handleEntry(final SearchResultEntry entry) {
+                            if (nbReceivedEntries.incrementAndGet() == 1) {
+                                flowControl.get().suspendReads();
+                            }
+                            return true;
+                        }
+
+                        @Override
+                        public boolean handleReference(final SearchResultReference reference) {
+                            return true;
+                        }
+                    });
+
+            // Leave the server the time to send all the entries.
+            Thread.sleep(500);
+            assertThat(nbReceivedEntries.get()).isEqualTo(1);
+            assertThat(promise.isDone()).isFalse();
+
+            flowControl.get().resumeReads();
+            assertThat(promise.getOrThrow(10, TimeUnit.SECONDS).getResultCode()).isEqualTo(ResultCode.SUCCESS);
+            assertThat(nbReceivedEntries.get()).isEqualTo(nbEntries);
+        } finally {
+            listener.close();
+            factory.close();
+        }
+    }
+
+    /**
+     * Tests that a search result stream reading slowly from a real socket,
+     * hence repeatedly suspending and resuming reads, returns every entry.
+     */
+    @Test
+    public void testSearchResultStreamOverSocket() throws Exception {
+        final int nbEntries = 1000;
+        final LDAPListener listener = newListenerWithUsers(nbEntries);
+        final InetSocketAddress address = listener.getSocketAddresses().iterator().next();
+        final LDAPConnectionFactory factory = new LDAPConnectionFactory(address.getHostName(), address.getPort());
+        try (final Connection connection = factory.getConnection();
+             final Stream<SearchResultEntry> entries = new SearchResultPublisher(connection,
+                     Requests.newSearchRequest("dc=example,dc=com", SearchScope.SINGLE_LEVEL, "(objectClass=*)"))
+                     .stream(10)) {
+            int count = 0;
+            for (final Iterator<SearchResultEntry> it = entries.iterator(); it.hasNext(); it.next()) {
+                if (++count % 100 == 0) {
+                    Thread.sleep(10);
+                }
+            }
+            assertThat(count).isEqualTo(nbEntries);
+
+            // Reads have been resumed for the other requests.
+            assertThat(connection.searchSingleEntry("dc=example,dc=com", SearchScope.BASE_OBJECT, "(objectClass=*)")
+                    .getName().toString()).isEqualTo("dc=example,dc=com");
+        } finally {
+            listener.close();
+            factory.close();
+        }
+    }
+
+    private static LDAPListener newListenerWithUsers(final int nbUsers) throws Exception {
+        final List<String> ldif = new ArrayList<>();
+        Collections.addAll(ldif, "dn: dc=example,dc=com", "objectClass: top", "objectClass: domain", "dc: example");
+        for (int i = 0; i < nbUsers; i++) {
+            Collections.addAll(ldif, "", "dn: cn=user." + i + ",dc=example,dc=com", "objectClass: top",
+                    "objectClass: person", "cn: user." + i, "sn: " + i);
+        }
+        final MemoryBackend backend = new MemoryBackend(new LDIFEntryReader(ldif));
+        return new LDAPListener(Collections.singleton(loopbackWithDynamicPort()),
+                new ServerConnectionFactoryAdapter(Options.defaultOptions().get(LDAP_DECODE_OPTIONS),
+                        Connections.<LDAPClientContext> newServerConnectionFactory(backend)));
+    }
 }
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.api;
 
@@ -37,6 +38,7 @@ import org.opends.server.api.plugin.PluginResult;
 import org.opends.server.core.AuthenticatedUsers;
 import org.opends.server.core.CoreConfigManager;
 import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.GroupManager;
 import org.opends.server.core.PersistentSearch;
 import org.opends.server.core.PluginConfigManager;
 import org.opends.server.core.SearchOperation;
@@ -124,6 +126,12 @@ public abstract class ClientConnection
    */
   private Object saslAuthState;
 
+  /**
+   * The opaque information cached by the access control handler for the
+   * identity authorized on this connection, discarded when it changes.
+   */
+  private volatile Object accessControlState;
+
   /** A string representation of the time that this client connection was established. */
   private final String connectTimeString;
 
@@ -174,26 +182,14 @@ public abstract class ClientConnection
     finalized = true;
 
     // Deregister with the set of authenticated users.
-    Entry authNEntry = authenticationInfo.getAuthenticationEntry();
-    Entry authZEntry = authenticationInfo.getAuthorizationEntry();
+    DirectoryServer.getAuthenticatedUsers().replace(this,
+        getName(authenticationInfo.getAuthenticationEntry()), getName(authenticationInfo.getAuthorizationEntry()),
+        null, null);
+  }
 
-    AuthenticatedUsers authenticatedUsers = DirectoryServer.getAuthenticatedUsers();
-    if (authNEntry != null)
-    {
-      if (authZEntry == null || authZEntry.getName().equals(authNEntry.getName()))
-      {
-        authenticatedUsers.remove(authNEntry.getName(), this);
-      }
-      else
-      {
-        authenticatedUsers.remove(authNEntry.getName(), this);
-        authenticatedUsers.remove(authZEntry.getName(), this);
-      }
-    }
-    else if (authZEntry != null)
-    {
-      authenticatedUsers.remove(authZEntry.getName(), this);
-    }
+  private static DN getName(Entry entry)
+  {
+    return entry != null ? entry.getName() : null;
   }
 
 
@@ -768,33 +764,19 @@ public abstract class ClientConnection
   public void setAuthenticationInfo(AuthenticationInfo
                                          authenticationInfo)
   {
-    AuthenticatedUsers authenticatedUsers = DirectoryServer.getAuthenticatedUsers();
+    accessControlState = null;
+    DN oldAuthNDN = null;
+    DN oldAuthZDN = null;
     if (this.authenticationInfo != null)
     {
-      Entry authNEntry = this.authenticationInfo.getAuthenticationEntry();
-      Entry authZEntry = this.authenticationInfo.getAuthorizationEntry();
-
-      if (authNEntry != null)
-      {
-        if (authZEntry == null ||
-            authZEntry.getName().equals(authNEntry.getName()))
-        {
-          authenticatedUsers.remove(authNEntry.getName(), this);
-        }
-        else
-        {
-          authenticatedUsers.remove(authNEntry.getName(), this);
-          authenticatedUsers.remove(authZEntry.getName(), this);
-        }
-      }
-      else if (authZEntry != null)
-      {
-        authenticatedUsers.remove(authZEntry.getName(), this);
-      }
+      oldAuthNDN = getName(this.authenticationInfo.getAuthenticationEntry());
+      oldAuthZDN = getName(this.authenticationInfo.getAuthorizationEntry());
     }
 
+    AuthenticatedUsers authenticatedUsers = DirectoryServer.getAuthenticatedUsers();
     if (authenticationInfo == null)
     {
+      authenticatedUsers.replace(this, oldAuthNDN, oldAuthZDN, null, null);
       this.authenticationInfo = new AuthenticationInfo();
       updatePrivileges(null, false);
     }
@@ -802,28 +784,9 @@ public abstract class ClientConnection
     {
       this.authenticationInfo = authenticationInfo;
 
-      Entry authNEntry = authenticationInfo.getAuthenticationEntry();
       Entry authZEntry = authenticationInfo.getAuthorizationEntry();
-
-      if (authNEntry != null)
-      {
-        if (authZEntry == null || authZEntry.getName().equals(authNEntry.getName()))
-        {
-          authenticatedUsers.put(authNEntry.getName(), this);
-        }
-        else
-        {
-          authenticatedUsers.put(authNEntry.getName(), this);
-          authenticatedUsers.put(authZEntry.getName(), this);
-        }
-      }
-      else
-      {
-        if (authZEntry != null)
-        {
-          authenticatedUsers.put(authZEntry.getName(), this);
-        }
-      }
+      authenticatedUsers.replace(this, oldAuthNDN, oldAuthZDN,
+          getName(authenticationInfo.getAuthenticationEntry()), getName(authZEntry));
 
       updatePrivileges(authZEntry, authenticationInfo.isRoot());
     }
@@ -1155,6 +1118,36 @@ public abstract class ClientConnection
   }
 
 
+
+  /**
+   * Retrieves an opaque set of information that the access control
+   * handler caches for the identity authorized on this connection.
+   * It is discarded whenever the authentication information of this
+   * connection changes.
+   *
+   * @return  An opaque set of information cached by the access
+   *          control handler, or {@code null} if there is none.
+   */
+  public final Object getAccessControlState()
+  {
+    return accessControlState;
+  }
+
+
+
+  /**
+   * Specifies an opaque set of information that the access control
+   * handler caches for the identity authorized on this connection.
+   *
+   * @param  accessControlState  An opaque set of information cached
+   *                             by the access control handler.
+   */
+  public final void setAccessControlState(Object accessControlState)
+  {
+    this.accessControlState = accessControlState;
+  }
+
+
   /**
    * Return the lowest level channel associated with a connection.
    * This is normally the channel associated with the socket
@@ -1384,7 +1377,6 @@ public abstract class ClientConnection
   public Set<Group<?>> getGroups(Operation operation)
          throws DirectoryException
   {
-    // FIXME -- This probably isn't the most efficient implementation.
     DN authzDN;
     if (operation == null)
     {
@@ -1413,10 +1405,12 @@ public abstract class ClientConnection
       return Collections.<Group<?>>emptySet();
     }
 
+    GroupManager groupManager = DirectoryServer.getGroupManager();
     HashSet<Group<?>> groupSet = new HashSet<>();
-    for (Group<?> g : DirectoryServer.getGroupManager().getGroupInstances())
+    for (DN groupDN : groupManager.getGroupDNs(userEntry))
     {
-      if (g.isMember(userEntry))
+      Group<?> g = groupManager.getGroupInstance(groupDN);
+      if (g != null)
       {
         groupSet.add(g);
       }
@@ -13,17 +13,21 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.api;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.forgerock.opendj.server.config.server.GroupImplementationCfg;
 import org.opends.server.core.ServerContext;
 import org.opends.server.types.DirectoryException;
@@ -405,6 +409,122 @@ public abstract class Group<T extends GroupImplementationCfg>
                                         SearchFilter filter)
          throws DirectoryException;
 
+  /**
+   * Retrieves the normalized DNs of the entries explicitly listed as
+   * members of this group, nested groups included but not their own
+   * members.  The group manager uses them to maintain a reverse
+   * membership index, so that the groups of an entry can be found
+   * without asking every group.  Note that this is a point-in-time
+   * determination, and the caller must not cache the result.
+   * <BR><BR>
+   * The default implementation returns {@code null}, meaning that the
+   * membership of this group is computed, in which case the group
+   * manager calls {@code isMember} for every entry.
+   *
+   * @return  The normalized DNs of the explicit members of this
+   *          group, or {@code null} if its membership is computed.
+   *
+   * @throws  DirectoryException  If a problem occurs while attempting
+   *                              to retrieve the set of members.
+   */
+  public Collection<ByteString> getNormalizedMemberDNs()
+         throws DirectoryException
+  {
+    return null;
+  }
+
+  /**
+   * Indicates whether the provided attribute type holds the explicit
+   * members of this group, so that the group manager can index the
+   * members added or removed by a modification of the group entry
+   * without reading the whole member list again.
+   * <BR><BR>
+   * The default implementation returns {@code false}.
+   *
+   * @param  attributeType  The attribute type for which to make the
+   *                        determination.
+   *
+   * @return  {@code true} if the attribute type holds the explicit
+   *          members of this group, or {@code false} if not.
+   */
+  public boolean isMemberAttributeType(AttributeType attributeType)
+  {
+    return false;
+  }
+
+  /**
+   * Indicates whether this group explicitly lists its members but
+   * checks membership against a backend index rather than keeping
+   * them in memory.  Such groups return {@code null} from
+   * {@link #getNormalizedMemberDNs()}, yet unlike groups whose
+   * membership is computed, their membership only changes when their
+   * member list is modified.
+   * <BR><BR>
+   * The default implementation returns {@code false}.
+   *
+   * @return  {@code true} if the membership of this group is checked
+   *          against a backend index, or {@code false} if not.
+   */
+  public boolean hasIndexedMembership()
+  {
+    return false;
+  }
+
+  /**
+   * Indicates whether this group maintains the outcome of computing
+   * its membership, in which case the group manager notifies it of
+   * every entry added, deleted, modified or renamed through
+   * {@link #processEntryChange(Entry, Entry)}.
+   * <BR><BR>
+   * The default implementation returns {@code false}.
+   *
+   * @return  {@code true} if this group must be notified of entry
+   *          changes, or {@code false} if not.
+   */
+  public boolean isMembershipMaterialized()
+  {
+    return false;
+  }
+
+  /**
+   * Notifies this group that an entry has been added, deleted,
+   * modified or renamed, so that it can update its materialized
+   * membership.  This is only called for the groups whose
+   * {@link #isMembershipMaterialized()} method returns {@code true}.
+   * <BR><BR>
+   * The default implementation does nothing.
+   *
+   * @param  oldEntry  The entry before the change, or {@code null} if
+   *                   it has been added.
+   * @param  newEntry  The entry after the change, or {@code null} if
+   *                   it has been deleted.
+   */
+  public void processEntryChange(Entry oldEntry, Entry newEntry)
+  {
+    // No implementation required by default.
+  }
+
+  /**
+   * Indicates whether adding, deleting, modifying or renaming the
+   * provided entry, or any of its subordinates, may change the
+   * membership of this group.  This is only called for the groups
+   * whose membership is computed, so that the group manager can tell
+   * callers caching membership determinations that they may no
+   * longer be valid.
+   * <BR><BR>
+   * The default implementation returns {@code true}.
+   *
+   * @param  entry  The entry which has been added, deleted, modified
+   *                or renamed.
+   *
+   * @return  {@code true} if the change may alter the membership of
+   *          this group, or {@code false} if it cannot.
+   */
+  public boolean mayEntryChangeAlterMembership(Entry entry)
+  {
+    return true;
+  }
+
   /**
    * Indicates whether it is possible to alter the member list for
    * this group (e.g., in order to add members to the group or remove
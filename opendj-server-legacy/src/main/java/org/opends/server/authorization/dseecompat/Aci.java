@@ -13,6 +13,7 @@
  *
  * Copyright 2008 Sun Microsystems, Inc.
  * Portions Copyright 2010-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -281,6 +282,16 @@ public class Aci implements Comparable<Aci>
         return targets;
     }
 
+    /**
+     * Returns whether the outcome of all the bind rules of this ACI only
+     * depends on the client.
+     * @return {@code true} if all the bind rules of this ACI only depend on
+     * the client.
+     */
+    boolean hasClientOnlyBindRules() {
+        return body.hasClientOnlyBindRules();
+    }
+
     /**
      * Return the DN of the entry containing the ACI.
      * @return The DN of the entry containing the ACI.
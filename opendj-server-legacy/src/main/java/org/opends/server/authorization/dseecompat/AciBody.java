@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -209,6 +210,20 @@ public class AciBody {
         return false;
     }
 
+    /**
+     * Returns whether the outcome of all the bind rules of this ACI body only
+     * depends on the client.
+     * @return {@code true} if all the bind rules only depend on the client.
+     */
+    boolean hasClientOnlyBindRules() {
+        for (PermBindRulePair p : getPermBindRulePairs()) {
+            if (!p.getBindRule().isClientOnly()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Retrieve the permission-bind rule pairs of this ACI body.
      *
@@ -13,6 +13,7 @@
  *
  * Copyright 2008 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -25,6 +26,7 @@ import java.security.cert.Certificate;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Set;
 
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.DN;
@@ -34,10 +36,11 @@ import org.opends.server.api.ClientConnection;
 import org.opends.server.api.Group;
 import org.opends.server.controls.GetEffectiveRightsRequestControl;
 import org.opends.server.core.AddOperation;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.GroupManager;
 import org.opends.server.core.SearchOperation;
 import org.opends.server.types.AuthenticationInfo;
 import org.opends.server.types.AuthenticationType;
-import org.opends.server.types.DirectoryException;
 import org.opends.server.types.Entry;
 import org.opends.server.types.Operation;
 
@@ -112,6 +115,14 @@ abstract class AciContainer implements AciTargetMatchContext, AciEvalContext {
      */
     private boolean useAuthzid;
 
+    /** The DNs of the groups of the client, computed on first use. */
+    private Set<DN> clientGroupDNs;
+    /** The DNs of the groups of the authzID, computed on first use. */
+    private Set<DN> authzidGroupDNs;
+
+    /** The cache of the bind rule outcomes, or null if they must not be cached. */
+    private BindRuleCache bindRuleCache;
+
     /**
      * The list of specific attributes to get rights for, in addition to
      * any attributes requested in the search.
@@ -647,20 +658,51 @@ abstract class AciContainer implements AciTargetMatchContext, AciEvalContext {
       return matched;
     }
 
+    @Override
+    public BindRuleCache getBindRuleCache() {
+        return bindRuleCache;
+    }
+
+    /**
+     * Sets the cache of the bind rule outcomes to use for the evaluation.
+     * @param bindRuleCache The cache of the bind rule outcomes, or
+     * {@code null} if they must not be cached.
+     */
+    void setBindRuleCache(BindRuleCache bindRuleCache) {
+        this.bindRuleCache = bindRuleCache;
+    }
+
+    /**
+     * Returns the client connection of the operation being evaluated.
+     * @return The client connection of the operation.
+     */
+    ClientConnection getClientConnection() {
+        return clientConnection;
+    }
+
     @Override
     public boolean isMemberOf(Group<?> group) {
-        try {
-            if(useAuthzid) {
-                return group.isMember(this.authzid);
+        return getClientGroupDNs().contains(group.getGroupDN());
+    }
+
+    /**
+     * Returns the DNs of the groups the client is a member of. They are
+     * looked up once in the group manager membership index, then reused by
+     * all the groupdn bind rules evaluated for this operation.
+     */
+    private Set<DN> getClientGroupDNs() {
+        final GroupManager groupManager = DirectoryServer.getGroupManager();
+        if(useAuthzid) {
+            if (authzidGroupDNs == null) {
+                authzidGroupDNs = groupManager.getGroupDNs(this.authzid);
             }
+            return authzidGroupDNs;
+        }
+        if (clientGroupDNs == null) {
             Entry e = getClientEntry();
-            if (e != null) {
-                return group.isMember(e);
-            }
-            return group.isMember(getClientDN());
-        } catch (DirectoryException ex) {
-            return false;
+            clientGroupDNs = e != null ? groupManager.getGroupDNs(e) : groupManager.getGroupDNs(getClientDN());
         }
+        return clientGroupDNs;
     }
 
   /**
@@ -791,6 +833,24 @@ abstract class AciContainer implements AciTargetMatchContext, AciEvalContext {
     }
   }
 
+  /**
+   * Returns the flags recording which targetattr rules matched the attributes
+   * evaluated so far.
+   * @return The flags recording the targetattr rule matches.
+   */
+  int getEvalAttributes() {
+    return evalAllAttributes;
+  }
+
+  /**
+   * Restores the flags recording which targetattr rules matched the
+   * attributes evaluated so far.
+   * @param evalAttributes The flags recording the targetattr rule matches.
+   */
+  void setEvalAttributes(int evalAttributes) {
+    this.evalAllAttributes = evalAttributes;
+  }
+
   @Override
   public int getCurrentSSF() {
       return clientConnection.getSSF();
@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -133,6 +134,14 @@ public interface AciEvalContext
      */
     boolean isMemberOf(Group<?> group);
 
+    /**
+     * Returns the cache of the outcomes of the bind rules which only depend
+     * on the client of the operation associated with this evaluation context.
+     * @return The cache of the bind rule outcomes, or {@code null} if they
+     * must be evaluated every time.
+     */
+    BindRuleCache getBindRuleCache();
+
   /**
    * Returns true if the hashtable of ACIs that matched the targattrfilters
    * keyword evaluation is empty.  Used in a geteffectiverights control
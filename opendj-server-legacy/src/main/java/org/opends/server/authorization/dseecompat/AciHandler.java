@@ -14,6 +14,7 @@
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
  * Portions Copyright 2013 Manuel Gaupp
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -37,6 +38,7 @@ import org.forgerock.opendj.ldap.schema.Schema;
 import org.forgerock.opendj.server.config.server.DseeCompatAccessControlHandlerCfg;
 import org.opends.server.api.AccessControlHandler;
 import org.opends.server.api.ClientConnection;
+import org.opends.server.authorization.dseecompat.BindRuleCache.AttributeDecision;
 import org.opends.server.backends.pluggable.SuffixContainer;
 import org.opends.server.controls.GetEffectiveRightsRequestControl;
 import org.opends.server.core.BindOperation;
@@ -513,12 +515,13 @@ public final class AciHandler extends
     }
 
     // First get all allowed candidate ACIs.
-    List<Aci> candidates = aciList.getCandidateAcis(dn);
+    List<Aci> candidates = aciList.getCandidateAcis(dn, container.getRights());
     /*
      * Create an applicable list of ACIs by target matching each
      * candidate ACI against the container's target match view.
      */
     createApplicableList(candidates, container);
+    container.setBindRuleCache(getBindRuleCache(container));
     // Evaluate the applicable list.
     final boolean ret = testApplicableLists(container);
     // Build summary string if doing geteffectiverights eval.
@@ -605,6 +608,9 @@ public final class AciHandler extends
    */
   private void filterEntry(AciContainer container, Entry filteredEntry)
   {
+    final BindRuleCache cache = getBindRuleCache(container);
+    final CompiledAcis acis =
+        cache != null ? aciList.getEntryIndependentAcis(container.getResourceDN(), container.getRights()) : null;
     for (AttributeType attrType : getAllAttrs(filteredEntry))
     {
       if (container.hasAllUserAttributes() && !attrType.isOperational())
@@ -616,13 +622,49 @@ public final class AciHandler extends
         continue;
       }
       container.setCurrentAttributeType(attrType);
-      if (!accessAllowed(container))
+      if (!accessAllowed(container, cache, acis))
       {
         filteredEntry.removeAttribute(attrType);
       }
     }
   }
 
+  /**
+   * Checks access to the current attribute of the container, reusing the
+   * decision previously taken on the same connection for the same attribute
+   * type if the candidate ACIs are entry independent.
+   *
+   * @param container
+   *          The container used in the access evaluation.
+   * @param cache
+   *          The cache of the connection, or {@code null} if decisions must
+   *          not be cached.
+   * @param acis
+   *          The entry independent candidate ACIs, or {@code null} if the
+   *          candidate ACIs depend on the entry.
+   * @return True if access is allowed.
+   */
+  private boolean accessAllowed(AciContainer container, BindRuleCache cache, CompiledAcis acis)
+  {
+    if (acis == null)
+    {
+      return accessAllowed(container);
+    }
+
+    final AttributeType attrType = container.getCurrentAttributeType();
+    final int evalAttributes = container.getEvalAttributes();
+    final AttributeDecision cached = cache.getAttributeDecision(acis, attrType, evalAttributes);
+    if (cached != null)
+    {
+      container.setEvalAttributes(cached.getEvalAttributes());
+      return cached.isAllowed();
+    }
+    final boolean allowed = accessAllowed(container);
+    cache.putAttributeDecision(acis, attrType, evalAttributes,
+        new AttributeDecision(allowed, container.getEvalAttributes()));
+    return allowed;
+  }
+
   /**
    * Checks to see if a LDAP modification is allowed access.
    *
@@ -860,6 +902,31 @@ public final class AciHandler extends
     return true;
   }
 
+  /**
+   * Returns the cache of the bind rule outcomes for the identity authorized on
+   * the client connection, or {@code null} if the evaluation is not done on
+   * behalf of that identity, as is the case with proxied authorization and
+   * with the get effective rights control.
+   *
+   * @param container
+   *          The container used in the access evaluation.
+   * @return The cache of the bind rule outcomes, or {@code null} if they
+   *         must not be cached.
+   */
+  private BindRuleCache getBindRuleCache(AciContainer container)
+  {
+    ClientConnection clientConnection = container.getClientConnection();
+    if (clientConnection == null
+        || container.isProxiedAuthorization()
+        || container.hasGetEffectiveRightsControl()
+        || container.isGetEffectiveRightsEval())
+    {
+      return null;
+    }
+    return BindRuleCache.getInstance(clientConnection, aciList.getGeneration(),
+        DirectoryServer.getGroupManager().getMembershipGeneration(), container.getClientDN());
+  }
+
   /**
    * Creates the allow and deny ACI lists based on the provided target
    * match context. These lists are stored in the evaluation context.
@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -26,6 +27,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.forgerock.i18n.LocalizableMessage;
@@ -61,6 +65,21 @@ public class AciList {
   /** The configuration DN used to compare against the global ACI entry DN. */
   private final DN configDN;
 
+  /** Maximum number of container entries whose inherited ACIs are kept compiled. */
+  private static final int MAX_COMPILED_CONTAINERS = 4096;
+
+  /** Source of the generations of all ACI lists, so that they never collide. */
+  private static final AtomicLong generations = new AtomicLong();
+
+  /**
+   * The ACIs inherited by the entries immediately below each container entry
+   * recently evaluated, discarded whenever an ACI changes.
+   */
+  private final ConcurrentMap<DN, CompiledAcis> compiledAcis = new ConcurrentHashMap<>();
+
+  /** Changes whenever an ACI is added, removed or renamed. */
+  private volatile long generation = generations.incrementAndGet();
+
   /**
    * Constructor to create an ACI list to cache ACI attribute types.
    * @param configDN The configuration entry DN.
@@ -129,6 +148,100 @@ public class AciList {
     }
   }
 
+  /**
+   * Returns the ACIs that are candidates for evaluating the provided rights on
+   * the provided entry. This is equivalent to filtering the result of
+   * {@link #getCandidateAcis(DN)} with the checks of
+   * {@link Aci#isApplicable(Aci, AciTargetMatchContext)} that only depend on
+   * the rights, but the ACIs inherited from the parent entries are gathered
+   * and filtered once for all the entries of a container.
+   *
+   * @param entryDN  The DN of the entry to check.
+   * @param rights  The rights being evaluated.
+   * @return A list of candidate ACIs that might be applicable.
+   */
+  public List<Aci> getCandidateAcis(DN entryDN, int rights) {
+    if (entryDN == null || entryDN.isRootDN())
+    {
+      return getCandidateAcis(entryDN);
+    }
+
+    lock.readLock().lock();
+    try
+    {
+      return getCompiledAcis(entryDN.parent()).getCandidateAcis(entryDN, aciList.get(entryDN), rights);
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the candidate ACIs for evaluating the provided rights on the
+   * provided entry if their evaluation does not depend on the entry, so that
+   * its outcome for an attribute is the same for all the entries immediately
+   * below the parent of the provided entry which do not hold ACIs.
+   *
+   * @param entryDN  The DN of the entry to check.
+   * @param rights  The rights being evaluated.
+   * @return The entry independent candidate ACIs, which must only be compared
+   *         by identity, or {@code null} if the evaluation of the candidate
+   *         ACIs depends on the entry.
+   */
+  CompiledAcis getEntryIndependentAcis(DN entryDN, int rights) {
+    if (entryDN == null || entryDN.isRootDN())
+    {
+      return null;
+    }
+
+    lock.readLock().lock();
+    try
+    {
+      if (aciList.get(entryDN) != null)
+      {
+        return null;
+      }
+      return getCompiledAcis(entryDN.parent()).getEntryIndependentAcis(rights);
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Returns the ACIs inherited below the provided container. Must be called with the read lock held. */
+  private CompiledAcis getCompiledAcis(DN containerDN) {
+    CompiledAcis compiled = compiledAcis.get(containerDN);
+    if (compiled == null)
+    {
+      if (compiledAcis.size() >= MAX_COMPILED_CONTAINERS)
+      {
+        compiledAcis.clear();
+      }
+      compiled = CompiledAcis.compile(aciList, containerDN);
+      compiledAcis.put(containerDN, compiled);
+    }
+    return compiled;
+  }
+
+  /**
+   * Returns the generation of this ACI list, which changes whenever an ACI is
+   * added, removed or renamed, so that the outcome of ACI evaluations can be
+   * cached until then.
+   *
+   * @return The generation of this ACI list.
+   */
+  public long getGeneration() {
+    return generation;
+  }
+
+  /** Discards the compiled ACIs. Must be called with the write lock held. */
+  private void invalidateCompiledAcis() {
+    compiledAcis.clear();
+    generation = generations.incrementAndGet();
+  }
+
   /**
    * Add all the ACI from a set of entries to the ACI list. There is no need
    * to check for global ACIs since they are processe by the AciHandler at
@@ -144,6 +257,7 @@ public class AciList {
     lock.writeLock().lock();
     try
     {
+      invalidateCompiledAcis();
       int validAcis = 0;
       for (Entry entry : entries) {
         DN dn=entry.getName();
@@ -173,6 +287,7 @@ public class AciList {
     lock.writeLock().lock();
     try
     {
+      invalidateCompiledAcis();
       aciList.put(dn, new LinkedList<>(acis));
     }
     finally
@@ -198,6 +313,7 @@ public class AciList {
     lock.writeLock().lock();
     try
     {
+      invalidateCompiledAcis();
       int validAcis = 0;
       //Process global "ds-cfg-global-aci" attribute type. The oldentry
       //DN is checked to verify it is equal to the config DN. If not those
@@ -285,6 +401,7 @@ public class AciList {
     lock.writeLock().lock();
     try
     {
+      invalidateCompiledAcis();
       List<LocalizableMessage> failedACIMsgs=new LinkedList<>();
       //Process "aci" attribute types.
       if(hasAci) {
@@ -346,6 +463,7 @@ public class AciList {
     lock.writeLock().lock();
     try
     {
+      invalidateCompiledAcis();
       DN entryDN = entry.getName();
       if (hasGlobalAci && entryDN.equals(configDN) &&
           aciList.remove(DN.rootDN()) == null)
@@ -374,6 +492,7 @@ public class AciList {
     lock.writeLock().lock();
     try
     {
+      invalidateCompiledAcis();
       Iterator<Map.Entry<DN,List<Aci>>> iterator =
               aciList.entrySet().iterator();
       while (iterator.hasNext())
@@ -402,6 +521,7 @@ public class AciList {
     lock.writeLock().lock();
     try
     {
+      invalidateCompiledAcis();
       Map<DN,List<Aci>> tempAciList = new HashMap<>();
       Iterator<Map.Entry<DN,List<Aci>>> iterator =
               aciList.entrySet().iterator();
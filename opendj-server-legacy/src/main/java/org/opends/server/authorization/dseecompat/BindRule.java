@@ -13,6 +13,7 @@
  *
  * Copyright 2008 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -42,6 +43,11 @@ public class BindRule {
     private final EnumBooleanTypes booleanType;
     /** The keyword of a simple bind rule. */
     private final EnumBindRuleKeyword keyword;
+    /**
+     * True if the outcome of this bind rule only depends on the client, and
+     * can be cached for the identity authorized on a connection.
+     */
+    private final boolean clientOnly;
 
     /** Regular expression group position of a bind rule keyword. */
     private static final int keywordPos = 1;
@@ -90,6 +96,28 @@ public class BindRule {
         this.booleanType = null;
         this.left = null;
         this.right = null;
+        this.clientOnly = dependsOnClientOnly(keyword, rule);
+    }
+
+    /**
+     * Returns whether the outcome of the provided keyword bind rule only
+     * depends on the client, as opposed to the entry being accessed, the
+     * time of the day or the security of the connection at that time. Only
+     * the keywords which are worth caching are considered. The outcome of
+     * groupdn bind rules also depends on the contents of the client entry for
+     * dynamic groups, whose changes update the group manager membership
+     * generation the cached outcomes are keyed by.
+     */
+    private static boolean dependsOnClientOnly(EnumBindRuleKeyword keyword, KeywordBindRule rule) {
+        switch (keyword) {
+        case GROUPDN:
+        case DNS:
+            return true;
+        case USERDN:
+            return !((UserDN) rule).dependsOnResource();
+        default:
+            return false;
+        }
     }
 
     /*
@@ -130,6 +158,7 @@ public class BindRule {
         this.booleanType = booleanType;
         this.left = left;
         this.right = right;
+        this.clientOnly = left.clientOnly && right.clientOnly;
     }
 
     /*
@@ -450,6 +479,16 @@ public class BindRule {
        return EnumEvalResult.FALSE;
     }
 
+    /**
+     * Returns whether the outcome of this bind rule only depends on the
+     * client, and can be cached for the identity authorized on a connection.
+     * @return {@code true} if the outcome of this bind rule only depends on
+     * the client.
+     */
+    boolean isClientOnly() {
+        return clientOnly;
+    }
+
     /**
      * Evaluate an bind rule against an evaluation context. If it is a simple
      * bind rule (no boolean type) then grab the keyword rule from the map
@@ -460,6 +499,13 @@ public class BindRule {
      * @return An result enumeration containing the result of the evaluation.
      */
     public EnumEvalResult evaluate(AciEvalContext evalCtx) {
+        final BindRuleCache cache = clientOnly ? evalCtx.getBindRuleCache() : null;
+        if (cache != null) {
+            final EnumEvalResult cached = cache.get(this);
+            if (cached != null) {
+                return cached;
+            }
+        }
         EnumEvalResult ret;
         //Simple bind rules have a null booleanType enumeration.
         if(this.booleanType == null) {
@@ -468,7 +514,11 @@ public class BindRule {
         } else {
             ret = evalComplex(left.evaluate(evalCtx),right.evaluate(evalCtx));
         }
-        return EnumEvalResult.negateIfNeeded(ret, negate);
+        ret = EnumEvalResult.negateIfNeeded(ret, negate);
+        if (cache != null) {
+            cache.put(this, ret);
+        }
+        return ret;
     }
 
     @Override
@@ -0,0 +1,241 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.authorization.dseecompat;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.opends.server.api.ClientConnection;
+
+/**
+ * Caches the outcome of the bind rules which only depend on the client, such
+ * as userdn and groupdn bind rules, for the identity authorized on a client
+ * connection, so that they are evaluated once per connection rather than once
+ * per entry and attribute.
+ * <p>
+ * It also caches whether reading an attribute is allowed, for the entries
+ * whose candidate ACIs are entry independent, as decided by
+ * {@link CompiledAcis}, so that filtering the attributes of the entries
+ * returned by searches below the same container only evaluates the ACIs once
+ * per attribute type.
+ * <p>
+ * The cache is kept in the client connection, which discards it when it
+ * authenticates again. It is replaced when the ACIs change, and when a group
+ * or the members of a group change. The ACI list may also recompile the ACIs
+ * of a container without any change, leaving decisions keyed by the previous
+ * {@link CompiledAcis} unreachable: like the ACI list does for compiled
+ * containers, the cached outcomes and decisions are therefore discarded once
+ * their maximum number is reached, rather than no longer caching new ones.
+ */
+final class BindRuleCache
+{
+  /** Maximum number of bind rule outcomes kept, to bound the memory used per connection. */
+  private static final int MAX_CACHED_RULES = 1024;
+  /** Maximum number of attribute access decisions kept, to bound the memory used per connection. */
+  static final int MAX_CACHED_DECISIONS = 4096;
+
+  private final long aciGeneration;
+  private final long groupGeneration;
+  private final DN clientDN;
+  private final ConcurrentMap<BindRule, EnumEvalResult> results = new ConcurrentHashMap<>();
+  private final ConcurrentMap<DecisionKey, AttributeDecision> decisions = new ConcurrentHashMap<>();
+
+  private BindRuleCache(long aciGeneration, long groupGeneration, DN clientDN)
+  {
+    this.aciGeneration = aciGeneration;
+    this.groupGeneration = groupGeneration;
+    this.clientDN = clientDN;
+  }
+
+  /**
+   * Returns the cache of the provided client connection, replacing it if it
+   * was filled for other ACIs, groups or client.
+   *
+   * @param clientConnection
+   *          the client connection
+   * @param aciGeneration
+   *          the current generation of the ACI list
+   * @param groupGeneration
+   *          the current membership generation of the group manager
+   * @param clientDN
+   *          the DN of the client whose bind rules are evaluated
+   * @return the cache of the client connection
+   */
+  static BindRuleCache getInstance(ClientConnection clientConnection, long aciGeneration, long groupGeneration,
+      DN clientDN)
+  {
+    final Object state = clientConnection.getAccessControlState();
+    if (state instanceof BindRuleCache)
+    {
+      final BindRuleCache cache = (BindRuleCache) state;
+      if (cache.aciGeneration == aciGeneration
+          && cache.groupGeneration == groupGeneration
+          && cache.clientDN.equals(clientDN))
+      {
+        return cache;
+      }
+    }
+    final BindRuleCache cache = new BindRuleCache(aciGeneration, groupGeneration, clientDN);
+    clientConnection.setAccessControlState(cache);
+    return cache;
+  }
+
+  /**
+   * Returns the cached outcome of the provided bind rule.
+   *
+   * @param bindRule
+   *          the bind rule
+   * @return the outcome of the bind rule, or {@code null} if it is not cached
+   */
+  EnumEvalResult get(BindRule bindRule)
+  {
+    return results.get(bindRule);
+  }
+
+  /**
+   * Caches the outcome of the provided bind rule, unless it is a failure.
+   *
+   * @param bindRule
+   *          the bind rule
+   * @param result
+   *          the outcome of the bind rule
+   */
+  void put(BindRule bindRule, EnumEvalResult result)
+  {
+    if (result == EnumEvalResult.TRUE || result == EnumEvalResult.FALSE)
+    {
+      if (results.size() >= MAX_CACHED_RULES)
+      {
+        results.clear();
+      }
+      results.put(bindRule, result);
+    }
+  }
+
+  /**
+   * Returns the cached decision of evaluating the provided entry independent
+   * ACIs on an attribute.
+   *
+   * @param acis
+   *          the entry independent candidate ACIs
+   * @param attrType
+   *          the attribute type being evaluated
+   * @param evalAttributes
+   *          the state of the evaluation context before the evaluation, as
+   *          returned by {@link AciContainer#getEvalAttributes()}
+   * @return the cached decision, or {@code null} if it is not cached
+   */
+  AttributeDecision getAttributeDecision(CompiledAcis acis, AttributeType attrType, int evalAttributes)
+  {
+    return decisions.isEmpty() ? null : decisions.get(new DecisionKey(acis, attrType, evalAttributes));
+  }
+
+  /**
+   * Caches the decision of evaluating the provided entry independent ACIs on
+   * an attribute.
+   *
+   * @param acis
+   *          the entry independent candidate ACIs
+   * @param attrType
+   *          the attribute type being evaluated
+   * @param evalAttributes
+   *          the state of the evaluation context before the evaluation
+   * @param decision
+   *          the decision
+   */
+  void putAttributeDecision(CompiledAcis acis, AttributeType attrType, int evalAttributes, AttributeDecision decision)
+  {
+    if (decisions.size() >= MAX_CACHED_DECISIONS)
+    {
+      decisions.clear();
+    }
+    decisions.put(new DecisionKey(acis, attrType, evalAttributes), decision);
+  }
+
+  /**
+   * Whether reading an attribute is allowed, along with the state the
+   * evaluation leaves in the evaluation context.
+   */
+  static final class AttributeDecision
+  {
+    private final boolean allowed;
+    private final int evalAttributes;
+
+    /**
+     * Creates a new decision.
+     *
+     * @param allowed
+     *          whether access to the attribute is allowed
+     * @param evalAttributes
+     *          the state of the evaluation context after the evaluation
+     */
+    AttributeDecision(boolean allowed, int evalAttributes)
+    {
+      this.allowed = allowed;
+      this.evalAttributes = evalAttributes;
+    }
+
+    boolean isAllowed()
+    {
+      return allowed;
+    }
+
+    int getEvalAttributes()
+    {
+      return evalAttributes;
+    }
+  }
+
+  /** The entry independent ACIs, compared by identity, the attribute type and the evaluation context state. */
+  private static final class DecisionKey
+  {
+    private final CompiledAcis acis;
+    private final AttributeType attrType;
+    private final int evalAttributes;
+
+    private DecisionKey(CompiledAcis acis, AttributeType attrType, int evalAttributes)
+    {
+      this.acis = acis;
+      this.attrType = attrType;
+      this.evalAttributes = evalAttributes;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+      if (this == obj)
+      {
+        return true;
+      }
+      if (obj instanceof DecisionKey)
+      {
+        final DecisionKey other = (DecisionKey) obj;
+        return acis == other.acis
+            && evalAttributes == other.evalAttributes
+            && attrType.equals(other.attrType);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return (31 * System.identityHashCode(acis) + attrType.hashCode()) * 31 + evalAttributes;
+    }
+  }
+}
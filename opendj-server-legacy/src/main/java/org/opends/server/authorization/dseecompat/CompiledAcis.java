@@ -0,0 +1,257 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.authorization.dseecompat;
+
+import static org.opends.server.authorization.dseecompat.Aci.*;
+import static org.opends.server.authorization.dseecompat.EnumTargetOperator.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.api.DITCacheMap;
+
+/**
+ * The ACIs inherited by the entries immediately below a container entry,
+ * gathered once from the ACI list instead of walking up the DIT for each
+ * entry, and indexed by the rights being evaluated.
+ * <p>
+ * The candidate ACIs of an entry are the ACIs of the entry itself, followed
+ * by the ACIs inherited from its parent, followed by the global ACIs whose
+ * target matches the entry. Candidates are only kept for the rights they
+ * may grant or deny, and the ACIs having an extop or a targetcontrol target
+ * are only kept for extended operation or control access checks, as
+ * {@link Aci#isApplicable(Aci, AciTargetMatchContext)} would reject them
+ * otherwise.
+ * <p>
+ * Instances are immutable once created, apart from the lazily filled index by
+ * rights, and are discarded by the ACI list whenever an ACI changes.
+ * <p>
+ * When the candidate ACIs for some rights have no targetfilter or
+ * targattrfilters, a target which either applies to all the entries
+ * immediately below the container entry or to none of them, and bind rules
+ * which only depend on the client, then the outcome of their evaluation on an
+ * attribute is the same for all these entries which have no ACIs of their
+ * own. Such candidates are said to be entry independent, and the access
+ * control handler caches the outcome of their evaluation per client
+ * connection.
+ */
+final class CompiledAcis
+{
+  /** The DN of the container entry. */
+  private final DN containerDN;
+  /** The ACIs inherited from the container entry and its parents, closest first. */
+  private final List<Aci> inheritedAcis;
+  /** The global ACIs, which must be target matched against each entry. */
+  private final List<Aci> globalAcis;
+  /** The candidate ACIs for each rights mask evaluated so far. */
+  private final ConcurrentMap<Integer, CompiledAcis> byRights = new ConcurrentHashMap<>();
+  /** Whether the evaluation of these ACIs does not depend on the entries below the container entry. */
+  private final boolean entryIndependent;
+
+  private CompiledAcis(DN containerDN, List<Aci> inheritedAcis, List<Aci> globalAcis)
+  {
+    this.containerDN = containerDN;
+    this.inheritedAcis = inheritedAcis;
+    this.globalAcis = globalAcis;
+    this.entryIndependent = isEntryIndependent(containerDN, inheritedAcis) && isEntryIndependent(containerDN, globalAcis);
+  }
+
+  /**
+   * Gathers the ACIs inherited by the entries immediately below the provided
+   * container entry.
+   *
+   * @param aciList
+   *          the ACIs keyed by the DN of the entry holding them, global ACIs
+   *          being keyed by the root DN
+   * @param containerDN
+   *          the DN of the container entry
+   * @return the ACIs inherited by the entries below the container entry
+   */
+  static CompiledAcis compile(DITCacheMap<List<Aci>> aciList, DN containerDN)
+  {
+    final List<Aci> inheritedAcis = new ArrayList<>();
+    List<Aci> globalAcis = new ArrayList<>(0);
+    DN dn = containerDN;
+    while (dn != null)
+    {
+      final List<Aci> acis = aciList.get(dn);
+      if (dn.isRootDN())
+      {
+        if (acis != null)
+        {
+          globalAcis = new ArrayList<>(acis);
+        }
+        break;
+      }
+      if (acis != null)
+      {
+        inheritedAcis.addAll(acis);
+      }
+      final DN parentDN = dn.parent();
+      dn = parentDN != null ? parentDN : DN.rootDN();
+    }
+    return new CompiledAcis(containerDN, inheritedAcis, globalAcis);
+  }
+
+  /**
+   * Returns the candidate ACIs for evaluating the provided rights on an entry
+   * immediately below the container entry.
+   *
+   * @param entryDN
+   *          the DN of the entry
+   * @param entryAcis
+   *          the ACIs held by the entry itself, or {@code null} if it has none
+   * @param rights
+   *          the rights being evaluated
+   * @return the candidate ACIs, in evaluation order
+   */
+  List<Aci> getCandidateAcis(DN entryDN, List<Aci> entryAcis, int rights)
+  {
+    final CompiledAcis compiled = forRights(rights);
+    final List<Aci> candidates = new ArrayList<>(
+        compiled.inheritedAcis.size() + compiled.globalAcis.size() + (entryAcis != null ? entryAcis.size() : 0));
+    if (entryAcis != null)
+    {
+      for (Aci aci : entryAcis)
+      {
+        if (isCandidate(aci, rights))
+        {
+          candidates.add(aci);
+        }
+      }
+    }
+    candidates.addAll(compiled.inheritedAcis);
+    for (Aci aci : compiled.globalAcis)
+    {
+      final AciTargets targets = aci.getTargets();
+      if (targets != null && AciTargets.isTargetApplicable(aci, targets, entryDN))
+      {
+        candidates.add(aci);
+      }
+    }
+    return candidates;
+  }
+
+  /**
+   * Returns the candidate ACIs for evaluating the provided rights on the
+   * entries immediately below the container entry if they are entry
+   * independent.
+   *
+   * @param rights
+   *          the rights being evaluated
+   * @return the candidate ACIs for the provided rights, or {@code null} if
+   *         their evaluation depends on the entry
+   */
+  CompiledAcis getEntryIndependentAcis(int rights)
+  {
+    final CompiledAcis compiled = forRights(rights);
+    return compiled.entryIndependent ? compiled : null;
+  }
+
+  private CompiledAcis forRights(int rights)
+  {
+    final Integer key = rights;
+    CompiledAcis compiled = byRights.get(key);
+    if (compiled == null)
+    {
+      compiled = new CompiledAcis(containerDN, filter(inheritedAcis, rights), filter(globalAcis, rights));
+      final CompiledAcis previous = byRights.putIfAbsent(key, compiled);
+      if (previous != null)
+      {
+        compiled = previous;
+      }
+    }
+    return compiled;
+  }
+
+  private static List<Aci> filter(List<Aci> acis, int rights)
+  {
+    final List<Aci> filtered = new ArrayList<>(acis.size());
+    for (Aci aci : acis)
+    {
+      if (isCandidate(aci, rights))
+      {
+        filtered.add(aci);
+      }
+    }
+    return filtered;
+  }
+
+  private static boolean isEntryIndependent(DN containerDN, List<Aci> acis)
+  {
+    for (Aci aci : acis)
+    {
+      final AciTargets targets = aci.getTargets();
+      if (targets == null
+          || targets.getTargetFilter() != null
+          || targets.getTargAttrFilters() != null
+          || !isTargetUniformBelow(aci, targets, containerDN)
+          || !aci.hasClientOnlyBindRules())
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns whether
+   * {@link AciTargets#isTargetApplicable(Aci, AciTargets, DN)} returns the
+   * same result for all the entries immediately below the container entry.
+   * The scope of the ACI is a subtree, a single level or a base entry whose
+   * root is the target DN, or the DN of the entry holding the ACI, hence it is
+   * the same for all these entries unless it is rooted at one of them.
+   */
+  private static boolean isTargetUniformBelow(Aci aci, AciTargets targets, DN containerDN)
+  {
+    final Target target = targets.getTarget();
+    if (target == null)
+    {
+      return !containerDN.equals(aci.getDN().parent());
+    }
+    else if (target.isPattern())
+    {
+      return false;
+    }
+    // An inequality target is scoped by the entry holding the ACI, excluding the target DN subtree.
+    return !containerDN.equals(target.getDN().parent())
+        && (target.getOperator() != NOT_EQUALITY || !containerDN.equals(aci.getDN().parent()));
+  }
+
+  /**
+   * Mirrors the checks of {@link Aci#isApplicable(Aci, AciTargetMatchContext)}
+   * which only depend on the ACI and on the rights being evaluated.
+   */
+  private static boolean isCandidate(Aci aci, int rights)
+  {
+    final AciTargets targets = aci.getTargets();
+    if ((rights & ACI_EXT_OP) != 0)
+    {
+      return targets.getExtOp() != null;
+    }
+    else if ((rights & ACI_CONTROL) != 0)
+    {
+      return targets.getTargetControl() != null;
+    }
+    return targets.getExtOp() == null
+        && targets.getTargetControl() == null
+        && (aci.hasRights(rights)
+            || (aci.hasRights(ACI_SEARCH | ACI_READ) && (rights & (ACI_SEARCH | ACI_READ)) != 0));
+  }
+}
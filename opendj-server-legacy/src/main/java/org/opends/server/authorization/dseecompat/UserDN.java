@@ -13,6 +13,7 @@
  *
  * Copyright 2008 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -56,6 +57,27 @@ public class UserDN implements KeywordBindRule {
        this.urlList=urlList;
     }
 
+    /**
+     * Returns whether the evaluation of this userdn bind rule depends on the
+     * entry being accessed, or on the contents of the client entry, rather
+     * than on the client DN only.
+     * @return {@code true} if this bind rule has a self, parent or LDAP URL
+     * with search parameters userdn.
+     */
+    boolean dependsOnResource() {
+        for (UserDNTypeURL dnTypeURL : urlList) {
+            switch (dnTypeURL.getUserDNType()) {
+            case SELF:
+            case PARENT:
+            case URL:
+                return true;
+            default:
+                break;
+            }
+        }
+        return false;
+    }
+
     /**
      * Decodes an expression string representing a userdn bind rule.
      * @param expression The string representation of the userdn bind rule
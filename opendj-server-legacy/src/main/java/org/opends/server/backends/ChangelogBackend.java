@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends;
 
@@ -209,6 +210,8 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
   /** The set of change number-based persistent searches registered with this backend. */
   private final ConcurrentLinkedQueue<PersistentSearch> changeNumberBasedPersistentSearches =
       new ConcurrentLinkedQueue<>();
+  /** The set of changelog stream cursors opened on this backend. */
+  private final ConcurrentLinkedQueue<ChangelogStreamCursor> changelogStreamCursors = new ConcurrentLinkedQueue<>();
 
   /**
    * Creates a new backend with the provided replication server.
@@ -359,7 +362,7 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
   }
 
   /**
-   * Notifies persistent searches of this backend that a new cookie entry was added to it.
+   * Notifies persistent searches and changelog stream cursors of this backend that a new cookie entry was added to it.
    * <p>
    * Note: This method correspond to the "persistent search" phase.
    * It is executed multiple times per persistent search, multi-threaded, until the persistent search is cancelled.
@@ -375,6 +378,10 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
    */
   public void notifyCookieEntryAdded(DN baseDN, UpdateMsg updateMsg) throws ChangelogException
   {
+    for (ChangelogStreamCursor streamCursor : changelogStreamCursors)
+    {
+      streamCursor.notifyChangesAdded();
+    }
     if (!(updateMsg instanceof LDAPUpdateMsg))
     {
       return;
@@ -443,6 +450,50 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
     }
   }
 
+  /**
+   * Opens a cursor streaming the changes of the cookie based external changelog which come after the
+   * provided cookie.
+   * <p>
+   * The cursor returns the raw update messages: it is meant for clients which do not need the changelog
+   * entries. It must be closed once it is not used anymore.
+   *
+   * @param cookie
+   *          the cookie after which changes must be returned, which may be empty in order to return all the
+   *          changes. It is updated by the cursor as it moves forward.
+   * @param listener
+   *          the listener notified when changes are added to the changelog, until the cursor is closed
+   * @return a cursor on the changes coming after the provided cookie
+   * @throws DirectoryException
+   *           If the provided cookie is not valid
+   * @throws ChangelogException
+   *           If a problem occurs while opening the cursor
+   */
+  public ChangelogStreamCursor openChangelogStreamCursor(final MultiDomainServerState cookie,
+      final ChangelogStreamCursor.ChangeListener listener) throws DirectoryException, ChangelogException
+  {
+    final Set<DN> excludedBaseDNs = getExcludedBaseDNs();
+    validateProvidedCookie(cookie, excludedBaseDNs);
+
+    final ReplicationDomainDB replicationDomainDB = getChangelogDB().getReplicationDomainDB();
+    final CursorOptions options = new CursorOptions(GREATER_THAN_OR_EQUAL_TO_KEY, AFTER_MATCHING_KEY);
+    final MultiDomainDBCursor cursor = replicationDomainDB.getCursorFrom(cookie, options, excludedBaseDNs);
+    final ChangelogStreamCursor streamCursor =
+        new ChangelogStreamCursor(this, new ECLMultiDomainDBCursor(domainPredicate, cursor), cookie, listener);
+    changelogStreamCursors.add(streamCursor);
+    return streamCursor;
+  }
+
+  /**
+   * Stops notifying the provided changelog stream cursor of the changes added to the changelog.
+   *
+   * @param streamCursor
+   *          the changelog stream cursor being closed
+   */
+  void unregisterChangelogStreamCursor(final ChangelogStreamCursor streamCursor)
+  {
+    changelogStreamCursors.remove(streamCursor);
+  }
+
   private boolean isCookieBased(final SearchOperation searchOp)
   {
     for (Control c : searchOp.getRequestControls())
@@ -1135,7 +1186,7 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
   }
 
   /** Creates a changelog entry. */
-  private static Entry createEntryFromMsg(final DN baseDN, final long changeNumber, final String cookie,
+  static Entry createEntryFromMsg(final DN baseDN, final long changeNumber, final String cookie,
       final UpdateMsg msg) throws DirectoryException
   {
     if (msg instanceof AddMsg)
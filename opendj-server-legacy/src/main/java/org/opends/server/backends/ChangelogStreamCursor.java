@@ -0,0 +1,153 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends;
+
+import java.io.Closeable;
+
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.replication.common.MultiDomainServerState;
+import org.opends.server.replication.protocol.LDAPUpdateMsg;
+import org.opends.server.replication.protocol.UpdateMsg;
+import org.opends.server.replication.server.changelog.api.ChangelogException;
+import org.opends.server.replication.server.changelog.file.ECLMultiDomainDBCursor;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+
+/**
+ * Cursor over the changes of the cookie based external changelog, returning
+ * the raw replication update messages instead of changelog entries.
+ * <p>
+ * The cursor never waits for changes: once all the changes currently in the
+ * changelog have been read, {@link #next()} returns {@code false} and the
+ * {@link ChangeListener} of the cursor is notified by the threads adding
+ * changes to the changelog, like persistent searches are. A cursor must only
+ * be used by one thread at a time.
+ *
+ * @see ChangelogBackend#openChangelogStreamCursor(MultiDomainServerState, ChangeListener)
+ */
+public final class ChangelogStreamCursor implements Closeable
+{
+  /** Notified when changes have been added to the changelog. */
+  public interface ChangeListener
+  {
+    /**
+     * Changes have been added to the changelog, which the cursor may return
+     * from now on. This method is called by the threads adding the changes,
+     * and must not block.
+     */
+    void changesAdded();
+  }
+
+  private final ChangelogBackend backend;
+  private final ECLMultiDomainDBCursor cursor;
+  private final MultiDomainServerState cookie;
+  private final ChangeListener listener;
+
+  ChangelogStreamCursor(ChangelogBackend backend, ECLMultiDomainDBCursor cursor, MultiDomainServerState cookie,
+      ChangeListener listener)
+  {
+    this.backend = backend;
+    this.cursor = cursor;
+    this.cookie = cookie;
+    this.listener = listener;
+  }
+
+  /**
+   * Moves this cursor to the next change of the changelog, if any.
+   *
+   * @return {@code true} if this cursor is positioned on a change, {@code false}
+   *         if all the changes of the changelog have been read
+   * @throws ChangelogException
+   *           if a problem occurs while reading the changelog
+   */
+  public boolean next() throws ChangelogException
+  {
+    while (cursor.next())
+    {
+      final UpdateMsg msg = cursor.getRecord();
+      if (msg instanceof LDAPUpdateMsg)
+      {
+        cookie.update(cursor.getData(), msg.getCSN());
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the change this cursor is positioned on.
+   *
+   * @return the change this cursor is positioned on
+   */
+  public LDAPUpdateMsg getRecord()
+  {
+    return (LDAPUpdateMsg) cursor.getRecord();
+  }
+
+  /**
+   * Returns the base DN of the replication domain of the change this cursor
+   * is positioned on.
+   *
+   * @return the base DN of the replication domain of the current change
+   */
+  public DN getBaseDN()
+  {
+    return cursor.getData();
+  }
+
+  /**
+   * Returns the cookie of the change this cursor is positioned on, which must
+   * not be modified.
+   *
+   * @return the cookie of the change this cursor is positioned on
+   */
+  public MultiDomainServerState getCookie()
+  {
+    return cookie;
+  }
+
+  /**
+   * Returns the cn=changelog entry of the change this cursor is positioned on,
+   * as returned by cookie based searches, for evaluating access controls.
+   *
+   * @return the cn=changelog entry of the current change
+   * @throws DirectoryException
+   *           if the change cannot be converted into an entry
+   */
+  public Entry toChangelogEntry() throws DirectoryException
+  {
+    return ChangelogBackend.createEntryFromMsg(getBaseDN(), 0, cookie.toString(), getRecord());
+  }
+
+  /** Notifies the listener of this cursor that changes have been added to the changelog. */
+  void notifyChangesAdded()
+  {
+    listener.changesAdded();
+  }
+
+  @Override
+  public void close()
+  {
+    backend.unregisterChangelogStreamCursor(this);
+    cursor.close();
+  }
+
+  @Override
+  public String toString()
+  {
+    return getClass().getSimpleName() + "(cookie=" + cookie + ", cursor=" + cursor + ")";
+  }
+}
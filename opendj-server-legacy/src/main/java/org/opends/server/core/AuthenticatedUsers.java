@@ -13,21 +13,25 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.EnumSet;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.opends.server.api.ClientConnection;
-import org.opends.server.api.DITCacheMap;
 import org.opends.server.api.plugin.InternalDirectoryServerPlugin;
 import org.opends.server.api.plugin.PluginResult.PostResponse;
 import org.opends.server.types.DisconnectReason;
@@ -48,6 +52,16 @@ import static org.opends.server.api.plugin.PluginType.*;
  * This class also provides a mechanism for detecting changes to authenticated
  * user entries and notifying the corresponding client connections so that they
  * can update their cached versions.
+ * <BR><BR>
+ * The user DNs are held in concurrent maps, so that the modify, delete and
+ * modify DN operations, which all check whether they target an authenticated
+ * user, do not take any lock. The set of client connections of a user DN is
+ * only locked while connections are registered with or deregistered from that
+ * user DN. The parent DNs of the authenticated user DNs are also recorded, so
+ * that an operation targeting an entry which is neither an authenticated user
+ * nor one of its parents can be detected without walking the user DNs. Parent
+ * DNs are recorded as long as they may have authenticated users below them,
+ * hence they are only forgotten once their subtree has been walked.
  */
 public class AuthenticatedUsers extends InternalDirectoryServerPlugin
 {
@@ -57,10 +71,10 @@ public class AuthenticatedUsers extends InternalDirectoryServerPlugin
    * The mapping between authenticated user DNs and the associated client
    * connection objects.
    */
-  private final DITCacheMap<CopyOnWriteArraySet<ClientConnection>> userMap;
+  private final ConcurrentMap<DN, CopyOnWriteArraySet<ClientConnection>> userMap;
 
-  /** Lock to protect internal data structures. */
-  private final ReentrantReadWriteLock lock;
+  /** The parent DNs of the authenticated user DNs, up to but excluding the root DN. */
+  private final ConcurrentMap<DN, Boolean> parentDNs;
 
   /** Dummy configuration DN. */
   private static final String CONFIG_DN = "cn=Authenticated Users,cn=config";
@@ -75,8 +89,9 @@ public class AuthenticatedUsers extends InternalDirectoryServerPlugin
         // can not be authenticated as a user that does not exist yet.
         POST_RESPONSE_MODIFY, POST_RESPONSE_MODIFY_DN, POST_RESPONSE_DELETE),
         true);
-    userMap = new DITCacheMap<>();
-    lock = new ReentrantReadWriteLock();
+    final int concurrencyLevel = Runtime.getRuntime().availableProcessors() * 4;
+    userMap = new ConcurrentHashMap<>(16, 0.75f, concurrencyLevel);
+    parentDNs = new ConcurrentHashMap<>(16, 0.75f, concurrencyLevel);
 
     DirectoryServer.registerInternalPlugin(this);
   }
@@ -91,24 +106,39 @@ public class AuthenticatedUsers extends InternalDirectoryServerPlugin
    */
   public void put(DN userDN, ClientConnection clientConnection)
   {
-    lock.writeLock().lock();
-    try
+    while (true)
     {
       CopyOnWriteArraySet<ClientConnection> connectionSet = userMap.get(userDN);
       if (connectionSet == null)
       {
         connectionSet = new CopyOnWriteArraySet<>();
         connectionSet.add(clientConnection);
-        userMap.put(userDN, connectionSet);
+        if (userMap.putIfAbsent(userDN, connectionSet) == null)
+        {
+          break;
+        }
       }
       else
       {
-        connectionSet.add(clientConnection);
+        synchronized (connectionSet)
+        {
+          // The set may have been emptied and removed concurrently.
+          if (userMap.get(userDN) == connectionSet)
+          {
+            connectionSet.add(clientConnection);
+            break;
+          }
+        }
       }
     }
-    finally
+
+    // Record the parent DNs once the user DN is visible, see removeSubtree().
+    for (DN parentDN = userDN.parent(); parentDN != null && !parentDN.isRootDN(); parentDN = parentDN.parent())
     {
-      lock.writeLock().unlock();
+      if (!parentDNs.containsKey(parentDN))
+      {
+        parentDNs.put(parentDN, Boolean.TRUE);
+      }
     }
   }
 
@@ -124,22 +154,56 @@ public class AuthenticatedUsers extends InternalDirectoryServerPlugin
    */
   public void remove(DN userDN, ClientConnection clientConnection)
   {
-    lock.writeLock().lock();
-    try
+    CopyOnWriteArraySet<ClientConnection> connectionSet = userMap.get(userDN);
+    if (connectionSet != null)
     {
-      CopyOnWriteArraySet<ClientConnection> connectionSet = userMap.get(userDN);
-      if (connectionSet != null)
+      synchronized (connectionSet)
       {
         connectionSet.remove(clientConnection);
         if (connectionSet.isEmpty())
         {
-          userMap.remove(userDN);
+          userMap.remove(userDN, connectionSet);
         }
       }
     }
-    finally
+  }
+
+
+
+  /**
+   * Replaces the user DNs with which the provided client connection is
+   * registered, in a single batch. The user DNs which are both in the old and
+   * new identities are left untouched, so that a client connection binding
+   * again as the same user does not deregister and register it again.
+   *
+   * @param  clientConnection  The client connection over which the users are
+   *                           authenticated.
+   * @param  oldAuthNDN        The previous authentication DN, may be
+   *                           {@code null}.
+   * @param  oldAuthZDN        The previous authorization DN, may be
+   *                           {@code null}.
+   * @param  newAuthNDN        The new authentication DN, may be {@code null}.
+   * @param  newAuthZDN        The new authorization DN, may be {@code null}.
+   */
+  public void replace(ClientConnection clientConnection, DN oldAuthNDN, DN oldAuthZDN, DN newAuthNDN, DN newAuthZDN)
+  {
+    if (oldAuthNDN != null && !oldAuthNDN.equals(newAuthNDN) && !oldAuthNDN.equals(newAuthZDN))
+    {
+      remove(oldAuthNDN, clientConnection);
+    }
+    if (oldAuthZDN != null && !oldAuthZDN.equals(oldAuthNDN)
+        && !oldAuthZDN.equals(newAuthNDN) && !oldAuthZDN.equals(newAuthZDN))
     {
-      lock.writeLock().unlock();
+      remove(oldAuthZDN, clientConnection);
+    }
+    if (newAuthNDN != null && !newAuthNDN.equals(oldAuthNDN) && !newAuthNDN.equals(oldAuthZDN))
+    {
+      put(newAuthNDN, clientConnection);
+    }
+    if (newAuthZDN != null && !newAuthZDN.equals(newAuthNDN)
+        && !newAuthZDN.equals(oldAuthNDN) && !newAuthZDN.equals(oldAuthZDN))
+    {
+      put(newAuthZDN, clientConnection);
     }
   }
 
@@ -158,15 +222,43 @@ public class AuthenticatedUsers extends InternalDirectoryServerPlugin
    */
   public CopyOnWriteArraySet<ClientConnection> get(DN userDN)
   {
-    lock.readLock().lock();
-    try
+    return userMap.get(userDN);
+  }
+
+  /**
+   * Removes the authenticated user DNs at or below the provided DN.
+   *
+   * @param baseDN
+   *          The base DN of the subtree to remove.
+   * @return The removed user DNs with their client connections.
+   */
+  private List<Map.Entry<DN, CopyOnWriteArraySet<ClientConnection>>> removeSubtree(DN baseDN)
+  {
+    final List<Map.Entry<DN, CopyOnWriteArraySet<ClientConnection>>> removed = new ArrayList<>();
+    final CopyOnWriteArraySet<ClientConnection> connectionSet = userMap.remove(baseDN);
+    if (connectionSet != null)
     {
-      return userMap.get(userDN);
+      removed.add(new AbstractMap.SimpleImmutableEntry<>(baseDN, connectionSet));
     }
-    finally
+
+    /*
+     * Forget the parent DN before walking the user DNs: a user DN registered
+     * concurrently either is walked, or records the parent DN again.
+     */
+    if (parentDNs.remove(baseDN) != null)
     {
-      lock.readLock().unlock();
+      for (Iterator<Map.Entry<DN, CopyOnWriteArraySet<ClientConnection>>> it = userMap.entrySet().iterator();
+          it.hasNext();)
+      {
+        final Map.Entry<DN, CopyOnWriteArraySet<ClientConnection>> mapEntry = it.next();
+        if (mapEntry.getKey().isSubordinateOrEqualTo(baseDN)
+            && userMap.remove(mapEntry.getKey(), mapEntry.getValue()))
+        {
+          removed.add(mapEntry);
+        }
+      }
     }
+    return removed;
   }
 
   @Override
@@ -180,20 +272,9 @@ public class AuthenticatedUsers extends InternalDirectoryServerPlugin
 
     // Identify any client connections that may be authenticated
     // or authorized as the user whose entry has been deleted and terminate them
-    Set<CopyOnWriteArraySet<ClientConnection>> arraySet = new HashSet<>();
-    lock.writeLock().lock();
-    try
-    {
-      userMap.removeSubtree(entryDN, arraySet);
-    }
-    finally
-    {
-      lock.writeLock().unlock();
-    }
-
-    for (CopyOnWriteArraySet<ClientConnection> connectionSet : arraySet)
+    for (Map.Entry<DN, CopyOnWriteArraySet<ClientConnection>> mapEntry : removeSubtree(entryDN))
     {
-      for (ClientConnection conn : connectionSet)
+      for (ClientConnection conn : mapEntry.getValue())
       {
         LocalizableMessage message = WARN_CLIENTCONNECTION_DISCONNECT_DUE_TO_DELETE.get(entryDN);
         conn.disconnect(DisconnectReason.INVALID_CREDENTIALS, true, message);
@@ -204,23 +285,14 @@ public class AuthenticatedUsers extends InternalDirectoryServerPlugin
 
   private boolean operationDoesNotTargetAuthenticatedUser(final DN entryDN)
   {
-    lock.readLock().lock();
-    try
-    {
-      return !userMap.containsSubtree(entryDN);
-    }
-    finally
-    {
-      lock.readLock().unlock();
-    }
+    return !userMap.containsKey(entryDN) && !parentDNs.containsKey(entryDN);
   }
 
   @Override
   public PostResponse doPostResponse(PostResponseModifyOperation op)
   {
     final Entry oldEntry = op.getCurrentEntry();
-    if (op.getResultCode() != ResultCode.SUCCESS || oldEntry == null
-            ||  operationDoesNotTargetAuthenticatedUser(oldEntry.getName()))
+    if (op.getResultCode() != ResultCode.SUCCESS || oldEntry == null)
     {
       return PostResponse.continueOperationProcessing();
     }
@@ -229,27 +301,19 @@ public class AuthenticatedUsers extends InternalDirectoryServerPlugin
     // or authorized as the user whose entry has been modified
     // and update them with the latest version of the entry
     // including any virtual attributes.
-    lock.writeLock().lock();
-    try
+    CopyOnWriteArraySet<ClientConnection> connectionSet = userMap.get(oldEntry.getName());
+    if (connectionSet != null)
     {
-      CopyOnWriteArraySet<ClientConnection> connectionSet = userMap.get(oldEntry.getName());
-      if (connectionSet != null)
+      Entry newEntry = null;
+      for (ClientConnection conn : connectionSet)
       {
-        Entry newEntry = null;
-        for (ClientConnection conn : connectionSet)
+        if (newEntry == null)
         {
-          if (newEntry == null)
-          {
-            newEntry = op.getModifiedEntry().duplicate(true);
-          }
-          conn.updateAuthenticationInfo(oldEntry, newEntry);
+          newEntry = op.getModifiedEntry().duplicate(true);
         }
+        conn.updateAuthenticationInfo(oldEntry, newEntry);
       }
     }
-    finally
-    {
-      lock.writeLock().unlock();
-    }
     return PostResponse.continueOperationProcessing();
   }
 
@@ -270,81 +334,46 @@ public class AuthenticatedUsers extends InternalDirectoryServerPlugin
     // Identify any client connections that may be authenticated
     // or authorized as the user whose entry has been modified
     // and update them with the latest version of the entry.
-    lock.writeLock().lock();
-    try
+    for (Map.Entry<DN, CopyOnWriteArraySet<ClientConnection>> mapEntry : removeSubtree(oldDN))
     {
-      final Set<CopyOnWriteArraySet<ClientConnection>> arraySet = new HashSet<>();
-      userMap.removeSubtree(oldEntry.getName(), arraySet);
-      for (CopyOnWriteArraySet<ClientConnection> connectionSet : arraySet)
+      for (ClientConnection conn : mapEntry.getValue())
       {
-        DN authNDN = null;
-        DN authZDN = null;
-        DN newAuthNDN = null;
-        DN newAuthZDN = null;
-        CopyOnWriteArraySet<ClientConnection> newAuthNSet = null;
-        CopyOnWriteArraySet<ClientConnection> newAuthZSet = null;
-        for (ClientConnection conn : connectionSet)
+        final DN authNDN = conn.getAuthenticationInfo().getAuthenticationDN();
+        final DN authZDN = conn.getAuthenticationInfo().getAuthorizationDN();
+        if (authNDN != null && authNDN.isSubordinateOrEqualTo(oldDN))
         {
-          if (authNDN == null)
+          final DN newAuthNDN = rename(authNDN, oldDN, newDN);
+          if (newAuthNDN != null)
           {
-            authNDN = conn.getAuthenticationInfo().getAuthenticationDN();
-            try
-            {
-              newAuthNDN = authNDN.rename(oldDN, newDN);
-            }
-            catch (Exception e)
-            {
-              // Should not happen.
-              logger.traceException(e);
-            }
-          }
-          if (authZDN == null)
-          {
-            authZDN = conn.getAuthenticationInfo().getAuthorizationDN();
-            try
-            {
-              newAuthZDN = authZDN.rename(oldDN, newDN);
-            }
-            catch (Exception e)
-            {
-              // Should not happen.
-              logger.traceException(e);
-            }
-          }
-          if (newAuthNDN != null && authNDN != null && authNDN.isSubordinateOrEqualTo(oldEntry.getName()))
-          {
-            if (newAuthNSet == null)
-            {
-              newAuthNSet = new CopyOnWriteArraySet<>();
-            }
             conn.getAuthenticationInfo().setAuthenticationDN(newAuthNDN);
-            newAuthNSet.add(conn);
+            put(newAuthNDN, conn);
           }
-          if (newAuthZDN != null && authZDN != null && authZDN.isSubordinateOrEqualTo(oldEntry.getName()))
+        }
+        if (authZDN != null && authZDN.isSubordinateOrEqualTo(oldDN))
+        {
+          final DN newAuthZDN = rename(authZDN, oldDN, newDN);
+          if (newAuthZDN != null)
           {
-            if (newAuthZSet == null)
-            {
-              newAuthZSet = new CopyOnWriteArraySet<>();
-            }
             conn.getAuthenticationInfo().setAuthorizationDN(newAuthZDN);
-            newAuthZSet.add(conn);
+            put(newAuthZDN, conn);
           }
         }
-        if (newAuthNDN != null && newAuthNSet != null)
-        {
-          userMap.put(newAuthNDN, newAuthNSet);
-        }
-        if (newAuthZDN != null && newAuthZSet != null)
-        {
-          userMap.put(newAuthZDN, newAuthZSet);
-        }
       }
     }
-    finally
+    return PostResponse.continueOperationProcessing();
+  }
+
+  private static DN rename(DN dn, DN oldDN, DN newDN)
+  {
+    try
     {
-      lock.writeLock().unlock();
+      return dn.rename(oldDN, newDN);
+    }
+    catch (Exception e)
+    {
+      // Should not happen.
+      logger.traceException(e);
+      return null;
     }
-    return PostResponse.continueOperationProcessing();
   }
 }
-
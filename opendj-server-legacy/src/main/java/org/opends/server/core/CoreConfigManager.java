@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -138,6 +139,12 @@ public class CoreConfigManager implements ConfigurationChangeListener<GlobalCfg>
     private int maxPSearches;
     /** The maximum size that internal buffers will be allowed to grow to until they are trimmed. */
     private int maxInternalBufferSize = DEFAULT_MAX_INTERNAL_BUFFER_SIZE;
+    /** The maximum number of concurrent password verifications, or 0 if there is no limit. */
+    private int maxConcurrentPasswordVerifications;
+    /** The length of time in milliseconds during which successful password verifications are remembered. */
+    private long passwordVerificationCacheDuration;
+    /** The length of time in milliseconds during which password verifications wait for a permit. */
+    private long passwordVerificationTimeout;
   }
 
   /**
@@ -219,6 +226,9 @@ public class CoreConfigManager implements ConfigurationChangeListener<GlobalCfg>
     core.maxAllowedConnections = (maxAllowedConnections > 0) ? maxAllowedConnections : -1;
     core.maxPSearches = globalConfig.getMaxPsearches();
     core.maxInternalBufferSize = (int) globalConfig.getMaxInternalBufferSize();
+    core.maxConcurrentPasswordVerifications = globalConfig.getMaxConcurrentPasswordVerifications();
+    core.passwordVerificationCacheDuration = globalConfig.getPasswordVerificationCacheDuration();
+    core.passwordVerificationTimeout = globalConfig.getPasswordVerificationTimeout();
 
     // For tools, common audit may not be available
     CommonAudit commonAudit = serverContext.getCommonAudit();
@@ -624,6 +634,37 @@ public class CoreConfigManager implements ConfigurationChangeListener<GlobalCfg>
     return coreAttributes.maxPSearches;
   }
 
+  /**
+   * Retrieves the maximum number of passwords that may be verified concurrently.
+   *
+   * @return the max number of concurrent password verifications, or 0 if there is no limit
+   */
+  public int getMaxConcurrentPasswordVerifications()
+  {
+    return coreAttributes.maxConcurrentPasswordVerifications;
+  }
+
+  /**
+   * Retrieves the length of time during which successful password verifications are remembered.
+   *
+   * @return the length of time in milliseconds, or 0 if verifications are not remembered
+   */
+  public long getPasswordVerificationCacheDuration()
+  {
+    return coreAttributes.passwordVerificationCacheDuration;
+  }
+
+  /**
+   * Retrieves the maximum length of time during which password verifications wait for one of the concurrent
+   * verifications to complete.
+   *
+   * @return the length of time in milliseconds, or 0 if password verifications do not wait
+   */
+  public long getPasswordVerificationTimeout()
+  {
+    return coreAttributes.passwordVerificationTimeout;
+  }
+
   /**
    * Retrieves the DN of the configuration entry for the identity mapper that
    * should be used in conjunction with proxied authorization V2 controls.
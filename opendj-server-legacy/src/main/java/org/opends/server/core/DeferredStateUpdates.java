@@ -0,0 +1,162 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.core;
+
+import static org.opends.messages.CoreMessages.*;
+import static org.opends.server.protocols.internal.InternalClientConnection.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.opends.server.protocols.ldap.LDAPAttribute;
+import org.opends.server.types.Modification;
+import org.opends.server.types.RawModification;
+
+/**
+ * Buffers the password policy state updates which do not need to be written
+ * before a bind operation completes, such as the last login time, and writes
+ * them at the end of a window, so that a user authenticating many times during
+ * the window only causes a single write.
+ * <p>
+ * The buffered updates replace the value of their attributes, so the most
+ * recent updates of a user supersede the previous ones. The window is started
+ * by the first update buffered after the previous writes, and lasts the
+ * deferred state update interval of the password policy of that update.
+ * <p>
+ * The updates are written with internal modify operations, hence replicated
+ * as usual. Failures to write them are logged, as the bind operations which
+ * caused them have already completed.
+ */
+final class DeferredStateUpdates
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The single instance, shared by the password policy states of all the users. */
+  private static final DeferredStateUpdates instance = new DeferredStateUpdates();
+
+  /** The most recent buffered updates of each user. */
+  private final ConcurrentMap<DN, List<Modification>> pendingUpdates = new ConcurrentHashMap<>();
+  /** Whether the buffered updates are already scheduled to be written. */
+  private final AtomicBoolean writeScheduled = new AtomicBoolean();
+
+  private DeferredStateUpdates()
+  {
+    // Singleton
+  }
+
+  /**
+   * Returns the deferred state updates of the server.
+   *
+   * @return the deferred state updates of the server
+   */
+  static DeferredStateUpdates getInstance()
+  {
+    return instance;
+  }
+
+  /**
+   * Buffers the provided updates of a user entry, replacing its previously
+   * buffered updates.
+   *
+   * @param userDN
+   *          the DN of the user entry
+   * @param modifications
+   *          the modifications to apply to the user entry, which must all
+   *          replace the values of their attribute
+   * @param intervalMillis
+   *          the length of time after which the updates must be written, if
+   *          no write is already scheduled
+   */
+  void defer(DN userDN, List<Modification> modifications, long intervalMillis)
+  {
+    pendingUpdates.put(userDN, new ArrayList<>(modifications));
+    if (writeScheduled.compareAndSet(false, true))
+    {
+      try
+      {
+        DirectoryServer.getInstance().getServerContext().getCronExecutorService().schedule(new Runnable()
+        {
+          @Override
+          public void run()
+          {
+            writePendingUpdates();
+          }
+        }, intervalMillis, TimeUnit.MILLISECONDS);
+      }
+      catch (RejectedExecutionException e)
+      {
+        // The server is shutting down
+        logger.traceException(e);
+        writePendingUpdates();
+      }
+    }
+  }
+
+  /**
+   * Removes and returns the buffered updates of a user entry, so that they can
+   * be written along with updates which cannot be deferred.
+   *
+   * @param userDN
+   *          the DN of the user entry
+   * @return the buffered updates of the user entry, or {@code null} if there
+   *         are none
+   */
+  List<Modification> takePendingUpdates(DN userDN)
+  {
+    return pendingUpdates.isEmpty() ? null : pendingUpdates.remove(userDN);
+  }
+
+  /** Writes all the buffered updates. */
+  void writePendingUpdates()
+  {
+    writeScheduled.set(false);
+    for (Map.Entry<DN, List<Modification>> entry : pendingUpdates.entrySet())
+    {
+      if (pendingUpdates.remove(entry.getKey(), entry.getValue()))
+      {
+        write(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  private static void write(DN userDN, List<Modification> modifications)
+  {
+    final List<RawModification> modList = new ArrayList<>(modifications.size());
+    for (Modification m : modifications)
+    {
+      modList.add(RawModification.create(m.getModificationType(), new LDAPAttribute(m.getAttribute())));
+    }
+
+    final String userDNString = userDN.toString();
+    final ModifyOperation internalModify =
+        getRootConnection().processModify(ByteString.valueOfUtf8(userDNString), modList);
+    final ResultCode resultCode = internalModify.getResultCode();
+    if (resultCode != ResultCode.SUCCESS && resultCode != ResultCode.NO_SUCH_OBJECT)
+    {
+      logger.error(ERR_PWPSTATE_CANNOT_UPDATE_USER_ENTRY.get(userDNString, internalModify.getErrorMessage()));
+    }
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2010-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -130,6 +131,8 @@ import org.opends.server.loggers.RotationPolicy;
 import org.opends.server.loggers.TextErrorLogPublisher;
 import org.opends.server.loggers.TextWriter;
 import org.opends.server.monitors.ConnectionHandlerMonitor;
+import org.opends.server.monitors.DNCacheMonitor;
+import org.opends.server.monitors.LockManagerMonitor;
 import org.opends.server.protocols.internal.InternalClientConnection;
 import org.opends.server.protocols.internal.InternalConnectionHandler;
 import org.opends.server.schema.SchemaHandler;
@@ -1486,6 +1489,14 @@ public final class DirectoryServer
       monitorConfigManager = new MonitorConfigManager(serverContext);
       monitorConfigManager.initializeMonitorProviders();
 
+      LockManagerMonitor lockManagerMonitor = new LockManagerMonitor(lockManager);
+      lockManagerMonitor.initializeMonitorProvider(null);
+      registerMonitorProvider(lockManagerMonitor);
+
+      DNCacheMonitor dnCacheMonitor = new DNCacheMonitor();
+      dnCacheMonitor.initializeMonitorProvider(null);
+      registerMonitorProvider(dnCacheMonitor);
+
       pluginConfigManager.initializeUserPlugins(null);
 
       if (!environmentConfig.disableSynchronization())
@@ -4109,6 +4120,9 @@ public final class DirectoryServer
       directoryServer.workQueue.waitUntilIdle(ServerShutdownMonitor.WAIT_TIME);
     }
 
+    // Write the buffered password policy state updates while they can still be replicated
+    DeferredStateUpdates.getInstance().writePendingUpdates();
+
     // shutdown replication
     for (SynchronizationProvider<?> provider : directoryServer.synchronizationProviders)
     {
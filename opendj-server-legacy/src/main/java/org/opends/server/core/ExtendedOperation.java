@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
  * Portions Copyright 2014-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -27,6 +28,24 @@ import org.forgerock.opendj.ldap.ByteString;
 public interface ExtendedOperation
        extends Operation
 {
+  /**
+   * A call-back which extended operation handlers deferring their response
+   * use in order to be notified when the operation is canceled.
+   */
+  interface CancellationCallback
+  {
+    /**
+     * The provided extended operation has been canceled or abandoned, or the
+     * client has disconnected. The handler should release the resources
+     * associated with the operation and send its response.
+     *
+     * @param  operation  The extended operation which has been canceled.
+     */
+    void extendedOperationCanceled(ExtendedOperation operation);
+  }
+
+
+
   /**
    * Retrieves the OID for the request associated with this extended
    * operation.
@@ -84,5 +103,32 @@ public interface ExtendedOperation
    *                        the client.
    */
   void setResponseValue(ByteString responseValue);
+
+
+
+  /**
+   * Indicates that the extended operation handler will send the response
+   * later, by calling {@link #sendExtendedResponse()}, so that long running
+   * operations do not hold a worker thread while they wait. The operation
+   * remains in progress until its response is sent: until then, requests to
+   * cancel or abandon it and the disconnection of the client are signaled to
+   * the provided call-back.
+   * <p>
+   * This method must only be called by extended operation handlers, while
+   * they process the operation.
+   *
+   * @param  callback  The call-back notified when the operation is canceled.
+   */
+  void deferResponse(CancellationCallback callback);
+
+
+
+  /**
+   * Sends the response of an operation whose response has been deferred.
+   * The result code and optionally the error message must have been set
+   * before calling this method, which has no effect once the response has
+   * been sent.
+   */
+  void sendExtendedResponse();
 }
 
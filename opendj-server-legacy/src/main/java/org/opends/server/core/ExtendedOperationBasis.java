@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -24,6 +25,7 @@ import static org.opends.server.util.ServerConstants.*;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.ldap.ByteString;
@@ -32,6 +34,7 @@ import org.opends.server.api.AccessControlHandler;
 import org.opends.server.api.ClientConnection;
 import org.opends.server.api.ExtendedOperationHandler;
 import org.opends.server.types.AbstractOperation;
+import org.opends.server.types.CancelRequest;
 import org.opends.server.types.CancelResult;
 import org.opends.server.types.CanceledOperationException;
 import org.opends.server.types.Control;
@@ -69,6 +72,12 @@ public class ExtendedOperationBasis
   /** The OID for the response associated with this extended operation. */
   private String responseOID;
 
+  /** The call-back of the handler which deferred the response, or {@code null} if it is not deferred. */
+  private volatile CancellationCallback deferredResponseCallback;
+
+  /** Ensures that the response is only sent once when it is deferred. */
+  private final AtomicBoolean responseSent = new AtomicBoolean();
+
   /**
    * Creates a new extended operation with the provided information.
    *
@@ -327,6 +336,12 @@ public class ExtendedOperationBasis
 
         // Actually perform the processing for this operation.
         handler.processExtendedOperation(this);
+
+        if (getResultCode() == ResultCode.CANCELLED)
+        {
+          // Long running handlers return as soon as they notice the cancel request.
+          checkIfCanceled(false);
+        }
       }
       finally
       {
@@ -344,35 +359,101 @@ public class ExtendedOperationBasis
     }
     finally
     {
-      // Stop the processing timer.
-      setProcessingStopTime();
-
-      // Log the extended response.
-      logExtendedResponse(this);
-
-      // Send the response to the client.
-      if(cancelRequest == null || cancelResult == null ||
-          cancelResult.getResultCode() != ResultCode.CANCELLED ||
-          cancelRequest.notifyOriginalRequestor() ||
-          DirectoryServer.getCoreConfigManager().isNotifyAbandonedOperations())
+      if (deferredResponseCallback == null)
       {
-        clientConnection.sendResponse(this);
+        completeOperation();
       }
+    }
+  }
 
-      if(requestOID.equals(OID_START_TLS_REQUEST))
-      {
-        clientConnection.finishStartTLS();
-      }
+  @Override
+  public final void deferResponse(CancellationCallback callback)
+  {
+    deferredResponseCallback = callback;
+    if (getCancelRequest() != null)
+    {
+      // Canceled before the handler deferred the response.
+      callback.extendedOperationCanceled(this);
+    }
+  }
+
+  @Override
+  public final void sendExtendedResponse()
+  {
+    if (deferredResponseCallback == null || !responseSent.compareAndSet(false, true))
+    {
+      return;
+    }
+    final CancelRequest request = getCancelRequest();
+    if (request != null && getResultCode() == ResultCode.CANCELLED)
+    {
+      cancelResult = new CancelResult(ResultCode.CANCELLED, null);
+      appendErrorMessage(request.getCancelReason());
+    }
+    if (!completeOperation())
+    {
+      // The response of abandoned operations is not sent, which would have removed it.
+      clientConnection.removeOperationInProgress(messageID);
+    }
+  }
 
-      // Invoke the post-response extended plugins.
-      getPluginConfigManager().invokePostResponseExtendedPlugins(this);
+  @Override
+  public void abort(CancelRequest cancelRequest)
+  {
+    super.abort(cancelRequest);
+    final CancellationCallback callback = deferredResponseCallback;
+    if (callback != null)
+    {
+      callback.extendedOperationCanceled(this);
+    }
+  }
 
-      // If no cancel result, set it
-      if(cancelResult == null)
-      {
-        cancelResult = new CancelResult(ResultCode.TOO_LATE, null);
-      }
+  @Override
+  public void operationCompleted()
+  {
+    // Operations whose response is deferred remain in progress until the response is sent.
+    if (deferredResponseCallback == null)
+    {
+      super.operationCompleted();
+    }
+  }
+
+  /**
+   * Logs and sends the response, once the processing of this operation is
+   * over, and returns whether it was sent to the client.
+   */
+  private boolean completeOperation()
+  {
+    // Stop the processing timer.
+    setProcessingStopTime();
+
+    // Log the extended response.
+    logExtendedResponse(this);
+
+    // Send the response to the client.
+    final boolean sendResponse = cancelRequest == null || cancelResult == null ||
+        cancelResult.getResultCode() != ResultCode.CANCELLED ||
+        cancelRequest.notifyOriginalRequestor() ||
+        DirectoryServer.getCoreConfigManager().isNotifyAbandonedOperations();
+    if (sendResponse)
+    {
+      clientConnection.sendResponse(this);
+    }
+
+    if(requestOID.equals(OID_START_TLS_REQUEST))
+    {
+      clientConnection.finishStartTLS();
+    }
+
+    // Invoke the post-response extended plugins.
+    getPluginConfigManager().invokePostResponseExtendedPlugins(this);
+
+    // If no cancel result, set it
+    if(cancelResult == null)
+    {
+      cancelResult = new CancelResult(ResultCode.TOO_LATE, null);
     }
+    return sendResponse;
   }
 
   private AccessControlHandler<?> getAccessControlHandler()
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -72,4 +73,16 @@ public abstract class ExtendedOperationWrapper extends
   {
     getOperation().setResponseValue(responseValue);
   }
+
+  @Override
+  public void deferResponse(CancellationCallback callback)
+  {
+    getOperation().deferResponse(callback);
+  }
+
+  @Override
+  public void sendExtendedResponse()
+  {
+    getOperation().sendExtendedResponse();
+  }
 }
@@ -13,6 +13,7 @@
  *
  * Copyright 2007-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -24,9 +25,11 @@ import static org.opends.server.util.ServerConstants.*;
 import static org.opends.server.util.StaticUtils.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -36,9 +39,12 @@ import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.LocalizedIllegalArgumentException;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.config.server.ConfigChangeResult;
 import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ModificationType;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.SearchScope;
 import org.forgerock.util.Utils;
@@ -61,6 +67,7 @@ import org.opends.server.protocols.internal.InternalClientConnection;
 import org.opends.server.protocols.internal.InternalSearchOperation;
 import org.opends.server.protocols.internal.SearchRequest;
 import org.opends.server.protocols.ldap.LDAPControl;
+import org.opends.server.types.Attribute;
 import org.opends.server.types.Control;
 import org.forgerock.opendj.ldap.DN;
 import org.opends.server.types.DirectoryException;
@@ -108,6 +115,9 @@ public class GroupManager extends InternalDirectoryServerPlugin
   /** A mapping between the DNs of all group entries and the corresponding group instances. */
   private DITCacheMap<Group<?>> groupInstances;
 
+  /** The reverse membership index of the group instances, guarded by the lock. */
+  private final GroupMembershipIndex membershipIndex = new GroupMembershipIndex();
+
   /** Lock to protect internal data structures. */
   private final ReadWriteLock lock;
 
@@ -269,6 +279,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
           Group<?> g = iterator.next();
           if (g.getClass().getName().equals(group.getClass().getName()))
           {
+            membershipIndex.removeGroup(g);
             iterator.remove();
           }
         }
@@ -330,6 +341,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
               Group<?> g = iterator.next();
               if (g.getClass().getName().equals(group.getClass().getName()))
               {
+                membershipIndex.removeGroup(g);
                 iterator.remove();
               }
             }
@@ -510,6 +522,121 @@ public class GroupManager extends InternalDirectoryServerPlugin
     }
   }
 
+  /**
+   * Retrieves the DNs of the groups in which the provided entry is a member,
+   * including the groups in which it is a member through nested groups. The
+   * groups explicitly listing their members are found from the reverse
+   * membership index, so only the groups whose membership is computed, such
+   * as dynamic groups, are evaluated against the entry.  Note that this is a
+   * point-in-time determination and the caller must not cache the result.
+   *
+   * @param  entry  The entry for which to retrieve the groups.
+   *
+   * @return  The DNs of the groups in which the entry is a member.
+   */
+  public Set<DN> getGroupDNs(Entry entry)
+  {
+    return getGroupDNs(entry.getName(), entry, null);
+  }
+
+  /**
+   * Retrieves the DNs of the groups in which the entry with the provided DN
+   * is a member, including the groups in which it is a member through nested
+   * groups.  Note that this is a point-in-time determination and the caller
+   * must not cache the result.
+   *
+   * @param  entryDN  The DN of the entry for which to retrieve the groups.
+   *
+   * @return  The DNs of the groups in which the entry is a member.
+   *
+   * @see #getGroupDNs(Entry)
+   */
+  public Set<DN> getGroupDNs(DN entryDN)
+  {
+    return getGroupDNs(entryDN, null, null);
+  }
+
+  /**
+   * Indicates whether the provided entry is a member of the group with the
+   * provided DN, directly or through nested groups, using the reverse
+   * membership index.  Note that this is a point-in-time determination and the
+   * caller must not cache the result.
+   *
+   * @param  groupDN  The DN of the group.
+   * @param  entry    The entry for which to make the determination.
+   *
+   * @return  {@code true} if the entry is a member of the group, or
+   *          {@code false} if not or if there is no such group.
+   */
+  public boolean isMember(DN groupDN, Entry entry)
+  {
+    return getGroupDNs(entry.getName(), entry, groupDN).contains(groupDN);
+  }
+
+  /**
+   * Retrieves the DNs of the groups in which the entry is a member, in the
+   * order they were found. The groups which are not indexed are asked after
+   * releasing the lock, since they may read the backends to answer.
+   *
+   * @param  entryDN        The DN of the entry.
+   * @param  entry          The entry, or {@code null} if only its DN is known.
+   * @param  targetGroupDN  The DN of the only group of interest, which stops
+   *                        the search as soon as it is found, or {@code null}
+   *                        to retrieve all the groups.
+   *
+   * @return  The DNs of the groups in which the entry is a member.
+   */
+  private Set<DN> getGroupDNs(DN entryDN, Entry entry, DN targetGroupDN)
+  {
+    final Set<DN> groupDNs = new LinkedHashSet<>();
+    final List<Group<?>> askedGroups;
+    lock.readLock().lock();
+    try
+    {
+      if ((targetGroupDN != null && !groupInstances.containsKey(targetGroupDN))
+          || membershipIndex.addListingGroups(Collections.singletonList(entryDN), groupDNs, targetGroupDN))
+      {
+        return groupDNs;
+      }
+      askedGroups = membershipIndex.getAskedGroups();
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+
+    final List<DN> memberOfDNs = GroupMembershipIndex.askGroups(askedGroups, entryDN, entry, groupDNs, targetGroupDN);
+    if (memberOfDNs.isEmpty() || (targetGroupDN != null && groupDNs.contains(targetGroupDN)))
+    {
+      return groupDNs;
+    }
+    lock.readLock().lock();
+    try
+    {
+      membershipIndex.addListingGroups(memberOfDNs, groupDNs, targetGroupDN);
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+    return groupDNs;
+  }
+
+  /**
+   * Retrieves a number which changes whenever a group is registered or
+   * deregistered, the members of a group change, or an entry the membership
+   * of a computed group, such as a dynamic group, may depend on is added,
+   * deleted, modified or renamed, so that callers can tell whether a
+   * membership determination they have cached is still valid.  The number
+   * changes after the change has been applied.
+   *
+   * @return  The current membership generation.
+   */
+  public long getMembershipGeneration()
+  {
+    return membershipIndex.getGeneration();
+  }
+
   /**
    * {@inheritDoc}  In this case, the server will search the backend to find
    * all group instances that it may contain and register them with this group
@@ -580,7 +707,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
             try
             {
               Group<?> groupInstance = groupImplementation.newInstance(serverContext, entry);
-              groupInstances.put(entry.getName(), groupInstance);
+              putGroupInstance(entry.getName(), groupInstance);
               refreshToken++;
             }
             catch (DirectoryException e)
@@ -615,6 +742,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
         DN groupEntryDN = mapEntry.getKey();
         if (backend.handlesEntry(groupEntryDN))
         {
+          membershipIndex.removeGroup(mapEntry.getValue());
           iterator.remove();
         }
       }
@@ -642,6 +770,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
    */
   private void doPostAdd(PluginOperation addOperation, Entry entry)
   {
+    notifyMaterializedGroups(null, entry);
     if (hasGroupMembershipUpdateControl(addOperation))
     {
       return;
@@ -650,6 +779,21 @@ public class GroupManager extends InternalDirectoryServerPlugin
     createAndRegisterGroup(entry);
   }
 
+  /**
+   * Notifies the groups materializing their membership of an entry change, so
+   * that they evaluate the changed entry against their membership criteria
+   * rather than computing their membership again, then changes the membership
+   * generation if the membership of a computed group may depend on the entry.
+   */
+  private void notifyMaterializedGroups(Entry oldEntry, Entry newEntry)
+  {
+    for (Group<?> group : membershipIndex.getMaterializedGroups())
+    {
+      group.processEntryChange(oldEntry, newEntry);
+    }
+    membershipIndex.entryChanged(oldEntry, newEntry);
+  }
+
   private static boolean hasGroupMembershipUpdateControl(PluginOperation operation)
   {
     List<Control> requestControls = operation.getRequestControls();
@@ -672,6 +816,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
    */
   private void doPostDelete(PluginOperation deleteOperation, Entry entry)
   {
+    notifyMaterializedGroups(entry, null);
     if (hasGroupMembershipUpdateControl(deleteOperation))
     {
       return;
@@ -680,8 +825,13 @@ public class GroupManager extends InternalDirectoryServerPlugin
     lock.writeLock().lock();
     try
     {
-      if (groupInstances.removeSubtree(entry.getName(), null))
+      Set<Group<?>> groupSet = new HashSet<>();
+      if (groupInstances.removeSubtree(entry.getName(), groupSet))
       {
+        for (Group<?> group : groupSet)
+        {
+          membershipIndex.removeGroup(group);
+        }
         refreshToken++;
       }
     }
@@ -721,8 +871,11 @@ public class GroupManager extends InternalDirectoryServerPlugin
           Entry oldEntry, Entry newEntry,
           List<Modification> modifications)
   {
+    notifyMaterializedGroups(oldEntry, newEntry);
     if (hasGroupMembershipUpdateControl(modifyOperation))
     {
+      // The group instance updates its own member list, but not the index
+      indexMemberUpdates(oldEntry.getName(), modifications);
       return;
     }
 
@@ -751,13 +904,26 @@ public class GroupManager extends InternalDirectoryServerPlugin
             || !group.mayAlterMemberList()
             || updatesObjectClass(modifications))
         {
-          groupInstances.remove(oldEntry.getName());
+          membershipIndex.removeGroup(groupInstances.remove(oldEntry.getName()));
           // This updates the refreshToken
           createAndRegisterGroup(newEntry);
         }
+        else if (membershipIndex.isComputedGroup(group.getGroupDN()) || replacesMembers(group, modifications))
+        {
+          membershipIndex.removeGroup(group);
+          try
+          {
+            group.updateMembers(modifications);
+          }
+          finally
+          {
+            membershipIndex.addGroup(group);
+          }
+        }
         else
         {
           group.updateMembers(modifications);
+          indexMemberUpdates(group, modifications);
         }
       }
     }
@@ -781,6 +947,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
   private void doPostModifyDN(PluginOperation modifyDNOperation,
           Entry oldEntry, Entry newEntry)
   {
+    notifyMaterializedGroups(oldEntry, newEntry);
     if (hasGroupMembershipUpdateControl(modifyDNOperation))
     {
       return;
@@ -797,8 +964,9 @@ public class GroupManager extends InternalDirectoryServerPlugin
       {
         final DN groupDN = group.getGroupDN();
         final DN renamedGroupDN = groupDN.rename(oldDN, newDN);
+        membershipIndex.removeGroup(group);
         group.setGroupDN(renamedGroupDN);
-        groupInstances.put(renamedGroupDN, group);
+        putGroupInstance(renamedGroupDN, group);
       }
       if (!groupSet.isEmpty())
       {
@@ -942,7 +1110,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
           lock.writeLock().lock();
           try
           {
-            groupInstances.put(entry.getName(), groupInstance);
+            putGroupInstance(entry.getName(), groupInstance);
             refreshToken++;
           }
           finally
@@ -958,6 +1126,103 @@ public class GroupManager extends InternalDirectoryServerPlugin
     }
   }
 
+  /**
+   * Registers the provided group instance and indexes its members, replacing
+   * any group instance registered with the same DN. The caller must hold the
+   * write lock.
+   */
+  private void putGroupInstance(DN groupDN, Group<?> group)
+  {
+    Group<?> previousGroup = groupInstances.put(groupDN, group);
+    if (previousGroup != null)
+    {
+      membershipIndex.removeGroup(previousGroup);
+    }
+    membershipIndex.addGroup(group);
+  }
+
+  /**
+   * Indexes the member list changes that a group instance has applied itself
+   * through an internal modify operation: each modification adds or removes
+   * members of the group.
+   */
+  private void indexMemberUpdates(DN groupDN, List<Modification> modifications)
+  {
+    lock.writeLock().lock();
+    try
+    {
+      Group<?> group = groupInstances.get(groupDN);
+      if (group != null && !membershipIndex.isComputedGroup(groupDN))
+      {
+        indexMemberUpdates(group, modifications);
+      }
+    }
+    finally
+    {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Applies to the index the members added or removed by the provided
+   * modifications, so that a large group is not reindexed as a whole for each
+   * of its members being added or removed. The caller must hold the write lock.
+   */
+  private void indexMemberUpdates(Group<?> group, List<Modification> modifications)
+  {
+    final DN groupDN = group.getGroupDN();
+    for (Modification mod : modifications)
+    {
+      if (!group.isMemberAttributeType(mod.getAttribute().getAttributeDescription().getAttributeType()))
+      {
+        continue;
+      }
+      for (ByteString value : mod.getAttribute())
+      {
+        try
+        {
+          ByteString member = DN.valueOf(value).toNormalizedByteString();
+          switch (mod.getModificationType().asEnum())
+          {
+          case ADD:
+            membershipIndex.addMember(member, groupDN);
+            break;
+          case DELETE:
+            membershipIndex.removeMember(member, groupDN);
+            break;
+          default:
+            break;
+          }
+        }
+        catch (LocalizedIllegalArgumentException e)
+        {
+          logger.traceException(e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns whether the provided modifications replace the member list of the
+   * group, or remove all of its values, in which case the members removed are
+   * not known and the group must be reindexed as a whole.
+   */
+  private static boolean replacesMembers(Group<?> group, List<Modification> modifications)
+  {
+    for (Modification mod : modifications)
+    {
+      final Attribute attribute = mod.getAttribute();
+      final ModificationType modType = mod.getModificationType();
+      if (group.isMemberAttributeType(attribute.getAttributeDescription().getAttributeType())
+          && (modType != ModificationType.ADD && modType != ModificationType.DELETE
+              || (modType == ModificationType.DELETE && attribute.isEmpty())))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Removes all group instances that might happen to be registered with the
    * group manager.  This method is only intended for testing purposes and
@@ -969,6 +1234,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
     try
     {
       groupInstances.clear();
+      membershipIndex.clear();
     }
     finally
     {
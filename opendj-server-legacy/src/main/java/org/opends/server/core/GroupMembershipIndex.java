@@ -0,0 +1,428 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.api.Group;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+
+/**
+ * Reverse group membership index, mapping the normalized DN of each explicit
+ * member of a group to the DNs of the groups listing it, so that the groups of
+ * an entry can be found without asking every group whether it is a member.
+ * <p>
+ * Groups whose membership is computed, such as dynamic groups, cannot be
+ * indexed: they are kept aside and asked directly. So are the groups checking
+ * their explicit members against a backend index, but their membership only
+ * changes with their member list, so that entry changes leave the generation
+ * alone. Nesting is resolved when
+ * the index is queried, by walking up from the groups of an entry to the
+ * groups listing them, so that changing the members of a group only updates
+ * the index entries of these members.
+ * <p>
+ * This class is not thread safe: the group manager guards it with its lock,
+ * but asks the groups which are not indexed after releasing it since they may
+ * read the backends.
+ */
+final class GroupMembershipIndex
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The DNs of the groups explicitly listing each member, keyed by the member normalized DN. */
+  private final Map<ByteString, Set<DN>> groupsByMember = new HashMap<>();
+
+  /** The groups whose membership is computed and must be evaluated for each entry. */
+  private final Map<DN, Group<?>> computedGroups = new LinkedHashMap<>();
+
+  /** The groups whose explicit members are checked against a backend index and must be asked for each entry. */
+  private final Map<DN, Group<?>> indexedGroups = new LinkedHashMap<>();
+
+  /**
+   * The indexed groups followed by the computed groups, replaced whenever they change so that they can be asked
+   * after releasing the group manager lock.
+   */
+  private List<Group<?>> askedGroups = Collections.emptyList();
+
+  /**
+   * The computed groups, replaced whenever they change so that they can be read without holding the group manager
+   * lock.
+   */
+  private volatile List<Group<?>> computedGroupList = Collections.emptyList();
+
+  /**
+   * The computed groups which materialize their membership and must be notified of entry changes, replaced
+   * whenever it changes so that it can be read without holding the group manager lock.
+   */
+  private volatile List<Group<?>> materializedGroups = Collections.emptyList();
+
+  /**
+   * Incremented on every change, so that the outcome of membership checks can be cached. Entry changes increment it
+   * without holding the group manager lock.
+   */
+  private final AtomicLong generation = new AtomicLong();
+
+  /**
+   * Indexes the members of the provided group.
+   *
+   * @param group
+   *          the group to index
+   */
+  void addGroup(Group<?> group)
+  {
+    generation.incrementAndGet();
+    final DN groupDN = group.getGroupDN();
+    final Collection<ByteString> members = getNormalizedMemberDNs(group);
+    if (members == null && group.hasIndexedMembership())
+    {
+      indexedGroups.put(groupDN, group);
+      updateAskedGroups();
+      return;
+    }
+    if (members == null)
+    {
+      computedGroups.put(groupDN, group);
+      updateComputedGroupLists();
+      return;
+    }
+    for (ByteString member : members)
+    {
+      addMember(member, groupDN);
+    }
+  }
+
+  /**
+   * Removes the members of the provided group from the index.
+   *
+   * @param group
+   *          the group to remove
+   */
+  void removeGroup(Group<?> group)
+  {
+    generation.incrementAndGet();
+    final DN groupDN = group.getGroupDN();
+    if (indexedGroups.remove(groupDN) != null)
+    {
+      updateAskedGroups();
+      return;
+    }
+    final Group<?> computedGroup = computedGroups.remove(groupDN);
+    if (computedGroup != null)
+    {
+      updateComputedGroupLists();
+      return;
+    }
+    final Collection<ByteString> members = getNormalizedMemberDNs(group);
+    if (members != null)
+    {
+      for (ByteString member : members)
+      {
+        removeMember(member, groupDN);
+      }
+    }
+  }
+
+  private void updateComputedGroupLists()
+  {
+    final List<Group<?>> groups = new ArrayList<>();
+    for (Group<?> group : computedGroups.values())
+    {
+      if (group.isMembershipMaterialized())
+      {
+        groups.add(group);
+      }
+    }
+    materializedGroups = groups.isEmpty() ? Collections.<Group<?>> emptyList() : groups;
+    computedGroupList = computedGroups.isEmpty()
+        ? Collections.<Group<?>> emptyList() : new ArrayList<Group<?>>(computedGroups.values());
+    updateAskedGroups();
+  }
+
+  private void updateAskedGroups()
+  {
+    final List<Group<?>> groups = new ArrayList<>(indexedGroups.size() + computedGroups.size());
+    groups.addAll(indexedGroups.values());
+    groups.addAll(computedGroups.values());
+    askedGroups = groups.isEmpty() ? Collections.<Group<?>> emptyList() : groups;
+  }
+
+  /**
+   * Returns the computed groups which materialize their membership. Unlike the
+   * other methods, this one can be called without holding the group manager
+   * lock.
+   *
+   * @return the computed groups which materialize their membership
+   */
+  List<Group<?>> getMaterializedGroups()
+  {
+    return materializedGroups;
+  }
+
+  private static Collection<ByteString> getNormalizedMemberDNs(Group<?> group)
+  {
+    try
+    {
+      return group.getNormalizedMemberDNs();
+    }
+    catch (DirectoryException e)
+    {
+      logger.traceException(e);
+      return Collections.emptySet();
+    }
+  }
+
+  /**
+   * Records that the provided group explicitly lists the provided member.
+   *
+   * @param member
+   *          the normalized DN of the member
+   * @param groupDN
+   *          the DN of the group
+   */
+  void addMember(ByteString member, DN groupDN)
+  {
+    generation.incrementAndGet();
+    if (indexedGroups.containsKey(groupDN))
+    {
+      // the group is asked directly
+      return;
+    }
+    final Set<DN> groupDNs = groupsByMember.get(member);
+    if (groupDNs == null)
+    {
+      // most entries are member of a single group
+      groupsByMember.put(member, Collections.singleton(groupDN));
+    }
+    else if (!groupDNs.contains(groupDN))
+    {
+      final Set<DN> newGroupDNs = groupDNs.size() == 1 ? new HashSet<>(groupDNs) : groupDNs;
+      newGroupDNs.add(groupDN);
+      groupsByMember.put(member, newGroupDNs);
+    }
+  }
+
+  /**
+   * Records that the provided group no longer lists the provided member.
+   *
+   * @param member
+   *          the normalized DN of the member
+   * @param groupDN
+   *          the DN of the group
+   */
+  void removeMember(ByteString member, DN groupDN)
+  {
+    generation.incrementAndGet();
+    if (indexedGroups.containsKey(groupDN))
+    {
+      return;
+    }
+    final Set<DN> groupDNs = groupsByMember.get(member);
+    if (groupDNs == null || !groupDNs.contains(groupDN))
+    {
+      return;
+    }
+    if (groupDNs.size() == 1)
+    {
+      groupsByMember.remove(member);
+    }
+    else
+    {
+      groupDNs.remove(groupDN);
+    }
+  }
+
+  /**
+   * Returns the generation of the index, which changes whenever a group or a
+   * member is added or removed, and whenever an entry the membership of a
+   * computed group may depend on changes.
+   *
+   * @return the generation of the index
+   */
+  long getGeneration()
+  {
+    return generation.get();
+  }
+
+  /**
+   * Records that the provided entry has been added, deleted, modified or
+   * renamed, changing the generation if the membership of a computed group may
+   * depend on it. Like {@link #getMaterializedGroups()}, this method can be
+   * called without holding the group manager lock.
+   *
+   * @param oldEntry
+   *          the entry before the change, or {@code null} if it has been added
+   * @param newEntry
+   *          the entry after the change, or {@code null} if it has been deleted
+   */
+  void entryChanged(Entry oldEntry, Entry newEntry)
+  {
+    for (Group<?> group : computedGroupList)
+    {
+      if ((oldEntry != null && group.mayEntryChangeAlterMembership(oldEntry))
+          || (newEntry != null && group.mayEntryChangeAlterMembership(newEntry)))
+      {
+        generation.incrementAndGet();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Returns whether the provided group is not indexed because its membership
+   * is computed.
+   *
+   * @param groupDN
+   *          the DN of the group
+   * @return {@code true} if the group membership is computed
+   */
+  boolean isComputedGroup(DN groupDN)
+  {
+    return computedGroups.containsKey(groupDN);
+  }
+
+  /**
+   * Adds the groups listing the provided members to the provided groups, then
+   * the groups listing these groups, and so on, until there are no more.
+   *
+   * @param memberDNs
+   *          the DNs of the entries or groups to walk up from
+   * @param groupDNs
+   *          the DNs of the groups found so far, which are not walked up again
+   * @param targetGroupDN
+   *          the DN of a group whose membership is the only one of interest,
+   *          which stops the search as soon as it is found, or {@code null} to
+   *          find all the groups
+   * @return {@code true} if the target group has been found
+   */
+  boolean addListingGroups(Collection<DN> memberDNs, Set<DN> groupDNs, DN targetGroupDN)
+  {
+    final Deque<DN> toVisit = new ArrayDeque<>(memberDNs);
+    DN dn = toVisit.poll();
+    while (dn != null)
+    {
+      final Set<DN> parentDNs = groupsByMember.get(dn.toNormalizedByteString());
+      if (parentDNs != null)
+      {
+        for (DN parentDN : parentDNs)
+        {
+          if (groupDNs.add(parentDN))
+          {
+            if (parentDN.equals(targetGroupDN))
+            {
+              return true;
+            }
+            toVisit.add(parentDN);
+          }
+        }
+      }
+      dn = toVisit.poll();
+    }
+    return false;
+  }
+
+  /**
+   * Returns the groups which are not indexed and must be asked whether an
+   * entry is a member, the groups checking their explicit members against a
+   * backend index first. The returned list is never modified, so that it can
+   * be used after releasing the group manager lock.
+   *
+   * @return the groups which must be asked whether an entry is a member
+   */
+  List<Group<?>> getAskedGroups()
+  {
+    return askedGroups;
+  }
+
+  /**
+   * Asks each of the provided groups not found yet whether the entry is a
+   * member. Groups may read the backends to answer, so this method must be
+   * called without holding the group manager lock.
+   *
+   * @param groups
+   *          the groups to ask, as returned by {@link #getAskedGroups()}
+   * @param memberDN
+   *          the DN of the entry
+   * @param memberEntry
+   *          the entry, or {@code null} if only its DN is known, in which case
+   *          the groups read it as needed
+   * @param groupDNs
+   *          the DNs of the groups found so far, which are not asked and to
+   *          which the groups the entry is a member of are added
+   * @param targetGroupDN
+   *          the DN of a group whose membership is the only one of interest,
+   *          which stops the search as soon as it is found, or {@code null} to
+   *          ask all the groups
+   * @return the DNs of the groups the entry has been found a member of
+   */
+  static List<DN> askGroups(List<Group<?>> groups, DN memberDN, Entry memberEntry, Set<DN> groupDNs,
+      DN targetGroupDN)
+  {
+    final List<DN> memberOfDNs = new ArrayList<>();
+    for (Group<?> group : groups)
+    {
+      final DN groupDN = group.getGroupDN();
+      if (groupDNs.contains(groupDN))
+      {
+        continue;
+      }
+      try
+      {
+        final boolean isMember = memberEntry != null ? group.isMember(memberEntry) : group.isMember(memberDN);
+        if (isMember)
+        {
+          groupDNs.add(groupDN);
+          memberOfDNs.add(groupDN);
+          if (groupDN.equals(targetGroupDN))
+          {
+            break;
+          }
+        }
+      }
+      catch (DirectoryException e)
+      {
+        logger.traceException(e);
+      }
+    }
+    return memberOfDNs;
+  }
+
+  /** Removes all the groups from the index. */
+  void clear()
+  {
+    generation.incrementAndGet();
+    groupsByMember.clear();
+    computedGroups.clear();
+    indexedGroups.clear();
+    askedGroups = Collections.emptyList();
+    computedGroupList = Collections.emptyList();
+    materializedGroups = Collections.emptyList();
+  }
+}
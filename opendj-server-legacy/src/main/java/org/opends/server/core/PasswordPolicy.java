@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
+ * Portions Copyright 2026 Wren Security.
  * Portions copyright 2011-2016 ForgeRock AS.
  */
 package org.opends.server.core;
@@ -523,6 +524,22 @@ public abstract class PasswordPolicy extends AuthenticationPolicy
    */
   public abstract StateUpdateFailurePolicy getStateUpdateFailurePolicy();
 
+  /**
+   * Gets the "deferred-state-update-interval" property.
+   * <p>
+   * Specifies the length of time during which the last login time updates of
+   * successful authentications are buffered before being written to the user
+   * entries.
+   * <p>
+   * The updates which may lock out an account, such as the record of
+   * authentication failures or of grace logins, are always written before the
+   * bind operation completes. A value of 0 milliseconds indicates that the last
+   * login time is also written before the bind operation completes.
+   *
+   * @return Returns the value of the "deferred-state-update-interval" property.
+   */
+  public abstract long getDeferredStateUpdateInterval();
+
   @Override
   public boolean isPasswordPolicy()
   {
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -730,6 +731,11 @@ public final class PasswordPolicyFactory implements
       buffer.append("Update Failure Policy:                 ");
       buffer.append(configuration.getStateUpdateFailurePolicy());
       buffer.append(EOL);
+
+      buffer.append("Deferred State Update Interval:        ");
+      buffer.append(configuration.getDeferredStateUpdateInterval());
+      buffer.append(" milliseconds");
+      buffer.append(EOL);
     }
 
     @Override
@@ -893,6 +899,12 @@ public final class PasswordPolicyFactory implements
     {
       return configuration.getStateUpdateFailurePolicy();
     }
+
+    @Override
+    public long getDeferredStateUpdateInterval()
+    {
+      return configuration.getDeferredStateUpdateInterval();
+    }
   }
 
   private ServerContext serverContext;
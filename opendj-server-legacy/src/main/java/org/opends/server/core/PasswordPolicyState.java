@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -37,6 +38,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.TreeMap;
+import java.util.concurrent.Semaphore;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.LocalizableMessageBuilder;
@@ -1949,7 +1951,7 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
   }
 
   @Override
-  public boolean passwordMatches(ByteString password)
+  public boolean passwordMatches(ByteString password) throws DirectoryException
   {
     List<Attribute> attrList = userEntry.getAllAttributes(passwordPolicy.getPasswordAttribute());
     if (attrList.isEmpty())
@@ -1983,7 +1985,7 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
             continue;
           }
 
-          if (passwordMatches(password, pwComponents, scheme))
+          if (verifyPassword(password, v, pwComponents, scheme))
           {
             if (logger.isTraceEnabled())
             {
@@ -1994,6 +1996,16 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
             return true;
           }
         }
+        catch (DirectoryException e)
+        {
+          if (e.getResultCode() == ResultCode.BUSY)
+          {
+            // The password could not be verified, which does not mean it is wrong.
+            throw e;
+          }
+          logger.traceException(e, "An error occurred while attempting to process a password value for user %s",
+              userDNString);
+        }
         catch (Exception e)
         {
           logger.traceException(e, "An error occurred while attempting to process a password value for user %s",
@@ -2232,6 +2244,46 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
         : DirectoryServer.getPasswordStorageScheme(schemeName);
   }
 
+  /**
+   * Verifies the provided password against a stored password value, limiting the number of concurrent
+   * verifications and remembering the successful ones as configured in the global configuration.
+   * Throws a {@link DirectoryException} with a busy result code if the verification cannot start in time.
+   */
+  private boolean verifyPassword(ByteString password, ByteString storedValue, String[] pwComponents,
+      PasswordStorageScheme<?> scheme) throws DirectoryException
+  {
+    final CoreConfigManager coreConfig = DirectoryServer.getCoreConfigManager();
+    final PasswordVerifications verifications = PasswordVerifications.getInstance();
+    final long cacheDuration = coreConfig.getPasswordVerificationCacheDuration();
+    ByteString verificationKey = null;
+    if (cacheDuration > 0)
+    {
+      verificationKey = verifications.getVerificationKey(userEntry.getName(), storedValue, password);
+      if (verifications.isRemembered(verificationKey))
+      {
+        return true;
+      }
+    }
+
+    final boolean matches;
+    final Semaphore permit = verifications.acquire(
+        coreConfig.getMaxConcurrentPasswordVerifications(), coreConfig.getPasswordVerificationTimeout());
+    try
+    {
+      matches = passwordMatches(password, pwComponents, scheme);
+    }
+    finally
+    {
+      verifications.release(permit);
+    }
+
+    if (matches && verificationKey != null)
+    {
+      verifications.remember(verificationKey, cacheDuration);
+    }
+    return matches;
+  }
+
   private boolean passwordMatches(ByteString password, String[] pwComponents, PasswordStorageScheme<?> scheme)
   {
     return passwordPolicy.isAuthPasswordSyntax()
@@ -2265,8 +2317,11 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
    *
    * @return  {@code true} if the provided password is equal to any of the current passwords or any of the passwords
    *          in the history, or {@code false} if not.
+   *
+   * @throws  DirectoryException  If the provided password could not be verified against the current passwords,
+   *                              for instance because too many passwords are being verified concurrently.
    */
-  public boolean isPasswordInHistory(ByteString password)
+  public boolean isPasswordInHistory(ByteString password) throws DirectoryException
   {
     if (! maintainHistory())
     {
@@ -2758,12 +2813,33 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
       return;
     }
 
-    // Convert the set of modifications to a set of LDAP modifications.
+    // Buffer the updates which need not be written before the bind completes, such as the last login time.
+    DeferredStateUpdates deferredUpdates = DeferredStateUpdates.getInstance();
+    long deferredUpdateInterval = passwordPolicy.getDeferredStateUpdateInterval();
+    if (deferredUpdateInterval > 0 && areDeferrable(modifications))
+    {
+      deferredUpdates.defer(userEntry.getName(), modifications, deferredUpdateInterval);
+      return;
+    }
+
+    // Convert the set of modifications to a set of LDAP modifications,
+    // including the buffered updates they do not supersede.
     ArrayList<RawModification> modList = new ArrayList<>();
     for (Modification m : modifications)
     {
       modList.add(RawModification.create(m.getModificationType(), new LDAPAttribute(m.getAttribute())));
     }
+    List<Modification> pendingMods = deferredUpdates.takePendingUpdates(userEntry.getName());
+    if (pendingMods != null)
+    {
+      for (Modification m : pendingMods)
+      {
+        if (!isModified(m.getAttribute().getAttributeDescription().getAttributeType()))
+        {
+          modList.add(RawModification.create(m.getModificationType(), new LDAPAttribute(m.getAttribute())));
+        }
+      }
+    }
 
     InternalClientConnection conn = getRootConnection();
     ModifyOperation internalModify = conn.processModify(ByteString.valueOfUtf8(userDNString), modList);
@@ -2787,4 +2863,34 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
       }
     }
   }
+
+  /**
+   * Returns whether the provided modifications may be written after the bind operation completes: only the last login
+   * time may be, as the state which may lock out the account must be up to date for the next authentication attempt.
+   */
+  private boolean areDeferrable(List<Modification> mods)
+  {
+    AttributeType lastLoginTimeType = passwordPolicy.getLastLoginTimeAttribute();
+    for (Modification m : mods)
+    {
+      if (m.getModificationType() != ModificationType.REPLACE
+          || !m.getAttribute().getAttributeDescription().getAttributeType().equals(lastLoginTimeType))
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isModified(AttributeType attributeType)
+  {
+    for (Modification m : modifications)
+    {
+      if (m.getAttribute().getAttributeDescription().getAttributeType().equals(attributeType))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
 }
@@ -0,0 +1,256 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.core;
+
+import static org.opends.messages.CoreMessages.*;
+
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.opends.server.types.DirectoryException;
+
+/**
+ * Bounds the number of passwords verified concurrently against their stored
+ * values, and remembers the successful verifications for a short length of
+ * time, so that clients authenticating repeatedly with a password stored with
+ * a computationally expensive storage scheme do not keep the CPUs busy.
+ * <p>
+ * Successful verifications are remembered by a keyed hash of the user DN, of
+ * the stored password value and of the provided password, so that neither the
+ * passwords nor anything allowing to verify them outside of this process is
+ * kept in memory. The key is randomly generated when the server starts. As the
+ * stored password value is part of the hash, changing the password of a user
+ * immediately invalidates the remembered verifications of the user.
+ */
+final class PasswordVerifications
+{
+  /** Maximum number of remembered verifications, to bound the memory used. */
+  static final int MAX_REMEMBERED_VERIFICATIONS = 10000;
+
+  private static final String MAC_ALGORITHM = "HmacSHA256";
+  /** The single instance, shared by the password policy states of all the users. */
+  private static final PasswordVerifications instance = new PasswordVerifications();
+
+  private final SecretKeySpec key;
+  private final ThreadLocal<Mac> macs = new ThreadLocal<Mac>()
+  {
+    @Override
+    protected Mac initialValue()
+    {
+      try
+      {
+        final Mac mac = Mac.getInstance(MAC_ALGORITHM);
+        mac.init(key);
+        return mac;
+      }
+      catch (GeneralSecurityException e)
+      {
+        throw new IllegalStateException(e);
+      }
+    }
+  };
+  /** The expiration time of the remembered verifications, keyed by their hash. */
+  private final ConcurrentMap<ByteString, Long> verifications = new ConcurrentHashMap<>();
+  /** Limits the concurrent verifications, {@code null} if there is no limit. */
+  private volatile Semaphore permits;
+  private volatile int maxPermits;
+
+  /** Creates new password verifications, with their own key. */
+  PasswordVerifications()
+  {
+    final byte[] keyBytes = new byte[32];
+    new SecureRandom().nextBytes(keyBytes);
+    key = new SecretKeySpec(keyBytes, MAC_ALGORITHM);
+  }
+
+  /**
+   * Returns the password verifications of the server.
+   *
+   * @return the password verifications of the server
+   */
+  static PasswordVerifications getInstance()
+  {
+    return instance;
+  }
+
+  /**
+   * Waits until a password verification can start, for at most the provided
+   * length of time, so that worker threads are not blocked indefinitely by
+   * bursts of password verifications.
+   *
+   * @param maxConcurrentVerifications
+   *          the maximum number of concurrent verifications, or 0 if there is
+   *          no limit
+   * @param timeoutMillis
+   *          the maximum length of time to wait in milliseconds
+   * @return the permit to provide to {@link #release(Semaphore)} once the
+   *         verification has completed, or {@code null} if there is no limit
+   * @throws DirectoryException
+   *           with a busy result code if the verification cannot start in
+   *           time
+   */
+  Semaphore acquire(int maxConcurrentVerifications, long timeoutMillis) throws DirectoryException
+  {
+    if (maxConcurrentVerifications <= 0)
+    {
+      return null;
+    }
+    Semaphore s = permits;
+    if (s == null || maxPermits != maxConcurrentVerifications)
+    {
+      synchronized (this)
+      {
+        s = permits;
+        if (s == null || maxPermits != maxConcurrentVerifications)
+        {
+          // Verifications in progress release the permits of the previous limit
+          s = new Semaphore(maxConcurrentVerifications, true);
+          maxPermits = maxConcurrentVerifications;
+          permits = s;
+        }
+      }
+    }
+    try
+    {
+      if (s.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS))
+      {
+        return s;
+      }
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    throw new DirectoryException(ResultCode.BUSY, ERR_PASSWORD_VERIFICATION_BUSY.get());
+  }
+
+  /**
+   * Signals that a password verification has completed.
+   *
+   * @param permit
+   *          the permit returned by {@link #acquire(int, long)}
+   */
+  void release(Semaphore permit)
+  {
+    if (permit != null)
+    {
+      permit.release();
+    }
+  }
+
+  /**
+   * Returns the key remembering the verification of a password.
+   *
+   * @param userDN
+   *          the DN of the user
+   * @param storedValue
+   *          the stored password value the password is verified against
+   * @param password
+   *          the provided password
+   * @return the key remembering the verification of the password
+   */
+  ByteString getVerificationKey(DN userDN, ByteString storedValue, ByteString password)
+  {
+    final Mac mac = macs.get();
+    update(mac, userDN.toNormalizedByteString());
+    update(mac, storedValue);
+    update(mac, password);
+    return ByteString.wrap(mac.doFinal());
+  }
+
+  private static void update(Mac mac, ByteString value)
+  {
+    final int length = value.length();
+    mac.update((byte) (length >>> 24));
+    mac.update((byte) (length >>> 16));
+    mac.update((byte) (length >>> 8));
+    mac.update((byte) length);
+    mac.update(value.toByteArray());
+  }
+
+  /**
+   * Indicates whether a successful verification is remembered.
+   *
+   * @param verificationKey
+   *          the key returned by {@link #getVerificationKey(DN, ByteString, ByteString)}
+   * @return {@code true} if the verification succeeded recently
+   */
+  boolean isRemembered(ByteString verificationKey)
+  {
+    final Long expirationTime = verifications.get(verificationKey);
+    if (expirationTime == null)
+    {
+      return false;
+    }
+    if (expirationTime > System.currentTimeMillis())
+    {
+      return true;
+    }
+    verifications.remove(verificationKey, expirationTime);
+    return false;
+  }
+
+  /**
+   * Remembers a successful verification.
+   *
+   * @param verificationKey
+   *          the key returned by {@link #getVerificationKey(DN, ByteString, ByteString)}
+   * @param durationMillis
+   *          the length of time during which the verification is remembered
+   */
+  void remember(ByteString verificationKey, long durationMillis)
+  {
+    final long now = System.currentTimeMillis();
+    if (verifications.size() >= MAX_REMEMBERED_VERIFICATIONS)
+    {
+      removeExpired(now);
+      if (verifications.size() >= MAX_REMEMBERED_VERIFICATIONS)
+      {
+        return;
+      }
+    }
+    verifications.put(verificationKey, now + durationMillis);
+  }
+
+  private void removeExpired(long now)
+  {
+    for (Iterator<Map.Entry<ByteString, Long>> it = verifications.entrySet().iterator(); it.hasNext();)
+    {
+      if (it.next().getValue() <= now)
+      {
+        it.remove();
+      }
+    }
+  }
+
+  /** Forgets all the remembered verifications. */
+  void clear()
+  {
+    verifications.clear();
+  }
+}
@@ -0,0 +1,271 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.schema.ObjectClass;
+import org.opends.server.types.Entry;
+import org.opends.server.types.SubEntry;
+import org.opends.server.types.SubtreeSpecification;
+
+/**
+ * An immutable snapshot of the subentries registered with the subentry
+ * manager, keyed by the base DN of their subtree specification, which is
+ * replaced as a whole whenever a subentry changes so that lookups do not
+ * need any lock.
+ * <p>
+ * The subentries applicable to an entry are the ones based on the entry
+ * itself, followed by the ones based on its parent and on the parents of its
+ * parent. The latter are resolved once for all the entries immediately below
+ * the same parent and having the same object classes: the subentries whose
+ * scope is the same for all these entries are kept or discarded once, and
+ * only the others, such as the ones having a filter refinement, are evaluated
+ * again for each entry.
+ */
+final class SubentryIndex
+{
+  /** An index without any subentries. */
+  static final SubentryIndex EMPTY = new SubentryIndex(Collections.<DN, List<SubEntry>> emptyMap());
+
+  /** Maximum number of candidate lists kept, to bound the memory used by the index. */
+  private static final int MAX_CACHED_CANDIDATES = 10000;
+
+  /** The subentries keyed by the base DN of their subtree specification. */
+  private final Map<DN, List<SubEntry>> subentries;
+  /** The candidate subentries of the entries having the same parent DN and object classes. */
+  private final ConcurrentMap<CandidatesKey, Candidates> candidatesCache = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a snapshot of the provided subentries.
+   *
+   * @param subentries
+   *          the subentries keyed by the base DN of their subtree specification
+   */
+  SubentryIndex(Map<DN, List<SubEntry>> subentries)
+  {
+    final Map<DN, List<SubEntry>> copy = new HashMap<>(subentries.size());
+    for (Map.Entry<DN, List<SubEntry>> mapEntry : subentries.entrySet())
+    {
+      copy.put(mapEntry.getKey(), Collections.unmodifiableList(new ArrayList<>(mapEntry.getValue())));
+    }
+    this.subentries = copy;
+  }
+
+  /**
+   * Returns all the subentries of this index.
+   *
+   * @return all the subentries of this index
+   */
+  List<SubEntry> getSubentries()
+  {
+    final List<SubEntry> results = new ArrayList<>();
+    for (List<SubEntry> subList : subentries.values())
+    {
+      results.addAll(subList);
+    }
+    return results;
+  }
+
+  /**
+   * Returns the subentries whose subtree specification scope includes the
+   * provided DN, ignoring their refinements.
+   *
+   * @param dn
+   *          the DN
+   * @return the applicable subentries
+   */
+  List<SubEntry> getSubentries(DN dn)
+  {
+    if (subentries.isEmpty())
+    {
+      return Collections.emptyList();
+    }
+
+    final List<SubEntry> results = new ArrayList<>();
+    for (DN subDN = dn; subDN != null && !subDN.isRootDN(); subDN = subDN.parent())
+    {
+      final List<SubEntry> subList = subentries.get(subDN);
+      if (subList != null)
+      {
+        for (SubEntry subEntry : subList)
+        {
+          if (subEntry.getSubTreeSpecification().isDNWithinScope(dn))
+          {
+            results.add(subEntry);
+          }
+        }
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Returns the subentries whose subtree specification scope includes the
+   * provided entry.
+   *
+   * @param entry
+   *          the entry
+   * @return the applicable subentries
+   */
+  List<SubEntry> getSubentries(Entry entry)
+  {
+    if (subentries.isEmpty())
+    {
+      return Collections.emptyList();
+    }
+
+    final DN dn = entry.getName();
+    final List<SubEntry> results = new ArrayList<>();
+    final List<SubEntry> subList = subentries.get(dn);
+    if (subList != null)
+    {
+      for (SubEntry subEntry : subList)
+      {
+        if (subEntry.getSubTreeSpecification().isWithinScope(entry))
+        {
+          results.add(subEntry);
+        }
+      }
+    }
+
+    final DN parentDN = dn.parent();
+    if (parentDN != null && !parentDN.isRootDN())
+    {
+      getCandidates(parentDN, entry).addApplicableSubentries(entry, results);
+    }
+    return results;
+  }
+
+  private Candidates getCandidates(DN parentDN, Entry entry)
+  {
+    final Set<ObjectClass> objectClasses = entry.getObjectClasses().keySet();
+    Candidates candidates = candidatesCache.get(new CandidatesKey(parentDN, objectClasses));
+    if (candidates == null)
+    {
+      candidates = new Candidates(parentDN, entry);
+      if (candidatesCache.size() >= MAX_CACHED_CANDIDATES)
+      {
+        candidatesCache.clear();
+      }
+      candidatesCache.put(new CandidatesKey(parentDN, new HashSet<>(objectClasses)), candidates);
+    }
+    return candidates;
+  }
+
+  /** The parent DN and object classes of entries, identifying their candidate subentries. */
+  private static final class CandidatesKey
+  {
+    private final DN parentDN;
+    private final Set<ObjectClass> objectClasses;
+    private final int hashCode;
+
+    private CandidatesKey(DN parentDN, Set<ObjectClass> objectClasses)
+    {
+      this.parentDN = parentDN;
+      this.objectClasses = objectClasses;
+      this.hashCode = 31 * parentDN.hashCode() + objectClasses.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+      if (this == obj)
+      {
+        return true;
+      }
+      if (obj instanceof CandidatesKey)
+      {
+        final CandidatesKey other = (CandidatesKey) obj;
+        return hashCode == other.hashCode
+            && parentDN.equals(other.parentDN)
+            && objectClasses.equals(other.objectClasses);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return hashCode;
+    }
+  }
+
+  /**
+   * The subentries based on a parent DN or above which may apply to the
+   * entries immediately below the parent DN having the same object classes.
+   */
+  private final class Candidates
+  {
+    private final SubEntry[] candidates;
+    /** Whether each candidate must be evaluated against each entry. */
+    private final boolean[] evaluate;
+
+    private Candidates(DN parentDN, Entry entry)
+    {
+      final List<SubEntry> subEntries = new ArrayList<>();
+      final List<Boolean> evaluations = new ArrayList<>();
+      for (DN subDN = parentDN; subDN != null && !subDN.isRootDN(); subDN = subDN.parent())
+      {
+        final List<SubEntry> subList = subentries.get(subDN);
+        if (subList != null)
+        {
+          for (SubEntry subEntry : subList)
+          {
+            final SubtreeSpecification subSpec = subEntry.getSubTreeSpecification();
+            if (!subSpec.isScopeUniformBelow(parentDN))
+            {
+              subEntries.add(subEntry);
+              evaluations.add(true);
+            }
+            else if (subSpec.isWithinScope(entry))
+            {
+              subEntries.add(subEntry);
+              evaluations.add(false);
+            }
+          }
+        }
+      }
+
+      candidates = subEntries.toArray(new SubEntry[subEntries.size()]);
+      evaluate = new boolean[candidates.length];
+      for (int i = 0; i < evaluate.length; i++)
+      {
+        evaluate[i] = evaluations.get(i);
+      }
+    }
+
+    private void addApplicableSubentries(Entry entry, List<SubEntry> results)
+    {
+      for (int i = 0; i < candidates.length; i++)
+      {
+        if (!evaluate[i] || candidates[i].getSubTreeSpecification().isWithinScope(entry))
+        {
+          results.add(candidates[i]);
+        }
+      }
+    }
+  }
+}
@@ -13,12 +13,12 @@
  *
  * Copyright 2009-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -84,6 +84,10 @@ import static org.opends.server.util.ServerConstants.*;
  * information about subentries defined in the server can be held in
  * memory.  If it is determined that this approach is not workable
  * in all cases, then we will need an alternate strategy.
+ * <BR><BR>
+ * Lookups of the subentries applicable to an entry do not take any lock:
+ * they use an immutable snapshot of the subentries, which is replaced
+ * whenever a subentry is added, removed or changed.
  */
 public class SubentryManager extends InternalDirectoryServerPlugin
         implements LocalBackendInitializationListener
@@ -97,6 +101,10 @@ public class SubentryManager extends InternalDirectoryServerPlugin
   private final Map<DN, List<SubEntry>> dn2SubEntry = new HashMap<>();
   /** A mapping between the DNs and applicable collective subentries. */
   private final Map<DN, List<SubEntry>> dn2CollectiveSubEntry = new HashMap<>();
+  /** The snapshot of the regular subentries, replaced whenever they change. */
+  private volatile SubentryIndex subentryIndex = SubentryIndex.EMPTY;
+  /** The snapshot of the collective subentries, replaced whenever they change. */
+  private volatile SubentryIndex collectiveSubentryIndex = SubentryIndex.EMPTY;
   /** A mapping between subentry DNs and subentry objects. */
   private final DITCacheMap<SubEntry> dit2SubEntry = new DITCacheMap<>();
   /** Internal search all operational attributes. */
@@ -195,6 +203,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
       }
       dit2SubEntry.put(entry.getName(), subEntry);
       subList.add(subEntry);
+      publishIndex(subEntryMap);
     }
     finally
     {
@@ -207,6 +216,22 @@ public class SubentryManager extends InternalDirectoryServerPlugin
     return (subEntry.isCollective() || subEntry.isInheritedCollective()) ? dn2CollectiveSubEntry : dn2SubEntry;
   }
 
+  /**
+   * Publishes a new snapshot of the provided subentries, to be used by lookups.
+   * Must be called with the write lock held.
+   */
+  private void publishIndex(Map<DN, List<SubEntry>> subEntryMap)
+  {
+    if (subEntryMap == dn2SubEntry)
+    {
+      subentryIndex = new SubentryIndex(dn2SubEntry);
+    }
+    else
+    {
+      collectiveSubentryIndex = new SubentryIndex(dn2CollectiveSubEntry);
+    }
+  }
+
   /**
    * Remove a given entry from this subentry manager.
    *
@@ -247,6 +272,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
           {
             subEntryListsIt.remove();
           }
+          publishIndex(subEntryMap);
           return true;
         }
       }
@@ -388,27 +414,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
    */
   public List<SubEntry> getSubentries()
   {
-    if (dn2SubEntry.isEmpty())
-    {
-      return Collections.emptyList();
-    }
-
-    List<SubEntry> subentries = new ArrayList<>();
-
-    lock.readLock().lock();
-    try
-    {
-      for (List<SubEntry> subList : dn2SubEntry.values())
-      {
-        subentries.addAll(subList);
-      }
-    }
-    finally
-    {
-      lock.readLock().unlock();
-    }
-
-    return subentries;
+    return subentryIndex.getSubentries();
   }
 
   /**
@@ -420,41 +426,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
    */
   public List<SubEntry> getSubentries(DN dn)
   {
-    return getSubentries(dn2SubEntry, dn);
-  }
-
-  private List<SubEntry> getSubentries(Map<DN, List<SubEntry>> subEntryMap, DN dn)
-  {
-    if (subEntryMap.isEmpty())
-    {
-      return Collections.emptyList();
-    }
-
-    lock.readLock().lock();
-    try
-    {
-      List<SubEntry> subentries = new ArrayList<>();
-      for (DN subDN = dn; subDN != null && !subDN.isRootDN(); subDN = subDN.parent())
-      {
-        List<SubEntry> subList = subEntryMap.get(subDN);
-        if (subList != null)
-        {
-          for (SubEntry subEntry : subList)
-          {
-            SubtreeSpecification subSpec = subEntry.getSubTreeSpecification();
-            if (subSpec.isDNWithinScope(dn))
-            {
-              subentries.add(subEntry);
-            }
-          }
-        }
-      }
-      return subentries;
-    }
-    finally
-    {
-      lock.readLock().unlock();
-    }
+    return subentryIndex.getSubentries(dn);
   }
 
   /**
@@ -467,41 +439,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
    */
   public List<SubEntry> getSubentries(Entry entry)
   {
-    return getSubentries(dn2SubEntry, entry);
-  }
-
-  private List<SubEntry> getSubentries(Map<DN, List<SubEntry>> subEntryMap, Entry entry)
-  {
-    if (subEntryMap.isEmpty())
-    {
-      return Collections.emptyList();
-    }
-
-    lock.readLock().lock();
-    try
-    {
-      List<SubEntry> subentries = new ArrayList<>();
-      for (DN subDN = entry.getName(); subDN != null && !subDN.isRootDN(); subDN = subDN.parent())
-      {
-        List<SubEntry> subList = subEntryMap.get(subDN);
-        if (subList != null)
-        {
-          for (SubEntry subEntry : subList)
-          {
-            SubtreeSpecification subSpec = subEntry.getSubTreeSpecification();
-            if (subSpec.isWithinScope(entry))
-            {
-              subentries.add(subEntry);
-            }
-          }
-        }
-      }
-      return subentries;
-    }
-    finally
-    {
-      lock.readLock().unlock();
-    }
+    return subentryIndex.getSubentries(entry);
   }
 
   /**
@@ -514,7 +452,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
    */
   public List<SubEntry> getCollectiveSubentries(DN dn)
   {
-    return getSubentries(dn2CollectiveSubEntry, dn);
+    return collectiveSubentryIndex.getSubentries(dn);
   }
 
   /**
@@ -527,7 +465,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
    */
   public List<SubEntry> getCollectiveSubentries(Entry entry)
   {
-    return getSubentries(dn2CollectiveSubEntry, entry);
+    return collectiveSubentryIndex.getSubentries(entry);
   }
 
   /**
@@ -571,6 +509,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
         subEntryListsIt.remove();
       }
     }
+    publishIndex(subEntryMap);
   }
 
   @Override
@@ -13,6 +13,7 @@
  *
  * Copyright 2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -566,6 +567,12 @@ public final class SubentryPasswordPolicy extends PasswordPolicy
     return getDefaultPasswordPolicy().getStateUpdateFailurePolicy();
   }
 
+  @Override
+  public long getDeferredStateUpdateInterval()
+  {
+    return getDefaultPasswordPolicy().getDeferredStateUpdateInterval();
+  }
+
   @Override
   public boolean isAuthPasswordSyntax()
   {
@@ -0,0 +1,680 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.extensions;
+
+import static org.opends.messages.ExtensionMessages.*;
+import static org.opends.server.util.StaticUtils.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigChangeResult;
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.config.server.ConfigurationChangeListener;
+import org.forgerock.opendj.io.ASN1;
+import org.forgerock.opendj.io.ASN1Writer;
+import org.forgerock.opendj.ldap.AttributeDescription;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.DecodeException;
+import org.forgerock.opendj.ldap.DecodeOptions;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.ldap.requests.GenericExtendedRequest;
+import org.forgerock.opendj.ldap.requests.Requests;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.forgerock.opendj.ldap.schema.Schema;
+import org.forgerock.opendj.server.config.server.ChangelogStreamExtendedOperationHandlerCfg;
+import org.opends.server.api.AccessControlHandler;
+import org.opends.server.api.ClientConnection;
+import org.opends.server.api.ExtendedOperationHandler;
+import org.opends.server.backends.ChangelogBackend;
+import org.opends.server.backends.ChangelogStreamCursor;
+import org.opends.server.core.AccessControlConfigManager;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.ExtendedOperation;
+import org.opends.server.replication.common.MultiDomainServerState;
+import org.opends.server.replication.protocol.AddMsg;
+import org.opends.server.replication.protocol.DeleteMsg;
+import org.opends.server.replication.protocol.LDAPUpdateMsg;
+import org.opends.server.replication.protocol.ModifyCommonMsg;
+import org.opends.server.replication.protocol.ModifyDNMsg;
+import org.opends.server.replication.server.changelog.api.ChangelogException;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.Control;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.opends.server.types.InitializationException;
+import org.opends.server.types.IntermediateResponse;
+import org.opends.server.types.Modification;
+import org.opends.server.types.Privilege;
+import org.opends.server.types.SearchResultEntry;
+
+import com.forgerock.opendj.ldap.extensions.ChangelogStreamAcknowledgeExtendedRequest;
+import com.forgerock.opendj.ldap.extensions.ChangelogStreamExtendedRequest;
+import com.forgerock.opendj.ldap.extensions.ChangelogStreamRecord;
+
+/**
+ * This class implements the changelog stream extended operation, which streams
+ * the changes of the cookie based external changelog to clients as compact
+ * binary intermediate responses, without building the cn=changelog entries.
+ * <p>
+ * The same handler also processes the acknowledgements of the streamed
+ * records: a stream stops reading the changelog while the number of records
+ * which have not been acknowledged reaches its window size. A stream only ends
+ * when it is canceled or abandoned, when the client disconnects, or when the
+ * server shuts down.
+ * <p>
+ * Streams do not hold a worker thread: the response of the operation is
+ * deferred, and the records are sent by the threads processing the
+ * acknowledgements and adding changes to the changelog, like the entries of
+ * persistent searches. Unless the client may bypass access controls, a change
+ * is only streamed if the client may read its cn=changelog entry, along with
+ * the changes it contains.
+ *
+ * @see ChangelogStreamExtendedRequest
+ * @see ChangelogStreamAcknowledgeExtendedRequest
+ * @see ChangelogStreamRecord
+ */
+public class ChangelogStreamExtendedOperation
+       extends ExtendedOperationHandler<ChangelogStreamExtendedOperationHandlerCfg>
+       implements ConfigurationChangeListener<ChangelogStreamExtendedOperationHandlerCfg>
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  private static final byte TYPE_ADD = (byte) 0xA0;
+  private static final byte TYPE_DELETE = (byte) 0x81;
+  private static final byte TYPE_MODIFY = (byte) 0xA2;
+  private static final byte TYPE_MODIFY_DN = (byte) 0xA3;
+  private static final byte TYPE_NEW_SUPERIOR = (byte) 0x80;
+
+  /** The name of the attribute of the cn=changelog entries holding the changes. */
+  private static final String CHANGES_ATTRIBUTE = "changes";
+
+  /** The streams in progress, by stream identifier. */
+  private final ConcurrentHashMap<Long, Stream> streams = new ConcurrentHashMap<>();
+  private final AtomicLong nextStreamID = new AtomicLong();
+  private volatile ChangelogStreamExtendedOperationHandlerCfg currentConfig;
+
+  /**
+   * A stream in progress. The changes are read from the cursor and sent by
+   * the thread which started the stream, then by the threads which
+   * acknowledge records or add changes to the changelog, one at a time.
+   */
+  private final class Stream implements ChangelogStreamCursor.ChangeListener, ExtendedOperation.CancellationCallback
+  {
+    private final long streamID;
+    private final ExtendedOperation operation;
+    private final int windowSize;
+    private final List<DN> baseDNs;
+    private final Set<AttributeType> attributeTypes;
+    /** Whether access controls must be evaluated on each change. */
+    private final boolean evaluateAcis;
+    /**
+     * Names of the attachments of the operation before evaluating access controls,
+     * the other ones being evaluation hints which must not leak to the next changes.
+     */
+    private final Set<String> attachmentNames;
+    /** The cursor on the changelog, only accessed while sending changes. */
+    private ChangelogStreamCursor cursor;
+
+    /**
+     * Ensures that a single thread at a time sends changes, and that no signal
+     * is missed. The thread starting the stream sends the first changes.
+     */
+    private final AtomicInteger sendCount = new AtomicInteger(1);
+    /** Sequence number of the last sent record. */
+    private volatile long lastSent;
+    /** Sequence number of the last acknowledged record. */
+    private final AtomicLong lastAcknowledged = new AtomicLong();
+    /** The result code ending the stream, guarded by this. */
+    private ResultCode endResultCode;
+    /** The message explaining why the stream ended, guarded by this. */
+    private LocalizableMessage endMessage;
+
+    private Stream(long streamID, ExtendedOperation operation, int windowSize, List<DN> baseDNs,
+        Set<AttributeType> attributeTypes)
+    {
+      this.streamID = streamID;
+      this.operation = operation;
+      this.windowSize = windowSize;
+      this.baseDNs = baseDNs;
+      this.attributeTypes = attributeTypes;
+      this.evaluateAcis = !operation.getClientConnection().hasPrivilege(Privilege.BYPASS_ACL, operation);
+      this.attachmentNames = new HashSet<>(operation.getAttachments().keySet());
+    }
+
+    @Override
+    public void changesAdded()
+    {
+      sendChanges();
+    }
+
+    @Override
+    public void extendedOperationCanceled(ExtendedOperation canceledOperation)
+    {
+      if (DirectoryServer.getInstance().isShuttingDown())
+      {
+        end(ResultCode.UNAVAILABLE, ERR_CHANGELOG_STREAM_SERVER_SHUTDOWN.get());
+      }
+      else
+      {
+        // ExtendedOperationBasis turns this result into a proper cancellation
+        end(ResultCode.CANCELLED, null);
+      }
+    }
+
+    private void acknowledge(long sequenceNumber)
+    {
+      long current;
+      do
+      {
+        current = lastAcknowledged.get();
+        if (sequenceNumber <= current)
+        {
+          return;
+        }
+      }
+      while (!lastAcknowledged.compareAndSet(current, Math.min(sequenceNumber, lastSent)));
+      sendChanges();
+    }
+
+    /** Ends this stream with the provided result, unless it has already ended. */
+    private void end(ResultCode resultCode, LocalizableMessage message)
+    {
+      synchronized (this)
+      {
+        if (endResultCode != null)
+        {
+          return;
+        }
+        endResultCode = resultCode;
+        endMessage = message;
+      }
+      sendChanges();
+    }
+
+    private synchronized boolean hasEnded()
+    {
+      return endResultCode != null;
+    }
+
+    /**
+     * Sends the available changes while the window is open, unless another
+     * thread is doing so, in which case it sends them on behalf of the current
+     * thread. Once the stream has ended, the response is sent instead.
+     */
+    private void sendChanges()
+    {
+      if (sendCount.getAndIncrement() == 0)
+      {
+        drain();
+      }
+    }
+
+    /** Sends changes until no other thread asked for it in the meantime. */
+    private void drain()
+    {
+      int missed = 1;
+      do
+      {
+        if (!sendAvailableChanges())
+        {
+          // Never leave: no thread must use the closed cursor afterwards.
+          complete();
+          return;
+        }
+        missed = sendCount.addAndGet(-missed);
+      }
+      while (missed != 0);
+    }
+
+    /** Returns {@code false} once the stream has ended. */
+    private boolean sendAvailableChanges()
+    {
+      try
+      {
+        while (!hasEnded())
+        {
+          if (lastSent - lastAcknowledged.get() >= windowSize || !cursor.next())
+          {
+            return true;
+          }
+          sendChange();
+        }
+      }
+      catch (DirectoryException e)
+      {
+        logger.traceException(e);
+        end(e.getResultCode(), e.getMessageObject());
+      }
+      catch (ChangelogException | IOException e)
+      {
+        logger.traceException(e);
+        end(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(),
+            ERR_CHANGELOG_STREAM_ERROR.get(stackTraceToSingleLineString(e)));
+      }
+      return false;
+    }
+
+    private void sendChange() throws DirectoryException, IOException
+    {
+      final LDAPUpdateMsg msg = cursor.getRecord();
+      if (!isSelected(msg.getDN(), baseDNs) || (evaluateAcis && !isAllowed(operation, attachmentNames, cursor.toChangelogEntry())))
+      {
+        return;
+      }
+      final long sequenceNumber = lastSent + 1;
+      final ByteString value = encodeRecord(streamID, sequenceNumber, cursor.getBaseDN(), msg, attributeTypes);
+      if (value == null)
+      {
+        return;
+      }
+      final List<Control> noControls = Collections.emptyList();
+      if (!operation.getClientConnection().sendIntermediateResponse(
+          new IntermediateResponse(operation, ChangelogStreamRecord.OID, value, noControls)))
+      {
+        end(ResultCode.UNAVAILABLE, null);
+        return;
+      }
+      lastSent = sequenceNumber;
+    }
+
+    /** Releases the resources of this stream and sends the response. */
+    private void complete()
+    {
+      streams.remove(streamID);
+      if (cursor != null)
+      {
+        cursor.close();
+      }
+      synchronized (this)
+      {
+        operation.setResultCode(endResultCode);
+        if (endMessage != null)
+        {
+          operation.appendErrorMessage(endMessage);
+        }
+      }
+      operation.sendExtendedResponse();
+    }
+  }
+
+  /**
+   * Create an instance of this changelog stream extended operation. All
+   * initialization should be performed in the
+   * {@code initializeExtendedOperationHandler} method.
+   */
+  public ChangelogStreamExtendedOperation()
+  {
+    super();
+  }
+
+  @Override
+  public void initializeExtendedOperationHandler(ChangelogStreamExtendedOperationHandlerCfg config)
+         throws ConfigException, InitializationException
+  {
+    currentConfig = config;
+    config.addChangelogStreamChangeListener(this);
+
+    super.initializeExtendedOperationHandler(config);
+    // acknowledgements are processed by this handler too
+    DirectoryServer.registerSupportedExtension(ChangelogStreamAcknowledgeExtendedRequest.OID, this);
+  }
+
+  @Override
+  public void finalizeExtendedOperationHandler()
+  {
+    currentConfig.removeChangelogStreamChangeListener(this);
+    DirectoryServer.deregisterSupportedExtension(ChangelogStreamAcknowledgeExtendedRequest.OID);
+    for (Stream stream : streams.values())
+    {
+      stream.end(ResultCode.UNAVAILABLE, ERR_CHANGELOG_STREAM_HANDLER_DISABLED.get());
+    }
+
+    super.finalizeExtendedOperationHandler();
+  }
+
+  @Override
+  public void processExtendedOperation(ExtendedOperation operation)
+  {
+    operation.setResultCode(ResultCode.UNDEFINED);
+
+    if (ChangelogStreamAcknowledgeExtendedRequest.OID.equals(operation.getRequestOID()))
+    {
+      processAcknowledge(operation);
+    }
+    else
+    {
+      processStream(operation);
+    }
+  }
+
+  private void processAcknowledge(ExtendedOperation operation)
+  {
+    final ChangelogStreamAcknowledgeExtendedRequest request;
+    try
+    {
+      request = ChangelogStreamAcknowledgeExtendedRequest.REQUEST_DECODER.decodeExtendedRequest(
+          toGenericRequest(operation), new DecodeOptions());
+    }
+    catch (DecodeException e)
+    {
+      logger.traceException(e);
+      operation.setResultCode(ResultCode.PROTOCOL_ERROR);
+      operation.appendErrorMessage(ERR_CHANGELOG_STREAM_CANNOT_DECODE_REQUEST.get(e.getMessageObject()));
+      return;
+    }
+
+    final Stream stream = streams.get(request.getStreamID());
+    if (stream == null || stream.operation.getClientConnection() != operation.getClientConnection())
+    {
+      operation.setResultCode(ResultCode.NO_SUCH_OPERATION);
+      operation.appendErrorMessage(ERR_CHANGELOG_STREAM_NO_SUCH_STREAM.get(request.getStreamID()));
+      return;
+    }
+    operation.setResultCode(ResultCode.SUCCESS);
+    stream.acknowledge(request.getSequenceNumber());
+  }
+
+  private void processStream(ExtendedOperation operation)
+  {
+    final ClientConnection clientConnection = operation.getClientConnection();
+    if (!clientConnection.hasPrivilege(Privilege.CHANGELOG_READ, operation))
+    {
+      operation.setResultCode(ResultCode.INSUFFICIENT_ACCESS_RIGHTS);
+      operation.appendErrorMessage(ERR_CHANGELOG_STREAM_INSUFFICIENT_PRIVILEGES.get());
+      return;
+    }
+
+    final ChangelogStreamExtendedRequest request;
+    final Set<AttributeType> attributeTypes;
+    try
+    {
+      request = ChangelogStreamExtendedRequest.REQUEST_DECODER.decodeExtendedRequest(
+          toGenericRequest(operation), new DecodeOptions());
+      attributeTypes = toAttributeTypes(request.getAttributes());
+    }
+    catch (DecodeException | IllegalArgumentException e)
+    {
+      logger.traceException(e);
+      operation.setResultCode(ResultCode.PROTOCOL_ERROR);
+      operation.appendErrorMessage(ERR_CHANGELOG_STREAM_CANNOT_DECODE_REQUEST.get(getExceptionMessage(e)));
+      return;
+    }
+
+    final ChangelogBackend changelogBackend = ChangelogBackend.getInstance();
+    if (changelogBackend == null)
+    {
+      operation.setResultCode(ResultCode.UNWILLING_TO_PERFORM);
+      operation.appendErrorMessage(ERR_CHANGELOG_STREAM_NO_CHANGELOG.get());
+      return;
+    }
+
+    final int windowSize = Math.min(request.getWindowSize(), currentConfig.getMaxWindowSize());
+    // Notifications of added changes are held off until the stream is started below.
+    final Stream stream = new Stream(
+        nextStreamID.incrementAndGet(), operation, windowSize, request.getBaseDNs(), attributeTypes);
+    try
+    {
+      stream.cursor =
+          changelogBackend.openChangelogStreamCursor(new MultiDomainServerState(request.getCookie()), stream);
+    }
+    catch (DirectoryException e)
+    {
+      logger.traceException(e);
+      operation.setResultCode(e.getResultCode());
+      operation.appendErrorMessage(e.getMessageObject());
+      return;
+    }
+    catch (ChangelogException e)
+    {
+      logger.traceException(e);
+      operation.setResultCode(DirectoryServer.getCoreConfigManager().getServerErrorResultCode());
+      operation.appendErrorMessage(ERR_CHANGELOG_STREAM_ERROR.get(stackTraceToSingleLineString(e)));
+      return;
+    }
+
+    streams.put(stream.streamID, stream);
+    operation.deferResponse(stream);
+    stream.drain();
+  }
+
+  private static GenericExtendedRequest toGenericRequest(ExtendedOperation operation)
+  {
+    return Requests.newGenericExtendedRequest(operation.getRequestOID(), operation.getRequestValue());
+  }
+
+  private static Set<AttributeType> toAttributeTypes(List<String> attributes)
+  {
+    final Schema schema = DirectoryServer.getInstance().getServerContext().getSchema();
+    final Set<AttributeType> attributeTypes = new HashSet<>();
+    for (String attribute : attributes)
+    {
+      attributeTypes.add(AttributeDescription.valueOf(attribute, schema).getAttributeType());
+    }
+    return attributeTypes;
+  }
+
+  private static boolean isSelected(DN entryDN, List<DN> baseDNs)
+  {
+    if (baseDNs.isEmpty())
+    {
+      return true;
+    }
+    for (DN baseDN : baseDNs)
+    {
+      if (entryDN.isSubordinateOrEqualTo(baseDN))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isSelected(Attribute attribute, Set<AttributeType> attributeTypes)
+  {
+    return attributeTypes.isEmpty()
+        || attributeTypes.contains(attribute.getAttributeDescription().getAttributeType());
+  }
+
+  /**
+   * Returns whether the client may read the provided cn=changelog entry and
+   * the changes it contains, as it would when searching the changelog.
+   */
+  private static boolean isAllowed(ExtendedOperation operation, Set<String> attachmentNames, Entry changelogEntry)
+  {
+    final AccessControlHandler<?> handler = AccessControlConfigManager.getInstance().getAccessControlHandler();
+    try
+    {
+      final SearchResultEntry unfilteredEntry = new SearchResultEntry(changelogEntry);
+      if (!handler.maySend(operation, unfilteredEntry))
+      {
+        return false;
+      }
+      final SearchResultEntry filteredEntry = new SearchResultEntry(changelogEntry.duplicate(false));
+      handler.filterEntry(operation, unfilteredEntry, filteredEntry);
+      return !unfilteredEntry.hasAttribute(getChangesAttributeType())
+          || filteredEntry.hasAttribute(getChangesAttributeType());
+    }
+    finally
+    {
+      // Access control handlers keep evaluation hints in the attachments, which must not leak to the next changes.
+      operation.getAttachments().keySet().retainAll(attachmentNames);
+    }
+  }
+
+  private static AttributeType getChangesAttributeType()
+  {
+    return DirectoryServer.getInstance().getServerContext().getSchema().getAttributeType(CHANGES_ATTRIBUTE);
+  }
+
+  /**
+   * Encodes the provided change as a {@link ChangelogStreamRecord}, or returns {@code null} if none of the
+   * modifications of a modify operation touches the selected attributes.
+   */
+  private static ByteString encodeRecord(long streamID, long sequenceNumber, DN baseDN, LDAPUpdateMsg msg,
+      Set<AttributeType> attributeTypes) throws IOException
+  {
+    final ByteStringBuilder builder = new ByteStringBuilder();
+    final ASN1Writer writer = ASN1.getWriter(builder);
+    writer.writeStartSequence();
+    writer.writeInteger(streamID);
+    writer.writeInteger(sequenceNumber);
+    writer.writeOctetString(baseDN.toString());
+    writer.writeOctetString(msg.getCSN().toByteString());
+    writer.writeOctetString(msg.getEntryUUID() != null ? msg.getEntryUUID() : "");
+    writer.writeOctetString(msg.getDN().toString());
+
+    if (msg instanceof AddMsg)
+    {
+      writer.writeStartSequence(TYPE_ADD);
+      for (Attribute attribute : getAttributes((AddMsg) msg))
+      {
+        if (isSelected(attribute, attributeTypes))
+        {
+          writePartialAttribute(writer, attribute);
+        }
+      }
+      writer.writeEndSequence();
+    }
+    else if (msg instanceof DeleteMsg)
+    {
+      writer.writeNull(TYPE_DELETE);
+    }
+    else if (msg instanceof ModifyDNMsg)
+    {
+      final ModifyDNMsg modDNMsg = (ModifyDNMsg) msg;
+      writer.writeStartSequence(TYPE_MODIFY_DN);
+      writer.writeOctetString(modDNMsg.getNewRDN());
+      writer.writeBoolean(modDNMsg.deleteOldRdn());
+      if (modDNMsg.getNewSuperior() != null)
+      {
+        writer.writeOctetString(TYPE_NEW_SUPERIOR, modDNMsg.getNewSuperior());
+      }
+      writer.writeEndSequence();
+    }
+    else
+    {
+      final List<Modification> mods = new ArrayList<>();
+      for (Modification mod : getMods((ModifyCommonMsg) msg))
+      {
+        if (isSelected(mod.getAttribute(), attributeTypes))
+        {
+          mods.add(mod);
+        }
+      }
+      if (mods.isEmpty() && !attributeTypes.isEmpty())
+      {
+        return null;
+      }
+      writer.writeStartSequence(TYPE_MODIFY);
+      for (Modification mod : mods)
+      {
+        writer.writeStartSequence();
+        writer.writeEnumerated(mod.getModificationType().intValue());
+        writePartialAttribute(writer, mod.getAttribute());
+        writer.writeEndSequence();
+      }
+      writer.writeEndSequence();
+    }
+    writer.writeEndSequence();
+    return builder.toByteString();
+  }
+
+  private static void writePartialAttribute(ASN1Writer writer, Attribute attribute) throws IOException
+  {
+    writer.writeStartSequence();
+    writer.writeOctetString(attribute.getAttributeDescription().toString());
+    writer.writeStartSet();
+    for (ByteString value : attribute)
+    {
+      writer.writeOctetString(value);
+    }
+    writer.writeEndSet();
+    writer.writeEndSequence();
+  }
+
+  private static List<Attribute> getAttributes(AddMsg addMsg)
+  {
+    try
+    {
+      return addMsg.getAttributes();
+    }
+    catch (Exception e)
+    {
+      logEncodingError("add", addMsg.getDN(), e);
+      return Collections.emptyList();
+    }
+  }
+
+  private static List<Modification> getMods(ModifyCommonMsg modifyMsg)
+  {
+    try
+    {
+      return modifyMsg.getMods();
+    }
+    catch (Exception e)
+    {
+      logEncodingError("modify", modifyMsg.getDN(), e);
+      return Collections.emptyList();
+    }
+  }
+
+  /** Mirrors the changelog backend: a change which cannot be decoded is sent without its content. */
+  private static void logEncodingError(String messageType, DN entryDN, Exception exception)
+  {
+    logger.traceException(exception);
+    logger.error(ERR_CHANGELOG_STREAM_CANNOT_ENCODE_CHANGE.get(messageType, entryDN, exception.getMessage()));
+  }
+
+  @Override
+  public boolean isConfigurationChangeAcceptable(ChangelogStreamExtendedOperationHandlerCfg config,
+                                                 List<LocalizableMessage> unacceptableReasons)
+  {
+    // The administrative framework enforces the lower limit of the window size.
+    return true;
+  }
+
+  @Override
+  public ConfigChangeResult applyConfigurationChange(ChangelogStreamExtendedOperationHandlerCfg config)
+  {
+    // Only the streams started after this change use the new window size.
+    currentConfig = config;
+    return new ConfigChangeResult();
+  }
+
+  @Override
+  public String getExtendedOperationOID()
+  {
+    return ChangelogStreamExtendedRequest.OID;
+  }
+
+  @Override
+  public String getExtendedOperationName()
+  {
+    return "Changelog Stream";
+  }
+}
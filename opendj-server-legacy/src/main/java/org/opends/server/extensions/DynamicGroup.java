@@ -13,21 +13,26 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.extensions;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.LocalizedIllegalArgumentException;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigChangeResult;
 import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.config.server.ConfigurationChangeListener;
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.SearchScope;
@@ -36,6 +41,7 @@ import org.forgerock.opendj.server.config.server.DynamicGroupImplementationCfg;
 import org.opends.server.api.Group;
 import org.opends.server.core.DirectoryServer;
 import org.opends.server.core.ServerContext;
+import org.opends.server.extensions.StaticGroup.CompactDn;
 import org.opends.server.types.Attribute;
 import org.opends.server.types.DirectoryConfig;
 import org.opends.server.types.DirectoryException;
@@ -43,6 +49,7 @@ import org.opends.server.types.Entry;
 import org.opends.server.types.InitializationException;
 import org.opends.server.types.LDAPURL;
 import org.opends.server.types.MemberList;
+import org.opends.server.types.MembershipException;
 import org.opends.server.types.Modification;
 import org.opends.server.types.SearchFilter;
 
@@ -57,9 +64,16 @@ import static org.opends.server.util.ServerConstants.*;
  * in the form of one or more LDAP URLs.  All dynamic groups should
  * contain the groupOfURLs object class, with the memberURL attribute
  * specifying the membership criteria.
+ * <BR><BR>
+ * When the group implementation is configured to materialize the membership,
+ * the DNs of the members are searched for the first time they are needed,
+ * then kept up to date by evaluating each changed entry against the member
+ * URLs, so that listing the members or checking whether an entry is a member
+ * does not require any search.
  */
 public class DynamicGroup
        extends Group<DynamicGroupImplementationCfg>
+       implements ConfigurationChangeListener<DynamicGroupImplementationCfg>
 {
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
@@ -69,6 +83,30 @@ public class DynamicGroup
   /** The set of the LDAP URLs that define the membership criteria. */
   private LinkedHashSet<LDAPURL> memberURLs;
 
+  /** Whether this group materializes its membership. */
+  private boolean materialized;
+
+  private ServerContext serverContext;
+
+  /** The DNs of the members of this group, or {@code null} if they are not materialized yet. */
+  private volatile ConcurrentSkipListSet<CompactDn> memberDNs;
+
+  /**
+   * The entry changes received while the members are being searched, to be
+   * applied once the search completes, or {@code null} if no search is in
+   * progress. Guarded by {@code materializationLock}.
+   */
+  private List<Entry[]> pendingChanges;
+
+  /** Lock protecting the consistency of memberDNs and pendingChanges. */
+  private final Object materializationLock = new Object();
+
+  /**
+   * Whether new group instances materialize their membership. Only used by
+   * the group implementation.
+   */
+  private volatile boolean materializedMembership;
+
   /** Creates a new, uninitialized dynamic group instance. This is intended for internal use only. */
   public DynamicGroup()
   {
@@ -96,12 +134,45 @@ public class DynamicGroup
     this.memberURLs   = memberURLs;
   }
 
+  /**
+   * Creates a new dynamic group instance which materializes its membership.
+   *
+   * @param  serverContext  The server context.
+   * @param  groupEntryDN   The DN of the entry that holds the definition for
+   *                        this group.  It must not be {@code null}.
+   * @param  memberURLs     The set of LDAP URLs that define the membership
+   *                        criteria for this group.  It must not be
+   *                        {@code null}.
+   */
+  DynamicGroup(ServerContext serverContext, DN groupEntryDN, LinkedHashSet<LDAPURL> memberURLs)
+  {
+    this(groupEntryDN, memberURLs);
+    this.serverContext = serverContext;
+    this.materialized = true;
+  }
+
   @Override
   public void initializeGroupImplementation(
                    DynamicGroupImplementationCfg configuration)
          throws ConfigException, InitializationException
   {
-    // No additional initialization is required.
+    materializedMembership = configuration.isMaterializedMembership();
+    configuration.addDynamicChangeListener(this);
+  }
+
+  @Override
+  public boolean isConfigurationChangeAcceptable(DynamicGroupImplementationCfg configuration,
+      List<LocalizableMessage> unacceptableReasons)
+  {
+    return true;
+  }
+
+  @Override
+  public ConfigChangeResult applyConfigurationChange(DynamicGroupImplementationCfg configuration)
+  {
+    // Only applies to the groups instantiated from now on
+    materializedMembership = configuration.isMaterializedMembership();
+    return new ConfigChangeResult();
   }
 
   @Override
@@ -129,6 +200,10 @@ public class DynamicGroup
       }
     }
 
+    if (materializedMembership)
+    {
+      return new DynamicGroup(serverContext, groupEntry.getName(), memberURLs);
+    }
     return new DynamicGroup(groupEntry.getName(), memberURLs);
   }
 
@@ -217,6 +292,12 @@ public class DynamicGroup
       return false;
     }
 
+    Set<CompactDn> members = getMaterializedMembers();
+    if (members != null)
+    {
+      return members.contains(new CompactDn(userDN));
+    }
+
     Entry entry = DirectoryConfig.getEntry(userDN);
     return entry != null && isMember(entry);
   }
@@ -231,9 +312,19 @@ public class DynamicGroup
       return false;
     }
 
+    Set<CompactDn> members = getMaterializedMembers();
+    if (members != null)
+    {
+      return members.contains(new CompactDn(userEntry.getName()));
+    }
+    return matchesMemberURLs(userEntry);
+  }
+
+  private boolean matchesMemberURLs(Entry entry) throws DirectoryException
+  {
     for (LDAPURL memberURL : memberURLs)
     {
-      if (memberURL.matchesEntry(userEntry))
+      if (memberURL.matchesEntry(entry))
       {
         return true;
       }
@@ -242,6 +333,22 @@ public class DynamicGroup
     return false;
   }
 
+  @Override
+  public boolean mayEntryChangeAlterMembership(Entry entry)
+  {
+    final DN entryDN = entry.getName();
+    for (LDAPURL memberURL : memberURLs)
+    {
+      final DN baseDN = memberURL.getBaseDN();
+      // Renaming or deleting a superior of the base DN moves the entries below it.
+      if (entryDN.isInScopeOf(baseDN, memberURL.getScope()) || baseDN.isSubordinateOrEqualTo(entryDN))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private Set<DN> getExaminedGroups(AtomicReference<Set<DN>> examinedGroups)
   {
     Set<DN> groups = examinedGroups.get();
@@ -257,6 +364,11 @@ public class DynamicGroup
   public MemberList getMembers()
          throws DirectoryException
   {
+    Set<CompactDn> members = getMaterializedMembers();
+    if (members != null)
+    {
+      return new SimpleStaticGroupMemberList(serverContext, groupEntryDN, members);
+    }
     return new DynamicGroupMemberList(groupEntryDN, memberURLs);
   }
 
@@ -265,6 +377,15 @@ public class DynamicGroup
                                SearchFilter filter)
          throws DirectoryException
   {
+    Set<CompactDn> members = getMaterializedMembers();
+    if (members != null)
+    {
+      if (baseDN == null && filter == null)
+      {
+        return new SimpleStaticGroupMemberList(serverContext, groupEntryDN, members);
+      }
+      return new FilteredStaticGroupMemberList(serverContext, groupEntryDN, members, baseDN, scope, filter);
+    }
     if (baseDN == null && filter == null)
     {
       return new DynamicGroupMemberList(groupEntryDN, memberURLs);
@@ -276,6 +397,190 @@ public class DynamicGroup
     }
   }
 
+  /**
+   * Returns the DNs of the members of this group, searching for them the
+   * first time they are needed.
+   *
+   * @return the DNs of the members of this group, or {@code null} if this
+   *         group does not materialize its membership, if the members are
+   *         being searched by another thread, or if the search failed
+   */
+  private Set<CompactDn> getMaterializedMembers()
+  {
+    if (!materialized)
+    {
+      return null;
+    }
+    ConcurrentSkipListSet<CompactDn> members = memberDNs;
+    if (members != null)
+    {
+      return members;
+    }
+
+    synchronized (materializationLock)
+    {
+      if (memberDNs != null || pendingChanges != null)
+      {
+        return memberDNs;
+      }
+      pendingChanges = new ArrayList<>();
+    }
+
+    members = searchMembers(groupEntryDN, null);
+    synchronized (materializationLock)
+    {
+      if (members != null)
+      {
+        for (Entry[] change : pendingChanges)
+        {
+          applyEntryChange(members, change[0], change[1]);
+        }
+        memberDNs = members;
+      }
+      pendingChanges = null;
+    }
+    return members;
+  }
+
+  /**
+   * Searches for the members of this group, optionally restricted to a
+   * subtree.
+   *
+   * @return the DNs of the members found, or {@code null} if the search
+   *         failed
+   */
+  private ConcurrentSkipListSet<CompactDn> searchMembers(DN groupDN, DN baseDN)
+  {
+    ConcurrentSkipListSet<CompactDn> members = new ConcurrentSkipListSet<>();
+    MemberList memberList = null;
+    try
+    {
+      memberList = baseDN == null
+          ? new DynamicGroupMemberList(groupDN, memberURLs)
+          : new DynamicGroupMemberList(groupDN, memberURLs, baseDN, SearchScope.WHOLE_SUBTREE, null);
+      while (memberList.hasMoreMembers())
+      {
+        try
+        {
+          DN memberDN = memberList.nextMemberDN();
+          if (memberDN != null)
+          {
+            members.add(new CompactDn(memberDN));
+          }
+        }
+        catch (MembershipException e)
+        {
+          logger.traceException(e);
+          if (!e.continueIterating())
+          {
+            return null;
+          }
+        }
+      }
+      return members;
+    }
+    catch (DirectoryException e)
+    {
+      logger.traceException(e);
+      return null;
+    }
+    finally
+    {
+      if (memberList != null)
+      {
+        memberList.close();
+      }
+    }
+  }
+
+  @Override
+  public boolean isMembershipMaterialized()
+  {
+    return materialized;
+  }
+
+  @Override
+  public void processEntryChange(Entry oldEntry, Entry newEntry)
+  {
+    if (!materialized)
+    {
+      return;
+    }
+    synchronized (materializationLock)
+    {
+      if (pendingChanges != null)
+      {
+        pendingChanges.add(new Entry[] { oldEntry, newEntry });
+      }
+      else if (memberDNs != null)
+      {
+        applyEntryChange(memberDNs, oldEntry, newEntry);
+      }
+    }
+  }
+
+  /**
+   * Updates the members after an entry change: the entry is removed if it has
+   * been deleted or renamed, along with its subordinates, then added again if
+   * it still matches a member URL. The subordinates of a renamed entry are
+   * searched for again under their new DN.
+   */
+  private void applyEntryChange(ConcurrentSkipListSet<CompactDn> members, Entry oldEntry, Entry newEntry)
+  {
+    final boolean renamed = oldEntry != null && newEntry != null && !oldEntry.getName().equals(newEntry.getName());
+    if (newEntry == null || renamed)
+    {
+      removeSubtree(members, oldEntry.getName());
+    }
+    if (renamed)
+    {
+      ConcurrentSkipListSet<CompactDn> movedMembers = searchMembers(groupEntryDN, newEntry.getName());
+      if (movedMembers != null)
+      {
+        members.addAll(movedMembers);
+      }
+    }
+    else if (newEntry != null)
+    {
+      try
+      {
+        if (matchesMemberURLs(newEntry))
+        {
+          members.add(new CompactDn(newEntry.getName()));
+        }
+        else
+        {
+          members.remove(new CompactDn(newEntry.getName()));
+        }
+      }
+      catch (DirectoryException e)
+      {
+        logger.traceException(e);
+      }
+    }
+  }
+
+  /** Removes the provided DN and the DNs of its subordinates from the members. */
+  private void removeSubtree(ConcurrentSkipListSet<CompactDn> members, DN baseDN)
+  {
+    final CompactDn base = new CompactDn(baseDN);
+    final ByteString prefix = base.toNormalizedByteString();
+    // The normalized DNs of the subordinates start with the normalized base DN
+    Iterator<CompactDn> iterator = members.tailSet(base, true).iterator();
+    while (iterator.hasNext())
+    {
+      CompactDn member = iterator.next();
+      if (!member.toNormalizedByteString().startsWith(prefix))
+      {
+        break;
+      }
+      if (member.equals(base) || member.toDn(serverContext).isSubordinateOrEqualTo(baseDN))
+      {
+        iterator.remove();
+      }
+    }
+  }
+
   @Override
   public boolean mayAlterMemberList()
   {
@@ -13,14 +13,15 @@
  *
  * Copyright 2008 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.extensions;
 
 import static org.forgerock.util.Reject.*;
 import static org.opends.messages.ExtensionMessages.*;
 
+import java.util.Collection;
 import java.util.Iterator;
-import java.util.Set;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.LocalizedIllegalArgumentException;
@@ -87,8 +88,8 @@ public class FilteredStaticGroupMemberList extends MemberList
    *                    match.  If this is {@code null}, then all members will
    *                    be considered eligible.
    */
-  public FilteredStaticGroupMemberList(ServerContext serverContext, DN groupDN, Set<CompactDn> memberDNs, DN baseDN,
-      SearchScope scope, SearchFilter filter)
+  public FilteredStaticGroupMemberList(ServerContext serverContext, DN groupDN, Collection<CompactDn> memberDNs,
+      DN baseDN, SearchScope scope, SearchFilter filter)
   {
     ifNull(groupDN, memberDNs);
 
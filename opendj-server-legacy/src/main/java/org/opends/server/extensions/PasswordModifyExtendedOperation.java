@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.extensions;
 
@@ -441,7 +442,22 @@ public class PasswordModifyExtendedOperation
           return;
         }
 
-        if (pwPolicyState.passwordMatches(oldPassword))
+        final boolean oldPasswordMatches;
+        try
+        {
+          oldPasswordMatches = pwPolicyState.passwordMatches(oldPassword);
+        }
+        catch (DirectoryException de)
+        {
+          logger.traceException(de);
+
+          // The old password could not be verified, which does not count as an authentication failure.
+          operation.setResultCode(de.getResultCode());
+          operation.appendErrorMessage(de.getMessageObject());
+          return;
+        }
+
+        if (oldPasswordMatches)
         {
           pwPolicyState.setLastLoginTime();
         }
@@ -532,7 +548,20 @@ public class PasswordModifyExtendedOperation
         // Prepare to update the password history, if necessary.
         if (pwPolicyState.maintainHistory())
         {
-          if (pwPolicyState.isPasswordInHistory(newPassword))
+          final boolean passwordInHistory;
+          try
+          {
+            passwordInHistory = pwPolicyState.isPasswordInHistory(newPassword);
+          }
+          catch (DirectoryException de)
+          {
+            logger.traceException(de);
+            operation.setResultCode(de.getResultCode());
+            operation.appendErrorMessage(de.getMessageObject());
+            return;
+          }
+
+          if (passwordInHistory)
           {
             operation.setResultCode(ResultCode.CONSTRAINT_VIOLATION);
             operation.appendErrorMessage(ERR_EXTOP_PASSMOD_PW_IN_HISTORY.get());
@@ -582,7 +611,20 @@ public class PasswordModifyExtendedOperation
         // Prepare to update the password history, if necessary.
         if (pwPolicyState.maintainHistory())
         {
-          if (pwPolicyState.isPasswordInHistory(newPassword))
+          final boolean passwordInHistory;
+          try
+          {
+            passwordInHistory = pwPolicyState.isPasswordInHistory(newPassword);
+          }
+          catch (DirectoryException de)
+          {
+            logger.traceException(de);
+            operation.setResultCode(de.getResultCode());
+            operation.appendErrorMessage(de.getMessageObject());
+            return;
+          }
+
+          if (passwordInHistory)
           {
             if (selfChange || !pwPolicyState.getAuthenticationPolicy().isSkipValidationForAdministrators())
             {
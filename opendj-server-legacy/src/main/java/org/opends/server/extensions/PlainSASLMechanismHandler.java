@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.extensions;
 
@@ -426,6 +427,13 @@ public class PlainSASLMechanismHandler
     {
       logger.traceException(e);
 
+      if (e instanceof DirectoryException && ((DirectoryException) e).getResultCode() == ResultCode.BUSY)
+      {
+        // The password could not be verified, which does not mean it is wrong.
+        bindOperation.setResponseData((DirectoryException) e);
+        return;
+      }
+
       bindOperation.setResultCode(ResultCode.INVALID_CREDENTIALS);
 
       LocalizableMessage message = ERR_SASLPLAIN_CANNOT_CHECK_PASSWORD_VALIDITY.get(userEntry.getName(), e);
@@ -13,13 +13,14 @@
  *
  * Copyright 2008 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.extensions;
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.LocalizedIllegalArgumentException;
 
+import java.util.Collection;
 import java.util.Iterator;
-import java.util.Set;
 
 import org.opends.server.core.ServerContext;
 import org.opends.server.extensions.StaticGroup.CompactDn;
@@ -62,7 +63,7 @@ public class SimpleStaticGroupMemberList extends MemberList
    * @param  memberDNs  The set of DNs for the users that are members of the
    *                    associated static group.
    */
-  public SimpleStaticGroupMemberList(ServerContext serverContext, DN groupDN, Set<CompactDn> memberDNs)
+  public SimpleStaticGroupMemberList(ServerContext serverContext, DN groupDN, Collection<CompactDn> memberDNs)
   {
     ifNull(groupDN, memberDNs);
     this.serverContext = serverContext;
@@ -13,19 +13,26 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.extensions;
 
 import static com.forgerock.opendj.util.StaticUtils.getBytes;
 
 import java.io.UnsupportedEncodingException;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedHashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -33,7 +40,9 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.LocalizedIllegalArgumentException;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigChangeResult;
 import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.config.server.ConfigurationChangeListener;
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.ModificationType;
@@ -46,10 +55,13 @@ import org.forgerock.opendj.server.config.server.StaticGroupImplementationCfg;
 import org.forgerock.util.Reject;
 import org.forgerock.util.annotations.VisibleForTesting;
 import org.opends.server.api.Group;
+import org.opends.server.api.LocalBackend;
 import org.opends.server.core.DirectoryServer;
 import org.opends.server.core.ModifyOperation;
 import org.opends.server.core.ModifyOperationBasis;
 import org.opends.server.core.ServerContext;
+import org.opends.server.protocols.internal.InternalSearchOperation;
+import org.opends.server.protocols.internal.SearchRequest;
 import org.opends.server.protocols.ldap.LDAPControl;
 import org.opends.server.types.AcceptRejectWarn;
 import org.opends.server.types.Attribute;
@@ -57,16 +69,19 @@ import org.opends.server.types.Attributes;
 import org.opends.server.types.Control;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.Entry;
+import org.opends.server.types.IndexType;
 import org.opends.server.types.InitializationException;
 import org.opends.server.types.MemberList;
 import org.opends.server.types.MembershipException;
 import org.opends.server.types.Modification;
 import org.opends.server.types.SearchFilter;
+import org.opends.server.types.SearchResultEntry;
 
 import static org.forgerock.opendj.ldap.schema.CoreSchema.*;
 import static org.opends.messages.ExtensionMessages.*;
 import static org.opends.server.core.DirectoryServer.*;
 import static org.opends.server.protocols.internal.InternalClientConnection.*;
+import static org.opends.server.protocols.internal.Requests.*;
 import static org.opends.server.util.CollectionUtils.*;
 import static org.opends.server.util.ServerConstants.*;
 
@@ -83,8 +98,15 @@ import static org.opends.server.util.ServerConstants.*;
  *   <li>one based on the {@code groupOfUniqueNames} object class, which stores
  * the member list in the {@code uniqueMember} attribute.</li>
  * </ul>
+ * <p>
+ * The members are kept in memory in a concurrent sorted set, which is updated
+ * in place when members are added or removed. Groups with more members than
+ * the configured indexed membership threshold do not keep them in memory:
+ * their membership is checked against the equality index of the member
+ * attribute in the backend holding the group.
  */
 public class StaticGroup extends Group<StaticGroupImplementationCfg>
+    implements ConfigurationChangeListener<StaticGroupImplementationCfg>
 {
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
@@ -94,20 +116,34 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
   /** The DN of the entry that holds the definition for this group. */
   private DN groupEntryDN;
 
-  /** The set of the DNs of the members for this group. */
-  private HashSet<CompactDn> memberDNs;
+  /**
+   * The set of the DNs of the members for this group, or {@code null} if the
+   * membership is checked against the backend index. Only replaced while
+   * holding the write lock, but read without the lock.
+   */
+  private volatile ConcurrentSkipListSet<CompactDn> memberDNs;
 
   /** The list of nested group DNs for this group. */
-  private LinkedList<DN> nestedGroups = new LinkedList<>();
+  private List<DN> nestedGroups = new CopyOnWriteArrayList<>();
 
   /** Passed to the group manager to see if the nested group list needs to be refreshed. */
   private long nestedGroupRefreshToken = DirectoryServer.getGroupManager().refreshToken();
 
-  /** Read/write lock protecting memberDNs and nestedGroups. */
+  /** Read/write lock protecting the consistency of memberDNs and nestedGroups. */
   private ReadWriteLock lock = new ReentrantReadWriteLock();
 
   private ServerContext serverContext;
 
+  /**
+   * The number of members above which new group instances check membership
+   * against the backend index, or 0 to always keep members in memory. Only
+   * used by the group implementation.
+   */
+  private volatile int indexedMembershipThreshold;
+
+  /** The configuration of the group implementation, only used by the group implementation. */
+  private StaticGroupImplementationCfg currentConfig;
+
   /**
    * Creates an uninitialized static group. This is intended for internal use
    * only, to allow {@code GroupManager} to dynamically create a group.
@@ -125,13 +161,14 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
    * @param  memberAttributeType  The attribute type used to hold the membership
    *                              list for this group.
    * @param  memberDNs            The set of the DNs of the members for this
-   *                              group.
+   *                              group, or {@code null} if the membership is
+   *                              checked against the backend index.
    */
   private StaticGroup(ServerContext serverContext, DN groupEntryDN, AttributeType memberAttributeType,
-      LinkedHashSet<CompactDn> memberDNs)
+      ConcurrentSkipListSet<CompactDn> memberDNs)
   {
     super();
-    Reject.ifNull(groupEntryDN, memberAttributeType, memberDNs);
+    Reject.ifNull(groupEntryDN, memberAttributeType);
 
     this.serverContext       = serverContext;
     this.groupEntryDN        = groupEntryDN;
@@ -143,7 +180,34 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
   public void initializeGroupImplementation(StaticGroupImplementationCfg configuration)
          throws ConfigException, InitializationException
   {
-    // No additional initialization is required.
+    indexedMembershipThreshold = configuration.getIndexedMembershipThreshold();
+    currentConfig = configuration;
+    currentConfig.addStaticChangeListener(this);
+  }
+
+  @Override
+  public void finalizeGroupImplementation()
+  {
+    if (currentConfig != null)
+    {
+      currentConfig.removeStaticChangeListener(this);
+      currentConfig = null;
+    }
+  }
+
+  @Override
+  public boolean isConfigurationChangeAcceptable(StaticGroupImplementationCfg configuration,
+      List<LocalizableMessage> unacceptableReasons)
+  {
+    return true;
+  }
+
+  @Override
+  public ConfigChangeResult applyConfigurationChange(StaticGroupImplementationCfg configuration)
+  {
+    // Only applies to the groups instantiated from now on
+    indexedMembershipThreshold = configuration.getIndexedMembershipThreshold();
+    return new ConfigChangeResult();
   }
 
   @Override
@@ -202,28 +266,79 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     {
       membersCount += a.size();
     }
-    LinkedHashSet<CompactDn> someMemberDNs = new LinkedHashSet<>(membersCount);
-    for (Attribute a : memberAttrList)
+
+    if (useIndexedMembership(serverContext, groupEntry.getName(), someMemberAttributeType, membersCount))
+    {
+      // nested groups are found when the group is first used
+      return new StaticGroup(serverContext, groupEntry.getName(), someMemberAttributeType, null);
+    }
+
+    // Sorting first makes each insertion append to the skip list
+    List<CompactDn> someMemberDNs = toCompactDns(groupEntry, someMemberAttributeType);
+    Collections.sort(someMemberDNs);
+    return new StaticGroup(serverContext, groupEntry.getName(), someMemberAttributeType,
+        new ConcurrentSkipListSet<>(someMemberDNs));
+  }
+
+  /**
+   * Indicates whether a group with the provided number of members should check
+   * membership against the backend index rather than keeping its members in
+   * memory, which requires an equality index on the member attribute.
+   */
+  private boolean useIndexedMembership(ServerContext serverContext, DN groupDN, AttributeType memberAttributeType,
+      int membersCount)
+  {
+    int threshold = indexedMembershipThreshold;
+    if (threshold <= 0 || membersCount <= threshold)
+    {
+      return false;
+    }
+    LocalBackend<?> backend = serverContext.getBackendConfigManager().findLocalBackendForEntry(groupDN);
+    if (backend == null || !backend.isIndexed(memberAttributeType, IndexType.EQUALITY))
+    {
+      logger.warn(WARN_STATICGROUP_MEMBER_ATTRIBUTE_NOT_INDEXED, groupDN, membersCount,
+          memberAttributeType.getNameOrOID(), backend != null ? backend.getBackendID() : null);
+      return false;
+    }
+    return true;
+  }
+
+  /** Decodes the values of the member attribute of a group entry. */
+  private static List<CompactDn> toCompactDns(Entry groupEntry, AttributeType memberAttributeType)
+  {
+    List<CompactDn> compactDns = new ArrayList<>();
+    for (Attribute a : groupEntry.getAllAttributes(memberAttributeType))
     {
       for (ByteString v : a)
       {
-        try
+        CompactDn compactDn = toCompactDn(v, groupEntry.getName(), memberAttributeType);
+        if (compactDn != null)
         {
-          someMemberDNs.add(new CompactDn(DN.valueOf(v.toString())));
-        }
-        catch (LocalizedIllegalArgumentException e)
-        {
-          logger.traceException(e);
-          if (DirectoryServer.getCoreConfigManager().getSyntaxEnforcementPolicy() == AcceptRejectWarn.REJECT)
-          {
-            logger.error(ERR_STATICGROUP_CANNOT_DECODE_MEMBER_VALUE_AS_DN,
-              v, someMemberAttributeType.getNameOrOID(), groupEntry.getName(), e.getMessageObject());
-          }
-          // else just ignore this value (issue OPENDJ-2833)
+          compactDns.add(compactDn);
         }
       }
     }
-    return new StaticGroup(serverContext, groupEntry.getName(), someMemberAttributeType, someMemberDNs);
+    return compactDns;
+  }
+
+  /** Decodes a value of the member attribute, returning {@code null} if it is not a valid DN. */
+  private static CompactDn toCompactDn(ByteString value, DN groupDN, AttributeType memberAttributeType)
+  {
+    try
+    {
+      return new CompactDn(DN.valueOf(value));
+    }
+    catch (LocalizedIllegalArgumentException e)
+    {
+      logger.traceException(e);
+      if (DirectoryServer.getCoreConfigManager().getSyntaxEnforcementPolicy() == AcceptRejectWarn.REJECT)
+      {
+        logger.error(ERR_STATICGROUP_CANNOT_DECODE_MEMBER_VALUE_AS_DN,
+          value, memberAttributeType.getNameOrOID(), groupDN, e.getMessageObject());
+      }
+      // else just ignore this value (issue OPENDJ-2833)
+      return null;
+    }
   }
 
   @Override
@@ -291,26 +406,24 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     return true;
   }
 
+  @Override
+  public boolean hasIndexedMembership()
+  {
+    return memberDNs == null;
+  }
+
   @Override
   public List<DN> getNestedGroupDNs()
   {
     try
     {
-       reloadIfNeeded();
+      reloadIfNeeded();
     }
     catch (DirectoryException ex)
     {
       return Collections.<DN>emptyList();
     }
-    lock.readLock().lock();
-    try
-    {
-      return nestedGroups;
-    }
-    finally
-    {
-      lock.readLock().unlock();
-    }
+    return nestedGroups;
   }
 
   @Override
@@ -337,13 +450,12 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
         throw new DirectoryException(modifyOperation.getResultCode(), msg);
       }
 
-      LinkedList<DN> newNestedGroups = new LinkedList<>(nestedGroups);
-      newNestedGroups.add(nestedGroupDN);
-      nestedGroups = newNestedGroups;
+      nestedGroups.add(nestedGroupDN);
       //Add it to the member DN list.
-      HashSet<CompactDn> newMemberDNs = new HashSet<>(memberDNs);
-      newMemberDNs.add(new CompactDn(nestedGroupDN));
-      memberDNs = newMemberDNs;
+      if (memberDNs != null)
+      {
+        memberDNs.add(new CompactDn(nestedGroupDN));
+      }
     }
     finally
     {
@@ -375,13 +487,12 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
         throw new DirectoryException(modifyOperation.getResultCode(), message);
       }
 
-      LinkedList<DN> newNestedGroups = new LinkedList<>(nestedGroups);
-      newNestedGroups.remove(nestedGroupDN);
-      nestedGroups = newNestedGroups;
+      nestedGroups.remove(nestedGroupDN);
       //Remove it from the member DN list.
-      LinkedHashSet<CompactDn> newMemberDNs = new LinkedHashSet<>(memberDNs);
-      newMemberDNs.remove(new CompactDn(nestedGroupDN));
-      memberDNs = newMemberDNs;
+      if (memberDNs != null)
+      {
+        memberDNs.remove(new CompactDn(nestedGroupDN));
+      }
     }
     finally
     {
@@ -393,11 +504,10 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
   public boolean isMember(DN userDN, AtomicReference<Set<DN>> examinedGroups) throws DirectoryException
   {
     reloadIfNeeded();
-    CompactDn compactUserDN = new CompactDn(userDN);
     lock.readLock().lock();
     try
     {
-      if (memberDNs.contains(compactUserDN))
+      if (hasMember(userDN))
       {
         return true;
       }
@@ -427,6 +537,39 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     return false;
   }
 
+  /** Indicates whether the provided DN is explicitly listed as a member of this group. */
+  private boolean hasMember(DN userDN) throws DirectoryException
+  {
+    ConcurrentSkipListSet<CompactDn> members = memberDNs;
+    if (members != null)
+    {
+      return members.contains(new CompactDn(userDN));
+    }
+
+    // Searching the subtree rather than the base entry lets the backend use the
+    // equality index, and only read the group entry when the user is a member.
+    SearchFilter filter =
+        SearchFilter.createEqualityFilter(memberAttributeType, ByteString.valueOfUtf8(userDN.toString()));
+    SearchRequest request = newSearchRequest(groupEntryDN, SearchScope.WHOLE_SUBTREE, filter, "1.1");
+    InternalSearchOperation searchOperation = getRootConnection().processSearch(request);
+    if (searchOperation.getResultCode() != ResultCode.SUCCESS)
+    {
+      if (searchOperation.getResultCode() == ResultCode.NO_SUCH_OBJECT)
+      {
+        return false;
+      }
+      throw new DirectoryException(searchOperation.getResultCode(), searchOperation.getErrorMessage().toMessage());
+    }
+    for (SearchResultEntry entry : searchOperation.getSearchEntries())
+    {
+      if (entry.getName().equals(groupEntryDN))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private Set<DN> getExaminedGroups(AtomicReference<Set<DN>> examinedGroups)
   {
     Set<DN> groups = examinedGroups.get();
@@ -465,9 +608,9 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
           throw new DirectoryException(ResultCode.NO_SUCH_ATTRIBUTE,
               ERR_STATICGROUP_GROUP_INSTANCE_INVALID.get(groupEntryDN));
         }
-        else if (thisGroup != this)
+        else if (thisGroup != this && memberDNs != null)
         {
-          LinkedHashSet<CompactDn> newMemberDNs = new LinkedHashSet<>();
+          ConcurrentSkipListSet<CompactDn> newMemberDNs = new ConcurrentSkipListSet<>();
           MemberList memberList = thisGroup.getMembers();
           while (memberList.hasMoreMembers())
           {
@@ -482,16 +625,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
           }
           memberDNs = newMemberDNs;
         }
-        nestedGroups.clear();
-        for (CompactDn compactDn : memberDNs)
-        {
-          DN dn = compactDn.toDn(serverContext);
-          Group<?> group = DirectoryServer.getGroupManager().getGroupInstance(dn);
-          if (group != null)
-          {
-            nestedGroups.add(group.getGroupDN());
-          }
-        }
+        nestedGroups = new CopyOnWriteArrayList<>(memberDNs != null ? findNestedGroups(memberDNs) : findNestedGroups());
         nestedGroupRefreshToken = DirectoryServer.getGroupManager().refreshToken();
       }
       finally
@@ -501,38 +635,157 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     }
   }
 
+  /** Returns the DNs of the registered groups among the provided members. */
+  private List<DN> findNestedGroups(Collection<CompactDn> members)
+  {
+    List<DN> groupDNs = new ArrayList<>();
+    for (CompactDn compactDn : members)
+    {
+      Group<?> group = DirectoryServer.getGroupManager().getGroupInstance(compactDn.toDn(serverContext));
+      if (group != null)
+      {
+        groupDNs.add(group.getGroupDN());
+      }
+    }
+    return groupDNs;
+  }
+
+  /**
+   * Returns the DNs of the registered groups which are members of a group whose
+   * membership is checked against the backend index. Each registered group is
+   * looked up in the index, rather than decoding all the members of the group.
+   */
+  private List<DN> findNestedGroups() throws DirectoryException
+  {
+    List<DN> groupDNs = new ArrayList<>();
+    for (Group<?> group : DirectoryServer.getGroupManager().getGroupInstances())
+    {
+      if (hasMember(group.getGroupDN()))
+      {
+        groupDNs.add(group.getGroupDN());
+      }
+    }
+    return groupDNs;
+  }
+
+  /**
+   * Reads the members of a group whose membership is checked against the
+   * backend index. The members are decoded while they are iterated over, so
+   * that they are never all held in memory.
+   */
+  private Collection<CompactDn> readMemberDNs() throws DirectoryException
+  {
+    Entry groupEntry = DirectoryServer.getEntry(groupEntryDN);
+    if (groupEntry == null)
+    {
+      throw new DirectoryException(ResultCode.NO_SUCH_ATTRIBUTE, ERR_STATICGROUP_GROUP_INSTANCE_INVALID.get(groupEntryDN));
+    }
+    final List<Attribute> memberAttributes = groupEntry.getAllAttributes(memberAttributeType);
+    final DN groupDN = groupEntryDN;
+    final AttributeType attributeType = memberAttributeType;
+    return new AbstractCollection<CompactDn>()
+    {
+      @Override
+      public Iterator<CompactDn> iterator()
+      {
+        final Iterator<Attribute> attributes = memberAttributes.iterator();
+        return new Iterator<CompactDn>()
+        {
+          private Iterator<ByteString> values = Collections.emptyIterator();
+          private CompactDn next;
+
+          @Override
+          public boolean hasNext()
+          {
+            while (next == null)
+            {
+              if (values.hasNext())
+              {
+                next = toCompactDn(values.next(), groupDN, attributeType);
+              }
+              else if (attributes.hasNext())
+              {
+                values = attributes.next().iterator();
+              }
+              else
+              {
+                return false;
+              }
+            }
+            return true;
+          }
+
+          @Override
+          public CompactDn next()
+          {
+            if (!hasNext())
+            {
+              throw new NoSuchElementException();
+            }
+            CompactDn result = next;
+            next = null;
+            return result;
+          }
+        };
+      }
+
+      @Override
+      public int size()
+      {
+        int size = 0;
+        for (Attribute a : memberAttributes)
+        {
+          size += a.size();
+        }
+        return size;
+      }
+    };
+  }
+
   @Override
   public MemberList getMembers() throws DirectoryException
+  {
+    return getMembers(null, null, null);
+  }
+
+  @Override
+  public MemberList getMembers(DN baseDN, SearchScope scope, SearchFilter filter) throws DirectoryException
   {
     reloadIfNeeded();
-    lock.readLock().lock();
-    try
+    // Iterating over the concurrent set does not need the lock
+    Collection<CompactDn> members = memberDNs;
+    if (members == null)
     {
-      return new SimpleStaticGroupMemberList(serverContext, groupEntryDN, memberDNs);
+      members = readMemberDNs();
     }
-    finally
+    if (baseDN == null && filter == null)
     {
-      lock.readLock().unlock();
+      return new SimpleStaticGroupMemberList(serverContext, groupEntryDN, members);
     }
+    return new FilteredStaticGroupMemberList(serverContext, groupEntryDN, members, baseDN, scope, filter);
   }
 
   @Override
-  public MemberList getMembers(DN baseDN, SearchScope scope, SearchFilter filter) throws DirectoryException
+  public Collection<ByteString> getNormalizedMemberDNs()
   {
-    reloadIfNeeded();
-    lock.readLock().lock();
-    try
+    ConcurrentSkipListSet<CompactDn> members = memberDNs;
+    if (members == null)
     {
-      if (baseDN == null && filter == null)
-      {
-        return new SimpleStaticGroupMemberList(serverContext, groupEntryDN, memberDNs);
-      }
-      return new FilteredStaticGroupMemberList(serverContext, groupEntryDN, memberDNs, baseDN, scope, filter);
+      // the group manager asks the group for each entry
+      return null;
     }
-    finally
+    List<ByteString> normalizedDNs = new ArrayList<>();
+    for (CompactDn memberDN : members)
     {
-      lock.readLock().unlock();
+      normalizedDNs.add(memberDN.toNormalizedByteString());
     }
+    return normalizedDNs;
+  }
+
+  @Override
+  public boolean isMemberAttributeType(AttributeType attributeType)
+  {
+    return attributeType.equals(memberAttributeType);
   }
 
   @Override
@@ -545,7 +798,6 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
   public void updateMembers(List<Modification> modifications)
          throws UnsupportedOperationException, DirectoryException
   {
-    Reject.ifNull(memberDNs);
     Reject.ifNull(nestedGroups);
 
     reloadIfNeeded();
@@ -562,41 +814,32 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
             case ADD:
               for (ByteString v : attribute)
               {
-                DN member = DN.valueOf(v);
-                memberDNs.add(new CompactDn(member));
-                if (DirectoryServer.getGroupManager().getGroupInstance(member) != null)
-                {
-                  nestedGroups.add(member);
-                }
+                addMemberDN(DN.valueOf(v));
               }
               break;
             case DELETE:
               if (attribute.isEmpty())
               {
-                memberDNs.clear();
-                nestedGroups.clear();
+                clearMemberDNs();
               }
               else
               {
                 for (ByteString v : attribute)
                 {
                   DN member = DN.valueOf(v);
-                  memberDNs.remove(new CompactDn(member));
+                  if (memberDNs != null)
+                  {
+                    memberDNs.remove(new CompactDn(member));
+                  }
                   nestedGroups.remove(member);
                 }
               }
               break;
             case REPLACE:
-              memberDNs.clear();
-              nestedGroups.clear();
+              clearMemberDNs();
               for (ByteString v : attribute)
               {
-                DN member = DN.valueOf(v);
-                memberDNs.add(new CompactDn(member));
-                if (DirectoryServer.getGroupManager().getGroupInstance(member) != null)
-                {
-                  nestedGroups.add(member);
-                }
+                addMemberDN(DN.valueOf(v));
               }
               break;
           }
@@ -608,6 +851,27 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     }
   }
 
+  private void addMemberDN(DN member)
+  {
+    if (memberDNs != null)
+    {
+      memberDNs.add(new CompactDn(member));
+    }
+    if (DirectoryServer.getGroupManager().getGroupInstance(member) != null)
+    {
+      nestedGroups.add(member);
+    }
+  }
+
+  private void clearMemberDNs()
+  {
+    if (memberDNs != null)
+    {
+      memberDNs.clear();
+    }
+    nestedGroups.clear();
+  }
+
   @Override
   public void addMember(Entry userEntry) throws UnsupportedOperationException, DirectoryException
   {
@@ -617,9 +881,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     try
     {
       DN userDN = userEntry.getName();
-      CompactDn compactUserDN = new CompactDn(userDN);
-
-      if (memberDNs.contains(compactUserDN))
+      if (hasMember(userDN))
       {
         LocalizableMessage message = ERR_STATICGROUP_ADD_MEMBER_ALREADY_EXISTS.get(userDN, groupEntryDN);
         throw new DirectoryException(ResultCode.ATTRIBUTE_OR_VALUE_EXISTS, message);
@@ -633,9 +895,10 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
             ERR_STATICGROUP_ADD_MEMBER_UPDATE_FAILED.get(userDN, groupEntryDN, modifyOperation.getErrorMessage()));
       }
 
-      LinkedHashSet<CompactDn> newMemberDNs = new LinkedHashSet<CompactDn>(memberDNs);
-      newMemberDNs.add(compactUserDN);
-      memberDNs = newMemberDNs;
+      if (memberDNs != null)
+      {
+        memberDNs.add(new CompactDn(userDN));
+      }
     }
     finally
     {
@@ -648,11 +911,10 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
   {
     Reject.ifNull(userDN);
 
-    CompactDn compactUserDN = new CompactDn(userDN);
     lock.writeLock().lock();
     try
     {
-      if (! memberDNs.contains(compactUserDN))
+      if (! hasMember(userDN))
       {
         LocalizableMessage message = ERR_STATICGROUP_REMOVE_MEMBER_NO_SUCH_MEMBER.get(userDN, groupEntryDN);
         throw new DirectoryException(ResultCode.NO_SUCH_ATTRIBUTE, message);
@@ -666,16 +928,12 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
             ERR_STATICGROUP_REMOVE_MEMBER_UPDATE_FAILED.get(userDN, groupEntryDN, modifyOperation.getErrorMessage()));
       }
 
-      LinkedHashSet<CompactDn> newMemberDNs = new LinkedHashSet<>(memberDNs);
-      newMemberDNs.remove(compactUserDN);
-      memberDNs = newMemberDNs;
-      //If it is in the nested group list remove it.
-      if (nestedGroups.contains(userDN))
+      if (memberDNs != null)
       {
-        LinkedList<DN> newNestedGroups = new LinkedList<>(nestedGroups);
-        newNestedGroups.remove(userDN);
-        nestedGroups = newNestedGroups;
+        memberDNs.remove(new CompactDn(userDN));
       }
+      //If it is in the nested group list remove it.
+      nestedGroups.remove(userDN);
     }
     finally
     {
@@ -701,6 +959,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     buffer.append(")");
   }
 
+
   /**
    * A compact representation of a DN, suitable for equality and comparisons, and providing a natural hierarchical
    * ordering.
@@ -758,6 +1017,16 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
       return DN.valueOf(toString(), serverContext.getSchema());
     }
 
+    /**
+     * Returns the normalized form of the DN, as returned by {@link DN#toNormalizedByteString()}.
+     *
+     * @return the normalized form of the DN
+     */
+    ByteString toNormalizedByteString()
+    {
+      return ByteString.wrap(normalizedValue);
+    }
+
     @Override
     public int hashCode()
     {
@@ -797,4 +1066,4 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
       }
     }
   }
-}
\ No newline at end of file
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.extensions;
 
@@ -217,6 +218,13 @@ public class VirtualStaticGroup
     throw new UnsupportedOperationException(message.toString());
   }
 
+  @Override
+  public boolean mayEntryChangeAlterMembership(Entry entry)
+  {
+    // The membership is the one of the target group, which is tracked separately.
+    return false;
+  }
+
   @Override
   public boolean isMember(DN userDN, AtomicReference<Set<DN>> examinedGroups)
          throws DirectoryException
@@ -0,0 +1,73 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.monitors;
+
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.DNCacheStatistics;
+import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
+import org.opends.server.api.MonitorData;
+import org.opends.server.api.MonitorProvider;
+import org.opends.server.types.InitializationException;
+
+/**
+ * This class defines a Directory Server monitor that can be used to provide
+ * information about the cache of parent DNs shared by all the threads which
+ * decode DNs.
+ */
+public class DNCacheMonitor extends MonitorProvider<MonitorProviderCfg>
+{
+  /** The name of the attribute providing the number of decoded DNs which reused a cached DN. */
+  public static final String ATTR_HITS = "cacheHits";
+  /** The name of the attribute providing the number of decoded DNs which did not reuse any cached DN. */
+  public static final String ATTR_MISSES = "cacheMisses";
+  /** The name of the attribute providing the percentage of decoded DNs which reused a cached DN. */
+  public static final String ATTR_HIT_RATIO = "cacheHitRatio";
+  /** The name of the attribute providing the number of DNs evicted from the cache. */
+  public static final String ATTR_EVICTIONS = "cacheEvictions";
+  /** The name of the attribute providing the number of DNs currently cached. */
+  public static final String ATTR_SIZE = "currentCacheSize";
+  /** The name of the attribute providing the maximum number of DNs which can be cached. */
+  public static final String ATTR_MAX_SIZE = "maxCacheSize";
+
+  @Override
+  public void initializeMonitorProvider(MonitorProviderCfg configuration)
+         throws ConfigException, InitializationException
+  {
+    // No initialization is required.
+  }
+
+  @Override
+  public String getMonitorInstanceName()
+  {
+    return "DN Cache";
+  }
+
+  @Override
+  public MonitorData getMonitorData()
+  {
+    final DNCacheStatistics statistics = DN.getCacheStatistics();
+
+    final MonitorData monitorAttrs = new MonitorData(6);
+    monitorAttrs.add(ATTR_HITS, statistics.getHitCount());
+    monitorAttrs.add(ATTR_MISSES, statistics.getMissCount());
+    monitorAttrs.add(ATTR_HIT_RATIO, Math.round(statistics.getHitRatio() * 100));
+    monitorAttrs.add(ATTR_EVICTIONS, statistics.getEvictionCount());
+    monitorAttrs.add(ATTR_SIZE, statistics.getSize());
+    monitorAttrs.add(ATTR_MAX_SIZE, statistics.getMaxSize());
+    return monitorAttrs;
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.monitors;
+
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
+import org.opends.server.api.MonitorData;
+import org.opends.server.api.MonitorProvider;
+import org.opends.server.types.InitializationException;
+import org.opends.server.types.LockManager;
+
+/**
+ * This class defines a Directory Server monitor that can be used to provide
+ * information about the contention on the entry locks of the lock manager.
+ */
+public class LockManagerMonitor extends MonitorProvider<MonitorProviderCfg>
+{
+  /** The name of the attribute providing the number of locks currently held in the lock table. */
+  public static final String ATTR_LOCKS = "currentLocks";
+  /** The name of the attribute providing the number of lock attempts which had to wait. */
+  public static final String ATTR_CONTENDED_LOCKS = "contendedLocks";
+  /** The name of the attribute providing the number of lock attempts which timed out. */
+  public static final String ATTR_TIMED_OUT_LOCKS = "timedOutLocks";
+  /**
+   * The names of the attributes providing the number of lock attempts which had to wait, per range
+   * of wait times, in the order of the lock manager histogram.
+   */
+  private static final String[] ATTR_LOCK_WAIT_TIMES = {
+    "lockWaitsLessThan1ms",
+    "lockWaitsLessThan10ms",
+    "lockWaitsLessThan100ms",
+    "lockWaitsLessThan1s",
+    "lockWaitsOf1sOrMore",
+  };
+
+  /** The lock manager with which this monitor is associated. */
+  private final LockManager lockManager;
+
+  /**
+   * Creates a new monitor provider for the provided lock manager.
+   *
+   * @param  lockManager  The lock manager with which this monitor is associated.
+   */
+  public LockManagerMonitor(LockManager lockManager)
+  {
+    this.lockManager = lockManager;
+  }
+
+  @Override
+  public void initializeMonitorProvider(MonitorProviderCfg configuration)
+         throws ConfigException, InitializationException
+  {
+    // No initialization is required.
+  }
+
+  @Override
+  public String getMonitorInstanceName()
+  {
+    return "Lock Manager";
+  }
+
+  @Override
+  public MonitorData getMonitorData()
+  {
+    final long[] lockWaitTimes = lockManager.getLockWaitTimeHistogram();
+
+    final MonitorData monitorAttrs = new MonitorData(3 + lockWaitTimes.length);
+    monitorAttrs.add(ATTR_LOCKS, lockManager.getNumberOfLocks());
+    monitorAttrs.add(ATTR_CONTENDED_LOCKS, lockManager.getContendedLockCount());
+    monitorAttrs.add(ATTR_TIMED_OUT_LOCKS, lockManager.getTimedOutLockCount());
+    for (int i = 0; i < lockWaitTimes.length && i < ATTR_LOCK_WAIT_TIMES.length; i++)
+    {
+      monitorAttrs.add(ATTR_LOCK_WAIT_TIMES[i], lockWaitTimes[i]);
+    }
+    return monitorAttrs;
+  }
+}
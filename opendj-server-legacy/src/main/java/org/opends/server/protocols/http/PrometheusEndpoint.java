@@ -0,0 +1,160 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.protocols.http;
+
+import static org.forgerock.util.promise.Promises.newResultPromise;
+
+import org.forgerock.http.Handler;
+import org.forgerock.http.HttpApplication;
+import org.forgerock.http.HttpApplicationException;
+import org.forgerock.http.io.Buffer;
+import org.forgerock.http.protocol.Request;
+import org.forgerock.http.protocol.Response;
+import org.forgerock.http.protocol.Status;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.Connection;
+import org.forgerock.opendj.ldap.LdapException;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.ldap.SearchResultHandler;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.ldap.requests.Requests;
+import org.forgerock.opendj.ldap.requests.SearchRequest;
+import org.forgerock.opendj.ldap.responses.Result;
+import org.forgerock.opendj.ldap.responses.SearchResultEntry;
+import org.forgerock.opendj.ldap.responses.SearchResultReference;
+import org.forgerock.opendj.rest2ldap.AuthenticatedConnectionContext;
+import org.forgerock.opendj.server.config.server.PrometheusEndpointCfg;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.Factory;
+import org.forgerock.util.Function;
+import org.forgerock.util.promise.NeverThrowsException;
+import org.forgerock.util.promise.Promise;
+import org.opends.server.api.HttpEndpoint;
+import org.opends.server.core.ServerContext;
+
+/**
+ * An HTTP endpoint exposing the server's monitoring backend (cn=monitor) in
+ * the Prometheus text exposition format, so that the server, and in
+ * particular replication latencies and throughput, can be scraped by a
+ * Prometheus server.
+ * <p>
+ * The monitor entries are read with the connection of the authorized user,
+ * so the access controls of the monitoring backend apply.
+ */
+public final class PrometheusEndpoint extends HttpEndpoint<PrometheusEndpointCfg>
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /**
+   * Create a new PrometheusEndpoint with the supplied configuration.
+   *
+   * @param configuration
+   *          Configuration to use for the {@link HttpApplication}
+   * @param serverContext
+   *          Server of this LDAP server
+   */
+  public PrometheusEndpoint(PrometheusEndpointCfg configuration, ServerContext serverContext)
+  {
+    super(configuration, serverContext);
+  }
+
+  @Override
+  public HttpApplication newHttpApplication()
+  {
+    return new PrometheusHttpApplication();
+  }
+
+  /** {@link HttpApplication} returning the monitor entries as Prometheus metrics. */
+  private static final class PrometheusHttpApplication implements HttpApplication
+  {
+    @Override
+    public Handler start() throws HttpApplicationException
+    {
+      return new PrometheusHandler();
+    }
+
+    @Override
+    public void stop()
+    {
+      // Nothing to do
+    }
+
+    @Override
+    public Factory<Buffer> getBufferFactory()
+    {
+      return null;
+    }
+  }
+
+  /** Handler searching the monitor entries and formatting them as Prometheus metrics. */
+  private static final class PrometheusHandler implements Handler
+  {
+    @Override
+    public Promise<Response, NeverThrowsException> handle(Context context, Request request)
+    {
+      if (!"GET".equals(request.getMethod()))
+      {
+        return newResultPromise(new Response(Status.METHOD_NOT_ALLOWED));
+      }
+      if (!context.containsContext(AuthenticatedConnectionContext.class))
+      {
+        return newResultPromise(new Response(Status.UNAUTHORIZED));
+      }
+
+      final Connection connection = context.asContext(AuthenticatedConnectionContext.class).getConnection();
+      final SearchRequest searchRequest =
+          Requests.newSearchRequest("cn=monitor", SearchScope.WHOLE_SUBTREE, "(objectClass=*)");
+      final PrometheusMetrics metrics = new PrometheusMetrics();
+      return connection.searchAsync(searchRequest, new SearchResultHandler()
+      {
+        @Override
+        public boolean handleEntry(SearchResultEntry entry)
+        {
+          metrics.addMonitorEntry(entry);
+          return true;
+        }
+
+        @Override
+        public boolean handleReference(SearchResultReference reference)
+        {
+          return true;
+        }
+      }).then(new Function<Result, Response, NeverThrowsException>()
+      {
+        @Override
+        public Response apply(Result result)
+        {
+          final Response response = new Response(Status.OK);
+          response.getHeaders().put("Content-Type", PrometheusMetrics.CONTENT_TYPE);
+          response.setEntity(metrics.toString());
+          return response;
+        }
+      }, new Function<LdapException, Response, NeverThrowsException>()
+      {
+        @Override
+        public Response apply(LdapException e)
+        {
+          logger.traceException(e);
+          if (e.getResult().getResultCode() == ResultCode.INSUFFICIENT_ACCESS_RIGHTS)
+          {
+            return new Response(Status.FORBIDDEN);
+          }
+          return new Response(Status.INTERNAL_SERVER_ERROR).setCause(e);
+        }
+      });
+    }
+  }
+}
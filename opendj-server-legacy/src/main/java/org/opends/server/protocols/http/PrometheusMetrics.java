@@ -0,0 +1,201 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.protocols.http;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.forgerock.opendj.ldap.Attribute;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.Entry;
+
+/**
+ * Converts monitor entries to metrics in the Prometheus text exposition
+ * format.
+ * <p>
+ * Each numeric monitor attribute becomes a metric named after the attribute,
+ * labeled with the DN of the monitor entry. Multi-valued attributes whose
+ * values are "serverId:value" get a {@code server_id} label, and the cumulative
+ * {@code <prefix>-le-<bound>ms} attributes of the replication latency histograms
+ * are exposed as Prometheus histograms. Other attributes are ignored.
+ */
+final class PrometheusMetrics
+{
+  /** Content type of the Prometheus text exposition format. */
+  static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private static final String METRIC_PREFIX = "ds_";
+  private static final Pattern NUMBER = Pattern.compile("-?\\d+(\\.\\d+)?([eE][-+]?\\d+)?");
+  private static final Pattern SERVER_VALUE = Pattern.compile("(-?\\d+):(.+)");
+  private static final Pattern HISTOGRAM_BUCKET = Pattern.compile("(.+)-le-(\\d+)ms");
+
+  /** Samples per metric family, as a family must be written contiguously. */
+  private final Map<String, List<String>> families = new TreeMap<>();
+  private final Map<String, String> familyTypes = new HashMap<>();
+
+  /**
+   * Adds the metrics of the provided monitor entry.
+   *
+   * @param entry
+   *          the monitor entry
+   */
+  void addMonitorEntry(Entry entry)
+  {
+    // The RDN value alone is not unique, e.g. cn=Work Queue below several monitors
+    final String monitor = entry.getName().toString();
+
+    final Set<String> histograms = new LinkedHashSet<>();
+    for (Attribute attribute : entry.getAllAttributes())
+    {
+      final String name = attribute.getAttributeDescriptionAsString();
+      final Matcher bucket = HISTOGRAM_BUCKET.matcher(name);
+      if (bucket.matches())
+      {
+        final String family = metricName(bucket.group(1) + "-ms");
+        addSample(family, "histogram", family + "_bucket",
+            labels(monitor, "le", bucket.group(2)), attribute.firstValueAsString());
+        histograms.add(bucket.group(1));
+        continue;
+      }
+
+      for (ByteString value : attribute)
+      {
+        addValue(metricName(name), monitor, value.toString());
+      }
+    }
+
+    for (String prefix : histograms)
+    {
+      final String family = metricName(prefix + "-ms");
+      final Attribute count = entry.getAttribute(prefix + "-count");
+      if (count == null)
+      {
+        continue;
+      }
+      final String countValue = count.firstValueAsString();
+      addSample(family, "histogram", family + "_bucket", labels(monitor, "le", "+Inf"), countValue);
+      addSample(family, "histogram", family + "_count", labels(monitor, null, null), countValue);
+      final Attribute sum = entry.getAttribute(prefix + "-sum-ms");
+      if (sum != null)
+      {
+        addSample(family, "histogram", family + "_sum", labels(monitor, null, null), sum.firstValueAsString());
+      }
+    }
+  }
+
+  private void addValue(String metric, String monitor, String value)
+  {
+    if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value))
+    {
+      addSample(metric, "gauge", metric, labels(monitor, null, null), "true".equalsIgnoreCase(value) ? "1" : "0");
+    }
+    else if (NUMBER.matcher(value).matches())
+    {
+      addSample(metric, "untyped", metric, labels(monitor, null, null), value);
+    }
+    else
+    {
+      final Matcher serverValue = SERVER_VALUE.matcher(value);
+      if (serverValue.matches() && NUMBER.matcher(serverValue.group(2)).matches())
+      {
+        addSample(metric, "untyped", metric, labels(monitor, "server_id", serverValue.group(1)),
+            serverValue.group(2));
+      }
+    }
+  }
+
+  private void addSample(String family, String type, String metric, String labels, String value)
+  {
+    List<String> samples = families.get(family);
+    if (samples == null)
+    {
+      samples = new ArrayList<>();
+      families.put(family, samples);
+      familyTypes.put(family, type);
+    }
+    samples.add(metric + labels + " " + value);
+  }
+
+  private static String metricName(String attributeName)
+  {
+    return METRIC_PREFIX + attributeName.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_]", "_");
+  }
+
+  private static String labels(String monitor, String labelName, String labelValue)
+  {
+    final StringBuilder builder = new StringBuilder("{monitor=\"");
+    appendEscaped(builder, monitor);
+    builder.append('"');
+    if (labelName != null)
+    {
+      builder.append(',').append(labelName).append("=\"");
+      appendEscaped(builder, labelValue);
+      builder.append('"');
+    }
+    return builder.append('}').toString();
+  }
+
+  private static void appendEscaped(StringBuilder builder, String labelValue)
+  {
+    for (int i = 0; i < labelValue.length(); i++)
+    {
+      final char c = labelValue.charAt(i);
+      switch (c)
+      {
+      case '\\':
+        builder.append("\\\\");
+        break;
+      case '"':
+        builder.append("\\\"");
+        break;
+      case '\n':
+        builder.append("\\n");
+        break;
+      default:
+        builder.append(c);
+      }
+    }
+  }
+
+  /**
+   * Returns the metrics in the Prometheus text exposition format.
+   *
+   * @return the metrics in the Prometheus text exposition format
+   */
+  @Override
+  public String toString()
+  {
+    final StringBuilder builder = new StringBuilder();
+    for (Map.Entry<String, List<String>> family : families.entrySet())
+    {
+      builder.append("# TYPE ").append(family.getKey()).append(' ')
+             .append(familyTypes.get(family.getKey())).append('\n');
+      for (String sample : family.getValue())
+      {
+        builder.append(sample).append('\n');
+      }
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.common;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.opends.server.api.MonitorData;
+
+/**
+ * Histogram of replication latencies, such as the latencies of the acks of
+ * assured updates or the time elapsed between the origin of a change and its
+ * replay.
+ * <p>
+ * Latencies are counted in fixed buckets, so recording a latency is lock free
+ * and the histogram does not grow with the number of recorded latencies.
+ */
+public final class LatencyHistogram
+{
+  /** Upper bounds of the buckets, in milliseconds. The last bucket is unbounded. */
+  private static final long[] BUCKET_UPPER_BOUNDS_MS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000 };
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_UPPER_BOUNDS_MS.length + 1);
+  private final AtomicLong totalNanos = new AtomicLong();
+  private final AtomicLong maxNanos = new AtomicLong();
+
+  /**
+   * Records a latency.
+   *
+   * @param latencyNanos
+   *          the latency, in nanoseconds
+   */
+  public void record(long latencyNanos)
+  {
+    final long latency = Math.max(0, latencyNanos);
+    counts.incrementAndGet(bucketOf(latency));
+    totalNanos.addAndGet(latency);
+    long max = maxNanos.get();
+    while (latency > max && !maxNanos.compareAndSet(max, latency))
+    {
+      max = maxNanos.get();
+    }
+  }
+
+  private static int bucketOf(long latencyNanos)
+  {
+    for (int i = 0; i < BUCKET_UPPER_BOUNDS_MS.length; i++)
+    {
+      if (latencyNanos <= TimeUnit.MILLISECONDS.toNanos(BUCKET_UPPER_BOUNDS_MS[i]))
+      {
+        return i;
+      }
+    }
+    return BUCKET_UPPER_BOUNDS_MS.length;
+  }
+
+  /**
+   * Returns the number of recorded latencies.
+   *
+   * @return the number of recorded latencies
+   */
+  public long getCount()
+  {
+    long count = 0;
+    for (int i = 0; i < counts.length(); i++)
+    {
+      count += counts.get(i);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the sum of the recorded latencies.
+   *
+   * @return the sum of the recorded latencies, in milliseconds
+   */
+  public double getSumMillis()
+  {
+    return totalNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  /**
+   * Returns the number of recorded latencies lower than or equal to the
+   * provided bound, which must be one of the bucket bounds.
+   *
+   * @param upperBoundMillis
+   *          the upper bound, in milliseconds
+   * @return the number of recorded latencies lower than or equal to the bound
+   */
+  public long getCountLowerThanOrEqualTo(long upperBoundMillis)
+  {
+    long count = 0;
+    for (int i = 0; i < BUCKET_UPPER_BOUNDS_MS.length && BUCKET_UPPER_BOUNDS_MS[i] <= upperBoundMillis; i++)
+    {
+      count += counts.get(i);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the approximate latency under which the provided fraction of the
+   * latencies fall, which is the upper bound of the matching bucket.
+   *
+   * @param quantile
+   *          the fraction of the latencies, between 0 and 1
+   * @return the approximate latency in milliseconds, or -1 if no latency has
+   *         been recorded or if it falls in the unbounded bucket
+   */
+  public long getQuantileMillis(double quantile)
+  {
+    final long count = getCount();
+    if (count == 0)
+    {
+      return -1;
+    }
+    final long rank = (long) Math.ceil(quantile * count);
+    long cumulated = 0;
+    for (int i = 0; i < BUCKET_UPPER_BOUNDS_MS.length; i++)
+    {
+      cumulated += counts.get(i);
+      if (cumulated >= rank)
+      {
+        return BUCKET_UPPER_BOUNDS_MS[i];
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Adds the monitoring attributes of this histogram, using the provided
+   * attribute name prefix.
+   *
+   * @param attributes
+   *          the monitoring attributes to add to
+   * @param prefix
+   *          the prefix of the attribute names
+   */
+  public void addMonitorData(MonitorData attributes, String prefix)
+  {
+    final long count = getCount();
+    attributes.add(prefix + "-count", count);
+    if (count == 0)
+    {
+      return;
+    }
+    attributes.add(prefix + "-average-ms", TimeUnit.NANOSECONDS.toMillis(totalNanos.get() / count));
+    attributes.add(prefix + "-sum-ms", getSumMillis());
+    attributes.add(prefix + "-max-ms", TimeUnit.NANOSECONDS.toMillis(maxNanos.get()));
+    attributes.add(prefix + "-p50-ms", getQuantileMillis(0.5));
+    attributes.add(prefix + "-p99-ms", getQuantileMillis(0.99));
+    long cumulated = 0;
+    for (int i = 0; i < BUCKET_UPPER_BOUNDS_MS.length; i++)
+    {
+      cumulated += counts.get(i);
+      attributes.add(prefix + "-le-" + BUCKET_UPPER_BOUNDS_MS[i] + "ms", cumulated);
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.common;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.opends.server.api.MonitorData;
+import org.opends.server.util.TimeThread;
+
+/**
+ * Time series of the last minute of an event, with one sample per second. Each
+ * sample holds the number of events that occurred during the second and the
+ * maximum value of a gauge observed with them, for instance the number of
+ * replayed changes and the maximum depth of the replay queue.
+ * <p>
+ * Recording an event is lock free. Events recorded concurrently with the
+ * start of a new second can be lost, which is acceptable for monitoring.
+ */
+public final class PerSecondTimeSeries
+{
+  /** Number of samples, which is the length of the series in seconds. */
+  private static final int NB_SAMPLES = 60;
+
+  /** Second of each sample, in seconds since the epoch. */
+  private final AtomicLongArray seconds = new AtomicLongArray(NB_SAMPLES);
+  private final AtomicLongArray counts = new AtomicLongArray(NB_SAMPLES);
+  private final AtomicLongArray gauges = new AtomicLongArray(NB_SAMPLES);
+
+  /**
+   * Records an event occurring now.
+   *
+   * @param gauge
+   *          the value of the gauge observed with the event
+   */
+  public void record(long gauge)
+  {
+    final long second = TimeThread.getTime() / 1000;
+    final int index = (int) (second % NB_SAMPLES);
+    final long sampleSecond = seconds.get(index);
+    if (sampleSecond != second && seconds.compareAndSet(index, sampleSecond, second))
+    {
+      counts.set(index, 0);
+      gauges.set(index, 0);
+    }
+    counts.incrementAndGet(index);
+    long max = gauges.get(index);
+    while (gauge > max && !gauges.compareAndSet(index, max, gauge))
+    {
+      max = gauges.get(index);
+    }
+  }
+
+  /**
+   * Returns the number of events per second, averaged over the last minute.
+   * The current second is not taken into account as it is not over yet.
+   *
+   * @return the number of events per second, averaged over the last minute
+   */
+  public double getAverageCountPerSecond()
+  {
+    final long now = TimeThread.getTime() / 1000;
+    long total = 0;
+    for (long second = now - NB_SAMPLES + 1; second < now; second++)
+    {
+      total += getCount(second);
+    }
+    return (double) total / (NB_SAMPLES - 1);
+  }
+
+  private long getCount(long second)
+  {
+    final int index = (int) (second % NB_SAMPLES);
+    return seconds.get(index) == second ? counts.get(index) : 0;
+  }
+
+  private long getGauge(long second)
+  {
+    final int index = (int) (second % NB_SAMPLES);
+    return seconds.get(index) == second ? gauges.get(index) : 0;
+  }
+
+  /**
+   * Adds the monitoring attributes of this time series. The series are space
+   * separated lists of samples, from the oldest to the newest, the current
+   * second excluded.
+   *
+   * @param attributes
+   *          the monitoring attributes to add to
+   * @param countPrefix
+   *          the prefix of the names of the attributes describing the number
+   *          of events
+   * @param gaugeName
+   *          the name of the attribute holding the series of the gauge, or
+   *          {@code null} if the gauge is not meaningful
+   */
+  public void addMonitorData(MonitorData attributes, String countPrefix, String gaugeName)
+  {
+    final long now = TimeThread.getTime() / 1000;
+    final StringBuilder countSeries = new StringBuilder();
+    final StringBuilder gaugeSeries = new StringBuilder();
+    for (long second = now - NB_SAMPLES + 1; second < now; second++)
+    {
+      if (countSeries.length() > 0)
+      {
+        countSeries.append(' ');
+        gaugeSeries.append(' ');
+      }
+      countSeries.append(getCount(second));
+      gaugeSeries.append(getGauge(second));
+    }
+    attributes.add(countPrefix + "-per-second", Math.round(getAverageCountPerSecond() * 10) / 10.0);
+    attributes.add(countPrefix + "-per-second-series", countSeries.toString());
+    if (gaugeName != null)
+    {
+      attributes.add(gaugeName + "-series", gaugeSeries.toString());
+    }
+  }
+}
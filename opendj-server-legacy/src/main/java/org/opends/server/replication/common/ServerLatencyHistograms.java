@@ -0,0 +1,133 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.opends.server.api.MonitorData;
+
+/**
+ * Latency histograms of the changes of a replication domain, kept both for
+ * all the changes and per server ID. The server ID is usually the one of the
+ * server where the changes originated, as given by their CSN.
+ */
+public final class ServerLatencyHistograms
+{
+  private final LatencyHistogram allServers = new LatencyHistogram();
+  private final ConcurrentMap<Integer, LatencyHistogram> perServer = new ConcurrentHashMap<>();
+
+  /**
+   * Records the latency of a change.
+   *
+   * @param serverId
+   *          the server ID the change is accounted to
+   * @param latencyNanos
+   *          the latency, in nanoseconds
+   */
+  public void record(int serverId, long latencyNanos)
+  {
+    LatencyHistogram histogram = perServer.get(serverId);
+    if (histogram == null)
+    {
+      final LatencyHistogram newHistogram = new LatencyHistogram();
+      histogram = perServer.putIfAbsent(serverId, newHistogram);
+      if (histogram == null)
+      {
+        histogram = newHistogram;
+      }
+    }
+    histogram.record(latencyNanos);
+    allServers.record(latencyNanos);
+  }
+
+  /**
+   * Records the latency of a change, measured from the time of its CSN. As it
+   * compares the clocks of two servers, the result is only meaningful when
+   * the clocks of the servers are synchronized.
+   *
+   * @param csn
+   *          the CSN of the change, whose server ID the change is accounted to
+   * @param nowMillis
+   *          the current time, in milliseconds since the epoch
+   */
+  public void recordSince(CSN csn, long nowMillis)
+  {
+    record(csn.getServerId(), TimeUnit.MILLISECONDS.toNanos(nowMillis - csn.getTime()));
+  }
+
+  /**
+   * Returns the histogram of all the recorded latencies.
+   *
+   * @return the histogram of all the recorded latencies
+   */
+  public LatencyHistogram getAllServers()
+  {
+    return allServers;
+  }
+
+  /**
+   * Returns the histogram of the latencies recorded for the provided server.
+   *
+   * @param serverId
+   *          the server ID
+   * @return the histogram of the latencies recorded for the provided server,
+   *         or {@code null} if none has been recorded
+   */
+  public LatencyHistogram getServer(int serverId)
+  {
+    return perServer.get(serverId);
+  }
+
+  /**
+   * Adds the monitoring attributes of these histograms, using the provided
+   * attribute name prefix. The histogram of all the servers is fully
+   * described while the per server histograms are summarized by multi-valued
+   * attributes whose values are "serverId:value".
+   *
+   * @param attributes
+   *          the monitoring attributes to add to
+   * @param prefix
+   *          the prefix of the attribute names
+   */
+  public void addMonitorData(MonitorData attributes, String prefix)
+  {
+    allServers.addMonitorData(attributes, prefix);
+    if (perServer.isEmpty())
+    {
+      return;
+    }
+
+    final Collection<String> counts = new ArrayList<>();
+    final Collection<String> medians = new ArrayList<>();
+    final Collection<String> p99s = new ArrayList<>();
+    for (Map.Entry<Integer, LatencyHistogram> entry : perServer.entrySet())
+    {
+      final Integer serverId = entry.getKey();
+      final LatencyHistogram histogram = entry.getValue();
+      counts.add(serverId + ":" + histogram.getCount());
+      medians.add(serverId + ":" + histogram.getQuantileMillis(0.5));
+      p99s.add(serverId + ":" + histogram.getQuantileMillis(0.99));
+    }
+    attributes.add(prefix + "-server-count", counts);
+    attributes.add(prefix + "-server-p50-ms", medians);
+    attributes.add(prefix + "-server-p99-ms", p99s);
+  }
+}
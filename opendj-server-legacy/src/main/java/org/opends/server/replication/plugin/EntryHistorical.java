@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
@@ -21,6 +22,7 @@ import static org.opends.messages.ReplicationMessages.*;
 import static org.opends.server.replication.plugin.HistAttrModificationKey.*;
 import static org.opends.server.util.CollectionUtils.*;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -104,6 +106,18 @@ public class EntryHistorical
    */
   private int lastPurgedValuesCount;
 
+  /**
+   * For stats/monitoring purpose, the size in bytes of the historical
+   * attribute the last time this entry historical was encoded.
+   */
+  private long lastEncodedSize;
+
+  /**
+   * Whether the historical information of each attribute must be packed using
+   * {@link HistoricalCompactEncoding} when encoded.
+   */
+  private boolean compactEncoding;
+
   /** The date when the entry was added. */
   private CSN entryADDDate;
   /** The date when the entry was last renamed. */
@@ -329,12 +343,27 @@ public class EntryHistorical
     return this.lastPurgedValuesCount;
   }
 
+  /**
+   * For stats/monitoring purpose, returns the size in bytes of the historical
+   * attribute the last time this entry historical was encoded.
+   *
+   * @return the size in bytes of the last encoded historical attribute.
+   */
+  public long getLastEncodedSize()
+  {
+    return this.lastEncodedSize;
+  }
+
   /**
    * Encode this historical information object in an operational attribute and
    * purge it from the values older than the purge delay.
+   * <p>
+   * When the compact encoding is enabled, the historical values of each
+   * attribute are packed together, merging the values read from both
+   * encodings into a single value per attribute and server.
    *
    * @return The historical information encoded in an operational attribute.
-   * @see HistoricalAttributeValue#HistoricalAttributeValue(String) the decode
+   * @see HistoricalAttributeValue#decode(ByteString) the decode
    *      operation in HistoricalAttributeValue
    */
   public Attribute encodeAndPurge()
@@ -350,11 +379,13 @@ public class EntryHistorical
     }
 
     AttributeBuilder builder = new AttributeBuilder(HISTORICAL_ATTRIBUTE_NAME);
+    // Historical values to pack, per server id, when using the compact encoding
+    final Map<Integer, List<HistoricalAttributeValue>> packedValues = compactEncoding
+        ? new TreeMap<Integer, List<HistoricalAttributeValue>>() : null;
 
     for (Map.Entry<AttributeDescription, AttrHistorical> mapEntry : attributesHistorical.entrySet())
     {
       AttributeDescription attrDesc = mapEntry.getKey();
-      String options = attrDesc.toString();
       AttrHistorical attrHist = mapEntry.getValue();
 
       CSN deleteTime = attrHist.getDeleteTime();
@@ -373,8 +404,7 @@ public class EntryHistorical
             // this hist must be purged now, so skip its encoding
             continue;
           }
-          String strValue = encode(DEL, options, attrValHist.getValueDeleteTime(), value);
-          builder.add(strValue);
+          addValue(builder, packedValues, attrDesc, DEL, attrValHist.getValueDeleteTime(), value);
         }
         else if (attrValHist.getValueUpdateTime() != null)
         {
@@ -384,38 +414,35 @@ public class EntryHistorical
             continue;
           }
 
-          String strValue;
           final CSN updateTime = attrValHist.getValueUpdateTime();
           // FIXME very suspicious use of == in the next if statement,
           // unit tests do not like changing it
           if (attrDel && updateTime == deleteTime && value != null)
           {
-            strValue = encode(REPL, options, updateTime, value);
+            addValue(builder, packedValues, attrDesc, REPL, updateTime, value);
             attrDel = false;
           }
-          else if (value != null)
-          {
-            strValue = encode(ADD, options, updateTime, value);
-          }
           else
           {
             // "add" without any value is suspicious. Tests never go there.
             // Is this used to encode "add" with an empty string?
-            strValue = encode(ADD, options, updateTime);
+            addValue(builder, packedValues, attrDesc, ADD, updateTime, value);
           }
-
-          builder.add(strValue);
         }
       }
 
-      if (attrDel)
+      if (attrDel && !needsPurge(deleteTime, purgeDate))
+      {
+        addValue(builder, packedValues, attrDesc, ATTRDEL, deleteTime, null);
+      }
+
+      if (packedValues != null)
       {
-        if (needsPurge(deleteTime, purgeDate))
+        for (List<HistoricalAttributeValue> values : packedValues.values())
         {
-          // this hist must be purged now, so skip its encoding
-          continue;
+          builder.add(HistoricalCompactEncoding.encode(attrDesc, values));
         }
-        builder.add(encode(ATTRDEL, options, deleteTime));
+        packedValues.clear();
       }
     }
 
@@ -433,7 +460,40 @@ public class EntryHistorical
       builder.add(encodeHistorical(entryMODDNDate, "moddn"));
     }
 
-    return builder.toAttribute();
+    final Attribute attr = builder.toAttribute();
+    this.lastEncodedSize = 0;
+    for (ByteString value : attr)
+    {
+      this.lastEncodedSize += value.length();
+    }
+    return attr;
+  }
+
+  /**
+   * Adds an historical value to the provided attribute builder, or to the
+   * values to be packed when using the compact encoding.
+   */
+  private void addValue(AttributeBuilder builder, Map<Integer, List<HistoricalAttributeValue>> packedValues,
+      AttributeDescription attrDesc, HistAttrModificationKey modKey, CSN changeTime, ByteString value)
+  {
+    if (packedValues != null)
+    {
+      List<HistoricalAttributeValue> values = packedValues.get(changeTime.getServerId());
+      if (values == null)
+      {
+        values = new ArrayList<>();
+        packedValues.put(changeTime.getServerId(), values);
+      }
+      values.add(new HistoricalAttributeValue(attrDesc, changeTime, modKey, value));
+    }
+    else if (modKey == ATTRDEL || (modKey == ADD && value == null))
+    {
+      builder.add(encode(modKey, attrDesc.toString(), changeTime));
+    }
+    else
+    {
+      builder.add(encode(modKey, attrDesc.toString(), changeTime, value));
+    }
   }
 
   private boolean needsPurge(CSN csn, long purgeDate)
@@ -468,6 +528,20 @@ public class EntryHistorical
     this.purgeDelayInMillisec = purgeDelay;
   }
 
+  /**
+   * Set whether the historical information must be encoded using the compact
+   * encoding. Both encodings are always accepted when reading the historical
+   * attribute, so that switching the encoding only applies to the entries
+   * written afterwards.
+   *
+   * @param compactEncoding {@code true} to pack the historical values of each
+   *          attribute, {@code false} to use one textual value per change
+   */
+  public void setCompactEncoding(boolean compactEncoding)
+  {
+    this.compactEncoding = compactEncoding;
+  }
+
   /**
    * Indicates if the Entry was renamed or added after the CSN that is given as
    * a parameter.
@@ -540,50 +614,52 @@ public class EntryHistorical
         // For each Attribute (option), traverse the values
         for (ByteString histAttrValueFromEntry : histAttrFromEntry)
         {
-          // From each value of the hist attr, create an object
-          final HistoricalAttributeValue histVal = new HistoricalAttributeValue(histAttrValueFromEntry.toString());
-          final CSN csn = histVal.getCSN();
+          // From each value of the hist attr, create the objects
+          for (HistoricalAttributeValue histVal : HistoricalAttributeValue.decode(histAttrValueFromEntry))
+          {
+            final CSN csn = histVal.getCSN();
 
-          // update the oldest CSN stored in the new entry historical
-          newHistorical.updateOldestCSN(csn);
+            // update the oldest CSN stored in the new entry historical
+            newHistorical.updateOldestCSN(csn);
 
-          if (histVal.isADDOperation())
-          {
-            newHistorical.entryADDDate = csn;
-          }
-          else if (histVal.isMODDNOperation())
-          {
-            newHistorical.entryMODDNDate = csn;
-          }
-          else
-          {
-            final AttributeDescription attrDesc = histVal.getAttributeDescription();
-            if (attrDesc == null)
+            if (histVal.isADDOperation())
             {
-              /*
-               * This attribute is unknown from the schema
-               * Just skip it, the modification will be processed but no
-               * historical information is going to be kept.
-               * Log information for the repair tool.
-               */
-              logger.error(ERR_UNKNOWN_ATTRIBUTE_IN_HISTORICAL, entry.getName(), histVal.getAttrString());
-              continue;
+              newHistorical.entryADDDate = csn;
             }
-
-            /* if attribute type does not match we create new
-             *   AttrInfoWithOptions and AttrInfo
-             *   we also add old AttrInfoWithOptions into histObj.attributesInfo
-             * if attribute type match but options does not match we create new
-             *   AttrInfo that we add to AttrInfoWithOptions
-             * if both match we keep everything
-             */
-            AttrHistorical attrInfo = newHistorical.attributesHistorical.get(attrDesc);
-            if (attrInfo == null)
+            else if (histVal.isMODDNOperation())
+            {
+              newHistorical.entryMODDNDate = csn;
+            }
+            else
             {
-              attrInfo = AttrHistorical.createAttributeHistorical(attrDesc.getAttributeType());
-              newHistorical.attributesHistorical.put(attrDesc, attrInfo);
+              final AttributeDescription attrDesc = histVal.getAttributeDescription();
+              if (attrDesc == null)
+              {
+                /*
+                 * This attribute is unknown from the schema
+                 * Just skip it, the modification will be processed but no
+                 * historical information is going to be kept.
+                 * Log information for the repair tool.
+                 */
+                logger.error(ERR_UNKNOWN_ATTRIBUTE_IN_HISTORICAL, entry.getName(), histVal.getAttrString());
+                continue;
+              }
+
+              /* if attribute type does not match we create new
+               *   AttrInfoWithOptions and AttrInfo
+               *   we also add old AttrInfoWithOptions into histObj.attributesInfo
+               * if attribute type match but options does not match we create new
+               *   AttrInfo that we add to AttrInfoWithOptions
+               * if both match we keep everything
+               */
+              AttrHistorical attrInfo = newHistorical.attributesHistorical.get(attrDesc);
+              if (attrInfo == null)
+              {
+                attrInfo = AttrHistorical.createAttributeHistorical(attrDesc.getAttributeType());
+                newHistorical.attributesHistorical.put(attrDesc, attrInfo);
+              }
+              attrInfo.assign(histVal);
             }
-            attrInfo.assign(histVal);
           }
         }
       }
@@ -615,39 +691,41 @@ public class EntryHistorical
     {
       for (ByteString val : attr)
       {
-        HistoricalAttributeValue histVal = new HistoricalAttributeValue(val.toString());
-        if (histVal.isADDOperation())
-        {
-          // Found some historical information indicating that this entry was just added.
-          // Create the corresponding ADD operation.
-          operations.put(histVal.getCSN(), new FakeAddOperation(histVal.getCSN(), entry));
-        }
-        else if (histVal.isMODDNOperation())
-        {
-          // Found some historical information indicating that this entry was just renamed.
-          // Create the corresponding ADD operation.
-          operations.put(histVal.getCSN(), new FakeModdnOperation(histVal.getCSN(), entry));
-        }
-        else
+        for (HistoricalAttributeValue histVal : HistoricalAttributeValue.decode(val))
         {
-          // Found some historical information for modify operation.
-          // Generate the corresponding ModifyOperation or update
-          // the already generated Operation if it can be found.
-          CSN csn = histVal.getCSN();
-          Modification mod = histVal.generateMod();
-          FakeOperation fakeOperation = operations.get(csn);
-
-          if (fakeOperation instanceof FakeModifyOperation)
+          if (histVal.isADDOperation())
+          {
+            // Found some historical information indicating that this entry was just added.
+            // Create the corresponding ADD operation.
+            operations.put(histVal.getCSN(), new FakeAddOperation(histVal.getCSN(), entry));
+          }
+          else if (histVal.isMODDNOperation())
           {
-            FakeModifyOperation modifyFakeOperation = (FakeModifyOperation) fakeOperation;
-            modifyFakeOperation.addModification(mod);
+            // Found some historical information indicating that this entry was just renamed.
+            // Create the corresponding ADD operation.
+            operations.put(histVal.getCSN(), new FakeModdnOperation(histVal.getCSN(), entry));
           }
           else
           {
-            String uuidString = getEntryUUID(entry);
-            FakeModifyOperation modifyFakeOperation = new FakeModifyOperation(entry.getName(), csn, uuidString);
-            modifyFakeOperation.addModification(mod);
-            operations.put(histVal.getCSN(), modifyFakeOperation);
+            // Found some historical information for modify operation.
+            // Generate the corresponding ModifyOperation or update
+            // the already generated Operation if it can be found.
+            CSN csn = histVal.getCSN();
+            Modification mod = histVal.generateMod();
+            FakeOperation fakeOperation = operations.get(csn);
+
+            if (fakeOperation instanceof FakeModifyOperation)
+            {
+              FakeModifyOperation modifyFakeOperation = (FakeModifyOperation) fakeOperation;
+              modifyFakeOperation.addModification(mod);
+            }
+            else
+            {
+              String uuidString = getEntryUUID(entry);
+              FakeModifyOperation modifyFakeOperation = new FakeModifyOperation(entry.getName(), csn, uuidString);
+              modifyFakeOperation.addModification(mod);
+              operations.put(histVal.getCSN(), modifyFakeOperation);
+            }
           }
         }
       }
@@ -13,12 +13,16 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
 import static org.opends.server.replication.plugin.HistAttrModificationKey.*;
 import static org.opends.server.util.StaticUtils.*;
 
+import java.util.Collections;
+import java.util.List;
+
 import org.forgerock.opendj.ldap.AttributeDescription;
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ModificationType;
@@ -58,6 +62,9 @@ import org.opends.server.types.Modification;
  *  options are stored with the attribute names using; as a separator
  *  example :
  *  description;FR;France:00000108b3a65541000000000001:add:added_value
+ *
+ *  Several historical values may also be packed in a single value of the
+ *  historical attribute, see {@link HistoricalCompactEncoding}.
  */
 class HistoricalAttributeValue
 {
@@ -116,6 +123,43 @@ class HistoricalAttributeValue
     }
   }
 
+  /**
+   * Create a new object from its decoded parts.
+   *
+   * @param attrDesc the attribute description
+   * @param csn the CSN of the change
+   * @param histKey the type of historical information
+   * @param attributeValue the attribute value, may be {@code null}
+   * @see HistoricalCompactEncoding#decode(ByteString) decoding of the packed values
+   */
+  HistoricalAttributeValue(AttributeDescription attrDesc, CSN csn, HistAttrModificationKey histKey,
+      ByteString attributeValue)
+  {
+    this.attrDesc = attrDesc;
+    this.attrString = toLowerCase(attrDesc.getNameOrOID());
+    this.csn = csn;
+    this.histKey = histKey;
+    this.attributeValue = histKey != ATTRDEL ? attributeValue : null;
+    this.stringValue = this.attributeValue != null ? this.attributeValue.toString() : null;
+    this.isModDN = false;
+  }
+
+  /**
+   * Decodes all the historical values contained in the provided value of the historical attribute,
+   * whether it uses the textual encoding or the packed encoding.
+   *
+   * @param value the value of the historical attribute
+   * @return the historical values contained in the provided value
+   */
+  static List<HistoricalAttributeValue> decode(ByteString value)
+  {
+    if (HistoricalCompactEncoding.isPacked(value))
+    {
+      return HistoricalCompactEncoding.decode(value);
+    }
+    return Collections.singletonList(new HistoricalAttributeValue(value.toString()));
+  }
+
   /**
    * Get the String form of the attribute type.
    *
@@ -0,0 +1,186 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.opendj.ldap.AttributeDescription;
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteSequenceReader;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.opends.server.replication.common.CSN;
+
+/**
+ * Compact binary encoding of the historical information kept for one attribute description.
+ * <p>
+ * All the historical values recorded for one attribute description by one server are packed into
+ * a single {@code ds-sync-hist} value that looks like:
+ *
+ * <pre>
+ *  description:00000108b3a65541000000000001:packed:&lt;binary records&gt;
+ * </pre>
+ *
+ * The textual prefix is kept so that the value remains ordered and indexed by the
+ * {@link HistoricalCsnOrderingMatchingRuleImpl historicalCsnOrderingMatch} matching rule. The CSN
+ * of the prefix is the most recent CSN of the packed records, which is what the searches for
+ * changed entries rely upon.
+ * <p>
+ * Each binary record is made of:
+ * <ul>
+ * <li>one byte holding the {@link HistAttrModificationKey} ordinal, with the {@link #NO_VALUE}
+ * bit set when the record has no attribute value,</li>
+ * <li>the difference between the timestamp of the prefix CSN and the timestamp of the record CSN
+ * as a compact unsigned integer,</li>
+ * <li>the sequence number of the record CSN as a compact unsigned integer,</li>
+ * <li>when a value is present, its length as a compact unsigned integer followed by its bytes.</li>
+ * </ul>
+ * The server id is shared by all the records and is taken from the prefix CSN.
+ */
+final class HistoricalCompactEncoding
+{
+  /** The modification key identifying a packed historical value. */
+  static final String PACKED_KEY = "packed";
+  /** Bit set in the record header when the record does not carry an attribute value. */
+  private static final int NO_VALUE = 0x80;
+  /** Byte length of the ":packed:" separator following the prefix CSN. */
+  private static final int SEPARATOR_LENGTH = PACKED_KEY.length() + 2;
+
+  private HistoricalCompactEncoding()
+  {
+    // utility class
+  }
+
+  /**
+   * Returns whether the provided historical value uses the packed encoding.
+   *
+   * @param value
+   *          the historical value read from the entry
+   * @return {@code true} if the provided value uses the packed encoding, {@code false} if it uses
+   *         the historical textual encoding
+   */
+  static boolean isPacked(ByteSequence value)
+  {
+    final int csnIndex = indexOfCSN(value);
+    final int keyIndex = csnIndex + CSN.STRING_ENCODING_LENGTH;
+    if (csnIndex <= 0 || value.length() < keyIndex + SEPARATOR_LENGTH)
+    {
+      return false;
+    }
+    return value.byteAt(keyIndex) == ':'
+        && value.subSequence(keyIndex + 1, keyIndex + SEPARATOR_LENGTH - 1).toString().equals(PACKED_KEY)
+        && value.byteAt(keyIndex + SEPARATOR_LENGTH - 1) == ':';
+  }
+
+  /**
+   * Packs the provided historical values into a single historical value.
+   *
+   * @param attrDesc
+   *          the attribute description shared by all the historical values
+   * @param values
+   *          the historical values to pack, all generated by the same server
+   * @return the packed historical value
+   */
+  static ByteString encode(AttributeDescription attrDesc, List<HistoricalAttributeValue> values)
+  {
+    CSN newestCSN = null;
+    for (HistoricalAttributeValue value : values)
+    {
+      if (newestCSN == null || value.getCSN().isNewerThan(newestCSN))
+      {
+        newestCSN = value.getCSN();
+      }
+    }
+
+    final ByteStringBuilder builder = new ByteStringBuilder();
+    builder.appendUtf8(attrDesc.toString())
+           .appendByte(':').appendUtf8(newestCSN.toString())
+           .appendByte(':').appendUtf8(PACKED_KEY).appendByte(':');
+    for (HistoricalAttributeValue value : values)
+    {
+      final CSN csn = value.getCSN();
+      final ByteString attrValue = value.getAttributeValue();
+      final int header = value.getHistKey().ordinal() | (attrValue == null ? NO_VALUE : 0);
+      builder.appendByte(header);
+      builder.appendCompactUnsigned(newestCSN.getTime() - csn.getTime());
+      builder.appendCompactUnsigned(csn.getSeqnum() & 0xFFFFFFFFL);
+      if (attrValue != null)
+      {
+        builder.appendCompactUnsigned(attrValue.length());
+        builder.appendBytes(attrValue);
+      }
+    }
+    return builder.toByteString();
+  }
+
+  /**
+   * Unpacks the provided packed historical value.
+   *
+   * @param value
+   *          the packed historical value
+   * @return the historical values contained in the packed value, in their encoding order
+   * @throws IllegalArgumentException
+   *           if the provided value is not a valid packed historical value
+   */
+  static List<HistoricalAttributeValue> decode(ByteString value)
+  {
+    final int csnIndex = indexOfCSN(value);
+    if (csnIndex <= 0)
+    {
+      throw new IllegalArgumentException("Invalid packed historical value");
+    }
+    final AttributeDescription attrDesc = AttributeDescription.valueOf(value.subSequence(0, csnIndex - 1).toString());
+    final CSN newestCSN = new CSN(value.subSequence(csnIndex, csnIndex + CSN.STRING_ENCODING_LENGTH).toString());
+
+    final ByteSequenceReader reader = value.asReader();
+    reader.position(csnIndex + CSN.STRING_ENCODING_LENGTH + SEPARATOR_LENGTH);
+    final HistAttrModificationKey[] keys = HistAttrModificationKey.values();
+    final List<HistoricalAttributeValue> results = new ArrayList<>();
+    while (reader.remaining() > 0)
+    {
+      final int header = reader.readByte() & 0xFF;
+      final long time = newestCSN.getTime() - reader.readCompactUnsignedLong();
+      final int seqNum = (int) reader.readCompactUnsignedLong();
+      final ByteString attrValue;
+      if ((header & NO_VALUE) == 0)
+      {
+        attrValue = reader.readByteString(reader.readCompactUnsignedInt());
+      }
+      else
+      {
+        attrValue = null;
+      }
+      final HistAttrModificationKey key = keys[header & ~NO_VALUE];
+      final CSN csn = new CSN(time, seqNum, newestCSN.getServerId());
+      results.add(new HistoricalAttributeValue(attrDesc, csn, key, attrValue));
+    }
+    return results;
+  }
+
+  /** Returns the index of the CSN following the attribute description, or -1 if there is none. */
+  private static int indexOfCSN(ByteSequence value)
+  {
+    for (int i = 0; i < value.length(); i++)
+    {
+      if (value.byteAt(i) == ':')
+      {
+        return i + 1;
+      }
+    }
+    return -1;
+  }
+}
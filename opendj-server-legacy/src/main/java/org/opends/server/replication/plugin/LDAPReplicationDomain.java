@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
@@ -54,6 +55,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.zip.DataFormatException;
 
@@ -109,6 +111,8 @@ import org.opends.server.protocols.ldap.LDAPControl;
 import org.opends.server.protocols.ldap.LDAPFilter;
 import org.opends.server.protocols.ldap.LDAPModification;
 import org.opends.server.replication.common.CSN;
+import org.opends.server.replication.common.LatencyHistogram;
+import org.opends.server.replication.common.PerSecondTimeSeries;
 import org.opends.server.replication.common.ServerState;
 import org.opends.server.replication.common.ServerStatus;
 import org.opends.server.replication.common.StatusMachineEvent;
@@ -309,6 +313,19 @@ public final class LDAPReplicationDomain extends ReplicationDomain
       new AtomicInteger();
   /** The number of updates replayed successfully by the replication. */
   private final AtomicInteger numReplayedPostOpCalled = new AtomicInteger();
+  /** The number of entries whose historical information was written. */
+  private final AtomicLong numHistoricalWrites = new AtomicLong();
+  /** The total size in bytes of the historical information written. */
+  private final AtomicLong historicalWrittenBytes = new AtomicLong();
+  /** The number of historical values purged while writing the historical information. */
+  private final AtomicLong numHistoricalPurgedValues = new AtomicLong();
+  /**
+   * Latencies between the reception of the updates and the end of their
+   * successful replay, including the time spent in the replay queue.
+   */
+  private final LatencyHistogram receiveToReplayLatency = new LatencyHistogram();
+  /** Updates replayed successfully and replay backlog, over the last minute. */
+  private final PerSecondTimeSeries replayThroughput = new PerSecondTimeSeries();
 
   private final PersistentServerState state;
   private volatile boolean generationIdSavedStatus;
@@ -2002,7 +2019,9 @@ public final class LDAPReplicationDomain extends ReplicationDomain
         numReplayedPostOpCalled.incrementAndGet();
         try
         {
-          remotePendingChanges.commit(curCSN);
+          final long receivedNanos = remotePendingChanges.commit(curCSN);
+          receiveToReplayLatency.record(System.nanoTime() - receivedNanos);
+          replayThroughput.record(remotePendingChanges.getQueueSize());
         }
         catch (NoSuchElementException e)
         {
@@ -4306,6 +4325,14 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
     attributes.add("remote-pending-changes-size", remotePendingChanges.getQueueSize());
     attributes.add("dependent-changes-size", remotePendingChanges.getDependentChangesSize());
     attributes.add("changes-in-progress-size", remotePendingChanges.changesInProgressSize());
+    receiveToReplayLatency.addMonitorData(attributes, "receive-to-replay-latency");
+    replayThroughput.addMonitorData(attributes, "replayed-updates-ok", "remote-pending-changes-size");
+    attributes.add("historical-compact-encoding", isHistoricalCompactEncoding());
+    attributes.add("historical-writes", numHistoricalWrites);
+    attributes.add("historical-written-bytes", historicalWrittenBytes);
+    attributes.add("historical-purged-values", numHistoricalPurgedValues);
+    final long nbWrites = numHistoricalWrites.get();
+    attributes.add("historical-average-size", nbWrites != 0 ? historicalWrittenBytes.get() / nbWrites : 0);
   }
 
   /**
@@ -4901,6 +4928,44 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
     return config.getConflictsHistoricalPurgeDelay() * 60 * 1000;
   }
 
+  /**
+   * Returns whether the historical information of the entries must be written
+   * using the compact encoding.
+   *
+   * @return {@code true} if the compact encoding must be used, {@code false} otherwise
+   */
+  boolean isHistoricalCompactEncoding()
+  {
+    return config.isConflictsHistoricalCompactEncoding();
+  }
+
+  /**
+   * Configures the provided historical information with the purge delay and
+   * encoding of this domain before it gets encoded.
+   *
+   * @param entryHist
+   *          the historical information to configure
+   */
+  void configureHistorical(EntryHistorical entryHist)
+  {
+    entryHist.setPurgeDelay(getHistoricalPurgeDelay());
+    entryHist.setCompactEncoding(isHistoricalCompactEncoding());
+  }
+
+  /**
+   * Updates the monitoring statistics after the provided historical
+   * information has been encoded for a write operation.
+   *
+   * @param entryHist
+   *          the historical information that has just been encoded
+   */
+  void updateHistoricalStats(EntryHistorical entryHist)
+  {
+    numHistoricalWrites.incrementAndGet();
+    historicalWrittenBytes.addAndGet(entryHist.getLastEncodedSize());
+    numHistoricalPurgedValues.addAndGet(entryHist.getLastPurgedValuesCount());
+  }
+
   /**
    * Check and purge the historical attribute on all eligible entries under this domain.
    *
@@ -4980,7 +5045,7 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
         EntryHistorical entryHist = EntryHistorical.newInstanceFromEntry(entry);
 
         CSN latestOldCSN = entryHist.getOldestCSN();
-        entryHist.setPurgeDelay(getHistoricalPurgeDelay());
+        configureHistorical(entryHist);
         Attribute attr = entryHist.encodeAndPurge();
 
         if(entryHist.getLastPurgedValuesCount() > 0)
@@ -462,8 +462,9 @@ public class MultimasterReplication
       modifyOperation.setAttachment(EntryHistorical.HISTORICAL,
           historicalInformation);
     }
-    historicalInformation.setPurgeDelay(domain.getHistoricalPurgeDelay());
+    domain.configureHistorical(historicalInformation);
     historicalInformation.setHistoricalAttrToOperation(modifyOperation);
+    domain.updateHistoricalStats(historicalInformation);
 
     if (modifyOperation.getModifications().isEmpty())
     {
@@ -511,10 +512,11 @@ public class MultimasterReplication
       modifyDNOperation.setAttachment(EntryHistorical.HISTORICAL,
           historicalInformation);
     }
-    historicalInformation.setPurgeDelay(domain.getHistoricalPurgeDelay());
+    domain.configureHistorical(historicalInformation);
 
     // Add to the operation the historical attribute : "dn:changeNumber:moddn"
     historicalInformation.setHistoricalAttrToOperation(modifyDNOperation);
+    domain.updateHistoricalStats(historicalInformation);
 
     return new SynchronizationProviderResult.ContinueProcessing();
   }
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
+ * Portions Copyright 2026 Wren Security.
  * Portions copyright 2014-2016 ForgeRock AS.
  */
 package org.opends.server.replication.plugin;
@@ -31,6 +32,8 @@ class PendingChange implements Comparable<PendingChange>
   private boolean committed;
   private UpdateMsg msg;
   private final PluginOperation op;
+  /** Time at which this change became pending, as returned by {@link System#nanoTime()}. */
+  private final long creationNanos = System.nanoTime();
 
   /**
    * Construct a new PendingChange.
@@ -64,6 +67,17 @@ class PendingChange implements Comparable<PendingChange>
     this.committed = committed;
   }
 
+  /**
+   * Get the time at which this change became pending, that is when the
+   * operation started or when the message was received.
+   * @return the time at which this change became pending, as returned by
+   * {@link System#nanoTime()}
+   */
+  public long getCreationNanos()
+  {
+    return creationNanos;
+  }
+
   /**
    * Get the CSN associated to this PendingChange.
    * @return the CSN
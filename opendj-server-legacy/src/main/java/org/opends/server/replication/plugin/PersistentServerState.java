@@ -341,14 +341,15 @@ class PersistentServerState
       {
         for (ByteString attrValue : resEntry.getAllAttributes(HISTORICAL_ATTRIBUTE_NAME).iterator().next())
         {
-          HistoricalAttributeValue histVal =
-              new HistoricalAttributeValue(attrValue.toString());
-          CSN csn = histVal.getCSN();
-          if (csn != null
-              && csn.getServerId() == serverId
-              && dbMaxCSN.isOlderThan(csn))
+          for (HistoricalAttributeValue histVal : HistoricalAttributeValue.decode(attrValue))
           {
-            dbMaxCSN = csn;
+            CSN csn = histVal.getCSN();
+            if (csn != null
+                && csn.getServerId() == serverId
+                && dbMaxCSN.isOlderThan(csn))
+            {
+              dbMaxCSN = csn;
+            }
           }
         }
       }
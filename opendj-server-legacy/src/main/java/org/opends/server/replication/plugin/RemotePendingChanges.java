@@ -13,6 +13,7 @@
  *
  * Copyright 2007-2009 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
@@ -164,8 +165,10 @@ final class RemotePendingChanges
    *
    * @param csn
    *          The CSN of the update message that must be set as committed.
+   * @return The time at which the update message was received, as returned by
+   *         {@link System#nanoTime()}.
    */
-  public void commit(CSN csn)
+  public long commit(CSN csn)
   {
     pendingChangesWriteLock.lock();
     try
@@ -177,6 +180,7 @@ final class RemotePendingChanges
       }
       curChange.setCommitted(true);
       activeAndDependentChanges.remove(curChange);
+      final long receivedNanos = curChange.getCreationNanos();
 
       final Iterator<PendingChange> it = pendingChanges.values().iterator();
       while (it.hasNext())
@@ -192,6 +196,7 @@ final class RemotePendingChanges
         }
         it.remove();
       }
+      return receivedNanos;
     }
     finally
     {
@@ -0,0 +1,201 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.opends.server.api.DirectoryThread;
+
+/**
+ * Hashed timer wheel firing the timeouts of the assured update messages a
+ * replication server domain is waiting acks for.
+ * <p>
+ * Scheduling a timeout only adds the {@link ExpectedAcksInfo} to the bucket of
+ * its deadline, and completing it before the deadline does not need to touch
+ * the wheel at all: completed objects are simply dropped when their bucket is
+ * expired. This replaces a {@link java.util.Timer}, whose task queue is a
+ * binary heap guarded by a single lock and had to be purged periodically from
+ * the thread processing the updates.
+ * <p>
+ * The thread sleeps until the next tick while timeouts are pending and until a
+ * timeout is scheduled otherwise.
+ */
+final class AssuredTimeoutWheel extends DirectoryThread
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** Duration of a tick of the wheel, in nanoseconds. */
+  private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+  /** Number of buckets, which must be a power of 2. */
+  private static final int NB_BUCKETS = 512;
+
+  private final ReplicationServerDomain replicationServerDomain;
+  private final Queue<ExpectedAcksInfo>[] buckets;
+  /** Number of scheduled timeouts that have not been expired yet. */
+  private final AtomicInteger nbPending = new AtomicInteger();
+  private final Object eventMonitor = new Object();
+  /** Start time of the wheel, from which ticks are counted. */
+  private final long startNanos = System.nanoTime();
+  /** Next tick to expire, only written by this thread. */
+  private volatile long nextTick;
+
+  /**
+   * Creates the timer wheel of a replication server domain.
+   *
+   * @param replicationServerDomain
+   *          the replication server domain whose assured timeouts are handled
+   */
+  @SuppressWarnings("unchecked")
+  AssuredTimeoutWheel(ReplicationServerDomain replicationServerDomain)
+  {
+    super("Replication server RS("
+        + replicationServerDomain.getLocalRSServerId()
+        + ") assured timer for domain \""
+        + replicationServerDomain.getBaseDN()
+        + "\"");
+    this.replicationServerDomain = replicationServerDomain;
+    this.buckets = new Queue[NB_BUCKETS];
+    for (int i = 0; i < NB_BUCKETS; i++)
+    {
+      buckets[i] = new ConcurrentLinkedQueue<>();
+    }
+    setDaemon(true);
+  }
+
+  /**
+   * Schedules the timeout of the provided expected acks, which fires
+   * {@code timeoutMillis} after their creation unless they are completed in
+   * the meantime.
+   *
+   * @param expectedAcksInfo
+   *          the expected acks
+   * @param timeoutMillis
+   *          the assured timeout, in milliseconds
+   */
+  void schedule(ExpectedAcksInfo expectedAcksInfo, long timeoutMillis)
+  {
+    final long deadline = expectedAcksInfo.getCreationNanos() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    expectedAcksInfo.setDeadlineNanos(deadline);
+    // a bucket that has just been expired would only be seen again one round later
+    final long tick = Math.max(tickOf(deadline), nextTick + 1);
+    buckets[(int) (tick & (NB_BUCKETS - 1))].add(expectedAcksInfo);
+    if (nbPending.getAndIncrement() == 0)
+    {
+      synchronized (eventMonitor)
+      {
+        eventMonitor.notifyAll();
+      }
+    }
+  }
+
+  /** Rounds up so that a timeout never fires before its deadline. */
+  private long tickOf(long nanos)
+  {
+    return Math.max(0, (nanos - startNanos + TICK_NANOS - 1) / TICK_NANOS);
+  }
+
+  @Override
+  public void run()
+  {
+    try
+    {
+      while (!isShutdownInitiated())
+      {
+        synchronized (eventMonitor)
+        {
+          if (nbPending.get() == 0 && !isShutdownInitiated())
+          {
+            eventMonitor.wait();
+          }
+        }
+
+        final long now = System.nanoTime();
+        final long currentTick = (now - startNanos) / TICK_NANOS;
+        // after being idle, going once round the wheel is enough to see all the buckets
+        nextTick = Math.max(nextTick, currentTick - NB_BUCKETS + 1);
+        while (nextTick <= currentTick)
+        {
+          expire(buckets[(int) (nextTick & (NB_BUCKETS - 1))], now);
+          nextTick++;
+        }
+
+        final long sleepNanos = startNanos + nextTick * TICK_NANOS - System.nanoTime();
+        if (sleepNanos > 0)
+        {
+          TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        }
+      }
+    }
+    catch (InterruptedException e)
+    {
+      // Forcefully stopped.
+    }
+  }
+
+  private void expire(Queue<ExpectedAcksInfo> bucket, long now)
+  {
+    List<ExpectedAcksInfo> notExpired = null;
+    ExpectedAcksInfo expectedAcksInfo;
+    while ((expectedAcksInfo = bucket.poll()) != null)
+    {
+      if (expectedAcksInfo.isCompleted())
+      {
+        nbPending.decrementAndGet();
+      }
+      else if (expectedAcksInfo.getDeadlineNanos() - now <= 0)
+      {
+        nbPending.decrementAndGet();
+        try
+        {
+          replicationServerDomain.processAssuredTimeout(expectedAcksInfo);
+        }
+        catch (RuntimeException e)
+        {
+          logger.traceException(e);
+        }
+      }
+      else
+      {
+        // deadline is one or more rounds of the wheel later
+        if (notExpired == null)
+        {
+          notExpired = new ArrayList<>();
+        }
+        notExpired.add(expectedAcksInfo);
+      }
+    }
+    if (notExpired != null)
+    {
+      bucket.addAll(notExpired);
+    }
+  }
+
+  /** Stops the thread, dropping the pending timeouts. */
+  void shutdown()
+  {
+    initiateShutdown();
+    synchronized (eventMonitor)
+    {
+      eventMonitor.notifyAll();
+    }
+  }
+}
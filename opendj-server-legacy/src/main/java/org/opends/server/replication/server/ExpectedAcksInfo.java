@@ -13,13 +13,15 @@
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
  * Portions Copyright 2013-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.opends.server.replication.server;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.opends.server.replication.common.AssuredMode;
 import org.opends.server.replication.common.CSN;
@@ -57,7 +59,13 @@ public abstract class ExpectedAcksInfo
    * acks is completed or an ack timeout has occurred and we are going to
    * remove this object from the map where it is stored.
    */
-  private boolean completed;
+  private final AtomicBoolean completed = new AtomicBoolean();
+
+  /** Time at which the assured update message was received, as returned by {@link System#nanoTime()}. */
+  private final long creationNanos = System.nanoTime();
+
+  /** Time at which the ack timeout occurs, as returned by {@link System#nanoTime()}. */
+  private volatile long deadlineNanos;
 
   /**
    * This gives the list of servers we are willing to wait acks from and the
@@ -65,8 +73,10 @@ public abstract class ExpectedAcksInfo
    * key: the id of the server.
    * value: a boolean true if we received the ack from the server,
    * false otherwise.
+   * Acks from different servers can be processed concurrently, so the status
+   * of a server must only be changed with {@link #markAckReceived(ServerHandler)}.
    */
-  protected Map<Integer,Boolean> expectedServersAckStatus = new HashMap<>();
+  protected final Map<Integer, Boolean> expectedServersAckStatus = new ConcurrentHashMap<>();
 
   /**
    * Facility for monitoring:
@@ -101,6 +111,62 @@ public abstract class ExpectedAcksInfo
     }
   }
 
+  /**
+   * Marks the ack of the provided server as received and records its latency.
+   * Duplicate or unexpected acks are not recorded.
+   * @param ackingServer The server handler of the server that sent the ack
+   * @return True if the ack of this server was expected and had not been
+   * received yet
+   */
+  protected boolean markAckReceived(ServerHandler ackingServer)
+  {
+    if (!expectedServersAckStatus.replace(ackingServer.getServerId(), false, true))
+    {
+      return false;
+    }
+    ackingServer.getAssuredAckLatency().record(System.nanoTime() - creationNanos);
+    return true;
+  }
+
+  /**
+   * Gets the CSN of the assured update message we want acks for.
+   * @return The CSN of the assured update message we want acks for.
+   */
+  public CSN getCSN()
+  {
+    return csn;
+  }
+
+  /**
+   * Gets the time at which the assured update message was received.
+   * @return The time at which the assured update message was received, as
+   * returned by {@link System#nanoTime()}.
+   */
+  public long getCreationNanos()
+  {
+    return creationNanos;
+  }
+
+  /**
+   * Gets the time at which the ack timeout occurs.
+   * @return The time at which the ack timeout occurs, as returned by
+   * {@link System#nanoTime()}.
+   */
+  long getDeadlineNanos()
+  {
+    return deadlineNanos;
+  }
+
+  /**
+   * Sets the time at which the ack timeout occurs.
+   * @param deadlineNanos The time at which the ack timeout occurs, as returned
+   * by {@link System#nanoTime()}.
+   */
+  void setDeadlineNanos(long deadlineNanos)
+  {
+    this.deadlineNanos = deadlineNanos;
+  }
+
   /**
    * Gets the server handler of the server which requested the acknowledgments.
    * @return The server handler of the server which requested the
@@ -131,6 +197,8 @@ public abstract class ExpectedAcksInfo
 
   /**
    * Process the received ack from a server we are waiting an ack from.
+   * This method can be called concurrently for acks sent by different servers,
+   * and exactly one of the calls returns true.
    * @param ackingServer The server handler of the server that sent the ack
    * @param ackMsg The ack message to process
    * @return True if the expected number of acks has just been reached
@@ -157,15 +225,19 @@ public abstract class ExpectedAcksInfo
    */
   public boolean isCompleted()
   {
-    return completed;
+    return completed.get();
   }
 
   /**
    * Signal that treatment of this object has been completed and that it is
    * going to be removed from the map where it is stored.
+   * Either the ack processing code or the ack timeout code can complete this
+   * object: only the first of them is allowed to send the final ack.
+   * @return True if this call completed this object, false if it had already
+   * been completed.
    */
-  public void completed()
+  public boolean completed()
   {
-    completed = true;
+    return completed.compareAndSet(false, true);
   }
 }
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server;
 
@@ -24,8 +25,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
@@ -43,7 +42,9 @@ import org.opends.server.api.MonitorProvider;
 import org.opends.server.core.DirectoryServer;
 import org.opends.server.replication.common.CSN;
 import org.opends.server.replication.common.DSInfo;
+import org.opends.server.replication.common.PerSecondTimeSeries;
 import org.opends.server.replication.common.RSInfo;
+import org.opends.server.replication.common.ServerLatencyHistograms;
 import org.opends.server.replication.common.ServerState;
 import org.opends.server.replication.common.ServerStatus;
 import org.opends.server.replication.common.StatusMachineEvent;
@@ -65,6 +66,7 @@ import org.opends.server.replication.server.changelog.api.ReplicationDomainDB;
 import org.forgerock.opendj.ldap.DN;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.HostPort;
+import org.opends.server.util.TimeThread;
 
 import static org.opends.messages.ReplicationMessages.*;
 import static org.opends.server.replication.common.ServerStatus.*;
@@ -164,15 +166,18 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
   private final Map<CSN, ExpectedAcksInfo> waitingAcks = new ConcurrentHashMap<>();
 
   /**
-   * The timer used to run the timeout code (timer tasks) for the assured update
+   * The timer wheel used to run the timeout code for the assured update
    * messages we are waiting acks for.
    */
-  private final Timer assuredTimeoutTimer;
+  private final AssuredTimeoutWheel assuredTimeoutWheel;
+
   /**
-   * Counter used to purge the timer tasks references in assuredTimeoutTimer,
-   * every n number of treated assured messages.
+   * Latencies between the origin of the updates, as given by their CSN, and
+   * their storage in the changelog, per origin server.
    */
-  private int assuredTimeoutTimerPurgeCounter;
+  private final ServerLatencyHistograms originToStoreLatencies = new ServerLatencyHistograms();
+  /** Updates stored in the changelog over the last minute. */
+  private final PerSecondTimeSeries storeThroughput = new PerSecondTimeSeries();
 
   /**
    * Stores pending status messages such as DS change time heartbeats for future
@@ -276,13 +281,12 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
   {
     this.baseDN = baseDN;
     this.localReplicationServer = localReplicationServer;
-    this.assuredTimeoutTimer = new Timer("Replication server RS("
-        + localReplicationServer.getServerId()
-        + ") assured timer for domain \"" + baseDN + "\"", true);
     this.domainDB =
         localReplicationServer.getChangelogDB().getReplicationDomainDB();
     this.statusAnalyzer = new StatusAnalyzer(this);
     this.statusAnalyzer.start();
+    this.assuredTimeoutWheel = new AssuredTimeoutWheel(this);
+    this.assuredTimeoutWheel.start();
     DirectoryServer.registerMonitorProvider(this);
   }
 
@@ -326,6 +330,7 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
     {
       return;
     }
+    recordStoreLatency(updateMsg, sourceHandler);
 
     final List<Integer> assuredServers = getAssuredServers(updateMsg, preparedAssuredInfo);
 
@@ -469,26 +474,32 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
       // info kept in this object and if enough acks received, it will send
       // back the final ack to the requester and remove the object from this map
       // OR
-      // The following timer will time out and send an timeout ack to the
+      // The following timer will time out and send a timeout ack to the
       // requester if the acks are not received in time. The timer will also
       // remove the object from this map.
       final CSN csn = updateMsg.getCSN();
       waitingAcks.put(csn, preparedAssuredInfo.expectedAcksInfo);
 
       // Arm timer for this assured update message (wait for acks until it times out)
-      final AssuredTimeoutTask assuredTimeoutTask = new AssuredTimeoutTask(csn);
-      assuredTimeoutTimer.schedule(assuredTimeoutTask, localReplicationServer.getAssuredTimeout());
-      // Purge timer every 100 treated messages
-      assuredTimeoutTimerPurgeCounter++;
-      if ((assuredTimeoutTimerPurgeCounter % 100) == 0)
-      {
-        assuredTimeoutTimer.purge();
-      }
+      assuredTimeoutWheel.schedule(preparedAssuredInfo.expectedAcksInfo, localReplicationServer.getAssuredTimeout());
     }
 
     return expectedServers != null ? expectedServers : Collections.<Integer> emptyList();
   }
 
+  private void recordStoreLatency(UpdateMsg updateMsg, ServerHandler sourceHandler)
+  {
+    if (updateMsg instanceof ReplicaOfflineMsg)
+    {
+      return;
+    }
+    final long now = TimeThread.getTime();
+    final CSN csn = updateMsg.getCSN();
+    sourceHandler.getReceivedUpdateLatency().record(TimeUnit.MILLISECONDS.toNanos(now - csn.getTime()));
+    originToStoreLatencies.recordSince(csn, now);
+    storeThroughput.record(0);
+  }
+
   private boolean publishUpdateMsg(UpdateMsg updateMsg)
   {
     try
@@ -801,161 +812,117 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
     CSN csn = ack.getCSN();
     ExpectedAcksInfo expectedAcksInfo = waitingAcks.get(csn);
 
-    if (expectedAcksInfo != null)
+    if (expectedAcksInfo == null || expectedAcksInfo.isCompleted())
     {
-      // Prevent concurrent access from processAck() or AssuredTimeoutTask.run()
-      synchronized (expectedAcksInfo)
-      {
-        if (expectedAcksInfo.isCompleted())
-        {
-          // Timeout code is sending a timeout ack, do nothing and let him
-          // remove object from the map
-          return;
-        }
-        /**
-         *
-         * If this is the last ack we were waiting from, immediately create and
-         * send the final ack to the original server
-         */
-        if (expectedAcksInfo.processReceivedAck(ackingServer, ack))
-        {
-          // Remove the object from the map as no more needed
-          waitingAcks.remove(csn);
-          AckMsg finalAck = expectedAcksInfo.createAck(false);
-          ServerHandler origServer = expectedAcksInfo.getRequesterServer();
-          try
-          {
-            origServer.send(finalAck);
-          } catch (IOException e)
-          {
-            /**
-             * An error happened trying the send back an ack to the server.
-             * Log an error and close the connection to this server.
-             */
-            LocalizableMessageBuilder mb = new LocalizableMessageBuilder();
-            mb.append(ERR_RS_ERROR_SENDING_ACK.get(
-                localReplicationServer.getServerId(), origServer.getServerId(), csn, baseDN));
-            mb.append(" ");
-            mb.append(stackTraceToSingleLineString(e));
-            logger.error(mb.toMessage());
-            stopServer(origServer, false);
-          }
-          // Mark the ack info object as completed to prevent potential timeout
-          // code parallel run
-          expectedAcksInfo.completed();
-        }
-      }
+      /* Else the timeout occurred for the update matching this CSN
+       * and the ack with timeout error has probably already been sent.
+       */
+      return;
     }
-    /* Else the timeout occurred for the update matching this CSN
-     * and the ack with timeout error has probably already been sent.
+
+    /*
+     * Acks from different servers are processed concurrently without locking:
+     * processReceivedAck() returns true for exactly one of them, the last
+     * expected one, and completed() elects either this code or the timeout
+     * code for sending the final ack to the original server. The ack latency
+     * of the acking server is recorded once processReceivedAck() has accepted
+     * its ack.
      */
+    if (expectedAcksInfo.processReceivedAck(ackingServer, ack)
+        && expectedAcksInfo.completed())
+    {
+      // Remove the object from the map as no more needed
+      waitingAcks.remove(csn);
+      sendFinalAck(expectedAcksInfo, expectedAcksInfo.createAck(false));
+    }
+  }
+
+  private void sendFinalAck(ExpectedAcksInfo expectedAcksInfo, AckMsg finalAck)
+  {
+    ServerHandler origServer = expectedAcksInfo.getRequesterServer();
+    try
+    {
+      origServer.send(finalAck);
+    } catch (IOException e)
+    {
+      /**
+       * An error happened trying the send back an ack to the server.
+       * Log an error and close the connection to this server.
+       */
+      LocalizableMessageBuilder mb = new LocalizableMessageBuilder();
+      mb.append(ERR_RS_ERROR_SENDING_ACK.get(
+          localReplicationServer.getServerId(), origServer.getServerId(), finalAck.getCSN(), baseDN));
+      mb.append(" ");
+      mb.append(stackTraceToSingleLineString(e));
+      logger.error(mb.toMessage());
+      stopServer(origServer, false);
+    }
   }
 
   /**
    * The code run when the timeout occurs while waiting for acks of the
    * eligible servers. This basically sends a timeout ack (with any additional
    * error info) to the original server that sent an assured update message.
+   *
+   * @param expectedAcksInfo
+   *          the expected acks of the assured update message that timed out
    */
-  private class AssuredTimeoutTask extends TimerTask
+  void processAssuredTimeout(ExpectedAcksInfo expectedAcksInfo)
   {
-    private CSN csn;
-
-    /**
-     * Constructor for the timer task.
-     * @param csn The CSN of the assured update we are waiting acks for
-     */
-    public AssuredTimeoutTask(CSN csn)
+    if (!expectedAcksInfo.completed())
     {
-      this.csn = csn;
+      // processAck() code is sending the ack, do nothing and let him
+      // remove object from the map
+      return;
     }
-
-    /**
-     * Run when the assured timeout for an assured update message we are waiting acks for occurs.
-     */
-    @Override
-    public void run()
+    // Remove the object from the map as no more needed
+    final CSN csn = expectedAcksInfo.getCSN();
+    waitingAcks.remove(csn);
+    // Create the timeout ack and send him to the server the assured
+    // update message came from
+    AckMsg finalAck = expectedAcksInfo.createAck(true);
+    ServerHandler origServer = expectedAcksInfo.getRequesterServer();
+    if (logger.isTraceEnabled())
     {
-      ExpectedAcksInfo expectedAcksInfo = waitingAcks.get(csn);
-
-      if (expectedAcksInfo != null)
+      debug("sending timeout for assured update with CSN " + csn
+          + " to serverId=" + origServer.getServerId());
+    }
+    sendFinalAck(expectedAcksInfo, finalAck);
+    // Increment assured counters
+    boolean safeRead =
+        expectedAcksInfo instanceof SafeReadExpectedAcksInfo;
+    if (safeRead)
+    {
+      origServer.incrementAssuredSrReceivedUpdatesTimeout();
+    }
+    else if (origServer.isDataServer())
+    {
+      origServer.incrementAssuredSdReceivedUpdatesTimeout();
+    }
+    //   retrieve expected servers in timeout to increment their counter
+    List<Integer> serversInTimeout = expectedAcksInfo.getTimeoutServers();
+    for (Integer serverId : serversInTimeout)
+    {
+      ServerHandler expectedDSInTimeout = connectedDSs.get(serverId);
+      ServerHandler expectedRSInTimeout = connectedRSs.get(serverId);
+      if (expectedDSInTimeout != null)
       {
-        synchronized (expectedAcksInfo)
+        if (safeRead)
         {
-          if (expectedAcksInfo.isCompleted())
-          {
-            // processAck() code is sending the ack, do nothing and let him
-            // remove object from the map
-            return;
-          }
-          // Remove the object from the map as no more needed
-          waitingAcks.remove(csn);
-          // Create the timeout ack and send him to the server the assured
-          // update message came from
-          AckMsg finalAck = expectedAcksInfo.createAck(true);
-          ServerHandler origServer = expectedAcksInfo.getRequesterServer();
-          if (logger.isTraceEnabled())
-          {
-            debug("sending timeout for assured update with CSN " + csn
-                + " to serverId=" + origServer.getServerId());
-          }
-          try
-          {
-            origServer.send(finalAck);
-          } catch (IOException e)
-          {
-            /**
-             * An error happened trying the send back an ack to the server.
-             * Log an error and close the connection to this server.
-             */
-            LocalizableMessageBuilder mb = new LocalizableMessageBuilder();
-            mb.append(ERR_RS_ERROR_SENDING_ACK.get(
-                localReplicationServer.getServerId(), origServer.getServerId(), csn, baseDN));
-            mb.append(" ");
-            mb.append(stackTraceToSingleLineString(e));
-            logger.error(mb.toMessage());
-            stopServer(origServer, false);
-          }
-          // Increment assured counters
-          boolean safeRead =
-              expectedAcksInfo instanceof SafeReadExpectedAcksInfo;
-          if (safeRead)
-          {
-            origServer.incrementAssuredSrReceivedUpdatesTimeout();
-          }
-          else if (origServer.isDataServer())
-          {
-            origServer.incrementAssuredSdReceivedUpdatesTimeout();
-          }
-          //   retrieve expected servers in timeout to increment their counter
-          List<Integer> serversInTimeout = expectedAcksInfo.getTimeoutServers();
-          for (Integer serverId : serversInTimeout)
-          {
-            ServerHandler expectedDSInTimeout = connectedDSs.get(serverId);
-            ServerHandler expectedRSInTimeout = connectedRSs.get(serverId);
-            if (expectedDSInTimeout != null)
-            {
-              if (safeRead)
-              {
-                expectedDSInTimeout.incrementAssuredSrSentUpdatesTimeout();
-              } // else no SD update sent to a DS (meaningless)
-            } else if (expectedRSInTimeout != null)
-            {
-              if (safeRead)
-              {
-                expectedRSInTimeout.incrementAssuredSrSentUpdatesTimeout();
-              }
-              else
-              {
-                expectedRSInTimeout.incrementAssuredSdSentUpdatesTimeout();
-              }
-            }
-            // else server disappeared ? Let's forget about it.
-          }
-          // Mark the ack info object as completed to prevent potential
-          // processAck() code parallel run
-          expectedAcksInfo.completed();
+          expectedDSInTimeout.incrementAssuredSrSentUpdatesTimeout();
+        } // else no SD update sent to a DS (meaningless)
+      } else if (expectedRSInTimeout != null)
+      {
+        if (safeRead)
+        {
+          expectedRSInTimeout.incrementAssuredSrSentUpdatesTimeout();
+        }
+        else
+        {
+          expectedRSInTimeout.incrementAssuredSdSentUpdatesTimeout();
         }
       }
+      // else server disappeared ? Let's forget about it.
     }
   }
 
@@ -1586,7 +1553,7 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
     DirectoryServer.deregisterMonitorProvider(this);
 
     // Terminate the assured timer
-    assuredTimeoutTimer.cancel();
+    assuredTimeoutWheel.shutdown();
 
     stopAllServers(true);
     statusAnalyzer.shutdown();
@@ -2251,6 +2218,8 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
     attributes.add("domain-name", baseDN);
     attributes.add("generation-id", baseDN + " " + generationId);
     attributes.add("missing-changes", getDomainMonitorData().getMissingChangesRS(serverId));
+    originToStoreLatencies.addMonitorData(attributes, "origin-to-store-latency");
+    storeThroughput.addMonitorData(attributes, "stored-updates", null);
     return attributes;
   }
 
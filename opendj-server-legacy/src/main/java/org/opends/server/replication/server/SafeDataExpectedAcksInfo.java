@@ -13,12 +13,14 @@
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
  * Portions Copyright 2013-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.opends.server.replication.common.AssuredMode;
@@ -42,7 +44,7 @@ public class SafeDataExpectedAcksInfo extends ExpectedAcksInfo
    * Number of received acks for the matching update message, up to now Already
    * set to 1 as the local RS receiving the message from a DS counts.
    */
-  private byte numReceivedAcks = 1;
+  private final AtomicInteger numReceivedAcks = new AtomicInteger(1);
 
   /**
    * Creates a new SafeDataExpectedAcksInfo.
@@ -82,10 +84,9 @@ public class SafeDataExpectedAcksInfo extends ExpectedAcksInfo
         return false;
      }
 
-    // Get the ack status for the matching server
+    // Mark this ack received for the server
     int ackingServerId = ackingServer.getServerId();
-    boolean ackReceived = expectedServersAckStatus.get(ackingServerId);
-    if (ackReceived)
+    if (!markAckReceived(ackingServer))
     {
       // Sanity check: this should never happen
       if (logger.isTraceEnabled())
@@ -94,13 +95,8 @@ public class SafeDataExpectedAcksInfo extends ExpectedAcksInfo
           ackingServerId + " ack message: " + ackMsg);
       }
       return false;
-    } else
-    {
-      // Mark this ack received for the server
-      expectedServersAckStatus.put(ackingServerId, true);
-      numReceivedAcks++;
-      return numReceivedAcks == safeDataLevel;
     }
+    return numReceivedAcks.incrementAndGet() == safeDataLevel;
   }
 
   /** {@inheritDoc} */
@@ -13,12 +13,15 @@
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
  * Portions Copyright 2013-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.opends.server.replication.common.AssuredMode;
@@ -36,20 +39,20 @@ public class SafeReadExpectedAcksInfo extends ExpectedAcksInfo
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
   /** Did some servers go in timeout when the matching update was sent ?. */
-  private boolean hasTimeout;
+  private volatile boolean hasTimeout;
 
   /** Were some servers in wrong status when the matching update was sent ?. */
-  private boolean hasWrongStatus;
+  private volatile boolean hasWrongStatus;
 
   /** Did some servers make an error replaying the sent matching update ?. */
-  private boolean hasReplayError;
+  private volatile boolean hasReplayError;
 
   /**
    * The list of server ids that had errors for the sent matching update Each
    * server id of the list had one of the 3 possible errors (timeout, wrong
    * status or replay error).
    */
-  private List<Integer> failedServers = new ArrayList<>();
+  private final CopyOnWriteArrayList<Integer> failedServers = new CopyOnWriteArrayList<>();
 
   /**
    * Number of servers we want an ack from and from which we received the ack.
@@ -58,7 +61,7 @@ public class SafeReadExpectedAcksInfo extends ExpectedAcksInfo
    * we can compute an ack message (based on info in this object), to be
    * returned to the (requester) server that sent us an assured update message.
    */
-  private int numKnownAckStatus;
+  private final AtomicInteger numKnownAckStatus = new AtomicInteger();
 
   /**
    * Creates a new SafeReadExpectedAcksInfo.
@@ -82,7 +85,7 @@ public class SafeReadExpectedAcksInfo extends ExpectedAcksInfo
     if (!wrongStatusServers.isEmpty())
     {
       hasWrongStatus = true;
-      failedServers = wrongStatusServers;
+      failedServers.addAll(wrongStatusServers);
     }
   }
 
@@ -144,10 +147,9 @@ public class SafeReadExpectedAcksInfo extends ExpectedAcksInfo
   @Override
   public boolean processReceivedAck(ServerHandler ackingServer, AckMsg ackMsg)
   {
-    // Get the ack status for the matching server
+    // Mark this ack received for the server
     int ackingServerId = ackingServer.getServerId();
-    boolean ackReceived = expectedServersAckStatus.get(ackingServerId);
-    if (ackReceived)
+    if (!markAckReceived(ackingServer))
     {
       // Sanity check: this should never happen
       if (logger.isTraceEnabled())
@@ -156,37 +158,32 @@ public class SafeReadExpectedAcksInfo extends ExpectedAcksInfo
           + ackingServerId + " ack message: " + ackMsg);
       }
       return false;
-    } else
-    {
-      // Analyze received ack and update info for the ack to be later computed
-      // accordingly
-      boolean someErrors = false;
-      if (ackMsg.hasTimeout())
-      {
-        hasTimeout = true;
-        someErrors = true;
-      }
-      if (ackMsg.hasWrongStatus())
-      {
-        hasWrongStatus = true;
-        someErrors = true;
-      }
-      if (ackMsg.hasReplayError())
-      {
-        hasReplayError = true;
-        someErrors = true;
-      }
-      if (someErrors)
-      {
-        failedServers.addAll(ackMsg.getFailedServers());
-      }
+    }
 
-      // Mark this ack received for the server
-      expectedServersAckStatus.put(ackingServerId, true);
-      numKnownAckStatus++;
+    // Analyze received ack and update info for the ack to be later computed
+    // accordingly
+    boolean someErrors = false;
+    if (ackMsg.hasTimeout())
+    {
+      hasTimeout = true;
+      someErrors = true;
+    }
+    if (ackMsg.hasWrongStatus())
+    {
+      hasWrongStatus = true;
+      someErrors = true;
+    }
+    if (ackMsg.hasReplayError())
+    {
+      hasReplayError = true;
+      someErrors = true;
+    }
+    if (someErrors)
+    {
+      failedServers.addAll(ackMsg.getFailedServers());
     }
 
-    return numKnownAckStatus == expectedServersAckStatus.size();
+    return numKnownAckStatus.incrementAndGet() == expectedServersAckStatus.size();
   }
 
   /** {@inheritDoc} */
@@ -211,15 +208,14 @@ public class SafeReadExpectedAcksInfo extends ExpectedAcksInfo
       for (int serverId : serverIds)
       {
         boolean ackReceived = expectedServersAckStatus.get(serverId);
-        if (!ackReceived && !failedServers.contains(serverId))
+        if (!ackReceived && failedServers.addIfAbsent(serverId))
         {
-          failedServers.add(serverId);
           serversInTimeout.add(serverId);
         }
       }
     }
 
-    ack.setFailedServers(failedServers);
+    ack.setFailedServers(new ArrayList<>(failedServers));
 
     return ack;
   }
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server;
 
@@ -33,6 +34,7 @@ import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
 import org.opends.server.core.DirectoryServer;
 import org.opends.server.replication.common.AssuredMode;
 import org.opends.server.replication.common.CSN;
+import org.opends.server.replication.common.LatencyHistogram;
 import org.opends.server.replication.common.RSInfo;
 import org.opends.server.replication.common.ServerStatus;
 import org.opends.server.replication.protocol.AckMsg;
@@ -120,6 +122,16 @@ public abstract class ServerHandler extends MessageHandler
    * Number of updates sent to the server in assured safe data mode that timed out.
    */
   private final AtomicInteger assuredSdSentUpdatesTimeout = new AtomicInteger();
+  /**
+   * Latencies of the acks received from the server for assured updates,
+   * whatever their assured mode.
+   */
+  private final LatencyHistogram assuredAckLatency = new LatencyHistogram();
+  /**
+   * Latencies between the origin of the updates received from the server, as
+   * given by their CSN, and their storage in the changelog.
+   */
+  private final LatencyHistogram receivedUpdateLatency = new LatencyHistogram();
 
   /**
    * The associated ServerWriter that sends messages to the remote server.
@@ -364,6 +376,28 @@ public abstract class ServerHandler extends MessageHandler
     return 0;
   }
 
+  /**
+   * Get the latencies of the acks received from the server for assured
+   * updates.
+   * @return The latencies of the acks received from the server for assured
+   * updates.
+   */
+  LatencyHistogram getAssuredAckLatency()
+  {
+    return assuredAckLatency;
+  }
+
+  /**
+   * Get the latencies between the origin of the updates received from the
+   * server and their storage in the changelog.
+   * @return The latencies between the origin of the updates received from the
+   * server and their storage in the changelog.
+   */
+  LatencyHistogram getReceivedUpdateLatency()
+  {
+    return receivedUpdateLatency;
+  }
+
   /**
    * Get the number of updates received from the server in assured safe data
    * mode.
@@ -513,6 +547,8 @@ public abstract class ServerHandler extends MessageHandler
     {
       attributes.add("assured-sd-received-updates-timeout", getAssuredSdReceivedUpdatesTimeout());
     }
+    assuredAckLatency.addMonitorData(attributes, "assured-ack-latency");
+    receivedUpdateLatency.addMonitorData(attributes, "received-update-latency");
 
     // Window stats
     attributes.add("max-send-window", sendWindowSize);
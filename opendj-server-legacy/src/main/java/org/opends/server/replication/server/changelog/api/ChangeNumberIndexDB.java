@@ -12,9 +12,12 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.api;
 
+import java.util.List;
+
 import org.opends.server.replication.common.CSN;
 import org.forgerock.opendj.ldap.DN;
 
@@ -75,6 +78,21 @@ public interface ChangeNumberIndexDB
    */
   long addRecord(ChangeNumberIndexRecord record) throws ChangelogException;
 
+  /**
+   * Add a batch of updates to this DB. The records are associated consecutive
+   * change numbers, in the order of the provided list.
+   * <p>
+   * Note: this method disregards the changeNumber in the provided records.
+   *
+   * @param records
+   *          The {@link ChangeNumberIndexRecord}s to add to this DB, ordered by CSN.
+   * @return the change number associated to the first record on adding to this
+   *         DB, the following records being associated the next change numbers
+   * @throws ChangelogException
+   *           if a database problem occurs.
+   */
+  long addRecords(List<ChangeNumberIndexRecord> records) throws ChangelogException;
+
   /**
    * Generate a new {@link DBCursor} that allows to browse the db managed by
    * this object and starting at the position defined by a given changeNumber.
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -21,6 +22,7 @@ import static org.opends.server.replication.server.changelog.file.BlockLogReader
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.SyncFailedException;
+import java.util.List;
 
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ByteStringBuilder;
@@ -130,6 +132,33 @@ class BlockLogWriter<K extends Comparable<K>, V> implements Closeable
     }
   }
 
+  /**
+   * Writes the provided records to the log file, flushing the underlying writer only once.
+   *
+   * @param records
+   *            The records to write, in order.
+   * @throws ChangelogException
+   *            If a problem occurs during write.
+   */
+  public void write(final List<Record<K, V>> records) throws ChangelogException
+  {
+    Record<K, V> record = null;
+    try
+    {
+      for (Record<K, V> r : records)
+      {
+        record = r;
+        write(parser.encodeRecord(record));
+      }
+      writer.flush();
+    }
+    catch (Exception e)
+    {
+      throw new ChangelogException(ERR_CHANGELOG_UNABLE_TO_ADD_RECORD.get(String.valueOf(record),
+          writer.getFile().getPath()), e);
+    }
+  }
+
   /**
    * Returns the number of bytes written in the log file.
    *
@@ -12,12 +12,18 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.opends.server.api.DirectoryThread;
@@ -49,11 +55,19 @@ import static org.opends.server.util.StaticUtils.*;
  * CNIndexDB. As a consequence this class is also responsible for maintaining
  * the medium consistency point (indirectly through an
  * {@link ECLMultiDomainDBCursor}).
+ * <p>
+ * Change numbers follow the global CSN order across all the domains, so changes
+ * are consumed by a single thread. All the changes already older than the
+ * medium consistency point are inserted together in the CNIndexDB, in batches
+ * of at most {@link #MAX_BATCH_SIZE} records, and the resulting per domain
+ * watermark is published through {@link #getMediumConsistencyCookie()}.
  */
 public class ChangeNumberIndexer extends DirectoryThread
 {
   /** The tracer object for the debug logger. */
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+  /** The maximum number of changes inserted at once in the CNIndexDB. */
+  static final int MAX_BATCH_SIZE = 512;
 
   /**
    * If it contains nothing, then the run method executes normally.
@@ -97,6 +111,18 @@ public class ChangeNumberIndexer extends DirectoryThread
    */
   private ECLMultiDomainDBCursor nextChangeForInsertDBCursor;
   private MultiDomainServerState cookie = new MultiDomainServerState();
+  /**
+   * Copy of the cookie published after each batch of changes inserted in the
+   * CNIndexDB, for other threads.
+   */
+  private volatile MultiDomainServerState mediumConsistencyCookie = new MultiDomainServerState();
+
+  /** Guards the waits of this thread and the wake-ups coming from the threads publishing changes. */
+  private final ReentrantLock lock = new ReentrantLock();
+  /** Signaled when this thread might have some work to do. */
+  private final Condition workAvailable = lock.newCondition();
+  /** Signaled when this thread has cleared its state for a domain. */
+  private final Condition domainCleared = lock.newCondition();
 
   /**
    * Builds a ChangeNumberIndexer object.
@@ -219,13 +245,36 @@ public class ChangeNumberIndexer extends DirectoryThread
   {
     if (mightMoveForwardMediumConsistencyPoint(oldestCSNBefore))
     {
-      synchronized (this)
-      {
-        notify();
-      }
+      wakeUp();
+    }
+  }
+
+  /** Wakes up the {@link ChangeNumberIndexer} thread. */
+  private void wakeUp()
+  {
+    lock.lock();
+    try
+    {
+      workAvailable.signal();
+    }
+    finally
+    {
+      lock.unlock();
     }
   }
 
+  /**
+   * Returns the cookie of the newest changes inserted in the CNIndexDB. It is
+   * the per domain watermark up to which changes have been given a change
+   * number.
+   *
+   * @return the cookie of the newest changes inserted in the CNIndexDB
+   */
+  public MultiDomainServerState getMediumConsistencyCookie()
+  {
+    return mediumConsistencyCookie;
+  }
+
   /**
    * Used for waking up the {@link ChangeNumberIndexer} thread because it might
    * have some work to do.
@@ -362,10 +411,7 @@ public class ChangeNumberIndexer extends DirectoryThread
   public void initiateShutdown()
   {
     super.initiateShutdown();
-    synchronized (this)
-    {
-      notify();
-    }
+    wakeUp();
   }
 
   /** {@inheritDoc} */
@@ -391,6 +437,7 @@ public class ChangeNumberIndexer extends DirectoryThread
             // Only release the waiting thread
             // once this domain's state has been cleared.
             domainsToClear.remove(baseDNToClear);
+            signalDomainCleared();
           }
           if (nextChangeForInsertDBCursor.shouldReInitialize())
           {
@@ -403,13 +450,18 @@ public class ChangeNumberIndexer extends DirectoryThread
           final UpdateMsg msg = nextChangeForInsertDBCursor.getRecord();
           if (msg == null)
           {
-            synchronized (this)
+            lock.lock();
+            try
             {
               if (isShutdownInitiated())
               {
                 continue;
               }
-              wait();
+              workAvailable.await();
+            }
+            finally
+            {
+              lock.unlock();
             }
             // check whether new changes have been added to the ReplicaDBs
             moveToNextChange();
@@ -422,41 +474,37 @@ public class ChangeNumberIndexer extends DirectoryThread
           }
 
           final CSN csn = msg.getCSN();
-          final DN baseDN = nextChangeForInsertDBCursor.getData();
           // FIXME problem: what if the serverId is not part of the ServerState?
           // right now, change number will be blocked
           if (!canMoveForwardMediumConsistencyPoint(csn))
           {
             // the oldest record to insert is newer than the medium consistency
             // point. Let's wait for a change that can be published.
-            synchronized (this)
+            lock.lock();
+            try
             {
-              // double check to protect against a missed call to notify()
+              // double check to protect against a missed wake up
               if (!canMoveForwardMediumConsistencyPoint(csn))
               {
                 if (isShutdownInitiated())
                 {
                   return;
                 }
-                wait();
+                workAvailable.await();
                 // loop to check if changes older than the medium consistency
                 // point have been added to the ReplicaDBs
                 continue;
               }
             }
+            finally
+            {
+              lock.unlock();
+            }
           }
 
           // OK, the oldest change is older than the medium consistency point
-          // let's publish it to the CNIndexDB.
-          final long changeNumber = changelogDB.getChangeNumberIndexDB()
-              .addRecord(new ChangeNumberIndexRecord(baseDN, csn));
-          if (!cookie.update(baseDN, csn))
-          {
-            throw new IllegalStateException("It was expected that change (baseDN=" + baseDN + ", csn=" + csn
-                + ") would have updated the cookie=" + cookie + ", but it did not");
-          }
-          notifyEntryAddedToChangelog(baseDN, changeNumber, cookie, msg);
-          moveForwardMediumConsistencyPoint(csn, baseDN);
+          // let's publish it to the CNIndexDB, along with all the following ones.
+          indexChangesOlderThanMediumConsistencyPoint(msg);
         }
         catch (InterruptedException ignored)
         {
@@ -484,6 +532,71 @@ public class ChangeNumberIndexer extends DirectoryThread
     }
   }
 
+  /**
+   * Inserts in the CNIndexDB the provided change and the following changes
+   * that are older than the medium consistency point, with a single write.
+   */
+  private void indexChangesOlderThanMediumConsistencyPoint(UpdateMsg firstMsg) throws ChangelogException
+  {
+    final List<ChangeNumberIndexRecord> records = new ArrayList<>();
+    final List<UpdateMsg> msgs = new ArrayList<>();
+    UpdateMsg msg = firstMsg;
+    while (msg != null
+        && records.size() < MAX_BATCH_SIZE
+        && domainsToClear.isEmpty()
+        && !nextChangeForInsertDBCursor.shouldReInitialize())
+    {
+      if (msg instanceof ReplicaOfflineMsg)
+      {
+        moveToNextChange();
+      }
+      else
+      {
+        final CSN csn = msg.getCSN();
+        if (!canMoveForwardMediumConsistencyPoint(csn))
+        {
+          break;
+        }
+        final DN baseDN = nextChangeForInsertDBCursor.getData();
+        records.add(new ChangeNumberIndexRecord(baseDN, csn));
+        msgs.add(msg);
+        moveForwardMediumConsistencyPoint(csn, baseDN);
+      }
+      msg = nextChangeForInsertDBCursor.getRecord();
+    }
+    if (records.isEmpty())
+    {
+      return;
+    }
+
+    final long firstChangeNumber = changelogDB.getChangeNumberIndexDB().addRecords(records);
+    for (int i = 0; i < records.size(); i++)
+    {
+      final DN baseDN = records.get(i).getBaseDN();
+      final CSN csn = records.get(i).getCSN();
+      if (!cookie.update(baseDN, csn))
+      {
+        throw new IllegalStateException("It was expected that change (baseDN=" + baseDN + ", csn=" + csn
+            + ") would have updated the cookie=" + cookie + ", but it did not");
+      }
+      notifyEntryAddedToChangelog(baseDN, firstChangeNumber + i, cookie, msgs.get(i));
+    }
+    mediumConsistencyCookie = new MultiDomainServerState(cookie);
+  }
+
+  private void signalDomainCleared()
+  {
+    lock.lock();
+    try
+    {
+      domainCleared.signalAll();
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
   private void moveToNextChange() throws ChangelogException
   {
     try
@@ -584,16 +697,25 @@ public class ChangeNumberIndexer extends DirectoryThread
   {
     final DN baseDNToClear = baseDN != null ? baseDN : DN.rootDN();
     domainsToClear.add(baseDNToClear);
-    while (domainsToClear.contains(baseDNToClear)
-        && !State.TERMINATED.equals(getState()))
+    lock.lock();
+    try
     {
-      // wait until clear() has been done by thread, always waking it up
-      synchronized (this)
+      while (domainsToClear.contains(baseDNToClear)
+          && !State.TERMINATED.equals(getState()))
       {
-        notify();
+        // wait until clear() has been done by thread, always waking it up
+        workAvailable.signal();
+        // the thread can terminate without clearing the domain: do not wait forever
+        domainCleared.await(100, TimeUnit.MILLISECONDS);
       }
-      // ensures thread wait that this thread's state is cleaned up
-      Thread.yield();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    finally
+    {
+      lock.unlock();
     }
   }
 }
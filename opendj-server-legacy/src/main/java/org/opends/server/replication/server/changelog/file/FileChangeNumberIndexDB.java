@@ -12,12 +12,15 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
 import static org.opends.messages.ReplicationMessages.*;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -170,6 +173,34 @@ class FileChangeNumberIndexDB implements ChangeNumberIndexDB
     return changeNumber;
   }
 
+  @Override
+  public long addRecords(final List<ChangeNumberIndexRecord> records) throws ChangelogException
+  {
+    if (records.isEmpty())
+    {
+      return getLastGeneratedChangeNumber() + 1;
+    }
+    final long firstChangeNumber = nextChangeNumbers(records.size());
+    final List<Record<Long, ChangeNumberIndexRecord>> newRecords = new ArrayList<>(records.size());
+    long changeNumber = firstChangeNumber;
+    for (ChangeNumberIndexRecord record : records)
+    {
+      final ChangeNumberIndexRecord newRecord =
+          new ChangeNumberIndexRecord(changeNumber, record.getBaseDN(), record.getCSN());
+      newRecords.add(Record.from(changeNumber, newRecord));
+      changeNumber++;
+    }
+    log.append(newRecords);
+    newestChangeNumber = changeNumber - 1;
+
+    if (logger.isTraceEnabled())
+    {
+      logger.trace("In FileChangeNumberIndexDB.addRecords, added %s records from change number %s",
+          newRecords.size(), firstChangeNumber);
+    }
+    return firstChangeNumber;
+  }
+
   /** {@inheritDoc} */
   @Override
   public ChangeNumberIndexRecord getOldestRecord() throws ChangelogException
@@ -197,6 +228,20 @@ class FileChangeNumberIndexDB implements ChangeNumberIndexDB
     }
   }
 
+  /** Reserves the provided number of consecutive change numbers and returns the first one. */
+  private long nextChangeNumbers(int count)
+  {
+    resetCNisRunningLock.readLock().lock();
+    try
+    {
+      return lastGeneratedChangeNumber.addAndGet(count) - count + 1;
+    }
+    finally
+    {
+      resetCNisRunningLock.readLock().unlock();
+    }
+  }
+
   /** {@inheritDoc} */
   @Override
   public long getLastGeneratedChangeNumber()
@@ -292,10 +337,11 @@ class FileChangeNumberIndexDB implements ChangeNumberIndexDB
       long lastCN = readChangeNumber(ChangeNumberType.LAST);
       long numberOfChanges = lastCN == NO_KEY ? 0 : lastCN - firstCN + 1;
 
-      final MonitorData attributes = new MonitorData(3);
+      final MonitorData attributes = new MonitorData(4);
       attributes.add(ChangeNumberType.FIRST.getAttributeName(), firstCN);
       attributes.add(ChangeNumberType.LAST.getAttributeName(), lastCN);
       attributes.add("count", numberOfChanges);
+      attributes.addIfNotNull("medium-consistency-cookie", changelogDB.getMediumConsistencyCookie());
       return attributes;
     }
 
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -644,6 +645,18 @@ public class FileChangelogDB implements ChangelogDB, ReplicationDomainDB
     }
   }
 
+  /**
+   * Returns the cookie of the newest changes inserted in the change number index, which is the
+   * per domain watermark up to which {@code cn=changelog} can be read by change number.
+   *
+   * @return the medium consistency cookie, or {@code null} if change numbers are not computed
+   */
+  MultiDomainServerState getMediumConsistencyCookie()
+  {
+    final ChangeNumberIndexer indexer = cnIndexer.get();
+    return indexer != null ? indexer.getMediumConsistencyCookie() : null;
+  }
+
   private void startIndexer()
   {
     final ChangeNumberIndexer indexer = new ChangeNumberIndexer(this, replicationEnv);
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -465,6 +466,46 @@ final class Log<K extends Comparable<K>, V> implements Closeable
     }
   }
 
+  /**
+   * Add the provided records at the end of this log, in order.
+   * <p>
+   * This is equivalent to calling {@link #append(Record)} for each record, but the records are
+   * written with a single flush of the head log file whenever no rotation is needed.
+   *
+   * @param records
+   *          The records to add, ordered by key.
+   * @throws ChangelogException
+   *           If an error occurs while adding the records to the log.
+   */
+  public void append(final List<Record<K, V>> records) throws ChangelogException
+  {
+    // Fast-path - assume that no rotation is needed and use shared lock.
+    sharedLock.lock();
+    try
+    {
+      if (isClosed)
+      {
+        return;
+      }
+      LogFile<K, V> headLogFile = getHeadLogFile();
+      if (!mustRotate(headLogFile))
+      {
+        headLogFile.append(records);
+        return;
+      }
+    }
+    finally
+    {
+      sharedLock.unlock();
+    }
+
+    // Slow-path - rotation is needed, let the single record append deal with it.
+    for (Record<K, V> record : records)
+    {
+      append(record);
+    }
+  }
+
   private boolean mustRotate(LogFile<K, V> headLogFile)
   {
     if (headLogFile.getNewestRecord() == null)
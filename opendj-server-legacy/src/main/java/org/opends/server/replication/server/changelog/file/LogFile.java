@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -23,6 +24,8 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -264,6 +267,49 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
     }
   }
 
+  /**
+   * Add the provided records at the end of this log, in order.
+   * <p>
+   * Records that do not have a key strictly higher than the key of the last record added are not
+   * appended. All the records are written before flushing the underlying file.
+   *
+   * @param records
+   *          The records to add.
+   * @throws ChangelogException
+   *           If the records can't be added to the log.
+   */
+  void append(final List<Record<K, V>> records) throws ChangelogException
+  {
+    checkLogIsEnabledForWrite();
+    exclusiveLock.lock();
+    try
+    {
+      final List<Record<K, V>> recordsToWrite = new ArrayList<>(records.size());
+      Record<K, V> newest = newestRecord;
+      for (Record<K, V> record : records)
+      {
+        if (newest == null || record.getKey().compareTo(newest.getKey()) > 0)
+        {
+          recordsToWrite.add(record);
+          newest = record;
+        }
+        else
+        {
+          logger.debug(INFO_CHANGELOG_FILTER_OUT_RECORD_BREAKING_ORDER.get(logfile.getPath(), record, newest.getKey()));
+        }
+      }
+      if (!recordsToWrite.isEmpty())
+      {
+        writer.write(recordsToWrite);
+        newestRecord = newest;
+      }
+    }
+    finally
+    {
+      exclusiveLock.unlock();
+    }
+  }
+
   /** Indicates if the provided record has a key that would break the key ordering if appended in this file log. */
   boolean appendWouldBreakKeyOrdering(final Record<K, V> record)
   {
@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.service;
 
@@ -60,6 +61,7 @@ import org.opends.server.replication.common.CSN;
 import org.opends.server.replication.common.CSNGenerator;
 import org.opends.server.replication.common.DSInfo;
 import org.opends.server.replication.common.RSInfo;
+import org.opends.server.replication.common.ServerLatencyHistograms;
 import org.opends.server.replication.common.ServerState;
 import org.opends.server.replication.common.ServerStatus;
 import org.opends.server.replication.common.StatusMachine;
@@ -84,6 +86,7 @@ import org.opends.server.tasks.InitializeTargetTask;
 import org.opends.server.tasks.InitializeTask;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.HostPort;
+import org.opends.server.util.TimeThread;
 
 /**
  * This class should be used as a base for Replication implementations.
@@ -270,6 +273,16 @@ public abstract class ReplicationDomain
   private AtomicInteger numProcessedUpdates = new AtomicInteger(0);
   private AtomicInteger numRcvdUpdates = new AtomicInteger(0);
   private AtomicInteger numSentUpdates = new AtomicInteger(0);
+  /**
+   * Latencies between the origin of the received updates, as given by their
+   * CSN, and their reception from the replication server.
+   */
+  private ServerLatencyHistograms originToReceiveLatencies = new ServerLatencyHistograms();
+  /**
+   * Latencies between the origin of the received updates, as given by their
+   * CSN, and the end of their replay.
+   */
+  private ServerLatencyHistograms originToReplayLatencies = new ServerLatencyHistograms();
 
   /** Assured replication monitoring counters. */
 
@@ -708,6 +721,30 @@ public abstract class ReplicationDomain
     return 0;
   }
 
+  /**
+   * Get the latencies between the origin of the received updates and their
+   * reception from the replication server, per origin server.
+   *
+   * @return the latencies between the origin of the received updates and
+   *         their reception
+   */
+  ServerLatencyHistograms getOriginToReceiveLatencies()
+  {
+    return originToReceiveLatencies;
+  }
+
+  /**
+   * Get the latencies between the origin of the received updates and the end
+   * of their replay, per origin server.
+   *
+   * @return the latencies between the origin of the received updates and the
+   *         end of their replay
+   */
+  ServerLatencyHistograms getOriginToReplayLatencies()
+  {
+    return originToReplayLatencies;
+  }
+
   /**
    * Get the number of updates received by the replication plugin.
    *
@@ -884,6 +921,7 @@ public abstract class ReplicationDomain
     }
 
     numRcvdUpdates.incrementAndGet();
+    originToReceiveLatencies.recordSince(update.getCSN(), TimeThread.getTime());
     if (update.isAssured()
         && broker.getRsGroupId() == getGroupId()
         && update.getAssuredMode() == AssuredMode.SAFE_READ_MODE)
@@ -2882,6 +2920,8 @@ public abstract class ReplicationDomain
     numProcessedUpdates = new AtomicInteger(0);
     numRcvdUpdates = new AtomicInteger(0);
     numSentUpdates = new AtomicInteger(0);
+    originToReceiveLatencies = new ServerLatencyHistograms();
+    originToReplayLatencies = new ServerLatencyHistograms();
 
     assuredSrSentUpdates = new AtomicInteger(0);
     assuredSrAcknowledgedUpdates = new AtomicInteger(0);
@@ -3220,6 +3260,7 @@ public abstract class ReplicationDomain
     }
 
     incProcessedUpdates();
+    originToReplayLatencies.recordSince(msg.getCSN(), TimeThread.getTime());
   }
 
   /**
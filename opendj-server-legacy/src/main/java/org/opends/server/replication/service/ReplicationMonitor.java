@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
+ * Portions Copyright 2026 Wren Security.
  * Portions copyright 2013-2016 ForgeRock AS.
  */
 package org.opends.server.replication.service;
@@ -77,6 +78,8 @@ public class ReplicationMonitor extends MonitorProvider<MonitorProviderCfg>
     attributes.add("received-updates", domain.getNumRcvdUpdates());
     attributes.add("sent-updates", domain.getNumSentUpdates());
     attributes.add("replayed-updates", domain.getNumProcessedUpdates());
+    domain.getOriginToReceiveLatencies().addMonitorData(attributes, "origin-to-receive-latency");
+    domain.getOriginToReplayLatencies().addMonitorData(attributes, "origin-to-replay-latency");
 
     // get window information
     attributes.add("max-rcv-window", domain.getMaxRcvWindow());
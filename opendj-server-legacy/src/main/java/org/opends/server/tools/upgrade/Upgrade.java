@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Portions Copyright 2013-2016 ForgeRock AS.
- * Portions Copyright 2022 Wren Security
+ * Portions Copyright 2022-2026 Wren Security
  */
 package org.opends.server.tools.upgrade;
 
@@ -547,6 +547,28 @@ public final class Upgrade
     register("4.0.0", moveSubordinateBaseDnToGlobalConfiguration());
     register("4.0.0", removeTools("ldif-diff", "make-ldif", "dsjavaproperties"));
 
+    register("5.1.0",
+        addConfigEntry(INFO_UPGRADE_TASK_ADD_CHANGELOG_STREAM_EXTENDED_OPERATION.get(),
+            "dn: cn=Changelog Stream,cn=Extended Operations,cn=config",
+            "changetype: add",
+            "objectClass: top",
+            "objectClass: ds-cfg-extended-operation-handler",
+            "objectClass: ds-cfg-changelog-stream-extended-operation-handler",
+            "cn: Changelog Stream",
+            "ds-cfg-java-class: org.opends.server.extensions.ChangelogStreamExtendedOperation",
+            "ds-cfg-enabled: true"));
+    register("5.1.0",
+        addConfigEntry(INFO_UPGRADE_TASK_ADD_PROMETHEUS_ENDPOINT.get(),
+            "dn: ds-cfg-base-path=/metrics,cn=HTTP Endpoints,cn=config",
+            "changetype: add",
+            "objectClass: top",
+            "objectClass: ds-cfg-http-endpoint",
+            "objectClass: ds-cfg-prometheus-endpoint",
+            "ds-cfg-enabled: true",
+            "ds-cfg-base-path: /metrics",
+            "ds-cfg-java-class: org.opends.server.protocols.http.PrometheusEndpoint",
+            "ds-cfg-http-authorization-mechanism: cn=HTTP Basic,cn=HTTP Authorization Mechanisms,cn=config"));
+
     /* All upgrades will refresh the server configuration schema and generate a new upgrade folder. */
     registerLast(
         copySchemaFile("02-config.ldif"),
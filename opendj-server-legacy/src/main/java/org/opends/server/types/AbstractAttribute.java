@@ -13,12 +13,16 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
 import java.util.Collection;
 
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.Assertion;
 import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ConditionResult;
 import org.forgerock.opendj.ldap.DecodeException;
 import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.forgerock.opendj.ldap.schema.MatchingRule;
@@ -31,6 +35,8 @@ import org.forgerock.opendj.ldap.schema.MatchingRule;
     mayInvoke = true)
 public abstract class AbstractAttribute implements Attribute
 {
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
   /** Creates a new abstract attribute. */
   protected AbstractAttribute()
   {
@@ -103,6 +109,35 @@ public abstract class AbstractAttribute implements Attribute
     return hashCode;
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * This implementation normalizes each value of this attribute using
+   * the provided matching rule.
+   */
+  @Override
+  public ConditionResult matchesAssertion(MatchingRule matchingRule, Assertion assertion)
+  {
+    ConditionResult result = ConditionResult.FALSE;
+    for (ByteString value : this)
+    {
+      try
+      {
+        if (assertion.matches(matchingRule.normalizeAttributeValue(value)).toBoolean())
+        {
+          return ConditionResult.TRUE;
+        }
+      }
+      catch (DecodeException e)
+      {
+        logger.traceException(e);
+        // If we cannot find a definite match, then we should return "undefined".
+        result = ConditionResult.UNDEFINED;
+      }
+    }
+    return result;
+  }
+
   /**
    * {@inheritDoc}
    * <p>
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
@@ -486,7 +487,7 @@ public abstract class AbstractOperation
   }
 
   @Override
-  public final void operationCompleted()
+  public void operationCompleted()
   {
     // Notify the client connection that this operation is complete
     // and that it no longer needs to be retained.
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
@@ -20,9 +21,11 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 
+import org.forgerock.opendj.ldap.Assertion;
 import org.forgerock.opendj.ldap.AttributeDescription;
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ConditionResult;
+import org.forgerock.opendj.ldap.schema.MatchingRule;
 
 /**
  * This class defines a data structure for storing and interacting
@@ -100,6 +103,23 @@ public interface Attribute extends Iterable<ByteString>
    */
   ConditionResult matchesEqualityAssertion(ByteString assertionValue);
 
+  /**
+   * Indicates whether this attribute has any value(s) matching the
+   * provided assertion, once normalized by the provided matching rule.
+   * This allows an assertion to be created once and then matched
+   * against the attributes of many entries.
+   *
+   * @param matchingRule
+   *          The matching rule which created the assertion.
+   * @param assertion
+   *          The assertion for which to make the determination.
+   * @return {@link ConditionResult#TRUE} if at least one value matches
+   *         the assertion, {@link ConditionResult#UNDEFINED} if none
+   *         does but some values could not be normalized, or
+   *         {@link ConditionResult#FALSE} otherwise.
+   */
+  ConditionResult matchesAssertion(MatchingRule matchingRule, Assertion assertion);
+
   /**
    * Indicates whether the provided object is an attribute that is
    * equal to this attribute. It will be considered equal if the
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
@@ -192,6 +193,24 @@ public final class AttributeBuilder implements Iterable<ByteString>
       }
     }
 
+    @Override
+    public ConditionResult matchesAssertion(MatchingRule matchingRule, Assertion assertion)
+    {
+      if (matchingRule != getAttributeType().getEqualityMatchingRule())
+      {
+        return super.matchesAssertion(matchingRule, assertion);
+      }
+      // The values normalized by the equality matching rule are cached.
+      for (AttributeValue value : values)
+      {
+        if (assertion.matches(value.getNormalizedValue()).toBoolean())
+        {
+          return ConditionResult.TRUE;
+        }
+      }
+      return ConditionResult.FALSE;
+    }
+
     @Override
     public AttributeDescription getAttributeDescription()
     {
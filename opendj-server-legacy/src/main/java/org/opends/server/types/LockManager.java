@@ -12,18 +12,20 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.util.Reject;
+import org.forgerock.util.time.TimeService;
 
 /**
  * A lock manager coordinates directory update operations so that the DIT structure remains in a
@@ -69,7 +71,8 @@ import org.forgerock.util.Reject;
  * The lock table itself is not represented using a {@code ConcurrentHashMap} because the JDK6/7
  * APIs do not provide the ability to atomically add-and-lock or unlock-and-remove locks (this
  * capability is provided in JDK8). Instead, we provide our own implementation comprising of a fixed
- * number of buckets, a bucket being a {@code LinkedList} of {@code DNLock}s. In addition, it is
+ * number of buckets, a bucket being an intrusive singly linked list of {@code DNLock}s, so that
+ * looking up, adding and removing locks does not allocate any list nodes or iterators. In addition, it is
  * important to be able to efficiently iterate up and down a chain of hierarchically related locks,
  * so each lock maintains a reference to its parent lock. Modern directories tend to have a flat
  * structure so it is also important to avoid contention on "hot" parent DNs. Typically, a lock
@@ -78,6 +81,10 @@ import org.forgerock.util.Reject;
  * the same lock bucket. To avoid this the lock manager maintains a small-thread local cache of
  * locks, so that parent locks can be acquired using a lock-free algorithm.
  * <p>
+ * Lock attempts first try to acquire each lock without waiting. The attempts which have to wait are
+ * counted along with the length of time they waited, and the ones which time out, so that the
+ * contention on entry locks can be monitored.
+ * <p>
  * Since the thread local cache may reference locks which are not actively locked by anyone, a
  * reference counting mechanism is used in order to prevent cached locks from being removed from the
  * underlying lock table. The reference counting mechanism is also used for references between a
@@ -97,7 +104,11 @@ import org.forgerock.util.Reject;
  * </ul>
  * Locks are dereferenced when they are unlocked, when they are evicted from a thread local cache,
  * and when a child lock's reference count reaches zero. A lock is completely removed from the lock
- * table once its reference count reaches zero.
+ * table once its reference count reaches zero. Only the last reference is released while holding
+ * the bucket, so that the locks referenced by many threads and children, such as the locks of hot
+ * parent entries, are dereferenced without contending on their bucket. Since nothing references a
+ * lock once it has been removed from the lock table, except the {@code DNLock}s which have already
+ * been unlocked, each bucket keeps a few removed locks for reuse rather than allocating new ones.
  */
 @org.opends.server.types.PublicAPI(stability = org.opends.server.types.StabilityLevel.UNCOMMITTED,
     mayInstantiate = false, mayExtend = false, mayInvoke = true)
@@ -150,21 +161,25 @@ public final class LockManager
     }
   }
 
-  /** Lock implementation. */
+  /** Lock implementation, which may be reused for another DN once removed from the lock table. */
   private final class DNLockHolder
   {
     private final AtomicInteger refCount = new AtomicInteger();
-    private final DNLockHolder parent;
-    private final DN dn;
-    private final int dnHashCode;
     private final ReentrantReadWriteLock subtreeLock = new ReentrantReadWriteLock();
     private final ReentrantReadWriteLock entryLock = new ReentrantReadWriteLock();
-
-    DNLockHolder(final DNLockHolder parent, final DN dn, final int dnHashCode)
+    /** The parent, DN and hash code of this lock, set before it is published through its bucket. */
+    private DNLockHolder parent;
+    private DN dn;
+    private int dnHashCode;
+    /** The next lock in the same lock table bucket, or in its pool, guarded by the bucket. */
+    private DNLockHolder next;
+
+    void init(final DNLockHolder parent, final DN dn, final int dnHashCode)
     {
       this.parent = parent;
       this.dn = dn;
       this.dnHashCode = dnHashCode;
+      this.next = null;
     }
 
     @Override
@@ -245,7 +260,15 @@ public final class LockManager
     {
       try
       {
-        return lock.tryLock(lockTimeout, lockTimeoutUnits);
+        // A zero timeout does not wait but, unlike tryLock(), honors the fairness policy of the lock.
+        if (lock.tryLock(0, TimeUnit.NANOSECONDS))
+        {
+          return true;
+        }
+        final long startTime = timeService.now();
+        final boolean isLocked = lock.tryLock(lockTimeout, lockTimeoutUnits);
+        recordLockWait(timeService.since(startTime), isLocked);
+        return isLocked;
       }
       catch (final InterruptedException e)
       {
@@ -260,14 +283,37 @@ public final class LockManager
   private static final TimeUnit DEFAULT_LOCK_TIMEOUT_UNITS = TimeUnit.SECONDS;
   private static final int MINIMUM_NUMBER_OF_BUCKETS = 64;
   private static final int THREAD_LOCAL_CACHE_SIZE = 8;
+  private static final int MAXIMUM_NUMBER_OF_POOLED_LOCKS_PER_BUCKET = 4;
+  /** Upper bounds, in milliseconds, of the ranges of lock wait times counted by the lock manager. */
+  private static final long[] LOCK_WAIT_TIME_BOUNDS = { 1, 10, 100, 1000 };
+
+  /** A bucket of the lock table, holding its locks most recently used first. */
+  private static final class Bucket
+  {
+    private DNLockHolder head;
+    /** Locks removed from this bucket which may be reused, linked through their next lock. */
+    private DNLockHolder pool;
+    private int poolSize;
+  }
 
   private final int numberOfBuckets;
-  private final LinkedList<DNLockHolder>[] lockTable;
+  private final Bucket[] lockTable;
   private final long lockTimeout;
   private final TimeUnit lockTimeoutUnits;
+  /** The number of lock attempts which had to wait for the lock. */
+  private final AtomicLong contendedLockCount = new AtomicLong();
+  /** The number of lock attempts which timed out. */
+  private final AtomicLong timedOutLockCount = new AtomicLong();
+  /** The number of lock attempts which had to wait, per range of wait times. */
+  private final AtomicLongArray lockWaitTimes = new AtomicLongArray(LOCK_WAIT_TIME_BOUNDS.length + 1);
+  /** Measures the lock wait times, may be replaced for unit testing. */
+  TimeService timeService = TimeService.SYSTEM;
 
-  /** Avoid sub-classing in order to workaround class leaks in app servers. */
-  private final ThreadLocal<LinkedList<DNLockHolder>> threadLocalCache = new ThreadLocal<>();
+  /**
+   * Locks most recently used first, followed by {@code null}s if the cache is not full. Avoid
+   * sub-classing in order to workaround class leaks in app servers.
+   */
+  private final ThreadLocal<DNLockHolder[]> threadLocalCache = new ThreadLocal<>();
 
   /**
    * Creates a new lock manager with a lock timeout of 9 seconds and an automatically chosen number
@@ -302,7 +348,6 @@ public final class LockManager
    * @param numberOfBuckets
    *          The number of buckets to use in the lock table. The minimum number of buckets is 64.
    */
-  @SuppressWarnings("unchecked")
   private LockManager(final long lockTimeout, final TimeUnit lockTimeoutUnit, final int numberOfBuckets)
   {
     Reject.ifFalse(lockTimeout >= 0, "lockTimeout must be a non-negative integer");
@@ -312,10 +357,10 @@ public final class LockManager
     this.lockTimeout = lockTimeout;
     this.lockTimeoutUnits = lockTimeoutUnit;
     this.numberOfBuckets = getNumberOfBuckets(numberOfBuckets);
-    this.lockTable = new LinkedList[this.numberOfBuckets];
+    this.lockTable = new Bucket[this.numberOfBuckets];
     for (int i = 0; i < this.numberOfBuckets; i++)
     {
-      this.lockTable[i] = new LinkedList<>();
+      this.lockTable[i] = new Bucket();
     }
   }
 
@@ -325,10 +370,10 @@ public final class LockManager
     final StringBuilder builder = new StringBuilder();
     for (int i = 0; i < numberOfBuckets; i++)
     {
-      final LinkedList<DNLockHolder> bucket = lockTable[i];
+      final Bucket bucket = lockTable[i];
       synchronized (bucket)
       {
-        for (final DNLockHolder lock : bucket)
+        for (DNLockHolder lock = bucket.head; lock != null; lock = lock.next)
         {
           builder.append(lock);
           builder.append('\n');
@@ -378,14 +423,89 @@ public final class LockManager
     return acquireLockFromCache(subtree).tryWriteLockSubtree();
   }
 
+  /**
+   * Returns the number of locks currently held in the lock table, whether they are locked or only
+   * referenced by the thread local caches.
+   *
+   * @return The number of locks currently held in the lock table.
+   */
+  public int getNumberOfLocks()
+  {
+    int numberOfLocks = 0;
+    for (final Bucket bucket : lockTable)
+    {
+      synchronized (bucket)
+      {
+        for (DNLockHolder lock = bucket.head; lock != null; lock = lock.next)
+        {
+          numberOfLocks++;
+        }
+      }
+    }
+    return numberOfLocks;
+  }
+
+  /**
+   * Returns the number of lock attempts which had to wait for a lock held by another thread,
+   * including the ones which timed out.
+   *
+   * @return The number of lock attempts which had to wait for a lock.
+   */
+  public long getContendedLockCount()
+  {
+    return contendedLockCount.get();
+  }
+
+  /**
+   * Returns the number of lock attempts which failed because they timed out.
+   *
+   * @return The number of lock attempts which timed out.
+   */
+  public long getTimedOutLockCount()
+  {
+    return timedOutLockCount.get();
+  }
+
+  /**
+   * Returns the number of lock attempts which had to wait for a lock, per range of wait times: less
+   * than 1 millisecond, less than 10 milliseconds, less than 100 milliseconds, less than 1 second,
+   * and 1 second or more.
+   *
+   * @return The number of lock attempts which had to wait for a lock, per range of wait times.
+   */
+  public long[] getLockWaitTimeHistogram()
+  {
+    final long[] histogram = new long[lockWaitTimes.length()];
+    for (int i = 0; i < histogram.length; i++)
+    {
+      histogram[i] = lockWaitTimes.get(i);
+    }
+    return histogram;
+  }
+
+  private void recordLockWait(final long waitTimeMillis, final boolean isLocked)
+  {
+    contendedLockCount.incrementAndGet();
+    if (!isLocked)
+    {
+      timedOutLockCount.incrementAndGet();
+    }
+    int range = 0;
+    while (range < LOCK_WAIT_TIME_BOUNDS.length && waitTimeMillis >= LOCK_WAIT_TIME_BOUNDS[range])
+    {
+      range++;
+    }
+    lockWaitTimes.incrementAndGet(range);
+  }
+
   /** For unit testing. */
   int getLockTableRefCountFor(final DN dn)
   {
     final int dnHashCode = dn.hashCode();
-    final LinkedList<DNLockHolder> bucket = getBucket(dnHashCode);
+    final Bucket bucket = getBucket(dnHashCode);
     synchronized (bucket)
     {
-      for (final DNLockHolder lock : bucket)
+      for (DNLockHolder lock = bucket.head; lock != null; lock = lock.next)
       {
         if (lock.dnHashCode == dnHashCode && lock.dn.equals(dn))
         {
@@ -396,55 +516,83 @@ public final class LockManager
     }
   }
 
+  /** For unit testing. */
+  int getNumberOfPooledLocks()
+  {
+    int numberOfPooledLocks = 0;
+    for (final Bucket bucket : lockTable)
+    {
+      synchronized (bucket)
+      {
+        numberOfPooledLocks += bucket.poolSize;
+      }
+    }
+    return numberOfPooledLocks;
+  }
+
   /** For unit testing. */
   int getThreadLocalCacheRefCountFor(final DN dn)
   {
-    final LinkedList<DNLockHolder> cache = threadLocalCache.get();
+    final DNLockHolder[] cache = threadLocalCache.get();
     if (cache == null)
     {
       return -1;
     }
-    final int dnHashCode = dn.hashCode();
-    for (final DNLockHolder lock : cache)
-    {
-      if (lock.dnHashCode == dnHashCode && lock.dn.equals(dn))
-      {
-        return lock.refCount.get();
-      }
-    }
-    return -1;
+    final int index = indexOf(cache, dn, dn.hashCode());
+    return index >= 0 ? cache[index].refCount.get() : -1;
   }
 
   private DNLockHolder acquireLockFromCache(final DN dn)
   {
-    LinkedList<DNLockHolder> cache = threadLocalCache.get();
+    DNLockHolder[] cache = threadLocalCache.get();
     if (cache == null)
     {
-      cache = new LinkedList<>();
+      cache = new DNLockHolder[THREAD_LOCAL_CACHE_SIZE];
       threadLocalCache.set(cache);
     }
     return acquireLockFromCache0(dn, cache);
   }
 
-  private DNLockHolder acquireLockFromCache0(final DN dn, final LinkedList<DNLockHolder> cache)
+  private DNLockHolder acquireLockFromCache0(final DN dn, final DNLockHolder[] cache)
   {
     final int dnHashCode = dn.hashCode();
-    DNLockHolder lock = removeLock(cache, dn, dnHashCode);
-    if (lock == null)
+    int index = indexOf(cache, dn, dnHashCode);
+    final DNLockHolder lock;
+    if (index >= 0)
+    {
+      lock = cache[index];
+    }
+    else
     {
       lock = acquireLockFromLockTable(dn, dnHashCode, cache);
-      if (cache.size() >= THREAD_LOCAL_CACHE_SIZE)
+      index = THREAD_LOCAL_CACHE_SIZE - 1;
+      if (cache[index] != null)
       {
-        // Cache too big: evict oldest entry.
-        dereference(cache.removeLast());
+        // Cache full: evict oldest entry.
+        dereference(cache[index]);
       }
     }
-    cache.addFirst(lock); // optimize for LRU
+    // Move the lock to the front in order to optimize for LRU.
+    System.arraycopy(cache, 0, cache, 1, index);
+    cache[0] = lock;
     lock.refCount.incrementAndGet();
     return lock;
   }
 
-  private DNLockHolder acquireLockFromLockTable(final DN dn, final int dnHashCode, final LinkedList<DNLockHolder> cache)
+  private static int indexOf(final DNLockHolder[] cache, final DN dn, final int dnHashCode)
+  {
+    for (int i = 0; i < cache.length && cache[i] != null; i++)
+    {
+      final DNLockHolder lock = cache[i];
+      if (lock.dnHashCode == dnHashCode && lock.dn.equals(dn))
+      {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private DNLockHolder acquireLockFromLockTable(final DN dn, final int dnHashCode, final DNLockHolder[] cache)
   {
     /*
      * The lock doesn't exist yet so we'll have to create a new one referencing its parent lock. The
@@ -459,16 +607,18 @@ public final class LockManager
     boolean parentLockWasUsed = false;
     try
     {
-      final LinkedList<DNLockHolder> bucket = getBucket(dnHashCode);
+      final Bucket bucket = getBucket(dnHashCode);
       synchronized (bucket)
       {
         DNLockHolder lock = removeLock(bucket, dn, dnHashCode);
         if (lock == null)
         {
-          lock = new DNLockHolder(parentLock, dn, dnHashCode);
+          lock = newLock(bucket, parentLock, dn, dnHashCode);
           parentLockWasUsed = true;
         }
-        bucket.addFirst(lock); // optimize for LRU
+        // Optimize for LRU.
+        lock.next = bucket.head;
+        bucket.head = lock;
         lock.refCount.incrementAndGet();
         return lock;
       }
@@ -484,32 +634,67 @@ public final class LockManager
 
   private void dereference(final DNLockHolder lock)
   {
-    if (lock.refCount.decrementAndGet() <= 0)
+    // Lock free unless this is the last reference, which may only be released while holding the bucket.
+    for (;;)
     {
-      final LinkedList<DNLockHolder> bucket = getBucket(lock.dnHashCode);
-      boolean lockWasRemoved = false;
-      synchronized (bucket)
+      final int refCount = lock.refCount.get();
+      if (refCount <= 1)
       {
-        // Double check: another thread could have acquired the lock since we decremented it to zero.
-        if (lock.refCount.get() <= 0)
-        {
-          removeLock(bucket, lock.dn, lock.dnHashCode);
-          lockWasRemoved = true;
-        }
+        break;
+      }
+      if (lock.refCount.compareAndSet(refCount, refCount - 1))
+      {
+        return;
       }
+    }
 
-      /*
-       * Dereference the parent outside of the bucket lock to avoid potential deadlocks due to
-       * reentrant bucket locks.
-       */
-      if (lockWasRemoved && lock.parent != null)
+    final Bucket bucket = getBucket(lock.dnHashCode);
+    final DNLockHolder parent;
+    synchronized (bucket)
+    {
+      if (lock.refCount.decrementAndGet() > 0)
       {
-        dereference(lock.parent);
+        // Another thread acquired the lock from the lock table in the meantime.
+        return;
       }
+      removeLock(bucket, lock.dn, lock.dnHashCode);
+      parent = lock.parent;
+      if (bucket.poolSize < MAXIMUM_NUMBER_OF_POOLED_LOCKS_PER_BUCKET)
+      {
+        lock.init(null, null, 0);
+        lock.next = bucket.pool;
+        bucket.pool = lock;
+        bucket.poolSize++;
+      }
+    }
+
+    /*
+     * Dereference the parent outside of the bucket lock to avoid potential deadlocks due to
+     * reentrant bucket locks.
+     */
+    if (parent != null)
+    {
+      dereference(parent);
     }
   }
 
-  private LinkedList<DNLockHolder> getBucket(final int dnHashCode)
+  private DNLockHolder newLock(final Bucket bucket, final DNLockHolder parent, final DN dn, final int dnHashCode)
+  {
+    DNLockHolder lock = bucket.pool;
+    if (lock != null)
+    {
+      bucket.pool = lock.next;
+      bucket.poolSize--;
+    }
+    else
+    {
+      lock = new DNLockHolder();
+    }
+    lock.init(parent, dn, dnHashCode);
+    return lock;
+  }
+
+  private Bucket getBucket(final int dnHashCode)
   {
     return lockTable[dnHashCode & numberOfBuckets - 1];
   }
@@ -520,7 +705,7 @@ public final class LockManager
    */
   private int getNumberOfBuckets(final int buckets)
   {
-    final int roundedNumberOfBuckets = Math.min(buckets, MINIMUM_NUMBER_OF_BUCKETS);
+    final int roundedNumberOfBuckets = Math.max(buckets, MINIMUM_NUMBER_OF_BUCKETS);
     int powerOf2 = 1;
     while (powerOf2 < roundedNumberOfBuckets)
     {
@@ -529,16 +714,23 @@ public final class LockManager
     return powerOf2;
   }
 
-  private DNLockHolder removeLock(final LinkedList<DNLockHolder> lockList, final DN dn, final int dnHashCode)
+  private DNLockHolder removeLock(final Bucket bucket, final DN dn, final int dnHashCode)
   {
-    final Iterator<DNLockHolder> iterator = lockList.iterator();
-    while (iterator.hasNext())
+    DNLockHolder previous = null;
+    for (DNLockHolder lock = bucket.head; lock != null; previous = lock, lock = lock.next)
     {
-      final DNLockHolder lock = iterator.next();
       if (lock.dnHashCode == dnHashCode && lock.dn.equals(dn))
       {
         // Found: remove the lock because it will be moved to the front of the list.
-        iterator.remove();
+        if (previous == null)
+        {
+          bucket.head = lock.next;
+        }
+        else
+        {
+          previous.next = lock.next;
+        }
+        lock.next = null;
         return lock;
       }
     }
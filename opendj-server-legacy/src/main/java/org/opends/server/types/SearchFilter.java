@@ -14,6 +14,7 @@
  * Copyright 2006-2009 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
  * Portions Copyright 2013-2014 Manuel Gaupp
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
@@ -25,6 +26,7 @@ import static org.opends.server.util.StaticUtils.*;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -90,6 +92,43 @@ public final class SearchFilter
   /** The matching rule ID for this search filter. */
   private final String matchingRuleID;
 
+  /**
+   * The AND or OR filter components sorted by increasing evaluation cost,
+   * lazily computed the first time this filter is evaluated.
+   */
+  private volatile SearchFilter[] evaluationOrder;
+  /**
+   * The matching rule and normalized assertion of equality, ordering,
+   * substring, approximate and extensible match filters, lazily computed the
+   * first time this filter is evaluated.
+   */
+  private volatile NormalizedAssertion normalizedAssertion;
+
+  /**
+   * The matching rule and normalized assertion value of a filter, which only
+   * depend on the schema and can therefore be reused for all the candidate
+   * entries.
+   */
+  private static final class NormalizedAssertion
+  {
+    /**
+     * The schema which was used for decoding the matching rule of an
+     * extensible match filter, or {@code null} for other filters.
+     */
+    private final Schema schema;
+    /** The matching rule, or {@code null} if the filter is undefined. */
+    private final MatchingRule matchingRule;
+    /** The normalized assertion, or {@code null} if the filter is undefined. */
+    private final Assertion assertion;
+
+    private NormalizedAssertion(Schema schema, MatchingRule matchingRule, Assertion assertion)
+    {
+      this.schema = schema;
+      this.matchingRule = matchingRule;
+      this.assertion = assertion;
+    }
+  }
+
   private SearchFilter(FilterType filterType,
                       Collection<SearchFilter> filterComponents,
                       SearchFilter notComponent,
@@ -2223,6 +2262,83 @@ public final class SearchFilter
 
 
 
+  /**
+   * Returns the components of this AND or OR filter sorted by increasing
+   * evaluation cost, so that the components which are the cheapest to
+   * evaluate, and are therefore the most likely to short-circuit the
+   * evaluation, are evaluated first. Since the result of AND and OR filters
+   * does not depend on the order of their components, this does not change
+   * the outcome of the evaluation.
+   *
+   * @return  The components of this AND or OR filter sorted by increasing
+   *          evaluation cost.
+   */
+  private SearchFilter[] getEvaluationOrder()
+  {
+    SearchFilter[] order = evaluationOrder;
+    if (order == null)
+    {
+      // Benign race: this filter is immutable, so all threads compute the same order.
+      List<SearchFilter> components = new ArrayList<>(filterComponents);
+      Collections.sort(components, new Comparator<SearchFilter>()
+      {
+        @Override
+        public int compare(SearchFilter f1, SearchFilter f2)
+        {
+          return Integer.compare(f1.getEvaluationCost(), f2.getEvaluationCost());
+        }
+      });
+      order = components.toArray(new SearchFilter[components.size()]);
+      evaluationOrder = order;
+    }
+    return order;
+  }
+
+
+
+  /**
+   * Returns an estimate of the relative cost of evaluating this filter
+   * against an entry.
+   *
+   * @return  An estimate of the relative cost of evaluating this filter.
+   */
+  private int getEvaluationCost()
+  {
+    switch (filterType)
+    {
+      case AND:
+      case OR:
+        int cost = 0;
+        for (SearchFilter f : filterComponents)
+        {
+          cost += f.getEvaluationCost();
+        }
+        return cost;
+      case NOT:
+        return notComponent != null ? notComponent.getEvaluationCost() : 0;
+      case PRESENT:
+        // No values need to be normalized.
+        return 1;
+      case EQUALITY:
+        // The normalized values of real attributes are cached.
+        return 2;
+      case GREATER_OR_EQUAL:
+      case LESS_OR_EQUAL:
+        return 3;
+      case APPROXIMATE_MATCH:
+      case SUBSTRING:
+        return 4;
+      case EXTENSIBLE_MATCH:
+        // Matching all the attributes or the DN of the entry is expensive.
+        int extensibleCost = attributeDescription != null ? 5 : 20;
+        return dnAttributes ? extensibleCost + 20 : extensibleCost;
+      default:
+        return 0;
+    }
+  }
+
+
+
   /**
    * Indicates whether the this AND filter matches the provided entry.
    *
@@ -2280,7 +2396,11 @@ public final class SearchFilter
         throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(), message);
       }
 
-      for (SearchFilter f : filterComponents)
+      // Per RFC 4511, the AND filter is FALSE as soon as one component is
+      // FALSE, even if another one is undefined, so the result does not
+      // depend on the order in which the components are evaluated.
+      ConditionResult andResult = ConditionResult.TRUE;
+      for (SearchFilter f : getEvaluationOrder())
       {
         ConditionResult result =
              f.matchesEntryInternal(completeFilter, entry, depth + 1);
@@ -2304,7 +2424,8 @@ public final class SearchFilter
              "Undefined result for AND component %s in filter " +
              "%s for entry %s", f, completeFilter, entry.getName());
             }
-            return result;
+            andResult = ConditionResult.UNDEFINED;
+            break;
           default:
             LocalizableMessage message =
                 ERR_SEARCH_FILTER_INVALID_RESULT_TYPE.
@@ -2313,15 +2434,14 @@ public final class SearchFilter
         }
       }
 
-      // If we have gotten here, then all the components must have
-      // matched.
+      // If we have gotten here, then none of the components were false.
       if (logger.isTraceEnabled())
       {
         logger.trace(
-            "Returning TRUE for AND component %s in filter %s " +
-            "for entry %s", this, completeFilter, entry.getName());
+            "Returning %s for AND component %s in filter %s " +
+            "for entry %s", andResult, this, completeFilter, entry.getName());
       }
-      return ConditionResult.TRUE;
+      return andResult;
     }
   }
 
@@ -2389,7 +2509,7 @@ public final class SearchFilter
       }
 
       ConditionResult result = ConditionResult.FALSE;
-      for (SearchFilter f : filterComponents)
+      for (SearchFilter f : getEvaluationOrder())
       {
         switch (f.matchesEntryInternal(completeFilter, entry,
                                depth+1))
@@ -2604,7 +2724,7 @@ public final class SearchFilter
     ConditionResult result = ConditionResult.FALSE;
     for (Attribute a : attrs)
     {
-      final ConditionResult cr = a.matchesEqualityAssertion(assertionValue);
+      final ConditionResult cr = matchesAttribute(a);
       if (cr == ConditionResult.TRUE)
       {
         if (logger.isTraceEnabled())
@@ -2633,6 +2753,118 @@ public final class SearchFilter
 
 
 
+  /**
+   * Indicates whether the provided attribute matches this equality,
+   * substring, ordering or approximate filter. The assertion is normalized
+   * once by the matching rule of the attribute, and then reused for all the
+   * candidate entries. Virtual attributes are matched by their provider.
+   *
+   * @param  a  The attribute for which to make the determination.
+   *
+   * @return  <CODE>TRUE</CODE> if the attribute matches this filter,
+   *          <CODE>FALSE</CODE> if it does not, or
+   *          <CODE>UNDEFINED</CODE> if the result is undefined.
+   */
+  private ConditionResult matchesAttribute(Attribute a)
+  {
+    final AttributeType attributeType = a.getAttributeDescription().getAttributeType();
+    final MatchingRule matchingRule;
+    switch (filterType)
+    {
+      case EQUALITY:
+        if (a.isVirtual())
+        {
+          return a.matchesEqualityAssertion(assertionValue);
+        }
+        matchingRule = attributeType.getEqualityMatchingRule();
+        break;
+      case SUBSTRING:
+        if (a.isVirtual())
+        {
+          return a.matchesSubstring(subInitialElement, subAnyElements, subFinalElement);
+        }
+        matchingRule = attributeType.getSubstringMatchingRule();
+        break;
+      case GREATER_OR_EQUAL:
+        if (a.isVirtual())
+        {
+          return a.greaterThanOrEqualTo(assertionValue);
+        }
+        matchingRule = attributeType.getOrderingMatchingRule();
+        break;
+      case LESS_OR_EQUAL:
+        if (a.isVirtual())
+        {
+          return a.lessThanOrEqualTo(assertionValue);
+        }
+        matchingRule = attributeType.getOrderingMatchingRule();
+        break;
+      case APPROXIMATE_MATCH:
+        if (a.isVirtual())
+        {
+          return a.approximatelyEqualTo(assertionValue);
+        }
+        matchingRule = attributeType.getApproximateMatchingRule();
+        break;
+      default:
+        throw new IllegalStateException("Unexpected filter type " + filterType);
+    }
+    if (matchingRule == null)
+    {
+      return ConditionResult.UNDEFINED;
+    }
+
+    // Subtypes of the attribute type of this filter may use other matching rules.
+    NormalizedAssertion compiled = normalizedAssertion;
+    if (compiled == null || compiled.matchingRule != matchingRule)
+    {
+      compiled = new NormalizedAssertion(null, matchingRule, createAssertion(matchingRule));
+      normalizedAssertion = compiled;
+    }
+    if (compiled.assertion == null)
+    {
+      return ConditionResult.UNDEFINED;
+    }
+    return a.matchesAssertion(matchingRule, compiled.assertion);
+  }
+
+
+
+  /**
+   * Normalizes the assertion value or substring elements of this equality,
+   * substring, ordering or approximate filter using the provided matching
+   * rule.
+   *
+   * @param  matchingRule  The matching rule of the attribute being matched.
+   *
+   * @return  The normalized assertion, or {@code null} if it cannot be
+   *          normalized by the provided matching rule.
+   */
+  private Assertion createAssertion(MatchingRule matchingRule)
+  {
+    try
+    {
+      switch (filterType)
+      {
+        case SUBSTRING:
+          return matchingRule.getSubstringAssertion(subInitialElement, subAnyElements, subFinalElement);
+        case GREATER_OR_EQUAL:
+          return matchingRule.getGreaterOrEqualAssertion(assertionValue);
+        case LESS_OR_EQUAL:
+          return matchingRule.getLessOrEqualAssertion(assertionValue);
+        default:
+          return matchingRule.getAssertion(assertionValue);
+      }
+    }
+    catch (DecodeException e)
+    {
+      logger.traceException(e);
+      return null;
+    }
+  }
+
+
+
   /**
    * Indicates whether the this substring filter matches the provided
    * entry.
@@ -2695,9 +2927,7 @@ public final class SearchFilter
     ConditionResult result = ConditionResult.FALSE;
     for (Attribute a : attrs)
     {
-      switch (a.matchesSubstring(subInitialElement,
-                                 subAnyElements,
-                                 subFinalElement))
+      switch (matchesAttribute(a))
       {
         case TRUE:
           if (logger.isTraceEnabled())
@@ -2794,7 +3024,7 @@ public final class SearchFilter
     ConditionResult result = ConditionResult.FALSE;
     for (Attribute a : attrs)
     {
-      switch (a.greaterThanOrEqualTo(assertionValue))
+      switch (matchesAttribute(a))
       {
         case TRUE:
           if (logger.isTraceEnabled())
@@ -2893,7 +3123,7 @@ public final class SearchFilter
     ConditionResult result = ConditionResult.FALSE;
     for (Attribute a : attrs)
     {
-      switch (a.lessThanOrEqualTo(assertionValue))
+      switch (matchesAttribute(a))
       {
         case TRUE:
           if (logger.isTraceEnabled())
@@ -3036,7 +3266,7 @@ public final class SearchFilter
     ConditionResult result = ConditionResult.FALSE;
     for (Attribute a : attrs)
     {
-      switch (a.approximatelyEqualTo(assertionValue))
+      switch (matchesAttribute(a))
       {
         case TRUE:
           if (logger.isTraceEnabled())
@@ -3110,84 +3340,21 @@ public final class SearchFilter
     }
 
 
-    MatchingRule matchingRule = null;
-
-    if (matchingRuleID != null)
-    {
-      try
-      {
-        matchingRule = getSchema().getMatchingRule(matchingRuleID);
-      }
-      catch (UnknownSchemaElementException e)
-      {
-        logger.trace("Unknown matching rule %s defined in extensibleMatch "
-            + "component of filter %s -- returning undefined.", matchingRuleID, this);
-        return ConditionResult.UNDEFINED;
-      }
-    }
-    else
-    {
-      if (getAttributeType() == null)
-      {
-        LocalizableMessage message =
-            ERR_SEARCH_FILTER_EXTENSIBLE_MATCH_NO_RULE_OR_TYPE.
-              get(entry.getName(), completeFilter);
-        throw new DirectoryException(ResultCode.PROTOCOL_ERROR,
-                                     message);
-      }
-      else
-      {
-        matchingRule = getAttributeType().getEqualityMatchingRule();
-        if (matchingRule == null)
-        {
-          if (logger.isTraceEnabled())
-          {
-            logger.trace(
-             "Attribute type %s does not have an equality matching " +
-             "rule -- returning undefined.",
-                getAttributeType().getNameOrOID());
-          }
-          return ConditionResult.UNDEFINED;
-        }
-      }
-    }
-
-
-    // If there is an attribute type, then check to see if there is a
-    // corresponding matching rule use for the matching rule and
-    // determine if it allows that attribute type.
-    if (getAttributeType() != null)
-    {
-      try
-      {
-        MatchingRuleUse mru = getSchema().getMatchingRuleUse(matchingRule);
-        if (!mru.hasAttribute(getAttributeType()))
-        {
-          logger.trace("Attribute type %s is not allowed for use with "
-              + "matching rule %s because of matching rule use definition %s",
-              getAttributeType().getNameOrOID(), matchingRule.getNameOrOID(), mru.getNameOrOID());
-          return ConditionResult.UNDEFINED;
-        }
-      }
-      catch (UnknownSchemaElementException ignored)
-      {
-      }
-    }
-
-
-    // Normalize the assertion value using the matching rule.
-    Assertion assertion;
-    try
+    // The matching rule and the normalized assertion only depend on the
+    // schema, so they are decoded once rather than for each candidate entry.
+    final Schema schema = getSchema();
+    NormalizedAssertion compiled = normalizedAssertion;
+    if (compiled == null || compiled.schema != schema)
     {
-      assertion = matchingRule.getAssertion(assertionValue);
+      compiled = decodeExtensibleMatchAssertion(completeFilter, entry, schema);
+      normalizedAssertion = compiled;
     }
-    catch (Exception e)
+    if (compiled.assertion == null)
     {
-      logger.traceException(e);
-
-      // We can't normalize the assertion value, so the result must be undefined.
       return ConditionResult.UNDEFINED;
     }
+    final MatchingRule matchingRule = compiled.matchingRule;
+    final Assertion assertion = compiled.assertion;
 
 
     // If there is an attribute type, then we should only check for
@@ -3298,6 +3465,110 @@ public final class SearchFilter
     return result;
   }
 
+  /**
+   * Decodes the matching rule and normalizes the assertion value of this
+   * extensible match filter.
+   *
+   * @param  completeFilter  The complete filter being checked, of
+   *                         which this filter may be a subset.
+   * @param  entry           The entry for which to make the
+   *                         determination.
+   * @param  schema          The schema to use for decoding the matching
+   *                         rule and the assertion value.
+   *
+   * @return  The decoded matching rule and normalized assertion, whose
+   *          assertion is {@code null} if this filter is undefined for
+   *          the provided schema.
+   *
+   * @throws  DirectoryException  If this filter has neither a matching
+   *                              rule nor an attribute type.
+   */
+  private NormalizedAssertion decodeExtensibleMatchAssertion(
+      SearchFilter completeFilter, Entry entry, Schema schema)
+      throws DirectoryException
+  {
+    final NormalizedAssertion undefined = new NormalizedAssertion(schema, null, null);
+    MatchingRule matchingRule = null;
+
+    if (matchingRuleID != null)
+    {
+      try
+      {
+        matchingRule = schema.getMatchingRule(matchingRuleID);
+      }
+      catch (UnknownSchemaElementException e)
+      {
+        logger.trace("Unknown matching rule %s defined in extensibleMatch "
+            + "component of filter %s -- returning undefined.", matchingRuleID, this);
+        return undefined;
+      }
+    }
+    else
+    {
+      if (getAttributeType() == null)
+      {
+        LocalizableMessage message =
+            ERR_SEARCH_FILTER_EXTENSIBLE_MATCH_NO_RULE_OR_TYPE.
+              get(entry.getName(), completeFilter);
+        throw new DirectoryException(ResultCode.PROTOCOL_ERROR,
+                                     message);
+      }
+      else
+      {
+        matchingRule = getAttributeType().getEqualityMatchingRule();
+        if (matchingRule == null)
+        {
+          if (logger.isTraceEnabled())
+          {
+            logger.trace(
+             "Attribute type %s does not have an equality matching " +
+             "rule -- returning undefined.",
+                getAttributeType().getNameOrOID());
+          }
+          return undefined;
+        }
+      }
+    }
+
+
+    // If there is an attribute type, then check to see if there is a
+    // corresponding matching rule use for the matching rule and
+    // determine if it allows that attribute type.
+    if (getAttributeType() != null)
+    {
+      try
+      {
+        MatchingRuleUse mru = schema.getMatchingRuleUse(matchingRule);
+        if (!mru.hasAttribute(getAttributeType()))
+        {
+          logger.trace("Attribute type %s is not allowed for use with "
+              + "matching rule %s because of matching rule use definition %s",
+              getAttributeType().getNameOrOID(), matchingRule.getNameOrOID(), mru.getNameOrOID());
+          return undefined;
+        }
+      }
+      catch (UnknownSchemaElementException ignored)
+      {
+      }
+    }
+
+
+    // Normalize the assertion value using the matching rule.
+    Assertion assertion;
+    try
+    {
+      assertion = matchingRule.getAssertion(assertionValue);
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+
+      // We can't normalize the assertion value, so the result must be undefined.
+      return undefined;
+    }
+    return new NormalizedAssertion(schema, matchingRule, assertion);
+  }
+
   private static Schema getSchema()
   {
     return DirectoryServer.getInstance().getServerContext().getSchema();
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
@@ -126,6 +127,19 @@ public final class SubtreeSpecification
       return true;
     }
 
+    @Override
+    public boolean dependsOnObjectClassesOnly()
+    {
+      for (final Refinement refinement : refinementSet)
+      {
+        if (!refinement.dependsOnObjectClassesOnly())
+        {
+          return false;
+        }
+      }
+      return true;
+    }
+
     @Override
     public StringBuilder toString(final StringBuilder builder)
     {
@@ -210,6 +224,12 @@ public final class SubtreeSpecification
       }
     }
 
+    @Override
+    public boolean dependsOnObjectClassesOnly()
+    {
+      return false;
+    }
+
     @Override
     public StringBuilder toString(final StringBuilder builder)
     {
@@ -277,6 +297,12 @@ public final class SubtreeSpecification
       return !oc.isPlaceHolder() && entry.hasObjectClass(oc);
     }
 
+    @Override
+    public boolean dependsOnObjectClassesOnly()
+    {
+      return true;
+    }
+
     @Override
     public StringBuilder toString(final StringBuilder builder)
     {
@@ -338,6 +364,12 @@ public final class SubtreeSpecification
       return !refinement.matches(entry);
     }
 
+    @Override
+    public boolean dependsOnObjectClassesOnly()
+    {
+      return refinement.dependsOnObjectClassesOnly();
+    }
+
     @Override
     public StringBuilder toString(final StringBuilder builder)
     {
@@ -407,6 +439,19 @@ public final class SubtreeSpecification
       return false;
     }
 
+    @Override
+    public boolean dependsOnObjectClassesOnly()
+    {
+      for (final Refinement refinement : refinementSet)
+      {
+        if (!refinement.dependsOnObjectClassesOnly())
+        {
+          return false;
+        }
+      }
+      return true;
+    }
+
     @Override
     public StringBuilder toString(final StringBuilder builder)
     {
@@ -461,6 +506,16 @@ public final class SubtreeSpecification
      */
     public abstract boolean matches(Entry entry);
 
+    /**
+     * Indicates whether the refinement only depends on the object
+     * classes of the entries.
+     *
+     * @return Returns <code>true</code> if the refinement only
+     *         depends on the object classes of the entries, or
+     *         <code>false</code> otherwise.
+     */
+    public abstract boolean dependsOnObjectClassesOnly();
+
     @Override
     public final String toString()
     {
@@ -1322,6 +1377,38 @@ public final class SubtreeSpecification
     return true;
   }
 
+  /**
+   * Determine if the entries immediately below the specified DN which
+   * have the same object classes are either all within the scope of
+   * the subtree specification, or all outside of it, provided that the
+   * specified DN is subordinate to or equal to the base DN.
+   *
+   * @param parentDN
+   *          The distinguished name of the parent of the entries.
+   * @return Returns <code>true</code> if the scope of the subtree
+   *         specification only depends on the object classes of the
+   *         entries immediately below the specified DN, or
+   *         <code>false</code> if it also depends on their RDN or on
+   *         their other attributes.
+   */
+  public boolean isScopeUniformBelow(final DN parentDN)
+  {
+    if (refinements != null && !refinements.dependsOnObjectClassesOnly())
+    {
+      return false;
+    }
+
+    // A chop before exclusion only excludes one of the entries.
+    for (final DN chopBeforeDN : chopBefore.keySet())
+    {
+      if (parentDN.equals(chopBeforeDN.parent()))
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * Determine if an entry is within the scope of the subtree
    * specification.
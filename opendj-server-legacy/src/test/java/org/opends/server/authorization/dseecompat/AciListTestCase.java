@@ -0,0 +1,139 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.authorization.dseecompat;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.opends.server.authorization.dseecompat.Aci.*;
+
+import java.util.Collections;
+import java.util.TreeSet;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.types.DirectoryException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class AciListTestCase extends DirectoryServerTestCase
+{
+  private static final DN CONFIG_DN = DN.valueOf("cn=Access Control Handler,cn=config");
+  private static final DN SUFFIX_DN = DN.valueOf("o=test");
+  private static final DN PEOPLE_DN = DN.valueOf("ou=People,o=test");
+  private static final DN USER_DN = DN.valueOf("uid=user.1,ou=People,o=test");
+
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startFakeServer();
+  }
+
+  @AfterClass
+  public void tearDown() throws DirectoryException
+  {
+    TestCaseUtils.shutdownFakeServer();
+  }
+
+  @Test
+  public void candidatesAreFilteredByRights() throws Exception
+  {
+    AciList aciList = new AciList(CONFIG_DN);
+    Aci readAci = addAci(aciList, SUFFIX_DN,
+        "(version 3.0; acl \"read\"; allow(read,search) userdn=\"ldap:///anyone\";)");
+    Aci writeAci = addAci(aciList, PEOPLE_DN,
+        "(version 3.0; acl \"write\"; allow(write) userdn=\"ldap:///self\";)");
+    Aci extOpAci = addAci(aciList, SUFFIX_DN.parent(),
+        "(extop=\"1.3.6.1.4.1.4203.1.11.3\")(version 3.0; acl \"extop\"; allow(read) userdn=\"ldap:///all\";)");
+
+    assertThat(aciList.getCandidateAcis(USER_DN, ACI_READ)).containsExactly(readAci);
+    assertThat(aciList.getCandidateAcis(USER_DN, ACI_WRITE)).containsExactly(writeAci);
+    assertThat(aciList.getCandidateAcis(USER_DN, ACI_EXT_OP)).containsExactly(extOpAci);
+    assertThat(aciList.getCandidateAcis(USER_DN)).contains(readAci, writeAci, extOpAci);
+  }
+
+  @Test
+  public void candidatesAreRecompiledWhenAcisChange() throws Exception
+  {
+    AciList aciList = new AciList(CONFIG_DN);
+    Aci suffixAci = addAci(aciList, SUFFIX_DN,
+        "(version 3.0; acl \"suffix\"; allow(read) userdn=\"ldap:///anyone\";)");
+    assertThat(aciList.getCandidateAcis(USER_DN, ACI_READ)).containsExactly(suffixAci);
+
+    long generation = aciList.getGeneration();
+    Aci peopleAci = addAci(aciList, PEOPLE_DN,
+        "(version 3.0; acl \"people\"; allow(read) userdn=\"ldap:///all\";)");
+    assertThat(aciList.getGeneration()).isNotEqualTo(generation);
+    assertThat(aciList.getCandidateAcis(USER_DN, ACI_READ)).containsExactly(peopleAci, suffixAci);
+
+    Aci userAci = addAci(aciList, USER_DN,
+        "(version 3.0; acl \"user\"; deny(read) userdn=\"ldap:///self\";)");
+    assertThat(aciList.getCandidateAcis(USER_DN, ACI_READ)).containsExactly(userAci, peopleAci, suffixAci);
+  }
+
+  @Test
+  public void entryIndependentAcisAreSharedBySiblings() throws Exception
+  {
+    AciList aciList = new AciList(CONFIG_DN);
+    addAci(aciList, SUFFIX_DN,
+        "(targetattr=\"*\")(version 3.0; acl \"read\"; allow(read) userdn=\"ldap:///all\";)");
+    addAci(aciList, PEOPLE_DN,
+        "(targetattr=\"cn\")(version 3.0; acl \"group\"; deny(read) groupdn=\"ldap:///cn=group,o=test\";)");
+
+    CompiledAcis acis = aciList.getEntryIndependentAcis(USER_DN, ACI_READ);
+    assertThat(acis).isNotNull();
+    assertThat(aciList.getEntryIndependentAcis(DN.valueOf("uid=user.2,ou=People,o=test"), ACI_READ)).isSameAs(acis);
+    assertThat(aciList.getEntryIndependentAcis(DN.valueOf("ou=Groups,o=test"), ACI_READ)).isNotNull().isNotSameAs(acis);
+    // Holds an ACI of its own
+    assertThat(aciList.getEntryIndependentAcis(PEOPLE_DN, ACI_READ)).isNull();
+  }
+
+  @Test
+  public void acisDependingOnTheEntryAreNotEntryIndependent() throws Exception
+  {
+    AciList aciList = new AciList(CONFIG_DN);
+    addAci(aciList, SUFFIX_DN,
+        "(targetfilter=\"(objectClass=person)\")(version 3.0; acl \"filter\"; allow(read) userdn=\"ldap:///all\";)");
+    assertThat(aciList.getEntryIndependentAcis(USER_DN, ACI_READ)).isNull();
+    assertThat(aciList.getEntryIndependentAcis(USER_DN, ACI_WRITE)).isNotNull();
+
+    aciList = new AciList(CONFIG_DN);
+    addAci(aciList, SUFFIX_DN,
+        "(version 3.0; acl \"self\"; allow(read) userdn=\"ldap:///self\";)");
+    assertThat(aciList.getEntryIndependentAcis(USER_DN, ACI_READ)).isNull();
+
+    aciList = new AciList(CONFIG_DN);
+    addAci(aciList, SUFFIX_DN,
+        "(target=\"ldap:///uid=user.1,ou=People,o=test\")(version 3.0; acl \"target\"; "
+        + "allow(read) userdn=\"ldap:///all\";)");
+    assertThat(aciList.getEntryIndependentAcis(USER_DN, ACI_READ)).isNull();
+    assertThat(aciList.getEntryIndependentAcis(PEOPLE_DN, ACI_READ)).isNotNull();
+
+    aciList = new AciList(CONFIG_DN);
+    addAci(aciList, USER_DN,
+        "(version 3.0; acl \"user\"; allow(read) userdn=\"ldap:///all\";)");
+    assertThat(aciList.getEntryIndependentAcis(USER_DN, ACI_READ)).isNull();
+  }
+
+  private Aci addAci(AciList aciList, DN dn, String aciString) throws Exception
+  {
+    Aci aci = Aci.decode(ByteString.valueOfUtf8(aciString), dn);
+    aciList.addAci(dn, new TreeSet<>(Collections.singleton(aci)));
+    return aci;
+  }
+}
@@ -0,0 +1,278 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.authorization.dseecompat;
+
+import static org.forgerock.opendj.ldap.ModificationType.*;
+import static org.forgerock.opendj.ldap.requests.Requests.*;
+import static org.opends.server.config.ConfigConstants.*;
+import static org.opends.server.protocols.internal.InternalClientConnection.*;
+import static org.opends.server.util.CollectionUtils.*;
+import static org.testng.Assert.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.api.DITCacheMap;
+import org.opends.server.authorization.dseecompat.BindRuleCache.AttributeDecision;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.GroupManager;
+import org.opends.server.protocols.internal.InternalClientConnection;
+import org.opends.server.protocols.ldap.LDAPAttribute;
+import org.opends.server.protocols.ldap.LDAPMessage;
+import org.opends.server.protocols.ldap.SearchResultDoneProtocolOp;
+import org.opends.server.protocols.ldap.SearchResultEntryProtocolOp;
+import org.opends.server.tools.RemoteConnection;
+import org.opends.server.types.AuthenticationInfo;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Tests the caching of the outcome of client-only bind rules on client connections. */
+@SuppressWarnings("javadoc")
+public class BindRuleCacheTestCase extends AciTestCase
+{
+  private static final String PEOPLE_BASE = "ou=People,o=test";
+  private static final String STATIC_GROUP_DN = "cn=group,ou=People,o=test";
+  private static final String DYNAMIC_GROUP_DN = "cn=group 4,ou=Nested Groups,o=test";
+  private static final String STATIC_MEMBER_DN = "uid=user.3,ou=People,o=test";
+  private static final String DYNAMIC_MEMBER_DN = "uid=user.5,ou=People,o=test";
+
+  @BeforeClass
+  public void setupClass() throws Exception
+  {
+    deleteAttrFromAdminEntry(ACCESS_HANDLER_DN, ATTR_AUTHZ_GLOBAL_ACI);
+    addEntries("o=test");
+  }
+
+  @BeforeMethod
+  public void clearAcis() throws Exception
+  {
+    deleteAttrFromEntry(PEOPLE_BASE, "aci");
+  }
+
+  @Test
+  public void testCacheIsReplacedWhenGenerationsOrClientChange() throws Exception
+  {
+    final InternalClientConnection connection = new InternalClientConnection(new AuthenticationInfo());
+    final DN clientDN = DN.valueOf(DYNAMIC_MEMBER_DN);
+
+    final BindRuleCache cache = BindRuleCache.getInstance(connection, 1, 1, clientDN);
+    assertSame(BindRuleCache.getInstance(connection, 1, 1, clientDN), cache);
+    assertNotSame(BindRuleCache.getInstance(connection, 2, 1, clientDN), cache);
+
+    final BindRuleCache cache2 = BindRuleCache.getInstance(connection, 2, 1, clientDN);
+    assertNotSame(BindRuleCache.getInstance(connection, 2, 2, clientDN), cache2);
+
+    final BindRuleCache cache3 = BindRuleCache.getInstance(connection, 2, 2, clientDN);
+    assertNotSame(BindRuleCache.getInstance(connection, 2, 2, DN.valueOf(STATIC_MEMBER_DN)), cache3);
+  }
+
+  @Test
+  public void testOnlyDefiniteOutcomesAreCached() throws Exception
+  {
+    final InternalClientConnection connection = new InternalClientConnection(new AuthenticationInfo());
+    final BindRuleCache cache = BindRuleCache.getInstance(connection, 1, 1, DN.valueOf(DYNAMIC_MEMBER_DN));
+    final BindRule allowed = BindRule.decode("groupdn=\"ldap:///" + STATIC_GROUP_DN + "\"");
+    final BindRule failed = BindRule.decode("groupdn=\"ldap:///" + DYNAMIC_GROUP_DN + "\"");
+
+    cache.put(allowed, EnumEvalResult.TRUE);
+    cache.put(failed, EnumEvalResult.FAIL);
+
+    assertEquals(cache.get(allowed), EnumEvalResult.TRUE);
+    assertNull(cache.get(failed));
+  }
+
+  @Test
+  public void testFullDecisionCacheIsReplaced() throws Exception
+  {
+    final InternalClientConnection connection = new InternalClientConnection(new AuthenticationInfo());
+    final BindRuleCache cache = BindRuleCache.getInstance(connection, 1, 1, DN.valueOf(DYNAMIC_MEMBER_DN));
+    final AttributeType attrType = DirectoryServer.getInstance().getServerContext().getSchema().getAttributeType("cn");
+    final DN containerDN = DN.valueOf(PEOPLE_BASE);
+    final CompiledAcis staleAcis = CompiledAcis.compile(new DITCacheMap<List<Aci>>(), containerDN);
+    final CompiledAcis acis = CompiledAcis.compile(new DITCacheMap<List<Aci>>(), containerDN);
+
+    for (int i = 0; i < BindRuleCache.MAX_CACHED_DECISIONS; i++)
+    {
+      cache.putAttributeDecision(staleAcis, attrType, i, new AttributeDecision(true, i));
+    }
+    cache.putAttributeDecision(acis, attrType, 0, new AttributeDecision(false, 0));
+
+    assertNull(cache.getAttributeDecision(staleAcis, attrType, 0));
+    assertFalse(cache.getAttributeDecision(acis, attrType, 0).isAllowed());
+  }
+
+  @Test
+  public void testFilteredAttributesFollowAciAndGroupChanges() throws Exception
+  {
+    addGroupAci(STATIC_GROUP_DN, "uid");
+    try (RemoteConnection connection = new RemoteConnection("localhost", TestCaseUtils.getServerLdapPort()))
+    {
+      connection.bind(STATIC_MEMBER_DN, PWD);
+      assertEquals(getReadableAttributes(connection), newHashSet("uid"));
+      assertEquals(getReadableAttributes(connection), newHashSet("uid"));
+
+      deleteAttrFromEntry(PEOPLE_BASE, "aci");
+      addGroupAci(STATIC_GROUP_DN, "uid || sn");
+      assertEquals(getReadableAttributes(connection), newHashSet("uid", "sn"));
+
+      LDIFModify(makeDelLDIF("member", STATIC_GROUP_DN, STATIC_MEMBER_DN), DIR_MGR_DN, PWD);
+      try
+      {
+        assertNull(getReadableAttributes(connection));
+      }
+      finally
+      {
+        LDIFModify(makeAddLDIF("member", STATIC_GROUP_DN, STATIC_MEMBER_DN), DIR_MGR_DN, PWD);
+      }
+      assertEquals(getReadableAttributes(connection), newHashSet("uid", "sn"));
+    }
+  }
+
+  @Test
+  public void testMembershipGenerationTracksEntriesOfDynamicGroups() throws Exception
+  {
+    final GroupManager groupManager = DirectoryServer.getGroupManager();
+
+    long generation = groupManager.getMembershipGeneration();
+    replace("uid=user.1,ou=People,o=test", "description", "in the scope of the dynamic group");
+    assertNotEquals(groupManager.getMembershipGeneration(), generation);
+
+    generation = groupManager.getMembershipGeneration();
+    replace("uid=superuser,ou=admins,o=test", "description", "out of the scope of the dynamic group");
+    assertEquals(groupManager.getMembershipGeneration(), generation);
+  }
+
+  @Test
+  public void testDynamicGroupMembershipChangeOnOpenConnection() throws Exception
+  {
+    addGroupAci(DYNAMIC_GROUP_DN);
+    try (RemoteConnection connection = new RemoteConnection("localhost", TestCaseUtils.getServerLdapPort()))
+    {
+      connection.bind(DYNAMIC_MEMBER_DN, PWD);
+      assertEquals(countReadableUsers(connection), 1);
+
+      // The member no longer matches the member URL of the dynamic group.
+      replace(DYNAMIC_MEMBER_DN, "sn", "1");
+      try
+      {
+        assertEquals(countReadableUsers(connection), 0);
+      }
+      finally
+      {
+        replace(DYNAMIC_MEMBER_DN, "sn", "5");
+      }
+      assertEquals(countReadableUsers(connection), 1);
+    }
+  }
+
+  @Test
+  public void testStaticGroupMembershipChangeOnOpenConnection() throws Exception
+  {
+    addGroupAci(STATIC_GROUP_DN);
+    try (RemoteConnection connection = new RemoteConnection("localhost", TestCaseUtils.getServerLdapPort()))
+    {
+      connection.bind(STATIC_MEMBER_DN, PWD);
+      assertEquals(countReadableUsers(connection), 1);
+
+      LDIFModify(makeDelLDIF("member", STATIC_GROUP_DN, STATIC_MEMBER_DN), DIR_MGR_DN, PWD);
+      try
+      {
+        assertEquals(countReadableUsers(connection), 0);
+      }
+      finally
+      {
+        LDIFModify(makeAddLDIF("member", STATIC_GROUP_DN, STATIC_MEMBER_DN), DIR_MGR_DN, PWD);
+      }
+      assertEquals(countReadableUsers(connection), 1);
+    }
+  }
+
+  private void addGroupAci(String groupDN) throws Exception
+  {
+    addGroupAci(groupDN, "*");
+  }
+
+  private void addGroupAci(String groupDN, String targetAttr) throws Exception
+  {
+    final String aci = "(targetattr=\"" + targetAttr + "\")(version 3.0; acl \"group ACI\"; "
+        + "allow (read,search,compare) groupdn=\"ldap:///" + groupDN + "\";)";
+    LDIFModify(makeAddLDIF("aci", PEOPLE_BASE, aci), DIR_MGR_DN, PWD);
+  }
+
+  /**
+   * Returns the names of the attributes of uid=user.1 the connection can read
+   * among uid, sn and cn, or {@code null} if the entry is not returned.
+   */
+  private Set<String> getReadableAttributes(RemoteConnection connection) throws Exception
+  {
+    connection.search(PEOPLE_BASE, SearchScope.WHOLE_SUBTREE, "(uid=user.1)", "uid", "sn", "cn");
+    Set<String> attributes = null;
+    LDAPMessage message;
+    while ((message = connection.readMessage()) != null)
+    {
+      if (message.getProtocolOp() instanceof SearchResultDoneProtocolOp)
+      {
+        return attributes;
+      }
+      if (message.getProtocolOp() instanceof SearchResultEntryProtocolOp)
+      {
+        attributes = new HashSet<>();
+        for (LDAPAttribute attribute : message.getSearchResultEntryProtocolOp().getAttributes())
+        {
+          attributes.add(attribute.getAttributeType());
+        }
+      }
+    }
+    fail("The search did not complete");
+    return attributes;
+  }
+
+  /** Returns the number of entries named uid=user.1 the connection can read, whatever the search result. */
+  private int countReadableUsers(RemoteConnection connection) throws Exception
+  {
+    connection.search(PEOPLE_BASE, SearchScope.WHOLE_SUBTREE, "(uid=user.1)");
+    int count = 0;
+    LDAPMessage message;
+    while ((message = connection.readMessage()) != null)
+    {
+      if (message.getProtocolOp() instanceof SearchResultDoneProtocolOp)
+      {
+        return count;
+      }
+      if (message.getProtocolOp() instanceof SearchResultEntryProtocolOp)
+      {
+        count++;
+      }
+    }
+    fail("The search did not complete");
+    return count;
+  }
+
+  private void replace(String dn, String attributeName, String value)
+  {
+    final ResultCode resultCode = getRootConnection()
+        .processModify(newModifyRequest(dn).addModification(REPLACE, attributeName, value))
+        .getResultCode();
+    assertEquals(resultCode, ResultCode.SUCCESS);
+  }
+}
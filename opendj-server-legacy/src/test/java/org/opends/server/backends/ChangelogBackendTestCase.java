@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends;
 
@@ -47,9 +48,14 @@ import org.assertj.core.api.SoftAssertions;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ModificationType;
 import org.forgerock.opendj.ldap.RDN;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.ldap.requests.CancelExtendedRequest;
+import org.forgerock.opendj.ldap.requests.ExtendedRequest;
+import org.forgerock.opendj.ldap.requests.ModifyRequest;
+import org.forgerock.opendj.ldap.responses.Responses;
 import org.forgerock.opendj.server.config.server.ExternalChangelogDomainCfg;
 import org.opends.server.TestCaseUtils;
 import org.opends.server.api.LocalBackend;
@@ -65,6 +71,10 @@ import org.opends.server.protocols.internal.InternalClientConnection;
 import org.opends.server.protocols.internal.InternalSearchOperation;
 import org.opends.server.protocols.internal.Requests;
 import org.opends.server.protocols.internal.SearchRequest;
+import org.opends.server.protocols.ldap.ExtendedRequestProtocolOp;
+import org.opends.server.protocols.ldap.ExtendedResponseProtocolOp;
+import org.opends.server.protocols.ldap.IntermediateResponseProtocolOp;
+import org.opends.server.protocols.ldap.LDAPMessage;
 import org.opends.server.replication.ReplicationTestCase;
 import org.opends.server.replication.common.CSN;
 import org.opends.server.replication.common.CSNGenerator;
@@ -90,6 +100,7 @@ import org.opends.server.replication.server.changelog.api.ReplicationDomainDB;
 import org.opends.server.replication.server.changelog.file.ECLEnabledDomainPredicate;
 import org.opends.server.replication.service.DSRSShutdownSync;
 import org.opends.server.replication.service.ReplicationBroker;
+import org.opends.server.tools.RemoteConnection;
 import org.opends.server.types.Attribute;
 import org.opends.server.types.Attributes;
 import org.opends.server.types.AuthenticationInfo;
@@ -112,6 +123,10 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import com.forgerock.opendj.ldap.extensions.ChangelogStreamAcknowledgeExtendedRequest;
+import com.forgerock.opendj.ldap.extensions.ChangelogStreamExtendedRequest;
+import com.forgerock.opendj.ldap.extensions.ChangelogStreamRecord;
+
 @SuppressWarnings("javadoc")
 public class ChangelogBackendTestCase extends ReplicationTestCase
 {
@@ -133,6 +148,9 @@ public class ChangelogBackendTestCase extends ReplicationTestCase
   private static ReplicaId server1;
   private static ReplicaId server2;
 
+  /** Message ID of the changelog stream requests, out of the range used by {@link RemoteConnection}. */
+  private static final int STREAM_MESSAGE_ID = 1000;
+
   private final int maxWindow = 100;
 
   /** The replicationServer that will be used in this test. */
@@ -803,6 +821,169 @@ public class ChangelogBackendTestCase extends ReplicationTestCase
     debugInfo(testName, "Ending test with success");
   }
 
+  @Test
+  public void streamChangesWithinWindow() throws Exception
+  {
+    String test = "StreamWindow";
+    debugInfo(test, "Starting test\n\n");
+
+    final CSN[] csns = generateCSNs(4, server1);
+    publishUpdateMessagesInOTest(test, true,
+        generateDeleteMsg(server1, csns[0], test, 1),
+        generateDeleteMsg(server1, csns[1], test, 2),
+        generateDeleteMsg(server1, csns[2], test, 3));
+
+    try (RemoteConnection connection = openStreamConnection("cn=Directory Manager"))
+    {
+      writeExtendedRequest(connection, STREAM_MESSAGE_ID,
+          ChangelogStreamExtendedRequest.newRequest("").setWindowSize(2).addBaseDN(DN_OTEST));
+      List<ChangelogStreamRecord> records = toRecords(readStreamMessages(connection, 2, 0));
+      assertRecords(records, 1, csns[0], csns[1]);
+      final long streamID = records.get(0).getStreamID();
+
+      // The window is full: nothing is sent until records are acknowledged
+      publishUpdateMessagesInOTest(test, true, generateDeleteMsg(server1, csns[3], test, 4));
+      writeExtendedRequest(connection, STREAM_MESSAGE_ID + 1,
+          ChangelogStreamAcknowledgeExtendedRequest.newRequest(streamID, 1));
+      List<LDAPMessage> messages = readStreamMessages(connection, 1, 1);
+      assertRecords(toRecords(messages), 3, csns[2]);
+      assertThat(getResultCodes(messages)).containsOnly(entry(STREAM_MESSAGE_ID + 1, SUCCESS));
+
+      writeExtendedRequest(connection, STREAM_MESSAGE_ID + 2,
+          ChangelogStreamAcknowledgeExtendedRequest.newRequest(streamID, 3));
+      messages = readStreamMessages(connection, 1, 1);
+      assertRecords(toRecords(messages), 4, csns[3]);
+      assertThat(getResultCodes(messages)).containsOnly(entry(STREAM_MESSAGE_ID + 2, SUCCESS));
+
+      assertThat(cancelStream(connection, STREAM_MESSAGE_ID)).isEmpty();
+    }
+
+    debugInfo(test, "Ending test successfully");
+  }
+
+  @Test
+  public void streamChangesFromCookie() throws Exception
+  {
+    String test = "StreamCookie";
+    debugInfo(test, "Starting test\n\n");
+
+    final CSN[] csns = generateCSNs(4, server1);
+    publishUpdateMessagesInOTest(test, true,
+        generateDeleteMsg(server1, csns[0], test, 1),
+        generateDeleteMsg(server1, csns[1], test, 2),
+        generateDeleteMsg(server1, csns[2], test, 3));
+
+    try (RemoteConnection connection = openStreamConnection("cn=Directory Manager"))
+    {
+      List<ChangelogStreamRecord> records = streamRecords(connection,
+          ChangelogStreamExtendedRequest.newRequest(buildCookie(csns[0])).addBaseDN(DN_OTEST), 2);
+      assertRecords(records, 1, csns[1], csns[2]);
+
+      // Resume after the last received change
+      publishUpdateMessagesInOTest(test, true, generateDeleteMsg(server1, csns[3], test, 4));
+      records = streamRecords(connection,
+          ChangelogStreamExtendedRequest.newRequest(buildCookie(csns[2])).addBaseDN(DN_OTEST), 1);
+      assertRecords(records, 1, csns[3]);
+    }
+
+    debugInfo(test, "Ending test successfully");
+  }
+
+  @Test
+  public void streamChangesOfSelectedEntriesAndAttributes() throws Exception
+  {
+    String test = "StreamSelection";
+    debugInfo(test, "Starting test\n\n");
+
+    final CSN[] csns = generateCSNs(3, server1);
+    publishUpdateMessagesInOTest(test, true,
+        generateDeleteMsg(server1, csns[0], test, 1),
+        generateModMsg(server1, csns[1], test),
+        generateDeleteMsg(server1, csns[2], test, 2));
+
+    try (RemoteConnection connection = openStreamConnection("cn=Directory Manager"))
+    {
+      List<ChangelogStreamRecord> records = streamRecords(connection,
+          ChangelogStreamExtendedRequest.newRequest("").addBaseDN(DN.valueOf("uid=" + test + "2," + DN_OTEST)), 1);
+      assertRecords(records, 1, csns[2]);
+
+      // The modify record does not touch the selected attributes
+      records = streamRecords(connection,
+          ChangelogStreamExtendedRequest.newRequest("").addBaseDN(DN_OTEST).addAttribute("cn"), 2);
+      assertRecords(records, 1, csns[0], csns[2]);
+
+      records = streamRecords(connection,
+          ChangelogStreamExtendedRequest.newRequest("").addBaseDN(DN_OTEST).addAttribute("description"), 3);
+      assertRecords(records, 1, csns[0], csns[1], csns[2]);
+      final ModifyRequest change = (ModifyRequest) records.get(1).getChange();
+      assertThat(change.getName().toString()).isEqualTo("uid=" + test + "3," + DN_OTEST);
+      assertThat(change.getModifications()).hasSize(1);
+      assertThat(change.getModifications().get(0).getAttribute().firstValueAsString()).isEqualTo("new value");
+    }
+
+    debugInfo(test, "Ending test successfully");
+  }
+
+  @Test
+  public void streamChangesAllowedByAcis() throws Exception
+  {
+    String test = "StreamAcis";
+    debugInfo(test, "Starting test\n\n");
+
+    final CSN[] csns = generateCSNs(2, server1);
+    publishUpdateMessagesInOTest(test, true,
+        generateModMsg(server1, csns[0], test),
+        generateDeleteMsg(server1, csns[1], test, 1));
+
+    final String streamReaderDN = "cn=Stream Reader,cn=Root DNs,cn=config";
+    TestCaseUtils.addEntry(
+        "dn: " + streamReaderDN,
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "objectClass: ds-cfg-root-dn-user",
+        "cn: Stream Reader",
+        "sn: Reader",
+        "userPassword: password",
+        "ds-privilege-name: -bypass-acl");
+    final String extopAci = "(extop=\"" + ChangelogStreamExtendedRequest.OID + " || "
+        + ChangelogStreamAcknowledgeExtendedRequest.OID + " || " + CancelExtendedRequest.OID + "\")"
+        + "(version 3.0; acl \"Changelog stream\"; allow(read) userdn=\"ldap:///" + streamReaderDN + "\";)";
+    final String entriesAci = "(target=\"ldap:///cn=changelog\")(targetattr!=\"changes\")"
+        + "(version 3.0; acl \"Changelog entries\"; allow(read,search) userdn=\"ldap:///" + streamReaderDN + "\";)";
+    final String changesAci = "(target=\"ldap:///cn=changelog\")(targetattr=\"*\")"
+        + "(version 3.0; acl \"Changelog changes\"; allow(read,search) userdn=\"ldap:///" + streamReaderDN + "\";)";
+    modifyGlobalAci(ADD, extopAci);
+    modifyGlobalAci(ADD, entriesAci);
+    try (RemoteConnection connection = openStreamConnection(streamReaderDN))
+    {
+      // The modify record is hidden because its changes cannot be read
+      List<ChangelogStreamRecord> records =
+          streamRecords(connection, ChangelogStreamExtendedRequest.newRequest("").addBaseDN(DN_OTEST), 1);
+      assertRecords(records, 1, csns[1]);
+
+      modifyGlobalAci(ADD, changesAci);
+      try
+      {
+        records = streamRecords(connection, ChangelogStreamExtendedRequest.newRequest("").addBaseDN(DN_OTEST), 2);
+        assertRecords(records, 1, csns[0], csns[1]);
+      }
+      finally
+      {
+        modifyGlobalAci(DELETE, changesAci);
+      }
+    }
+    finally
+    {
+      modifyGlobalAci(DELETE, entriesAci);
+      modifyGlobalAci(DELETE, extopAci);
+      TestCaseUtils.deleteEntry(DN.valueOf(streamReaderDN));
+    }
+
+    debugInfo(test, "Ending test successfully");
+  }
+
   @DataProvider
   Object[][] getFilters()
   {
@@ -1565,6 +1746,125 @@ public class ChangelogBackendTestCase extends ReplicationTestCase
     }
   }
 
+  private RemoteConnection openStreamConnection(String bindDN) throws Exception
+  {
+    final RemoteConnection connection = new RemoteConnection("localhost", TestCaseUtils.getServerLdapPort());
+    try
+    {
+      connection.bind(bindDN, "password");
+      return connection;
+    }
+    catch (Exception e)
+    {
+      connection.close();
+      throw e;
+    }
+  }
+
+  private void writeExtendedRequest(RemoteConnection connection, int messageID, ExtendedRequest<?> request)
+      throws Exception
+  {
+    connection.getLdapWriter().writeMessage(
+        new LDAPMessage(messageID, new ExtendedRequestProtocolOp(request.getOID(), request.getValue())));
+  }
+
+  /** Starts a changelog stream, reads the expected number of records, then cancels the stream. */
+  private List<ChangelogStreamRecord> streamRecords(RemoteConnection connection,
+      ChangelogStreamExtendedRequest request, int expectedNbRecords) throws Exception
+  {
+    writeExtendedRequest(connection, STREAM_MESSAGE_ID, request);
+    final List<ChangelogStreamRecord> records = toRecords(readStreamMessages(connection, expectedNbRecords, 0));
+    assertThat(cancelStream(connection, STREAM_MESSAGE_ID)).isEmpty();
+    return records;
+  }
+
+  /** Cancels a changelog stream, and returns the records received before its response. */
+  private List<ChangelogStreamRecord> cancelStream(RemoteConnection connection, int streamMessageID)
+      throws Exception
+  {
+    final int cancelMessageID = streamMessageID + 100;
+    writeExtendedRequest(connection, cancelMessageID, newCancelExtendedRequest(streamMessageID));
+    final List<LDAPMessage> messages = readStreamMessages(connection, 0, 2);
+    assertThat(getResultCodes(messages)).containsOnly(
+        entry(streamMessageID, CANCELLED), entry(cancelMessageID, SUCCESS));
+    return toRecords(messages);
+  }
+
+  /** Reads messages until the expected numbers of records and extended responses have been received. */
+  private List<LDAPMessage> readStreamMessages(RemoteConnection connection, int nbRecords, int nbResponses)
+      throws Exception
+  {
+    final List<LDAPMessage> messages = new ArrayList<>();
+    int records = 0;
+    int responses = 0;
+    while (records < nbRecords || responses < nbResponses)
+    {
+      final LDAPMessage message = connection.readMessage();
+      messages.add(message);
+      if (message.getProtocolOp() instanceof IntermediateResponseProtocolOp)
+      {
+        records++;
+      }
+      else if (message.getProtocolOp() instanceof ExtendedResponseProtocolOp)
+      {
+        responses++;
+      }
+      else
+      {
+        fail("Unexpected message " + message);
+      }
+    }
+    return messages;
+  }
+
+  private List<ChangelogStreamRecord> toRecords(List<LDAPMessage> messages) throws Exception
+  {
+    final List<ChangelogStreamRecord> records = new ArrayList<>();
+    for (LDAPMessage message : messages)
+    {
+      if (message.getProtocolOp() instanceof IntermediateResponseProtocolOp)
+      {
+        final IntermediateResponseProtocolOp op = (IntermediateResponseProtocolOp) message.getProtocolOp();
+        records.add(
+            ChangelogStreamRecord.valueOf(Responses.newGenericIntermediateResponse(op.getOID(), op.getValue())));
+      }
+    }
+    return records;
+  }
+
+  private Map<Integer, ResultCode> getResultCodes(List<LDAPMessage> messages)
+  {
+    final Map<Integer, ResultCode> resultCodes = new HashMap<>();
+    for (LDAPMessage message : messages)
+    {
+      if (message.getProtocolOp() instanceof ExtendedResponseProtocolOp)
+      {
+        resultCodes.put(message.getMessageID(),
+            ResultCode.valueOf(message.getExtendedResponseProtocolOp().getResultCode()));
+      }
+    }
+    return resultCodes;
+  }
+
+  private void assertRecords(List<ChangelogStreamRecord> records, long firstSequenceNumber, CSN... expectedCsns)
+  {
+    assertThat(records).hasSize(expectedCsns.length);
+    for (int i = 0; i < expectedCsns.length; i++)
+    {
+      final ChangelogStreamRecord record = records.get(i);
+      assertEquals(record.getSequenceNumber(), firstSequenceNumber + i);
+      assertEquals(record.getDomainBaseDN(), DN_OTEST);
+      assertEquals(CSN.valueOf(record.getCSN()), expectedCsns[i]);
+    }
+  }
+
+  private void modifyGlobalAci(ModificationType modificationType, String aci)
+  {
+    final ModifyOperation op = connection.processModify(newModifyRequest("cn=Access Control Handler,cn=config")
+        .addModification(modificationType, "ds-cfg-global-aci", aci));
+    assertEquals(op.getResultCode(), ResultCode.SUCCESS);
+  }
+
   /**
    * Utility - log debug message - highlight it is from the test and not
    * from the server code. Makes easier to observe the test steps.
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -24,6 +25,7 @@ import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.requests.ModifyRequest;
+import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.opends.server.TestCaseUtils;
 import org.opends.server.plugins.DisconnectClientPlugin;
 import org.opends.server.plugins.InvocationCounterPlugin;
@@ -1474,6 +1476,42 @@ public class BindOperationTestCase
     }
   }
 
+  /**
+   * Tests to ensure that binding again as the same user keeps the connection
+   * associated once with this identity.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testRebindAsSameUserKeepsAuthInfo()
+         throws Exception
+  {
+    TestCaseUtils.initializeTestBackend(true);
+    TestCaseUtils.addEntry(
+      "dn: uid=rebind.same,o=test",
+      "objectClass: top",
+      "objectClass: person",
+      "objectClass: organizationalPerson",
+      "objectClass: inetOrgPerson",
+      "uid: rebind.same",
+      "givenName: Rebind",
+      "sn: Same",
+      "cn: Rebind Same",
+      "userPassword: password");
+    String dnString = "uid=rebind.same,o=test";
+    DN userDN = DN.valueOf(dnString);
+
+    try (RemoteConnection conn = new RemoteConnection("localhost", TestCaseUtils.getServerLdapPort()))
+    {
+      conn.bind(dnString, "password");
+      TestCaseUtils.quiesceServer();
+      conn.bind(dnString, "password");
+
+      assertNotNull(DirectoryServer.getAuthenticatedUsers().get(userDN));
+      assertEquals(DirectoryServer.getAuthenticatedUsers().get(userDN).size(), 1);
+    }
+  }
+
   /**
    * Tests to ensure that performing subtree delete will
    * cause the connection to no longer be associated
@@ -1690,6 +1728,78 @@ public class BindOperationTestCase
     }
   }
 
+  /**
+   * Tests that the last login time is written after the bind operation
+   * completes when the password policy defers the state updates.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testDeferredStateUpdates()
+         throws Exception
+  {
+    TestCaseUtils.initializeTestBackend(true);
+
+    TestCaseUtils.applyModifications(false,
+      "dn: uid=test.user,o=test",
+      "changetype: add",
+      "objectClass: top",
+      "objectClass: person",
+      "objectClass: organizationalPerson",
+      "objectClass: inetOrgPerson",
+      "uid: test.user",
+      "givenName: Test",
+      "sn: User",
+      "cn: Test User",
+      "userPassword: password",
+      "",
+      "dn: cn=Default Password Policy,cn=Password Policies,cn=config",
+      "changetype: modify",
+      "replace: ds-cfg-last-login-time-attribute",
+      "ds-cfg-last-login-time-attribute: ds-pwp-last-login-time",
+      "-",
+      "replace: ds-cfg-last-login-time-format",
+      "ds-cfg-last-login-time-format: yyyyMMdd",
+      "-",
+      "replace: ds-cfg-deferred-state-update-interval",
+      "ds-cfg-deferred-state-update-interval: 1 h"
+    );
+
+    try
+    {
+      DN userDN = DN.valueOf("uid=test.user,o=test");
+      AttributeType lastLoginTimeType =
+          DirectoryServer.getInstance().getServerContext().getSchema().getAttributeType("ds-pwp-last-login-time");
+      String[] args =
+      {
+        "-h", "127.0.0.1",
+        "-p", String.valueOf(TestCaseUtils.getServerLdapPort()),
+        "-D", "uid=test.user,o=test",
+        "-w", "password",
+        "-b", "",
+        "-s", "base",
+        "(objectClass=*)"
+      };
+      assertEquals(LDAPSearch.run(nullPrintStream(), System.err, args), 0);
+      assertFalse(DirectoryServer.getEntry(userDN).hasAttribute(lastLoginTimeType));
+
+      DeferredStateUpdates.getInstance().writePendingUpdates();
+      assertTrue(DirectoryServer.getEntry(userDN).hasAttribute(lastLoginTimeType));
+    }
+    finally
+    {
+      TestCaseUtils.applyModifications(true,
+        "dn: cn=Default Password Policy,cn=Password Policies,cn=config",
+        "changetype: modify",
+        "replace: ds-cfg-last-login-time-attribute",
+        "-",
+        "replace: ds-cfg-last-login-time-format",
+        "-",
+        "replace: ds-cfg-deferred-state-update-interval"
+      );
+    }
+  }
+
   /**
    * Tests to ensure that the "reactive" password policy state update policy
    * works as expected.
@@ -13,9 +13,11 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -45,6 +47,7 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import static org.assertj.core.api.Assertions.*;
 import static org.forgerock.opendj.ldap.ModificationType.*;
 import static org.forgerock.opendj.ldap.requests.Requests.*;
 import static org.opends.server.protocols.internal.InternalClientConnection.*;
@@ -200,6 +203,49 @@ public class GroupManagerTestCase
     assertTrue(group1Instance.isMember(user5DN));
   }
 
+  /**
+   * Tests the reverse membership index of the group manager with nested
+   * static groups and a nested dynamic group.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testGetGroupDNsNested() throws Exception {
+    TestCaseUtils.initializeTestBackend(true);
+    GroupManager groupManager = DirectoryServer.getGroupManager();
+    groupManager.deregisterAllGroups();
+    addNestedGroupTestEntries();
+    DN group1DN = DN.valueOf("cn=group 1,ou=Groups,o=test");
+    DN group2DN = DN.valueOf("cn=group 2,ou=Groups,o=test");
+    DN group3DN = DN.valueOf("cn=group 3,ou=Groups,o=test");
+    DN group4DN = DN.valueOf("cn=group 4,ou=Groups,o=test");
+    Entry user1Entry = DirectoryServer.getEntry(DN.valueOf("uid=user.1,ou=People,o=test"));
+    Entry user3Entry = DirectoryServer.getEntry(DN.valueOf("uid=user.3,ou=People,o=test"));
+    Entry user5Entry = DirectoryServer.getEntry(DN.valueOf("uid=user.5,ou=People,o=test"));
+    Group group1Instance = groupManager.getGroupInstance(group1DN);
+    Group group2Instance = groupManager.getGroupInstance(group2DN);
+    Group group3Instance = groupManager.getGroupInstance(group3DN);
+    group1Instance.addNestedGroup(group2DN);
+    group2Instance.addNestedGroup(group3DN);
+    //Dynamic group 4 is added to nested list of group 3.
+    group3Instance.addNestedGroup(group4DN);
+    group1Instance.addMember(user1Entry);
+    group3Instance.addMember(user3Entry);
+
+    assertThat(groupManager.getGroupDNs(user1Entry)).containsOnly(group1DN);
+    assertThat(groupManager.getGroupDNs(user3Entry)).containsOnly(group3DN, group2DN, group1DN);
+    assertThat(groupManager.getGroupDNs(user5Entry)).containsOnly(group4DN, group3DN, group2DN, group1DN);
+    assertTrue(groupManager.isMember(group1DN, user5Entry));
+    assertFalse(groupManager.isMember(group2DN, user1Entry));
+
+    group2Instance.removeNestedGroup(group3DN);
+    assertThat(groupManager.getGroupDNs(user3Entry)).containsOnly(group3DN);
+    assertFalse(groupManager.isMember(group1DN, user5Entry));
+
+    group1Instance.removeMember(user1Entry.getName());
+    assertThat(groupManager.getGroupDNs(user1Entry)).isEmpty();
+  }
+
   /**
    * Invokes membership and nested group APIs using a group instance that has
    * been changed by the group manager via ldap modify.
@@ -279,6 +325,18 @@ public class GroupManagerTestCase
     assertFalse(nestedGroups.contains(group2DN));
     assertTrue(nestedGroups.contains(group3DN));
     assertFalse(nestedGroups.contains(group4DN));
+    //Check that the group manager picked up the member changes.
+    assertThat(groupManager.getGroupDNs(user2Entry)).doesNotContain(group1DN);
+    assertThat(groupManager.getGroupDNs(user5Entry)).contains(group1DN);
+
+    //Replace the whole member list.
+    final ModifyRequest replaceRequest = newModifyRequest(group1DN)
+        .addModification(REPLACE, "member", "uid=user.2,ou=People,o=test");
+    assertEquals(getRootConnection().processModify(replaceRequest).getResultCode(), ResultCode.SUCCESS);
+    assertTrue(group1Instance.isMember(user2Entry));
+    assertFalse(group1Instance.isMember(user5Entry));
+    assertThat(groupManager.getGroupDNs(user2Entry)).contains(group1DN);
+    assertThat(groupManager.getGroupDNs(user5Entry)).doesNotContain(group1DN);
   }
 
   /**
@@ -1866,6 +1924,296 @@ public class GroupManagerTestCase
 
 
 
+  /**
+   * Tests that a dynamic group materializing its membership keeps it up to
+   * date when entries are added, modified, deleted and renamed.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testMaterializedDynamicGroup() throws Exception
+  {
+    TestCaseUtils.initializeTestBackend(true);
+    TestCaseUtils.dsconfig(
+        "set-group-implementation-prop",
+        "--implementation-name", "Dynamic",
+        "--set", "materialized-membership:true");
+    try
+    {
+      GroupManager groupManager = DirectoryServer.getGroupManager();
+      groupManager.deregisterAllGroups();
+
+      TestCaseUtils.addEntries(
+        "dn: ou=People,o=test",
+        "objectClass: top",
+        "objectClass: organizationalUnit",
+        "ou: People",
+        "",
+        "dn: ou=Groups,o=test",
+        "objectClass: top",
+        "objectClass: organizationalUnit",
+        "ou: Groups",
+        "",
+        "dn: uid=user.1,ou=People,o=test",
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: user.1",
+        "givenName: User",
+        "sn: 1",
+        "cn: User 1",
+        "",
+        "dn: uid=user.2,ou=People,o=test",
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: user.2",
+        "givenName: User",
+        "sn: 2",
+        "cn: User 2",
+        "",
+        "dn: uid=user.3,ou=People,o=test",
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: user.3",
+        "givenName: User",
+        "sn: 3",
+        "cn: User 3",
+        "",
+        "dn: cn=Test Group of URLs,ou=Groups,o=test",
+        "objectClass: top",
+        "objectClass: groupOfURLs",
+        "cn: Test Group of URLs",
+        "memberURL: ldap:///ou=People,o=test??sub?(sn<=2)");
+
+      DN groupDN = DN.valueOf("cn=Test Group of URLs,ou=Groups,o=test");
+      DN user1DN = DN.valueOf("uid=user.1,ou=People,o=test");
+      DN user2DN = DN.valueOf("uid=user.2,ou=People,o=test");
+      DN user3DN = DN.valueOf("uid=user.3,ou=People,o=test");
+      DN user30DN = DN.valueOf("uid=user.30,ou=People,o=test");
+
+      Group<?> groupInstance = groupManager.getGroupInstance(groupDN);
+      assertNotNull(groupInstance);
+      assertTrue(groupInstance.isMembershipMaterialized());
+      assertThat(getMemberDNs(groupInstance)).containsOnly(user1DN, user2DN);
+
+      InternalClientConnection conn = getRootConnection();
+      assertEquals(conn.processModify(newModifyRequest(user3DN).addModification(REPLACE, "sn", "0"))
+          .getResultCode(), ResultCode.SUCCESS);
+      assertEquals(conn.processModify(newModifyRequest(user1DN).addModification(REPLACE, "sn", "5"))
+          .getResultCode(), ResultCode.SUCCESS);
+      assertEquals(conn.processDelete(user2DN).getResultCode(), ResultCode.SUCCESS);
+      assertThat(getMemberDNs(groupInstance)).containsOnly(user3DN);
+
+      assertEquals(conn.processModifyDN(user3DN, RDN.valueOf("uid=user.30"), true).getResultCode(),
+          ResultCode.SUCCESS);
+      assertThat(getMemberDNs(groupInstance)).containsOnly(user30DN);
+      assertTrue(groupInstance.isMember(user30DN));
+      assertFalse(groupInstance.isMember(user1DN));
+      assertFalse(groupInstance.isMember(user3DN));
+
+      assertEquals(conn.processDelete(groupDN).getResultCode(), ResultCode.SUCCESS);
+      assertNull(groupManager.getGroupInstance(groupDN));
+    }
+    finally
+    {
+      TestCaseUtils.dsconfig(
+          "set-group-implementation-prop",
+          "--implementation-name", "Dynamic",
+          "--set", "materialized-membership:false");
+    }
+  }
+
+  private Set<DN> getMemberDNs(Group<?> group) throws Exception
+  {
+    Set<DN> memberDNs = new LinkedHashSet<>();
+    MemberList memberList = group.getMembers();
+    try
+    {
+      while (memberList.hasMoreMembers())
+      {
+        memberDNs.add(memberList.nextMemberDN());
+      }
+    }
+    finally
+    {
+      memberList.close();
+    }
+    return memberDNs;
+  }
+
+
+
+  /**
+   * Tests that a static group with more members than the indexed membership
+   * threshold checks membership against the backend index, and that the group
+   * manager still finds it among the groups of its members.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testIndexedStaticGroup() throws Exception
+  {
+    TestCaseUtils.initializeTestBackend(true);
+    TestCaseUtils.dsconfig(
+        "set-group-implementation-prop",
+        "--implementation-name", "Static",
+        "--set", "indexed-membership-threshold:2");
+    try
+    {
+      GroupManager groupManager = DirectoryServer.getGroupManager();
+      groupManager.deregisterAllGroups();
+
+      TestCaseUtils.addEntries(
+        "dn: ou=People,o=test",
+        "objectClass: top",
+        "objectClass: organizationalUnit",
+        "ou: People",
+        "",
+        "dn: ou=Groups,o=test",
+        "objectClass: top",
+        "objectClass: organizationalUnit",
+        "ou: Groups",
+        "",
+        "dn: uid=user.1,ou=People,o=test",
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: user.1",
+        "givenName: User",
+        "sn: 1",
+        "cn: User 1",
+        "",
+        "dn: uid=user.2,ou=People,o=test",
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: user.2",
+        "givenName: User",
+        "sn: 2",
+        "cn: User 2",
+        "",
+        "dn: uid=user.3,ou=People,o=test",
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: user.3",
+        "givenName: User",
+        "sn: 3",
+        "cn: User 3",
+        "",
+        "dn: uid=user.4,ou=People,o=test",
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: user.4",
+        "givenName: User",
+        "sn: 4",
+        "cn: User 4",
+        "",
+        "dn: uid=user.5,ou=People,o=test",
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: user.5",
+        "givenName: User",
+        "sn: 5",
+        "cn: User 5",
+        "",
+        "dn: cn=Nested Group,ou=Groups,o=test",
+        "objectClass: top",
+        "objectClass: groupOfNames",
+        "cn: Nested Group",
+        "member: uid=user.5,ou=People,o=test",
+        "",
+        "dn: cn=Indexed Group,ou=Groups,o=test",
+        "objectClass: top",
+        "objectClass: groupOfNames",
+        "cn: Indexed Group",
+        "member: uid=user.1,ou=People,o=test",
+        "member: uid=user.2,ou=People,o=test",
+        "member: uid=user.3,ou=People,o=test",
+        "member: cn=Nested Group,ou=Groups,o=test",
+        "",
+        "dn: cn=Parent Group,ou=Groups,o=test",
+        "objectClass: top",
+        "objectClass: groupOfNames",
+        "cn: Parent Group",
+        "member: cn=Indexed Group,ou=Groups,o=test");
+
+      DN groupDN = DN.valueOf("cn=Indexed Group,ou=Groups,o=test");
+      DN parentGroupDN = DN.valueOf("cn=Parent Group,ou=Groups,o=test");
+      DN user1DN = DN.valueOf("uid=user.1,ou=People,o=test");
+      DN user4DN = DN.valueOf("uid=user.4,ou=People,o=test");
+      DN user5DN = DN.valueOf("uid=user.5,ou=People,o=test");
+      DN nestedGroupDN = DN.valueOf("cn=Nested Group,ou=Groups,o=test");
+
+      Group<?> groupInstance = groupManager.getGroupInstance(groupDN);
+      assertNotNull(groupInstance);
+      assertTrue(groupInstance.hasIndexedMembership());
+      assertNull(groupInstance.getNormalizedMemberDNs());
+      assertFalse(groupManager.getGroupInstance(parentGroupDN).hasIndexedMembership());
+
+      assertTrue(groupInstance.isMember(user1DN));
+      assertFalse(groupInstance.isMember(user4DN));
+      assertThat(groupManager.getGroupDNs(user1DN)).containsOnly(groupDN, parentGroupDN);
+
+      // Nested groups are looked up in the index, members are only decoded when listed
+      assertThat(groupInstance.getNestedGroupDNs()).containsOnly(nestedGroupDN);
+      assertTrue(groupInstance.isMember(user5DN));
+      List<DN> members = new ArrayList<>();
+      MemberList memberList = groupInstance.getMembers();
+      while (memberList.hasMoreMembers())
+      {
+        members.add(memberList.nextMemberDN());
+      }
+      memberList.close();
+      assertThat(members).containsOnly(DN.valueOf("uid=user.1,ou=People,o=test"),
+          DN.valueOf("uid=user.2,ou=People,o=test"), DN.valueOf("uid=user.3,ou=People,o=test"), nestedGroupDN);
+      assertThat(groupManager.getGroupDNs(user4DN)).isEmpty();
+
+      // Unlike for computed groups, entry changes leave the generation alone
+      InternalClientConnection conn = getRootConnection();
+      long generation = groupManager.getMembershipGeneration();
+      assertEquals(conn.processModify(newModifyRequest(user4DN).addModification(REPLACE, "sn", "40"))
+          .getResultCode(), ResultCode.SUCCESS);
+      assertEquals(groupManager.getMembershipGeneration(), generation);
+
+      assertEquals(conn.processModify(newModifyRequest(groupDN)
+          .addModification(ADD, "member", user4DN.toString())
+          .addModification(DELETE, "member", user1DN.toString()))
+          .getResultCode(), ResultCode.SUCCESS);
+      assertNotEquals(groupManager.getMembershipGeneration(), generation);
+      assertSame(groupManager.getGroupInstance(groupDN), groupInstance);
+      assertTrue(groupInstance.isMember(user4DN));
+      assertFalse(groupInstance.isMember(user1DN));
+      assertThat(groupManager.getGroupDNs(user4DN)).containsOnly(groupDN, parentGroupDN);
+      assertThat(groupManager.getGroupDNs(user1DN)).isEmpty();
+
+      assertEquals(conn.processDelete(groupDN).getResultCode(), ResultCode.SUCCESS);
+      assertNull(groupManager.getGroupInstance(groupDN));
+      assertThat(groupManager.getGroupDNs(user4DN)).isEmpty();
+    }
+    finally
+    {
+      TestCaseUtils.dsconfig(
+          "set-group-implementation-prop",
+          "--implementation-name", "Static",
+          "--set", "indexed-membership-threshold:0");
+    }
+  }
+
+
+
   /**
    * Tests the {@code getMembers()} method for a dynamic group, using the
    * variant that takes base, scope, and filter arguments.
@@ -0,0 +1,150 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.types.DirectoryException;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class PasswordVerificationsTestCase extends DirectoryServerTestCase
+{
+  private static final DN USER_DN = DN.valueOf("uid=user.1,o=test");
+  private static final ByteString STORED_VALUE = ByteString.valueOfUtf8("{PBKDF2}10000:c2FsdA==");
+  private static final ByteString PASSWORD = ByteString.valueOfUtf8("password");
+
+  @Test
+  public void verificationKeyDependsOnAllInputs() throws Exception
+  {
+    PasswordVerifications verifications = new PasswordVerifications();
+    ByteString key = verifications.getVerificationKey(USER_DN, STORED_VALUE, PASSWORD);
+
+    assertThat(verifications.getVerificationKey(USER_DN, STORED_VALUE, PASSWORD)).isEqualTo(key);
+    assertThat(verifications.getVerificationKey(DN.valueOf("uid=user.2,o=test"), STORED_VALUE, PASSWORD))
+        .isNotEqualTo(key);
+    assertThat(verifications.getVerificationKey(USER_DN, ByteString.valueOfUtf8("{PBKDF2}10000:cGVwcGVy"), PASSWORD))
+        .isNotEqualTo(key);
+    assertThat(verifications.getVerificationKey(USER_DN, STORED_VALUE, ByteString.valueOfUtf8("passwore")))
+        .isNotEqualTo(key);
+    assertThat(key.toString()).doesNotContain(PASSWORD.toString());
+    assertThat(new PasswordVerifications().getVerificationKey(USER_DN, STORED_VALUE, PASSWORD)).isNotEqualTo(key);
+  }
+
+  @Test
+  public void verificationsAreRememberedUntilTheyExpire() throws Exception
+  {
+    PasswordVerifications verifications = new PasswordVerifications();
+    ByteString key = verifications.getVerificationKey(USER_DN, STORED_VALUE, PASSWORD);
+    assertThat(verifications.isRemembered(key)).isFalse();
+
+    verifications.remember(key, 60000);
+    assertThat(verifications.isRemembered(key)).isTrue();
+
+    verifications.remember(key, -1);
+    assertThat(verifications.isRemembered(key)).isFalse();
+
+    verifications.remember(key, 60000);
+    verifications.clear();
+    assertThat(verifications.isRemembered(key)).isFalse();
+  }
+
+  @Test
+  public void rememberedVerificationsAreBounded() throws Exception
+  {
+    PasswordVerifications verifications = new PasswordVerifications();
+    for (int i = 0; i < PasswordVerifications.MAX_REMEMBERED_VERIFICATIONS; i++)
+    {
+      verifications.remember(ByteString.valueOfInt(i), 60000);
+    }
+    ByteString key = verifications.getVerificationKey(USER_DN, STORED_VALUE, PASSWORD);
+    verifications.remember(key, 60000);
+    assertThat(verifications.isRemembered(key)).isFalse();
+  }
+
+  @Test
+  public void concurrentVerificationsAreLimited() throws Exception
+  {
+    PasswordVerifications verifications = new PasswordVerifications();
+    assertThat(verifications.acquire(0, 0)).isNull();
+
+    Semaphore permit = verifications.acquire(2, 0);
+    assertThat(permit.availablePermits()).isEqualTo(1);
+    assertThat(verifications.acquire(2, 0)).isSameAs(permit);
+    assertThat(permit.availablePermits()).isEqualTo(0);
+    verifications.release(permit);
+    verifications.release(permit);
+    assertThat(permit.availablePermits()).isEqualTo(2);
+
+    Semaphore newPermit = verifications.acquire(4, 0);
+    assertThat(newPermit).isNotSameAs(permit);
+    assertThat(newPermit.availablePermits()).isEqualTo(3);
+    verifications.release(newPermit);
+  }
+
+  @Test
+  public void verificationsWhichCannotStartInTimeFailWithBusy() throws Exception
+  {
+    final PasswordVerifications verifications = new PasswordVerifications();
+    final Semaphore permit = verifications.acquire(1, 0);
+    try
+    {
+      verifications.acquire(1, 10);
+      failBecauseExceptionWasNotThrown(DirectoryException.class);
+    }
+    catch (DirectoryException e)
+    {
+      assertThat(e.getResultCode()).isEqualTo(ResultCode.BUSY);
+    }
+    assertThat(permit.availablePermits()).isEqualTo(0);
+
+    // A verification waiting for a permit starts as soon as the running one completes
+    final CountDownLatch waiting = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try
+    {
+      final Future<Semaphore> future = executor.submit(new Callable<Semaphore>()
+      {
+        @Override
+        public Semaphore call() throws Exception
+        {
+          waiting.countDown();
+          return verifications.acquire(1, TimeUnit.MINUTES.toMillis(1));
+        }
+      });
+      waiting.await();
+      verifications.release(permit);
+      assertThat(future.get(1, TimeUnit.MINUTES)).isSameAs(permit);
+      verifications.release(permit);
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+}
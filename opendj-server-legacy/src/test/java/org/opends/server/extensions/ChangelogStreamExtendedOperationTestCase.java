@@ -0,0 +1,99 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.extensions;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.testng.Assert.*;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.DecodeOptions;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.ldap.requests.Requests;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.core.ExtendedOperation;
+import org.opends.server.protocols.internal.InternalClientConnection;
+import org.opends.server.types.AuthenticationInfo;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.forgerock.opendj.ldap.extensions.ChangelogStreamAcknowledgeExtendedRequest;
+import com.forgerock.opendj.ldap.extensions.ChangelogStreamExtendedRequest;
+
+/** A set of test cases for the changelog stream extended operation. */
+@SuppressWarnings("javadoc")
+public class ChangelogStreamExtendedOperationTestCase extends ExtensionsTestCase
+{
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  @Test
+  public void testRequestValueRoundTrip() throws Exception
+  {
+    final ChangelogStreamExtendedRequest request = ChangelogStreamExtendedRequest
+        .newRequest("o=test:00000108b3a65541000000000001;")
+        .setWindowSize(10)
+        .addBaseDN(DN.valueOf("ou=people,o=test"))
+        .addAttribute("mail")
+        .addAttribute("cn");
+
+    final ChangelogStreamExtendedRequest decoded = ChangelogStreamExtendedRequest.REQUEST_DECODER
+        .decodeExtendedRequest(Requests.newGenericExtendedRequest(request.getOID(), request.getValue()),
+            new DecodeOptions());
+    assertEquals(decoded.getCookie(), request.getCookie());
+    assertEquals(decoded.getWindowSize(), 10);
+    assertThat(decoded.getBaseDNs()).containsExactly(DN.valueOf("ou=people,o=test"));
+    assertThat(decoded.getAttributes()).containsExactly("mail", "cn");
+  }
+
+  @Test
+  public void testStreamAsAnonymous() throws Exception
+  {
+    final InternalClientConnection conn = new InternalClientConnection(new AuthenticationInfo());
+    final ExtendedOperation extOp = conn.processExtendedOperation(
+        ChangelogStreamExtendedRequest.OID, ChangelogStreamExtendedRequest.newRequest("").getValue());
+    assertEquals(extOp.getResultCode(), ResultCode.INSUFFICIENT_ACCESS_RIGHTS);
+  }
+
+  @Test
+  public void testStreamWithInvalidRequestValue()
+  {
+    final InternalClientConnection conn = InternalClientConnection.getRootConnection();
+    final ExtendedOperation extOp =
+        conn.processExtendedOperation(ChangelogStreamExtendedRequest.OID, ByteString.valueOfUtf8("invalid"));
+    assertEquals(extOp.getResultCode(), ResultCode.PROTOCOL_ERROR);
+  }
+
+  @Test
+  public void testAcknowledgeUnknownStream()
+  {
+    final InternalClientConnection conn = InternalClientConnection.getRootConnection();
+    final ExtendedOperation extOp = conn.processExtendedOperation(ChangelogStreamAcknowledgeExtendedRequest.OID,
+        ChangelogStreamAcknowledgeExtendedRequest.newRequest(Long.MAX_VALUE, 1).getValue());
+    assertEquals(extOp.getResultCode(), ResultCode.NO_SUCH_OPERATION);
+  }
+
+  @Test
+  public void testAcknowledgeWithoutRequestValue()
+  {
+    final InternalClientConnection conn = InternalClientConnection.getRootConnection();
+    final ExtendedOperation extOp = conn.processExtendedOperation(ChangelogStreamAcknowledgeExtendedRequest.OID, null);
+    assertEquals(extOp.getResultCode(), ResultCode.PROTOCOL_ERROR);
+  }
+}
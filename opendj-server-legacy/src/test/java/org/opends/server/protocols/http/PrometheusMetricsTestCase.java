@@ -0,0 +1,97 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.protocols.http;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.forgerock.opendj.ldap.LinkedHashMapEntry;
+import org.opends.server.DirectoryServerTestCase;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class PrometheusMetricsTestCase extends DirectoryServerTestCase
+{
+  @Test
+  public void numericAndBooleanAttributes()
+  {
+    final PrometheusMetrics metrics = new PrometheusMetrics();
+    metrics.addMonitorEntry(new LinkedHashMapEntry(
+        "dn: cn=Connection \"1\",cn=monitor",
+        "cn: Connection \"1\"",
+        "current-connections: 3",
+        "ssl-encryption: true",
+        "ds-mon-description: not a number"));
+
+    assertThat(metrics.toString()).isEqualTo(
+        "# TYPE ds_current_connections untyped\n"
+        + "ds_current_connections{monitor=\"cn=Connection \\\\\\\"1\\\\\\\",cn=monitor\"} 3\n"
+        + "# TYPE ds_ssl_encryption gauge\n"
+        + "ds_ssl_encryption{monitor=\"cn=Connection \\\\\\\"1\\\\\\\",cn=monitor\"} 1\n");
+  }
+
+  @Test
+  public void perServerValues()
+  {
+    final PrometheusMetrics metrics = new PrometheusMetrics();
+    metrics.addMonitorEntry(new LinkedHashMapEntry(
+        "dn: cn=Domain,cn=monitor",
+        "origin-to-store-latency-server-p99-ms: 1:20",
+        "origin-to-store-latency-server-p99-ms: 2:-1"));
+
+    assertThat(metrics.toString()).isEqualTo(
+        "# TYPE ds_origin_to_store_latency_server_p99_ms untyped\n"
+        + "ds_origin_to_store_latency_server_p99_ms{monitor=\"cn=Domain,cn=monitor\",server_id=\"1\"} 20\n"
+        + "ds_origin_to_store_latency_server_p99_ms{monitor=\"cn=Domain,cn=monitor\",server_id=\"2\"} -1\n");
+  }
+
+  @Test
+  public void latencyHistogram()
+  {
+    final PrometheusMetrics metrics = new PrometheusMetrics();
+    metrics.addMonitorEntry(new LinkedHashMapEntry(
+        "dn: cn=Domain,cn=monitor",
+        "receive-to-replay-latency-count: 4",
+        "receive-to-replay-latency-average-ms: 2",
+        "receive-to-replay-latency-sum-ms: 10.75",
+        "receive-to-replay-latency-le-1ms: 1",
+        "receive-to-replay-latency-le-5ms: 3"));
+
+    assertThat(metrics.toString()).contains(
+        "# TYPE ds_receive_to_replay_latency_ms histogram\n"
+        + "ds_receive_to_replay_latency_ms_bucket{monitor=\"cn=Domain,cn=monitor\",le=\"1\"} 1\n"
+        + "ds_receive_to_replay_latency_ms_bucket{monitor=\"cn=Domain,cn=monitor\",le=\"5\"} 3\n"
+        + "ds_receive_to_replay_latency_ms_bucket{monitor=\"cn=Domain,cn=monitor\",le=\"+Inf\"} 4\n"
+        + "ds_receive_to_replay_latency_ms_count{monitor=\"cn=Domain,cn=monitor\"} 4\n"
+        + "ds_receive_to_replay_latency_ms_sum{monitor=\"cn=Domain,cn=monitor\"} 10.75\n");
+  }
+
+  @Test
+  public void monitorsWithTheSameNameHaveDistinctLabels()
+  {
+    final PrometheusMetrics metrics = new PrometheusMetrics();
+    metrics.addMonitorEntry(new LinkedHashMapEntry(
+        "dn: cn=Work Queue,cn=Backend1,cn=monitor",
+        "requests-in-queue: 1"));
+    metrics.addMonitorEntry(new LinkedHashMapEntry(
+        "dn: cn=Work Queue,cn=Backend2,cn=monitor",
+        "requests-in-queue: 2"));
+
+    assertThat(metrics.toString()).isEqualTo(
+        "# TYPE ds_requests_in_queue untyped\n"
+        + "ds_requests_in_queue{monitor=\"cn=Work Queue,cn=Backend1,cn=monitor\"} 1\n"
+        + "ds_requests_in_queue{monitor=\"cn=Work Queue,cn=Backend2,cn=monitor\"} 2\n");
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.common;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.testng.Assert.*;
+
+import org.opends.server.DirectoryServerTestCase;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class LatencyHistogramTest extends DirectoryServerTestCase
+{
+  @Test
+  public void emptyHistogram()
+  {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(histogram.getCount(), 0);
+    assertEquals(histogram.getQuantileMillis(0.5), -1);
+    assertEquals(histogram.getSumMillis(), 0.0);
+  }
+
+  @Test
+  public void recordLatencies()
+  {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(MICROSECONDS.toNanos(500));
+    histogram.record(MILLISECONDS.toNanos(1));
+    histogram.record(MILLISECONDS.toNanos(3));
+    histogram.record(MILLISECONDS.toNanos(40));
+    histogram.record(SECONDS.toNanos(10));
+
+    assertEquals(histogram.getCount(), 5);
+    assertEquals(histogram.getCountLowerThanOrEqualTo(1), 2);
+    assertEquals(histogram.getCountLowerThanOrEqualTo(5), 3);
+    assertEquals(histogram.getCountLowerThanOrEqualTo(50), 4);
+    assertEquals(histogram.getCountLowerThanOrEqualTo(5000), 4);
+    assertEquals(histogram.getQuantileMillis(0.4), 1);
+    assertEquals(histogram.getQuantileMillis(0.6), 5);
+    assertEquals(histogram.getQuantileMillis(0.8), 50);
+    assertEquals(histogram.getQuantileMillis(1), -1, "last latency is in the unbounded bucket");
+    assertEquals(histogram.getSumMillis(), 10044.5);
+  }
+
+  @Test
+  public void negativeLatencyIsRecordedAsZero()
+  {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-1);
+    assertEquals(histogram.getCountLowerThanOrEqualTo(1), 1);
+  }
+}
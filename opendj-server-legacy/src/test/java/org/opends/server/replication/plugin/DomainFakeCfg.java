@@ -326,6 +326,12 @@ public class DomainFakeCfg implements ReplicationDomainCfg
     return 1440;
   }
 
+  @Override
+  public boolean isConflictsHistoricalCompactEncoding()
+  {
+    return false;
+  }
+
   @Override
   public String toString()
   {
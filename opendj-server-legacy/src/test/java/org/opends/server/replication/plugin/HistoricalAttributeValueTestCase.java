@@ -15,8 +15,18 @@
  */
 package org.opends.server.replication.plugin;
 
+import static org.assertj.core.api.Assertions.*;
+import static org.opends.server.replication.plugin.HistAttrModificationKey.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import org.assertj.core.api.Assertions;
+import org.forgerock.opendj.ldap.AttributeDescription;
+import org.forgerock.opendj.ldap.ByteString;
 import org.opends.server.replication.ReplicationTestCase;
+import org.opends.server.replication.common.CSN;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
@@ -47,4 +57,45 @@ public class HistoricalAttributeValueTestCase extends ReplicationTestCase
     HistoricalAttributeValue val = new HistoricalAttributeValue(strVal);
     Assertions.assertThat(strVal).isEqualTo(val.toString());
   }
+
+  @Test(dataProvider = "values")
+  public void testDecodeTextualValue(String strVal)
+  {
+    ByteString value = ByteString.valueOfUtf8(strVal);
+    assertThat(HistoricalCompactEncoding.isPacked(value)).isFalse();
+    assertThat(toStrings(HistoricalAttributeValue.decode(value))).containsExactly(strVal);
+  }
+
+  @Test
+  public void testPackedEncodingRoundTrip()
+  {
+    AttributeDescription attrDesc = AttributeDescription.valueOf("description;FR");
+    List<HistoricalAttributeValue> values = Arrays.asList(
+        new HistoricalAttributeValue(attrDesc, new CSN(0x14f2d0c9f53L, 1, 1), ADD, ByteString.valueOfUtf8("added")),
+        new HistoricalAttributeValue(attrDesc, new CSN(0x14f2d0c9f60L, 7, 1), DEL, ByteString.valueOfUtf8("deleted")),
+        new HistoricalAttributeValue(attrDesc, new CSN(0x14f2d0ca000L, 2, 1), REPL, ByteString.empty()),
+        new HistoricalAttributeValue(attrDesc, new CSN(0x14f2d0c0000L, 0, 1), ATTRDEL, null));
+
+    ByteString packed = HistoricalCompactEncoding.encode(attrDesc, values);
+
+    assertThat(HistoricalCompactEncoding.isPacked(packed)).isTrue();
+    assertThat(packed.toString()).startsWith("description;FR:0000014f2d0ca000000100000002:packed:");
+    assertThat(toStrings(HistoricalAttributeValue.decode(packed))).isEqualTo(toStrings(values));
+    int textualSize = 0;
+    for (HistoricalAttributeValue value : values)
+    {
+      textualSize += value.toString().length();
+    }
+    assertThat(packed.length()).isLessThan(textualSize);
+  }
+
+  private List<String> toStrings(List<HistoricalAttributeValue> values)
+  {
+    List<String> results = new ArrayList<>();
+    for (HistoricalAttributeValue value : values)
+    {
+      results.add(value.toString());
+    }
+    return results;
+  }
 }
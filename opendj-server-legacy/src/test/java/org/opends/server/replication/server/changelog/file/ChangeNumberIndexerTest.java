@@ -26,6 +26,7 @@ import static org.opends.server.replication.server.changelog.api.DBCursor.KeyMat
 import static org.opends.server.replication.server.changelog.api.DBCursor.PositionStrategy.ON_MATCHING_KEY;
 
 import java.lang.Thread.State;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -689,10 +690,14 @@ public class ChangeNumberIndexerTest extends DirectoryServerTestCase
   private void assertExternalChangelogContent(ReplicatedUpdateMsg... expectedMsgs)
       throws Exception
   {
-    final ArgumentCaptor<ChangeNumberIndexRecord> arg =
-        ArgumentCaptor.forClass(ChangeNumberIndexRecord.class);
-    verify(cnIndexDB, atLeast(0)).addRecord(arg.capture());
-    final List<ChangeNumberIndexRecord> allValues = arg.getAllValues();
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    final ArgumentCaptor<List<ChangeNumberIndexRecord>> arg = (ArgumentCaptor) ArgumentCaptor.forClass(List.class);
+    verify(cnIndexDB, atLeast(0)).addRecords(arg.capture());
+    final List<ChangeNumberIndexRecord> allValues = new ArrayList<>();
+    for (List<ChangeNumberIndexRecord> records : arg.getAllValues())
+    {
+      allValues.addAll(records);
+    }
 
     // check it was not called more than expected
     String desc1 = "actual was:<" + allValues + ">, but expected was:<" + Arrays.toString(expectedMsgs) + ">";
@@ -19,6 +19,8 @@ import static org.assertj.core.api.Assertions.*;
 import static org.opends.server.replication.server.changelog.file.FileReplicaDBTest.*;
 import static org.testng.Assert.*;
 
+import java.util.Arrays;
+
 import org.forgerock.opendj.config.server.ConfigException;
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.server.config.server.ReplicationServerCfg;
@@ -106,6 +108,40 @@ public class FileChangeNumberIndexDBTest extends ReplicationTestCase
     }
   }
 
+  @Test
+  public void testAddRecordsInBatch() throws Exception
+  {
+    ReplicationServer replicationServer = null;
+    try
+    {
+      replicationServer = newReplicationServer(false);
+      final ChangelogDB changelogDB = replicationServer.getChangelogDB();
+      changelogDB.setPurgeDelay(0);
+      final FileChangeNumberIndexDB cnIndexDB = getCNIndexDB(replicationServer);
+
+      long cn1 = addRecord(cnIndexDB, DN.valueOf("o=test1"), generateCSNs(1, 0, 1)[0]);
+      CSN[] csns = generateCSNs(2, 0, 3);
+      long cn2 = cnIndexDB.addRecords(Arrays.asList(
+          new ChangeNumberIndexRecord(DN.valueOf("o=test1"), csns[0]),
+          new ChangeNumberIndexRecord(DN.valueOf("o=test2"), csns[1]),
+          new ChangeNumberIndexRecord(DN.valueOf("o=test3"), csns[2])));
+
+      assertEquals(cn2, cn1 + 1);
+      assertEquals(cnIndexDB.getNewestRecord().getChangeNumber(), cn1 + 3);
+      assertEquals(cnIndexDB.getLastGeneratedChangeNumber(), cn1 + 3);
+      assertEquals(cnIndexDB.count(), 4, "Db count");
+      try (DBCursor<ChangeNumberIndexRecord> cursor = cnIndexDB.getCursorFrom(cn1))
+      {
+        assertCursorReadsInOrder(cursor, cn1, cn1 + 1, cn1 + 2, cn1 + 3);
+      }
+      assertEquals(cnIndexDB.getNewestRecord().getCSN(), csns[2]);
+    }
+    finally
+    {
+      remove(replicationServer);
+    }
+  }
+
   @Test
   public void testClear() throws Exception
   {
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
@@ -20,6 +21,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import java.util.LinkedList;
 import java.util.Random;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -27,6 +29,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import org.forgerock.opendj.ldap.DN;
+import org.forgerock.util.time.TimeService;
 import org.opends.server.TestCaseUtils;
 import org.opends.server.types.LockManager.DNLock;
 import org.testng.annotations.BeforeClass;
@@ -95,6 +98,92 @@ public class LockManagerTest extends TypesTestCase
     unlockUsingThread(thread1, lock1);
   }
 
+  @Test
+  public void testTimedOutLockAttemptsAreCounted() throws Exception
+  {
+    final LockManager lockManager = new LockManager(100, TimeUnit.MILLISECONDS);
+    lockManager.timeService = newTimeService(null, 250);
+    DNLock lock1 = lockUsingThread(thread1, lockManager, LockType.WRITE_ENTRY, dnABC).get();
+    unlockUsingThread(thread1, lock1);
+    assertThat(lockManager.getContendedLockCount()).isEqualTo(0);
+    assertThat(lockManager.getNumberOfLocks()).isGreaterThan(0);
+
+    lock1 = lockUsingThread(thread1, lockManager, LockType.WRITE_ENTRY, dnABC).get();
+    DNLock lock2 = lockUsingThread(thread2, lockManager, LockType.WRITE_ENTRY, dnABC).get();
+    assertThat(lock2).isNull(); // Timed out.
+    unlockUsingThread(thread1, lock1);
+
+    assertThat(lockManager.getContendedLockCount()).isEqualTo(1);
+    assertThat(lockManager.getTimedOutLockCount()).isEqualTo(1);
+    assertThat(lockManager.getLockWaitTimeHistogram()).containsExactly(0, 0, 0, 1, 0);
+  }
+
+  @Test
+  public void testContendedLockAttemptsAreCounted() throws Exception
+  {
+    final LockManager lockManager = new LockManager();
+    final CountDownLatch waiting = new CountDownLatch(1);
+    lockManager.timeService = newTimeService(waiting, 5);
+    final DNLock lock1 = lockUsingThread(thread1, lockManager, LockType.WRITE_ENTRY, dnABC).get();
+    final Future<DNLock> lock2Future = lockUsingThread(thread2, lockManager, LockType.WRITE_ENTRY, dnABC);
+
+    // Only release the lock once the second thread has failed to acquire it without waiting.
+    waiting.await();
+    unlockUsingThread(thread1, lock1);
+    unlockUsingThread(thread2, lock2Future.get());
+
+    assertThat(lockManager.getContendedLockCount()).isEqualTo(1);
+    assertThat(lockManager.getTimedOutLockCount()).isEqualTo(0);
+    assertThat(lockManager.getLockWaitTimeHistogram()).containsExactly(0, 1, 0, 0, 0);
+  }
+
+  /** Returns a time service counting down the provided latch when a wait starts and returning the wait time. */
+  private TimeService newTimeService(final CountDownLatch waiting, final long waitTimeMillis)
+  {
+    return new TimeService()
+    {
+      @Override
+      public long now()
+      {
+        if (waiting != null)
+        {
+          waiting.countDown();
+        }
+        return 0;
+      }
+
+      @Override
+      public long since(final long past)
+      {
+        return waitTimeMillis;
+      }
+    };
+  }
+
+  @Test
+  public void testRemovedLocksAreReused() throws Exception
+  {
+    final LockManager lockManager = new LockManager();
+    for (int i = 0; i < 100; i++)
+    {
+      lockManager.tryWriteLockEntry(dn(i)).unlock();
+    }
+    // The locks evicted from the thread local cache have been removed from the lock table.
+    assertThat(lockManager.getNumberOfPooledLocks()).isGreaterThan(0);
+
+    // Each bucket needs again as many locks as were removed from it.
+    final LinkedList<DNLock> locks = new LinkedList<>();
+    for (int i = 0; i < 100; i++)
+    {
+      locks.add(lockManager.tryWriteLockEntry(dn(i)));
+    }
+    assertThat(lockManager.getNumberOfPooledLocks()).isEqualTo(0);
+    for (final DNLock lock : locks)
+    {
+      lock.unlock();
+    }
+  }
+
   @DataProvider
   private Object[][] multiThreadedLockCombinationsWhichShouldBlock()
   {
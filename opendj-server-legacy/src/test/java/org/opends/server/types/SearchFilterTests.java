@@ -14,6 +14,7 @@
  * Copyright 2008 Sun Microsystems, Inc.
  * Portions Copyright 2013-2014 Manuel Gaupp
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
@@ -418,6 +419,53 @@ public class SearchFilterTests extends DirectoryServerTestCase {
     runMatchTest(ldifEntry, filterStr, expectMatch);
   }
 
+  /** Filters having an undefined component, which cannot be negated by runMatchTest. */
+  @DataProvider
+  public Object[][] undefinedComponentParams() {
+    return new Object[][]{
+            // The AND filter is false whatever the position of the undefined component.
+            {JOHN_SMITH_LDIF, "(!(&(sn:1.2.3.4:=Smith)(cn=Jane Smith)))", true},
+            {JOHN_SMITH_LDIF, "(!(&(cn=Jane Smith)(sn:1.2.3.4:=Smith)))", true},
+            {JOHN_SMITH_LDIF, "(!(&(sn:1.2.3.4:=Smith)(cn=John Smith)))", false},
+            {JOHN_SMITH_LDIF, "(!(|(sn:1.2.3.4:=Smith)(cn=Jane Smith)))", false},
+            {JOHN_SMITH_LDIF, "(|(cn=Jane Smith)(sn:1.2.3.4:=Smith)(cn=*Smith*))", true},
+            {JOHN_SMITH_LDIF, "(&(cn=*Smith*)(objectclass=*)(sn:caseExactMatch:=Smith))", true},
+    };
+  }
+
+  @Test(dataProvider = "undefinedComponentParams")
+  public void testMatchesWithUndefinedComponent(String ldifEntry, String filterStr, boolean expectMatch)
+      throws Exception {
+    runSingleMatchTest(TestCaseUtils.entryFromLdifString(ldifEntry), filterStr, expectMatch);
+  }
+
+  /** Filters whose normalized assertions are reused from one entry to the next. */
+  @DataProvider
+  public Object[][] reusedFilterParams() {
+    return new Object[][]{
+            {"(sn=smith)", asList(JANE_SMITH_LDIF, JOE_SMITH_LDIF)},
+            {"(sn>=b)", asList(JANE_SMITH_LDIF, JOE_SMITH_LDIF)},
+            {"(sn<=b)", asList(JANE_AUSTIN_LDIF, JOE_AUSTIN_LDIF)},
+            {"(givenname=j*e)", ALL_ENTRIES_LDIF},
+            {"(sn~=smythe)", asList(JANE_SMITH_LDIF, JOE_SMITH_LDIF)},
+            // cn and givenname are subtypes of name
+            {"(name=jane*)", asList(JANE_SMITH_LDIF, JANE_AUSTIN_LDIF)},
+            {"(&(name=*e*)(!(sn=austin)))", asList(JANE_SMITH_LDIF, JOE_SMITH_LDIF)},
+    };
+  }
+
+  @Test(dataProvider = "reusedFilterParams")
+  public void testMatchesSeveralEntriesWithSameFilter(String filterStr, List<String> matchedEntries) throws Exception {
+    final SearchFilter filter = SearchFilter.createFilterFromString(filterStr);
+    for (int i = 0; i < 2; i++) {
+      for (String ldifEntry : ALL_ENTRIES_LDIF) {
+        Entry entry = TestCaseUtils.entryFromLdifString(ldifEntry);
+        Assert.assertEquals(filter.matchesEntry(entry), matchedEntries.contains(ldifEntry),
+            "Filter=" + filter + "\nEntry=" + entry);
+      }
+    }
+  }
+
   private void runMatchTest(String ldifEntry, String filterStr, boolean expectMatch) throws Exception {
     Entry entry = TestCaseUtils.entryFromLdifString(ldifEntry);
 
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
@@ -117,4 +118,26 @@ public final class TestSubtreeSpecification extends SubtreeSpecificationTestCase
     SubtreeSpecification ss = SubtreeSpecification.valueOf(DN.rootDN(), value);
     assertEquals(ss.isWithinScope(createEntry(dn, getObjectClasses())), expected);
   }
+
+  @DataProvider
+  public Object[][] isScopeUniformBelowData() {
+    return new Object[][] {
+      { "dc=sun, dc=com", "{ base \"dc=sun, dc=com\" }", true },
+      { "dc=sun, dc=com", "{ base \"dc=sun, dc=com\", minimum 1, maximum 2 }", true },
+      { "dc=sun, dc=com", "{ base \"dc=sun, dc=com\", specificationFilter or:{item:person, not:item:top} }",
+        true },
+      { "dc=sun, dc=com", "{ base \"dc=sun, dc=com\", specificationFilter \"(objectClass=person)\" }", false },
+      { "dc=sun, dc=com", "{ base \"dc=sun, dc=com\", specificExclusions { chopAfter:\"dc=foo\" } }", true },
+      { "dc=sun, dc=com", "{ base \"dc=sun, dc=com\", specificExclusions { chopBefore:\"dc=foo\" } }", false },
+      { "dc=foo, dc=sun, dc=com",
+        "{ base \"dc=sun, dc=com\", specificExclusions { chopBefore:\"dc=foo\" } }", true },
+    };
+  }
+
+  /** Tests the {@link SubtreeSpecification#isScopeUniformBelow(DN)} method. */
+  @Test(dataProvider = "isScopeUniformBelowData")
+  public void testIsScopeUniformBelow(String parentDN, String value, boolean expected) throws Exception {
+    SubtreeSpecification ss = SubtreeSpecification.valueOf(DN.rootDN(), value);
+    assertEquals(ss.isScopeUniformBelow(DN.valueOf(parentDN)), expected);
+  }
 }